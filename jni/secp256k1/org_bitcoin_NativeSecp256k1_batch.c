@@ -0,0 +1,54 @@
+#include <stdint.h>
+#include "org_bitcoin_NativeSecp256k1.h"
+#include "include/secp256k1.h"
+
+/*
+ * Verifies a batch of ECDSA signatures packed into a single direct ByteBuffer.
+ *  Each item is laid out as: message (32 bytes) | compact signature (64 bytes, r || s) | public key length (1 byte) | public key.
+ *  Signatures are normalized to low-S before verification, matching Signature::asCanonical.
+ *  Returns 1 if every signature is valid, otherwise 0.
+ *
+ * This file must be appended to (or compiled alongside) src/java/org_bitcoin_NativeSecp256k1.c of libsecp256k1 when building with --enable-jni.
+ */
+SECP256K1_API jint JNICALL Java_org_bitcoin_NativeSecp256k1_secp256k1_1ecdsa_1verify_1batch(JNIEnv* env, jclass classObject, jobject byteBufferObject, jlong ctx_l, jint signatureCount) {
+    secp256k1_context* ctx = (secp256k1_context*) (uintptr_t) ctx_l;
+    const unsigned char* data = (const unsigned char*) (*env)->GetDirectBufferAddress(env, byteBufferObject);
+    const jlong capacity = (*env)->GetDirectBufferCapacity(env, byteBufferObject);
+
+    jlong offset = 0;
+    jint i;
+
+    (void) classObject;
+
+    if (signatureCount > 0 && data == NULL) { return 0; }
+
+    for (i = 0; i < signatureCount; ++i) {
+        const unsigned char* message;
+        const unsigned char* compactSignature;
+        const unsigned char* publicKeyBytes;
+        size_t publicKeyLength;
+        secp256k1_ecdsa_signature signature;
+        secp256k1_pubkey publicKey;
+
+        if ((offset + 32 + 64 + 1) > capacity) { return 0; }
+        message = (data + offset);
+        offset += 32;
+        compactSignature = (data + offset);
+        offset += 64;
+        publicKeyLength = (size_t) data[offset];
+        offset += 1;
+
+        if ((offset + (jlong) publicKeyLength) > capacity) { return 0; }
+        publicKeyBytes = (data + offset);
+        offset += (jlong) publicKeyLength;
+
+        if (! secp256k1_ecdsa_signature_parse_compact(ctx, &signature, compactSignature)) { return 0; }
+        secp256k1_ecdsa_signature_normalize(ctx, &signature, &signature);
+
+        if (! secp256k1_ec_pubkey_parse(ctx, &publicKey, publicKeyBytes, publicKeyLength)) { return 0; }
+
+        if (! secp256k1_ecdsa_verify(ctx, &signature, message, &publicKey)) { return 0; }
+    }
+
+    return 1;
+}
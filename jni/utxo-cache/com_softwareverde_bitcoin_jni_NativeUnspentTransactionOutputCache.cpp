@@ -370,3 +370,104 @@ JNIEXPORT void JNICALL Java_com_softwareverde_bitcoin_jni_NativeUnspentTransacti
     
     cache->prune_half();
 }
+
+#define record_byte_count com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache_RECORD_BYTE_COUNT
+
+// Returns the address of the packed (transaction_hash, transaction_output_index) records, or 0 if the buffer is not direct or is too small...
+const jbyte* get_records(JNIEnv* environment, jobject jni_records, jint record_count) {
+    if (record_count < 0) { return 0; }
+
+    const jbyte* const records = (const jbyte*) environment->GetDirectBufferAddress(jni_records);
+    if (records == 0) { return 0; }
+
+    const jlong capacity = environment->GetDirectBufferCapacity(jni_records);
+    if (capacity < (((jlong) record_count) * record_byte_count)) { return 0; }
+
+    return records;
+}
+
+jint get_record_transaction_output_index(const jbyte* const record) {
+    jint transaction_output_index;
+    memcpy(&transaction_output_index, (record + 32), sizeof(jint));
+    return transaction_output_index;
+}
+
+JNIEXPORT void JNICALL Java_com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache__1cacheUnspentTransactionOutputIds(JNIEnv* environment, jclass _class, jint cache_index, jobject jni_records, jint record_count, jlongArray jni_transaction_output_ids) {
+    if (cache_index >= 256) { return; }
+    if (cache_index < 0) { return; }
+
+    cache* const cache = CACHES[cache_index];
+    if (cache == 0) { return; }
+
+    const jbyte* const records = get_records(environment, jni_records, record_count);
+    if (records == 0) { return; }
+    if (environment->GetArrayLength(jni_transaction_output_ids) < record_count) { return; }
+
+    jlong* const transaction_output_ids = (jlong*) environment->GetPrimitiveArrayCritical(jni_transaction_output_ids, NULL);
+    for (jint i = 0; i < record_count; ++i) {
+        const jbyte* const record = (records + (i * record_byte_count));
+        const prevout* const prevout = new struct prevout(record, get_record_transaction_output_index(record));
+        cache->cache_utxo(prevout, transaction_output_ids[i]);
+    }
+    environment->ReleasePrimitiveArrayCritical(jni_transaction_output_ids, transaction_output_ids, JNI_ABORT);
+}
+
+JNIEXPORT void JNICALL Java_com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache__1getCachedUnspentTransactionOutputIds(JNIEnv* environment, jclass _class, jint cache_index, jobject jni_records, jint record_count, jlongArray jni_transaction_output_ids) {
+    if (cache_index >= 256) { return; }
+    if (cache_index < 0) { return; }
+
+    const cache* const cache = CACHES[cache_index];
+    if (cache == 0) { return; }
+
+    const jbyte* const records = get_records(environment, jni_records, record_count);
+    if (records == 0) { return; }
+    if (environment->GetArrayLength(jni_transaction_output_ids) < record_count) { return; }
+
+    jlong* const transaction_output_ids = (jlong*) environment->GetPrimitiveArrayCritical(jni_transaction_output_ids, NULL);
+    for (jint i = 0; i < record_count; ++i) {
+        const jbyte* const record = (records + (i * record_byte_count));
+        const prevout prevout(record, get_record_transaction_output_index(record));
+        transaction_output_ids[i] = cache->get_cached_utxo(prevout);
+    }
+    environment->ReleasePrimitiveArrayCritical(jni_transaction_output_ids, transaction_output_ids, 0);
+}
+
+JNIEXPORT void JNICALL Java_com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache__1invalidateUnspentTransactionOutputIds(JNIEnv* environment, jclass _class, jint cache_index, jobject jni_records, jint record_count) {
+    if (cache_index >= 256) { return; }
+    if (cache_index < 0) { return; }
+
+    cache* const cache = CACHES[cache_index];
+    if (cache == 0) { return; }
+
+    const jbyte* const records = get_records(environment, jni_records, record_count);
+    if (records == 0) { return; }
+
+    for (jint i = 0; i < record_count; ++i) {
+        const jbyte* const record = (records + (i * record_byte_count));
+        const prevout* const prevout = new struct prevout(record, get_record_transaction_output_index(record));
+        cache->invalidate_utxo(prevout);
+    }
+}
+
+JNIEXPORT void JNICALL Java_com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache__1loadUnspentTransactionOutputIds(JNIEnv* environment, jclass _class, jint cache_index, jobject jni_records, jint record_count, jlongArray jni_insert_ids, jlongArray jni_transaction_output_ids) {
+    if (cache_index >= 256) { return; }
+    if (cache_index < 0) { return; }
+
+    cache* const cache = CACHES[cache_index];
+    if (cache == 0) { return; }
+
+    const jbyte* const records = get_records(environment, jni_records, record_count);
+    if (records == 0) { return; }
+    if (environment->GetArrayLength(jni_insert_ids) < record_count) { return; }
+    if (environment->GetArrayLength(jni_transaction_output_ids) < record_count) { return; }
+
+    jlong* const insert_ids = (jlong*) environment->GetPrimitiveArrayCritical(jni_insert_ids, NULL);
+    jlong* const transaction_output_ids = (jlong*) environment->GetPrimitiveArrayCritical(jni_transaction_output_ids, NULL);
+    for (jint i = 0; i < record_count; ++i) {
+        const jbyte* const record = (records + (i * record_byte_count));
+        const prevout* const prevout = new struct prevout(insert_ids[i], record, get_record_transaction_output_index(record));
+        cache->cache_utxo(prevout, transaction_output_ids[i]);
+    }
+    environment->ReleasePrimitiveArrayCritical(jni_transaction_output_ids, transaction_output_ids, JNI_ABORT);
+    environment->ReleasePrimitiveArrayCritical(jni_insert_ids, insert_ids, JNI_ABORT);
+}
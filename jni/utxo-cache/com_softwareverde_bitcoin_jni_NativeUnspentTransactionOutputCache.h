@@ -7,6 +7,8 @@
 #ifdef __cplusplus
 extern "C" {
 #endif
+#undef com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache_RECORD_BYTE_COUNT
+#define com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache_RECORD_BYTE_COUNT 36L
 /*
  * Class:     com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache
  * Method:    _init
@@ -95,6 +97,38 @@ JNIEXPORT void JNICALL Java_com_softwareverde_bitcoin_jni_NativeUnspentTransacti
 JNIEXPORT void JNICALL Java_com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache__1loadUnspentTransactionOutputId
   (JNIEnv *, jclass, jint, jlong, jbyteArray, jint, jlong);
 
+/*
+ * Class:     com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache
+ * Method:    _cacheUnspentTransactionOutputIds
+ * Signature: (ILjava/nio/ByteBuffer;I[J)V
+ */
+JNIEXPORT void JNICALL Java_com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache__1cacheUnspentTransactionOutputIds
+  (JNIEnv *, jclass, jint, jobject, jint, jlongArray);
+
+/*
+ * Class:     com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache
+ * Method:    _getCachedUnspentTransactionOutputIds
+ * Signature: (ILjava/nio/ByteBuffer;I[J)V
+ */
+JNIEXPORT void JNICALL Java_com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache__1getCachedUnspentTransactionOutputIds
+  (JNIEnv *, jclass, jint, jobject, jint, jlongArray);
+
+/*
+ * Class:     com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache
+ * Method:    _invalidateUnspentTransactionOutputIds
+ * Signature: (ILjava/nio/ByteBuffer;I)V
+ */
+JNIEXPORT void JNICALL Java_com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache__1invalidateUnspentTransactionOutputIds
+  (JNIEnv *, jclass, jint, jobject, jint);
+
+/*
+ * Class:     com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache
+ * Method:    _loadUnspentTransactionOutputIds
+ * Signature: (ILjava/nio/ByteBuffer;I[J[J)V
+ */
+JNIEXPORT void JNICALL Java_com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache__1loadUnspentTransactionOutputIds
+  (JNIEnv *, jclass, jint, jobject, jint, jlongArray, jlongArray);
+
 /*
  * Class:     com_softwareverde_bitcoin_jni_NativeUnspentTransactionOutputCache
  * Method:    _setMaxItemCount
@@ -0,0 +1,59 @@
+package com.softwareverde.bitcoin.block;
+
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.block.header.BlockHeaderInflater;
+import com.softwareverde.bitcoin.transaction.LazyTransaction;
+import com.softwareverde.bitcoin.transaction.LazyTransactionInflater;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.mutable.MutableList;
+
+/**
+ * Inflates Blocks whose Transactions are LazyTransactions referencing the serialized Block, rather than fully decoded copies.
+ *  The serialized Block is retained (not copied) and must not be modified after inflation.
+ *  Inflating from a ByteArrayReader falls back to the eager BlockInflater since the reader's buffer cannot be shared.
+ */
+public class LazyBlockInflater extends BlockInflater {
+    protected MutableBlock _fromRawBytes(final byte[] bytes) {
+        final BlockHeaderInflater blockHeaderInflater = new BlockHeaderInflater();
+        final LazyTransactionInflater transactionInflater = new LazyTransactionInflater();
+
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+        final BlockHeader blockHeader = blockHeaderInflater.fromBytes(byteArrayReader);
+        if (blockHeader == null) { return null; }
+
+        final Integer transactionCount = byteArrayReader.readVariableSizedInteger().intValue();
+        if (transactionCount > MAX_TRANSACTION_COUNT) { return null; }
+        if (byteArrayReader.didOverflow()) { return null; }
+
+        final MutableList<Transaction> transactions = new MutableList<Transaction>(transactionCount);
+
+        int offset = byteArrayReader.getPosition();
+        for (int i = 0; i < transactionCount; ++i) {
+            final LazyTransaction transaction = transactionInflater.fromBytes(bytes, offset);
+            if (transaction == null) { return null; }
+
+            transactions.add(transaction);
+            offset += transaction.getByteCount();
+        }
+
+        return new MutableBlock(blockHeader, transactions);
+    }
+
+    @Override
+    public MutableBlock fromBytes(final ByteArray byteArray) {
+        if (byteArray == null) { return null; }
+
+        final byte[] bytes = ((byteArray instanceof MutableByteArray) ? ((MutableByteArray) byteArray).unwrap() : byteArray.getBytes());
+        return _fromRawBytes(bytes);
+    }
+
+    @Override
+    public MutableBlock fromBytes(final byte[] bytes) {
+        if (bytes == null) { return null; }
+
+        return _fromRawBytes(bytes);
+    }
+}
@@ -0,0 +1,97 @@
+package com.softwareverde.bitcoin.block.filter;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
+import com.softwareverde.bitcoin.transaction.script.opcode.Opcode;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+
+/**
+ * Builds BIP-158 compact block filters and their BIP-157 filter headers.
+ *  Hashes are handled in the same (reversed, display) byte order as other Sha256Hashes within the node.
+ */
+public class BlockFilterBuilder {
+    public static final Integer BASIC_FILTER_TYPE = 0x00;
+    public static final Integer BASIC_FILTER_P = 19;
+    public static final Long BASIC_FILTER_M = 784931L;
+
+    protected static void _addItem(final LockingScript lockingScript, final HashSet<ByteBuffer> uniqueItems, final MutableList<ByteArray> items) {
+        final ByteArray bytes = lockingScript.getBytes();
+        final byte[] rawBytes = bytes.getBytes();
+        if (uniqueItems.add(ByteBuffer.wrap(rawBytes))) {
+            items.add(MutableByteArray.wrap(rawBytes));
+        }
+    }
+
+    /**
+     * Returns the key used to hash a Block's filter items: the first 16 bytes of the Block hash, in its serialized (little-endian) byte order.
+     */
+    public static ByteArray getFilterKey(final Sha256Hash blockHash) {
+        return blockHash.toReversedEndian();
+    }
+
+    /**
+     * Builds the basic filter for the Block.
+     *  The filter contains every output LockingScript of the Block (excluding empty and OP_RETURN scripts) and
+     *  every LockingScript spent by the Block's non-coinbase inputs (excluding empty scripts).
+     *  previousLockingScripts must contain the LockingScripts spent by the Block; order is irrelevant.
+     */
+    public ByteArray buildBasicFilter(final Block block, final List<LockingScript> previousLockingScripts) {
+        final HashSet<ByteBuffer> uniqueItems = new HashSet<ByteBuffer>();
+        final MutableList<ByteArray> items = new MutableList<ByteArray>();
+
+        for (final Transaction transaction : block.getTransactions()) {
+            for (final TransactionOutput transactionOutput : transaction.getTransactionOutputs()) {
+                final LockingScript lockingScript = transactionOutput.getLockingScript();
+                final ByteArray bytes = lockingScript.getBytes();
+                if (bytes.isEmpty()) { continue; }
+                if (bytes.getByte(0) == Opcode.RETURN.getValue()) { continue; }
+
+                _addItem(lockingScript, uniqueItems, items);
+            }
+        }
+
+        for (final LockingScript lockingScript : previousLockingScripts) {
+            if (lockingScript.getBytes().isEmpty()) { continue; }
+
+            _addItem(lockingScript, uniqueItems, items);
+        }
+
+        final ByteArray filterKey = BlockFilterBuilder.getFilterKey(block.getHash());
+        return GolombCodedSet.encode(items, filterKey, BASIC_FILTER_P, BASIC_FILTER_M);
+    }
+
+    public Sha256Hash calculateFilterHash(final ByteArray filter) {
+        return MutableSha256Hash.wrap(ByteUtil.reverseEndian(BitcoinUtil.sha256(BitcoinUtil.sha256(filter.getBytes()))));
+    }
+
+    /**
+     * Returns the filter header, which commits to the filter and to every preceding filter header.
+     *  The previousFilterHeader of the genesis Block is Sha256Hash.EMPTY_HASH.
+     */
+    public Sha256Hash calculateFilterHeader(final Sha256Hash filterHash, final Sha256Hash previousFilterHeader) {
+        final byte[] bytes = new byte[Sha256Hash.BYTE_COUNT * 2];
+        System.arraycopy(filterHash.toReversedEndian().getBytes(), 0, bytes, 0, Sha256Hash.BYTE_COUNT);
+        System.arraycopy(previousFilterHeader.toReversedEndian().getBytes(), 0, bytes, Sha256Hash.BYTE_COUNT, Sha256Hash.BYTE_COUNT);
+        return MutableSha256Hash.wrap(ByteUtil.reverseEndian(BitcoinUtil.sha256(BitcoinUtil.sha256(bytes))));
+    }
+
+    /**
+     * Returns true if the item may be within the Block's filter.
+     */
+    public Boolean matches(final Sha256Hash blockHash, final ByteArray filter, final ByteArray item) {
+        final ByteArray filterKey = BlockFilterBuilder.getFilterKey(blockHash);
+        return GolombCodedSet.matches(filter, filterKey, BASIC_FILTER_P, BASIC_FILTER_M, item);
+    }
+}
@@ -0,0 +1,173 @@
+package com.softwareverde.bitcoin.block.filter;
+
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.siphash.SipHashUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Golomb-Coded Set encoding as specified by BIP-158 ( https://github.com/bitcoin/bips/blob/master/bip-0158.mediawiki ).
+ *  A serialized set is the item count (as a variable-length integer) followed by the Golomb-Rice coded deltas of the sorted item hashes.
+ */
+public class GolombCodedSet {
+    protected static class BitWriter {
+        protected final ByteArrayOutputStream _byteArrayOutputStream = new ByteArrayOutputStream();
+        protected int _currentByte = 0;
+        protected int _currentBitCount = 0;
+
+        public void writeBit(final boolean bit) {
+            _currentByte = ((_currentByte << 1) | (bit ? 1 : 0));
+            _currentBitCount += 1;
+
+            if (_currentBitCount == 8) {
+                _byteArrayOutputStream.write(_currentByte);
+                _currentByte = 0;
+                _currentBitCount = 0;
+            }
+        }
+
+        public void writeBits(final long value, final int bitCount) {
+            for (int i = (bitCount - 1); i >= 0; --i) {
+                writeBit(((value >>> i) & 0x01L) != 0L);
+            }
+        }
+
+        public byte[] toBytes() {
+            if (_currentBitCount > 0) { // Pad the final byte with zeroes...
+                _byteArrayOutputStream.write(_currentByte << (8 - _currentBitCount));
+                _currentByte = 0;
+                _currentBitCount = 0;
+            }
+            return _byteArrayOutputStream.toByteArray();
+        }
+    }
+
+    protected static class BitReader {
+        protected final ByteArray _bytes;
+        protected int _bitIndex;
+
+        public BitReader(final ByteArray bytes, final int byteOffset) {
+            _bytes = bytes;
+            _bitIndex = (byteOffset * 8);
+        }
+
+        public int getRemainingBitCount() {
+            return ((_bytes.getByteCount() * 8) - _bitIndex);
+        }
+
+        public boolean readBit() {
+            final int byteIndex = (_bitIndex / 8);
+            final int bitOffset = (7 - (_bitIndex % 8));
+            _bitIndex += 1;
+            return (((_bytes.getByte(byteIndex) >>> bitOffset) & 0x01) != 0);
+        }
+
+        public long readBits(final int bitCount) {
+            long value = 0L;
+            for (int i = 0; i < bitCount; ++i) {
+                value = ((value << 1) | (readBit() ? 1L : 0L));
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product of a and b.
+     */
+    protected static long _multiplyHighUnsigned(final long a, final long b) {
+        final long aHigh = (a >>> 32);
+        final long aLow = (a & 0xFFFFFFFFL);
+        final long bHigh = (b >>> 32);
+        final long bLow = (b & 0xFFFFFFFFL);
+
+        final long lowLow = (aLow * bLow);
+        final long highLow = (aHigh * bLow);
+        final long lowHigh = (aLow * bHigh);
+        final long highHigh = (aHigh * bHigh);
+
+        final long cross = ((lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + lowHigh);
+        return ((highLow >>> 32) + (cross >>> 32) + highHigh);
+    }
+
+    protected static long _hashToRange(final long[] key, final long range, final ByteArray item) {
+        final long hash = SipHashUtil.sipHash24(key[0], key[1], item);
+        return _multiplyHighUnsigned(hash, range);
+    }
+
+    /**
+     * Serializes the provided items as a Golomb-Coded Set.
+     *  The items must already be unique.
+     *  The key must be at least 16 bytes; only the first 16 bytes are used.
+     */
+    public static ByteArray encode(final List<ByteArray> items, final ByteArray key, final Integer p, final Long m) {
+        final int itemCount = items.getSize();
+        final long range = (itemCount * m);
+        final long[] sipHashKey = SipHashUtil.readKey(key);
+
+        final long[] hashedItems = new long[itemCount];
+        for (int i = 0; i < itemCount; ++i) {
+            hashedItems[i] = _hashToRange(sipHashKey, range, items.get(i));
+        }
+        Arrays.sort(hashedItems); // NOTE: The hashed values are less than (N * M) and therefore are non-negative...
+
+        final BitWriter bitWriter = new BitWriter();
+        long previousValue = 0L;
+        for (final long hashedItem : hashedItems) {
+            final long delta = (hashedItem - previousValue);
+            previousValue = hashedItem;
+
+            final long quotient = (delta >>> p);
+            for (long i = 0L; i < quotient; ++i) {
+                bitWriter.writeBit(true);
+            }
+            bitWriter.writeBit(false);
+            bitWriter.writeBits(delta, p);
+        }
+
+        final byte[] itemCountBytes = ByteUtil.variableLengthIntegerToBytes(itemCount);
+        final byte[] encodedItems = bitWriter.toBytes();
+
+        final byte[] bytes = new byte[itemCountBytes.length + encodedItems.length];
+        System.arraycopy(itemCountBytes, 0, bytes, 0, itemCountBytes.length);
+        System.arraycopy(encodedItems, 0, bytes, itemCountBytes.length, encodedItems.length);
+        return MutableByteArray.wrap(bytes);
+    }
+
+    /**
+     * Returns true if the item may be a member of the encoded set, false if it definitely is not.
+     *  False positives occur at a rate of approximately 1/M.
+     *  Returns false if the encoded set is malformed.
+     */
+    public static Boolean matches(final ByteArray encodedSet, final ByteArray key, final Integer p, final Long m, final ByteArray item) {
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(encodedSet);
+        final Long itemCount = byteArrayReader.readVariableSizedInteger();
+        if (byteArrayReader.didOverflow()) { return false; }
+        if ( (itemCount <= 0L) || (itemCount > Integer.MAX_VALUE) ) { return false; }
+
+        final long range = (itemCount * m);
+        final long target = _hashToRange(SipHashUtil.readKey(key), range, item);
+
+        final BitReader bitReader = new BitReader(encodedSet, byteArrayReader.getPosition());
+        long value = 0L;
+        for (long i = 0L; i < itemCount; ++i) {
+            long quotient = 0L;
+            while (true) {
+                if (bitReader.getRemainingBitCount() < 1) { return false; }
+                if (! bitReader.readBit()) { break; }
+                quotient += 1L;
+            }
+            if (bitReader.getRemainingBitCount() < p) { return false; }
+
+            value += ((quotient << p) | bitReader.readBits(p));
+            if (value == target) { return true; }
+            if (value > target) { return false; }
+        }
+
+        return false;
+    }
+}
@@ -75,7 +75,7 @@ public class BatchedBlockHeaders {
      */
     public BlockHeader getBlockHeader(final Long blockHeight) {
         if (blockHeight < _startingBlockHeight) { return null; }
-        if (blockHeight > (_startingBlockHeight + _blockHeaders.length)) { return null; }
+        if (blockHeight >= (_startingBlockHeight + _blockHeaders.length)) { return null; }
 
         final int index = (int) (blockHeight - _startingBlockHeight);
         return _blockHeaders[index];
@@ -83,7 +83,7 @@ public class BatchedBlockHeaders {
 
     public ChainWork getChainWork(final Long blockHeight) {
         if (blockHeight < _startingBlockHeight) { return null; }
-        if (blockHeight > (_startingBlockHeight + _blockHeaders.length)) { return null; }
+        if (blockHeight >= (_startingBlockHeight + _blockHeaders.length)) { return null; }
 
         final int index = (int) (blockHeight - _startingBlockHeight);
         return _chainWorks[index];
@@ -57,9 +57,11 @@ public class BlockHeaderValidator {
         }
     }
 
-    protected BlockHeaderValidationResponse _validateBlockHeader(final BlockHeader blockHeader, final Long blockHeight, final BatchedBlockHeaders batchedBlockHeaders) {
-        if (! blockHeader.isValid()) {
-            return BlockHeaderValidationResponse.invalid("Block header is invalid.");
+    protected BlockHeaderValidationResponse _validateBlockHeader(final BlockHeader blockHeader, final Long blockHeight, final BatchedBlockHeaders batchedBlockHeaders, final Boolean shouldValidateProofOfWork) {
+        if (shouldValidateProofOfWork) {
+            if (! blockHeader.isValid()) {
+                return BlockHeaderValidationResponse.invalid("Block header is invalid.");
+            }
         }
 
         { // Validate Block Timestamp...
@@ -127,20 +129,32 @@ public class BlockHeaderValidator {
             return BlockHeaderValidationResponse.invalid("An internal error occurred.");
         }
 
-        return _validateBlockHeader(blockHeader, blockHeight, null);
+        return _validateBlockHeader(blockHeader, blockHeight, null, true);
     }
 
-    public BlockHeaderValidationResponse validateBlockHeaders(final BatchedBlockHeaders batchedBlockHeaders) {
-        for (long blockHeight = batchedBlockHeaders.getStartingBlockHeight(); blockHeight < batchedBlockHeaders.getEndBlockHeight(); blockHeight += 1L) {
+    protected BlockHeaderValidationResponse _validateBlockHeaders(final BatchedBlockHeaders batchedBlockHeaders, final Boolean shouldValidateProofOfWork) {
+        for (long blockHeight = batchedBlockHeaders.getStartingBlockHeight(); blockHeight <= batchedBlockHeaders.getEndBlockHeight(); blockHeight += 1L) {
             final BlockHeader blockHeader = batchedBlockHeaders.getBlockHeader(blockHeight);
-            final BlockHeaderValidationResponse blockHeaderValidationResponse = _validateBlockHeader(blockHeader, blockHeight, batchedBlockHeaders);
+            final BlockHeaderValidationResponse blockHeaderValidationResponse = _validateBlockHeader(blockHeader, blockHeight, batchedBlockHeaders, shouldValidateProofOfWork);
             if (! blockHeaderValidationResponse.isValid) { return blockHeaderValidationResponse; }
         }
 
         return BlockHeaderValidationResponse.valid();
     }
 
+    public BlockHeaderValidationResponse validateBlockHeaders(final BatchedBlockHeaders batchedBlockHeaders) {
+        return _validateBlockHeaders(batchedBlockHeaders, true);
+    }
+
+    /**
+     * Validates the timestamp and difficulty of each BlockHeader within the batch.
+     *  Each BlockHeader's proof-of-work must have already been validated by the caller (i.e. in parallel, before obtaining the BlockHeaderDatabaseManager.MUTEX).
+     */
+    public BlockHeaderValidationResponse validateBlockHeadersWithoutProofOfWork(final BatchedBlockHeaders batchedBlockHeaders) {
+        return _validateBlockHeaders(batchedBlockHeaders, false);
+    }
+
     public BlockHeaderValidationResponse validateBlockHeader(final BlockHeader blockHeader, final Long blockHeight) {
-        return _validateBlockHeader(blockHeader, blockHeight, null);
+        return _validateBlockHeader(blockHeader, blockHeight, null, true);
     }
 }
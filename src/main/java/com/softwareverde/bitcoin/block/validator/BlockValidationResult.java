@@ -2,18 +2,26 @@ package com.softwareverde.bitcoin.block.validator;
 
 import com.softwareverde.bitcoin.constable.util.ConstUtil;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.module.node.utxo.BlockUndoData;
 import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
 import com.softwareverde.constable.list.List;
 import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
 import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.json.Json;
 import com.softwareverde.json.Jsonable;
 
+import java.util.Map;
+
 public class BlockValidationResult extends ValidationResult {
     public static BlockValidationResult valid() {
         return new BlockValidationResult(true, null, null);
     }
 
+    public static BlockValidationResult valid(final Map<TransactionOutputIdentifier, BlockUndoData.SpentOutput> spentOutputs) {
+        return new BlockValidationResult(true, null, null, spentOutputs);
+    }
+
     public static BlockValidationResult invalid(final String errorMessage) {
         return new BlockValidationResult(false, errorMessage, new MutableList<Sha256Hash>());
     }
@@ -30,10 +38,16 @@ public class BlockValidationResult extends ValidationResult {
     }
 
     public final List<Sha256Hash> invalidTransactions;
+    public final Map<TransactionOutputIdentifier, BlockUndoData.SpentOutput> spentOutputs; // Null unless captured during validation; see BlockValidator::setShouldCaptureSpentOutputs...
 
     public BlockValidationResult(final Boolean isValid, final String errorMessage, final List<Sha256Hash> invalidTransactions) {
+        this(isValid, errorMessage, invalidTransactions, null);
+    }
+
+    public BlockValidationResult(final Boolean isValid, final String errorMessage, final List<Sha256Hash> invalidTransactions, final Map<TransactionOutputIdentifier, BlockUndoData.SpentOutput> spentOutputs) {
         super(isValid, errorMessage);
         this.invalidTransactions = ConstUtil.asConstOrNull(invalidTransactions);
+        this.spentOutputs = spentOutputs;
     }
 
     @Override
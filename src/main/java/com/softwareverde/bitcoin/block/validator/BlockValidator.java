@@ -15,10 +15,12 @@ import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.Full
 import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManagerFactory;
+import com.softwareverde.bitcoin.server.module.node.utxo.BlockUndoData;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.coinbase.CoinbaseTransaction;
 import com.softwareverde.bitcoin.transaction.input.TransactionInput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
 import com.softwareverde.bitcoin.transaction.script.opcode.Operation;
 import com.softwareverde.bitcoin.transaction.script.opcode.PushOperation;
 import com.softwareverde.bitcoin.transaction.script.unlocking.UnlockingScript;
@@ -50,6 +52,7 @@ public class BlockValidator {
     protected Boolean _shouldLogValidBlocks = true;
     protected Integer _maxThreadCount = 4;
     protected Long _trustedBlockHeight = DO_NOT_TRUST_BLOCKS;
+    protected Boolean _shouldCaptureSpentOutputs = false;
 
     protected BlockValidationResult _validateTransactions(final Block block, final BlockchainSegmentId blockchainSegmentId, final Long blockHeight) {
         final Thread currentThread = Thread.currentThread();
@@ -80,6 +83,9 @@ public class BlockValidator {
         totalExpenditureValidationTaskSpawner.setTaskHandlerFactory(new TaskHandlerFactory<Transaction, TotalExpenditureTaskHandler.ExpenditureResult>() {
             @Override
             public TaskHandler<Transaction, TotalExpenditureTaskHandler.ExpenditureResult> newInstance() {
+                if (_shouldCaptureSpentOutputs) {
+                    return new TotalExpenditureTaskHandler(queuedTransactionOutputs, blockchainSegmentId, blockHeight);
+                }
                 return new TotalExpenditureTaskHandler(queuedTransactionOutputs);
             }
         });
@@ -197,6 +203,7 @@ public class BlockValidator {
         final MutableList<Sha256Hash> invalidTransactions = new MutableList<Sha256Hash>();
 
         final Long totalTransactionFees;
+        final HashMap<TransactionOutputIdentifier, BlockUndoData.SpentOutput> spentOutputs = (_shouldCaptureSpentOutputs ? new HashMap<TransactionOutputIdentifier, BlockUndoData.SpentOutput>() : null);
         {
             long totalFees = 0L;
             for (final TotalExpenditureTaskHandler.ExpenditureResult expenditureResult : expenditureResults) {
@@ -205,6 +212,10 @@ public class BlockValidator {
                 }
                 else {
                     totalFees += expenditureResult.totalFees;
+
+                    if ( (spentOutputs != null) && (expenditureResult.spentOutputs != null) ) {
+                        spentOutputs.putAll(expenditureResult.spentOutputs);
+                    }
                 }
             }
             totalTransactionFees = totalFees;
@@ -239,7 +250,7 @@ public class BlockValidator {
             }
         }
 
-        return BlockValidationResult.valid();
+        return BlockValidationResult.valid(spentOutputs);
     }
 
     public BlockValidationResult _validateBlock(final BlockId blockId, final Block nullableBlock) {
@@ -307,6 +318,8 @@ public class BlockValidator {
                 final List<Transaction> transactions = block.getTransactions();
                 Logger.info("Validated " + transactions.getSize() + " transactions in " + (validateBlockTimer.getMillisecondsElapsed()) + "ms (" + ((int) ((transactions.getSize() / validateBlockTimer.getMillisecondsElapsed()) * 1000)) + " tps). " + block.getHash());
             }
+
+            return transactionsValidationResult;
         }
         else {
             Logger.debug("Trusting Block Height: " + blockHeight);
@@ -344,6 +357,15 @@ public class BlockValidator {
         _trustedBlockHeight = trustedBlockHeight;
     }
 
+    /**
+     * When enabled, the outputs spent by the Block (and the heights of the Blocks that created them) are recorded while the
+     *  Block's expenditures are validated, and are provided via BlockValidationResult::spentOutputs.
+     *  Spent outputs are not captured for Blocks at or below the trusted Block height, since their inputs are not validated.
+     */
+    public void setShouldCaptureSpentOutputs(final Boolean shouldCaptureSpentOutputs) {
+        _shouldCaptureSpentOutputs = shouldCaptureSpentOutputs;
+    }
+
     /**
      * Validates the provided block for mining.
      *  PrototypeBlock's are valid blocks, with the sole exception of their hash is not required to be valid.
@@ -12,6 +12,7 @@ import com.softwareverde.bitcoin.chain.time.MedianBlockTime;
 import com.softwareverde.bitcoin.server.module.node.database.DatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.blockchain.BlockchainDatabaseManager;
+import com.softwareverde.constable.list.List;
 import com.softwareverde.database.DatabaseException;
 import com.softwareverde.logging.Logger;
 import com.softwareverde.util.DateUtil;
@@ -130,104 +131,137 @@ public class DifficultyCalculator {
         return previousBlockHeader.getDifficulty();
     }
 
+    /**
+     * Returns the BlockIds of blockId and its ancestors, where index i of the returned array is the ith parent of blockId.
+     *  The ancestors are walked in memory via the BlockHeader cache, so the walk costs O(blockCount) lookups rather than O(blockCount^2) queries.
+     *  Returns null if blockId has fewer than (blockCount - 1) ancestors.
+     */
+    protected BlockId[] _getAncestorBlockIds(final BlockId blockId, final Integer blockCount) throws DatabaseException {
+        final BlockHeaderDatabaseManager blockHeaderDatabaseManager = _databaseManager.getBlockHeaderDatabaseManager();
+
+        final List<BlockId> ancestorBlockIds = blockHeaderDatabaseManager.getAncestorBlockIds(blockId, blockCount);
+        if (ancestorBlockIds.getSize() < blockCount) { return null; }
+
+        final BlockId[] blockIds = new BlockId[blockCount];
+        for (int i = 0; i < blockCount; ++i) {
+            blockIds[i] = ancestorBlockIds.get(i);
+        }
+        return blockIds;
+    }
+
+    /**
+     * Returns the index of the BlockHeader with the median timestamp of the three provided BlockHeaders.
+     *  Ties are resolved the same as a stable sort in descending order of timestamp.
+     */
+    protected Integer _getMedianTimestampIndex(final BlockHeader[] blockHeaders) {
+        final Integer[] indexes = new Integer[blockHeaders.length];
+        for (int i = 0; i < indexes.length; ++i) {
+            indexes[i] = i;
+        }
+
+        Arrays.sort(indexes, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer index0, final Integer index1) {
+                return (blockHeaders[index1].getTimestamp().compareTo(blockHeaders[index0].getTimestamp()));
+            }
+        });
+
+        return indexes[1];
+    }
+
     protected Difficulty _calculateNewBitcoinCashTarget(final BlockchainSegmentId blockchainSegmentId) throws DatabaseException {
         final BlockchainDatabaseManager blockchainDatabaseManager = _databaseManager.getBlockchainDatabaseManager();
         final BlockHeaderDatabaseManager blockHeaderDatabaseManager = _databaseManager.getBlockHeaderDatabaseManager();
 
         final BlockHeader[] firstBlockHeaders = new BlockHeader[3]; // The oldest BlockHeaders...
+        final ChainWork[] firstChainWorks = new ChainWork[3];
         final BlockHeader[] lastBlockHeaders = new BlockHeader[3]; // The newest BlockHeaders...
+        final ChainWork[] lastChainWorks = new ChainWork[3];
 
         final BlockId currentHeadBlockId = blockchainDatabaseManager.getHeadBlockIdOfBlockchainSegment(blockchainSegmentId);
-        final Long currentHeadBlockHeight = blockHeaderDatabaseManager.getBlockHeight(currentHeadBlockId);
+        final BlockId[] ancestorBlockIds = _getAncestorBlockIds(currentHeadBlockId, 147); // The head Block and its 146 parents...
+        if (ancestorBlockIds == null) { return null; }
 
         // Set the lastBlockHeaders to be the head blockId, its parent, and its grandparent...
-        lastBlockHeaders[0] = blockHeaderDatabaseManager.getBlockHeader(currentHeadBlockId); // NOTE: The most-recent blockHeader is the current head Block...
-        for (int i = 1; i < lastBlockHeaders.length; ++i) { // NOTICE: i = 1, not 0...
-            final BlockId ancestorBlockId = blockHeaderDatabaseManager.getAncestorBlockId(currentHeadBlockId, i);
-            final BlockHeader blockHeader = blockHeaderDatabaseManager.getBlockHeader(ancestorBlockId);
-            if (blockHeader == null) { return null; }
-
-            lastBlockHeaders[i] = blockHeader;
+        for (int i = 0; i < lastBlockHeaders.length; ++i) {
+            final BlockId blockId = ancestorBlockIds[i];
+            lastBlockHeaders[i] = blockHeaderDatabaseManager.getBlockHeader(blockId);
+            lastChainWorks[i] = blockHeaderDatabaseManager.getChainWork(blockId);
+            if ( (lastBlockHeaders[i] == null) || (lastChainWorks[i] == null) ) { return null; }
         }
 
-        // Set the firstBlockHeaders to be the 144th, 145th, and 146th parent of blockId's parent...
+        // Set the firstBlockHeaders to be the 144th, 145th, and 146th parent of the head blockId...
         for (int i = 0; i < firstBlockHeaders.length; ++i) {
-            final BlockId blockHeaderId = blockHeaderDatabaseManager.getBlockIdAtHeight(blockchainSegmentId, (currentHeadBlockHeight - 144L - i));
-            if (blockHeaderId == null) { return null; }
-
-            final BlockHeader blockHeader = blockHeaderDatabaseManager.getBlockHeader(blockHeaderId);
-            firstBlockHeaders[i] = blockHeader;
+            final BlockId blockId = ancestorBlockIds[144 + i];
+            firstBlockHeaders[i] = blockHeaderDatabaseManager.getBlockHeader(blockId);
+            firstChainWorks[i] = blockHeaderDatabaseManager.getChainWork(blockId);
+            if ( (firstBlockHeaders[i] == null) || (firstChainWorks[i] == null) ) { return null; }
         }
 
-        return _calculateNewBitcoinCashTarget(firstBlockHeaders, lastBlockHeaders);
+        return _calculateNewBitcoinCashTarget(firstBlockHeaders, firstChainWorks, lastBlockHeaders, lastChainWorks);
     }
 
     protected Difficulty _calculateNewBitcoinCashTarget(final BlockId blockId, final Long blockHeight) throws DatabaseException {
         final BlockHeaderDatabaseManager blockHeaderDatabaseManager = _databaseManager.getBlockHeaderDatabaseManager();
 
         final BlockHeader[] firstBlockHeaders = new BlockHeader[3]; // The oldest BlockHeaders...
+        final ChainWork[] firstChainWorks = new ChainWork[3];
         final BlockHeader[] lastBlockHeaders = new BlockHeader[3]; // The newest BlockHeaders...
+        final ChainWork[] lastChainWorks = new ChainWork[3];
 
-        final BlockchainSegmentId blockchainSegmentId = blockHeaderDatabaseManager.getBlockchainSegmentId(blockId);
+        BlockId[] ancestorBlockIds = null; // Only walked if the BatchedBlockHeaders do not contain every required BlockHeader...
 
-        // Set the lastBlockHeaders to be blockId's parent, its grandparent, and its great grandparent...
-        for (int i = 0; i < lastBlockHeaders.length; ++i) {
+        // The lastBlockHeaders are blockId's parent, its grandparent, and its great grandparent;
+        //  the firstBlockHeaders are the 144th, 145th, and 146th parents of blockId's parent...
+        final int[] parentCounts = new int[] { 1, 2, 3, 145, 146, 147 };
+        for (int i = 0; i < parentCounts.length; ++i) {
+            final int parentCount = parentCounts[i];
+            final Long ancestorBlockHeight = (blockHeight - parentCount);
 
             BlockHeader blockHeader = null;
+            ChainWork chainWork = null;
             if (_batchedBlockHeaders != null) {
-                blockHeader = _batchedBlockHeaders.getBlockHeader(blockHeight - (1L + i));
+                blockHeader = _batchedBlockHeaders.getBlockHeader(ancestorBlockHeight);
+                chainWork = _batchedBlockHeaders.getChainWork(ancestorBlockHeight);
+
+                if ( (blockHeader != null) && (chainWork == null) ) {
+                    final BlockId ancestorBlockId = blockHeaderDatabaseManager.getBlockHeaderId(blockHeader.getHash());
+                    chainWork = blockHeaderDatabaseManager.getChainWork(ancestorBlockId);
+                }
             }
 
             if (blockHeader == null) {
-                final BlockId ancestorBlockId = blockHeaderDatabaseManager.getAncestorBlockId(blockId, (i + 1));
+                if (ancestorBlockIds == null) {
+                    ancestorBlockIds = _getAncestorBlockIds(blockId, (147 + 1));
+                    if (ancestorBlockIds == null) { return null; }
+                }
+
+                final BlockId ancestorBlockId = ancestorBlockIds[parentCount];
                 blockHeader = blockHeaderDatabaseManager.getBlockHeader(ancestorBlockId);
+                chainWork = blockHeaderDatabaseManager.getChainWork(ancestorBlockId);
             }
 
-            if (blockHeader == null) { return null; }
-
-            lastBlockHeaders[i] = blockHeader;
-        }
-
-        // Set the firstBlockHeaders to be the 144th, 145th, and 146th parents of blockId's parent...
-        for (int i = 0; i < firstBlockHeaders.length; ++i) {
-            final Long parentBlockHeight = (blockHeight - 1);
-            final Long ancestorBlockHeight = (parentBlockHeight - 144L - i);
+            if ( (blockHeader == null) || (chainWork == null) ) { return null; }
 
-            BlockHeader blockHeader = null;
-            if (_batchedBlockHeaders != null) {
-                blockHeader = _batchedBlockHeaders.getBlockHeader(ancestorBlockHeight);
+            if (i < lastBlockHeaders.length) {
+                lastBlockHeaders[i] = blockHeader;
+                lastChainWorks[i] = chainWork;
             }
-
-            if (blockHeader == null) {
-                final BlockId blockHeaderId = blockHeaderDatabaseManager.getBlockIdAtHeight(blockchainSegmentId, ancestorBlockHeight);
-                if (blockHeaderId == null) { return null; }
-
-                blockHeader = blockHeaderDatabaseManager.getBlockHeader(blockHeaderId);
+            else {
+                firstBlockHeaders[i - lastBlockHeaders.length] = blockHeader;
+                firstChainWorks[i - lastBlockHeaders.length] = chainWork;
             }
-
-            if (blockHeader == null) { return null; }
-
-            firstBlockHeaders[i] = blockHeader;
         }
 
-        return _calculateNewBitcoinCashTarget(firstBlockHeaders, lastBlockHeaders);
+        return _calculateNewBitcoinCashTarget(firstBlockHeaders, firstChainWorks, lastBlockHeaders, lastChainWorks);
     }
 
-    protected Difficulty _calculateNewBitcoinCashTarget(final BlockHeader[] firstBlockHeaders, final BlockHeader[] lastBlockHeaders) throws DatabaseException {
-        final BlockHeaderDatabaseManager blockHeaderDatabaseManager = _databaseManager.getBlockHeaderDatabaseManager();
-
-        final Comparator<BlockHeader> sortBlockHeaderByTimestampDescending = new Comparator<BlockHeader>() {
-            @Override
-            public int compare(final BlockHeader blockHeader0, final BlockHeader blockHeader1) {
-                return (blockHeader1.getTimestamp().compareTo(blockHeader0.getTimestamp()));
-            }
-        };
-
-        Arrays.sort(lastBlockHeaders, sortBlockHeaderByTimestampDescending);
-        Arrays.sort(firstBlockHeaders, sortBlockHeaderByTimestampDescending);
+    protected Difficulty _calculateNewBitcoinCashTarget(final BlockHeader[] firstBlockHeaders, final ChainWork[] firstChainWorks, final BlockHeader[] lastBlockHeaders, final ChainWork[] lastChainWorks) {
+        final Integer firstIndex = _getMedianTimestampIndex(firstBlockHeaders);
+        final Integer lastIndex = _getMedianTimestampIndex(lastBlockHeaders);
 
-        final BlockHeader firstBlockHeader = firstBlockHeaders[1];
-        final BlockHeader lastBlockHeader = lastBlockHeaders[1];
+        final BlockHeader firstBlockHeader = firstBlockHeaders[firstIndex];
+        final BlockHeader lastBlockHeader = lastBlockHeaders[lastIndex];
 
         final Long timeSpan;
         {
@@ -246,10 +280,8 @@ public class DifficultyCalculator {
             }
         }
 
-        final BlockId firstBlockId = blockHeaderDatabaseManager.getBlockHeaderId(firstBlockHeader.getHash());
-        final BlockId lastBlockId = blockHeaderDatabaseManager.getBlockHeaderId(lastBlockHeader.getHash());
-        final ChainWork firstChainWork = blockHeaderDatabaseManager.getChainWork(firstBlockId);
-        final ChainWork lastChainWork = blockHeaderDatabaseManager.getChainWork(lastBlockId);
+        final ChainWork firstChainWork = firstChainWorks[firstIndex];
+        final ChainWork lastChainWork = lastChainWorks[lastIndex];
 
         final BigInteger workPerformed;
         {
@@ -12,5 +12,13 @@ public interface TaskHandler<T, S> {
      *  invoked only a single time (once all tasks have been executed).
      */
     void executeTask(T item);
+
+    /**
+     * TaskHandler.flush() is invoked once by the same thread after the last call to TaskHandler.executeTask(),
+     *  and before the task's resources (i.e. its database connection) are released.
+     *  Any work deferred by TaskHandler.executeTask() must be completed here.
+     */
+    void flush();
+
     S getResult();
 }
@@ -1,10 +1,16 @@
 package com.softwareverde.bitcoin.block.validator.thread;
 
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.chain.segment.BlockchainSegmentId;
 import com.softwareverde.bitcoin.constable.util.ConstUtil;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.FullNodeTransactionDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.output.TransactionOutputDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.utxo.BlockUndoData;
 import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionId;
 import com.softwareverde.bitcoin.transaction.input.TransactionInput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
@@ -14,8 +20,10 @@ import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
 import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.database.DatabaseException;
 import com.softwareverde.logging.Logger;
+import com.softwareverde.util.Container;
 import com.softwareverde.util.HexUtil;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -27,7 +35,7 @@ public class TotalExpenditureTaskHandler implements TaskHandler<Transaction, Tot
         public static ExpenditureResult invalid(final Transaction invalidTransaction) {
             final ImmutableListBuilder<Sha256Hash> invalidTransactions = new ImmutableListBuilder<Sha256Hash>(1);
             invalidTransactions.add(invalidTransaction.getHash());
-            return new ExpenditureResult(false, null, invalidTransactions.build());
+            return new ExpenditureResult(false, null, invalidTransactions.build(), null);
         }
 
         public static ExpenditureResult invalid(final List<Transaction> invalidTransactions) {
@@ -35,21 +43,27 @@ public class TotalExpenditureTaskHandler implements TaskHandler<Transaction, Tot
             for (final Transaction transaction : invalidTransactions) {
                 invalidTransactionHashes.add(transaction.getHash());
             }
-            return new ExpenditureResult(false, null, invalidTransactionHashes.build());
+            return new ExpenditureResult(false, null, invalidTransactionHashes.build(), null);
         }
 
         public static ExpenditureResult valid(final Long totalFees) {
-            return new ExpenditureResult(true, totalFees, null);
+            return new ExpenditureResult(true, totalFees, null, null);
+        }
+
+        public static ExpenditureResult valid(final Long totalFees, final Map<TransactionOutputIdentifier, BlockUndoData.SpentOutput> spentOutputs) {
+            return new ExpenditureResult(true, totalFees, null, spentOutputs);
         }
 
         public final Boolean isValid;
         public final Long totalFees;
         public final List<Sha256Hash> invalidTransactions;
+        public final Map<TransactionOutputIdentifier, BlockUndoData.SpentOutput> spentOutputs; // Null unless the spent outputs were captured...
 
-        public ExpenditureResult(final Boolean isValid, final Long totalFees, final List<Sha256Hash> invalidTransactions) {
+        public ExpenditureResult(final Boolean isValid, final Long totalFees, final List<Sha256Hash> invalidTransactions, final Map<TransactionOutputIdentifier, BlockUndoData.SpentOutput> spentOutputs) {
             this.isValid = isValid;
             this.totalFees = totalFees;
             this.invalidTransactions = ConstUtil.asConstOrNull(invalidTransactions);
+            this.spentOutputs = spentOutputs;
         }
     }
 
@@ -57,11 +71,23 @@ public class TotalExpenditureTaskHandler implements TaskHandler<Transaction, Tot
     protected final MutableList<Transaction> _invalidTransactions = new MutableList<Transaction>(0);
 
     protected static TransactionOutput _getTransactionOutput(final FullNodeDatabaseManager databaseManager, final Sha256Hash outputTransactionHash, final Integer transactionOutputIndex, final Map<Sha256Hash, Transaction> queuedTransactions) {
+        return _getTransactionOutput(databaseManager, outputTransactionHash, transactionOutputIndex, queuedTransactions, null);
+    }
+
+    /**
+     * Returns the TransactionOutput being spent, from the database or from the queuedTransactions.
+     *  If transactionOutputIdContainer is provided, it is set to the output's TransactionOutputId (or null if it was not stored).
+     */
+    protected static TransactionOutput _getTransactionOutput(final FullNodeDatabaseManager databaseManager, final Sha256Hash outputTransactionHash, final Integer transactionOutputIndex, final Map<Sha256Hash, Transaction> queuedTransactions, final Container<TransactionOutputId> transactionOutputIdContainer) {
         try {
             final TransactionOutputDatabaseManager transactionOutputDatabaseManager = databaseManager.getTransactionOutputDatabaseManager();
 
             final TransactionOutputIdentifier transactionOutputIdentifier = new TransactionOutputIdentifier(outputTransactionHash, transactionOutputIndex);
             final TransactionOutputId transactionOutputId = transactionOutputDatabaseManager.findTransactionOutput(transactionOutputIdentifier);
+            if (transactionOutputIdContainer != null) {
+                transactionOutputIdContainer.value = transactionOutputId;
+            }
+
             if (transactionOutputId != null) {
                 return transactionOutputDatabaseManager.getTransactionOutput(transactionOutputId);
             }
@@ -109,8 +135,87 @@ public class TotalExpenditureTaskHandler implements TaskHandler<Transaction, Tot
     private final Map<Sha256Hash, Transaction> _queuedTransactionOutputs;
     private Long _totalFees = 0L;
 
+    protected final BlockchainSegmentId _blockchainSegmentId;
+    protected final Long _blockHeight;
+    protected final HashMap<Sha256Hash, Long> _previousTransactionBlockHeights;
+    protected final HashMap<TransactionOutputIdentifier, BlockUndoData.SpentOutput> _spentOutputs;
+
+    /**
+     * Returns the height of the Block that mined the previous Transaction, or null if it cannot be found.
+     *  Outputs created within the Block being validated are at the Block's height.
+     */
+    protected Long _getPreviousTransactionBlockHeight(final Sha256Hash previousTransactionHash) throws DatabaseException {
+        if (_queuedTransactionOutputs.containsKey(previousTransactionHash)) { return _blockHeight; }
+
+        final Long cachedBlockHeight = _previousTransactionBlockHeights.get(previousTransactionHash);
+        if (cachedBlockHeight != null) { return cachedBlockHeight; }
+
+        final BlockHeaderDatabaseManager blockHeaderDatabaseManager = _databaseManager.getBlockHeaderDatabaseManager();
+        final FullNodeTransactionDatabaseManager transactionDatabaseManager = _databaseManager.getTransactionDatabaseManager();
+
+        final TransactionId previousTransactionId = transactionDatabaseManager.getTransactionId(previousTransactionHash);
+        final BlockId previousBlockId = (previousTransactionId != null ? transactionDatabaseManager.getBlockId(_blockchainSegmentId, previousTransactionId) : null);
+        final Long previousBlockHeight = (previousBlockId != null ? blockHeaderDatabaseManager.getBlockHeight(previousBlockId) : null);
+        if (previousBlockHeight != null) {
+            _previousTransactionBlockHeights.put(previousTransactionHash, previousBlockHeight);
+        }
+        return previousBlockHeight;
+    }
+
+    /**
+     * Calculates the total value of the Transaction's inputs while recording each output being spent (along with the height
+     *  of the Block that created it), so the spent outputs do not need to be resolved again once the Block is connected.
+     *  Returns -1 if an output cannot be found.
+     */
+    protected Long _calculateTotalTransactionInputsAndCaptureSpentOutputs(final Transaction transaction) {
+        long totalInputValue = 0L;
+        final Container<TransactionOutputId> transactionOutputIdContainer = new Container<TransactionOutputId>();
+
+        for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+            final Sha256Hash outputTransactionHash = transactionInput.getPreviousOutputTransactionHash();
+            final Integer transactionOutputIndex = transactionInput.getPreviousOutputIndex();
+
+            final TransactionOutput transactionOutput = _getTransactionOutput(_databaseManager, outputTransactionHash, transactionOutputIndex, _queuedTransactionOutputs, transactionOutputIdContainer);
+            if (transactionOutput == null) {
+                Logger.debug("Tx Input, Output Not Found: " + HexUtil.toHexString(outputTransactionHash.getBytes()) + ":" + transactionOutputIndex);
+                return -1L;
+            }
+
+            totalInputValue += transactionOutput.getAmount();
+
+            try {
+                final Long previousBlockHeight = _getPreviousTransactionBlockHeight(outputTransactionHash);
+                if (previousBlockHeight != null) {
+                    final TransactionOutputIdentifier transactionOutputIdentifier = new TransactionOutputIdentifier(outputTransactionHash, transactionOutputIndex);
+                    _spentOutputs.put(transactionOutputIdentifier, new BlockUndoData.SpentOutput(outputTransactionHash, transactionOutputIndex, transactionOutputIdContainer.value, previousBlockHeight, transactionOutput.getAmount(), transactionOutput.getLockingScript().asConst()));
+                }
+            }
+            catch (final DatabaseException exception) {
+                Logger.debug(exception); // The output is simply not captured; it does not affect the validity of the Transaction...
+            }
+        }
+
+        return totalInputValue;
+    }
+
     public TotalExpenditureTaskHandler(final Map<Sha256Hash, Transaction> queuedTransactionOutputs) {
         _queuedTransactionOutputs = queuedTransactionOutputs;
+        _blockchainSegmentId = null;
+        _blockHeight = null;
+        _previousTransactionBlockHeights = null;
+        _spentOutputs = null;
+    }
+
+    /**
+     * Creates a TotalExpenditureTaskHandler that also captures the outputs spent by each Transaction.
+     *  The captured outputs are provided via ExpenditureResult::spentOutputs.
+     */
+    public TotalExpenditureTaskHandler(final Map<Sha256Hash, Transaction> queuedTransactionOutputs, final BlockchainSegmentId blockchainSegmentId, final Long blockHeight) {
+        _queuedTransactionOutputs = queuedTransactionOutputs;
+        _blockchainSegmentId = blockchainSegmentId;
+        _blockHeight = blockHeight;
+        _previousTransactionBlockHeights = new HashMap<Sha256Hash, Long>();
+        _spentOutputs = new HashMap<TransactionOutputIdentifier, BlockUndoData.SpentOutput>();
     }
 
     @Override
@@ -123,7 +228,7 @@ public class TotalExpenditureTaskHandler implements TaskHandler<Transaction, Tot
         if (! _invalidTransactions.isEmpty()) { return; }
 
         final Long totalOutputValue = transaction.getTotalOutputValue();
-        final Long totalInputValue = _calculateTotalTransactionInputs(_databaseManager, transaction, _queuedTransactionOutputs);
+        final Long totalInputValue = ((_spentOutputs != null) ? _calculateTotalTransactionInputsAndCaptureSpentOutputs(transaction) : _calculateTotalTransactionInputs(_databaseManager, transaction, _queuedTransactionOutputs));
 
         final boolean transactionExpenditureIsValid = (totalOutputValue <= totalInputValue);
         if (! transactionExpenditureIsValid) {
@@ -134,12 +239,17 @@ public class TotalExpenditureTaskHandler implements TaskHandler<Transaction, Tot
         _totalFees += (totalInputValue - totalOutputValue);
     }
 
+    @Override
+    public void flush() {
+        // Nothing.
+    }
+
     @Override
     public ExpenditureResult getResult() {
         if (! _invalidTransactions.isEmpty()) {
             return ExpenditureResult.invalid(_invalidTransactions);
         }
 
-        return ExpenditureResult.valid(_totalFees);
+        return ExpenditureResult.valid(_totalFees, _spentOutputs);
     }
 }
@@ -4,6 +4,7 @@ import com.softwareverde.bitcoin.chain.segment.BlockchainSegmentId;
 import com.softwareverde.bitcoin.chain.time.MedianBlockTime;
 import com.softwareverde.bitcoin.constable.util.ConstUtil;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.secp256k1.SignatureVerificationBatch;
 import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.validator.TransactionValidator;
@@ -43,6 +44,12 @@ public class TransactionValidationTaskHandler implements TaskHandler<Transaction
         }
     }
 
+    /**
+     * The number of deferred signatures that are accumulated before the batch is verified.
+     *  Verifying before the end of the task keeps memory bounded and lets an invalid block abort sooner.
+     */
+    public static final Integer MAX_BATCHED_SIGNATURE_COUNT = 4096;
+
     protected final BlockchainSegmentId _blockchainSegmentId;
     protected final Long _blockHeight;
     protected final NetworkTime _networkTime;
@@ -50,8 +57,46 @@ public class TransactionValidationTaskHandler implements TaskHandler<Transaction
     protected final TransactionValidatorFactory _transactionValidatorFactory;
     protected final MutableList<Transaction> _invalidTransactions = new MutableList<Transaction>(0);
 
+    protected final SignatureVerificationBatch _transactionSignatures = new SignatureVerificationBatch();
+    protected final SignatureVerificationBatch _batchedSignatures = new SignatureVerificationBatch();
+    protected final MutableList<Transaction> _batchedTransactions = new MutableList<Transaction>();
+
     protected TransactionValidator _transactionValidator;
 
+    protected Boolean _validateTransaction(final Transaction transaction) {
+        try {
+            return _transactionValidator.validateTransaction(_blockchainSegmentId, _blockHeight, transaction, false);
+        }
+        catch (final Exception exception) {
+            Logger.warn(exception);
+            return false;
+        }
+    }
+
+    /**
+     * Verifies the deferred signatures of the batched Transactions.
+     *  If the batch fails, each batched Transaction is re-validated with immediate signature verification so that the invalid
+     *  Transaction (and its invalid input) may be identified; the optimistic result of a Transaction with an invalid signature
+     *  cannot be trusted, since the script may have branched on the assumed-valid signature.
+     */
+    protected void _verifyBatchedSignatures() {
+        if (_batchedTransactions.isEmpty()) { return; }
+
+        final Boolean batchIsValid = _batchedSignatures.verify();
+        if (! batchIsValid) {
+            Logger.debug("Signature batch failed verification; re-validating " + _batchedTransactions.getSize() + " transactions individually.");
+            for (final Transaction transaction : _batchedTransactions) {
+                final Boolean transactionIsValid = _validateTransaction(transaction);
+                if (! transactionIsValid) {
+                    _invalidTransactions.add(transaction);
+                }
+            }
+        }
+
+        _batchedSignatures.clear();
+        _batchedTransactions.clear();
+    }
+
     public TransactionValidationTaskHandler(final TransactionValidatorFactory transactionValidatorFactory, final BlockchainSegmentId blockchainSegmentId, final Long blockHeight, final NetworkTime networkTime, final MedianBlockTime medianBlockTime) {
         _blockchainSegmentId = blockchainSegmentId;
         _blockHeight = blockHeight;
@@ -69,21 +114,41 @@ public class TransactionValidationTaskHandler implements TaskHandler<Transaction
     public void executeTask(final Transaction transaction) {
         if (! _invalidTransactions.isEmpty()) { return; }
 
+        // Signatures are collected instead of verified while the Transaction's scripts are run; every signature is assumed valid...
         final Boolean transactionInputsAreUnlocked;
-        {
-            Boolean inputsAreUnlocked = false;
-            try {
-                inputsAreUnlocked = _transactionValidator.validateTransaction(_blockchainSegmentId, _blockHeight, transaction, false);
+        _transactionSignatures.clear();
+        SignatureVerificationBatch.setCurrentBatch(_transactionSignatures);
+        try {
+            transactionInputsAreUnlocked = _validateTransaction(transaction);
+        }
+        finally {
+            SignatureVerificationBatch.setCurrentBatch(null);
+        }
+
+        if (transactionInputsAreUnlocked) {
+            if (! _transactionSignatures.isEmpty()) {
+                _batchedSignatures.addAll(_transactionSignatures);
+                _batchedTransactions.add(transaction);
+            }
+        }
+        else {
+            // The Transaction may have failed only because an invalid signature was assumed valid (e.g. "OP_CHECKSIG OP_NOT"), so re-validate without deferral...
+            final Boolean transactionIsValid = ( (! _transactionSignatures.isEmpty()) && _validateTransaction(transaction) );
+            if (! transactionIsValid) {
+                _invalidTransactions.add(transaction);
             }
-            catch (final Exception exception) { Logger.warn(exception); }
-            transactionInputsAreUnlocked = inputsAreUnlocked;
         }
 
-        if (! transactionInputsAreUnlocked) {
-            _invalidTransactions.add(transaction);
+        if (_batchedSignatures.getSize() >= MAX_BATCHED_SIGNATURE_COUNT) {
+            _verifyBatchedSignatures();
         }
     }
 
+    @Override
+    public void flush() {
+        _verifyBatchedSignatures();
+    }
+
     @Override
     public TransactionValidationResult getResult() {
         if (! _invalidTransactions.isEmpty()) {
@@ -63,6 +63,8 @@ class ValidationTask<T, S> implements Runnable {
                 final T item = _list.get(_startIndex + j);
                 _taskHandler.executeTask(item);
             }
+
+            _taskHandler.flush();
         }
         catch (final Exception exception) {
             Logger.debug(exception);
@@ -30,6 +30,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static org.bitcoin.NativeSecp256k1.secp256k1_destroy_context;
 import static org.bitcoin.NativeSecp256k1.secp256k1_ecdsa_verify;
+import static org.bitcoin.NativeSecp256k1.secp256k1_ecdsa_verify_batch;
 import static org.bitcoin.Secp256k1Context.secp256k1_init_context;
 
 // NOTE: The last time this message was updated, the included secp256k1 library was built from git hash: 452d8e4
@@ -47,15 +48,20 @@ import static org.bitcoin.Secp256k1Context.secp256k1_init_context;
  * </p>
  */
 public class NativeSecp256k1 {
+    private static final int BATCH_ITEM_MAX_BYTE_COUNT = (32 + 64 + 1 + 65); // Message, compact signature, public key length, and public key...
+
     private static final boolean _libraryLoadedCorrectly;
+    private static final boolean _batchVerificationIsEnabled;
     private static final long _context;
     private static final ReentrantReadWriteLock _reentrantReadWriteLock = new ReentrantReadWriteLock();
     private static final Lock _readLock = _reentrantReadWriteLock.readLock();
     private static final Lock _writeLock = _reentrantReadWriteLock.writeLock();
     private static final ThreadLocal<ByteBuffer> _nativeECDSABuffer = new ThreadLocal<ByteBuffer>();
+    private static final ThreadLocal<ByteBuffer> _nativeECDSABatchBuffer = new ThreadLocal<ByteBuffer>();
 
     static {
         boolean isEnabled = true;
+        boolean batchVerificationIsEnabled = false;
         long contextRef = -1;
         try {
             final String extension;
@@ -73,12 +79,21 @@ public class NativeSecp256k1 {
 
             NativeUtil.loadLibraryFromJar("/lib/libsecp256k1." + extension);
             contextRef = secp256k1_init_context();
+
+            try { // Libraries built without jni/secp256k1/org_bitcoin_NativeSecp256k1_batch.c do not provide batch verification...
+                secp256k1_ecdsa_verify_batch(ByteBuffer.allocateDirect(BATCH_ITEM_MAX_BYTE_COUNT), contextRef, 0);
+                batchVerificationIsEnabled = true;
+            }
+            catch (final UnsatisfiedLinkError error) {
+                Logger.info("NOTICE: libsecp256k1 does not support batch verification.");
+            }
         }
         catch (final Exception exception) {
             Logger.warn("NOTICE: libsecp256k1 failed to load.");
             isEnabled = false;
         }
         _libraryLoadedCorrectly = isEnabled;
+        _batchVerificationIsEnabled = (isEnabled && batchVerificationIsEnabled);
         _context = contextRef;
     }
 
@@ -92,10 +107,24 @@ public class NativeSecp256k1 {
         return byteBuff;
     }
 
+    protected static ByteBuffer _getBatchByteBuffer(final int byteCount) {
+        ByteBuffer byteBuff = _nativeECDSABatchBuffer.get();
+        if ((byteBuff == null) || (byteBuff.capacity() < byteCount)) {
+            byteBuff = ByteBuffer.allocateDirect(byteCount);
+            byteBuff.order(ByteOrder.nativeOrder());
+            _nativeECDSABatchBuffer.set(byteBuff);
+        }
+        return byteBuff;
+    }
+
     public static boolean isEnabled() {
         return _libraryLoadedCorrectly;
     }
 
+    public static boolean isBatchVerificationEnabled() {
+        return _batchVerificationIsEnabled;
+    }
+
     public static long getContext() {
         return _context;
     }
@@ -127,6 +156,45 @@ public class NativeSecp256k1 {
         }
     }
 
+    /**
+     * Verifies the given secp256k1 signatures in native code with a single native call.
+     *  The batch is packed into one native buffer; each signature is provided in its 64-byte compact (r || s) form and is normalized
+     *  to low-S natively, so no DER encoding is required.
+     *  Returns false if any signature fails to verify.
+     *
+     * @param data The data which was signed for each signature, each must be exactly 32 bytes
+     * @param compactSignatures The compact signatures, each must be exactly 64 bytes
+     * @param pubs The public keys which did the signing
+     */
+    public static boolean verifyBatch(byte[][] data, byte[][] compactSignatures, byte[][] pubs) {
+        if ( (data.length != compactSignatures.length) || (data.length != pubs.length) ) { throw new RuntimeException("Mismatched batch lengths."); }
+        if (! _batchVerificationIsEnabled) { throw new RuntimeException("Cannot run NativeSecp256k1 batch. Library does not support batch verification."); }
+
+        final ByteBuffer byteBuff = _getBatchByteBuffer(data.length * BATCH_ITEM_MAX_BYTE_COUNT);
+        byteBuff.rewind();
+        for (int i = 0; i < data.length; ++i) {
+            final byte[] compactSignature = compactSignatures[i];
+            final byte[] pub = pubs[i];
+
+            if (data[i].length != 32) { throw new RuntimeException("Invalid data length. Required 32 bytes; found "+ data[i].length + " bytes."); }
+            if (compactSignature.length != 64) { throw new RuntimeException("Invalid signature length. Required 64 bytes; found "+ compactSignature.length + " bytes."); }
+            if (pub.length > 65) { return false; }
+
+            byteBuff.put(data[i]);
+            byteBuff.put(compactSignature);
+            byteBuff.put((byte) pub.length);
+            byteBuff.put(pub);
+        }
+
+        _readLock.lock();
+        try {
+            return (secp256k1_ecdsa_verify_batch(byteBuff, _context, data.length) == 1);
+        }
+        finally {
+            _readLock.unlock();
+        }
+    }
+
     /**
      * libsecp256k1 Cleanup - This destroys the secp256k1 context object.
      * This should be called at the end of the program for proper cleanup of the context.
@@ -1,6 +1,12 @@
 package com.softwareverde.bitcoin.jni;
 
+import java.nio.ByteBuffer;
+
 public class NativeUnspentTransactionOutputCache {
+    // Bulk operations accept a direct ByteBuffer of packed records, each consisting of the 32-byte transaction hash
+    //  followed by the 4-byte transaction output index in native byte order.
+    public static final int RECORD_BYTE_COUNT = (32 + 4);
+
     public static native void _init();
     public static native void _destroy();
 
@@ -16,6 +22,12 @@ public class NativeUnspentTransactionOutputCache {
     // Used for the initial load of UTXOs (usually in reverse order)...
     public static native void _loadUnspentTransactionOutputId(int instanceId, long insertId, byte[] transactionHash, int transactionOutputIndex, long transactionOutputId);
 
+    // Bulk variants of the above; one JNI transition per batch of records rather than per UTXO...
+    public static native void _cacheUnspentTransactionOutputIds(int instanceId, ByteBuffer records, int recordCount, long[] transactionOutputIds);
+    public static native void _getCachedUnspentTransactionOutputIds(int instanceId, ByteBuffer records, int recordCount, long[] transactionOutputIds);
+    public static native void _invalidateUnspentTransactionOutputIds(int instanceId, ByteBuffer records, int recordCount);
+    public static native void _loadUnspentTransactionOutputIds(int instanceId, ByteBuffer records, int recordCount, long[] insertIds, long[] transactionOutputIds);
+
     public static native void _setMaxItemCount(int instanceId, long maxItemCount);
     public static native void _pruneHalf(int instanceId);
 
@@ -7,6 +7,7 @@ import com.softwareverde.bitcoin.secp256k1.signature.Secp256k1Signature;
 import com.softwareverde.bitcoin.secp256k1.signature.Signature;
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
 import com.softwareverde.logging.Logger;
 import org.bouncycastle.crypto.params.ECDomainParameters;
 import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
@@ -90,6 +91,66 @@ public class Secp256k1 {
         return _verifySignatureViaBouncyCastle(signature, publicKey, message);
     }
 
+    /**
+     * Writes the unsigned big-endian integer to the destination as exactly 32 bytes.
+     *  Returns false if the integer does not fit within 32 bytes.
+     */
+    protected static Boolean _writeCompactInteger(final ByteArray integer, final byte[] destination, final int offset) {
+        final int integerByteCount = integer.getByteCount();
+        int firstByteIndex = 0;
+        while ( (firstByteIndex < integerByteCount) && (integer.getByte(firstByteIndex) == 0x00) ) {
+            firstByteIndex += 1;
+        }
+
+        final int byteCount = (integerByteCount - firstByteIndex);
+        if (byteCount > 32) { return false; }
+
+        for (int i = 0; i < byteCount; ++i) {
+            destination[offset + (32 - byteCount) + i] = integer.getByte(firstByteIndex + i);
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if all of the provided signatures are valid.
+     *  When the loaded libsecp256k1 supports it, the signatures are verified together within a single native call.
+     *  The result does not identify which signature failed; callers should fall back to Secp256k1::verifySignature for that.
+     */
+    public static Boolean verifySignatures(final List<Signature> signatures, final List<PublicKey> publicKeys, final List<byte[]> messages) {
+        final int signatureCount = signatures.getSize();
+        if (NativeSecp256k1.isBatchVerificationEnabled()) {
+            try {
+                final byte[][] messageBytes = new byte[signatureCount][];
+                final byte[][] compactSignatureBytes = new byte[signatureCount][];
+                final byte[][] publicKeyBytes = new byte[signatureCount][];
+                for (int i = 0; i < signatureCount; ++i) {
+                    final Signature signature = signatures.get(i);
+                    final PublicKey publicKey = publicKeys.get(i);
+
+                    final byte[] compactSignature = new byte[64];
+                    if (! _writeCompactInteger(signature.getR(), compactSignature, 0)) { return false; }
+                    if (! _writeCompactInteger(signature.getS(), compactSignature, 32)) { return false; }
+
+                    messageBytes[i] = messages.get(i);
+                    compactSignatureBytes[i] = compactSignature;
+                    publicKeyBytes[i] = publicKey.getBytes();
+                }
+
+                return NativeSecp256k1.verifyBatch(messageBytes, compactSignatureBytes, publicKeyBytes);
+            }
+            catch (final Exception exception) {
+                Logger.warn(exception);
+                return false;
+            }
+        }
+
+        for (int i = 0; i < signatureCount; ++i) {
+            final Boolean signatureIsValid = Secp256k1.verifySignature(signatures.get(i), publicKeys.get(i), messages.get(i));
+            if (! signatureIsValid) { return false; }
+        }
+        return true;
+    }
+
     /**
      * Signs the message with the provided PrivateKey.
      *  The `message` variable is not hashed internally; therefore `message` should likely be a hash of the full message.
@@ -0,0 +1,116 @@
+package com.softwareverde.bitcoin.secp256k1;
+
+import com.softwareverde.bitcoin.secp256k1.key.PublicKey;
+import com.softwareverde.bitcoin.secp256k1.signature.Signature;
+import com.softwareverde.constable.list.mutable.MutableList;
+
+/**
+ * Collects (Signature, PublicKey, Message) tuples so that they may be verified together instead of one at a time.
+ *  While a batch is set as the current thread's batch, SignatureVerificationBatch::verifySignature records the signature
+ *  and optimistically reports it as valid; the caller is then responsible for invoking SignatureVerificationBatch::verify.
+ *  If the batch fails, the optimistic result of the work that recorded it is unreliable and must be recomputed without a batch.
+ */
+public class SignatureVerificationBatch {
+    protected static final ThreadLocal<SignatureVerificationBatch> CURRENT_BATCH = new ThreadLocal<SignatureVerificationBatch>();
+
+    /**
+     * Sets the batch that signatures verified on the current thread are recorded to.
+     *  Setting null restores immediate verification.
+     */
+    public static void setCurrentBatch(final SignatureVerificationBatch signatureVerificationBatch) {
+        if (signatureVerificationBatch == null) {
+            CURRENT_BATCH.remove();
+        }
+        else {
+            CURRENT_BATCH.set(signatureVerificationBatch);
+        }
+    }
+
+    public static SignatureVerificationBatch getCurrentBatch() {
+        return CURRENT_BATCH.get();
+    }
+
+    /**
+     * Verifies the signature immediately, unless a batch is set for the current thread,
+     *  in which case the signature is recorded to that batch and true is returned.
+     */
+    public static Boolean verifySignature(final Signature signature, final PublicKey publicKey, final byte[] message) {
+        final SignatureVerificationBatch signatureVerificationBatch = CURRENT_BATCH.get();
+        if (signatureVerificationBatch != null) {
+            signatureVerificationBatch.add(signature, publicKey, message);
+            return true;
+        }
+
+        if (signature.getType() == Signature.Type.SCHNORR) {
+            return Schnorr.verifySignature(signature, publicKey, message);
+        }
+
+        return Secp256k1.verifySignature(signature, publicKey, message);
+    }
+
+    protected final MutableList<Signature> _signatures = new MutableList<Signature>();
+    protected final MutableList<PublicKey> _publicKeys = new MutableList<PublicKey>();
+    protected final MutableList<byte[]> _messages = new MutableList<byte[]>();
+
+    public void add(final Signature signature, final PublicKey publicKey, final byte[] message) {
+        _signatures.add(signature);
+        _publicKeys.add(publicKey);
+        _messages.add(message);
+    }
+
+    public void addAll(final SignatureVerificationBatch signatureVerificationBatch) {
+        final int signatureCount = signatureVerificationBatch._signatures.getSize();
+        for (int i = 0; i < signatureCount; ++i) {
+            _signatures.add(signatureVerificationBatch._signatures.get(i));
+            _publicKeys.add(signatureVerificationBatch._publicKeys.get(i));
+            _messages.add(signatureVerificationBatch._messages.get(i));
+        }
+    }
+
+    public Integer getSize() {
+        return _signatures.getSize();
+    }
+
+    public Boolean isEmpty() {
+        return _signatures.isEmpty();
+    }
+
+    public void clear() {
+        _signatures.clear();
+        _publicKeys.clear();
+        _messages.clear();
+    }
+
+    /**
+     * Returns true if every recorded signature is valid.
+     *  ECDSA signatures are verified as a single native batch via Secp256k1::verifySignatures.
+     *  Schnorr signatures are verified individually, since the bundled libsecp256k1 does not provide Schnorr verification.
+     */
+    public Boolean verify() {
+        final int signatureCount = _signatures.getSize();
+
+        final MutableList<Signature> ecdsaSignatures = new MutableList<Signature>(signatureCount);
+        final MutableList<PublicKey> ecdsaPublicKeys = new MutableList<PublicKey>(signatureCount);
+        final MutableList<byte[]> ecdsaMessages = new MutableList<byte[]>(signatureCount);
+
+        for (int i = 0; i < signatureCount; ++i) {
+            final Signature signature = _signatures.get(i);
+            final PublicKey publicKey = _publicKeys.get(i);
+            final byte[] message = _messages.get(i);
+
+            if (signature.getType() == Signature.Type.SCHNORR) {
+                final Boolean signatureIsValid = Schnorr.verifySignature(signature, publicKey, message);
+                if (! signatureIsValid) { return false; }
+            }
+            else {
+                ecdsaSignatures.add(signature);
+                ecdsaPublicKeys.add(publicKey);
+                ecdsaMessages.add(message);
+            }
+        }
+
+        if (ecdsaSignatures.isEmpty()) { return true; }
+
+        return Secp256k1.verifySignatures(ecdsaSignatures, ecdsaPublicKeys, ecdsaMessages);
+    }
+}
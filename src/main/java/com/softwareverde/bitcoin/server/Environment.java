@@ -8,10 +8,16 @@ public class Environment {
     protected final Database _database;
     protected final MasterDatabaseManagerCache _masterDatabaseManagerCache;
     protected final DatabaseConnectionPool _databaseConnectionPool;
+    protected final DatabaseConnectionPool _readOnlyDatabaseConnectionPool;
 
     public Environment(final Database database, final DatabaseConnectionPool databaseConnectionPool, final MasterDatabaseManagerCache masterDatabaseManagerCache) {
+        this(database, databaseConnectionPool, databaseConnectionPool, masterDatabaseManagerCache);
+    }
+
+    public Environment(final Database database, final DatabaseConnectionPool databaseConnectionPool, final DatabaseConnectionPool readOnlyDatabaseConnectionPool, final MasterDatabaseManagerCache masterDatabaseManagerCache) {
         _database = database;
         _databaseConnectionPool = databaseConnectionPool;
+        _readOnlyDatabaseConnectionPool = readOnlyDatabaseConnectionPool;
         _masterDatabaseManagerCache = masterDatabaseManagerCache;
     }
 
@@ -26,4 +32,12 @@ public class Environment {
     public DatabaseConnectionPool getDatabaseConnectionPool() {
         return _databaseConnectionPool;
     }
+
+    /**
+     * Returns the pool used for read-only queries that tolerate slightly stale data (e.g. explorer queries).
+     *  If no read replicas are configured, this is the same pool as ::getDatabaseConnectionPool.
+     */
+    public DatabaseConnectionPool getReadOnlyDatabaseConnectionPool() {
+        return _readOnlyDatabaseConnectionPool;
+    }
 }
\ No newline at end of file
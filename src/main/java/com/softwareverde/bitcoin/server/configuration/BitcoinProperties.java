@@ -4,11 +4,15 @@ import com.softwareverde.util.Util;
 
 public class BitcoinProperties {
     public static final String DATA_CACHE_DIRECTORY_NAME = "cache";
+    public static final String BLOCK_CACHE_STORAGE_ENGINE_FILES = "files";
+    public static final String BLOCK_CACHE_STORAGE_ENGINE_LOG_STRUCTURED = "log-structured";
     public static final Integer PORT = 8333;
     public static final Integer RPC_PORT = 8334;
+    public static final Integer BINARY_RPC_PORT = 8335;
 
     protected Integer _bitcoinPort;
     protected Integer _bitcoinRpcPort;
+    protected Integer _bitcoinBinaryRpcPort;
     protected SeedNodeProperties[] _seedNodeProperties;
     protected SeedNodeProperties[] _whitelistedNodes;
     protected Boolean _banFilterIsEnabled;
@@ -20,13 +24,18 @@ public class BitcoinProperties {
     protected Boolean _transactionBloomFilterIsEnabled;
     protected Boolean _bootstrapIsEnabled;
     protected Boolean _trimBlocksIsEnabled;
+    protected Long _pruneBlockDepth;
     protected Boolean _blockCacheIsEnabled;
+    protected String _blockCacheStorageEngine;
+    protected Boolean _compactBlockFiltersAreEnabled;
+    protected Boolean _blockUndoDataIsEnabled;
     protected Integer _maxMessagesPerSecond;
     protected String _dataDirectory;
     protected Boolean _shouldRelayInvalidSlpTransactions;
 
     public Integer getBitcoinPort() { return _bitcoinPort; }
     public Integer getBitcoinRpcPort() { return _bitcoinRpcPort; }
+    public Integer getBitcoinBinaryRpcPort() { return _bitcoinBinaryRpcPort; }
     public SeedNodeProperties[] getSeedNodeProperties() { return Util.copyArray(_seedNodeProperties); }
     public SeedNodeProperties[] getWhitelistedNodes() { return Util.copyArray(_whitelistedNodes); }
     public Boolean isBanFilterEnabled() { return _banFilterIsEnabled; }
@@ -37,7 +46,12 @@ public class BitcoinProperties {
     public Long getMaxUtxoCacheByteCount() { return _maxUtxoCacheByteCount; }
     public Boolean isTransactionBloomFilterEnabled() { return _transactionBloomFilterIsEnabled; }
     public Boolean isTrimBlocksEnabled() { return _trimBlocksIsEnabled; }
+    public Long getPruneBlockDepth() { return _pruneBlockDepth; }
+    public Boolean isPruningEnabled() { return (_pruneBlockDepth > 0L); }
     public Boolean isBlockCacheEnabled() { return _blockCacheIsEnabled; }
+    public String getBlockCacheStorageEngine() { return _blockCacheStorageEngine; }
+    public Boolean areCompactBlockFiltersEnabled() { return _compactBlockFiltersAreEnabled; }
+    public Boolean isBlockUndoDataEnabled() { return _blockUndoDataIsEnabled; }
     public Integer getMaxMessagesPerSecond() { return _maxMessagesPerSecond; }
     public Boolean isBootstrapEnabled() { return _bootstrapIsEnabled; }
     public String getDataDirectory() { return _dataDirectory; }
@@ -0,0 +1,279 @@
+package com.softwareverde.bitcoin.server.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps a java.sql.Connection so that its PreparedStatements are reused for the lifetime of the connection.
+ *  Statements are keyed by their SQL text, which includes the row-count of batched queries, and by their generated-keys mode.
+ *  Closing a cached statement clears its parameters and returns it to the cache; cached statements are closed when the connection is closed.
+ *  If a statement is requested while its cached instance is still open, a new statement is prepared and is not cached.
+ */
+public class PreparedStatementCache implements InvocationHandler {
+    public static final Integer DEFAULT_MAX_STATEMENT_COUNT = 256;
+    public static final Integer MAX_CACHED_SQL_LENGTH = 4096; // Large batched queries are rarely repeated with the same row-count, so they are not retained...
+    public static final Integer MAX_TRACKED_STATEMENT_COUNT = 1024;
+
+    public static class StatementStatistics {
+        protected final AtomicLong _hitCount = new AtomicLong(0L);
+        protected final AtomicLong _missCount = new AtomicLong(0L);
+
+        public Long getHitCount() { return _hitCount.get(); }
+        public Long getMissCount() { return _missCount.get(); }
+    }
+
+    protected static final ConcurrentHashMap<String, StatementStatistics> STATEMENT_STATISTICS = new ConcurrentHashMap<String, StatementStatistics>();
+    protected static final AtomicLong TOTAL_HIT_COUNT = new AtomicLong(0L);
+    protected static final AtomicLong TOTAL_MISS_COUNT = new AtomicLong(0L);
+
+    protected static void _recordStatementRequest(final String sql, final Boolean wasCacheHit) {
+        if (wasCacheHit) {
+            TOTAL_HIT_COUNT.incrementAndGet();
+        }
+        else {
+            TOTAL_MISS_COUNT.incrementAndGet();
+        }
+
+        StatementStatistics statementStatistics = STATEMENT_STATISTICS.get(sql);
+        if (statementStatistics == null) {
+            if (STATEMENT_STATISTICS.size() >= MAX_TRACKED_STATEMENT_COUNT) { return; } // Queries with literal IN-clauses would otherwise grow the statistics without bound...
+
+            final StatementStatistics newStatementStatistics = new StatementStatistics();
+            statementStatistics = STATEMENT_STATISTICS.putIfAbsent(sql, newStatementStatistics);
+            if (statementStatistics == null) {
+                statementStatistics = newStatementStatistics;
+            }
+        }
+
+        if (wasCacheHit) {
+            statementStatistics._hitCount.incrementAndGet();
+        }
+        else {
+            statementStatistics._missCount.incrementAndGet();
+        }
+    }
+
+    protected static Object _invoke(final Object object, final Method method, final Object[] arguments) throws Throwable {
+        try {
+            return method.invoke(object, arguments);
+        }
+        catch (final InvocationTargetException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    /**
+     * Returns a Connection that caches its PreparedStatements until it is closed.
+     */
+    public static Connection wrap(final Connection connection) {
+        return PreparedStatementCache.wrap(connection, DEFAULT_MAX_STATEMENT_COUNT);
+    }
+
+    public static Connection wrap(final Connection connection, final Integer maxStatementCount) {
+        if (connection == null) { return null; }
+
+        final PreparedStatementCache preparedStatementCache = new PreparedStatementCache(connection, maxStatementCount);
+        return preparedStatementCache._connectionProxy;
+    }
+
+    /**
+     * Returns the hit/miss counts of each tracked SQL statement, across all connections.
+     */
+    public static Map<String, StatementStatistics> getStatementStatistics() {
+        return new HashMap<String, StatementStatistics>(STATEMENT_STATISTICS);
+    }
+
+    public static Long getHitCount() {
+        return TOTAL_HIT_COUNT.get();
+    }
+
+    public static Long getMissCount() {
+        return TOTAL_MISS_COUNT.get();
+    }
+
+    protected static Boolean _isMethod(final Method method, final String methodName, final Integer parameterCount) {
+        return ( method.getName().equals(methodName) && (method.getParameterTypes().length == parameterCount) );
+    }
+
+    protected static class CachedStatement {
+        protected final PreparedStatement _preparedStatement;
+        protected Boolean _isInUse = false;
+        protected Boolean _isEvicted = false;
+
+        public CachedStatement(final PreparedStatement preparedStatement) {
+            _preparedStatement = preparedStatement;
+        }
+    }
+
+    /**
+     * A single use of a CachedStatement; closing the lease returns the statement to the cache.
+     *  Each use receives its own lease so that closing a lease twice cannot release a statement that has since been reused.
+     */
+    protected class CachedStatementLease implements InvocationHandler {
+        protected final CachedStatement _cachedStatement;
+        protected Boolean _isClosed = false;
+
+        public CachedStatementLease(final CachedStatement cachedStatement) {
+            _cachedStatement = cachedStatement;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] arguments) throws Throwable {
+            final PreparedStatement preparedStatement = _cachedStatement._preparedStatement;
+
+            if (_isMethod(method, "close", 0)) {
+                final Boolean shouldClose;
+                synchronized (_statements) {
+                    if (_isClosed) { return null; }
+                    _isClosed = true;
+
+                    _cachedStatement._isInUse = false;
+                    shouldClose = _cachedStatement._isEvicted;
+                }
+
+                if (shouldClose) {
+                    preparedStatement.close();
+                }
+                else if (! preparedStatement.isClosed()) { // The statement is closed if its connection has been closed...
+                    preparedStatement.clearParameters();
+                }
+                return null;
+            }
+
+            if (_isMethod(method, "isClosed", 0)) {
+                return (_isClosed || preparedStatement.isClosed());
+            }
+
+            if (_isMethod(method, "getConnection", 0)) {
+                return _connectionProxy;
+            }
+
+            if (_isMethod(method, "equals", 1)) {
+                return (proxy == arguments[0]);
+            }
+
+            if (_isMethod(method, "hashCode", 0)) {
+                return System.identityHashCode(proxy);
+            }
+
+            if (_isClosed) {
+                throw new SQLException("Statement is closed.");
+            }
+
+            return _invoke(preparedStatement, method, arguments);
+        }
+    }
+
+    protected final Connection _connection;
+    protected final Connection _connectionProxy;
+    protected final Integer _maxStatementCount;
+    protected final LinkedHashMap<String, CachedStatement> _statements;
+
+    protected PreparedStatementCache(final Connection connection, final Integer maxStatementCount) {
+        _connection = connection;
+        _maxStatementCount = maxStatementCount;
+        _statements = new LinkedHashMap<String, CachedStatement>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedStatement> eldestEntry) {
+                if (this.size() <= _maxStatementCount) { return false; }
+
+                final CachedStatement cachedStatement = eldestEntry.getValue();
+                cachedStatement._isEvicted = true;
+                if (! cachedStatement._isInUse) {
+                    try {
+                        cachedStatement._preparedStatement.close();
+                    }
+                    catch (final SQLException exception) { }
+                }
+                return true;
+            }
+        };
+        _connectionProxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{ Connection.class }, this);
+    }
+
+    protected PreparedStatement _lease(final CachedStatement cachedStatement) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{ PreparedStatement.class }, new CachedStatementLease(cachedStatement));
+    }
+
+    protected PreparedStatement _prepareStatement(final String sql, final Integer autoGeneratedKeys) throws SQLException {
+        if (sql.length() > MAX_CACHED_SQL_LENGTH) {
+            return (autoGeneratedKeys != null ? _connection.prepareStatement(sql, autoGeneratedKeys) : _connection.prepareStatement(sql));
+        }
+
+        final String cacheKey = ((autoGeneratedKeys != null ? autoGeneratedKeys : "") + ":" + sql);
+        synchronized (_statements) {
+            final CachedStatement cachedStatement = _statements.get(cacheKey);
+            if (cachedStatement != null) {
+                if (cachedStatement._isInUse) { // The cached statement is still open (i.e. a nested query), so it cannot be shared...
+                    _recordStatementRequest(sql, false);
+                    return (autoGeneratedKeys != null ? _connection.prepareStatement(sql, autoGeneratedKeys) : _connection.prepareStatement(sql));
+                }
+
+                _recordStatementRequest(sql, true);
+                cachedStatement._isInUse = true;
+                return _lease(cachedStatement);
+            }
+
+            _recordStatementRequest(sql, false);
+            final PreparedStatement preparedStatement = (autoGeneratedKeys != null ? _connection.prepareStatement(sql, autoGeneratedKeys) : _connection.prepareStatement(sql));
+            final CachedStatement newCachedStatement = new CachedStatement(preparedStatement);
+            newCachedStatement._isInUse = true;
+            _statements.put(cacheKey, newCachedStatement);
+            return _lease(newCachedStatement);
+        }
+    }
+
+    protected void _closeStatements() {
+        synchronized (_statements) {
+            final Iterator<CachedStatement> iterator = _statements.values().iterator();
+            while (iterator.hasNext()) {
+                final CachedStatement cachedStatement = iterator.next();
+                try {
+                    cachedStatement._preparedStatement.close();
+                }
+                catch (final SQLException exception) { }
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] arguments) throws Throwable {
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+
+        if (_isMethod(method, "prepareStatement", 1)) {
+            return _prepareStatement((String) arguments[0], null);
+        }
+
+        if ( _isMethod(method, "prepareStatement", 2) && (parameterTypes[1] == int.class) ) {
+            return _prepareStatement((String) arguments[0], (Integer) arguments[1]);
+        }
+
+        if (_isMethod(method, "close", 0)) {
+            _closeStatements();
+            _connection.close();
+            return null;
+        }
+
+        if (_isMethod(method, "equals", 1)) {
+            return (proxy == arguments[0]);
+        }
+
+        if (_isMethod(method, "hashCode", 0)) {
+            return System.identityHashCode(proxy);
+        }
+
+        return _invoke(_connection, method, arguments);
+    }
+}
@@ -0,0 +1,24 @@
+package com.softwareverde.bitcoin.server.database.cache;
+
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.block.header.ImmutableBlockHeader;
+import com.softwareverde.bitcoin.block.header.difficulty.work.ChainWork;
+
+/**
+ * The fields of a stored BlockHeader that are required to walk the chain (and calculate its difficulty and MedianBlockTime) without querying the database.
+ *  Each of these fields is fixed once the BlockHeader is stored, so a CachedBlockHeader is not affected by chain reorganizations.
+ */
+public class CachedBlockHeader {
+    public final BlockId previousBlockId;
+    public final Long blockHeight;
+    public final ImmutableBlockHeader blockHeader;
+    public final ChainWork chainWork;
+
+    public CachedBlockHeader(final BlockId previousBlockId, final Long blockHeight, final BlockHeader blockHeader, final ChainWork chainWork) {
+        this.previousBlockId = previousBlockId;
+        this.blockHeight = blockHeight;
+        this.blockHeader = blockHeader.asConst();
+        this.chainWork = chainWork;
+    }
+}
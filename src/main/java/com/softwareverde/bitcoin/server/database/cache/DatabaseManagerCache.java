@@ -30,10 +30,13 @@ public interface DatabaseManagerCache extends AutoCloseable {
     void cacheTransactionOutputId(TransactionId transactionId, Integer transactionOutputIndex, TransactionOutputId transactionOutputId);
     TransactionOutputId getCachedTransactionOutputId(TransactionId transactionId, Integer transactionOutputIndex);
     void invalidateTransactionOutputIdCache();
+    void invalidateTransactionOutputId(TransactionId transactionId, Integer transactionOutputIndex);
 
     // UNSPENT TRANSACTION OUTPUT ID CACHE -----------------------------------------------------------------------------
     void cacheUnspentTransactionOutputId(Sha256Hash transactionHash, Integer transactionOutputIndex, TransactionOutputId transactionOutputId);
     TransactionOutputId getCachedUnspentTransactionOutputId(Sha256Hash transactionHash, Integer transactionOutputIndex);
+    void cacheUnspentTransactionOutputIds(List<TransactionOutputIdentifier> transactionOutputIdentifiers, List<TransactionOutputId> transactionOutputIds);
+    List<TransactionOutputId> getCachedUnspentTransactionOutputIds(List<TransactionOutputIdentifier> transactionOutputIdentifiers);
     void invalidateUnspentTransactionOutputId(TransactionOutputIdentifier transactionOutputId);
     void invalidateUnspentTransactionOutputIds(List<TransactionOutputIdentifier> transactionOutputIds);
 
@@ -48,9 +51,8 @@ public interface DatabaseManagerCache extends AutoCloseable {
     void invalidateAddressIdCache();
 
     // BLOCK HEADER CACHE ----------------------------------------------------------------------------------------------
-//    void cacheBlockHeader(BlockHeader blockHeader);
-//    BlockHeader getCachedBlockHeader(Sha256Hash blockHash);
-//    BlockHeader getCachedBlockHeader(BlockId blockId);
+    void cacheBlockHeader(BlockId blockId, CachedBlockHeader cachedBlockHeader);
+    CachedBlockHeader getCachedBlockHeader(BlockId blockId);
     void cacheBlockHeight(BlockId blockId, Long blockHeight);
     Long getCachedBlockHeight(BlockId blockId);
     void invalidateBlockHeaderCache();
@@ -11,6 +11,7 @@ import com.softwareverde.bitcoin.transaction.TransactionId;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
 import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
 import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
 
 public class DisabledDatabaseManagerCache implements DatabaseManagerCache {
     @Override
@@ -46,12 +47,27 @@ public class DisabledDatabaseManagerCache implements DatabaseManagerCache {
     @Override
     public void invalidateTransactionOutputIdCache() { }
 
+    @Override
+    public void invalidateTransactionOutputId(final TransactionId transactionId, final Integer transactionOutputIndex) { }
+
     @Override
     public void cacheUnspentTransactionOutputId(final Sha256Hash transactionHash, final Integer transactionOutputIndex, final TransactionOutputId transactionOutputId) { }
 
     @Override
     public TransactionOutputId getCachedUnspentTransactionOutputId(final Sha256Hash transactionHash, final Integer transactionOutputIndex) { return null; }
 
+    @Override
+    public void cacheUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers, final List<TransactionOutputId> transactionOutputIds) { }
+
+    @Override
+    public List<TransactionOutputId> getCachedUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers) {
+        final MutableList<TransactionOutputId> transactionOutputIds = new MutableList<TransactionOutputId>(transactionOutputIdentifiers.getSize());
+        for (int i = 0; i < transactionOutputIdentifiers.getSize(); ++i) {
+            transactionOutputIds.add(null);
+        }
+        return transactionOutputIds;
+    }
+
     @Override
     public void invalidateUnspentTransactionOutputId(final TransactionOutputIdentifier transactionOutputId) { }
 
@@ -76,6 +92,12 @@ public class DisabledDatabaseManagerCache implements DatabaseManagerCache {
     @Override
     public void invalidateAddressIdCache() { }
 
+    @Override
+    public void cacheBlockHeader(final BlockId blockId, final CachedBlockHeader cachedBlockHeader) { }
+
+    @Override
+    public CachedBlockHeader getCachedBlockHeader(final BlockId blockId) { return null; }
+
     @Override
     public void cacheBlockHeight(final BlockId blockId, final Long blockHeight) { }
 
@@ -6,6 +6,7 @@ import com.softwareverde.bitcoin.chain.segment.BlockchainSegmentId;
 import com.softwareverde.bitcoin.hash.sha256.ImmutableSha256Hash;
 import com.softwareverde.bitcoin.server.database.cache.utxo.DisabledUnspentTransactionOutputCache;
 import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputCache;
+import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputInvalidationListener;
 import com.softwareverde.bitcoin.server.database.cache.utxo.UtxoCount;
 import com.softwareverde.bitcoin.transaction.ConstTransaction;
 import com.softwareverde.bitcoin.transaction.TransactionId;
@@ -18,7 +19,9 @@ public class DisabledMasterDatabaseManagerCache implements MasterDatabaseManager
     protected final Cache<BlockId, BlockchainSegmentId> _blockIdBlockchainSegmentIdCache = new DisabledCache<>();
     protected final Cache<String, AddressId> _addressIdCache = new DisabledCache<>();
     protected final Cache<BlockId, Long> _blockHeightCache = new DisabledCache<>();
+    protected final Cache<BlockId, CachedBlockHeader> _blockHeaderCache = new DisabledCache<>();
     protected final UnspentTransactionOutputCache _unspentTransactionOutputCache = new DisabledUnspentTransactionOutputCache();
+    protected final Object _unspentTransactionOutputCommitMutex = new Object();
 
 
     @Override
@@ -51,6 +54,11 @@ public class DisabledMasterDatabaseManagerCache implements MasterDatabaseManager
         return _blockHeightCache;
     }
 
+    @Override
+    public Cache<BlockId, CachedBlockHeader> getBlockHeaderCache() {
+        return _blockHeaderCache;
+    }
+
     @Override
     public UnspentTransactionOutputCache getUnspentTransactionOutputCache() {
         return _unspentTransactionOutputCache;
@@ -59,9 +67,15 @@ public class DisabledMasterDatabaseManagerCache implements MasterDatabaseManager
     @Override
     public void commitLocalDatabaseManagerCache(final LocalDatabaseManagerCache localDatabaseManagerCache) { }
 
+    @Override
+    public void invalidateTransactionOutputId(final CachedTransactionOutputIdentifier cachedTransactionOutputIdentifier) { }
+
     @Override
     public void commit() { }
 
+    @Override
+    public Object getUnspentTransactionOutputCommitMutex() { return _unspentTransactionOutputCommitMutex; }
+
     @Override
     public UtxoCount getMaxCachedUtxoCount() { return UtxoCount.wrap(0L); }
 
@@ -70,6 +84,12 @@ public class DisabledMasterDatabaseManagerCache implements MasterDatabaseManager
         return new DisabledUnspentTransactionOutputCache();
     }
 
+    @Override
+    public void setUnspentTransactionOutputInvalidationListener(final UnspentTransactionOutputInvalidationListener unspentTransactionOutputInvalidationListener) { }
+
+    @Override
+    public UnspentTransactionOutputInvalidationListener getUnspentTransactionOutputInvalidationListener() { return null; }
+
     @Override
     public void close() { }
 }
@@ -7,6 +7,7 @@ import com.softwareverde.bitcoin.hash.sha256.ImmutableSha256Hash;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
 import com.softwareverde.bitcoin.server.database.cache.utxo.DisabledUnspentTransactionOutputCache;
 import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputCache;
+import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputInvalidationListener;
 import com.softwareverde.bitcoin.transaction.ConstTransaction;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.TransactionId;
@@ -16,16 +17,20 @@ import com.softwareverde.constable.list.List;
 import com.softwareverde.util.Util;
 
 public class LocalDatabaseManagerCache implements DatabaseManagerCache {
+    protected final MasterDatabaseManagerCache _masterCache;
 
     public LocalDatabaseManagerCache() {
+        _masterCache = null;
         _unspentTransactionOutputCache = new DisabledUnspentTransactionOutputCache();
     }
 
     public LocalDatabaseManagerCache(final UnspentTransactionOutputCache unspentTransactionOutputCache) {
+        _masterCache = null;
         _unspentTransactionOutputCache = Util.coalesce(unspentTransactionOutputCache, new DisabledUnspentTransactionOutputCache());
     }
 
     public LocalDatabaseManagerCache(final MasterDatabaseManagerCache masterCache) {
+        _masterCache = masterCache;
         _unspentTransactionOutputCache = masterCache.newUnspentTransactionOutputCache();
 
         _transactionIdCache.setMasterCache(masterCache.getTransactionIdCache());
@@ -34,6 +39,7 @@ public class LocalDatabaseManagerCache implements DatabaseManagerCache {
         _blockIdBlockchainSegmentIdCache.setMasterCache(masterCache.getBlockIdBlockchainSegmentIdCache());
         _addressIdCache.setMasterCache(masterCache.getAddressIdCache());
         _blockHeightCache.setMasterCache(masterCache.getBlockHeightCache());
+        _blockHeaderCache.setMasterCache(masterCache.getBlockHeaderCache());
         _unspentTransactionOutputCache.setMasterCache(masterCache.getUnspentTransactionOutputCache());
     }
 
@@ -124,6 +130,16 @@ public class LocalDatabaseManagerCache implements DatabaseManagerCache {
         _transactionOutputIdCache.invalidate();
     }
 
+    @Override
+    public void invalidateTransactionOutputId(final TransactionId transactionId, final Integer transactionOutputIndex) {
+        final CachedTransactionOutputIdentifier cachedTransactionOutputIdentifier = new CachedTransactionOutputIdentifier(transactionId, transactionOutputIndex);
+        _transactionOutputIdCache.removeItem(cachedTransactionOutputIdentifier);
+
+        if (_masterCache != null) {
+            _masterCache.invalidateTransactionOutputId(cachedTransactionOutputIdentifier);
+        }
+    }
+
     public HashMapCache<CachedTransactionOutputIdentifier, TransactionOutputId> getTransactionOutputIdCache() { return _transactionOutputIdCache; }
 
     // -----------------------------------------------------------------------------------------------------------------
@@ -191,16 +207,42 @@ public class LocalDatabaseManagerCache implements DatabaseManagerCache {
     @Override
     public void invalidateBlockHeaderCache() {
         _blockHeightCache.invalidate();
+        _blockHeaderCache.invalidate();
     }
 
     public HashMapCache<BlockId, Long> getBlockHeightCache() { return _blockHeightCache; }
 
     // -----------------------------------------------------------------------------------------------------------------
 
+    // BLOCK HEADER CACHE ----------------------------------------------------------------------------------------------
+
+    protected final HashMapCache<BlockId, CachedBlockHeader> _blockHeaderCache = new HashMapCache<BlockId, CachedBlockHeader>("BlockHeader", 4096);
+
+    @Override
+    public void cacheBlockHeader(final BlockId blockId, final CachedBlockHeader cachedBlockHeader) {
+        _blockHeaderCache.cacheItem(blockId, cachedBlockHeader);
+    }
+
+    @Override
+    public CachedBlockHeader getCachedBlockHeader(final BlockId blockId) {
+        return _blockHeaderCache.getCachedItem(blockId);
+    }
+
+    public HashMapCache<BlockId, CachedBlockHeader> getBlockHeaderCache() { return _blockHeaderCache; }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
     // UNSPENT TRANSACTION OUTPUT CACHE --------------------------------------------------------------------------------
 
     protected final UnspentTransactionOutputCache _unspentTransactionOutputCache;
 
+    protected UnspentTransactionOutputInvalidationListener _getUnspentTransactionOutputInvalidationListener() {
+        final MasterDatabaseManagerCache masterCache = _masterCache;
+        if (masterCache == null) { return null; }
+
+        return masterCache.getUnspentTransactionOutputInvalidationListener();
+    }
+
     @Override
     public void cacheUnspentTransactionOutputId(final Sha256Hash transactionHash, final Integer transactionOutputIndex, final TransactionOutputId transactionOutputId) {
         _unspentTransactionOutputCache.cacheUnspentTransactionOutputId(transactionHash, transactionOutputIndex, transactionOutputId);
@@ -211,13 +253,35 @@ public class LocalDatabaseManagerCache implements DatabaseManagerCache {
         return _unspentTransactionOutputCache.getCachedUnspentTransactionOutputId(transactionHash, transactionOutputIndex);
     }
 
+    @Override
+    public void cacheUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers, final List<TransactionOutputId> transactionOutputIds) {
+        _unspentTransactionOutputCache.cacheUnspentTransactionOutputIds(transactionOutputIdentifiers, transactionOutputIds);
+    }
+
+    @Override
+    public List<TransactionOutputId> getCachedUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers) {
+        return _unspentTransactionOutputCache.getCachedUnspentTransactionOutputIds(transactionOutputIdentifiers);
+    }
+
     @Override
     public void invalidateUnspentTransactionOutputId(final TransactionOutputIdentifier transactionOutputId) {
+        final UnspentTransactionOutputInvalidationListener invalidationListener = _getUnspentTransactionOutputInvalidationListener();
+        if (invalidationListener != null) {
+            invalidationListener.onUnspentTransactionOutputInvalidated(transactionOutputId);
+        }
+
         _unspentTransactionOutputCache.invalidateUnspentTransactionOutputId(transactionOutputId);
     }
 
     @Override
     public void invalidateUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIds) {
+        final UnspentTransactionOutputInvalidationListener invalidationListener = _getUnspentTransactionOutputInvalidationListener();
+        if (invalidationListener != null) {
+            for (final TransactionOutputIdentifier transactionOutputId : transactionOutputIds) {
+                invalidationListener.onUnspentTransactionOutputInvalidated(transactionOutputId);
+            }
+        }
+
         _unspentTransactionOutputCache.invalidateUnspentTransactionOutputIds(transactionOutputIds);
     }
 
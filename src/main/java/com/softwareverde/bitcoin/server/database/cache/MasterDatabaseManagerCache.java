@@ -5,6 +5,7 @@ import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.chain.segment.BlockchainSegmentId;
 import com.softwareverde.bitcoin.hash.sha256.ImmutableSha256Hash;
 import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputCache;
+import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputInvalidationListener;
 import com.softwareverde.bitcoin.server.database.cache.utxo.UtxoCount;
 import com.softwareverde.bitcoin.transaction.ConstTransaction;
 import com.softwareverde.bitcoin.transaction.TransactionId;
@@ -23,16 +24,33 @@ public interface MasterDatabaseManagerCache extends AutoCloseable {
 
     Cache<BlockId, Long> getBlockHeightCache();
 
+    Cache<BlockId, CachedBlockHeader> getBlockHeaderCache();
+
     UnspentTransactionOutputCache getUnspentTransactionOutputCache();
 
     void commitLocalDatabaseManagerCache(LocalDatabaseManagerCache localDatabaseManagerCache);
 
+    /**
+     * Removes the TransactionOutputId from the master cache, i.e. because its TransactionOutput was deleted.
+     */
+    void invalidateTransactionOutputId(CachedTransactionOutputIdentifier cachedTransactionOutputIdentifier);
+
     void commit();
 
+    /**
+     * Returns the mutex held while committing to the master UnspentTransactionOutputCache.
+     *  Any other writer of the master UnspentTransactionOutputCache must hold it, so that its commits are not interleaved with those of a processed Block.
+     */
+    Object getUnspentTransactionOutputCommitMutex();
+
     UtxoCount getMaxCachedUtxoCount();
 
     UnspentTransactionOutputCache newUnspentTransactionOutputCache();
 
+    void setUnspentTransactionOutputInvalidationListener(UnspentTransactionOutputInvalidationListener unspentTransactionOutputInvalidationListener);
+
+    UnspentTransactionOutputInvalidationListener getUnspentTransactionOutputInvalidationListener();
+
     @Override
     void close();
 }
@@ -5,8 +5,12 @@ import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.chain.segment.BlockchainSegmentId;
 import com.softwareverde.bitcoin.hash.sha256.ImmutableSha256Hash;
 import com.softwareverde.bitcoin.server.database.cache.conscientious.MemoryConscientiousCache;
+import com.softwareverde.bitcoin.server.database.cache.layer.CacheLayerMerger;
+import com.softwareverde.bitcoin.server.database.cache.layer.LayeredCache;
+import com.softwareverde.bitcoin.server.database.cache.layer.MergeableCache;
 import com.softwareverde.bitcoin.server.database.cache.utxo.DisabledUnspentTransactionOutputCache;
 import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputCache;
+import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputInvalidationListener;
 import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputCacheFactory;
 import com.softwareverde.bitcoin.server.database.cache.utxo.UtxoCount;
 import com.softwareverde.bitcoin.server.memory.JvmMemoryStatus;
@@ -14,30 +18,50 @@ import com.softwareverde.bitcoin.server.memory.MemoryStatus;
 import com.softwareverde.bitcoin.transaction.ConstTransaction;
 import com.softwareverde.bitcoin.transaction.TransactionId;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.concurrent.service.SleepyService;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.util.Util;
 
+import java.util.HashMap;
+
+/**
+ * Local caches are committed as immutable layers (see LayeredCache), so a commit never blocks concurrent readers of the master cache.
+ *  The layers are merged into the underlying caches by a background CacheLayerMerger.
+ */
 public class MasterDatabaseManagerCacheCore implements MasterDatabaseManagerCache {
-    protected static <T, S> void _commitToCache(final MutableCache<T, S> cache, final MutableCache<T, S> destination) {
+    protected static <T, S> void _commitToCache(final MutableCache<T, S> cache, final LayeredCache<T, S> destination) {
         if (cache.masterCacheWasInvalidated()) {
             destination.invalidate();
         }
+
+        final HashMap<T, S> items = new HashMap<T, S>();
         for (final T key : cache.getKeys()) {
             final S value = cache.removeItem(key);
-            destination.cacheItem(key, value);
+            items.put(key, value);
         }
+        destination.publishLayer(items);
+    }
+
+    protected static <T, S> LayeredCache<T, S> _newLayeredCache(final MutableCache<T, S> cache, final MemoryStatus memoryStatus) {
+        return new LayeredCache<T, S>(MemoryConscientiousCache.wrap(0.95F, cache, memoryStatus));
     }
 
     protected final UnspentTransactionOutputCacheFactory _unspentTransactionOutputCacheFactory;
-    protected final MutableCache<ImmutableSha256Hash, TransactionId> _transactionIdCache;
-    protected final MutableCache<TransactionId, ConstTransaction> _transactionCache;
-    protected final MutableCache<CachedTransactionOutputIdentifier, TransactionOutputId> _transactionOutputIdCache;
-    protected final MutableCache<BlockId, BlockchainSegmentId> _blockIdBlockchainSegmentIdCache;
-    protected final MutableCache<String, AddressId> _addressIdCache;
-    protected final MutableCache<BlockId, Long> _blockHeightCache;
+    protected final LayeredCache<ImmutableSha256Hash, TransactionId> _transactionIdCache;
+    protected final LayeredCache<TransactionId, ConstTransaction> _transactionCache;
+    protected final LayeredCache<CachedTransactionOutputIdentifier, TransactionOutputId> _transactionOutputIdCache;
+    protected final LayeredCache<BlockId, BlockchainSegmentId> _blockIdBlockchainSegmentIdCache;
+    protected final LayeredCache<String, AddressId> _addressIdCache;
+    protected final LayeredCache<BlockId, Long> _blockHeightCache;
+    protected final LayeredCache<BlockId, CachedBlockHeader> _blockHeaderCache;
     protected final UnspentTransactionOutputCache _unspentTransactionOutputCache;
+    protected final Object _unspentTransactionOutputCommitMutex = new Object();
+    protected final CacheLayerMerger _cacheLayerMerger;
 
     protected final UtxoCount _maxCachedUtxoCount;
 
+    protected volatile UnspentTransactionOutputInvalidationListener _unspentTransactionOutputInvalidationListener = null;
+
     public MasterDatabaseManagerCacheCore() {
         this(null);
     }
@@ -45,16 +69,30 @@ public class MasterDatabaseManagerCacheCore implements MasterDatabaseManagerCach
     public MasterDatabaseManagerCacheCore(final UnspentTransactionOutputCacheFactory unspentTransactionOutputCacheFactory) {
         final MemoryStatus memoryStatus = new JvmMemoryStatus();
 
-        _transactionIdCache                 = MemoryConscientiousCache.wrap(0.95F, new HashMapCache<ImmutableSha256Hash, TransactionId>(                    "TransactionIdCache",           128000), memoryStatus);
-        _transactionCache                   = MemoryConscientiousCache.wrap(0.95F, new HashMapCache<TransactionId, ConstTransaction>(                   "TransactionCache",             128000), memoryStatus);
-        _transactionOutputIdCache           = MemoryConscientiousCache.wrap(0.95F, new HashMapCache<CachedTransactionOutputIdentifier, TransactionOutputId>("TransactionOutputId",          128000), memoryStatus);
-        _blockIdBlockchainSegmentIdCache    = MemoryConscientiousCache.wrap(0.95F, new HashMapCache<BlockId, BlockchainSegmentId>(                          "BlockId-BlockchainSegmentId",  2048), memoryStatus);
-        _blockHeightCache                   = MemoryConscientiousCache.wrap(0.95F, new HashMapCache<BlockId, Long>(                                         "BlockHeightCache",             2048), memoryStatus);
-        _addressIdCache                     = MemoryConscientiousCache.wrap(0.95F, new DisabledCache<String, AddressId>(), memoryStatus);
+        _transactionIdCache                 = _newLayeredCache(new TinyLfuCache<ImmutableSha256Hash, TransactionId>(                    "TransactionIdCache",           128000), memoryStatus);
+        _transactionCache                   = _newLayeredCache(new TinyLfuCache<TransactionId, ConstTransaction>(                   "TransactionCache",             128000), memoryStatus);
+        _transactionOutputIdCache           = _newLayeredCache(new TinyLfuCache<CachedTransactionOutputIdentifier, TransactionOutputId>("TransactionOutputId",          128000), memoryStatus);
+        _blockIdBlockchainSegmentIdCache    = _newLayeredCache(new TinyLfuCache<BlockId, BlockchainSegmentId>(                          "BlockId-BlockchainSegmentId",  2048), memoryStatus);
+        _blockHeightCache                   = _newLayeredCache(new TinyLfuCache<BlockId, Long>(                                         "BlockHeightCache",             2048), memoryStatus);
+        _blockHeaderCache                   = _newLayeredCache(new TinyLfuCache<BlockId, CachedBlockHeader>(                            "BlockHeaderCache",             8192), memoryStatus);
+        _addressIdCache                     = _newLayeredCache(new DisabledCache<String, AddressId>(), memoryStatus);
 
         _unspentTransactionOutputCacheFactory = Util.coalesce(unspentTransactionOutputCacheFactory, DisabledUnspentTransactionOutputCache.FACTORY);
         _unspentTransactionOutputCache = _unspentTransactionOutputCacheFactory.newUnspentTransactionOutputCache();
         _maxCachedUtxoCount = _unspentTransactionOutputCache.getMaxUtxoCount();
+
+        final MutableList<MergeableCache> mergeableCaches = new MutableList<MergeableCache>();
+        mergeableCaches.add(_transactionIdCache);
+        mergeableCaches.add(_transactionCache);
+        mergeableCaches.add(_transactionOutputIdCache);
+        mergeableCaches.add(_blockIdBlockchainSegmentIdCache);
+        mergeableCaches.add(_addressIdCache);
+        mergeableCaches.add(_blockHeightCache);
+        mergeableCaches.add(_blockHeaderCache);
+        if (_unspentTransactionOutputCache instanceof MergeableCache) {
+            mergeableCaches.add((MergeableCache) _unspentTransactionOutputCache);
+        }
+        _cacheLayerMerger = new CacheLayerMerger(mergeableCaches);
     }
 
     @Override
@@ -70,6 +108,8 @@ public class MasterDatabaseManagerCacheCore implements MasterDatabaseManagerCach
     @Override
     public Cache<BlockId, Long> getBlockHeightCache() { return _blockHeightCache; }
     @Override
+    public Cache<BlockId, CachedBlockHeader> getBlockHeaderCache() { return _blockHeaderCache; }
+    @Override
     public UnspentTransactionOutputCache getUnspentTransactionOutputCache() { return _unspentTransactionOutputCache; }
 
     @Override
@@ -80,13 +120,38 @@ public class MasterDatabaseManagerCacheCore implements MasterDatabaseManagerCach
         _commitToCache(localDatabaseManagerCache.getBlockIdBlockchainSegmentIdCache(), _blockIdBlockchainSegmentIdCache);
         _commitToCache(localDatabaseManagerCache.getAddressIdCache(), _addressIdCache);
         _commitToCache(localDatabaseManagerCache.getBlockHeightCache(), _blockHeightCache);
+        _commitToCache(localDatabaseManagerCache.getBlockHeaderCache(), _blockHeaderCache);
+
+        synchronized (_unspentTransactionOutputCommitMutex) {
+            _unspentTransactionOutputCache.commit(localDatabaseManagerCache.getUnspentTransactionOutputCache());
+        }
 
-        _unspentTransactionOutputCache.commit(localDatabaseManagerCache.getUnspentTransactionOutputCache());
+        synchronized (_cacheLayerMerger) { // The merger is started upon the first commit, so idle instances do not own a thread...
+            final SleepyService.StatusMonitor statusMonitor = _cacheLayerMerger.getStatusMonitor();
+            if (statusMonitor.getStatus() == SleepyService.Status.STOPPED) {
+                _cacheLayerMerger.start();
+            }
+            else {
+                _cacheLayerMerger.wakeUp();
+            }
+        }
+    }
+
+    @Override
+    public void invalidateTransactionOutputId(final CachedTransactionOutputIdentifier cachedTransactionOutputIdentifier) {
+        _transactionOutputIdCache.removeItem(cachedTransactionOutputIdentifier);
     }
 
     @Override
     public void commit() {
-        _unspentTransactionOutputCache.commit();
+        synchronized (_unspentTransactionOutputCommitMutex) {
+            _unspentTransactionOutputCache.commit();
+        }
+    }
+
+    @Override
+    public Object getUnspentTransactionOutputCommitMutex() {
+        return _unspentTransactionOutputCommitMutex;
     }
 
     @Override
@@ -99,8 +164,21 @@ public class MasterDatabaseManagerCacheCore implements MasterDatabaseManagerCach
         return _unspentTransactionOutputCacheFactory.newUnspentTransactionOutputCache();
     }
 
+    @Override
+    public void setUnspentTransactionOutputInvalidationListener(final UnspentTransactionOutputInvalidationListener unspentTransactionOutputInvalidationListener) {
+        _unspentTransactionOutputInvalidationListener = unspentTransactionOutputInvalidationListener;
+    }
+
+    @Override
+    public UnspentTransactionOutputInvalidationListener getUnspentTransactionOutputInvalidationListener() {
+        return _unspentTransactionOutputInvalidationListener;
+    }
+
     @Override
     public void close() {
+        synchronized (_cacheLayerMerger) {
+            _cacheLayerMerger.stop();
+        }
         _unspentTransactionOutputCache.close();
     }
 }
@@ -57,6 +57,14 @@ public class ReadOnlyLocalDatabaseManagerCache implements DatabaseManagerCache {
     @Override
     public void invalidateTransactionOutputIdCache() { }
 
+    /**
+     * Unlike the other mutators, the removal is applied to the master cache, since a deleted TransactionOutput must not remain cached.
+     */
+    @Override
+    public void invalidateTransactionOutputId(final TransactionId transactionId, final Integer transactionOutputIndex) {
+        _masterDatabaseManagerCache.invalidateTransactionOutputId(new CachedTransactionOutputIdentifier(transactionId, transactionOutputIndex));
+    }
+
     @Override
     public void cacheUnspentTransactionOutputId(final Sha256Hash transactionHash, final Integer transactionOutputIndex, final TransactionOutputId transactionOutputId) { }
 
@@ -65,6 +73,14 @@ public class ReadOnlyLocalDatabaseManagerCache implements DatabaseManagerCache {
         return _masterDatabaseManagerCache.getUnspentTransactionOutputCache().getCachedUnspentTransactionOutputId(transactionHash, transactionOutputIndex);
     }
 
+    @Override
+    public void cacheUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers, final List<TransactionOutputId> transactionOutputIds) { }
+
+    @Override
+    public List<TransactionOutputId> getCachedUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers) {
+        return _masterDatabaseManagerCache.getUnspentTransactionOutputCache().getCachedUnspentTransactionOutputIds(transactionOutputIdentifiers);
+    }
+
     @Override
     public void invalidateUnspentTransactionOutputId(final TransactionOutputIdentifier transactionOutputId) { }
 
@@ -91,6 +107,14 @@ public class ReadOnlyLocalDatabaseManagerCache implements DatabaseManagerCache {
     @Override
     public void invalidateAddressIdCache() { }
 
+    @Override
+    public void cacheBlockHeader(final BlockId blockId, final CachedBlockHeader cachedBlockHeader) { }
+
+    @Override
+    public CachedBlockHeader getCachedBlockHeader(final BlockId blockId) {
+        return _masterDatabaseManagerCache.getBlockHeaderCache().getCachedItem(blockId);
+    }
+
     @Override
     public void cacheBlockHeight(final BlockId blockId, final Long blockHeight) { }
 
@@ -0,0 +1,415 @@
+package com.softwareverde.bitcoin.server.database.cache;
+
+import com.softwareverde.bitcoin.server.database.cache.frequency.FrequencySketch;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.logging.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded, concurrent cache using the W-TinyLFU eviction policy.
+ *  Keys are partitioned into independently locked segments.  Each segment admits new items into a small LRU window (1% of its capacity);
+ *  items leaving the window only enter the main segmented-LRU (probation, then protected) if the segment's FrequencySketch estimates
+ *  that they are accessed more often than the probation item they would displace.  Eviction is therefore O(1).
+ *  Lookups are served from a ConcurrentHashMap without locking; recording the access is skipped if the segment is currently busy.
+ *  Nodes are only allocated when an item is inserted, so cache hits and misses do not allocate.
+ */
+public class TinyLfuCache<KEY, VALUE> implements MutableCache<KEY, VALUE> {
+    protected static final Integer MAX_SEGMENT_COUNT = 16;
+    protected static final Integer MIN_SEGMENT_ITEM_COUNT = 256;
+    protected static final Float WINDOW_PERCENT = 0.01F;
+    protected static final Float PROTECTED_PERCENT = 0.80F;
+
+    protected static final int WINDOW = 0;
+    protected static final int PROBATION = 1;
+    protected static final int PROTECTED = 2;
+    protected static final int REMOVED = 3;
+
+    protected static class Node<KEY, VALUE> {
+        public final KEY key;
+        public final int hashCode;
+        public volatile VALUE value;
+
+        // Guarded by the Segment's lock...
+        public Node<KEY, VALUE> previous;
+        public Node<KEY, VALUE> next;
+        public int queue;
+
+        public Node(final KEY key, final int hashCode, final VALUE value) {
+            this.key = key;
+            this.hashCode = hashCode;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A doubly-linked list of Nodes, ordered from most-recently to least-recently accessed.
+     */
+    protected static class AccessQueue<KEY, VALUE> {
+        protected final Node<KEY, VALUE> _sentinel = new Node<KEY, VALUE>(null, 0, null);
+        protected int _size = 0;
+
+        public AccessQueue() {
+            _sentinel.previous = _sentinel;
+            _sentinel.next = _sentinel;
+        }
+
+        public void addFirst(final Node<KEY, VALUE> node) {
+            node.previous = _sentinel;
+            node.next = _sentinel.next;
+            _sentinel.next.previous = node;
+            _sentinel.next = node;
+            _size += 1;
+        }
+
+        public void remove(final Node<KEY, VALUE> node) {
+            node.previous.next = node.next;
+            node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+            _size -= 1;
+        }
+
+        public void moveToFirst(final Node<KEY, VALUE> node) {
+            this.remove(node);
+            this.addFirst(node);
+        }
+
+        public Node<KEY, VALUE> getLast() {
+            final Node<KEY, VALUE> node = _sentinel.previous;
+            return (node != _sentinel ? node : null);
+        }
+
+        public int getSize() {
+            return _size;
+        }
+
+        public void clear() {
+            Node<KEY, VALUE> node = _sentinel.next;
+            while (node != _sentinel) {
+                final Node<KEY, VALUE> nextNode = node.next;
+                node.queue = REMOVED;
+                node.previous = null;
+                node.next = null;
+                node = nextNode;
+            }
+
+            _sentinel.previous = _sentinel;
+            _sentinel.next = _sentinel;
+            _size = 0;
+        }
+    }
+
+    protected static class Segment<KEY, VALUE> {
+        public final ReentrantLock lock = new ReentrantLock();
+        public final FrequencySketch frequencySketch;
+        public final AccessQueue<KEY, VALUE> window = new AccessQueue<KEY, VALUE>();
+        public final AccessQueue<KEY, VALUE> probation = new AccessQueue<KEY, VALUE>();
+        public final AccessQueue<KEY, VALUE> protectedQueue = new AccessQueue<KEY, VALUE>();
+        public final int maxWindowItemCount;
+        public final int maxMainItemCount;
+        public final int maxProtectedItemCount;
+
+        public Segment(final int maxItemCount) {
+            this.frequencySketch = new FrequencySketch(maxItemCount);
+            this.maxWindowItemCount = Math.max(1, (int) (maxItemCount * WINDOW_PERCENT));
+            this.maxMainItemCount = Math.max(0, (maxItemCount - this.maxWindowItemCount));
+            this.maxProtectedItemCount = (int) (this.maxMainItemCount * PROTECTED_PERCENT);
+        }
+
+        public void clear() {
+            this.window.clear();
+            this.probation.clear();
+            this.protectedQueue.clear();
+            this.frequencySketch.clear();
+        }
+    }
+
+    protected static int _spread(final int hashCode) {
+        return (hashCode ^ (hashCode >>> 16));
+    }
+
+    protected static int _getSegmentCount(final int maxItemCount) {
+        final int segmentCount = Math.max(1, Math.min(MAX_SEGMENT_COUNT, (maxItemCount / MIN_SEGMENT_ITEM_COUNT)));
+        return Integer.highestOneBit(segmentCount);
+    }
+
+    protected final String _name;
+    protected final Integer _maxItemCount;
+    protected final ConcurrentHashMap<KEY, Node<KEY, VALUE>> _items;
+    protected final Segment<KEY, VALUE>[] _segments;
+    protected final int _segmentMask;
+
+    protected final LongAdder _hitCount = new LongAdder();
+    protected final LongAdder _missCount = new LongAdder();
+    protected final LongAdder _evictionCount = new LongAdder();
+
+    protected Segment<KEY, VALUE> _getSegment(final int hashCode) {
+        return _segments[_spread(hashCode) & _segmentMask];
+    }
+
+    protected void _removeNode(final Segment<KEY, VALUE> segment, final Node<KEY, VALUE> node) {
+        switch (node.queue) {
+            case WINDOW: { segment.window.remove(node); } break;
+            case PROBATION: { segment.probation.remove(node); } break;
+            case PROTECTED: { segment.protectedQueue.remove(node); } break;
+            default: { return; }
+        }
+
+        node.queue = REMOVED;
+        _items.remove(node.key, node);
+    }
+
+    /**
+     * Records an access of the cached node.  The Segment's lock must be held.
+     */
+    protected void _onAccess(final Segment<KEY, VALUE> segment, final Node<KEY, VALUE> node) {
+        segment.frequencySketch.increment(node.hashCode);
+
+        switch (node.queue) {
+            case WINDOW: {
+                segment.window.moveToFirst(node);
+            } break;
+
+            case PROBATION: { // Promote the node to the protected queue, demoting its least-recently used node if it is full...
+                segment.probation.remove(node);
+                node.queue = PROTECTED;
+                segment.protectedQueue.addFirst(node);
+
+                if (segment.protectedQueue.getSize() > segment.maxProtectedItemCount) {
+                    final Node<KEY, VALUE> demotedNode = segment.protectedQueue.getLast();
+                    segment.protectedQueue.remove(demotedNode);
+                    demotedNode.queue = PROBATION;
+                    segment.probation.addFirst(demotedNode);
+                }
+            } break;
+
+            case PROTECTED: {
+                segment.protectedQueue.moveToFirst(node);
+            } break;
+        }
+    }
+
+    /**
+     * Moves nodes overflowing the window into the main queues, evicting either the candidate or the main queue's victim.
+     *  The Segment's lock must be held.
+     */
+    protected void _evict(final Segment<KEY, VALUE> segment) {
+        while (segment.window.getSize() > segment.maxWindowItemCount) {
+            final Node<KEY, VALUE> candidateNode = segment.window.getLast();
+            segment.window.remove(candidateNode);
+
+            final int mainItemCount = (segment.probation.getSize() + segment.protectedQueue.getSize());
+            if (mainItemCount < segment.maxMainItemCount) {
+                candidateNode.queue = PROBATION;
+                segment.probation.addFirst(candidateNode);
+                continue;
+            }
+
+            final Node<KEY, VALUE> victimNode;
+            {
+                final Node<KEY, VALUE> probationNode = segment.probation.getLast();
+                victimNode = (probationNode != null ? probationNode : segment.protectedQueue.getLast());
+            }
+
+            final boolean shouldAdmitCandidate = ( (victimNode != null) && (segment.frequencySketch.getFrequency(candidateNode.hashCode) > segment.frequencySketch.getFrequency(victimNode.hashCode)) );
+            if (shouldAdmitCandidate) {
+                _removeNode(segment, victimNode);
+                candidateNode.queue = PROBATION;
+                segment.probation.addFirst(candidateNode);
+            }
+            else {
+                candidateNode.queue = REMOVED;
+                _items.remove(candidateNode.key, candidateNode);
+            }
+
+            _evictionCount.increment();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public TinyLfuCache(final String name, final Integer maxItemCount) {
+        _name = name;
+        _maxItemCount = maxItemCount;
+
+        final int segmentCount = _getSegmentCount(Math.max(0, maxItemCount));
+        final int maxSegmentItemCount = (Math.max(0, maxItemCount) / segmentCount);
+
+        _items = new ConcurrentHashMap<KEY, Node<KEY, VALUE>>(Math.max(16, Math.min(maxItemCount, HashMapCache.DEFAULT_CACHE_SIZE)));
+        _segments = (Segment<KEY, VALUE>[]) new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; ++i) {
+            _segments[i] = new Segment<KEY, VALUE>(maxSegmentItemCount);
+        }
+        _segmentMask = (segmentCount - 1);
+    }
+
+    @Override
+    public void cacheItem(final KEY key, final VALUE value) {
+        if (_maxItemCount < 1) { return; }
+
+        final int hashCode = key.hashCode();
+        final Segment<KEY, VALUE> segment = _getSegment(hashCode);
+
+        segment.lock.lock();
+        try {
+            final Node<KEY, VALUE> existingNode = _items.get(key);
+            if (existingNode != null) {
+                existingNode.value = value;
+                _onAccess(segment, existingNode);
+                return;
+            }
+
+            final Node<KEY, VALUE> node = new Node<KEY, VALUE>(key, hashCode, value);
+            node.queue = WINDOW;
+            segment.window.addFirst(node);
+            _items.put(key, node);
+
+            segment.frequencySketch.increment(hashCode);
+            _evict(segment);
+        }
+        finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public VALUE removeItem(final KEY key) {
+        final Node<KEY, VALUE> node = _items.get(key);
+        if (node == null) { return null; }
+
+        final Segment<KEY, VALUE> segment = _getSegment(node.hashCode);
+        segment.lock.lock();
+        try {
+            if (node.queue == REMOVED) { return null; }
+
+            _removeNode(segment, node);
+            return node.value;
+        }
+        finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        for (final Segment<KEY, VALUE> segment : _segments) {
+            segment.lock.lock();
+        }
+
+        try {
+            _items.clear();
+            for (final Segment<KEY, VALUE> segment : _segments) {
+                segment.clear();
+            }
+
+            _resetDebug();
+        }
+        finally {
+            for (final Segment<KEY, VALUE> segment : _segments) {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Boolean masterCacheWasInvalidated() {
+        return false;
+    }
+
+    /**
+     * Returns the set of keys cached in this cache.
+     *  The keys returned are not in order of most-recent access.
+     */
+    @Override
+    public List<KEY> getKeys() {
+        return new MutableList<KEY>(_items.keySet());
+    }
+
+    @Override
+    public VALUE getCachedItem(final KEY key) {
+        if (_maxItemCount < 1) { return null; }
+
+        final Node<KEY, VALUE> node = _items.get(key);
+        final int hashCode = (node != null ? node.hashCode : key.hashCode());
+        final Segment<KEY, VALUE> segment = _getSegment(hashCode);
+
+        if (node == null) {
+            _missCount.increment();
+        }
+        else {
+            _hitCount.increment();
+        }
+
+        if (segment.lock.tryLock()) { // Recording the access is best-effort; it is skipped rather than waiting for a busy Segment...
+            try {
+                if (node == null) {
+                    segment.frequencySketch.increment(hashCode);
+                }
+                else if (node.queue != REMOVED) {
+                    _onAccess(segment, node);
+                }
+            }
+            finally {
+                segment.lock.unlock();
+            }
+        }
+
+        return (node != null ? node.value : null);
+    }
+
+    @Override
+    public Integer getItemCount() {
+        return _items.size();
+    }
+
+    @Override
+    public Integer getMaxItemCount() {
+        return _maxItemCount;
+    }
+
+    public Long getHitCount() {
+        return _hitCount.sum();
+    }
+
+    public Long getMissCount() {
+        return _missCount.sum();
+    }
+
+    public Long getEvictionCount() {
+        return _evictionCount.sum();
+    }
+
+    /**
+     * Returns the ratio of lookups that were served by the cache, between 0 and 1.
+     */
+    public Float getHitRatio() {
+        final long hitCount = _hitCount.sum();
+        final long queryCount = (hitCount + _missCount.sum());
+        if (queryCount == 0L) { return 0F; }
+
+        return (((float) hitCount) / queryCount);
+    }
+
+    protected void _resetDebug() {
+        _hitCount.reset();
+        _missCount.reset();
+        _evictionCount.reset();
+    }
+
+    public void resetDebug() {
+        _resetDebug();
+    }
+
+    @Override
+    public void debug() {
+        Logger.debug(_name + " Cache Hits/Queries: " + _hitCount.sum() + "/" + (_hitCount.sum() + _missCount.sum()) + " (" + (this.getHitRatio() * 100) + "% Hit) | Cache Size: " + _items.size() + "/" + _maxItemCount + " | Evictions: " + _evictionCount.sum());
+    }
+
+    @Override
+    public String toString() {
+        return (_name + "(" + super.toString() + ")");
+    }
+}
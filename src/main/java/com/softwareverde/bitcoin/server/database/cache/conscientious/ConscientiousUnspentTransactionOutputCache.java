@@ -61,6 +61,31 @@ public class ConscientiousUnspentTransactionOutputCache<T, S> implements Unspent
         _cache.cacheUnspentTransactionOutputId(insertId, transactionHash, transactionOutputIndex, transactionOutputId);
     }
 
+    @Override
+    public void cacheUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers, final List<TransactionOutputId> transactionOutputIds) {
+        final boolean isAboveThreshold = (_memoryStatus.getMemoryUsedPercent() >= _memoryPercentThreshold);
+        if (isAboveThreshold) {
+            _pruneHalf();
+        }
+
+        _cache.cacheUnspentTransactionOutputIds(transactionOutputIdentifiers, transactionOutputIds);
+    }
+
+    @Override
+    public void cacheUnspentTransactionOutputIds(final List<Long> insertIds, final List<TransactionOutputIdentifier> transactionOutputIdentifiers, final List<TransactionOutputId> transactionOutputIds) {
+        final boolean isAboveThreshold = (_memoryStatus.getMemoryUsedPercent() >= _memoryPercentThreshold);
+        if (isAboveThreshold) {
+            _pruneHalf();
+        }
+
+        _cache.cacheUnspentTransactionOutputIds(insertIds, transactionOutputIdentifiers, transactionOutputIds);
+    }
+
+    @Override
+    public List<TransactionOutputId> getCachedUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers) {
+        return _cache.getCachedUnspentTransactionOutputIds(transactionOutputIdentifiers);
+    }
+
     @Override
     public TransactionOutputId getCachedUnspentTransactionOutputId(final Sha256Hash transactionHash, final Integer transactionOutputIndex) {
         return _cache.getCachedUnspentTransactionOutputId(transactionHash, transactionOutputIndex);
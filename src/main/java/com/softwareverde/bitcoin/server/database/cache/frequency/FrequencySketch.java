@@ -0,0 +1,101 @@
+package com.softwareverde.bitcoin.server.database.cache.frequency;
+
+/**
+ * A count-min sketch of 4-bit counters used to estimate how often an item has been accessed (TinyLFU).
+ *  Each item is counted within 4 counters selected by independent hashes; its estimated frequency is the smallest of those counters.
+ *  After (10 * maxItemCount) increments every counter is halved, so that the history decays and old popularity does not linger.
+ *  FrequencySketch is not thread-safe.
+ */
+public class FrequencySketch {
+    public static final Integer MAX_FREQUENCY = 15;
+
+    protected static final long[] SEEDS = new long[] { 0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L };
+    protected static final long RESET_MASK = 0x7777777777777777L;
+
+    protected final long[] _table;
+    protected final int _tableMask;
+    protected final int _sampleSize;
+    protected int _incrementCount = 0;
+
+    protected static int _spread(final int hashCode) {
+        int hash = (hashCode * 0x9E3779B9);
+        hash ^= (hash >>> 16);
+        return hash;
+    }
+
+    protected int _getTableIndex(final int hash, final int depth) {
+        long value = ((hash + SEEDS[depth]) * SEEDS[depth]);
+        value += (value >>> 32);
+        return (((int) value) & _tableMask);
+    }
+
+    protected boolean _incrementCounter(final int tableIndex, final int counterIndex) {
+        final int offset = (counterIndex << 2);
+        final long mask = (0x0FL << offset);
+        if ((_table[tableIndex] & mask) == mask) { return false; }
+
+        _table[tableIndex] += (1L << offset);
+        return true;
+    }
+
+    protected void _reset() {
+        for (int i = 0; i < _table.length; ++i) {
+            _table[i] = ((_table[i] >>> 1) & RESET_MASK);
+        }
+        _incrementCount = (_incrementCount >>> 1);
+    }
+
+    public FrequencySketch(final Integer maxItemCount) {
+        final int itemCount = Math.max(1, Math.min(maxItemCount, (1 << 29)));
+        final int tableSize = Math.max(1, Integer.highestOneBit((itemCount << 1) - 1)); // The next power of two...
+
+        _table = new long[tableSize];
+        _tableMask = (tableSize - 1);
+        _sampleSize = (int) Math.min((10L * itemCount), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Records an access of the item with the provided hashCode.
+     */
+    public void increment(final int hashCode) {
+        final int hash = _spread(hashCode);
+        final int counterOffset = ((hash & 3) << 2);
+
+        boolean wasIncremented = false;
+        for (int depth = 0; depth < SEEDS.length; ++depth) {
+            final int tableIndex = _getTableIndex(hash, depth);
+            wasIncremented |= _incrementCounter(tableIndex, (counterOffset + depth));
+        }
+
+        if (wasIncremented) {
+            _incrementCount += 1;
+            if (_incrementCount >= _sampleSize) {
+                _reset();
+            }
+        }
+    }
+
+    /**
+     * Returns the estimated number of times (up to MAX_FREQUENCY) the item with the provided hashCode was accessed.
+     */
+    public int getFrequency(final int hashCode) {
+        final int hash = _spread(hashCode);
+        final int counterOffset = ((hash & 3) << 2);
+
+        int frequency = MAX_FREQUENCY;
+        for (int depth = 0; depth < SEEDS.length; ++depth) {
+            final int tableIndex = _getTableIndex(hash, depth);
+            final int offset = ((counterOffset + depth) << 2);
+            final int count = (int) ((_table[tableIndex] >>> offset) & 0x0FL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    public void clear() {
+        for (int i = 0; i < _table.length; ++i) {
+            _table[i] = 0L;
+        }
+        _incrementCount = 0;
+    }
+}
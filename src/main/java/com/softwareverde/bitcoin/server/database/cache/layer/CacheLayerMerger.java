@@ -0,0 +1,31 @@
+package com.softwareverde.bitcoin.server.database.cache.layer;
+
+import com.softwareverde.concurrent.service.SleepyService;
+import com.softwareverde.constable.list.List;
+
+/**
+ * Merges the layers published to a set of MergeableCaches in the background.
+ *  The merger should be woken up after a layer is published; it sleeps once every cache has been fully merged.
+ */
+public class CacheLayerMerger extends SleepyService {
+    protected final List<MergeableCache> _mergeableCaches;
+
+    public CacheLayerMerger(final List<MergeableCache> mergeableCaches) {
+        _mergeableCaches = mergeableCaches;
+    }
+
+    @Override
+    protected void _onStart() { }
+
+    @Override
+    protected Boolean _run() {
+        boolean layerWasMerged = false;
+        for (final MergeableCache mergeableCache : _mergeableCaches) {
+            layerWasMerged |= mergeableCache.mergeLayer();
+        }
+        return layerWasMerged;
+    }
+
+    @Override
+    protected void _onSleep() { }
+}
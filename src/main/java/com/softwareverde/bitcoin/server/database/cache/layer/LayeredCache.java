@@ -0,0 +1,235 @@
+package com.softwareverde.bitcoin.server.database.cache.layer;
+
+import com.softwareverde.bitcoin.server.database.cache.MutableCache;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.logging.Logger;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A MutableCache whose committed items are published as immutable layers stacked on top of an underlying cache.
+ *  Publishing a layer only swaps a reference, so readers are never blocked by a commit; reads check the newest layer first.
+ *  Layers are merged into the underlying cache, oldest first, via LayeredCache::mergeLayer (typically by a CacheLayerMerger).
+ *  If more than MAX_LAYER_COUNT layers are pending then the publisher merges the oldest layer itself, which bounds the cost of a read.
+ */
+public class LayeredCache<KEY, VALUE> implements MutableCache<KEY, VALUE>, MergeableCache {
+    public static final Integer MAX_LAYER_COUNT = 16;
+
+    protected static class Layer<KEY, VALUE> {
+        public final Map<KEY, VALUE> items;
+        public final Layer<KEY, VALUE> olderLayer;
+
+        public Layer(final Map<KEY, VALUE> items, final Layer<KEY, VALUE> olderLayer) {
+            this.items = items;
+            this.olderLayer = olderLayer;
+        }
+    }
+
+    protected static <KEY, VALUE> Layer<KEY, VALUE> _getOldestLayer(final Layer<KEY, VALUE> newestLayer) {
+        Layer<KEY, VALUE> layer = newestLayer;
+        while ( (layer != null) && (layer.olderLayer != null) ) {
+            layer = layer.olderLayer;
+        }
+        return layer;
+    }
+
+    protected static <KEY, VALUE> Layer<KEY, VALUE> _withoutOldestLayer(final Layer<KEY, VALUE> newestLayer) {
+        if ( (newestLayer == null) || (newestLayer.olderLayer == null) ) { return null; }
+        return new Layer<KEY, VALUE>(newestLayer.items, _withoutOldestLayer(newestLayer.olderLayer));
+    }
+
+    protected final MutableCache<KEY, VALUE> _cache;
+    protected final Object _layerMutex = new Object();
+    protected final ReentrantLock _mergeLock = new ReentrantLock();
+
+    protected volatile Layer<KEY, VALUE> _newestLayer = null;
+    protected Integer _layerCount = 0;
+
+    /**
+     * Merges the oldest layer into the underlying cache.
+     *  The layer remains visible until its items are within the underlying cache.
+     *  Requires the _mergeLock.
+     */
+    protected Boolean _mergeOldestLayer() {
+        final Layer<KEY, VALUE> oldestLayer;
+        synchronized (_layerMutex) {
+            oldestLayer = _getOldestLayer(_newestLayer);
+        }
+        if (oldestLayer == null) { return false; }
+
+        for (final KEY key : oldestLayer.items.keySet()) {
+            final VALUE value = oldestLayer.items.get(key);
+            _cache.cacheItem(key, value);
+        }
+
+        synchronized (_layerMutex) { // Only the holder of the _mergeLock removes layers, so the oldest layer is unchanged...
+            _newestLayer = _withoutOldestLayer(_newestLayer);
+            _layerCount -= 1;
+        }
+        return true;
+    }
+
+    public LayeredCache(final MutableCache<KEY, VALUE> cache) {
+        _cache = cache;
+    }
+
+    /**
+     * Publishes the items as a new layer, making them immediately visible to readers.
+     *  The LayeredCache takes ownership of the map; it must not be modified afterwards.
+     */
+    public void publishLayer(final Map<KEY, VALUE> items) {
+        if (items.isEmpty()) { return; }
+
+        final Integer layerCount;
+        synchronized (_layerMutex) {
+            _newestLayer = new Layer<KEY, VALUE>(items, _newestLayer);
+            _layerCount += 1;
+            layerCount = _layerCount;
+        }
+
+        if (layerCount > MAX_LAYER_COUNT) {
+            _mergeLock.lock();
+            try {
+                _mergeOldestLayer();
+            }
+            finally {
+                _mergeLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Boolean mergeLayer() {
+        _mergeLock.lock();
+        try {
+            return _mergeOldestLayer();
+        }
+        finally {
+            _mergeLock.unlock();
+        }
+    }
+
+    @Override
+    public Integer getLayerCount() {
+        synchronized (_layerMutex) {
+            return _layerCount;
+        }
+    }
+
+    /**
+     * Writes directly to the underlying cache.
+     *  Pending layers are merged first so that an older layer cannot shadow the new value.
+     */
+    @Override
+    public void cacheItem(final KEY key, final VALUE value) {
+        _mergeLock.lock();
+        try {
+            while (_mergeOldestLayer()) { }
+            _cache.cacheItem(key, value);
+        }
+        finally {
+            _mergeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the item from the underlying cache.
+     *  Pending layers are merged first so that an older layer cannot resurrect the removed value.
+     */
+    @Override
+    public VALUE removeItem(final KEY key) {
+        _mergeLock.lock();
+        try {
+            while (_mergeOldestLayer()) { }
+            return _cache.removeItem(key);
+        }
+        finally {
+            _mergeLock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        _mergeLock.lock();
+        try {
+            synchronized (_layerMutex) {
+                _newestLayer = null;
+                _layerCount = 0;
+            }
+            _cache.invalidate();
+        }
+        finally {
+            _mergeLock.unlock();
+        }
+    }
+
+    @Override
+    public Boolean masterCacheWasInvalidated() {
+        return _cache.masterCacheWasInvalidated();
+    }
+
+    @Override
+    public List<KEY> getKeys() {
+        final HashSet<KEY> keys = new HashSet<KEY>();
+        Layer<KEY, VALUE> layer = _newestLayer;
+        while (layer != null) {
+            keys.addAll(layer.items.keySet());
+            layer = layer.olderLayer;
+        }
+        for (final KEY key : _cache.getKeys()) {
+            keys.add(key);
+        }
+
+        final MutableList<KEY> keyList = new MutableList<KEY>(keys.size());
+        for (final KEY key : keys) {
+            keyList.add(key);
+        }
+        return keyList;
+    }
+
+    @Override
+    public VALUE getCachedItem(final KEY key) {
+        Layer<KEY, VALUE> layer = _newestLayer;
+        while (layer != null) {
+            final VALUE value = layer.items.get(key);
+            if (value != null) { return value; }
+
+            layer = layer.olderLayer;
+        }
+
+        return _cache.getCachedItem(key);
+    }
+
+    /**
+     * Returns the number of items within the underlying cache and its pending layers.
+     *  An item may be counted more than once until its layer is merged.
+     */
+    @Override
+    public Integer getItemCount() {
+        int itemCount = _cache.getItemCount();
+        Layer<KEY, VALUE> layer = _newestLayer;
+        while (layer != null) {
+            itemCount += layer.items.size();
+            layer = layer.olderLayer;
+        }
+        return itemCount;
+    }
+
+    @Override
+    public Integer getMaxItemCount() {
+        return _cache.getMaxItemCount();
+    }
+
+    public MutableCache<KEY, VALUE> unwrap() {
+        return _cache;
+    }
+
+    @Override
+    public void debug() {
+        Logger.debug(_cache.toString() + " Pending Layers: " + this.getLayerCount());
+        _cache.debug();
+    }
+}
@@ -0,0 +1,14 @@
+package com.softwareverde.bitcoin.server.database.cache.layer;
+
+/**
+ * A cache that accepts committed items as immutable layers, which are later merged into its underlying storage.
+ */
+public interface MergeableCache {
+    /**
+     * Merges the oldest published layer into the underlying storage.
+     *  Returns false if there was no layer to merge.
+     */
+    Boolean mergeLayer();
+
+    Integer getLayerCount();
+}
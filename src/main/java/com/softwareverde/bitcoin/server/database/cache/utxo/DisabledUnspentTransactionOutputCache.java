@@ -5,6 +5,7 @@ import com.softwareverde.bitcoin.server.memory.MemoryStatus;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
 import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
 import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
 
 public class DisabledUnspentTransactionOutputCache implements UnspentTransactionOutputCache {
     public static final UnspentTransactionOutputCacheFactory FACTORY = new UnspentTransactionOutputCacheFactory() {
@@ -28,6 +29,21 @@ public class DisabledUnspentTransactionOutputCache implements UnspentTransaction
     @Override
     public TransactionOutputId getCachedUnspentTransactionOutputId(final Sha256Hash transactionHash, final Integer transactionOutputIndex) { return null; }
 
+    @Override
+    public void cacheUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers, final List<TransactionOutputId> transactionOutputIds) { }
+
+    @Override
+    public void cacheUnspentTransactionOutputIds(final List<Long> insertIds, final List<TransactionOutputIdentifier> transactionOutputIdentifiers, final List<TransactionOutputId> transactionOutputIds) { }
+
+    @Override
+    public List<TransactionOutputId> getCachedUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers) {
+        final MutableList<TransactionOutputId> transactionOutputIds = new MutableList<TransactionOutputId>(transactionOutputIdentifiers.getSize());
+        for (int i = 0; i < transactionOutputIdentifiers.getSize(); ++i) {
+            transactionOutputIds.add(null);
+        }
+        return transactionOutputIds;
+    }
+
     @Override
     public void invalidateUnspentTransactionOutputId(final TransactionOutputIdentifier transactionOutputIdentifier) { }
 
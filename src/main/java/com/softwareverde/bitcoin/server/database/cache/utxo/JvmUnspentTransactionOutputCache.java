@@ -1,24 +1,60 @@
 package com.softwareverde.bitcoin.server.database.cache.utxo;
 
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.database.cache.layer.MergeableCache;
 import com.softwareverde.bitcoin.server.memory.MemoryStatus;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
 import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
 import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.logging.Logger;
-import com.softwareverde.util.Util;
 
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-public class JvmUnspentTransactionOutputCache implements UnspentTransactionOutputCache {
-    protected final ReentrantReadWriteLock.ReadLock _readLock;
-    protected final ReentrantReadWriteLock.WriteLock _writeLock;
+/**
+ * Committed caches are published as immutable layers, so a commit never waits for the cache's write lock and readers are not blocked by it.
+ *  Reads check the newest layer first; an invalidation within a layer hides any older value.
+ *  The layers are merged into the TreeMap, oldest first, via JvmUnspentTransactionOutputCache::mergeLayer (typically by a CacheLayerMerger).
+ *  A merge builds a copy of the TreeMap without holding the _writeLock, and only takes the _writeLock to swap the copy in,
+ *  so reads are not blocked while a layer is folded. The _mergeLock serializes every writer of the TreeMap.
+ */
+public class JvmUnspentTransactionOutputCache implements UnspentTransactionOutputCache, MergeableCache {
+    public static final Integer MAX_LAYER_COUNT = 16;
+
+    protected static class Layer {
+        public final HashMap<TransactionOutputIdentifier, TransactionOutputId> transactionOutputIds;
+        public final HashSet<TransactionOutputIdentifier> invalidatedTransactionOutputIdentifiers;
+        public final Layer olderLayer;
+
+        public Layer(final HashMap<TransactionOutputIdentifier, TransactionOutputId> transactionOutputIds, final HashSet<TransactionOutputIdentifier> invalidatedTransactionOutputIdentifiers, final Layer olderLayer) {
+            this.transactionOutputIds = transactionOutputIds;
+            this.invalidatedTransactionOutputIdentifiers = invalidatedTransactionOutputIdentifiers;
+            this.olderLayer = olderLayer;
+        }
+    }
 
-    protected final TreeMap<Sha256Hash, Map<Integer, TransactionOutputId>> _transactionOutputs = new TreeMap<Sha256Hash, Map<Integer, TransactionOutputId>>(new Comparator<Sha256Hash>() {
+    protected static Layer _getOldestLayer(final Layer newestLayer) {
+        Layer layer = newestLayer;
+        while ( (layer != null) && (layer.olderLayer != null) ) {
+            layer = layer.olderLayer;
+        }
+        return layer;
+    }
+
+    protected static Layer _withoutOldestLayer(final Layer newestLayer) {
+        if ( (newestLayer == null) || (newestLayer.olderLayer == null) ) { return null; }
+        return new Layer(newestLayer.transactionOutputIds, newestLayer.invalidatedTransactionOutputIdentifiers, _withoutOldestLayer(newestLayer.olderLayer));
+    }
+
+    protected static final Comparator<Sha256Hash> TRANSACTION_HASH_COMPARATOR = new Comparator<Sha256Hash>() {
         @Override
         public int compare(final Sha256Hash sha256Hash0, final Sha256Hash sha256Hash1) {
             for (int i = (Sha256Hash.BYTE_COUNT - 1); i >= 0; --i) {
@@ -29,23 +65,110 @@ public class JvmUnspentTransactionOutputCache implements UnspentTransactionOutpu
             }
             return 0;
         }
-    });
+    };
+
+    protected static void _putTransactionOutputId(final TreeMap<Sha256Hash, Map<Integer, TransactionOutputId>> transactionOutputs, final Sha256Hash transactionHash, final Integer transactionOutputIndex, final TransactionOutputId transactionOutputId) {
+        Map<Integer, TransactionOutputId> map = transactionOutputs.get(transactionHash);
+        if (map == null) {
+            map = new TreeMap<Integer, TransactionOutputId>();
+            transactionOutputs.put(transactionHash, map);
+        }
+
+        map.put(transactionOutputIndex, transactionOutputId);
+    }
+
+    protected static void _removeTransactionOutputId(final TreeMap<Sha256Hash, Map<Integer, TransactionOutputId>> transactionOutputs, final TransactionOutputIdentifier transactionOutputIdentifier) {
+        final Sha256Hash transactionHash = transactionOutputIdentifier.getTransactionHash();
+        final Map<Integer, TransactionOutputId> map = transactionOutputs.get(transactionHash);
+        if (map == null) { return; }
+
+        map.remove(transactionOutputIdentifier.getOutputIndex());
+        if (map.isEmpty()) {
+            transactionOutputs.remove(transactionHash);
+        }
+    }
+
+    protected final ReentrantReadWriteLock.ReadLock _readLock;
+    protected final ReentrantReadWriteLock.WriteLock _writeLock;
+    protected final ReentrantLock _mergeLock = new ReentrantLock();
+
+    protected volatile TreeMap<Sha256Hash, Map<Integer, TransactionOutputId>> _transactionOutputs = new TreeMap<Sha256Hash, Map<Integer, TransactionOutputId>>(TRANSACTION_HASH_COMPARATOR);
 
     protected final LinkedList<TransactionOutputIdentifier> _invalidatedItems = new LinkedList<TransactionOutputIdentifier>();
 
+    protected final Object _layerMutex = new Object();
+    protected volatile Layer _newestLayer = null;
+    protected Integer _layerCount = 0;
+
     protected UnspentTransactionOutputCache _masterCache = null;
 
+    /**
+     * Replaces the (shared) output map of the transaction within the copied TreeMap with its own copy, once per merge.
+     */
+    protected void _copyOnWrite(final TreeMap<Sha256Hash, Map<Integer, TransactionOutputId>> transactionOutputs, final HashSet<Sha256Hash> copiedTransactionHashes, final Sha256Hash transactionHash) {
+        if (copiedTransactionHashes.contains(transactionHash)) { return; }
+
+        final Map<Integer, TransactionOutputId> map = transactionOutputs.get(transactionHash);
+        if (map != null) {
+            transactionOutputs.put(transactionHash, new TreeMap<Integer, TransactionOutputId>(map));
+        }
+        copiedTransactionHashes.add(transactionHash);
+    }
+
+    protected void _putTransactionOutputId(final Sha256Hash transactionHash, final Integer transactionOutputIndex, final TransactionOutputId transactionOutputId) {
+        _putTransactionOutputId(_transactionOutputs, transactionHash, transactionOutputIndex, transactionOutputId);
+    }
+
     protected void _removeTransactionOutputId(final TransactionOutputIdentifier transactionOutputIdentifier) {
-        final Map<Integer, TransactionOutputId> map = _transactionOutputs.get(transactionOutputIdentifier.getTransactionHash());
-        if (map == null) { return; }
+        _removeTransactionOutputId(_transactionOutputs, transactionOutputIdentifier);
+    }
 
-        for (final Integer transactionOutputIndex : map.keySet()) {
-            final TransactionOutputId mapTransactionOutputId = map.get(transactionOutputIndex);
-            if (Util.areEqual(transactionOutputIdentifier.getOutputIndex(), mapTransactionOutputId)) {
-                map.remove(transactionOutputIndex);
-                break;
-            }
+    /**
+     * Merges the oldest layer into a copy of the TreeMap, then swaps the copy in.
+     *  The layer remains visible until the merged TreeMap has replaced the current one, so readers never observe a partial merge.
+     *  Requires the _mergeLock; the _writeLock is only held during the swap.
+     */
+    protected Boolean _mergeOldestLayer() {
+        final Layer oldestLayer;
+        synchronized (_layerMutex) {
+            oldestLayer = _getOldestLayer(_newestLayer);
+        }
+        if (oldestLayer == null) { return false; }
+
+        final TreeMap<Sha256Hash, Map<Integer, TransactionOutputId>> transactionOutputs = new TreeMap<Sha256Hash, Map<Integer, TransactionOutputId>>(_transactionOutputs);
+        final HashSet<Sha256Hash> copiedTransactionHashes = new HashSet<Sha256Hash>();
+        for (final TransactionOutputIdentifier transactionOutputIdentifier : oldestLayer.transactionOutputIds.keySet()) {
+            final Sha256Hash transactionHash = transactionOutputIdentifier.getTransactionHash();
+            final TransactionOutputId transactionOutputId = oldestLayer.transactionOutputIds.get(transactionOutputIdentifier);
+            _copyOnWrite(transactionOutputs, copiedTransactionHashes, transactionHash);
+            _putTransactionOutputId(transactionOutputs, transactionHash, transactionOutputIdentifier.getOutputIndex(), transactionOutputId);
+        }
+        for (final TransactionOutputIdentifier transactionOutputIdentifier : oldestLayer.invalidatedTransactionOutputIdentifiers) {
+            _copyOnWrite(transactionOutputs, copiedTransactionHashes, transactionOutputIdentifier.getTransactionHash());
+            _removeTransactionOutputId(transactionOutputs, transactionOutputIdentifier);
+        }
+
+        _writeLock.lock();
+        try {
+            _transactionOutputs = transactionOutputs;
         }
+        finally {
+            _writeLock.unlock();
+        }
+
+        synchronized (_layerMutex) { // Only the holder of the _mergeLock removes layers, so the oldest layer is unchanged...
+            _newestLayer = _withoutOldestLayer(_newestLayer);
+            _layerCount -= 1;
+        }
+        return true;
+    }
+
+    /**
+     * Merges all pending layers so that a direct write is not shadowed by an older layer.
+     *  Requires the _mergeLock.
+     */
+    protected void _mergeLayers() {
+        while (_mergeOldestLayer()) { }
     }
 
     // TODO: Support a max-UTXO count...
@@ -62,16 +185,18 @@ public class JvmUnspentTransactionOutputCache implements UnspentTransactionOutpu
 
     @Override
     public void cacheUnspentTransactionOutputId(final Sha256Hash transactionHash, final Integer transactionOutputIndex, final TransactionOutputId transactionOutputId) {
-        _writeLock.lock();
-        Map<Integer, TransactionOutputId> map = _transactionOutputs.get(transactionHash);
-        if (map == null) {
-            map = new TreeMap<Integer, TransactionOutputId>();
-            _transactionOutputs.put(transactionHash, map);
-        }
+        _mergeLock.lock();
+        try {
+            _mergeLayers();
 
-        map.put(transactionOutputIndex, transactionOutputId);
-        _invalidatedItems.remove(new TransactionOutputIdentifier(transactionHash, transactionOutputIndex));
-        _writeLock.unlock();
+            _writeLock.lock();
+            _putTransactionOutputId(transactionHash, transactionOutputIndex, transactionOutputId);
+            _invalidatedItems.remove(new TransactionOutputIdentifier(transactionHash, transactionOutputIndex));
+            _writeLock.unlock();
+        }
+        finally {
+            _mergeLock.unlock();
+        }
     }
 
     @Override
@@ -82,6 +207,18 @@ public class JvmUnspentTransactionOutputCache implements UnspentTransactionOutpu
 
     @Override
     public TransactionOutputId getCachedUnspentTransactionOutputId(final Sha256Hash transactionHash, final Integer transactionOutputIndex) {
+        Layer layer = _newestLayer;
+        if (layer != null) {
+            final TransactionOutputIdentifier transactionOutputIdentifier = new TransactionOutputIdentifier(transactionHash, transactionOutputIndex);
+            while (layer != null) {
+                final TransactionOutputId transactionOutputId = layer.transactionOutputIds.get(transactionOutputIdentifier);
+                if (transactionOutputId != null) { return transactionOutputId; }
+                if (layer.invalidatedTransactionOutputIdentifiers.contains(transactionOutputIdentifier)) { return null; }
+
+                layer = layer.olderLayer;
+            }
+        }
+
         _readLock.lock();
         final Map<Integer, TransactionOutputId> map = _transactionOutputs.get(transactionHash);
         if (map != null) {
@@ -104,21 +241,61 @@ public class JvmUnspentTransactionOutputCache implements UnspentTransactionOutpu
     }
 
     @Override
-    public void invalidateUnspentTransactionOutputId(final TransactionOutputIdentifier transactionOutputId) {
-        _writeLock.lock();
-        _removeTransactionOutputId(transactionOutputId);
-        _invalidatedItems.addLast(transactionOutputId);
-        _writeLock.unlock();
+    public void cacheUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers, final List<TransactionOutputId> transactionOutputIds) {
+        final int itemCount = transactionOutputIdentifiers.getSize();
+        for (int i = 0; i < itemCount; ++i) {
+            final TransactionOutputIdentifier transactionOutputIdentifier = transactionOutputIdentifiers.get(i);
+            final TransactionOutputId transactionOutputId = transactionOutputIds.get(i);
+            this.cacheUnspentTransactionOutputId(transactionOutputIdentifier.getTransactionHash(), transactionOutputIdentifier.getOutputIndex(), transactionOutputId);
+        }
     }
 
     @Override
-    public void invalidateUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers) {
-        _writeLock.lock();
-        for (final TransactionOutputIdentifier transactionOutputId : transactionOutputIdentifiers) {
+    public void cacheUnspentTransactionOutputIds(final List<Long> insertIds, final List<TransactionOutputIdentifier> transactionOutputIdentifiers, final List<TransactionOutputId> transactionOutputIds) {
+        this.cacheUnspentTransactionOutputIds(transactionOutputIdentifiers, transactionOutputIds);
+    }
+
+    @Override
+    public List<TransactionOutputId> getCachedUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers) {
+        final MutableList<TransactionOutputId> transactionOutputIds = new MutableList<TransactionOutputId>(transactionOutputIdentifiers.getSize());
+        for (final TransactionOutputIdentifier transactionOutputIdentifier : transactionOutputIdentifiers) {
+            transactionOutputIds.add(this.getCachedUnspentTransactionOutputId(transactionOutputIdentifier.getTransactionHash(), transactionOutputIdentifier.getOutputIndex()));
+        }
+        return transactionOutputIds;
+    }
+
+    @Override
+    public void invalidateUnspentTransactionOutputId(final TransactionOutputIdentifier transactionOutputId) {
+        _mergeLock.lock();
+        try {
+            _mergeLayers();
+
+            _writeLock.lock();
             _removeTransactionOutputId(transactionOutputId);
             _invalidatedItems.addLast(transactionOutputId);
+            _writeLock.unlock();
+        }
+        finally {
+            _mergeLock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidateUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers) {
+        _mergeLock.lock();
+        try {
+            _mergeLayers();
+
+            _writeLock.lock();
+            for (final TransactionOutputIdentifier transactionOutputId : transactionOutputIdentifiers) {
+                _removeTransactionOutputId(transactionOutputId);
+                _invalidatedItems.addLast(transactionOutputId);
+            }
+            _writeLock.unlock();
+        }
+        finally {
+            _mergeLock.unlock();
         }
-        _writeLock.unlock();
     }
 
     @Override
@@ -129,28 +306,62 @@ public class JvmUnspentTransactionOutputCache implements UnspentTransactionOutpu
         }
 
         final JvmUnspentTransactionOutputCache sourceCache = (JvmUnspentTransactionOutputCache) unspentTransactionOutputCache;
-        sourceCache._writeLock.lock();
 
-        _writeLock.lock();
+        final HashMap<TransactionOutputIdentifier, TransactionOutputId> transactionOutputIds = new HashMap<TransactionOutputIdentifier, TransactionOutputId>();
+        final HashSet<TransactionOutputIdentifier> invalidatedTransactionOutputIdentifiers = new HashSet<TransactionOutputIdentifier>();
+
+        sourceCache._mergeLock.lock();
+        sourceCache._mergeLayers();
+        sourceCache._writeLock.lock();
         for (final Sha256Hash transactionHash : sourceCache._transactionOutputs.keySet()) {
             final Map<Integer, TransactionOutputId> sourceMap = sourceCache._transactionOutputs.get(transactionHash);
-            final Map<Integer, TransactionOutputId> existingMap = _transactionOutputs.get(transactionHash);
-            if (existingMap == null) {
-                _transactionOutputs.put(transactionHash, new TreeMap<Integer, TransactionOutputId>(sourceMap));
-            }
-            else {
-                existingMap.putAll(sourceMap);
+            for (final Integer transactionOutputIndex : sourceMap.keySet()) {
+                transactionOutputIds.put(new TransactionOutputIdentifier(transactionHash, transactionOutputIndex), sourceMap.get(transactionOutputIndex));
             }
         }
-
-        for (final TransactionOutputIdentifier transactionOutputId : sourceCache._invalidatedItems) {
-            _removeTransactionOutputId(transactionOutputId);
-        }
-        _writeLock.unlock();
+        invalidatedTransactionOutputIdentifiers.addAll(sourceCache._invalidatedItems);
 
         sourceCache._transactionOutputs.clear();
         sourceCache._invalidatedItems.clear();
         sourceCache._writeLock.unlock();
+        sourceCache._mergeLock.unlock();
+
+        if (transactionOutputIds.isEmpty() && invalidatedTransactionOutputIdentifiers.isEmpty()) { return; }
+
+        final Integer layerCount;
+        synchronized (_layerMutex) {
+            _newestLayer = new Layer(transactionOutputIds, invalidatedTransactionOutputIdentifiers, _newestLayer);
+            _layerCount += 1;
+            layerCount = _layerCount;
+        }
+
+        if (layerCount > MAX_LAYER_COUNT) { // Bound the number of layers a read may traverse if the merger falls behind...
+            _mergeLock.lock();
+            try {
+                _mergeOldestLayer();
+            }
+            finally {
+                _mergeLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Boolean mergeLayer() {
+        _mergeLock.lock();
+        try {
+            return _mergeOldestLayer();
+        }
+        finally {
+            _mergeLock.unlock();
+        }
+    }
+
+    @Override
+    public Integer getLayerCount() {
+        synchronized (_layerMutex) {
+            return _layerCount;
+        }
     }
 
     @Override
@@ -167,21 +378,32 @@ public class JvmUnspentTransactionOutputCache implements UnspentTransactionOutpu
 
     @Override
     public void pruneHalf() {
-        boolean shouldPrune = true;
-        for (final Sha256Hash key0 : _transactionOutputs.keySet()) {
-            final Map<Integer, TransactionOutputId> subMap = _transactionOutputs.get(key0);
+        _mergeLock.lock();
+        _writeLock.lock();
+        try {
+            boolean shouldPrune = true;
+            final Iterator<Map.Entry<Sha256Hash, Map<Integer, TransactionOutputId>>> iterator = _transactionOutputs.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map<Integer, TransactionOutputId> subMap = iterator.next().getValue();
 
-            for (final Integer key1 : subMap.keySet()) {
-                if (shouldPrune) {
-                    subMap.remove(key1);
+                final Iterator<Integer> subIterator = subMap.keySet().iterator();
+                while (subIterator.hasNext()) {
+                    subIterator.next();
+                    if (shouldPrune) {
+                        subIterator.remove();
+                    }
+                    shouldPrune = (! shouldPrune);
                 }
-                shouldPrune = (! shouldPrune);
-            }
 
-            if (subMap.isEmpty()) {
-                _transactionOutputs.remove(key0);
+                if (subMap.isEmpty()) {
+                    iterator.remove();
+                }
             }
         }
+        finally {
+            _writeLock.unlock();
+            _mergeLock.unlock();
+        }
     }
 
     @Override
@@ -191,9 +413,15 @@ public class JvmUnspentTransactionOutputCache implements UnspentTransactionOutpu
 
     @Override
     public void close() {
+        _mergeLock.lock();
         _writeLock.lock();
+        synchronized (_layerMutex) {
+            _newestLayer = null;
+            _layerCount = 0;
+        }
         _transactionOutputs.clear();
         _invalidatedItems.clear();
         _writeLock.unlock();
+        _mergeLock.unlock();
     }
 }
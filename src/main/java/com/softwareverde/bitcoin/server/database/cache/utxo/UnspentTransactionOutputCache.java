@@ -13,6 +13,15 @@ public interface UnspentTransactionOutputCache extends AutoCloseable {
     void cacheUnspentTransactionOutputId(Sha256Hash transactionHash, Integer transactionOutputIndex, TransactionOutputId transactionOutputId);
     void cacheUnspentTransactionOutputId(Long insertId, Sha256Hash transactionHash, Integer transactionOutputIndex, TransactionOutputId transactionOutputId);
     TransactionOutputId getCachedUnspentTransactionOutputId(Sha256Hash transactionHash, Integer transactionOutputIndex);
+
+    /**
+     * Bulk variants of the above; the lists are index-aligned.
+     *  getCachedUnspentTransactionOutputIds returns a list of the same size as transactionOutputIdentifiers, containing null for each cache-miss.
+     */
+    void cacheUnspentTransactionOutputIds(List<TransactionOutputIdentifier> transactionOutputIdentifiers, List<TransactionOutputId> transactionOutputIds);
+    void cacheUnspentTransactionOutputIds(List<Long> insertIds, List<TransactionOutputIdentifier> transactionOutputIdentifiers, List<TransactionOutputId> transactionOutputIds);
+    List<TransactionOutputId> getCachedUnspentTransactionOutputIds(List<TransactionOutputIdentifier> transactionOutputIdentifiers);
+
     void invalidateUnspentTransactionOutputId(TransactionOutputIdentifier transactionOutputIdentifier);
     void invalidateUnspentTransactionOutputIds(List<TransactionOutputIdentifier> transactionOutputIdentifiers);
     void commit(UnspentTransactionOutputCache sourceCache);
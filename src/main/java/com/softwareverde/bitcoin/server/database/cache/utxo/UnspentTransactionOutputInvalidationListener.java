@@ -0,0 +1,11 @@
+package com.softwareverde.bitcoin.server.database.cache.utxo;
+
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+
+/**
+ * Notified whenever a LocalDatabaseManagerCache invalidates an unspent TransactionOutput.
+ *  Used by the CacheWarmer to prevent loading UTXOs that were spent while the cache was still warming up.
+ */
+public interface UnspentTransactionOutputInvalidationListener {
+    void onUnspentTransactionOutputInvalidated(TransactionOutputIdentifier transactionOutputIdentifier);
+}
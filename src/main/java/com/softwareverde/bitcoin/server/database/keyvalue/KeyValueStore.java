@@ -0,0 +1,40 @@
+package com.softwareverde.bitcoin.server.database.keyvalue;
+
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+
+/**
+ * An embedded, binary key-value store.
+ *  Keys are compared by their bytes, so any ByteArray (e.g. a Sha256Hash) may be used as a key.
+ *  Failures are logged and reported via the return value rather than thrown.
+ */
+public interface KeyValueStore extends AutoCloseable {
+    /**
+     * Returns a copy of the value stored for the key, or null if the key does not exist or could not be read.
+     */
+    MutableByteArray get(ByteArray key);
+
+    Boolean containsKey(ByteArray key);
+
+    /**
+     * Stores the value for the key, replacing any previous value.
+     *  Returns false if the value could not be written.
+     */
+    Boolean put(ByteArray key, ByteArray value);
+
+    /**
+     * Removes the key, if it exists.
+     *  Returns false if the removal could not be written.
+     */
+    Boolean remove(ByteArray key);
+
+    Integer getKeyCount();
+
+    /**
+     * Forces all previously written values to disk.
+     */
+    void flush();
+
+    @Override
+    void close();
+}
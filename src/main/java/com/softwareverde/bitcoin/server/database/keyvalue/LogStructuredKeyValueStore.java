@@ -0,0 +1,618 @@
+package com.softwareverde.bitcoin.server.database.keyvalue;
+
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.ImmutableByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.util.ByteUtil;
+import com.softwareverde.util.Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * A KeyValueStore that appends every write to a sequence of segment files and keeps an in-memory index of each key's latest record.
+ *  Each record is: [key byte count (4)][value byte count (4), or -1 for a removal][CRC32 of the key and value (4)][key][value].
+ *  Records are never modified in-place; overwritten and removed values remain on disk until ::compact rewrites the oldest segments.
+ *  The index is rebuilt from the record headers when the store is opened, and a partially written record at the end of the newest
+ *  segment (i.e. from an unclean shutdown) is truncated.  Checksums are verified whenever a value is read.
+ *  Reads are positional and may proceed concurrently; writes are serialized.
+ *  The directory is exclusively locked while the store is open, so only one process (or instance) may use it at a time.
+ */
+public class LogStructuredKeyValueStore implements KeyValueStore {
+    public static final Long DEFAULT_MAX_SEGMENT_BYTE_COUNT = (256L * ByteUtil.Unit.MEGABYTES);
+    public static final Float DEFAULT_COMPACTION_THRESHOLD = 0.5F;
+
+    protected static final String SEGMENT_FILE_EXTENSION = ".segment";
+    protected static final String LOCK_FILENAME = "lock";
+    protected static final Integer RECORD_HEADER_BYTE_COUNT = 12;
+    protected static final Integer CHECKSUM_OFFSET = 8;
+    protected static final Integer REMOVED_VALUE_BYTE_COUNT = -1;
+
+    protected static class Segment {
+        public final Long segmentIndex;
+        public final File file;
+        public final FileChannel fileChannel;
+        public Long byteCount;
+        public Long liveByteCount = 0L;
+
+        public Segment(final Long segmentIndex, final File file, final FileChannel fileChannel, final Long byteCount) {
+            this.segmentIndex = segmentIndex;
+            this.file = file;
+            this.fileChannel = fileChannel;
+            this.byteCount = byteCount;
+        }
+    }
+
+    protected static class RecordLocation {
+        public final Segment segment;
+        public final Long recordPosition;
+        public final Integer keyByteCount;
+        public final Integer valueByteCount;
+
+        public RecordLocation(final Segment segment, final Long recordPosition, final Integer keyByteCount, final Integer valueByteCount) {
+            this.segment = segment;
+            this.recordPosition = recordPosition;
+            this.keyByteCount = keyByteCount;
+            this.valueByteCount = valueByteCount;
+        }
+
+        public Boolean isRemoval() {
+            return (valueByteCount < 0);
+        }
+
+        public Long getRecordByteCount() {
+            return (RECORD_HEADER_BYTE_COUNT.longValue() + keyByteCount + Math.max(0, valueByteCount));
+        }
+    }
+
+    protected static String _getSegmentFilename(final Long segmentIndex) {
+        return (String.format("%010d", segmentIndex) + SEGMENT_FILE_EXTENSION);
+    }
+
+    protected static ImmutableByteArray _toKey(final ByteArray byteArray) {
+        return new ImmutableByteArray(byteArray.getBytes()); // Normalizes subclasses (e.g. Sha256Hash) so that keys are compared only by their bytes...
+    }
+
+    protected static Integer _calculateChecksum(final byte[] recordBytes) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(recordBytes, RECORD_HEADER_BYTE_COUNT, (recordBytes.length - RECORD_HEADER_BYTE_COUNT));
+        return (int) crc32.getValue();
+    }
+
+    protected static Boolean _readFully(final FileChannel fileChannel, final ByteBuffer byteBuffer, final Long position) throws IOException {
+        long readPosition = position;
+        while (byteBuffer.hasRemaining()) {
+            final int byteCount = fileChannel.read(byteBuffer, readPosition);
+            if (byteCount < 0) { return false; }
+            readPosition += byteCount;
+        }
+        return true;
+    }
+
+    protected static void _writeFully(final FileChannel fileChannel, final ByteBuffer byteBuffer, final Long position) throws IOException {
+        long writePosition = position;
+        while (byteBuffer.hasRemaining()) {
+            writePosition += fileChannel.write(byteBuffer, writePosition);
+        }
+    }
+
+    /**
+     * Acquires an exclusive lock on the directory's lock file.
+     *  Returns null if the lock is held by another process or by another store within this process.
+     */
+    protected static FileLock _lockDirectory(final File directory) {
+        final File lockFile = new File(directory, LOCK_FILENAME);
+
+        FileChannel fileChannel = null;
+        try {
+            fileChannel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            final FileLock fileLock = fileChannel.tryLock();
+            if (fileLock != null) { return fileLock; }
+        }
+        catch (final OverlappingFileLockException exception) {
+            // The lock is already held by this process...
+        }
+        catch (final IOException exception) {
+            Logger.debug(exception);
+        }
+
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            }
+            catch (final IOException exception) {
+                Logger.debug(exception);
+            }
+        }
+        return null;
+    }
+
+    protected static void _unlockDirectory(final FileLock fileLock) {
+        try {
+            fileLock.release();
+        }
+        catch (final IOException exception) {
+            Logger.debug(exception);
+        }
+
+        try {
+            fileLock.channel().close();
+        }
+        catch (final IOException exception) {
+            Logger.debug(exception);
+        }
+    }
+
+    /**
+     * Opens the store within the provided directory, creating the directory if necessary.
+     *  Returns null if the store could not be opened, including when the store is already open by another process.
+     */
+    public static LogStructuredKeyValueStore open(final File directory) {
+        return LogStructuredKeyValueStore.open(directory, DEFAULT_MAX_SEGMENT_BYTE_COUNT);
+    }
+
+    public static LogStructuredKeyValueStore open(final File directory, final Long maxSegmentByteCount) {
+        if (! directory.exists()) {
+            final Boolean mkdirSuccessful = directory.mkdirs();
+            if (! mkdirSuccessful) {
+                Logger.warn("Unable to create key-value store directory: " + directory);
+                return null;
+            }
+        }
+
+        final FileLock fileLock = _lockDirectory(directory);
+        if (fileLock == null) {
+            Logger.warn("Unable to open key-value store; it is already in use: " + directory);
+            return null;
+        }
+
+        final ArrayList<Long> segmentIndexes = new ArrayList<Long>();
+        { // Find the existing segments...
+            final String[] filenames = directory.list();
+            if (filenames == null) {
+                Logger.warn("Unable to list key-value store directory: " + directory);
+                _unlockDirectory(fileLock);
+                return null;
+            }
+
+            for (final String filename : filenames) {
+                if (! filename.endsWith(SEGMENT_FILE_EXTENSION)) { continue; }
+
+                final String segmentIndexString = filename.substring(0, (filename.length() - SEGMENT_FILE_EXTENSION.length()));
+                final Long segmentIndex = Util.parseLong(segmentIndexString, null);
+                if ( (segmentIndex == null) || (! Util.areEqual(filename, _getSegmentFilename(segmentIndex))) ) {
+                    Logger.warn("Ignoring unexpected key-value store file: " + filename);
+                    continue;
+                }
+
+                segmentIndexes.add(segmentIndex);
+            }
+            Collections.sort(segmentIndexes);
+        }
+
+        final LogStructuredKeyValueStore keyValueStore = new LogStructuredKeyValueStore(directory, maxSegmentByteCount, fileLock);
+        try {
+            for (int i = 0; i < segmentIndexes.size(); ++i) {
+                final Long segmentIndex = segmentIndexes.get(i);
+                final Boolean isNewestSegment = (i == (segmentIndexes.size() - 1));
+
+                final File file = new File(directory, _getSegmentFilename(segmentIndex));
+                final FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                final Segment segment = new Segment(segmentIndex, file, fileChannel, fileChannel.size());
+                keyValueStore._segments.add(segment);
+                keyValueStore._loadSegment(segment, isNewestSegment);
+            }
+
+            if (keyValueStore._segments.isEmpty()) {
+                keyValueStore._createSegment(0L);
+            }
+            else {
+                keyValueStore._activeSegment = keyValueStore._segments.get(keyValueStore._segments.size() - 1);
+            }
+        }
+        catch (final IOException exception) {
+            Logger.debug(exception);
+            keyValueStore.close();
+            return null;
+        }
+
+        return keyValueStore;
+    }
+
+    protected final File _directory;
+    protected final Long _maxSegmentByteCount;
+    protected final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock();
+    protected final HashMap<ImmutableByteArray, RecordLocation> _index = new HashMap<ImmutableByteArray, RecordLocation>();
+    protected final ArrayList<Segment> _segments = new ArrayList<Segment>();
+    protected final FileLock _fileLock;
+    protected Segment _activeSegment;
+    protected Boolean _isClosed = false;
+
+    protected LogStructuredKeyValueStore(final File directory, final Long maxSegmentByteCount, final FileLock fileLock) {
+        _directory = directory;
+        _maxSegmentByteCount = maxSegmentByteCount;
+        _fileLock = fileLock;
+    }
+
+    /**
+     * Indexes the segment's records by reading only their headers and keys.
+     *  Values are only read (and checksummed) for the newest segment, since it is the only segment that may contain a torn write.
+     */
+    protected void _loadSegment(final Segment segment, final Boolean isNewestSegment) throws IOException {
+        final FileChannel fileChannel = segment.fileChannel;
+        final long fileByteCount = fileChannel.size();
+        final ByteBuffer headerBuffer = ByteBuffer.allocate(RECORD_HEADER_BYTE_COUNT);
+
+        long position = 0L;
+        while (position < fileByteCount) {
+            headerBuffer.clear();
+            if (! _readFully(fileChannel, headerBuffer, position)) { break; }
+
+            final int keyByteCount = headerBuffer.getInt(0);
+            final int valueByteCount = headerBuffer.getInt(4);
+            if ( (keyByteCount < 0) || (valueByteCount < REMOVED_VALUE_BYTE_COUNT) ) { break; }
+
+            final RecordLocation recordLocation = new RecordLocation(segment, position, keyByteCount, valueByteCount);
+            final Long recordByteCount = recordLocation.getRecordByteCount();
+            if ((position + recordByteCount) > fileByteCount) { break; }
+
+            final byte[] keyBytes;
+            if (isNewestSegment) {
+                final byte[] recordBytes = new byte[recordByteCount.intValue()];
+                if (! _readFully(fileChannel, ByteBuffer.wrap(recordBytes), position)) { break; }
+                if (_calculateChecksum(recordBytes) != headerBuffer.getInt(CHECKSUM_OFFSET)) { break; }
+
+                keyBytes = Arrays.copyOfRange(recordBytes, RECORD_HEADER_BYTE_COUNT, (RECORD_HEADER_BYTE_COUNT + keyByteCount));
+            }
+            else {
+                keyBytes = new byte[keyByteCount];
+                if (! _readFully(fileChannel, ByteBuffer.wrap(keyBytes), (position + RECORD_HEADER_BYTE_COUNT))) { break; }
+            }
+
+            _indexRecord(new ImmutableByteArray(keyBytes), recordLocation);
+            position += recordByteCount;
+        }
+
+        if (position < fileByteCount) {
+            if (isNewestSegment) {
+                Logger.warn("Truncating incomplete record from " + segment.file + " at " + position + ".");
+                fileChannel.truncate(position);
+                segment.byteCount = position;
+            }
+            else {
+                Logger.warn("Ignoring corrupted records within " + segment.file + " after " + position + ".");
+            }
+        }
+    }
+
+    protected void _indexRecord(final ImmutableByteArray key, final RecordLocation recordLocation) {
+        final RecordLocation previousRecordLocation = (recordLocation.isRemoval() ? _index.remove(key) : _index.put(key, recordLocation));
+        if (previousRecordLocation != null) {
+            final Segment previousSegment = previousRecordLocation.segment;
+            previousSegment.liveByteCount -= previousRecordLocation.getRecordByteCount();
+        }
+
+        if (! recordLocation.isRemoval()) {
+            final Segment segment = recordLocation.segment;
+            segment.liveByteCount += recordLocation.getRecordByteCount();
+        }
+    }
+
+    protected void _createSegment(final Long segmentIndex) throws IOException {
+        final File file = new File(_directory, _getSegmentFilename(segmentIndex));
+        final FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        final Segment previousSegment = _activeSegment;
+        if (previousSegment != null) {
+            previousSegment.fileChannel.force(false);
+        }
+
+        final Segment segment = new Segment(segmentIndex, file, fileChannel, fileChannel.size());
+        _segments.add(segment);
+        _activeSegment = segment;
+    }
+
+    /**
+     * Appends the record to the active segment, starting a new segment if the record would exceed the max segment size.
+     *  A null valueBytes appends a removal record.  Must be invoked while holding the write lock.
+     */
+    protected void _append(final ImmutableByteArray key, final byte[] keyBytes, final byte[] valueBytes) throws IOException {
+        final Integer valueByteCount = (valueBytes != null ? valueBytes.length : REMOVED_VALUE_BYTE_COUNT);
+        final int recordByteCount = (RECORD_HEADER_BYTE_COUNT + keyBytes.length + (valueBytes != null ? valueBytes.length : 0));
+
+        if ( (_activeSegment.byteCount > 0L) && ((_activeSegment.byteCount + recordByteCount) > _maxSegmentByteCount) ) {
+            _createSegment(_activeSegment.segmentIndex + 1L);
+        }
+
+        final byte[] recordBytes = new byte[recordByteCount];
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(recordBytes);
+        byteBuffer.putInt(keyBytes.length);
+        byteBuffer.putInt(valueByteCount);
+        byteBuffer.putInt(0); // Checksum placeholder...
+        byteBuffer.put(keyBytes);
+        if (valueBytes != null) {
+            byteBuffer.put(valueBytes);
+        }
+        byteBuffer.putInt(CHECKSUM_OFFSET, _calculateChecksum(recordBytes));
+        byteBuffer.flip();
+
+        final Segment segment = _activeSegment;
+        final Long position = segment.byteCount;
+        _writeFully(segment.fileChannel, byteBuffer, position);
+        segment.byteCount += recordByteCount;
+
+        _indexRecord(key, new RecordLocation(segment, position, keyBytes.length, valueByteCount));
+    }
+
+    /**
+     * Returns the record's value, or null if the record could not be read or its checksum is invalid.
+     *  Must be invoked while holding the read or write lock.
+     */
+    protected byte[] _readValue(final RecordLocation recordLocation) throws IOException {
+        final Segment segment = recordLocation.segment;
+        final byte[] recordBytes = new byte[recordLocation.getRecordByteCount().intValue()];
+        if (! _readFully(segment.fileChannel, ByteBuffer.wrap(recordBytes), recordLocation.recordPosition)) {
+            Logger.warn("Unable to read record from " + segment.file + " at " + recordLocation.recordPosition + ".");
+            return null;
+        }
+
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(recordBytes);
+        if (_calculateChecksum(recordBytes) != byteBuffer.getInt(CHECKSUM_OFFSET)) {
+            Logger.warn("Corrupted record within " + segment.file + " at " + recordLocation.recordPosition + ".");
+            return null;
+        }
+
+        return Arrays.copyOfRange(recordBytes, (RECORD_HEADER_BYTE_COUNT + recordLocation.keyByteCount), recordBytes.length);
+    }
+
+    @Override
+    public MutableByteArray get(final ByteArray key) {
+        final ReentrantReadWriteLock.ReadLock readLock = _lock.readLock();
+        readLock.lock();
+        try {
+            if (_isClosed) { return null; }
+
+            final RecordLocation recordLocation = _index.get(_toKey(key));
+            if (recordLocation == null) { return null; }
+
+            final byte[] valueBytes = _readValue(recordLocation);
+            if (valueBytes == null) { return null; }
+
+            return MutableByteArray.wrap(valueBytes);
+        }
+        catch (final IOException exception) {
+            Logger.debug(exception);
+            return null;
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Boolean containsKey(final ByteArray key) {
+        final ReentrantReadWriteLock.ReadLock readLock = _lock.readLock();
+        readLock.lock();
+        try {
+            return _index.containsKey(_toKey(key));
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Boolean put(final ByteArray key, final ByteArray value) {
+        final byte[] keyBytes = key.getBytes();
+        final byte[] valueBytes = value.getBytes();
+
+        final ReentrantReadWriteLock.WriteLock writeLock = _lock.writeLock();
+        writeLock.lock();
+        try {
+            if (_isClosed) { return false; }
+
+            _append(new ImmutableByteArray(keyBytes), keyBytes, valueBytes);
+            return true;
+        }
+        catch (final IOException exception) {
+            Logger.debug(exception);
+            return false;
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Boolean remove(final ByteArray key) {
+        final byte[] keyBytes = key.getBytes();
+        final ImmutableByteArray indexKey = new ImmutableByteArray(keyBytes);
+
+        final ReentrantReadWriteLock.WriteLock writeLock = _lock.writeLock();
+        writeLock.lock();
+        try {
+            if (_isClosed) { return false; }
+            if (! _index.containsKey(indexKey)) { return true; }
+
+            _append(indexKey, keyBytes, null);
+            return true;
+        }
+        catch (final IOException exception) {
+            Logger.debug(exception);
+            return false;
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Integer getKeyCount() {
+        final ReentrantReadWriteLock.ReadLock readLock = _lock.readLock();
+        readLock.lock();
+        try {
+            return _index.size();
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of bytes stored on disk, including overwritten and removed values that have not yet been compacted.
+     */
+    public Long getByteCount() {
+        final ReentrantReadWriteLock.ReadLock readLock = _lock.readLock();
+        readLock.lock();
+        try {
+            long byteCount = 0L;
+            for (final Segment segment : _segments) {
+                byteCount += segment.byteCount;
+            }
+            return byteCount;
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live records of the oldest segments whose ratio of live bytes is below the threshold, and then deletes those segments.
+     *  Only a contiguous run of the oldest segments is compacted, so a removal record is never discarded while an older value for its key remains on disk;
+     *  this suits the block cache, since pruning removes the oldest blocks first.
+     *  The write lock is released between segments, so reads and writes are only blocked while a single segment is compacted.
+     *  Returns the number of bytes reclaimed.
+     */
+    public Long compact(final Float liveByteRatioThreshold) {
+        long reclaimedByteCount = 0L;
+
+        final ReentrantReadWriteLock.WriteLock writeLock = _lock.writeLock();
+        while (true) {
+            writeLock.lock();
+            try {
+                if (_isClosed) { break; }
+
+                final Segment segment = _segments.get(0);
+                if (segment == _activeSegment) { break; }
+
+                final Double liveByteRatio = (segment.byteCount > 0L ? (segment.liveByteCount.doubleValue() / segment.byteCount) : 0D);
+                if (liveByteRatio >= liveByteRatioThreshold) { break; }
+
+                final Long liveByteCount = segment.liveByteCount;
+
+                final ArrayList<Map.Entry<ImmutableByteArray, RecordLocation>> liveRecords = new ArrayList<Map.Entry<ImmutableByteArray, RecordLocation>>();
+                for (final Map.Entry<ImmutableByteArray, RecordLocation> entry : _index.entrySet()) {
+                    final RecordLocation recordLocation = entry.getValue();
+                    if (recordLocation.segment == segment) {
+                        liveRecords.add(entry);
+                    }
+                }
+
+                { // Copy the live records in their original order to preserve the locality of adjacent values...
+                    Collections.sort(liveRecords, new Comparator<Map.Entry<ImmutableByteArray, RecordLocation>>() {
+                        @Override
+                        public int compare(final Map.Entry<ImmutableByteArray, RecordLocation> entry0, final Map.Entry<ImmutableByteArray, RecordLocation> entry1) {
+                            return entry0.getValue().recordPosition.compareTo(entry1.getValue().recordPosition);
+                        }
+                    });
+                }
+
+                for (final Map.Entry<ImmutableByteArray, RecordLocation> entry : liveRecords) {
+                    final ImmutableByteArray key = entry.getKey();
+                    final RecordLocation recordLocation = entry.getValue();
+
+                    final byte[] valueBytes = _readValue(recordLocation);
+                    if (valueBytes == null) {
+                        _index.remove(key); // The record is corrupted, so it is discarded along with its segment...
+                        continue;
+                    }
+
+                    _append(key, key.getBytes(), valueBytes);
+                }
+                _activeSegment.fileChannel.force(false); // The copies must be durable before their originals are deleted...
+
+                segment.fileChannel.close();
+                if (! segment.file.delete()) {
+                    Logger.warn("Unable to delete compacted segment: " + segment.file);
+                }
+                _segments.remove(0);
+
+                reclaimedByteCount += (segment.byteCount - liveByteCount);
+            }
+            catch (final IOException exception) {
+                Logger.debug(exception);
+                break;
+            }
+            finally {
+                writeLock.unlock();
+            }
+        }
+
+        return reclaimedByteCount;
+    }
+
+    public Long compact() {
+        return this.compact(DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    @Override
+    public void flush() {
+        final ReentrantReadWriteLock.WriteLock writeLock = _lock.writeLock();
+        writeLock.lock();
+        try {
+            if (_isClosed) { return; }
+
+            _activeSegment.fileChannel.force(false);
+        }
+        catch (final IOException exception) {
+            Logger.debug(exception);
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        final ReentrantReadWriteLock.WriteLock writeLock = _lock.writeLock();
+        writeLock.lock();
+        try {
+            if (_isClosed) { return; }
+            _isClosed = true;
+
+            for (final Segment segment : _segments) {
+                try {
+                    if (segment == _activeSegment) {
+                        segment.fileChannel.force(false);
+                    }
+                    segment.fileChannel.close();
+                }
+                catch (final IOException exception) {
+                    Logger.debug(exception);
+                }
+            }
+
+            _segments.clear();
+            _index.clear();
+
+            _unlockDirectory(_fileLock);
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.softwareverde.bitcoin.server.database.pool;
+
+import com.softwareverde.bitcoin.server.database.DatabaseConnection;
+import com.softwareverde.bitcoin.server.database.DatabaseConnectionFactory;
+import com.softwareverde.bitcoin.server.database.query.Query;
+import com.softwareverde.database.DatabaseException;
+import com.softwareverde.database.row.Row;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.util.type.time.SystemTime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides connections for read-only queries from a set of replica pools, falling back to the primary pool.
+ *  Replicas are used in round-robin order, but only while their head block height is within maxBlockHeightLag of the primary's head block height.
+ *  Head block heights are checked once per staleness-check interval by a background thread (see ::start), so ::newConnection never queries
+ *  the primary or the replicas itself.  If the background check has not completed within MAX_MISSED_STALENESS_CHECK_COUNT intervals,
+ *  every replica is treated as stale.
+ *  Connections provided by this pool must not be used for writes.
+ *
+ *  NOTE: When maxBlockHeightLag is greater than zero, a replica may trail the primary by that many blocks.  Ids held within a
+ *  DatabaseManagerCache that is shared with the primary (e.g. the MasterDatabaseManagerCache) may therefore refer to rows that
+ *  do not exist on the replica yet, so queries by such ids may find nothing; lookups by hash are unaffected.
+ */
+public class ReadReplicaDatabaseConnectionPool implements DatabaseConnectionPool {
+    public static final Long DEFAULT_STALENESS_CHECK_INTERVAL_MS = 5000L;
+    public static final Integer MAX_MISSED_STALENESS_CHECK_COUNT = 3;
+
+    protected static class Replica {
+        public final DatabaseConnectionPool databaseConnectionPool;
+        public volatile Boolean isUpToDate = false;
+
+        public Replica(final DatabaseConnectionPool databaseConnectionPool) {
+            this.databaseConnectionPool = databaseConnectionPool;
+        }
+    }
+
+    /**
+     * Returns the height of the head Block that has its Transactions, or null if the height could not be determined.
+     */
+    protected Long _getHeadBlockHeight(final DatabaseConnectionFactory databaseConnectionFactory) {
+        try (final DatabaseConnection databaseConnection = databaseConnectionFactory.newConnection()) {
+            final List<Row> rows = databaseConnection.query(
+                new Query("SELECT blocks.block_height FROM blocks INNER JOIN block_transactions ON block_transactions.block_id = blocks.id ORDER BY blocks.chain_work DESC LIMIT 1")
+            );
+            if (rows.isEmpty()) { return 0L; }
+
+            final Row row = rows.get(0);
+            return row.getLong("block_height");
+        }
+        catch (final DatabaseException exception) {
+            Logger.debug(exception);
+            return null;
+        }
+    }
+
+    protected final DatabaseConnectionPool _primaryDatabaseConnectionPool;
+    protected final List<Replica> _replicas;
+    protected final Long _maxBlockHeightLag;
+    protected final Long _stalenessCheckIntervalMs;
+    protected final SystemTime _systemTime;
+
+    protected final AtomicInteger _nextReplicaIndex = new AtomicInteger(0);
+    protected final AtomicLong _replicaConnectionCount = new AtomicLong(0L);
+    protected final AtomicLong _primaryConnectionCount = new AtomicLong(0L);
+
+    protected volatile Long _lastStalenessCheckTime = null;
+    protected Thread _stalenessCheckThread = null;
+
+    /**
+     * Returns true if the replicas' staleness was checked recently enough for their isUpToDate flags to be trusted.
+     */
+    protected Boolean _isStalenessCheckCurrent() {
+        final Long lastStalenessCheckTime = _lastStalenessCheckTime;
+        if (lastStalenessCheckTime == null) { return false; }
+
+        final Long now = _systemTime.getCurrentTimeInMilliSeconds();
+        return ((now - lastStalenessCheckTime) <= (_stalenessCheckIntervalMs * MAX_MISSED_STALENESS_CHECK_COUNT));
+    }
+
+    /**
+     * Queries the head block height of the primary and of each replica, and updates each replica's isUpToDate flag.
+     *  Invoked by the staleness-check thread.
+     */
+    protected void _checkStaleness() {
+        final Long primaryHeadBlockHeight = _getHeadBlockHeight(_primaryDatabaseConnectionPool);
+        for (int i = 0; i < _replicas.size(); ++i) {
+            final Replica replica = _replicas.get(i);
+            final Long replicaHeadBlockHeight = _getHeadBlockHeight(replica.databaseConnectionPool);
+
+            final Boolean isUpToDate;
+            if ( (primaryHeadBlockHeight == null) || (replicaHeadBlockHeight == null) ) {
+                isUpToDate = false;
+            }
+            else {
+                isUpToDate = ((primaryHeadBlockHeight - replicaHeadBlockHeight) <= _maxBlockHeightLag);
+            }
+
+            if (! isUpToDate.equals(replica.isUpToDate)) {
+                Logger.info("Read replica " + i + " is " + (isUpToDate ? "up-to-date" : "stale") + ". (" + replicaHeadBlockHeight + " vs " + primaryHeadBlockHeight + ")");
+            }
+            replica.isUpToDate = isUpToDate;
+        }
+
+        _lastStalenessCheckTime = _systemTime.getCurrentTimeInMilliSeconds();
+    }
+
+    /**
+     * The primary pool is not owned by this pool, and is not closed by ::close; the replica pools are owned by this pool.
+     */
+    public ReadReplicaDatabaseConnectionPool(final DatabaseConnectionPool primaryDatabaseConnectionPool, final List<DatabaseConnectionPool> replicaDatabaseConnectionPools, final Long maxBlockHeightLag) {
+        this(primaryDatabaseConnectionPool, replicaDatabaseConnectionPools, maxBlockHeightLag, DEFAULT_STALENESS_CHECK_INTERVAL_MS, new SystemTime());
+    }
+
+    public ReadReplicaDatabaseConnectionPool(final DatabaseConnectionPool primaryDatabaseConnectionPool, final List<DatabaseConnectionPool> replicaDatabaseConnectionPools, final Long maxBlockHeightLag, final Long stalenessCheckIntervalMs, final SystemTime systemTime) {
+        _primaryDatabaseConnectionPool = primaryDatabaseConnectionPool;
+        _maxBlockHeightLag = maxBlockHeightLag;
+        _stalenessCheckIntervalMs = stalenessCheckIntervalMs;
+        _systemTime = systemTime;
+
+        _replicas = new ArrayList<Replica>(replicaDatabaseConnectionPools.size());
+        for (final DatabaseConnectionPool databaseConnectionPool : replicaDatabaseConnectionPools) {
+            _replicas.add(new Replica(databaseConnectionPool));
+        }
+    }
+
+    /**
+     * Starts the background thread that checks the replicas' staleness once per staleness-check interval.
+     *  Until the first check completes, every connection is provided by the primary pool.
+     */
+    public synchronized void start() {
+        if (_stalenessCheckThread != null) { return; }
+
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final Thread thread = Thread.currentThread();
+                while (! thread.isInterrupted()) {
+                    _checkStaleness();
+
+                    try { Thread.sleep(_stalenessCheckIntervalMs); }
+                    catch (final InterruptedException exception) { break; }
+                }
+            }
+        });
+        thread.setName("Read Replica Staleness Check");
+        thread.setDaemon(true);
+        thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(final Thread thread, final Throwable exception) {
+                Logger.error("Uncaught exception in Read Replica Staleness Check Thread", exception);
+            }
+        });
+
+        _stalenessCheckThread = thread;
+        thread.start();
+    }
+
+    @Override
+    public DatabaseConnection newConnection() throws DatabaseException {
+        final int replicaCount = _replicas.size();
+        if ( (replicaCount > 0) && _isStalenessCheckCurrent() ) {
+            final int startIndex = Math.floorMod(_nextReplicaIndex.getAndIncrement(), replicaCount);
+            for (int i = 0; i < replicaCount; ++i) {
+                final Replica replica = _replicas.get((startIndex + i) % replicaCount);
+                if (! replica.isUpToDate) { continue; }
+
+                try {
+                    final DatabaseConnection databaseConnection = replica.databaseConnectionPool.newConnection();
+                    _replicaConnectionCount.incrementAndGet();
+                    return databaseConnection;
+                }
+                catch (final DatabaseException exception) {
+                    Logger.debug(exception);
+                    replica.isUpToDate = false; // Excluded until the next staleness check...
+                }
+            }
+        }
+
+        _primaryConnectionCount.incrementAndGet();
+        return _primaryDatabaseConnectionPool.newConnection();
+    }
+
+    /**
+     * Returns the number of connections provided by a replica.
+     */
+    public Long getReplicaConnectionCount() {
+        return _replicaConnectionCount.get();
+    }
+
+    /**
+     * Returns the number of connections provided by the primary pool, due to every replica being stale or unavailable.
+     */
+    public Long getPrimaryConnectionCount() {
+        return _primaryConnectionCount.get();
+    }
+
+    @Override
+    public void close() throws DatabaseException {
+        synchronized (this) {
+            final Thread stalenessCheckThread = _stalenessCheckThread;
+            if (stalenessCheckThread != null) {
+                stalenessCheckThread.interrupt();
+                try { stalenessCheckThread.join(30000L); }
+                catch (final InterruptedException exception) { Thread.currentThread().interrupt(); }
+                _stalenessCheckThread = null;
+            }
+        }
+
+        DatabaseException closeException = null;
+        for (final Replica replica : _replicas) {
+            try {
+                replica.databaseConnectionPool.close();
+            }
+            catch (final DatabaseException exception) {
+                closeException = exception;
+            }
+        }
+
+        if (closeException != null) {
+            throw closeException;
+        }
+    }
+}
@@ -43,10 +43,22 @@ import com.softwareverde.bitcoin.server.message.type.query.response.block.merkle
 import com.softwareverde.bitcoin.server.message.type.query.response.block.merkle.MerkleBlockMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.query.response.error.NotFoundResponseMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.error.NotFoundResponseMessageInflater;
+import com.softwareverde.bitcoin.server.message.type.query.response.filter.CompactFilterCheckpointMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.filter.CompactFilterCheckpointMessageInflater;
+import com.softwareverde.bitcoin.server.message.type.query.response.filter.CompactFilterHeadersMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.filter.CompactFilterHeadersMessageInflater;
+import com.softwareverde.bitcoin.server.message.type.query.response.filter.CompactFilterMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.filter.CompactFilterMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.query.response.transaction.TransactionMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.transaction.TransactionMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.request.RequestDataMessage;
 import com.softwareverde.bitcoin.server.message.type.request.RequestDataMessageInflater;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFilterCheckpointMessage;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFilterCheckpointMessageInflater;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFilterHeadersMessage;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFilterHeadersMessageInflater;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFiltersMessage;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFiltersMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.request.header.RequestBlockHeadersMessage;
 import com.softwareverde.bitcoin.server.message.type.request.header.RequestBlockHeadersMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.thin.block.ExtraThinBlockMessage;
@@ -103,6 +115,12 @@ public class BitcoinProtocolMessageFactory implements ProtocolMessageFactory {
         _commandInflaterMap.put(MessageType.SET_TRANSACTION_BLOOM_FILTER, new SetTransactionBloomFilterMessageInflater(_masterInflater));
         _commandInflaterMap.put(MessageType.UPDATE_TRANSACTION_BLOOM_FILTER, new UpdateTransactionBloomFilterMessageInflater());
         _commandInflaterMap.put(MessageType.CLEAR_TRANSACTION_BLOOM_FILTER, new ClearTransactionBloomFilterMessageInflater());
+        _commandInflaterMap.put(MessageType.REQUEST_COMPACT_FILTERS, new RequestCompactFiltersMessageInflater());
+        _commandInflaterMap.put(MessageType.COMPACT_FILTER, new CompactFilterMessageInflater());
+        _commandInflaterMap.put(MessageType.REQUEST_COMPACT_FILTER_HEADERS, new RequestCompactFilterHeadersMessageInflater());
+        _commandInflaterMap.put(MessageType.COMPACT_FILTER_HEADERS, new CompactFilterHeadersMessageInflater());
+        _commandInflaterMap.put(MessageType.REQUEST_COMPACT_FILTER_CHECKPOINT, new RequestCompactFilterCheckpointMessageInflater());
+        _commandInflaterMap.put(MessageType.COMPACT_FILTER_CHECKPOINT, new CompactFilterCheckpointMessageInflater());
         _commandInflaterMap.put(MessageType.QUERY_ADDRESS_BLOCKS, new QueryAddressBlocksMessageInflater(_masterInflater));
     }
 
@@ -242,6 +260,30 @@ public class BitcoinProtocolMessageFactory implements ProtocolMessageFactory {
         return new ClearTransactionBloomFilterMessage();
     }
 
+    public RequestCompactFiltersMessage newRequestCompactFiltersMessage() {
+        return new RequestCompactFiltersMessage();
+    }
+
+    public CompactFilterMessage newCompactFilterMessage() {
+        return new CompactFilterMessage();
+    }
+
+    public RequestCompactFilterHeadersMessage newRequestCompactFilterHeadersMessage() {
+        return new RequestCompactFilterHeadersMessage();
+    }
+
+    public CompactFilterHeadersMessage newCompactFilterHeadersMessage() {
+        return new CompactFilterHeadersMessage();
+    }
+
+    public RequestCompactFilterCheckpointMessage newRequestCompactFilterCheckpointMessage() {
+        return new RequestCompactFilterCheckpointMessage();
+    }
+
+    public CompactFilterCheckpointMessage newCompactFilterCheckpointMessage() {
+        return new CompactFilterCheckpointMessage();
+    }
+
     public QueryAddressBlocksMessage newQueryAddressBlocksMessage() {
         return new QueryAddressBlocksMessage();
     }
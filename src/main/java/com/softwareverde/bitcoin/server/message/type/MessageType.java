@@ -46,6 +46,13 @@ public class MessageType {
     public static final MessageType UPDATE_TRANSACTION_BLOOM_FILTER = new MessageType("filteradd");
     public static final MessageType CLEAR_TRANSACTION_BLOOM_FILTER = new MessageType("filterclear");
 
+    public static final MessageType REQUEST_COMPACT_FILTERS = new MessageType("getcfilters");
+    public static final MessageType COMPACT_FILTER = new MessageType("cfilter");
+    public static final MessageType REQUEST_COMPACT_FILTER_HEADERS = new MessageType("getcfheaders");
+    public static final MessageType COMPACT_FILTER_HEADERS = new MessageType("cfheaders");
+    public static final MessageType REQUEST_COMPACT_FILTER_CHECKPOINT = new MessageType("getcfcheckpt");
+    public static final MessageType COMPACT_FILTER_CHECKPOINT = new MessageType("cfcheckpt");
+
     // BitcoinVerde Messages
     public static final MessageType QUERY_ADDRESS_BLOCKS = new MessageType("addrblocks");
 
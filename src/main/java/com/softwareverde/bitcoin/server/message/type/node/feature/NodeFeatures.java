@@ -11,6 +11,7 @@ public class NodeFeatures {
         UNUSED                                          ((long) (0x01 << 0x03)),
         XTHIN_PROTOCOL_ENABLED                          ((long) (0x01 << 0x04)),
         BITCOIN_CASH_ENABLED                            ((long) (0x01 << 0x05)),
+        COMPACT_FILTERS_ENABLED                         ((long) (0x01 << 0x06)), // BIP-157
         BLOCKCHAIN_INDEX_ENABLED                        ((long) (0x01 << 0x07)); // BitcoinVerde 2019-05-20
 
         public final Long value;
@@ -0,0 +1,70 @@
+package com.softwareverde.bitcoin.server.message.type.query.response.block;
+
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
+import com.softwareverde.bitcoin.server.message.header.BitcoinProtocolMessageHeaderInflater;
+import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.Endian;
+
+/**
+ * A BlockMessage whose payload is an already-serialized Block.
+ *  Used to serve Blocks to peers without inflating and re-deflating them.
+ *  The message header (including the payload checksum) and the complete message are assembled once upon construction,
+ *  so a single RawBlockMessage may be transmitted to any number of peers without re-hashing or copying the Block.
+ *  RawBlockMessages are only transmitted; inbound BLOCK messages are always inflated as a BlockMessage.
+ */
+public class RawBlockMessage extends BitcoinProtocolMessage {
+    protected final Integer _headerByteCount = BitcoinProtocolMessageHeaderInflater.HEADER_BYTE_COUNT;
+    protected final Sha256Hash _blockHash;
+    protected final byte[] _messageBytes;
+
+    public RawBlockMessage(final Sha256Hash blockHash, final ByteArray blockBytes) {
+        super(MessageType.BLOCK);
+        _blockHash = blockHash;
+
+        final int payloadByteCount = blockBytes.getByteCount();
+        final byte[] payloadSizeBytes = ByteUtil.integerToBytes(payloadByteCount);
+        final ByteArray checksum = BitcoinProtocolMessage.calculateChecksum(blockBytes);
+
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendBytes(_magicNumber, Endian.LITTLE);
+        byteArrayBuilder.appendBytes(_command.getBytes(), Endian.BIG);
+        byteArrayBuilder.appendBytes(payloadSizeBytes, Endian.LITTLE);
+        byteArrayBuilder.appendBytes(checksum.getBytes(), Endian.BIG); // NOTE: Must match the checksum endianness of BitcoinProtocolMessage::_getBytes...
+        final byte[] headerBytes = byteArrayBuilder.build();
+
+        // Avoid copying the payload more than once; MutableByteArray exposes its backing array directly...
+        final byte[] payloadBytes = ((blockBytes instanceof MutableByteArray) ? ((MutableByteArray) blockBytes).unwrap() : blockBytes.getBytes());
+
+        _messageBytes = new byte[_headerByteCount + payloadByteCount];
+        System.arraycopy(headerBytes, 0, _messageBytes, 0, _headerByteCount);
+        System.arraycopy(payloadBytes, 0, _messageBytes, _headerByteCount, payloadByteCount);
+    }
+
+    public Sha256Hash getBlockHash() {
+        return _blockHash;
+    }
+
+    @Override
+    protected ByteArray _getPayload() {
+        return MutableByteArray.wrap(ByteUtil.copyBytes(_messageBytes, _headerByteCount, (_messageBytes.length - _headerByteCount)));
+    }
+
+    @Override
+    public byte[] getHeaderBytes() {
+        return ByteUtil.copyBytes(_messageBytes, 0, _headerByteCount);
+    }
+
+    /**
+     * Returns the complete message without copying it.
+     *  The returned bytes are shared by every transmission of this message and must not be modified.
+     */
+    @Override
+    public ByteArray getBytes() {
+        return MutableByteArray.wrap(_messageBytes);
+    }
+}
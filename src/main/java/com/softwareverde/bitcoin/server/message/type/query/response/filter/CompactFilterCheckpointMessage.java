@@ -0,0 +1,55 @@
+package com.softwareverde.bitcoin.server.message.type.query.response.filter;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
+import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.Endian;
+
+/**
+ * The compact block filter headers at every checkpoint interval up to stopBlockHash (BIP-157).
+ */
+public class CompactFilterCheckpointMessage extends BitcoinProtocolMessage {
+    protected Integer _filterType;
+    protected final MutableSha256Hash _stopBlockHash = new MutableSha256Hash();
+    protected final MutableList<Sha256Hash> _filterHeaders = new MutableList<Sha256Hash>();
+
+    public CompactFilterCheckpointMessage() {
+        super(MessageType.COMPACT_FILTER_CHECKPOINT);
+        _filterType = 0;
+    }
+
+    public Integer getFilterType() { return _filterType; }
+    public Sha256Hash getStopBlockHash() { return _stopBlockHash; }
+    public List<Sha256Hash> getFilterHeaders() { return _filterHeaders; }
+
+    public void setFilterType(final Integer filterType) {
+        _filterType = filterType;
+    }
+
+    public void setStopBlockHash(final Sha256Hash stopBlockHash) {
+        _stopBlockHash.setBytes(stopBlockHash);
+    }
+
+    public void addFilterHeader(final Sha256Hash filterHeader) {
+        _filterHeaders.add(filterHeader);
+    }
+
+    @Override
+    protected ByteArray _getPayload() {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendByte((byte) (_filterType & 0xFF));
+        byteArrayBuilder.appendBytes(_stopBlockHash, Endian.LITTLE);
+        byteArrayBuilder.appendBytes(ByteUtil.variableLengthIntegerToBytes(_filterHeaders.getSize()), Endian.BIG);
+        for (final Sha256Hash filterHeader : _filterHeaders) {
+            byteArrayBuilder.appendBytes(filterHeader, Endian.LITTLE);
+        }
+        return MutableByteArray.wrap(byteArrayBuilder.build());
+    }
+}
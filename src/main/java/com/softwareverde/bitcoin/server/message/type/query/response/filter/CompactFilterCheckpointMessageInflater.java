@@ -0,0 +1,34 @@
+package com.softwareverde.bitcoin.server.message.type.query.response.filter;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessageInflater;
+import com.softwareverde.bitcoin.server.message.header.BitcoinProtocolMessageHeader;
+import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.util.bytearray.Endian;
+
+public class CompactFilterCheckpointMessageInflater extends BitcoinProtocolMessageInflater {
+
+    @Override
+    public CompactFilterCheckpointMessage fromBytes(final byte[] bytes) {
+        final CompactFilterCheckpointMessage compactFilterCheckpointMessage = new CompactFilterCheckpointMessage();
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+
+        final BitcoinProtocolMessageHeader protocolMessageHeader = _parseHeader(byteArrayReader, MessageType.COMPACT_FILTER_CHECKPOINT);
+        if (protocolMessageHeader == null) { return null; }
+
+        compactFilterCheckpointMessage._filterType = byteArrayReader.readInteger(1, Endian.LITTLE);
+        compactFilterCheckpointMessage._stopBlockHash.setBytes(MutableSha256Hash.wrap(byteArrayReader.readBytes(32, Endian.LITTLE)));
+
+        final Long filterHeaderCount = byteArrayReader.readVariableSizedInteger();
+        if ( (filterHeaderCount < 0L) || (byteArrayReader.remainingByteCount() < (filterHeaderCount * 32L)) ) { return null; }
+
+        for (int i = 0; i < filterHeaderCount; ++i) {
+            compactFilterCheckpointMessage._filterHeaders.add(MutableSha256Hash.wrap(byteArrayReader.readBytes(32, Endian.LITTLE)));
+        }
+
+        if (byteArrayReader.didOverflow()) { return null; }
+
+        return compactFilterCheckpointMessage;
+    }
+}
@@ -0,0 +1,65 @@
+package com.softwareverde.bitcoin.server.message.type.query.response.filter;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
+import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFilterHeadersMessage;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.Endian;
+
+/**
+ * The compact block filter hashes for a range of Blocks, preceded by the filter header of the Block before the range (BIP-157).
+ *  The filter headers of the range may be derived by chaining each filter hash onto the previous filter header.
+ */
+public class CompactFilterHeadersMessage extends BitcoinProtocolMessage {
+    protected Integer _filterType;
+    protected final MutableSha256Hash _stopBlockHash = new MutableSha256Hash();
+    protected final MutableSha256Hash _previousFilterHeader = new MutableSha256Hash();
+    protected final MutableList<Sha256Hash> _filterHashes = new MutableList<Sha256Hash>();
+
+    public CompactFilterHeadersMessage() {
+        super(MessageType.COMPACT_FILTER_HEADERS);
+        _filterType = 0;
+    }
+
+    public Integer getFilterType() { return _filterType; }
+    public Sha256Hash getStopBlockHash() { return _stopBlockHash; }
+    public Sha256Hash getPreviousFilterHeader() { return _previousFilterHeader; }
+    public List<Sha256Hash> getFilterHashes() { return _filterHashes; }
+
+    public void setFilterType(final Integer filterType) {
+        _filterType = filterType;
+    }
+
+    public void setStopBlockHash(final Sha256Hash stopBlockHash) {
+        _stopBlockHash.setBytes(stopBlockHash);
+    }
+
+    public void setPreviousFilterHeader(final Sha256Hash previousFilterHeader) {
+        _previousFilterHeader.setBytes(previousFilterHeader);
+    }
+
+    public void addFilterHash(final Sha256Hash filterHash) {
+        if (_filterHashes.getSize() >= RequestCompactFilterHeadersMessage.MAX_FILTER_HEADER_COUNT) { return; }
+        _filterHashes.add(filterHash);
+    }
+
+    @Override
+    protected ByteArray _getPayload() {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendByte((byte) (_filterType & 0xFF));
+        byteArrayBuilder.appendBytes(_stopBlockHash, Endian.LITTLE);
+        byteArrayBuilder.appendBytes(_previousFilterHeader, Endian.LITTLE);
+        byteArrayBuilder.appendBytes(ByteUtil.variableLengthIntegerToBytes(_filterHashes.getSize()), Endian.BIG);
+        for (final Sha256Hash filterHash : _filterHashes) {
+            byteArrayBuilder.appendBytes(filterHash, Endian.LITTLE);
+        }
+        return MutableByteArray.wrap(byteArrayBuilder.build());
+    }
+}
@@ -0,0 +1,37 @@
+package com.softwareverde.bitcoin.server.message.type.query.response.filter;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessageInflater;
+import com.softwareverde.bitcoin.server.message.header.BitcoinProtocolMessageHeader;
+import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFilterHeadersMessage;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.util.bytearray.Endian;
+
+public class CompactFilterHeadersMessageInflater extends BitcoinProtocolMessageInflater {
+
+    @Override
+    public CompactFilterHeadersMessage fromBytes(final byte[] bytes) {
+        final CompactFilterHeadersMessage compactFilterHeadersMessage = new CompactFilterHeadersMessage();
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+
+        final BitcoinProtocolMessageHeader protocolMessageHeader = _parseHeader(byteArrayReader, MessageType.COMPACT_FILTER_HEADERS);
+        if (protocolMessageHeader == null) { return null; }
+
+        compactFilterHeadersMessage._filterType = byteArrayReader.readInteger(1, Endian.LITTLE);
+        compactFilterHeadersMessage._stopBlockHash.setBytes(MutableSha256Hash.wrap(byteArrayReader.readBytes(32, Endian.LITTLE)));
+        compactFilterHeadersMessage._previousFilterHeader.setBytes(MutableSha256Hash.wrap(byteArrayReader.readBytes(32, Endian.LITTLE)));
+
+        final Long filterHashCount = byteArrayReader.readVariableSizedInteger();
+        if ( (filterHashCount < 0L) || (filterHashCount > RequestCompactFilterHeadersMessage.MAX_FILTER_HEADER_COUNT) ) { return null; }
+        if (byteArrayReader.remainingByteCount() < (filterHashCount * 32L)) { return null; }
+
+        for (int i = 0; i < filterHashCount; ++i) {
+            compactFilterHeadersMessage._filterHashes.add(MutableSha256Hash.wrap(byteArrayReader.readBytes(32, Endian.LITTLE)));
+        }
+
+        if (byteArrayReader.didOverflow()) { return null; }
+
+        return compactFilterHeadersMessage;
+    }
+}
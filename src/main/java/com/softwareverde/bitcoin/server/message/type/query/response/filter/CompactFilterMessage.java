@@ -0,0 +1,52 @@
+package com.softwareverde.bitcoin.server.message.type.query.response.filter;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
+import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.Endian;
+
+/**
+ * The compact block filter for a single Block (BIP-157).
+ */
+public class CompactFilterMessage extends BitcoinProtocolMessage {
+    protected Integer _filterType;
+    protected final MutableSha256Hash _blockHash = new MutableSha256Hash();
+    protected ByteArray _filter;
+
+    public CompactFilterMessage() {
+        super(MessageType.COMPACT_FILTER);
+        _filterType = 0;
+        _filter = new MutableByteArray(0);
+    }
+
+    public Integer getFilterType() { return _filterType; }
+    public Sha256Hash getBlockHash() { return _blockHash; }
+    public ByteArray getFilter() { return _filter; }
+
+    public void setFilterType(final Integer filterType) {
+        _filterType = filterType;
+    }
+
+    public void setBlockHash(final Sha256Hash blockHash) {
+        _blockHash.setBytes(blockHash);
+    }
+
+    public void setFilter(final ByteArray filter) {
+        _filter = filter;
+    }
+
+    @Override
+    protected ByteArray _getPayload() {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendByte((byte) (_filterType & 0xFF));
+        byteArrayBuilder.appendBytes(_blockHash, Endian.LITTLE);
+        byteArrayBuilder.appendBytes(ByteUtil.variableLengthIntegerToBytes(_filter.getByteCount()), Endian.BIG);
+        byteArrayBuilder.appendBytes(_filter, Endian.BIG);
+        return MutableByteArray.wrap(byteArrayBuilder.build());
+    }
+}
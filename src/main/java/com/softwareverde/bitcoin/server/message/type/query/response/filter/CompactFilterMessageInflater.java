@@ -0,0 +1,32 @@
+package com.softwareverde.bitcoin.server.message.type.query.response.filter;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessageInflater;
+import com.softwareverde.bitcoin.server.message.header.BitcoinProtocolMessageHeader;
+import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.util.bytearray.Endian;
+
+public class CompactFilterMessageInflater extends BitcoinProtocolMessageInflater {
+
+    @Override
+    public CompactFilterMessage fromBytes(final byte[] bytes) {
+        final CompactFilterMessage compactFilterMessage = new CompactFilterMessage();
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+
+        final BitcoinProtocolMessageHeader protocolMessageHeader = _parseHeader(byteArrayReader, MessageType.COMPACT_FILTER);
+        if (protocolMessageHeader == null) { return null; }
+
+        compactFilterMessage._filterType = byteArrayReader.readInteger(1, Endian.LITTLE);
+        compactFilterMessage._blockHash.setBytes(MutableSha256Hash.wrap(byteArrayReader.readBytes(32, Endian.LITTLE)));
+
+        final Long filterByteCount = byteArrayReader.readVariableSizedInteger();
+        if ( (filterByteCount < 0L) || (filterByteCount > byteArrayReader.remainingByteCount()) ) { return null; }
+        compactFilterMessage._filter = MutableByteArray.wrap(byteArrayReader.readBytes(filterByteCount.intValue(), Endian.BIG));
+
+        if (byteArrayReader.didOverflow()) { return null; }
+
+        return compactFilterMessage;
+    }
+}
@@ -0,0 +1,44 @@
+package com.softwareverde.bitcoin.server.message.type.request.filter;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
+import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.Endian;
+
+/**
+ * Requests the compact block filter headers at every CHECKPOINT_INTERVAL Blocks up to stopBlockHash (BIP-157).
+ */
+public class RequestCompactFilterCheckpointMessage extends BitcoinProtocolMessage {
+    public static final Integer CHECKPOINT_INTERVAL = 1000;
+
+    protected Integer _filterType;
+    protected final MutableSha256Hash _stopBlockHash = new MutableSha256Hash();
+
+    public RequestCompactFilterCheckpointMessage() {
+        super(MessageType.REQUEST_COMPACT_FILTER_CHECKPOINT);
+        _filterType = 0;
+    }
+
+    public Integer getFilterType() { return _filterType; }
+    public Sha256Hash getStopBlockHash() { return _stopBlockHash; }
+
+    public void setFilterType(final Integer filterType) {
+        _filterType = filterType;
+    }
+
+    public void setStopBlockHash(final Sha256Hash stopBlockHash) {
+        _stopBlockHash.setBytes(stopBlockHash);
+    }
+
+    @Override
+    protected ByteArray _getPayload() {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendByte((byte) (_filterType & 0xFF));
+        byteArrayBuilder.appendBytes(_stopBlockHash, Endian.LITTLE);
+        return MutableByteArray.wrap(byteArrayBuilder.build());
+    }
+}
@@ -0,0 +1,27 @@
+package com.softwareverde.bitcoin.server.message.type.request.filter;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessageInflater;
+import com.softwareverde.bitcoin.server.message.header.BitcoinProtocolMessageHeader;
+import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.util.bytearray.Endian;
+
+public class RequestCompactFilterCheckpointMessageInflater extends BitcoinProtocolMessageInflater {
+
+    @Override
+    public RequestCompactFilterCheckpointMessage fromBytes(final byte[] bytes) {
+        final RequestCompactFilterCheckpointMessage message = new RequestCompactFilterCheckpointMessage();
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+
+        final BitcoinProtocolMessageHeader protocolMessageHeader = _parseHeader(byteArrayReader, MessageType.REQUEST_COMPACT_FILTER_CHECKPOINT);
+        if (protocolMessageHeader == null) { return null; }
+
+        message._filterType = byteArrayReader.readInteger(1, Endian.LITTLE);
+        message._stopBlockHash.setBytes(MutableSha256Hash.wrap(byteArrayReader.readBytes(32, Endian.LITTLE)));
+
+        if (byteArrayReader.didOverflow()) { return null; }
+
+        return message;
+    }
+}
@@ -0,0 +1,53 @@
+package com.softwareverde.bitcoin.server.message.type.request.filter;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
+import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.Endian;
+
+/**
+ * Requests the compact block filter headers for the Blocks from startBlockHeight through stopBlockHash, inclusive (BIP-157).
+ */
+public class RequestCompactFilterHeadersMessage extends BitcoinProtocolMessage {
+    public static final Integer MAX_FILTER_HEADER_COUNT = 2000;
+
+    protected Integer _filterType;
+    protected Long _startBlockHeight;
+    protected final MutableSha256Hash _stopBlockHash = new MutableSha256Hash();
+
+    public RequestCompactFilterHeadersMessage() {
+        super(MessageType.REQUEST_COMPACT_FILTER_HEADERS);
+        _filterType = 0;
+        _startBlockHeight = 0L;
+    }
+
+    public Integer getFilterType() { return _filterType; }
+    public Long getStartBlockHeight() { return _startBlockHeight; }
+    public Sha256Hash getStopBlockHash() { return _stopBlockHash; }
+
+    public void setFilterType(final Integer filterType) {
+        _filterType = filterType;
+    }
+
+    public void setStartBlockHeight(final Long startBlockHeight) {
+        _startBlockHeight = startBlockHeight;
+    }
+
+    public void setStopBlockHash(final Sha256Hash stopBlockHash) {
+        _stopBlockHash.setBytes(stopBlockHash);
+    }
+
+    @Override
+    protected ByteArray _getPayload() {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendByte((byte) (_filterType & 0xFF));
+        byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(_startBlockHeight.intValue()), Endian.LITTLE);
+        byteArrayBuilder.appendBytes(_stopBlockHash, Endian.LITTLE);
+        return MutableByteArray.wrap(byteArrayBuilder.build());
+    }
+}
@@ -0,0 +1,28 @@
+package com.softwareverde.bitcoin.server.message.type.request.filter;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessageInflater;
+import com.softwareverde.bitcoin.server.message.header.BitcoinProtocolMessageHeader;
+import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.util.bytearray.Endian;
+
+public class RequestCompactFiltersMessageInflater extends BitcoinProtocolMessageInflater {
+
+    @Override
+    public RequestCompactFiltersMessage fromBytes(final byte[] bytes) {
+        final RequestCompactFiltersMessage message = new RequestCompactFiltersMessage();
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+
+        final BitcoinProtocolMessageHeader protocolMessageHeader = _parseHeader(byteArrayReader, MessageType.REQUEST_COMPACT_FILTERS);
+        if (protocolMessageHeader == null) { return null; }
+
+        message._filterType = byteArrayReader.readInteger(1, Endian.LITTLE);
+        message._startBlockHeight = byteArrayReader.readLong(4, Endian.LITTLE);
+        message._stopBlockHash.setBytes(MutableSha256Hash.wrap(byteArrayReader.readBytes(32, Endian.LITTLE)));
+
+        if (byteArrayReader.didOverflow()) { return null; }
+
+        return message;
+    }
+}
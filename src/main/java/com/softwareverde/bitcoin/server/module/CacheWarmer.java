@@ -3,88 +3,292 @@ package com.softwareverde.bitcoin.server.module;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
 import com.softwareverde.bitcoin.server.database.DatabaseConnection;
 import com.softwareverde.bitcoin.server.database.DatabaseConnectionFactory;
-import com.softwareverde.bitcoin.server.database.cache.LocalDatabaseManagerCache;
 import com.softwareverde.bitcoin.server.database.cache.MasterDatabaseManagerCache;
 import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputCache;
+import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputInvalidationListener;
 import com.softwareverde.bitcoin.server.database.cache.utxo.UtxoCount;
 import com.softwareverde.bitcoin.server.database.query.Query;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
-import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.database.DatabaseException;
 import com.softwareverde.database.row.Row;
 import com.softwareverde.logging.Logger;
 import com.softwareverde.util.Util;
+import com.softwareverde.util.timer.MilliTimer;
 import com.softwareverde.util.timer.NanoTimer;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the most recent UnspentTransactionOutputs into the MasterDatabaseManagerCache's UTXO cache.
+ *  The unspent_transaction_outputs id-range is split across multiple threads, each with its own DatabaseConnection,
+ *  so that the node may continue syncing and serving requests while the cache is being warmed.
+ *  Until a UTXO has been loaded, lookups fall back to the database.
+ *  UTXOs that are spent while the cache is warming are recorded via an UnspentTransactionOutputInvalidationListener
+ *  and are never (re-)introduced into the master cache by the warmer.
+ *  Each batch is committed while holding the master cache's UTXO commit mutex, so it is never interleaved with the commit of a processed Block.
+ */
 public class CacheWarmer {
-    public void warmUpCache(final MasterDatabaseManagerCache masterDatabaseManagerCache, final DatabaseConnectionFactory databaseConnectionFactory) {
-        try (final LocalDatabaseManagerCache localDatabaseManagerCache = new LocalDatabaseManagerCache(masterDatabaseManagerCache);
-                final DatabaseConnection databaseConnection = databaseConnectionFactory.newConnection()) {
+    public static final Integer DEFAULT_THREAD_COUNT = 4;
+    protected static final Integer BATCH_SIZE = 4096; // NOTE: Reducing the batch size greatly decreases the amount of memory-bloat during startup.
+
+    protected final MasterDatabaseManagerCache _masterDatabaseManagerCache;
+    protected final DatabaseConnectionFactory _databaseConnectionFactory;
+    protected final Integer _threadCount;
+
+    protected final Set<TransactionOutputIdentifier> _spentTransactionOutputIdentifiers = ConcurrentHashMap.newKeySet();
+    protected final UnspentTransactionOutputInvalidationListener _invalidationListener = new UnspentTransactionOutputInvalidationListener() {
+        @Override
+        public void onUnspentTransactionOutputInvalidated(final TransactionOutputIdentifier transactionOutputIdentifier) {
+            _spentTransactionOutputIdentifiers.add(transactionOutputIdentifier);
+        }
+    };
+
+    protected final AtomicBoolean _isStarted = new AtomicBoolean(false);
+    protected final AtomicBoolean _isComplete = new AtomicBoolean(false);
+    protected final AtomicBoolean _shouldAbort = new AtomicBoolean(false);
+    protected final AtomicLong _cachedUtxoCount = new AtomicLong(0L);
+    protected volatile Long _maxUtxoCount = 0L;
+
+    protected Thread _coordinatorThread = null;
+
+    protected void _warmUpRange(final Long firstRowId, final Long lastRowId, final Long insertIdOffset) {
+        final UnspentTransactionOutputCache masterUnspentTransactionOutputCache = _masterDatabaseManagerCache.getUnspentTransactionOutputCache();
+
+        try (final DatabaseConnection databaseConnection = _databaseConnectionFactory.newConnection();
+                final UnspentTransactionOutputCache batchUnspentTransactionOutputCache = _masterDatabaseManagerCache.newUnspentTransactionOutputCache()) {
+
+            Long previousRowId = (lastRowId + 1L);
+            while (! _shouldAbort.get()) {
+                final NanoTimer nanoTimer = new NanoTimer();
+                nanoTimer.start();
+
+                final java.util.List<Row> rows = databaseConnection.query(
+                    new Query("SELECT id, transaction_output_id, transaction_hash, `index` FROM unspent_transaction_outputs WHERE id < ? AND id >= ? ORDER BY id DESC LIMIT " + BATCH_SIZE)
+                        .setParameter(previousRowId)
+                        .setParameter(firstRowId)
+                );
+                if (rows.isEmpty()) { break; }
 
-            { // Warm Up UTXO Cache...
-                final UnspentTransactionOutputCache unspentTransactionOutputCache = localDatabaseManagerCache.getUnspentTransactionOutputCache();
+                final Long batchFirstRowId = rows.get(0).getLong("id");
+                final MutableList<Long> insertIds = new MutableList<Long>(rows.size());
+                final MutableList<TransactionOutputIdentifier> cachedTransactionOutputIdentifiers = new MutableList<TransactionOutputIdentifier>(rows.size());
+                final MutableList<TransactionOutputId> transactionOutputIds = new MutableList<TransactionOutputId>(rows.size());
+                for (final Row row : rows) {
+                    final Long rowId = row.getLong("id");
+                    final TransactionOutputId transactionOutputId = TransactionOutputId.wrap(row.getLong("transaction_output_id"));
+                    final Sha256Hash transactionHash = Sha256Hash.fromHexString(row.getString("transaction_hash"));
+                    final Integer transactionOutputIndex = row.getInteger("index");
+                    previousRowId = rowId;
 
-                final Long newestUnspentTransactionOutputId;
-                {
+                    final TransactionOutputIdentifier transactionOutputIdentifier = new TransactionOutputIdentifier(transactionHash, transactionOutputIndex);
+                    if (_spentTransactionOutputIdentifiers.contains(transactionOutputIdentifier)) { continue; }
+
+                    final Long insertId = (rowId - insertIdOffset);
+                    insertIds.add(insertId);
+                    cachedTransactionOutputIdentifiers.add(transactionOutputIdentifier);
+                    transactionOutputIds.add(transactionOutputId);
+                }
+
+                batchUnspentTransactionOutputCache.cacheUnspentTransactionOutputIds(insertIds, cachedTransactionOutputIdentifiers, transactionOutputIds);
+
+                final int evictedCount;
+                synchronized (_masterDatabaseManagerCache.getUnspentTransactionOutputCommitMutex()) {
+                    masterUnspentTransactionOutputCache.commit(batchUnspentTransactionOutputCache);
+
+                    // Evict any UTXOs that were spent after the batch was read but before it was committed...
+                    final MutableList<TransactionOutputIdentifier> spentTransactionOutputIdentifiers = new MutableList<TransactionOutputIdentifier>();
+                    for (final TransactionOutputIdentifier transactionOutputIdentifier : cachedTransactionOutputIdentifiers) {
+                        if (_spentTransactionOutputIdentifiers.contains(transactionOutputIdentifier)) {
+                            spentTransactionOutputIdentifiers.add(transactionOutputIdentifier);
+                        }
+                    }
+
+                    if (! spentTransactionOutputIdentifiers.isEmpty()) {
+                        masterUnspentTransactionOutputCache.invalidateUnspentTransactionOutputIds(spentTransactionOutputIdentifiers);
+                    }
+                    evictedCount = spentTransactionOutputIdentifiers.getSize();
+                }
+
+                final long cachedCount = _cachedUtxoCount.addAndGet(cachedTransactionOutputIdentifiers.getSize() - evictedCount);
+
+                nanoTimer.stop();
+                Logger.debug("Cached: " + batchFirstRowId + " - " + previousRowId + " (" + cachedCount + " of " + _maxUtxoCount + ") (" + (cachedCount / _maxUtxoCount.floatValue() * 100.0F) + "%) (" + nanoTimer.getMillisecondsElapsed() + "ms)");
+            }
+        }
+        catch (final DatabaseException exception) {
+            Logger.warn("Unable to warm UTXO cache for range: " + firstRowId + " - " + lastRowId, exception);
+        }
+    }
+
+    protected void _warmUpCache() {
+        final MilliTimer milliTimer = new MilliTimer();
+        milliTimer.start();
+
+        final Long maxUtxoCount = Util.coalesce(_masterDatabaseManagerCache.getMaxCachedUtxoCount(), UtxoCount.wrap(0L)).unwrap();
+        _maxUtxoCount = maxUtxoCount;
+
+        if (maxUtxoCount < 1L) {
+            _isComplete.set(true);
+            return;
+        }
+
+        _masterDatabaseManagerCache.setUnspentTransactionOutputInvalidationListener(_invalidationListener);
+
+        try {
+            final Long newestUnspentTransactionOutputId;
+            final Long oldestUnspentTransactionOutputId;
+            try (final DatabaseConnection databaseConnection = _databaseConnectionFactory.newConnection()) {
+                { // Find the newest UTXO; UTXOs created after this point are cached via the regular block-processing path...
                     final java.util.List<Row> rows = databaseConnection.query(
                         new Query("SELECT id FROM unspent_transaction_outputs ORDER BY id DESC LIMIT 1")
                     );
                     if (rows.isEmpty()) {
-                        newestUnspentTransactionOutputId = 0L;
+                        _isComplete.set(true);
+                        return;
+                    }
+
+                    final Row row = rows.get(0);
+                    newestUnspentTransactionOutputId = row.getLong("id");
+                }
+
+                { // Find the oldest UTXO that fits within the cache...
+                    final java.util.List<Row> rows = databaseConnection.query(
+                        new Query("SELECT id FROM unspent_transaction_outputs ORDER BY id DESC LIMIT 1 OFFSET ?")
+                            .setParameter(maxUtxoCount - 1L)
+                    );
+                    if (rows.isEmpty()) {
+                        oldestUnspentTransactionOutputId = 0L;
                     }
                     else {
                         final Row row = rows.get(0);
-                        newestUnspentTransactionOutputId = row.getLong("id");
+                        oldestUnspentTransactionOutputId = row.getLong("id");
                     }
                 }
+            }
+            catch (final DatabaseException exception) {
+                Logger.warn("Unable to warm UTXO cache.", exception);
+                return;
+            }
 
-                final Long maxUtxoCount = Util.coalesce(masterDatabaseManagerCache.getMaxCachedUtxoCount(), UtxoCount.wrap(0L)).unwrap();
+            final long rangeSize = ((newestUnspentTransactionOutputId - oldestUnspentTransactionOutputId) + 1L);
+            final int threadCount = (int) Math.max(1L, Math.min(_threadCount, (rangeSize / BATCH_SIZE)));
+            final long threadRangeSize = ((rangeSize + threadCount - 1L) / threadCount);
+            final Long insertIdOffset = (oldestUnspentTransactionOutputId - 1L); // Retains the UTXOs' relative age when the cache prioritizes by insertId.
 
-                final Integer batchSize = 4096; // 512; // NOTE: Reducing the batch size greatly decreases the amount of memory-bloat during startup.
-                Long lastRowId = (newestUnspentTransactionOutputId + 1L);
+            final Thread[] threads = new Thread[threadCount];
+            for (int i = 0; i < threadCount; ++i) {
+                final Long firstRowId = (oldestUnspentTransactionOutputId + (i * threadRangeSize));
+                final Long lastRowId = Math.min(newestUnspentTransactionOutputId, ((firstRowId + threadRangeSize) - 1L));
 
-                long cachedCount = 0L;
-                while (cachedCount < maxUtxoCount) {
-                    final NanoTimer nanoTimer = new NanoTimer();
-                    nanoTimer.start();
+                threads[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        _warmUpRange(firstRowId, lastRowId, insertIdOffset);
+                    }
+                });
+                threads[i].setName("CacheWarmer - " + i);
+                threads[i].setDaemon(true);
+                threads[i].start();
+            }
 
-                    Long batchFirstRowId = null;
-                    final java.util.List<Row> rows = databaseConnection.query(
-                        new Query("SELECT id, transaction_output_id, transaction_hash, `index` FROM unspent_transaction_outputs WHERE id < ? ORDER BY id DESC LIMIT " + batchSize)
-                            .setParameter(lastRowId)
-                    );
-                    if (rows.isEmpty()) { break; }
+            for (final Thread thread : threads) {
+                try {
+                    thread.join();
+                }
+                catch (final InterruptedException exception) {
+                    _shouldAbort.set(true);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
 
-                    for (final Row row : rows) {
-                        final Long rowId = row.getLong("id");
-                        final TransactionOutputId transactionOutputId = TransactionOutputId.wrap(row.getLong("transaction_output_id"));
-                        final Sha256Hash transactionHash = Sha256Hash.fromHexString(row.getString("transaction_hash"));
-                        final Integer transactionOutputIndex = row.getInteger("index");
+            _masterDatabaseManagerCache.commit(); // Holds the UTXO commit mutex...
+        }
+        finally {
+            _masterDatabaseManagerCache.setUnspentTransactionOutputInvalidationListener(null);
+            _spentTransactionOutputIdentifiers.clear();
+            _isComplete.set(true);
 
-                        final Long sortOrder = (maxUtxoCount - cachedCount);
-                        unspentTransactionOutputCache.cacheUnspentTransactionOutputId(sortOrder, transactionHash, transactionOutputIndex, transactionOutputId);
-                        lastRowId = rowId;
+            milliTimer.stop();
+            Logger.info("Cached " + _cachedUtxoCount.get() + " UTXOs in " + milliTimer.getMillisecondsElapsed() + "ms.");
+        }
+    }
 
-                        if (batchFirstRowId == null) {
-                            batchFirstRowId = rowId;
-                        }
+    public CacheWarmer(final MasterDatabaseManagerCache masterDatabaseManagerCache, final DatabaseConnectionFactory databaseConnectionFactory) {
+        this(masterDatabaseManagerCache, databaseConnectionFactory, DEFAULT_THREAD_COUNT);
+    }
 
-                        cachedCount += 1;
-                        if (cachedCount >= maxUtxoCount) { break; }
-                    }
+    public CacheWarmer(final MasterDatabaseManagerCache masterDatabaseManagerCache, final DatabaseConnectionFactory databaseConnectionFactory, final Integer threadCount) {
+        _masterDatabaseManagerCache = masterDatabaseManagerCache;
+        _databaseConnectionFactory = databaseConnectionFactory;
+        _threadCount = Math.max(1, Util.coalesce(threadCount, DEFAULT_THREAD_COUNT));
+    }
 
-                    nanoTimer.stop();
-                    Logger.debug("Cached: " + batchFirstRowId + " - " + lastRowId + " (" + cachedCount + " of " + maxUtxoCount + ") (" + (cachedCount / maxUtxoCount.floatValue() * 100.0F) + "%) (" + nanoTimer.getMillisecondsElapsed() + "ms)");
-                    Logger.flush();
-                }
+    /**
+     * Begins warming the cache in the background and returns immediately.
+     */
+    public synchronized void start() {
+        if (! _isStarted.compareAndSet(false, true)) { return; }
+
+        _coordinatorThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                _warmUpCache();
             }
+        });
+        _coordinatorThread.setName("CacheWarmer");
+        _coordinatorThread.setDaemon(true);
+        _coordinatorThread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(final Thread thread, final Throwable exception) {
+                Logger.error("Uncaught exception in CacheWarmer.", exception);
+            }
+        });
+        _coordinatorThread.start();
+    }
 
-            masterDatabaseManagerCache.commitLocalDatabaseManagerCache(localDatabaseManagerCache);
-            masterDatabaseManagerCache.commit();
+    /**
+     * Warms the cache, blocking until every range has been loaded.
+     */
+    public void warmUpCache() {
+        if (! _isStarted.compareAndSet(false, true)) { return; }
+        _warmUpCache();
+    }
+
+    /**
+     * Aborts any in-progress warm-up; UTXOs already loaded remain cached.
+     */
+    public void stop() {
+        _shouldAbort.set(true);
+
+        final Thread coordinatorThread;
+        synchronized (this) {
+            coordinatorThread = _coordinatorThread;
         }
-        catch (final DatabaseException exception) {
-            Logger.error(exception);
-            BitcoinUtil.exitFailure();
+
+        if (coordinatorThread != null) {
+            try { coordinatorThread.join(); } catch (final InterruptedException exception) { }
         }
     }
-}
\ No newline at end of file
+
+    public Boolean isWarmingUp() {
+        return (_isStarted.get() && (! _isComplete.get()));
+    }
+
+    public Boolean isComplete() {
+        return _isComplete.get();
+    }
+
+    public Long getCachedUtxoCount() {
+        return _cachedUtxoCount.get();
+    }
+
+    public Long getMaxUtxoCount() {
+        return _maxUtxoCount;
+    }
+}
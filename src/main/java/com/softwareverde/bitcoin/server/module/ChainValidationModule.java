@@ -1,5 +1,6 @@
 package com.softwareverde.bitcoin.server.module;
 
+import com.softwareverde.bitcoin.CoreInflater;
 import com.softwareverde.bitcoin.block.Block;
 import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.block.header.BlockHeader;
@@ -18,6 +19,7 @@ import com.softwareverde.bitcoin.server.database.ReadUncommittedDatabaseConnecti
 import com.softwareverde.bitcoin.server.database.cache.DatabaseManagerCache;
 import com.softwareverde.bitcoin.server.database.cache.DisabledDatabaseManagerCache;
 import com.softwareverde.bitcoin.server.database.cache.MasterDatabaseManagerCache;
+import com.softwareverde.bitcoin.server.database.keyvalue.LogStructuredKeyValueStore;
 import com.softwareverde.bitcoin.server.module.node.BlockCache;
 import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.FullNodeBlockDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
@@ -35,11 +37,14 @@ import com.softwareverde.network.time.NetworkTime;
 import com.softwareverde.util.Util;
 import com.softwareverde.util.timer.MilliTimer;
 
+import java.io.File;
+
 public class ChainValidationModule {
     protected final BitcoinProperties _bitcoinProperties;
     protected final Environment _environment;
     protected final BlockValidatorFactory _blockValidatorFactory;
     protected final Sha256Hash _startingBlockHash;
+    protected final LogStructuredKeyValueStore _blockCacheKeyValueStore;
     protected final BlockCache _blockCache;
 
     public ChainValidationModule(final BitcoinProperties bitcoinProperties, final Environment environment, final String startingBlockHash, final BlockValidatorFactory blockValidatorFactory) {
@@ -52,9 +57,23 @@ public class ChainValidationModule {
         { // Initialize the BlockCache...
             if (bitcoinProperties.isBlockCacheEnabled()) {
                 final String blockCacheDirectory = (bitcoinProperties.getDataDirectory() + "/" + BitcoinProperties.DATA_CACHE_DIRECTORY_NAME);
-                _blockCache = new BlockCache(blockCacheDirectory);
+                if (Util.areEqual(BitcoinProperties.BLOCK_CACHE_STORAGE_ENGINE_LOG_STRUCTURED, bitcoinProperties.getBlockCacheStorageEngine())) {
+                    _blockCacheKeyValueStore = LogStructuredKeyValueStore.open(new File(blockCacheDirectory + "/" + BlockCache.KEY_VALUE_STORE_DIRECTORY_NAME));
+                    if (_blockCacheKeyValueStore != null) {
+                        _blockCache = new BlockCache(_blockCacheKeyValueStore, new CoreInflater());
+                    }
+                    else {
+                        Logger.warn("Unable to open block cache; block caching is disabled.");
+                        _blockCache = null;
+                    }
+                }
+                else {
+                    _blockCacheKeyValueStore = null;
+                    _blockCache = new BlockCache(blockCacheDirectory);
+                }
             }
             else {
+                _blockCacheKeyValueStore = null;
                 _blockCache = null;
             }
         }
@@ -180,6 +199,10 @@ public class ChainValidationModule {
             masterDatabaseManagerCache.close();
         }
 
+        if (_blockCacheKeyValueStore != null) {
+            _blockCacheKeyValueStore.close();
+        }
+
         System.exit(0);
     }
 }
@@ -0,0 +1,46 @@
+package com.softwareverde.bitcoin.server.module;
+
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.Environment;
+import com.softwareverde.bitcoin.server.database.Database;
+import com.softwareverde.bitcoin.server.database.DatabaseConnectionFactory;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManagerFactory;
+import com.softwareverde.bitcoin.server.module.node.utxo.UtxoSnapshotExporter;
+import com.softwareverde.bitcoin.server.module.node.utxo.UtxoSnapshotImporter;
+import com.softwareverde.bitcoin.server.module.node.utxo.UtxoSnapshotManifest;
+import com.softwareverde.logging.Logger;
+
+import java.io.File;
+
+public class UtxoSnapshotModule {
+    protected final Environment _environment;
+    protected final FullNodeDatabaseManagerFactory _databaseManagerFactory;
+    protected final String _snapshotBlockHeightFilename;
+
+    public UtxoSnapshotModule(final Environment environment, final String snapshotBlockHeightFilename) {
+        _environment = environment;
+        _snapshotBlockHeightFilename = snapshotBlockHeightFilename;
+
+        final Database database = _environment.getDatabase();
+        final DatabaseConnectionFactory databaseConnectionFactory = database.newConnectionFactory();
+        _databaseManagerFactory = new FullNodeDatabaseManagerFactory(databaseConnectionFactory);
+    }
+
+    public Boolean exportSnapshot(final String directory) {
+        final UtxoSnapshotExporter utxoSnapshotExporter = new UtxoSnapshotExporter(_databaseManagerFactory);
+        final UtxoSnapshotManifest utxoSnapshotManifest = utxoSnapshotExporter.exportSnapshot(new File(directory));
+        return (utxoSnapshotManifest != null);
+    }
+
+    public Boolean importSnapshot(final String directory, final String commitmentHashString) {
+        final Sha256Hash expectedCommitmentHash = ((commitmentHashString != null) ? Sha256Hash.fromHexString(commitmentHashString) : null);
+        if ( (commitmentHashString != null) && (expectedCommitmentHash == null) ) {
+            Logger.error("Invalid commitment hash: " + commitmentHashString);
+            return false;
+        }
+
+        final Integer threadCount = Runtime.getRuntime().availableProcessors();
+        final UtxoSnapshotImporter utxoSnapshotImporter = new UtxoSnapshotImporter(_databaseManagerFactory, _snapshotBlockHeightFilename, threadCount);
+        return utxoSnapshotImporter.importSnapshot(new File(directory), expectedCommitmentHash);
+    }
+}
@@ -6,6 +6,7 @@ import com.softwareverde.bitcoin.block.BlockDeflater;
 import com.softwareverde.bitcoin.block.BlockInflater;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
 import com.softwareverde.bitcoin.inflater.BlockInflaters;
+import com.softwareverde.bitcoin.server.database.keyvalue.KeyValueStore;
 import com.softwareverde.bitcoin.util.IoUtil;
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
@@ -13,9 +14,16 @@ import com.softwareverde.logging.Logger;
 
 import java.io.File;
 
+/**
+ * Caches serialized Blocks on disk, either as one file per Block (grouped into directories by height),
+ *  or within a KeyValueStore keyed by the Block's hash.
+ */
 public class BlockCache {
+    public static final String KEY_VALUE_STORE_DIRECTORY_NAME = "blocks";
+
     protected final BlockInflaters _blockInflaters;
     protected final String _cachedBlockDirectory;
+    protected final KeyValueStore _keyValueStore;
     protected final Integer _blocksPerCacheDirectory = 2016; // About 2 weeks...
 
     protected String _getCachedBlockDirectory(final Long blockHeight) {
@@ -41,12 +49,44 @@ public class BlockCache {
     public BlockCache(final String cachedBlockDirectory, final BlockInflaters blockInflaters) {
         _blockInflaters = blockInflaters;
         _cachedBlockDirectory = cachedBlockDirectory;
+        _keyValueStore = null;
     }
 
-    public void cacheBlock(final Block block, final Long blockHeight) {
-        if (_cachedBlockDirectory == null) { return; }
+    /**
+     * Stores the cached Blocks within the KeyValueStore instead of as individual files.
+     *  The KeyValueStore is owned by the caller, and must be closed by the caller.
+     */
+    public BlockCache(final KeyValueStore keyValueStore, final BlockInflaters blockInflaters) {
+        _blockInflaters = blockInflaters;
+        _cachedBlockDirectory = null;
+        _keyValueStore = keyValueStore;
+    }
 
-        final Sha256Hash blockHash = block.getHash();
+    protected Boolean _isEnabled() {
+        return ( (_cachedBlockDirectory != null) || (_keyValueStore != null) );
+    }
+
+    protected Boolean _isBlockCached(final Sha256Hash blockHash, final Long blockHeight) {
+        if (_keyValueStore != null) {
+            return _keyValueStore.containsKey(blockHash);
+        }
+
+        final String blockPath = _getCachedBlockPath(blockHash, blockHeight);
+        if (blockPath == null) { return false; }
+
+        return IoUtil.fileExists(blockPath);
+    }
+
+    protected void _cacheBlockBytes(final Sha256Hash blockHash, final Long blockHeight, final MutableByteArray blockBytes) {
+        if (_keyValueStore != null) {
+            if (_keyValueStore.containsKey(blockHash)) { return; }
+
+            final Boolean putSuccessful = _keyValueStore.put(blockHash, blockBytes);
+            if (! putSuccessful) {
+                Logger.warn("Unable to cache block: " + blockHash);
+            }
+            return;
+        }
 
         final String blockPath = _getCachedBlockPath(blockHash, blockHeight);
         if (blockPath == null) { return; }
@@ -65,26 +105,92 @@ public class BlockCache {
             }
         }
 
+        IoUtil.putFileContents(blockPath, blockBytes.unwrap());
+    }
+
+    public void cacheBlock(final Block block, final Long blockHeight) {
+        if (! _isEnabled()) { return; }
+
+        final Sha256Hash blockHash = block.getHash();
+        if (_isBlockCached(blockHash, blockHeight)) { return; }
+
         final BlockDeflater blockDeflater = _blockInflaters.getBlockDeflater();
         final MutableByteArray byteArray = blockDeflater.toBytes(block);
 
-        IoUtil.putFileContents(blockPath, byteArray.unwrap());
+        _cacheBlockBytes(blockHash, blockHeight, byteArray);
     }
 
-    public Block getCachedBlock(final Sha256Hash blockHash, final Long blockHeight) {
+    /**
+     * Caches the already-serialized Block.
+     *  The blockBytes must be the serialization of the Block identified by blockHash; they are not validated.
+     */
+    public void cacheBlockBytes(final Sha256Hash blockHash, final Long blockHeight, final MutableByteArray blockBytes) {
+        if (! _isEnabled()) { return; }
+
+        _cacheBlockBytes(blockHash, blockHeight, blockBytes);
+    }
+
+    /**
+     * Returns the serialized Block exactly as it was cached, without inflating it, or null if the Block is not cached.
+     */
+    public MutableByteArray getCachedBlockBytes(final Sha256Hash blockHash, final Long blockHeight) {
+        if (_keyValueStore != null) {
+            return _keyValueStore.get(blockHash);
+        }
+
         if (_cachedBlockDirectory == null) { return null; }
 
         final String blockPath = _getCachedBlockPath(blockHash, blockHeight);
         if (blockPath == null) { return null; }
 
         if (! IoUtil.fileExists(blockPath)) { return null; }
-        final ByteArray blockBytes = MutableByteArray.wrap(IoUtil.getFileContents(blockPath));
+        final byte[] blockBytes = IoUtil.getFileContents(blockPath);
+        if (blockBytes == null) { return null; }
+
+        return MutableByteArray.wrap(blockBytes);
+    }
+
+    public Block getCachedBlock(final Sha256Hash blockHash, final Long blockHeight) {
+        final ByteArray blockBytes = getCachedBlockBytes(blockHash, blockHeight);
         if (blockBytes == null) { return null; }
 
         final BlockInflater blockInflater = _blockInflaters.getBlockInflater();
         return blockInflater.fromBytes(blockBytes);
     }
 
+    /**
+     * Deletes the cached Block, if it exists.
+     *  When stored as files, the height directory is also removed once it is empty.
+     */
+    public void removeCachedBlock(final Sha256Hash blockHash, final Long blockHeight) {
+        if (_keyValueStore != null) {
+            final Boolean removeSuccessful = _keyValueStore.remove(blockHash);
+            if (! removeSuccessful) {
+                Logger.warn("Unable to remove cached block: " + blockHash);
+            }
+            return;
+        }
+
+        if (_cachedBlockDirectory == null) { return; }
+
+        final String blockPath = _getCachedBlockPath(blockHash, blockHeight);
+        if (blockPath == null) { return; }
+
+        final File file = new File(blockPath);
+        if (! file.exists()) { return; }
+
+        if (! file.delete()) {
+            Logger.warn("Unable to delete cached block: " + blockPath);
+            return;
+        }
+
+        final File directory = new File(_getCachedBlockDirectory(blockHeight));
+        final String[] remainingFiles = directory.list();
+        if ( (remainingFiles != null) && (remainingFiles.length == 0) ) {
+            directory.delete();
+        }
+    }
+
     public String getCachedBlockDirectory() {
         return _cachedBlockDirectory;
     }
@@ -0,0 +1,249 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.chain.segment.BlockchainSegmentId;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.FullNodeBlockDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManagerFactory;
+import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.output.TransactionOutputDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.utxo.BlockUndoData;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.input.TransactionInput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
+import com.softwareverde.concurrent.service.SleepyService;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.database.DatabaseException;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.util.timer.MilliTimer;
+
+/**
+ * Builds the compact filters of any Blocks on the head blockchain that were connected without one (e.g. Blocks processed
+ *  before compact filters were enabled), starting from the last filtered Block (or genesis).
+ *  BlockProcessor only builds a Block's filter when the previous Block's filter exists, so filters always form a contiguous
+ *  range beginning at genesis; once that range reaches the head Block, filtersAreCurrent() returns true.
+ *  The backfiller yields while a Block is being processed.
+ */
+public class BlockFilterBackfiller extends SleepyService {
+    public static final Integer MAX_BLOCK_COUNT_PER_BATCH = 32;
+
+    protected static final Long VALIDATION_BACKOFF_MS = 250L;
+
+    protected final FullNodeDatabaseManagerFactory _databaseManagerFactory;
+    protected final BlockFilterCache _blockFilterCache;
+    protected BlockProcessor _blockProcessor = null;
+    protected BlockUndoDataCache _blockUndoDataCache = null;
+
+    /**
+     * The height of the highest Block known to have a filter on the head blockchain, or null if it has not been found yet.
+     */
+    protected volatile Long _filteredBlockHeight = null;
+    protected volatile Boolean _filtersAreCurrent = false;
+
+    /**
+     * Blocks until no Block is being processed.
+     *  Returns false if the thread was interrupted while waiting.
+     */
+    protected Boolean _waitForIdleBlockProcessor() {
+        final BlockProcessor blockProcessor = _blockProcessor;
+        if (blockProcessor == null) { return true; }
+
+        while (blockProcessor.isProcessingBlock()) {
+            try {
+                Thread.sleep(VALIDATION_BACKOFF_MS);
+            }
+            catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    protected Boolean _hasFilter(final BlockchainSegmentId blockchainSegmentId, final Long blockHeight, final BlockHeaderDatabaseManager blockHeaderDatabaseManager) throws DatabaseException {
+        final BlockId blockId = blockHeaderDatabaseManager.getBlockIdAtHeight(blockchainSegmentId, blockHeight);
+        if (blockId == null) { return false; }
+
+        final Sha256Hash blockHash = blockHeaderDatabaseManager.getBlockHash(blockId);
+        return _blockFilterCache.hasFilter(blockHash, blockHeight);
+    }
+
+    /**
+     * Returns the height of the first Block on the head blockchain without a filter.
+     *  Since filters form a contiguous range from genesis, the boundary is found via binary search when it is not already known
+     *  (or the previously known boundary was reorganized away).
+     */
+    protected Long _getFirstUnfilteredBlockHeight(final BlockchainSegmentId blockchainSegmentId, final Long headBlockHeight, final BlockHeaderDatabaseManager blockHeaderDatabaseManager) throws DatabaseException {
+        final Long filteredBlockHeight = _filteredBlockHeight;
+        if ( (filteredBlockHeight != null) && (filteredBlockHeight <= headBlockHeight) && _hasFilter(blockchainSegmentId, filteredBlockHeight, blockHeaderDatabaseManager) ) {
+            long blockHeight = (filteredBlockHeight + 1L);
+            while ( (blockHeight <= headBlockHeight) && _hasFilter(blockchainSegmentId, blockHeight, blockHeaderDatabaseManager) ) {
+                blockHeight += 1L;
+            }
+            return blockHeight;
+        }
+
+        long lowBlockHeight = 0L; // The first height that may be unfiltered...
+        long highBlockHeight = (headBlockHeight + 1L); // A height known to be unfiltered (or beyond the head)...
+        while (lowBlockHeight < highBlockHeight) {
+            final long blockHeight = ((lowBlockHeight + highBlockHeight) >>> 1);
+            if (_hasFilter(blockchainSegmentId, blockHeight, blockHeaderDatabaseManager)) {
+                lowBlockHeight = (blockHeight + 1L);
+            }
+            else {
+                highBlockHeight = blockHeight;
+            }
+        }
+        return lowBlockHeight;
+    }
+
+    /**
+     * Returns the locking scripts of the outputs spent by the Block, in the order of its (non-coinbase) inputs.
+     *  The recorded undo data is used when available; otherwise the outputs are looked up from the database.
+     *  Returns null if any spent output cannot be found (e.g. it was pruned).
+     */
+    protected List<LockingScript> _getPreviousLockingScripts(final Block block, final Long blockHeight, final FullNodeDatabaseManager databaseManager) throws DatabaseException {
+        final BlockUndoDataCache blockUndoDataCache = _blockUndoDataCache;
+        final BlockUndoData blockUndoData = (blockUndoDataCache != null ? blockUndoDataCache.getUndoData(block.getHash(), blockHeight) : null);
+        if (blockUndoData != null) {
+            final MutableList<LockingScript> previousLockingScripts = new MutableList<LockingScript>(blockUndoData.spentOutputs.getSize());
+            for (final BlockUndoData.SpentOutput spentOutput : blockUndoData.spentOutputs) {
+                previousLockingScripts.add(spentOutput.lockingScript);
+            }
+            return previousLockingScripts;
+        }
+
+        final TransactionOutputDatabaseManager transactionOutputDatabaseManager = databaseManager.getTransactionOutputDatabaseManager();
+
+        final MutableList<LockingScript> previousLockingScripts = new MutableList<LockingScript>();
+        boolean isCoinbase = true;
+        for (final Transaction transaction : block.getTransactions()) {
+            if (isCoinbase) {
+                isCoinbase = false;
+                continue;
+            }
+
+            for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+                final TransactionOutputIdentifier transactionOutputIdentifier = TransactionOutputIdentifier.fromTransactionInput(transactionInput);
+                final TransactionOutputId transactionOutputId = transactionOutputDatabaseManager.findTransactionOutput(transactionOutputIdentifier);
+                final TransactionOutput transactionOutput = (transactionOutputId != null ? transactionOutputDatabaseManager.getTransactionOutput(transactionOutputId) : null);
+                if (transactionOutput == null) {
+                    Logger.debug("Unable to backfill compact filter for " + block.getHash() + "; unknown output: " + transactionOutputIdentifier);
+                    return null;
+                }
+
+                previousLockingScripts.add(transactionOutput.getLockingScript().asConst());
+            }
+        }
+        return previousLockingScripts;
+    }
+
+    public BlockFilterBackfiller(final FullNodeDatabaseManagerFactory databaseManagerFactory, final BlockFilterCache blockFilterCache) {
+        _databaseManagerFactory = databaseManagerFactory;
+        _blockFilterCache = blockFilterCache;
+    }
+
+    @Override
+    protected void _onStart() {
+        Logger.trace("BlockFilterBackfiller Starting.");
+    }
+
+    @Override
+    protected Boolean _run() {
+        Logger.trace("BlockFilterBackfiller Running.");
+
+        if (! _waitForIdleBlockProcessor()) { return false; }
+
+        final MilliTimer backfillTimer = new MilliTimer();
+        backfillTimer.start();
+
+        final Long firstBlockHeight;
+        final long blockHeight;
+        try (final FullNodeDatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+            final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
+            final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+
+            final BlockId headBlockId = blockDatabaseManager.getHeadBlockId();
+            if (headBlockId == null) { return false; }
+
+            final Long headBlockHeight = blockHeaderDatabaseManager.getBlockHeight(headBlockId);
+            final BlockchainSegmentId blockchainSegmentId = blockHeaderDatabaseManager.getBlockchainSegmentId(headBlockId);
+
+            firstBlockHeight = _getFirstUnfilteredBlockHeight(blockchainSegmentId, headBlockHeight, blockHeaderDatabaseManager);
+            if (firstBlockHeight > 0L) {
+                _filteredBlockHeight = (firstBlockHeight - 1L);
+            }
+
+            if (firstBlockHeight > headBlockHeight) {
+                if (! _filtersAreCurrent) {
+                    Logger.info("Compact filters are current through Block " + headBlockHeight + ".");
+                }
+                _filtersAreCurrent = true;
+                return false;
+            }
+            _filtersAreCurrent = false;
+
+            long nextBlockHeight = firstBlockHeight;
+            while ( (nextBlockHeight <= headBlockHeight) && (nextBlockHeight < (firstBlockHeight + MAX_BLOCK_COUNT_PER_BATCH)) ) {
+                final BlockId blockId = blockHeaderDatabaseManager.getBlockIdAtHeight(blockchainSegmentId, nextBlockHeight);
+                final Block block = (blockId != null ? blockDatabaseManager.getBlock(blockId) : null);
+                if (block == null) {
+                    Logger.warn("Unable to backfill compact filters; Block " + nextBlockHeight + " is not available.");
+                    return false;
+                }
+
+                final List<LockingScript> previousLockingScripts = _getPreviousLockingScripts(block, nextBlockHeight, databaseManager);
+                if (previousLockingScripts == null) {
+                    Logger.warn("Unable to backfill compact filters; the outputs spent by Block " + nextBlockHeight + " are not available.");
+                    return false;
+                }
+
+                if (! _blockFilterCache.buildFilter(block, nextBlockHeight, previousLockingScripts)) {
+                    Logger.warn("Unable to backfill compact filter for Block " + nextBlockHeight + ".");
+                    return false;
+                }
+
+                _filteredBlockHeight = nextBlockHeight;
+                nextBlockHeight += 1L;
+            }
+            blockHeight = nextBlockHeight;
+        }
+        catch (final DatabaseException exception) {
+            Logger.warn(exception);
+            return false;
+        }
+
+        backfillTimer.stop();
+        Logger.info("Backfilled compact filters for Blocks " + firstBlockHeight + " through " + (blockHeight - 1L) + " in " + backfillTimer.getMillisecondsElapsed() + "ms.");
+
+        return true;
+    }
+
+    @Override
+    protected void _onSleep() {
+        Logger.trace("BlockFilterBackfiller Sleeping.");
+    }
+
+    public void setBlockProcessor(final BlockProcessor blockProcessor) {
+        _blockProcessor = blockProcessor;
+    }
+
+    public void setBlockUndoDataCache(final BlockUndoDataCache blockUndoDataCache) {
+        _blockUndoDataCache = blockUndoDataCache;
+    }
+
+    /**
+     * Returns true once every Block on the head blockchain has a compact filter.
+     *  The NODE_COMPACT_FILTERS service bit should only be advertised while this is true.
+     */
+    public Boolean filtersAreCurrent() {
+        return _filtersAreCurrent;
+    }
+}
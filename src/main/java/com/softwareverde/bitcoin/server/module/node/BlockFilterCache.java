@@ -0,0 +1,140 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.filter.BlockFilterBuilder;
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.bitcoin.util.IoUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.logging.Logger;
+
+import java.io.File;
+
+/**
+ * Stores the precomputed compact filter (BIP-158) of each Block, alongside its filter header (BIP-157).
+ *  Filters are stored within the same directory structure as the BlockCache: <directory>/<blockHeight / 2016>/<blockHash>
+ *  Each file contains the 32-byte filter header followed by the serialized filter.
+ */
+public class BlockFilterCache {
+    public static final String FILTER_DIRECTORY_NAME = "filters";
+
+    protected final String _cachedFilterDirectory;
+    protected final Integer _blocksPerCacheDirectory = 2016;
+
+    protected String _getCachedFilterDirectory(final Long blockHeight) {
+        final Long blockHeightDirectory = (blockHeight / _blocksPerCacheDirectory);
+        return (_cachedFilterDirectory + "/" + blockHeightDirectory);
+    }
+
+    protected String _getCachedFilterPath(final Sha256Hash blockHash, final Long blockHeight) {
+        return (_getCachedFilterDirectory(blockHeight) + "/" + blockHash);
+    }
+
+    protected byte[] _getCachedFileContents(final Sha256Hash blockHash, final Long blockHeight) {
+        if (_cachedFilterDirectory == null) { return null; }
+
+        final String filterPath = _getCachedFilterPath(blockHash, blockHeight);
+        if (! IoUtil.fileExists(filterPath)) { return null; }
+
+        final byte[] bytes = IoUtil.getFileContents(filterPath);
+        if ( (bytes == null) || (bytes.length < Sha256Hash.BYTE_COUNT) ) { return null; }
+
+        return bytes;
+    }
+
+    public BlockFilterCache(final String cachedFilterDirectory) {
+        _cachedFilterDirectory = cachedFilterDirectory;
+    }
+
+    public void cacheFilter(final Sha256Hash blockHash, final Long blockHeight, final ByteArray filter, final Sha256Hash filterHeader) {
+        if (_cachedFilterDirectory == null) { return; }
+
+        final String filterPath = _getCachedFilterPath(blockHash, blockHeight);
+        if (IoUtil.fileExists(filterPath)) { return; }
+
+        { // Create the directory, if necessary...
+            final String cacheDirectory = _getCachedFilterDirectory(blockHeight);
+            final File directory = new File(cacheDirectory);
+            if (! directory.exists()) {
+                final Boolean mkdirSuccessful = directory.mkdirs();
+                if (! mkdirSuccessful) {
+                    Logger.warn("Unable to create block filter cache directory: " + cacheDirectory);
+                    return;
+                }
+            }
+        }
+
+        final int filterByteCount = filter.getByteCount();
+        final byte[] bytes = new byte[Sha256Hash.BYTE_COUNT + filterByteCount];
+        System.arraycopy(filterHeader.getBytes(), 0, bytes, 0, Sha256Hash.BYTE_COUNT);
+        System.arraycopy(filter.getBytes(), 0, bytes, Sha256Hash.BYTE_COUNT, filterByteCount);
+
+        IoUtil.putFileContents(filterPath, bytes);
+    }
+
+    /**
+     * Builds and stores the filter for the Block from the locking scripts of the outputs it spends (in the order of its inputs).
+     *  Since each filter header commits to the previous filter header, the filter is only built if the previous Block's filter exists.
+     *  Returns true if the filter was built or already existed.
+     */
+    public Boolean buildFilter(final Block block, final Long blockHeight, final List<LockingScript> previousLockingScripts) {
+        if (_cachedFilterDirectory == null) { return false; }
+
+        final Sha256Hash blockHash = block.getHash();
+        if (IoUtil.fileExists(_getCachedFilterPath(blockHash, blockHeight))) { return true; }
+
+        final Sha256Hash previousFilterHeader;
+        if (blockHeight == 0L) {
+            previousFilterHeader = Sha256Hash.EMPTY_HASH;
+        }
+        else {
+            previousFilterHeader = this.getFilterHeader(block.getPreviousBlockHash(), (blockHeight - 1L));
+            if (previousFilterHeader == null) { return false; }
+        }
+
+        final BlockFilterBuilder blockFilterBuilder = new BlockFilterBuilder();
+        final ByteArray filter = blockFilterBuilder.buildBasicFilter(block, previousLockingScripts);
+        final Sha256Hash filterHash = blockFilterBuilder.calculateFilterHash(filter);
+        final Sha256Hash filterHeader = blockFilterBuilder.calculateFilterHeader(filterHash, previousFilterHeader);
+
+        this.cacheFilter(blockHash, blockHeight, filter, filterHeader);
+        return IoUtil.fileExists(_getCachedFilterPath(blockHash, blockHeight));
+    }
+
+    /**
+     * Returns true if the filter for the Block has been built.
+     */
+    public Boolean hasFilter(final Sha256Hash blockHash, final Long blockHeight) {
+        if (_cachedFilterDirectory == null) { return false; }
+
+        return IoUtil.fileExists(_getCachedFilterPath(blockHash, blockHeight));
+    }
+
+    /**
+     * Returns the serialized compact filter for the Block, or null if the filter has not been built.
+     */
+    public ByteArray getFilter(final Sha256Hash blockHash, final Long blockHeight) {
+        final byte[] bytes = _getCachedFileContents(blockHash, blockHeight);
+        if (bytes == null) { return null; }
+
+        return MutableByteArray.wrap(ByteUtil.copyBytes(bytes, Sha256Hash.BYTE_COUNT, (bytes.length - Sha256Hash.BYTE_COUNT)));
+    }
+
+    /**
+     * Returns the filter header for the Block, or null if the filter has not been built.
+     */
+    public Sha256Hash getFilterHeader(final Sha256Hash blockHash, final Long blockHeight) {
+        final byte[] bytes = _getCachedFileContents(blockHash, blockHeight);
+        if (bytes == null) { return null; }
+
+        return MutableSha256Hash.wrap(ByteUtil.copyBytes(bytes, 0, Sha256Hash.BYTE_COUNT));
+    }
+
+    public String getCachedFilterDirectory() {
+        return _cachedFilterDirectory;
+    }
+}
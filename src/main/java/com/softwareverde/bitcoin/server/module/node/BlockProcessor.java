@@ -21,9 +21,19 @@ import com.softwareverde.bitcoin.server.module.node.database.blockchain.Blockcha
 import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManagerFactory;
 import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.FullNodeTransactionDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.output.TransactionOutputDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.handler.transaction.OrphanedTransactionsCache;
+import com.softwareverde.bitcoin.server.module.node.utxo.BlockUndoData;
+import com.softwareverde.bitcoin.server.module.node.utxo.BlockUndoLog;
+import com.softwareverde.bitcoin.server.module.node.utxo.BlockUndoRecord;
+import com.softwareverde.bitcoin.server.module.node.utxo.ReorganizationUtxoView;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.TransactionId;
+import com.softwareverde.bitcoin.transaction.input.TransactionInput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
 import com.softwareverde.bitcoin.transaction.validator.TransactionValidator;
 import com.softwareverde.bitcoin.transaction.validator.TransactionValidatorFactory;
 import com.softwareverde.constable.list.List;
@@ -38,6 +48,10 @@ import com.softwareverde.util.Util;
 import com.softwareverde.util.timer.MilliTimer;
 import com.softwareverde.util.timer.NanoTimer;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class BlockProcessor {
     protected final Object _statisticsMutex = new Object();
     protected final RotatingQueue<Long> _blocksPerSecond = new RotatingQueue<Long>(100);
@@ -56,7 +70,11 @@ public class BlockProcessor {
 
     protected Integer _maxThreadCount = 4;
     protected Long _trustedBlockHeight = 0L;
+    protected BlockFilterCache _blockFilterCache = null;
+    protected BlockUndoDataCache _blockUndoDataCache = null;
+    protected final BlockUndoLog _blockUndoLog = new BlockUndoLog();
 
+    protected final AtomicInteger _activeBlockCount = new AtomicInteger(0);
     protected Integer _processedBlockCount = 0;
     protected final Long _startTime;
 
@@ -108,6 +126,236 @@ public class BlockProcessor {
         _trustedBlockHeight = trustedBlockHeight;
     }
 
+    public void setBlockFilterCache(final BlockFilterCache blockFilterCache) {
+        _blockFilterCache = blockFilterCache;
+    }
+
+    /**
+     * Recording undo data resolves every output spent by each Block after it is committed, so it is only performed while
+     *  a BlockUndoDataCache (or a BlockFilterCache) is set.  The cache is null unless enabled by configuration.
+     */
+    public void setBlockUndoDataCache(final BlockUndoDataCache blockUndoDataCache) {
+        _blockUndoDataCache = blockUndoDataCache;
+    }
+
+    /**
+     * Resolves the outputs spent by the newly connected Block.
+     *  Outputs captured during validation (validatedSpentOutputs, which may be null) are used as-is; only the remaining
+     *  outputs (e.g. those of trusted Blocks, whose inputs are not validated) are looked up from the database.
+     *  Returns null if any spent output cannot be found.
+     */
+    protected BlockUndoData _createBlockUndoData(final Block block, final BlockId blockId, final Long blockHeight, final Map<TransactionOutputIdentifier, BlockUndoData.SpentOutput> validatedSpentOutputs, final FullNodeDatabaseManager databaseManager) throws DatabaseException {
+        final Sha256Hash blockHash = block.getHash();
+        final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+        final FullNodeTransactionDatabaseManager transactionDatabaseManager = databaseManager.getTransactionDatabaseManager();
+        final TransactionOutputDatabaseManager transactionOutputDatabaseManager = databaseManager.getTransactionOutputDatabaseManager();
+
+        final BlockchainSegmentId blockchainSegmentId = blockHeaderDatabaseManager.getBlockchainSegmentId(blockId);
+        final List<Transaction> transactions = block.getTransactions();
+
+        final HashMap<Sha256Hash, Long> transactionBlockHeights = new HashMap<Sha256Hash, Long>();
+        for (final Transaction transaction : transactions) {
+            transactionBlockHeights.put(transaction.getHash(), blockHeight); // Outputs created and spent within the same Block...
+        }
+
+        final MutableList<BlockUndoData.SpentOutput> spentOutputs = new MutableList<BlockUndoData.SpentOutput>();
+        boolean isCoinbase = true;
+        for (final Transaction transaction : transactions) {
+            if (isCoinbase) {
+                isCoinbase = false;
+                continue;
+            }
+
+            for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+                final TransactionOutputIdentifier transactionOutputIdentifier = TransactionOutputIdentifier.fromTransactionInput(transactionInput);
+                final Sha256Hash previousTransactionHash = transactionOutputIdentifier.getTransactionHash();
+
+                final BlockUndoData.SpentOutput validatedSpentOutput = (validatedSpentOutputs != null ? validatedSpentOutputs.get(transactionOutputIdentifier) : null);
+                if (validatedSpentOutput != null) {
+                    spentOutputs.add(validatedSpentOutput);
+                    continue;
+                }
+
+                final TransactionOutputId transactionOutputId = transactionOutputDatabaseManager.findTransactionOutput(transactionOutputIdentifier);
+                final TransactionOutput transactionOutput = (transactionOutputId != null ? transactionOutputDatabaseManager.getTransactionOutput(transactionOutputId) : null);
+                if (transactionOutput == null) {
+                    Logger.warn("Unable to create undo data for " + blockHash + "; unknown output: " + transactionOutputIdentifier);
+                    return null;
+                }
+
+                Long previousBlockHeight = transactionBlockHeights.get(previousTransactionHash);
+                if (previousBlockHeight == null) {
+                    final TransactionId previousTransactionId = transactionDatabaseManager.getTransactionId(previousTransactionHash);
+                    final BlockId previousBlockId = (previousTransactionId != null ? transactionDatabaseManager.getBlockId(blockchainSegmentId, previousTransactionId) : null);
+                    previousBlockHeight = (previousBlockId != null ? blockHeaderDatabaseManager.getBlockHeight(previousBlockId) : null);
+                    if (previousBlockHeight == null) {
+                        Logger.warn("Unable to create undo data for " + blockHash + "; unknown block for output: " + transactionOutputIdentifier);
+                        return null;
+                    }
+                    transactionBlockHeights.put(previousTransactionHash, previousBlockHeight);
+                }
+
+                spentOutputs.add(new BlockUndoData.SpentOutput(previousTransactionHash, transactionOutputIdentifier.getOutputIndex(), transactionOutputId, previousBlockHeight, transactionOutput.getAmount(), transactionOutput.getLockingScript().asConst()));
+            }
+        }
+
+        return new BlockUndoData(blockHash, spentOutputs);
+    }
+
+    /**
+     * Builds and stores the compact filter for the newly connected Block from the scripts recorded within its BlockUndoData.
+     *  Since each filter header commits to the previous filter header, the filter is only built if the previous Block's filter exists;
+     *  otherwise the BlockFilterBackfiller builds it once it reaches this Block.
+     *  Failures are logged and do not affect the validity of the Block.
+     */
+    protected void _buildBlockFilter(final Block block, final Long blockHeight, final BlockUndoData blockUndoData) {
+        final BlockFilterCache blockFilterCache = _blockFilterCache;
+        if (blockFilterCache == null) { return; }
+
+        final Sha256Hash blockHash = block.getHash();
+        if (blockUndoData == null) {
+            Logger.debug("Skipping compact filter for " + blockHash + "; spent outputs not available.");
+            return;
+        }
+
+        try {
+            final MutableList<LockingScript> previousLockingScripts = new MutableList<LockingScript>(blockUndoData.spentOutputs.getSize());
+            for (final BlockUndoData.SpentOutput spentOutput : blockUndoData.spentOutputs) {
+                previousLockingScripts.add(spentOutput.lockingScript);
+            }
+
+            if (! blockFilterCache.buildFilter(block, blockHeight, previousLockingScripts)) {
+                Logger.debug("Skipping compact filter for " + blockHash + "; previous filter header not available.");
+            }
+        }
+        catch (final Exception exception) {
+            Logger.warn("Unable to build compact filter for " + blockHash, exception);
+        }
+    }
+
+    /**
+     * Records the outputs spent by the newly connected Block within the BlockUndoDataCache, and builds its compact filter.
+     *  Both share the resolved spent outputs so they are only looked up once.
+     *  Failures are logged and do not affect the validity of the Block.
+     */
+    protected void _storeBlockUndoData(final Block block, final BlockId blockId, final Long blockHeight, final Map<TransactionOutputIdentifier, BlockUndoData.SpentOutput> validatedSpentOutputs, final FullNodeDatabaseManager databaseManager) {
+        final BlockUndoDataCache blockUndoDataCache = _blockUndoDataCache;
+        if ( (blockUndoDataCache == null) && (_blockFilterCache == null) ) { return; }
+
+        final BlockUndoData blockUndoData;
+        try {
+            blockUndoData = _createBlockUndoData(block, blockId, blockHeight, validatedSpentOutputs, databaseManager);
+        }
+        catch (final Exception exception) {
+            Logger.warn("Unable to create undo data for " + block.getHash(), exception);
+            return;
+        }
+
+        if ( (blockUndoDataCache != null) && (blockUndoData != null) ) {
+            blockUndoDataCache.appendUndoData(blockHeight, blockUndoData);
+        }
+
+        _buildBlockFilter(block, blockHeight, blockUndoData);
+    }
+
+    /**
+     * Returns the BlockUndoRecord of the Block from the BlockUndoLog, or rebuilds it from the database if it is no longer retained.
+     */
+    protected BlockUndoRecord _getBlockUndoRecord(final BlockId blockId, final FullNodeBlockDatabaseManager blockDatabaseManager) throws DatabaseException {
+        final BlockUndoRecord blockUndoRecord = _blockUndoLog.getBlockUndoRecord(blockId);
+        if (blockUndoRecord != null) { return blockUndoRecord; }
+
+        final Block block = blockDatabaseManager.getBlock(blockId);
+        if (block == null) { return null; }
+
+        return BlockUndoRecord.fromBlock(blockId, block, blockDatabaseManager.getTransactionIds(blockId));
+    }
+
+    /**
+     * Updates the memory pool after the head blockchain segment changed from originalHeadBlockchainSegmentId to newHeadBlockchainSegmentId.
+     *  Transactions from the disconnected blocks are restored unless they conflict with the new chain, and only the restored transactions are revalidated.
+     */
+    protected void _reorganizeMemoryPool(final BlockchainSegmentId originalHeadBlockchainSegmentId, final BlockchainSegmentId newHeadBlockchainSegmentId, final Long blockHeight, final FullNodeDatabaseManager databaseManager) throws DatabaseException {
+        final BlockchainDatabaseManager blockchainDatabaseManager = databaseManager.getBlockchainDatabaseManager();
+        final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+        final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
+        final FullNodeTransactionDatabaseManager transactionDatabaseManager = databaseManager.getTransactionDatabaseManager();
+
+        // TODO: Mempool Reorgs should write/read-lock the mempool until complete...
+
+        final MilliTimer timer = new MilliTimer();
+        Logger.trace("Starting Unspent Transactions Reorganization: " + originalHeadBlockchainSegmentId + " -> " + newHeadBlockchainSegmentId);
+        timer.start();
+
+        // 1. Collect the blocks disconnected from the old chain, from its head back to (but excluding) the block shared with the new chain...
+        final MutableList<BlockUndoRecord> disconnectedBlocks = new MutableList<BlockUndoRecord>();
+        BlockId nextBlockId = blockchainDatabaseManager.getHeadBlockIdOfBlockchainSegment(originalHeadBlockchainSegmentId);
+        while (nextBlockId != null) {
+            final BlockUndoRecord disconnectedBlockUndoRecord = _getBlockUndoRecord(nextBlockId, blockDatabaseManager);
+            if (disconnectedBlockUndoRecord == null) {
+                Logger.warn("Unable to load disconnected block for reorganization: " + nextBlockId);
+                return;
+            }
+            disconnectedBlocks.add(0, disconnectedBlockUndoRecord); // Ordered from oldest to newest...
+
+            nextBlockId = blockHeaderDatabaseManager.getAncestorBlockId(nextBlockId, 1);
+            final Boolean nextBlockIsConnectedToNewHeadBlockchain = blockHeaderDatabaseManager.isBlockConnectedToChain(nextBlockId, newHeadBlockchainSegmentId, BlockRelationship.ANCESTOR);
+            if (nextBlockIsConnectedToNewHeadBlockchain) { break; }
+        }
+        Logger.trace("Utxo Reorg - 1/4 complete.");
+
+        // 2. Collect the blocks connected by the new chain, skipping the block shared between the two segments...
+        final MutableList<BlockUndoRecord> connectedBlocks = new MutableList<BlockUndoRecord>();
+        nextBlockId = blockHeaderDatabaseManager.getChildBlockId(newHeadBlockchainSegmentId, nextBlockId);
+        while (nextBlockId != null) {
+            final BlockUndoRecord connectedBlockUndoRecord = _getBlockUndoRecord(nextBlockId, blockDatabaseManager);
+            if (connectedBlockUndoRecord == null) {
+                Logger.warn("Unable to load connected block for reorganization: " + nextBlockId);
+                return;
+            }
+            connectedBlocks.add(connectedBlockUndoRecord);
+
+            nextBlockId = blockHeaderDatabaseManager.getChildBlockId(newHeadBlockchainSegmentId, nextBlockId);
+        }
+        Logger.trace("Utxo Reorg - 2/4 complete.");
+
+        // 3. Apply the disconnects and reconnects to the memory pool as batched set operations...
+        final ReorganizationUtxoView reorganizationUtxoView = new ReorganizationUtxoView(disconnectedBlocks, connectedBlocks);
+        final List<TransactionId> confirmedTransactionIds = reorganizationUtxoView.getConfirmedTransactionIds();
+        final List<TransactionId> restoredTransactionIds = reorganizationUtxoView.getRestoredTransactionIds();
+
+        transactionDatabaseManager.removeFromUnconfirmedTransactions(confirmedTransactionIds);
+        transactionDatabaseManager.addToUnconfirmedTransactions(restoredTransactionIds);
+
+        final MutableList<TransactionId> transactionsToRemove = new MutableList<TransactionId>();
+        transactionsToRemove.addAll(transactionDatabaseManager.getUnconfirmedTransactionsDependingOnSpentInputsOf(confirmedTransactionIds)); // Double-spends of the new chain...
+        transactionsToRemove.addAll(transactionDatabaseManager.getUnconfirmedTransactionsDependingOn(reorganizationUtxoView.getDisconnectedCoinbaseTransactionIds()));
+        transactionsToRemove.addAll(transactionDatabaseManager.getUnconfirmedTransactionsDependingOn(reorganizationUtxoView.getInvalidatedTransactionIds()));
+        Logger.trace("Utxo Reorg - 3/4 complete.");
+
+        // 4. Only the restored transactions are revalidated; the rest of the memory pool was not affected by the reorganization except as removed above...
+        final TransactionValidator transactionValidator = _transactionValidatorFactory.newTransactionValidator(databaseManager, _networkTime, _medianBlockTime);
+        transactionValidator.setLoggingEnabled(false);
+
+        for (final TransactionId transactionId : restoredTransactionIds) {
+            final Transaction transaction = transactionDatabaseManager.getTransaction(transactionId);
+            final Boolean transactionIsValid = transactionValidator.validateTransaction(newHeadBlockchainSegmentId, blockHeight, transaction, true);
+            if (! transactionIsValid) {
+                transactionsToRemove.add(transactionId);
+            }
+        }
+
+        // Remove transactions in UnconfirmedTransactions that depend on the removed transactions...
+        while (! transactionsToRemove.isEmpty()) {
+            transactionDatabaseManager.removeFromUnconfirmedTransactions(transactionsToRemove);
+            final List<TransactionId> chainedInvalidTransactions = transactionDatabaseManager.getUnconfirmedTransactionsDependingOn(transactionsToRemove);
+            transactionsToRemove.clear();
+            transactionsToRemove.addAll(chainedInvalidTransactions);
+        }
+        timer.stop();
+        Logger.info("Unspent Transactions Reorganization: " + originalHeadBlockchainSegmentId + " -> " + newHeadBlockchainSegmentId + " (" + disconnectedBlocks.getSize() + " disconnected, " + connectedBlocks.getSize() + " connected, " + restoredTransactionIds.getSize() + " restored) (" + timer.getMillisecondsElapsed() + "ms)");
+    }
+
     protected Long _processBlock(final Block block) throws DatabaseException {
         try (
             final LocalDatabaseManagerCache localDatabaseManagerCache = new LocalDatabaseManagerCache(_masterDatabaseManagerCache);
@@ -176,6 +424,7 @@ public class BlockProcessor {
 
             final NanoTimer storeBlockTimer = new NanoTimer();
             final NanoTimer blockValidationTimer = new NanoTimer();
+            final Map<TransactionOutputIdentifier, BlockUndoData.SpentOutput> validatedSpentOutputs;
             TransactionUtil.startTransaction(databaseConnection);
             {
                 storeBlockTimer.start();
@@ -201,6 +450,7 @@ public class BlockProcessor {
                     blockValidator.setMaxThreadCount(_maxThreadCount);
                     blockValidator.setTrustedBlockHeight(_trustedBlockHeight);
                     blockValidator.setShouldLogValidBlocks(true);
+                    blockValidator.setShouldCaptureSpentOutputs( (_blockUndoDataCache != null) || (_blockFilterCache != null) ); // Avoids re-resolving the spent outputs for the undo data once the Block is connected...
 
                     blockValidationTimer.start();
                     final BlockValidationResult blockValidationResult = blockValidator.validateBlockTransactions(blockId, block); // NOTE: Only validates the transactions since the blockHeader is validated separately above...
@@ -208,6 +458,7 @@ public class BlockProcessor {
                         Logger.info(blockValidationResult.errorMessage);
                     }
                     blockIsValid = blockValidationResult.isValid;
+                    validatedSpentOutputs = blockValidationResult.spentOutputs;
                     blockValidationTimer.stop();
 
                     // localDatabaseManagerCache.log();
@@ -233,71 +484,16 @@ public class BlockProcessor {
             final BlockchainSegmentId newHeadBlockchainSegmentId = blockchainDatabaseManager.getHeadBlockchainSegmentId();
             final Boolean bestBlockchainHasChanged = (! Util.areEqual(newHeadBlockchainSegmentId, originalHeadBlockchainSegmentId));
 
+            final List<TransactionId> blockTransactionIds = blockDatabaseManager.getTransactionIds(blockId);
+            _blockUndoLog.addBlockUndoRecord(BlockUndoRecord.fromBlock(blockId, block, blockTransactionIds)); // Captured while the Block is in memory, so a later reorganization does not need to reload it...
+
             { // Maintain memory-pool correctness...
                 if (bestBlockchainHasChanged) {
-                    // TODO: Mempool Reorgs should write/read-lock the mempool until complete...
-
-                    final MilliTimer timer = new MilliTimer();
-                    Logger.trace("Starting Unspent Transactions Reorganization: " + originalHeadBlockchainSegmentId + " -> " + newHeadBlockchainSegmentId);
-                    timer.start();
-                    // Rebuild the memory pool to include (valid) transactions that were broadcast/mined on the old chain but were excluded from the new chain...
-                    // 1. Take the block at the head of the old chain and add its transactions back into the pool... (Ignoring the coinbases...)
-                    BlockId nextBlockId = blockchainDatabaseManager.getHeadBlockIdOfBlockchainSegment(originalHeadBlockchainSegmentId);
-
-                    while (nextBlockId != null) {
-                        final MutableList<TransactionId> transactionIds = new MutableList<TransactionId>(blockDatabaseManager.getTransactionIds(nextBlockId));
-                        transactionIds.remove(0); // Exclude the coinbase...
-                        transactionDatabaseManager.addToUnconfirmedTransactions(transactionIds);
-
-                        // 2. Continue to traverse up the chain until the block is connected to the new headBlockchain...
-                        nextBlockId = blockHeaderDatabaseManager.getAncestorBlockId(nextBlockId, 1);
-                        final Boolean nextBlockIsConnectedToNewHeadBlockchain = blockHeaderDatabaseManager.isBlockConnectedToChain(nextBlockId, newHeadBlockchainSegmentId, BlockRelationship.ANCESTOR);
-                        if (nextBlockIsConnectedToNewHeadBlockchain) { break; }
-                    }
-                    Logger.trace("Utxo Reorg - 2/5 complete.");
-
-                    // 2.5 Skip the shared block between the two segments (not strictly necessary, but more performant)...
-                    nextBlockId = blockHeaderDatabaseManager.getChildBlockId(newHeadBlockchainSegmentId, nextBlockId);
-
-                    // 3. Traverse down the chain to the new head of the chain and remove the transactions from those blocks from the memory pool...
-                    while (nextBlockId != null) {
-                        final MutableList<TransactionId> transactionIds = new MutableList<TransactionId>(blockDatabaseManager.getTransactionIds(nextBlockId));
-                        transactionIds.remove(0); // Exclude the coinbase (not strictly necessary, but performs slightly better)...
-                        transactionDatabaseManager.removeFromUnconfirmedTransactions(transactionIds);
-
-                        nextBlockId = blockHeaderDatabaseManager.getChildBlockId(newHeadBlockchainSegmentId, nextBlockId);
-                    }
-                    Logger.trace("Utxo Reorg - 3/5 complete.");
-
-                    // 4. Validate that the transactions are still valid on the new chain...
-                    final TransactionValidator transactionValidator = _transactionValidatorFactory.newTransactionValidator(databaseManager, _networkTime, _medianBlockTime);
-                    transactionValidator.setLoggingEnabled(false);
-
-                    final List<TransactionId> transactionIds = transactionDatabaseManager.getUnconfirmedTransactionIds();
-                    final MutableList<TransactionId> transactionsToRemove = new MutableList<TransactionId>();
-                    for (final TransactionId transactionId : transactionIds) {
-                        final Transaction transaction = transactionDatabaseManager.getTransaction(transactionId);
-                        final Boolean transactionIsValid = transactionValidator.validateTransaction(newHeadBlockchainSegmentId, blockHeight, transaction, true);
-                        if (! transactionIsValid) {
-                            transactionsToRemove.add(transactionId);
-                        }
-                    }
-
-                    Logger.trace("Utxo Reorg - 4/5 complete.");
-
-                    // 5. Remove transactions in UnconfirmedTransactions that depend on the removed transactions...
-                    while (! transactionsToRemove.isEmpty()) {
-                        transactionDatabaseManager.removeFromUnconfirmedTransactions(transactionsToRemove);
-                        final List<TransactionId> chainedInvalidTransactions = transactionDatabaseManager.getUnconfirmedTransactionsDependingOn(transactionsToRemove);
-                        transactionsToRemove.clear();
-                        transactionsToRemove.addAll(chainedInvalidTransactions);
-                    }
-                    timer.stop();
-                    Logger.info("Unspent Transactions Reorganization: " + originalHeadBlockchainSegmentId + " -> " + newHeadBlockchainSegmentId + " (" + timer.getMillisecondsElapsed() + "ms)");
+                    _reorganizeMemoryPool(originalHeadBlockchainSegmentId, newHeadBlockchainSegmentId, blockHeight, databaseManager);
                 }
                 else {
                     // Remove any transactions in the memory pool that were included in this block...
-                    final MutableList<TransactionId> transactionIds = new MutableList<TransactionId>(blockDatabaseManager.getTransactionIds(blockId));
+                    final MutableList<TransactionId> transactionIds = new MutableList<TransactionId>(blockTransactionIds);
                     transactionIds.remove(0); // Exclude the coinbase (not strictly necessary, but performs slightly better)...
                     transactionDatabaseManager.removeFromUnconfirmedTransactions(transactionIds);
 
@@ -351,11 +547,14 @@ public class BlockProcessor {
             _masterDatabaseManagerCache.commitLocalDatabaseManagerCache(localDatabaseManagerCache);
             _masterDatabaseManagerCache.commit();
 
+            _storeBlockUndoData(block, blockId, blockHeight, validatedSpentOutputs, databaseManager);
+
             return blockHeight;
         }
     }
 
     public Long processBlock(final Block block) {
+        _activeBlockCount.incrementAndGet();
         try {
             final Long newBlockHeight = _processBlock(block);
             final Boolean blockWasValid = (newBlockHeight != null);
@@ -370,10 +569,21 @@ public class BlockProcessor {
         catch (final Exception exception) {
             Logger.info("ERROR VALIDATING BLOCK: " + block.getHash(), exception);
         }
+        finally {
+            _activeBlockCount.decrementAndGet();
+        }
 
         return null;
     }
 
+    /**
+     * Returns true while a Block is being validated and stored.
+     *  Background maintenance (i.e. pruning) uses this to yield to validation.
+     */
+    public Boolean isProcessingBlock() {
+        return (_activeBlockCount.get() > 0);
+    }
+
     public Container<Float> getAverageBlocksPerSecondContainer() {
         return _averageBlocksPerSecond;
     }
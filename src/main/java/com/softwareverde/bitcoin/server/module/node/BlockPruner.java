@@ -0,0 +1,298 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.chain.segment.BlockchainSegmentId;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.database.DatabaseConnection;
+import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.FullNodeBlockDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManagerFactory;
+import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.input.TransactionInputDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.output.TransactionOutputDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.utxo.BlockUndoData;
+import com.softwareverde.bitcoin.transaction.input.TransactionInputId;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.util.IoUtil;
+import com.softwareverde.concurrent.service.SleepyService;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.database.DatabaseException;
+import com.softwareverde.database.util.TransactionUtil;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.util.StringUtil;
+import com.softwareverde.util.Util;
+import com.softwareverde.util.timer.MilliTimer;
+
+/**
+ * Automatically prunes the history of Blocks buried deeper than the configured depth.
+ *  For each pruned Block, the TransactionOutputs spent by the Block, the Block's TransactionInputs, their scripts, and the cached Block file are deleted.
+ *  Unspent TransactionOutputs are never deleted, so the UTXO set remains intact.
+ *  Blocks are pruned in ascending order and in groups, so each DELETE statement covers up to BATCH_SIZE rows.
+ *  The pruner yields while a Block is being processed, and sleeps after each group for as long as the group took to delete.
+ */
+public class BlockPruner extends SleepyService {
+    public static final Integer BATCH_SIZE = 4096;
+    public static final Integer MAX_BLOCK_COUNT_PER_BATCH = 32;
+    public static final String PRUNED_BLOCK_HEIGHT_FILENAME = "pruned-block-height";
+    public static final Long MIN_PRUNE_BLOCK_DEPTH = 144L; // NOTE: Keeping the last days of blocks protects any non-malicious chain re-organization from failing...
+
+    protected static final Long VALIDATION_BACKOFF_MS = 250L;
+
+    protected final FullNodeDatabaseManagerFactory _databaseManagerFactory;
+    protected final Long _pruneBlockDepth;
+    protected final String _prunedBlockHeightFilename;
+    protected BlockProcessor _blockProcessor = null;
+    protected BlockCache _blockCache = null;
+    protected BlockUndoDataCache _blockUndoDataCache = null;
+
+    /**
+     * Every Block at or below this height has been pruned.
+     *  The genesis Block's output is unspendable, so pruning begins at height 1.
+     */
+    protected volatile Long _prunedBlockHeight = null;
+
+    protected Long _loadPrunedBlockHeight() {
+        if ( (_prunedBlockHeightFilename == null) || (! IoUtil.fileExists(_prunedBlockHeightFilename)) ) { return 0L; }
+
+        final byte[] bytes = IoUtil.getFileContents(_prunedBlockHeightFilename);
+        if (bytes == null) { return 0L; }
+
+        return Util.parseLong(StringUtil.bytesToString(bytes).trim(), 0L);
+    }
+
+    protected void _storePrunedBlockHeight(final Long prunedBlockHeight) {
+        _prunedBlockHeight = prunedBlockHeight;
+
+        if (_prunedBlockHeightFilename == null) { return; }
+        if (! IoUtil.putFileContents(_prunedBlockHeightFilename, StringUtil.stringToBytes(prunedBlockHeight.toString()))) {
+            Logger.warn("Unable to store pruned block height: " + _prunedBlockHeightFilename);
+        }
+    }
+
+    protected Long _getPrunedBlockHeight() {
+        final Long prunedBlockHeight = _prunedBlockHeight;
+        if (prunedBlockHeight != null) { return prunedBlockHeight; }
+
+        final Long loadedPrunedBlockHeight = _loadPrunedBlockHeight();
+        _prunedBlockHeight = loadedPrunedBlockHeight;
+        return loadedPrunedBlockHeight;
+    }
+
+    /**
+     * Blocks until no Block is being processed.
+     *  Returns false if the thread was interrupted while waiting.
+     */
+    protected Boolean _waitForIdleBlockProcessor() {
+        final BlockProcessor blockProcessor = _blockProcessor;
+        if (blockProcessor == null) { return true; }
+
+        while (blockProcessor.isProcessingBlock()) {
+            try {
+                Thread.sleep(VALIDATION_BACKOFF_MS);
+            }
+            catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the ids of the TransactionOutputs spent by the Block.
+     *  The recorded undo data is used when every spent TransactionOutput's id is known, otherwise the ids are queried from the Block's TransactionInputs.
+     */
+    protected List<TransactionOutputId> _getSpentTransactionOutputIds(final BlockId blockId, final Sha256Hash blockHash, final Long blockHeight, final FullNodeDatabaseManager databaseManager) throws DatabaseException {
+        final BlockUndoDataCache blockUndoDataCache = _blockUndoDataCache;
+        final BlockUndoData blockUndoData = (blockUndoDataCache != null ? blockUndoDataCache.getUndoData(blockHash, blockHeight) : null);
+        if (blockUndoData != null) {
+            final MutableList<TransactionOutputId> transactionOutputIds = new MutableList<TransactionOutputId>(blockUndoData.spentOutputs.getSize());
+            for (final BlockUndoData.SpentOutput spentOutput : blockUndoData.spentOutputs) {
+                if (spentOutput.transactionOutputId == null) { break; }
+                transactionOutputIds.add(spentOutput.transactionOutputId);
+            }
+
+            if (transactionOutputIds.getSize() == blockUndoData.spentOutputs.getSize()) {
+                return transactionOutputIds;
+            }
+        }
+
+        final TransactionInputDatabaseManager transactionInputDatabaseManager = databaseManager.getTransactionInputDatabaseManager();
+        return transactionInputDatabaseManager.getPreviousTransactionOutputIds(blockId);
+    }
+
+    /**
+     * Returns the height of the highest Block that may be pruned while the head Block is at the provided height.
+     */
+    protected Long _getMaxPrunableBlockHeight(final Long headBlockHeight) {
+        return (headBlockHeight - _pruneBlockDepth);
+    }
+
+    protected static <T> List<List<T>> _toBatches(final List<T> items) {
+        final MutableList<List<T>> batches = new MutableList<List<T>>();
+        MutableList<T> batch = new MutableList<T>(BATCH_SIZE);
+        for (final T item : items) {
+            batch.add(item);
+
+            if (batch.getSize() >= BATCH_SIZE) {
+                batches.add(batch);
+                batch = new MutableList<T>(BATCH_SIZE);
+            }
+        }
+        if (! batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    public BlockPruner(final FullNodeDatabaseManagerFactory databaseManagerFactory, final Long pruneBlockDepth, final String prunedBlockHeightFilename) {
+        _databaseManagerFactory = databaseManagerFactory;
+        _pruneBlockDepth = Math.max(MIN_PRUNE_BLOCK_DEPTH, pruneBlockDepth);
+        _prunedBlockHeightFilename = prunedBlockHeightFilename;
+    }
+
+    @Override
+    protected void _onStart() {
+        Logger.trace("BlockPruner Starting.");
+    }
+
+    @Override
+    protected Boolean _run() {
+        Logger.trace("BlockPruner Running.");
+
+        if (! _waitForIdleBlockProcessor()) { return false; }
+
+        final MilliTimer pruneTimer = new MilliTimer();
+        pruneTimer.start();
+
+        final Long prunedBlockHeight = _getPrunedBlockHeight();
+        final Long newPrunedBlockHeight;
+        final int transactionInputCount;
+        final int transactionOutputCount;
+        try (final FullNodeDatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+            final DatabaseConnection databaseConnection = databaseManager.getDatabaseConnection();
+            final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
+            final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+            final TransactionInputDatabaseManager transactionInputDatabaseManager = databaseManager.getTransactionInputDatabaseManager();
+            final TransactionOutputDatabaseManager transactionOutputDatabaseManager = databaseManager.getTransactionOutputDatabaseManager();
+
+            final BlockId headBlockId = blockDatabaseManager.getHeadBlockId();
+            if (headBlockId == null) { return false; }
+
+            final Long headBlockHeight = blockHeaderDatabaseManager.getBlockHeight(headBlockId);
+            final Long maxPrunableBlockHeight = _getMaxPrunableBlockHeight(headBlockHeight);
+            if (prunedBlockHeight >= maxPrunableBlockHeight) { return false; }
+
+            final BlockchainSegmentId blockchainSegmentId = blockHeaderDatabaseManager.getBlockchainSegmentId(headBlockId);
+
+            final MutableList<Sha256Hash> blockHashes = new MutableList<Sha256Hash>(MAX_BLOCK_COUNT_PER_BATCH);
+            final MutableList<TransactionOutputId> transactionOutputIds = new MutableList<TransactionOutputId>();
+            final MutableList<TransactionInputId> transactionInputIds = new MutableList<TransactionInputId>();
+            { // Collect the rows of consecutive Blocks until a batch is filled...
+                long blockHeight = (prunedBlockHeight + 1L);
+                while ( (blockHeight <= maxPrunableBlockHeight) && (blockHashes.getSize() < MAX_BLOCK_COUNT_PER_BATCH) && (transactionInputIds.getSize() < BATCH_SIZE) ) {
+                    final BlockId blockId = blockHeaderDatabaseManager.getBlockIdAtHeight(blockchainSegmentId, blockHeight);
+                    if (blockId == null) { break; }
+
+                    final Sha256Hash blockHash = blockHeaderDatabaseManager.getBlockHash(blockId);
+                    for (final TransactionOutputId transactionOutputId : _getSpentTransactionOutputIds(blockId, blockHash, blockHeight, databaseManager)) {
+                        transactionOutputIds.add(transactionOutputId);
+                    }
+                    for (final TransactionInputId transactionInputId : transactionInputDatabaseManager.getTransactionInputIds(blockId)) {
+                        transactionInputIds.add(transactionInputId);
+                    }
+
+                    blockHashes.add(blockHash);
+                    blockHeight += 1L;
+                }
+            }
+            if (blockHashes.isEmpty()) { return false; }
+
+            // NOTE: The TransactionInputs are deleted first so that deleting their previous TransactionOutputs does not cascade updates onto soon-to-be-deleted rows...
+            TransactionUtil.startTransaction(databaseConnection);
+            for (final List<TransactionInputId> batch : _toBatches(transactionInputIds)) {
+                transactionInputDatabaseManager.deleteTransactionInputs(batch);
+            }
+            for (final List<TransactionOutputId> batch : _toBatches(transactionOutputIds)) {
+                transactionOutputDatabaseManager.deleteTransactionOutputs(batch);
+            }
+            TransactionUtil.commitTransaction(databaseConnection);
+
+            newPrunedBlockHeight = (prunedBlockHeight + blockHashes.getSize());
+            transactionInputCount = transactionInputIds.getSize();
+            transactionOutputCount = transactionOutputIds.getSize();
+
+            final BlockCache blockCache = _blockCache;
+            if (blockCache != null) {
+                long blockHeight = (prunedBlockHeight + 1L);
+                for (final Sha256Hash blockHash : blockHashes) {
+                    blockCache.removeCachedBlock(blockHash, blockHeight);
+                    blockHeight += 1L;
+                }
+            }
+        }
+        catch (final DatabaseException exception) {
+            Logger.warn(exception);
+            return false;
+        }
+
+        final BlockUndoDataCache blockUndoDataCache = _blockUndoDataCache;
+        if (blockUndoDataCache != null) {
+            blockUndoDataCache.removeUndoDataBefore(newPrunedBlockHeight + 1L);
+        }
+
+        _storePrunedBlockHeight(newPrunedBlockHeight);
+        pruneTimer.stop();
+
+        final Long elapsedMilliseconds = pruneTimer.getMillisecondsElapsed();
+        Logger.info("Pruned Blocks " + (prunedBlockHeight + 1L) + " through " + newPrunedBlockHeight + " (" + transactionInputCount + " inputs, " + transactionOutputCount + " outputs) in " + elapsedMilliseconds + "ms.");
+
+        try { // Throttle to at most half of the available time so that validation and queries are not starved...
+            Thread.sleep(elapsedMilliseconds);
+        }
+        catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    protected void _onSleep() {
+        Logger.trace("BlockPruner Sleeping.");
+    }
+
+    public void setBlockProcessor(final BlockProcessor blockProcessor) {
+        _blockProcessor = blockProcessor;
+    }
+
+    public void setBlockCache(final BlockCache blockCache) {
+        _blockCache = blockCache;
+    }
+
+    public void setBlockUndoDataCache(final BlockUndoDataCache blockUndoDataCache) {
+        _blockUndoDataCache = blockUndoDataCache;
+    }
+
+    /**
+     * Returns the height at and below which every Block has been pruned.
+     */
+    public Long getPrunedBlockHeight() {
+        return _getPrunedBlockHeight();
+    }
+
+    /**
+     * Returns true if the Block at the provided height has been pruned, and therefore can no longer be reconstructed.
+     */
+    public Boolean isBlockPruned(final Long blockHeight) {
+        if (blockHeight < 1L) { return false; } // The genesis Block is never pruned...
+        return (blockHeight <= _getPrunedBlockHeight());
+    }
+
+    public Long getPruneBlockDepth() {
+        return _pruneBlockDepth;
+    }
+}
@@ -3,47 +3,79 @@ package com.softwareverde.bitcoin.server.module.node;
 import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.chain.segment.BlockchainSegmentId;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
-import com.softwareverde.bitcoin.server.module.node.database.block.BlockDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.blockchain.BlockchainDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManagerFactory;
 import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.input.TransactionInputDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.output.TransactionOutputDatabaseManager;
-import com.softwareverde.bitcoin.transaction.TransactionId;
-import com.softwareverde.bitcoin.transaction.input.TransactionInputId;
+import com.softwareverde.bitcoin.server.module.node.utxo.BlockUndoData;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
-import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.database.DatabaseException;
 import com.softwareverde.logging.Logger;
 
 public class BlockTrimmer {
     protected final FullNodeDatabaseManagerFactory _databaseManagerFactory;
+    protected BlockUndoDataCache _blockUndoDataCache = null;
+
+    /**
+     * Returns the BlockUndoData of the Block if it was recorded, otherwise null.
+     */
+    protected BlockUndoData _getBlockUndoData(final BlockId blockId, final FullNodeDatabaseManager databaseManager) throws DatabaseException {
+        final BlockUndoDataCache blockUndoDataCache = _blockUndoDataCache;
+        if (blockUndoDataCache == null) { return null; }
+
+        final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+        final Sha256Hash blockHash = blockHeaderDatabaseManager.getBlockHash(blockId);
+        final Long blockHeight = blockHeaderDatabaseManager.getBlockHeight(blockId);
+        if ( (blockHash == null) || (blockHeight == null) ) { return null; }
+
+        return blockUndoDataCache.getUndoData(blockHash, blockHeight);
+    }
 
     protected void _trimBlock(final BlockId blockId, final FullNodeDatabaseManager databaseManager) throws DatabaseException {
-        final BlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
         final TransactionInputDatabaseManager transactionInputDatabaseManager = databaseManager.getTransactionInputDatabaseManager();
         final TransactionOutputDatabaseManager transactionOutputDatabaseManager = databaseManager.getTransactionOutputDatabaseManager();
 
-        final List<TransactionId> blockTransactionIds = blockDatabaseManager.getTransactionIds(blockId);
-        for (final TransactionId transactionId : blockTransactionIds) {
-            final List<TransactionInputId> transactionInputIds = transactionInputDatabaseManager.getTransactionInputIds(transactionId);
-            if (transactionInputIds == null) { continue; }
-
-            for (final TransactionInputId transactionInputId : transactionInputIds) {
-                final TransactionOutputId transactionOutputId = transactionInputDatabaseManager.getPreviousTransactionOutputId(transactionInputId);
+        final MutableList<TransactionOutputId> transactionOutputIds = new MutableList<TransactionOutputId>();
+        final BlockUndoData blockUndoData = _getBlockUndoData(blockId, databaseManager);
+        if (blockUndoData != null) { // The spent outputs were recorded when the Block was processed, so they do not need to be derived from its inputs...
+            for (final BlockUndoData.SpentOutput spentOutput : blockUndoData.spentOutputs) {
+                final TransactionOutputId transactionOutputId = (spentOutput.transactionOutputId != null ? spentOutput.transactionOutputId : transactionOutputDatabaseManager.findTransactionOutput(spentOutput.getTransactionOutputIdentifier()));
                 if (transactionOutputId == null) { continue; }
 
-                Logger.debug("Trimming Transaction Output Id: " + transactionOutputId);
-                transactionOutputDatabaseManager.deleteTransactionOutput(transactionOutputId);
+                transactionOutputIds.add(transactionOutputId);
+            }
+        }
+        else {
+            for (final TransactionOutputId transactionOutputId : transactionInputDatabaseManager.getPreviousTransactionOutputIds(blockId)) {
+                transactionOutputIds.add(transactionOutputId);
             }
         }
+
+        Logger.debug("Trimming " + transactionOutputIds.getSize() + " Transaction Outputs for Block Id: " + blockId);
+        int batchStartIndex = 0;
+        while (batchStartIndex < transactionOutputIds.getSize()) {
+            final int batchEndIndex = Math.min(transactionOutputIds.getSize(), (batchStartIndex + BlockPruner.BATCH_SIZE));
+            final MutableList<TransactionOutputId> batch = new MutableList<TransactionOutputId>(batchEndIndex - batchStartIndex);
+            for (int i = batchStartIndex; i < batchEndIndex; ++i) {
+                batch.add(transactionOutputIds.get(i));
+            }
+
+            transactionOutputDatabaseManager.deleteTransactionOutputs(batch);
+            batchStartIndex = batchEndIndex;
+        }
     }
 
     public BlockTrimmer(final FullNodeDatabaseManagerFactory databaseConnectionFactory) {
         _databaseManagerFactory = databaseConnectionFactory;
     }
 
+    public void setBlockUndoDataCache(final BlockUndoDataCache blockUndoDataCache) {
+        _blockUndoDataCache = blockUndoDataCache;
+    }
+
     public void trimBlock(final Long blockHeight) throws DatabaseException {
         try (final FullNodeDatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
             final BlockchainDatabaseManager blockchainDatabaseManager = databaseManager.getBlockchainDatabaseManager();
@@ -0,0 +1,229 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.module.node.utxo.BlockUndoData;
+import com.softwareverde.bitcoin.server.module.node.utxo.BlockUndoDataDeflater;
+import com.softwareverde.bitcoin.server.module.node.utxo.BlockUndoDataInflater;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.logging.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the BlockUndoData of each processed Block within append-only undo files, alongside the BlockCache.
+ *  Blocks are grouped by height into the same buckets as the BlockCache: <directory>/<blockHeight / 2016>.undo
+ *  Each record is: [payload byte count (4, little-endian)][CRC32 of the payload (4, little-endian)][payload],
+ *  where the payload is the serialized BlockUndoData, which begins with the Block's hash.
+ *  The first access to an undo file reads it once to build an index of each Block's record offset; any invalid record found
+ *  during that read (i.e. a torn write from an unclean shutdown) is truncated, along with everything after it.
+ *  Only the most recently used indexes are retained; an evicted index is rebuilt on its next access.
+ *  If a Block's undo data is appended more than once (e.g. after a repair), the most recent record is used.
+ */
+public class BlockUndoDataCache {
+    public static final String UNDO_DIRECTORY_NAME = "undo";
+    public static final String UNDO_FILE_EXTENSION = ".undo";
+
+    protected static final Integer RECORD_HEADER_BYTE_COUNT = 8;
+    protected static final Integer MAX_CACHED_INDEX_COUNT = 8;
+
+    protected static Integer _calculateChecksum(final byte[] bytes) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(bytes, 0, bytes.length);
+        return (int) crc32.getValue();
+    }
+
+    protected final String _undoDataDirectory;
+    protected final Integer _blocksPerUndoFile = 2016;
+    protected final LinkedHashMap<Long, HashMap<Sha256Hash, Long>> _recordOffsetIndexes = new LinkedHashMap<Long, HashMap<Sha256Hash, Long>>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Long, HashMap<Sha256Hash, Long>> eldestEntry) {
+            return (this.size() > MAX_CACHED_INDEX_COUNT);
+        }
+    };
+
+    protected Long _getBlockHeightBucket(final Long blockHeight) {
+        return (blockHeight / _blocksPerUndoFile);
+    }
+
+    protected String _getUndoFilePath(final Long blockHeightBucket) {
+        return (_undoDataDirectory + "/" + blockHeightBucket + UNDO_FILE_EXTENSION);
+    }
+
+    /**
+     * Reads the record header and payload at the current position of the file.
+     *  Returns null if the record is incomplete or its checksum does not match.
+     */
+    protected byte[] _readRecord(final RandomAccessFile randomAccessFile) throws IOException {
+        final long remainingByteCount = (randomAccessFile.length() - randomAccessFile.getFilePointer());
+        if (remainingByteCount < RECORD_HEADER_BYTE_COUNT) { return null; }
+
+        final byte[] headerBytes = new byte[RECORD_HEADER_BYTE_COUNT];
+        randomAccessFile.readFully(headerBytes);
+
+        final int byteCount = ByteUtil.bytesToInteger(ByteUtil.reverseEndian(ByteUtil.copyBytes(headerBytes, 0, 4)));
+        final int checksum = ByteUtil.bytesToInteger(ByteUtil.reverseEndian(ByteUtil.copyBytes(headerBytes, 4, 4)));
+        if ( (byteCount < Sha256Hash.BYTE_COUNT) || (byteCount > (remainingByteCount - RECORD_HEADER_BYTE_COUNT)) ) { return null; }
+
+        final byte[] bytes = new byte[byteCount];
+        randomAccessFile.readFully(bytes);
+        if (checksum != _calculateChecksum(bytes)) { return null; }
+
+        return bytes;
+    }
+
+    /**
+     * Returns the index of Block hash to record offset for the undo file, reading (and repairing) the file if it is not already indexed.
+     *  Returns null if the file does not exist or could not be read.
+     */
+    protected HashMap<Sha256Hash, Long> _getRecordOffsetIndex(final Long blockHeightBucket) {
+        final HashMap<Sha256Hash, Long> cachedRecordOffsetIndex = _recordOffsetIndexes.get(blockHeightBucket);
+        if (cachedRecordOffsetIndex != null) { return cachedRecordOffsetIndex; }
+
+        final File undoFile = new File(_getUndoFilePath(blockHeightBucket));
+        if (! undoFile.exists()) { return null; }
+
+        final HashMap<Sha256Hash, Long> recordOffsetIndex = new HashMap<Sha256Hash, Long>();
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(undoFile, "rw")) {
+            final long fileByteCount = randomAccessFile.length();
+            long recordOffset = 0L;
+            while (recordOffset < fileByteCount) {
+                randomAccessFile.seek(recordOffset);
+                final byte[] bytes = _readRecord(randomAccessFile);
+                if (bytes == null) {
+                    Logger.warn("Truncating invalid undo data record in " + undoFile.getPath() + " at offset " + recordOffset + ". (" + (fileByteCount - recordOffset) + " bytes)");
+                    randomAccessFile.setLength(recordOffset);
+                    break;
+                }
+
+                final Sha256Hash blockHash = MutableSha256Hash.wrap(ByteUtil.copyBytes(bytes, 0, Sha256Hash.BYTE_COUNT));
+                recordOffsetIndex.put(blockHash, recordOffset);
+                recordOffset = randomAccessFile.getFilePointer();
+            }
+        }
+        catch (final Exception exception) {
+            Logger.warn("Unable to index undo file: " + undoFile.getPath(), exception);
+            return null;
+        }
+
+        _recordOffsetIndexes.put(blockHeightBucket, recordOffsetIndex);
+        return recordOffsetIndex;
+    }
+
+    public BlockUndoDataCache(final String undoDataDirectory) {
+        _undoDataDirectory = undoDataDirectory;
+    }
+
+    public synchronized void appendUndoData(final Long blockHeight, final BlockUndoData blockUndoData) {
+        if (_undoDataDirectory == null) { return; }
+
+        { // Create the directory, if necessary...
+            final File directory = new File(_undoDataDirectory);
+            if (! directory.exists()) {
+                final Boolean mkdirSuccessful = directory.mkdirs();
+                if (! mkdirSuccessful) {
+                    Logger.warn("Unable to create undo data directory: " + _undoDataDirectory);
+                    return;
+                }
+            }
+        }
+
+        final BlockUndoDataDeflater blockUndoDataDeflater = new BlockUndoDataDeflater();
+        final ByteArray bytes = blockUndoDataDeflater.toBytes(blockUndoData);
+
+        final byte[] payloadBytes = bytes.getBytes();
+        final byte[] recordBytes = new byte[RECORD_HEADER_BYTE_COUNT + payloadBytes.length];
+        System.arraycopy(ByteUtil.reverseEndian(ByteUtil.integerToBytes(payloadBytes.length)), 0, recordBytes, 0, 4);
+        System.arraycopy(ByteUtil.reverseEndian(ByteUtil.integerToBytes(_calculateChecksum(payloadBytes))), 0, recordBytes, 4, 4);
+        System.arraycopy(payloadBytes, 0, recordBytes, RECORD_HEADER_BYTE_COUNT, payloadBytes.length);
+
+        final Long blockHeightBucket = _getBlockHeightBucket(blockHeight);
+        final HashMap<Sha256Hash, Long> existingRecordOffsetIndex = _getRecordOffsetIndex(blockHeightBucket); // Repairs any torn write before appending...
+
+        final File undoFile = new File(_getUndoFilePath(blockHeightBucket));
+        if ( (existingRecordOffsetIndex == null) && undoFile.exists() ) { return; } // The existing file could not be indexed...
+
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(undoFile, "rw")) {
+            final long recordOffset = randomAccessFile.length();
+            randomAccessFile.seek(recordOffset);
+            randomAccessFile.write(recordBytes);
+
+            final HashMap<Sha256Hash, Long> recordOffsetIndex;
+            if (existingRecordOffsetIndex != null) {
+                recordOffsetIndex = existingRecordOffsetIndex;
+            }
+            else {
+                recordOffsetIndex = new HashMap<Sha256Hash, Long>();
+                _recordOffsetIndexes.put(blockHeightBucket, recordOffsetIndex);
+            }
+            recordOffsetIndex.put(blockUndoData.blockHash.asConst(), recordOffset);
+        }
+        catch (final Exception exception) {
+            _recordOffsetIndexes.remove(blockHeightBucket); // The record may have been partially written, so the file is re-indexed (and repaired) on its next access...
+            Logger.warn("Unable to write undo data for block: " + blockUndoData.blockHash, exception);
+        }
+    }
+
+    /**
+     * Returns the BlockUndoData for the Block, or null if it was not recorded.
+     */
+    public synchronized BlockUndoData getUndoData(final Sha256Hash blockHash, final Long blockHeight) {
+        if (_undoDataDirectory == null) { return null; }
+
+        final Long blockHeightBucket = _getBlockHeightBucket(blockHeight);
+        final HashMap<Sha256Hash, Long> recordOffsetIndex = _getRecordOffsetIndex(blockHeightBucket);
+        if (recordOffsetIndex == null) { return null; }
+
+        final Long recordOffset = recordOffsetIndex.get(blockHash);
+        if (recordOffset == null) { return null; }
+
+        final byte[] undoDataBytes;
+        final File undoFile = new File(_getUndoFilePath(blockHeightBucket));
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(undoFile, "r")) {
+            randomAccessFile.seek(recordOffset);
+            undoDataBytes = _readRecord(randomAccessFile);
+        }
+        catch (final Exception exception) {
+            Logger.warn("Unable to read undo data for block: " + blockHash, exception);
+            return null;
+        }
+
+        if (undoDataBytes == null) {
+            Logger.warn("Invalid undo data record for block: " + blockHash);
+            return null;
+        }
+
+        final BlockUndoDataInflater blockUndoDataInflater = new BlockUndoDataInflater();
+        return blockUndoDataInflater.fromBytes(undoDataBytes);
+    }
+
+    /**
+     * Deletes every undo file that only contains Blocks below the provided height.
+     */
+    public synchronized void removeUndoDataBefore(final Long blockHeight) {
+        if (_undoDataDirectory == null) { return; }
+
+        final long firstRetainedBucket = _getBlockHeightBucket(blockHeight);
+        for (long bucket = (firstRetainedBucket - 1L); bucket >= 0L; --bucket) {
+            final File undoFile = new File(_getUndoFilePath(bucket));
+            if (! undoFile.exists()) { continue; } // Buckets may be sparse (e.g. undo data was disabled for a while), so earlier files are still checked...
+
+            _recordOffsetIndexes.remove(bucket);
+            if (! undoFile.delete()) {
+                Logger.warn("Unable to delete undo file: " + undoFile.getPath());
+                return;
+            }
+        }
+    }
+
+    public String getUndoDataDirectory() {
+        return _undoDataDirectory;
+    }
+}
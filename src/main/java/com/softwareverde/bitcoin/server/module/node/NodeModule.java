@@ -18,9 +18,11 @@ import com.softwareverde.bitcoin.server.database.Database;
 import com.softwareverde.bitcoin.server.database.DatabaseConnection;
 import com.softwareverde.bitcoin.server.database.DatabaseConnectionFactory;
 import com.softwareverde.bitcoin.server.database.DatabaseMaintainer;
+import com.softwareverde.bitcoin.server.database.PreparedStatementCache;
 import com.softwareverde.bitcoin.server.database.cache.LocalDatabaseManagerCache;
 import com.softwareverde.bitcoin.server.database.cache.MasterDatabaseManagerCache;
 import com.softwareverde.bitcoin.server.database.cache.ReadOnlyLocalDatabaseManagerCache;
+import com.softwareverde.bitcoin.server.database.keyvalue.LogStructuredKeyValueStore;
 import com.softwareverde.bitcoin.server.database.pool.DatabaseConnectionPool;
 import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
 import com.softwareverde.bitcoin.server.message.type.node.address.BitcoinNodeIpAddress;
@@ -40,6 +42,7 @@ import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnod
 import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.FullNodeTransactionDatabaseManagerCore;
 import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.output.TransactionOutputDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.handler.*;
+import com.softwareverde.bitcoin.server.module.node.handler.block.CompactFilterRequestHandler;
 import com.softwareverde.bitcoin.server.module.node.handler.block.QueryBlockHeadersHandler;
 import com.softwareverde.bitcoin.server.module.node.handler.block.QueryBlocksHandler;
 import com.softwareverde.bitcoin.server.module.node.handler.block.RequestSpvBlockHandler;
@@ -51,12 +54,15 @@ import com.softwareverde.bitcoin.server.module.node.manager.banfilter.BanFilter;
 import com.softwareverde.bitcoin.server.module.node.manager.banfilter.BanFilterCore;
 import com.softwareverde.bitcoin.server.module.node.manager.banfilter.DisabledBanFilter;
 import com.softwareverde.bitcoin.server.module.node.rpc.NodeRpcHandler;
+import com.softwareverde.bitcoin.server.module.node.rpc.binary.NodeBinaryRpcHandler;
+import com.softwareverde.bitcoin.server.module.node.rpc.binary.NodeBinaryRpcMessage;
 import com.softwareverde.bitcoin.server.module.node.rpc.handler.*;
 import com.softwareverde.bitcoin.server.module.node.sync.*;
 import com.softwareverde.bitcoin.server.module.node.sync.block.BlockDownloader;
 import com.softwareverde.bitcoin.server.module.node.sync.bootstrap.HeadersBootstrapper;
 import com.softwareverde.bitcoin.server.module.node.sync.transaction.TransactionDownloader;
 import com.softwareverde.bitcoin.server.module.node.sync.transaction.TransactionProcessor;
+import com.softwareverde.bitcoin.server.module.node.utxo.UtxoSnapshotImporter;
 import com.softwareverde.bitcoin.server.node.BitcoinNode;
 import com.softwareverde.bitcoin.server.node.BitcoinNodeFactory;
 import com.softwareverde.bitcoin.transaction.Transaction;
@@ -100,6 +106,7 @@ public class NodeModule {
     protected final BinarySocketServer _socketServer;
     protected final NodeRpcHandler _nodeRpcHandler;
     protected final JsonSocketServer _jsonRpcSocketServer;
+    protected final BinarySocketServer _binaryRpcSocketServer;
     protected final BlockHeaderDownloader _blockHeaderDownloader;
     protected final BlockDownloader _blockDownloader;
     protected final TransactionDownloader _transactionDownloader;
@@ -108,7 +115,10 @@ public class NodeModule {
     protected final BlockchainBuilder _blockchainBuilder;
     protected final AddressProcessor _addressProcessor;
     protected final SlpTransactionProcessor _slpTransactionProcessor;
+    protected final BlockPruner _blockPruner;
+    protected final BlockFilterBackfiller _blockFilterBackfiller;
     protected final RequestDataHandler _requestDataHandler;
+    protected final LogStructuredKeyValueStore _blockCacheKeyValueStore;
 
     protected final NodeInitializer _nodeInitializer;
     protected final BanFilter _banFilter;
@@ -121,16 +131,13 @@ public class NodeModule {
 
     protected final MilliTimer _uptimeTimer = new MilliTimer();
     protected final Thread _databaseMaintenanceThread;
+    protected final CacheWarmer _cacheWarmer;
 
     protected final AtomicBoolean _isShuttingDown = new AtomicBoolean(false);
 
     protected void _warmUpCache() {
         Logger.info("[Warming Cache]");
-        final CacheWarmer cacheWarmer = new CacheWarmer();
-        final MasterDatabaseManagerCache masterDatabaseManagerCache = _environment.getMasterDatabaseManagerCache();
-        final Database database = _environment.getDatabase();
-        final DatabaseConnectionFactory databaseConnectionFactory = database.newConnectionFactory();
-        cacheWarmer.warmUpCache(masterDatabaseManagerCache, databaseConnectionFactory);
+        _cacheWarmer.start();
     }
 
     protected void _connectToAdditionalNodes() {
@@ -198,6 +205,11 @@ public class NodeModule {
         Logger.info("[Stopping Database Maintenance Thread]");
         _databaseMaintenanceThread.interrupt();
 
+        if (_cacheWarmer.isWarmingUp()) {
+            Logger.info("[Stopping Cache Warmer]");
+            _cacheWarmer.stop();
+        }
+
         if (_slpTransactionProcessor != null) {
             Logger.info("[Stopping SlpTransaction Processor]");
             _slpTransactionProcessor.stop();
@@ -206,6 +218,16 @@ public class NodeModule {
         Logger.info("[Stopping Addresses Processor]");
         _addressProcessor.stop();
 
+        if (_blockPruner != null) {
+            Logger.info("[Stopping Block Pruner]");
+            _blockPruner.stop();
+        }
+
+        if (_blockFilterBackfiller != null) {
+            Logger.info("[Stopping Block Filter Backfiller]");
+            _blockFilterBackfiller.stop();
+        }
+
         Logger.info("[Stopping Transaction Processor]");
         _transactionProcessor.stop();
 
@@ -230,7 +252,7 @@ public class NodeModule {
 
         if (_bitcoinProperties.isTransactionBloomFilterEnabled()) {
             Logger.info("[Saving Tx Bloom Filter]");
-            FullNodeTransactionDatabaseManagerCore.saveBloomFilter(_transactionBloomFilterFilename);
+            FullNodeTransactionDatabaseManagerCore.saveBloomFilter();
         }
 
         Logger.info("[Shutting Down Thread Server]");
@@ -242,8 +264,22 @@ public class NodeModule {
             _jsonRpcSocketServer.stop();
         }
 
+        if (_binaryRpcSocketServer != null) {
+            Logger.info("[Shutting Down Binary RPC Server]");
+            _binaryRpcSocketServer.stop();
+        }
+
         Logger.info("[Shutting Down Database]");
         final DatabaseConnectionPool databaseConnectionPool = _environment.getDatabaseConnectionPool();
+        final DatabaseConnectionPool readOnlyDatabaseConnectionPool = _environment.getReadOnlyDatabaseConnectionPool();
+        if (readOnlyDatabaseConnectionPool != databaseConnectionPool) {
+            try {
+                readOnlyDatabaseConnectionPool.close();
+            }
+            catch (final DatabaseException exception) {
+                Logger.debug(exception);
+            }
+        }
         try {
             databaseConnectionPool.close();
         }
@@ -258,6 +294,11 @@ public class NodeModule {
 
         try { _databaseMaintenanceThread.join(30000L); } catch (final InterruptedException exception) { }
 
+        if (_blockCacheKeyValueStore != null) {
+            Logger.info("[Closing Block Cache]");
+            _blockCacheKeyValueStore.close();
+        }
+
         Logger.flush();
 
         synchronized (_isShuttingDown) {
@@ -304,6 +345,16 @@ public class NodeModule {
         final DatabaseConnectionPool databaseConnectionPool = _environment.getDatabaseConnectionPool();
         final FullNodeDatabaseManagerFactory databaseManagerFactory = new FullNodeDatabaseManagerFactory(databaseConnectionPool, readOnlyDatabaseManagerCache);
 
+        final DatabaseConnectionPool readOnlyDatabaseConnectionPool = _environment.getReadOnlyDatabaseConnectionPool();
+        // NOTE: The readOnlyDatabaseManagerCache is shared with the primary; when maxReadReplicaBlockLag is greater than zero, a cached id may not exist on the replica yet...
+        final FullNodeDatabaseManagerFactory readOnlyDatabaseManagerFactory = new FullNodeDatabaseManagerFactory(readOnlyDatabaseConnectionPool, readOnlyDatabaseManagerCache); // Serves the explorer's queries, which may be routed to a read replica...
+
+        { // Initialize the CacheWarmer; the UTXO cache is warmed in the background once the node starts...
+            final Database database = _environment.getDatabase();
+            final DatabaseConnectionFactory databaseConnectionFactory = database.newConnectionFactory();
+            _cacheWarmer = new CacheWarmer(masterDatabaseManagerCache, databaseConnectionFactory);
+        }
+
         _banFilter = (bitcoinProperties.isBanFilterEnabled() ? new BanFilterCore(databaseManagerFactory) : new DisabledBanFilter());
 
         { // Ensure the data/cache directory exists...
@@ -361,12 +412,16 @@ public class NodeModule {
             public NodeFeatures getNodeFeatures() {
                 final NodeFeatures nodeFeatures = new NodeFeatures();
                 nodeFeatures.enableFeature(NodeFeatures.Feature.BITCOIN_CASH_ENABLED);
-                if (! bitcoinProperties.isTrimBlocksEnabled()) {
+                if ( (! bitcoinProperties.isTrimBlocksEnabled()) && (! bitcoinProperties.isPruningEnabled()) ) {
                     nodeFeatures.enableFeature(NodeFeatures.Feature.BLOCKCHAIN_ENABLED);
                 }
                 nodeFeatures.enableFeature(NodeFeatures.Feature.XTHIN_PROTOCOL_ENABLED);
                 nodeFeatures.enableFeature(NodeFeatures.Feature.BLOOM_CONNECTIONS_ENABLED);
                 nodeFeatures.enableFeature(NodeFeatures.Feature.BLOCKCHAIN_INDEX_ENABLED); // BitcoinVerde 2019-04-22
+                final BlockFilterBackfiller blockFilterBackfiller = _blockFilterBackfiller;
+                if ( (blockFilterBackfiller != null) && blockFilterBackfiller.filtersAreCurrent() ) { // Only advertised once every Block on the head blockchain has a filter...
+                    nodeFeatures.enableFeature(NodeFeatures.Feature.COMPACT_FILTERS_ENABLED);
+                }
                 return nodeFeatures;
             }
         };
@@ -375,14 +430,58 @@ public class NodeModule {
         { // Initialize the BlockCache...
             if (bitcoinProperties.isBlockCacheEnabled()) {
                 final String blockCacheDirectory = (bitcoinProperties.getDataDirectory() + "/" + BitcoinProperties.DATA_CACHE_DIRECTORY_NAME);
-                blockCache = new BlockCache(blockCacheDirectory, masterInflater);
+                if (Util.areEqual(BitcoinProperties.BLOCK_CACHE_STORAGE_ENGINE_LOG_STRUCTURED, bitcoinProperties.getBlockCacheStorageEngine())) {
+                    _blockCacheKeyValueStore = LogStructuredKeyValueStore.open(new File(blockCacheDirectory + "/" + BlockCache.KEY_VALUE_STORE_DIRECTORY_NAME));
+                    if (_blockCacheKeyValueStore != null) {
+                        blockCache = new BlockCache(_blockCacheKeyValueStore, masterInflater);
+                    }
+                    else {
+                        Logger.warn("Unable to open block cache; block caching is disabled.");
+                        blockCache = null;
+                    }
+                }
+                else {
+                    _blockCacheKeyValueStore = null;
+                    blockCache = new BlockCache(blockCacheDirectory, masterInflater);
+                }
             }
             else {
+                _blockCacheKeyValueStore = null;
                 blockCache = null;
             }
         }
 
+        final BlockFilterCache blockFilterCache;
+        { // Initialize the BlockFilterCache...
+            if (bitcoinProperties.areCompactBlockFiltersEnabled()) {
+                final String blockFilterCacheDirectory = (bitcoinProperties.getDataDirectory() + "/" + BitcoinProperties.DATA_CACHE_DIRECTORY_NAME + "/" + BlockFilterCache.FILTER_DIRECTORY_NAME);
+                blockFilterCache = new BlockFilterCache(blockFilterCacheDirectory);
+            }
+            else {
+                blockFilterCache = null;
+            }
+        }
+
+        final BlockUndoDataCache blockUndoDataCache;
+        { // Initialize the BlockUndoDataCache...
+            if (bitcoinProperties.isBlockUndoDataEnabled()) {
+                final String blockUndoDataDirectory = (bitcoinProperties.getDataDirectory() + "/" + BitcoinProperties.DATA_CACHE_DIRECTORY_NAME + "/" + BlockUndoDataCache.UNDO_DIRECTORY_NAME);
+                blockUndoDataCache = new BlockUndoDataCache(blockUndoDataDirectory);
+            }
+            else {
+                blockUndoDataCache = null;
+            }
+        }
+
         _requestDataHandler = new RequestDataHandler(databaseManagerFactory, blockCache);
+        { // Blocks included within an imported UtxoSnapshot are incomplete and are not served...
+            final String snapshotBlockHeightFilename = (bitcoinProperties.getDataDirectory() + "/" + BitcoinProperties.DATA_CACHE_DIRECTORY_NAME + "/" + UtxoSnapshotImporter.SNAPSHOT_BLOCK_HEIGHT_FILENAME);
+            final Long snapshotBlockHeight = UtxoSnapshotImporter.loadSnapshotBlockHeight(snapshotBlockHeightFilename);
+            if (snapshotBlockHeight > 0L) {
+                Logger.info("Blocks at or below the UTXO snapshot height " + snapshotBlockHeight + " will not be served.");
+            }
+            _requestDataHandler.setSnapshotBlockHeight(snapshotBlockHeight);
+        }
         final RequestDataHandlerMonitor requestDataHandler = RequestDataHandlerMonitor.wrap(_requestDataHandler);
         { // Initialize the monitor with transactions from the memory pool...
             Logger.info("[Loading RequestDataHandlerMonitor]");
@@ -422,6 +521,13 @@ public class NodeModule {
             nodeInitializerProperties.requestSpvBlocksCallback = new RequestSpvBlockHandler(databaseManagerFactory, spvUnconfirmedTransactionsHandler);
             nodeInitializerProperties.queryUnconfirmedTransactionsCallback = new QueryUnconfirmedTransactionsHandler(databaseManagerFactory);
 
+            if (blockFilterCache != null) {
+                final CompactFilterRequestHandler compactFilterRequestHandler = new CompactFilterRequestHandler(databaseManagerFactory, blockFilterCache);
+                nodeInitializerProperties.requestCompactFiltersCallback = compactFilterRequestHandler.getRequestCompactFiltersCallback();
+                nodeInitializerProperties.requestCompactFilterHeadersCallback = compactFilterRequestHandler.getRequestCompactFilterHeadersCallback();
+                nodeInitializerProperties.requestCompactFilterCheckpointCallback = compactFilterRequestHandler.getRequestCompactFilterCheckpointCallback();
+            }
+
             nodeInitializerProperties.requestPeersHandler = new BitcoinNode.RequestPeersHandler() {
                 @Override
                 public List<BitcoinNodeIpAddress> getConnectedPeers() {
@@ -479,6 +585,8 @@ public class NodeModule {
             blockProcessor = new BlockProcessor(databaseManagerFactory, masterDatabaseManagerCache, masterInflater, transactionValidatorFactory, _mutableNetworkTime, medianBlockTime, orphanedTransactionsCache);
             blockProcessor.setMaxThreadCount(bitcoinProperties.getMaxThreadCount());
             blockProcessor.setTrustedBlockHeight(bitcoinProperties.getTrustedBlockHeight());
+            blockProcessor.setBlockFilterCache(blockFilterCache);
+            blockProcessor.setBlockUndoDataCache(blockUndoDataCache);
         }
 
         { // Initialize the BlockDownloader...
@@ -497,7 +605,7 @@ public class NodeModule {
             _blockchainBuilder = new BlockchainBuilder(_bitcoinNodeManager, databaseManagerFactory, blockProcessor, _blockDownloader.getStatusMonitor(), blockDownloadRequester, _mainThreadPool);
         }
 
-        if (bitcoinProperties.isTrimBlocksEnabled()) {
+        if ( bitcoinProperties.isTrimBlocksEnabled() || bitcoinProperties.isPruningEnabled() ) {
             _slpTransactionProcessor = null;
             _addressProcessor = new AddressProcessor(databaseManagerFactory);
         }
@@ -516,6 +624,28 @@ public class NodeModule {
 
         final LocalDatabaseManagerCache localDatabaseCache = new LocalDatabaseManagerCache(masterDatabaseManagerCache);
         final BlockTrimmer blockTrimmer = new BlockTrimmer(databaseManagerFactory);
+        blockTrimmer.setBlockUndoDataCache(blockUndoDataCache);
+
+        if (bitcoinProperties.isPruningEnabled()) {
+            final String prunedBlockHeightFilename = (bitcoinProperties.getDataDirectory() + "/" + BitcoinProperties.DATA_CACHE_DIRECTORY_NAME + "/" + BlockPruner.PRUNED_BLOCK_HEIGHT_FILENAME);
+            _blockPruner = new BlockPruner(databaseManagerFactory, bitcoinProperties.getPruneBlockDepth(), prunedBlockHeightFilename);
+            _blockPruner.setBlockProcessor(blockProcessor);
+            _blockPruner.setBlockCache(blockCache);
+            _blockPruner.setBlockUndoDataCache(blockUndoDataCache);
+            _requestDataHandler.setBlockPruner(_blockPruner);
+        }
+        else {
+            _blockPruner = null;
+        }
+
+        if (blockFilterCache != null) {
+            _blockFilterBackfiller = new BlockFilterBackfiller(databaseManagerFactory, blockFilterCache);
+            _blockFilterBackfiller.setBlockProcessor(blockProcessor);
+            _blockFilterBackfiller.setBlockUndoDataCache(blockUndoDataCache);
+        }
+        else {
+            _blockFilterBackfiller = null;
+        }
 
         { // Set the synchronization elements to cascade to each component...
             _blockchainBuilder.setNewBlockProcessedCallback(new BlockchainBuilder.NewBlockProcessedCallback() {
@@ -529,7 +659,14 @@ public class NodeModule {
 
                     _addressProcessor.wakeUp();
 
-                    if (bitcoinProperties.isTrimBlocksEnabled()) {
+                    if (_blockFilterBackfiller != null) {
+                        _blockFilterBackfiller.wakeUp();
+                    }
+
+                    if (_blockPruner != null) {
+                        _blockPruner.wakeUp();
+                    }
+                    else if (bitcoinProperties.isTrimBlocksEnabled()) {
                         final Integer keepBlockCount = 144; // NOTE: Keeping the last days of blocks protects any non-malicious chain re-organization from failing...
                         if (blockHeight > keepBlockCount) {
                             try {
@@ -696,21 +833,25 @@ public class NodeModule {
                 statisticsContainer.averageTransactionsPerSecond = blockProcessor.getAverageTransactionsPerSecondContainer();
             }
 
+            final Integer binaryRpcPort = _bitcoinProperties.getBitcoinBinaryRpcPort();
+            final NodeBinaryRpcHandler binaryRpcHandler = (((binaryRpcPort != null) && (binaryRpcPort > 0)) ? new NodeBinaryRpcHandler(_rpcThreadPool, masterInflater) : null);
+
             final NodeRpcHandler rpcSocketServerHandler = new NodeRpcHandler(statisticsContainer, _rpcThreadPool, masterInflater);
             {
                 final ShutdownHandler shutdownHandler = new ShutdownHandler(mainThread, _blockHeaderDownloader, _blockDownloader, _blockchainBuilder, synchronizationStatusHandler);
                 final NodeHandler nodeHandler = new NodeHandler(_bitcoinNodeManager, _nodeInitializer);
-                final QueryAddressHandler queryAddressHandler = new QueryAddressHandler(databaseManagerFactory);
+                final QueryAddressHandler queryAddressHandler = new QueryAddressHandler(readOnlyDatabaseManagerFactory);
                 final ThreadPoolInquisitor threadPoolInquisitor = new ThreadPoolInquisitor(_mainThreadPool);
+                final UtxoCacheInquisitor utxoCacheInquisitor = new UtxoCacheInquisitor(_cacheWarmer);
 
                 final BlockValidator blockValidator = blockValidatorFactory.newBlockValidator(databaseManagerFactory, transactionValidatorFactory, _mutableNetworkTime, medianBlockTime);
-                final RpcDataHandler rpcDataHandler = new RpcDataHandler(databaseManagerFactory, _transactionDownloader, _blockDownloader, blockValidator, transactionValidatorFactory, _mutableNetworkTime, medianBlockTime, blockCache);
+                final RpcDataHandler rpcDataHandler = new RpcDataHandler(databaseManagerFactory, readOnlyDatabaseManagerFactory, _transactionDownloader, _blockDownloader, blockValidator, transactionValidatorFactory, _mutableNetworkTime, medianBlockTime, blockCache);
 
-                final MetadataHandler metadataHandler = new MetadataHandler(databaseManagerFactory);
-                final QueryBlockchainHandler queryBlockchainHandler = new QueryBlockchainHandler(databaseConnectionPool);
+                final MetadataHandler metadataHandler = new MetadataHandler(readOnlyDatabaseManagerFactory);
+                final QueryBlockchainHandler queryBlockchainHandler = new QueryBlockchainHandler(readOnlyDatabaseConnectionPool);
 
                 final ServiceInquisitor serviceInquisitor = new ServiceInquisitor();
-                for (final SleepyService sleepyService : new SleepyService[]{ _addressProcessor, _slpTransactionProcessor, _transactionProcessor, _transactionDownloader, _blockchainBuilder, _blockDownloader, _blockHeaderDownloader }) {
+                for (final SleepyService sleepyService : new SleepyService[]{ _addressProcessor, _slpTransactionProcessor, _blockPruner, _blockFilterBackfiller, _transactionProcessor, _transactionDownloader, _blockchainBuilder, _blockDownloader, _blockHeaderDownloader }) {
                     if (sleepyService != null) {
                         final Class<?> clazz = sleepyService.getClass();
                         final String serviceName = clazz.getSimpleName();
@@ -735,20 +876,40 @@ public class NodeModule {
                 rpcSocketServerHandler.setQueryAddressHandler(queryAddressHandler);
                 rpcSocketServerHandler.setThreadPoolInquisitor(threadPoolInquisitor);
                 rpcSocketServerHandler.setServiceInquisitor(serviceInquisitor);
+                rpcSocketServerHandler.setUtxoCacheInquisitor(utxoCacheInquisitor);
+                if (_blockPruner != null) {
+                    rpcSocketServerHandler.setPruneInquisitor(new PruneInquisitor(_blockPruner));
+                    rpcDataHandler.setBlockPruner(_blockPruner);
+                }
                 rpcSocketServerHandler.setDataHandler(rpcDataHandler);
                 rpcSocketServerHandler.setMetadataHandler(metadataHandler);
                 rpcSocketServerHandler.setQueryBlockchainHandler(queryBlockchainHandler);
                 rpcSocketServerHandler.setLogLevelSetter(logLevelSetter);
+
+                if (binaryRpcHandler != null) {
+                    binaryRpcHandler.setDataHandler(rpcDataHandler);
+                    rpcSocketServerHandler.setBinaryRpcHandler(binaryRpcHandler);
+                }
             }
 
             final JsonSocketServer jsonRpcSocketServer = new JsonSocketServer(rpcPort, _rpcThreadPool);
             jsonRpcSocketServer.setSocketConnectedCallback(rpcSocketServerHandler);
             _nodeRpcHandler = rpcSocketServerHandler;
             _jsonRpcSocketServer = jsonRpcSocketServer;
+
+            if (binaryRpcHandler != null) {
+                final BinarySocketServer binaryRpcSocketServer = new BinarySocketServer(binaryRpcPort, NodeBinaryRpcMessage.BINARY_PACKET_FORMAT, _rpcThreadPool);
+                binaryRpcSocketServer.setSocketConnectedCallback(binaryRpcHandler);
+                _binaryRpcSocketServer = binaryRpcSocketServer;
+            }
+            else {
+                _binaryRpcSocketServer = null;
+            }
         }
         else {
             _nodeRpcHandler = null;
             _jsonRpcSocketServer = null;
+            _binaryRpcSocketServer = null;
         }
 
         { // Initialize Transaction Relay...
@@ -791,6 +952,11 @@ public class NodeModule {
                         try {
                             Thread.sleep(analyzeEveryMilliseconds);
                             databaseMaintainer.analyzeTables();
+
+                            if (_blockCacheKeyValueStore != null) {
+                                final Long reclaimedByteCount = _blockCacheKeyValueStore.compact();
+                                Logger.debug("Compacted block cache; reclaimed " + reclaimedByteCount + " bytes.");
+                            }
                         }
                         catch (final InterruptedException exception) { break; }
                     }
@@ -887,6 +1053,11 @@ public class NodeModule {
             Logger.warn("Bitcoin RPC Server not started.");
         }
 
+        if (_binaryRpcSocketServer != null) {
+            Logger.info("[Starting Binary RPC Server]");
+            _binaryRpcSocketServer.start();
+        }
+
         Logger.info("[Starting Socket Server]");
         _socketServer.start();
 
@@ -915,6 +1086,16 @@ public class NodeModule {
             _slpTransactionProcessor.start();
         }
 
+        if (_blockPruner != null) {
+            Logger.info("[Started Block Pruner]");
+            _blockPruner.start();
+        }
+
+        if (_blockFilterBackfiller != null) {
+            Logger.info("[Started Block Filter Backfiller]");
+            _blockFilterBackfiller.start();
+        }
+
         if (! _bitcoinProperties.skipNetworking()) {
             Logger.info("[Connecting To Peers]");
             _connectToAdditionalNodes();
@@ -934,6 +1115,7 @@ public class NodeModule {
             Logger.debug("Alive Connections Count: " + databaseConnectionPool.getAliveConnectionCount());
             Logger.debug("Buffered Connections Count: " + databaseConnectionPool.getCurrentPoolSize());
             Logger.debug("In-Use Connections Count: " + databaseConnectionPool.getInUseConnectionCount());
+            Logger.debug("Prepared Statement Cache Hit: " + PreparedStatementCache.getHitCount() + " vs " + PreparedStatementCache.getMissCount());
 
             Logger.flush();
 
@@ -43,6 +43,7 @@ public interface AddressDatabaseManager {
     AddressId getAddressId(Address address) throws DatabaseException;
     List<SpendableTransactionOutput> getSpendableTransactionOutputs(BlockchainSegmentId blockchainSegmentId, AddressId addressId) throws DatabaseException;
     List<TransactionId> getTransactionIds(BlockchainSegmentId blockchainSegmentId, AddressId addressId, Boolean includeUnconfirmedTransactions) throws DatabaseException;
+    List<AddressTransaction> getAddressTransactions(BlockchainSegmentId blockchainSegmentId, AddressId addressId, Boolean includeUnconfirmedTransactions) throws DatabaseException;
     List<TransactionId> getTransactionIdsSendingTo(BlockchainSegmentId blockchainSegmentId, AddressId addressId, Boolean includeUnconfirmedTransactions) throws DatabaseException;
     List<TransactionId> getTransactionIdsSpendingFrom(BlockchainSegmentId blockchainSegmentId, AddressId addressId, Boolean includeUnconfirmedTransactions) throws DatabaseException;
     Long getAddressBalance(BlockchainSegmentId blockchainSegmentId, AddressId addressId) throws DatabaseException;
@@ -0,0 +1,42 @@
+package com.softwareverde.bitcoin.server.module.node.database.address;
+
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.transaction.TransactionId;
+
+import java.util.Comparator;
+
+/**
+ * A Transaction sending to or spending from an Address, along with where it was mined on the requested blockchain.
+ *  blockId and blockHeight are null if the Transaction is unconfirmed.
+ */
+public class AddressTransaction {
+    /**
+     * Orders unconfirmed Transactions first, then by descending block height; ties are ordered by descending TransactionId.
+     */
+    public static final Comparator<AddressTransaction> NEWEST_FIRST_COMPARATOR = new Comparator<AddressTransaction>() {
+        @Override
+        public int compare(final AddressTransaction addressTransaction0, final AddressTransaction addressTransaction1) {
+            final long blockHeight0 = (addressTransaction0.isMined() ? addressTransaction0.blockHeight : Long.MAX_VALUE);
+            final long blockHeight1 = (addressTransaction1.isMined() ? addressTransaction1.blockHeight : Long.MAX_VALUE);
+            if (blockHeight0 != blockHeight1) {
+                return Long.compare(blockHeight1, blockHeight0);
+            }
+
+            return Long.compare(addressTransaction1.transactionId.longValue(), addressTransaction0.transactionId.longValue());
+        }
+    };
+
+    public final TransactionId transactionId;
+    public final BlockId blockId;
+    public final Long blockHeight;
+
+    public AddressTransaction(final TransactionId transactionId, final BlockId blockId, final Long blockHeight) {
+        this.transactionId = transactionId;
+        this.blockId = blockId;
+        this.blockHeight = blockHeight;
+    }
+
+    public Boolean isMined() {
+        return (this.blockId != null);
+    }
+}
@@ -9,13 +9,11 @@ import com.softwareverde.bitcoin.server.database.cache.DatabaseManagerCache;
 import com.softwareverde.bitcoin.server.database.query.BatchedInsertQuery;
 import com.softwareverde.bitcoin.server.database.query.Query;
 import com.softwareverde.bitcoin.server.module.node.database.address.AddressDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.address.AddressTransaction;
 import com.softwareverde.bitcoin.server.module.node.database.address.MutableSpendableTransactionOutput;
 import com.softwareverde.bitcoin.server.module.node.database.address.SpendableTransactionOutput;
-import com.softwareverde.bitcoin.server.module.node.database.block.BlockRelationship;
-import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.transaction.TransactionDatabaseManager;
-import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.FullNodeTransactionDatabaseManager;
 import com.softwareverde.bitcoin.slp.SlpTokenId;
 import com.softwareverde.bitcoin.transaction.TransactionId;
 import com.softwareverde.bitcoin.transaction.input.TransactionInputId;
@@ -34,8 +32,14 @@ import com.softwareverde.logging.Logger;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 public class FullNodeAddressDatabaseManager implements AddressDatabaseManager {
+    protected static final Integer MAX_IN_CLAUSE_ITEM_COUNT = 1024;
+
+    protected static final String SENDING_TO_QUERY = "SELECT transaction_outputs.transaction_id FROM locking_scripts INNER JOIN transaction_outputs ON transaction_outputs.id = locking_scripts.transaction_output_id WHERE locking_scripts.address_id = ?";
+    protected static final String SPENDING_FROM_QUERY = "SELECT transaction_inputs.transaction_id FROM locking_scripts INNER JOIN transaction_inputs ON transaction_inputs.previous_transaction_output_id = locking_scripts.transaction_output_id WHERE locking_scripts.address_id = ?";
+
     protected final FullNodeDatabaseManager _databaseManager;
 
     protected AddressId _getAddressId(final String addressString) throws DatabaseException {
@@ -62,129 +66,182 @@ public class FullNodeAddressDatabaseManager implements AddressDatabaseManager {
         return addressId;
     }
 
-    protected List<TransactionId> _getTransactionIdsSendingTo(final BlockchainSegmentId blockchainSegmentId, final AddressId addressId, final Boolean includeUnconfirmedTransactions) throws DatabaseException {
-        final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
-        final FullNodeTransactionDatabaseManager transactionDatabaseManager = _databaseManager.getTransactionDatabaseManager();
+    protected static List<List<TransactionId>> _toBatches(final Iterable<TransactionId> transactionIds) {
+        final MutableList<List<TransactionId>> batches = new MutableList<List<TransactionId>>();
 
-        final java.util.List<Row> rows = databaseConnection.query(
-            // Include Transactions that send to the Address...
-            new Query("SELECT transaction_outputs.transaction_id FROM transaction_outputs INNER JOIN locking_scripts ON transaction_outputs.id = locking_scripts.transaction_output_id WHERE locking_scripts.address_id = ? GROUP BY transaction_outputs.transaction_id")
-                .setParameter(addressId)
-        );
+        MutableList<TransactionId> batch = new MutableList<TransactionId>(MAX_IN_CLAUSE_ITEM_COUNT);
+        for (final TransactionId transactionId : transactionIds) {
+            batch.add(transactionId);
+            if (batch.getSize() >= MAX_IN_CLAUSE_ITEM_COUNT) {
+                batches.add(batch);
+                batch = new MutableList<TransactionId>(MAX_IN_CLAUSE_ITEM_COUNT);
+            }
+        }
+        if (! batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        return batches;
+    }
 
-        final HashSet<TransactionId> transactionIdSet = new HashSet<TransactionId>(rows.size());
+    protected static List<TransactionId> _toTransactionIds(final java.util.List<Row> rows) {
+        final LinkedHashSet<TransactionId> transactionIds = new LinkedHashSet<TransactionId>(rows.size());
         for (final Row row : rows) {
-            final TransactionId transactionId = TransactionId.wrap(row.getLong("transaction_id"));
+            transactionIds.add(TransactionId.wrap(row.getLong("transaction_id")));
+        }
+        return new ImmutableList<TransactionId>(transactionIds);
+    }
+
+    /**
+     * Returns the AddressTransaction for each of the provided Transactions that is mined within a Block connected to blockchainSegmentId,
+     *  or, if includeUnconfirmedTransactions is set, that is within the mempool.  Transactions that are neither are excluded from the returned map.
+     *  Transactions are resolved in batches, so the number of queries does not grow with each Transaction.
+     */
+    protected HashMap<TransactionId, AddressTransaction> _getAddressTransactions(final BlockchainSegmentId blockchainSegmentId, final Iterable<TransactionId> transactionIds, final Boolean includeUnconfirmedTransactions) throws DatabaseException {
+        final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
+
+        final HashMap<TransactionId, AddressTransaction> addressTransactions = new HashMap<TransactionId, AddressTransaction>();
+        for (final List<TransactionId> batch : _toBatches(transactionIds)) {
+            final String inClause = DatabaseUtil.createInClause(batch);
+
+            { // Include Transactions mined within a Block that is connected to the requested chain...
+                final java.util.List<Row> rows = databaseConnection.query(
+                    new Query("SELECT block_transactions.transaction_id, blocks.id AS block_id, blocks.block_height FROM block_transactions INNER JOIN blocks ON blocks.id = block_transactions.block_id INNER JOIN blockchain_segments ON blockchain_segments.id = blocks.blockchain_segment_id INNER JOIN blockchain_segments AS chain_segment ON chain_segment.id = ? WHERE block_transactions.transaction_id IN (" + inClause + ") AND ((blockchain_segments.nested_set_left <= chain_segment.nested_set_left AND blockchain_segments.nested_set_right >= chain_segment.nested_set_right) OR (blockchain_segments.nested_set_left >= chain_segment.nested_set_left AND blockchain_segments.nested_set_right <= chain_segment.nested_set_right))")
+                        .setParameter(blockchainSegmentId)
+                );
+                for (final Row row : rows) {
+                    final TransactionId transactionId = TransactionId.wrap(row.getLong("transaction_id"));
+                    if (addressTransactions.containsKey(transactionId)) { continue; }
 
-            final BlockId blockId = transactionDatabaseManager.getBlockId(blockchainSegmentId, transactionId);
-            if (blockId == null) {
-                if (! includeUnconfirmedTransactions) { continue; }
-                else {
-                    final Boolean isUnconfirmedTransaction = transactionDatabaseManager.isUnconfirmedTransaction(transactionId);
-                    if (! isUnconfirmedTransaction) { continue; }
+                    final BlockId blockId = BlockId.wrap(row.getLong("block_id"));
+                    final Long blockHeight = row.getLong("block_height");
+                    addressTransactions.put(transactionId, new AddressTransaction(transactionId, blockId, blockHeight));
                 }
             }
 
-            transactionIdSet.add(transactionId);
+            if (includeUnconfirmedTransactions) { // Include Transactions within the mempool...
+                final java.util.List<Row> rows = databaseConnection.query(
+                    new Query("SELECT transaction_id FROM unconfirmed_transactions WHERE transaction_id IN (" + inClause + ")")
+                );
+                for (final Row row : rows) {
+                    final TransactionId transactionId = TransactionId.wrap(row.getLong("transaction_id"));
+                    if (addressTransactions.containsKey(transactionId)) { continue; }
+
+                    addressTransactions.put(transactionId, new AddressTransaction(transactionId, null, null));
+                }
+            }
         }
 
-        return new ImmutableList<TransactionId>(transactionIdSet);
+        return addressTransactions;
+    }
+
+    protected List<TransactionId> _filterTransactionIds(final BlockchainSegmentId blockchainSegmentId, final List<TransactionId> transactionIds, final Boolean includeUnconfirmedTransactions) throws DatabaseException {
+        final HashMap<TransactionId, AddressTransaction> addressTransactions = _getAddressTransactions(blockchainSegmentId, transactionIds, includeUnconfirmedTransactions);
+
+        final ImmutableListBuilder<TransactionId> filteredTransactionIds = new ImmutableListBuilder<TransactionId>(addressTransactions.size());
+        for (final TransactionId transactionId : transactionIds) {
+            if (addressTransactions.containsKey(transactionId)) {
+                filteredTransactionIds.add(transactionId);
+            }
+        }
+        return filteredTransactionIds.build();
+    }
+
+    protected List<TransactionId> _getTransactionIdsSendingTo(final BlockchainSegmentId blockchainSegmentId, final AddressId addressId, final Boolean includeUnconfirmedTransactions) throws DatabaseException {
+        final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
+
+        final java.util.List<Row> rows = databaseConnection.query(
+            new Query(SENDING_TO_QUERY)
+                .setParameter(addressId)
+        );
+
+        return _filterTransactionIds(blockchainSegmentId, _toTransactionIds(rows), includeUnconfirmedTransactions);
     }
 
     protected List<TransactionId> _getTransactionIdsSpendingFrom(final BlockchainSegmentId blockchainSegmentId, final AddressId addressId, final Boolean includeUnconfirmedTransactions) throws DatabaseException {
         final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
-        final FullNodeTransactionDatabaseManager transactionDatabaseManager = _databaseManager.getTransactionDatabaseManager();
 
         final java.util.List<Row> rows = databaseConnection.query(
-            // Include Transactions that spend from the Address...
-            new Query("SELECT transaction_inputs.transaction_id FROM transaction_outputs INNER JOIN locking_scripts ON transaction_outputs.id = locking_scripts.transaction_output_id INNER JOIN transaction_inputs ON transaction_inputs.previous_transaction_output_id = transaction_outputs.id WHERE locking_scripts.address_id = ? GROUP BY transaction_inputs.transaction_id")
+            new Query(SPENDING_FROM_QUERY)
                 .setParameter(addressId)
         );
 
-        final HashSet<TransactionId> transactionIdSet = new HashSet<TransactionId>(rows.size());
-        for (final Row row : rows) {
-            final TransactionId transactionId = TransactionId.wrap(row.getLong("transaction_id"));
+        return _filterTransactionIds(blockchainSegmentId, _toTransactionIds(rows), includeUnconfirmedTransactions);
+    }
 
-            final BlockId blockId = transactionDatabaseManager.getBlockId(blockchainSegmentId, transactionId);
-            if (blockId == null) {
-                if (! includeUnconfirmedTransactions) { continue; }
-                else {
-                    final Boolean isUnconfirmedTransaction = transactionDatabaseManager.isUnconfirmedTransaction(transactionId);
-                    if (! isUnconfirmedTransaction) { continue; }
-                }
-            }
+    /**
+     * Returns the Transactions that either send to or spend from the Address, ordered by AddressTransaction.NEWEST_FIRST_COMPARATOR.
+     *  Both directions are resolved with a single UNION query, which only touches the locking_scripts, transaction_outputs, and transaction_inputs indexes.
+     */
+    protected List<AddressTransaction> _getAddressTransactions(final BlockchainSegmentId blockchainSegmentId, final AddressId addressId, final Boolean includeUnconfirmedTransactions) throws DatabaseException {
+        final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
 
-            transactionIdSet.add(transactionId);
-        }
+        final java.util.List<Row> rows = databaseConnection.query(
+            new Query(SENDING_TO_QUERY + " UNION " + SPENDING_FROM_QUERY)
+                .setParameter(addressId)
+                .setParameter(addressId)
+        );
+        if (rows.isEmpty()) { return new MutableList<AddressTransaction>(0); }
 
-        return new ImmutableList<TransactionId>(transactionIdSet);
+        final List<TransactionId> transactionIds = _toTransactionIds(rows);
+        final HashMap<TransactionId, AddressTransaction> addressTransactionMap = _getAddressTransactions(blockchainSegmentId, transactionIds, includeUnconfirmedTransactions);
+
+        final MutableList<AddressTransaction> addressTransactions = new MutableList<AddressTransaction>(addressTransactionMap.values());
+        addressTransactions.sort(AddressTransaction.NEWEST_FIRST_COMPARATOR);
+        return addressTransactions;
     }
 
     protected List<SpendableTransactionOutput> _getAddressOutputs(final BlockchainSegmentId blockchainSegmentId, final AddressId addressId) throws DatabaseException {
         final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
-        final FullNodeTransactionDatabaseManager transactionDatabaseManager = _databaseManager.getTransactionDatabaseManager();
-        final BlockHeaderDatabaseManager blockHeaderDatabaseManager = _databaseManager.getBlockHeaderDatabaseManager();
 
         final java.util.List<Row> rows = databaseConnection.query(
-            new Query("SELECT transactions.id AS transaction_id, transaction_outputs.id AS transaction_output_id, transaction_outputs.amount FROM transactions INNER JOIN transaction_outputs ON transactions.id = transaction_outputs.transaction_id INNER JOIN locking_scripts ON transaction_outputs.id = locking_scripts.transaction_output_id WHERE locking_scripts.address_id = ?")
+            new Query("SELECT transaction_outputs.transaction_id, transaction_outputs.id AS transaction_output_id, transaction_outputs.amount FROM locking_scripts INNER JOIN transaction_outputs ON transaction_outputs.id = locking_scripts.transaction_output_id WHERE locking_scripts.address_id = ?")
                 .setParameter(addressId)
         );
         if (rows.isEmpty()) { return new MutableList<SpendableTransactionOutput>(); }
 
-        final MutableList<SpendableTransactionOutput> spendableTransactionOutputs = new MutableList<SpendableTransactionOutput>(rows.size());
+        final java.util.List<Row> spendingRows = databaseConnection.query(
+            new Query("SELECT transaction_inputs.id AS transaction_input_id, transaction_inputs.transaction_id, transaction_inputs.previous_transaction_output_id FROM locking_scripts INNER JOIN transaction_inputs ON transaction_inputs.previous_transaction_output_id = locking_scripts.transaction_output_id WHERE locking_scripts.address_id = ?")
+                .setParameter(addressId)
+        );
 
+        final HashSet<TransactionId> transactionIds = new HashSet<TransactionId>(rows.size() + spendingRows.size());
         for (final Row row : rows) {
-            final TransactionId transactionId = TransactionId.wrap(row.getLong("transaction_id"));
-            final TransactionOutputId transactionOutputId = TransactionOutputId.wrap(row.getLong("transaction_output_id"));
-            final Long amount = row.getLong("amount");
+            transactionIds.add(TransactionId.wrap(row.getLong("transaction_id")));
+        }
+        for (final Row row : spendingRows) {
+            transactionIds.add(TransactionId.wrap(row.getLong("transaction_id")));
+        }
 
-            final BlockId blockId = transactionDatabaseManager.getBlockId(blockchainSegmentId, transactionId);
+        // Transactions that are neither mined on the chain nor within the mempool are excluded; this applies to both the outputs and their spenders...
+        final HashMap<TransactionId, AddressTransaction> addressTransactions = _getAddressTransactions(blockchainSegmentId, transactionIds, true);
 
-            final MutableSpendableTransactionOutput spendableTransactionOutput = new MutableSpendableTransactionOutput();
-            {
-                spendableTransactionOutput.setBlockId(blockId);
-                spendableTransactionOutput.setTransactionId(transactionId);
-                spendableTransactionOutput.setTransactionOutputId(transactionOutputId);
-                spendableTransactionOutput.setAmount(amount);
-                spendableTransactionOutput.setIsUnconfirmed(transactionDatabaseManager.isUnconfirmedTransaction(transactionId));
-            }
+        final HashMap<TransactionOutputId, TransactionInputId> spendingTransactionInputIds = new HashMap<TransactionOutputId, TransactionInputId>(spendingRows.size());
+        for (final Row row : spendingRows) {
+            final TransactionId spendingTransactionId = TransactionId.wrap(row.getLong("transaction_id"));
+            if (! addressTransactions.containsKey(spendingTransactionId)) { continue; }
 
-            if (spendableTransactionOutput.isMined()) {
-                final Boolean transactionWasMinedOnChain = blockHeaderDatabaseManager.isBlockConnectedToChain(blockId, blockchainSegmentId, BlockRelationship.ANY);
-                if (! transactionWasMinedOnChain) { continue; }
-            }
-            else if (! spendableTransactionOutput.isUnconfirmed()) {
-                continue; // Do not include transactions that are neither mined nor in the mempool...
-            }
+            final TransactionOutputId transactionOutputId = TransactionOutputId.wrap(row.getLong("previous_transaction_output_id"));
+            final TransactionInputId transactionInputId = TransactionInputId.wrap(row.getLong("transaction_input_id"));
+            spendingTransactionInputIds.put(transactionOutputId, transactionInputId);
+        }
 
-            {
-                final java.util.List<Row> rowsSpendingTransactionOutput = databaseConnection.query(
-                    new Query("SELECT transactions.id AS transaction_id, transaction_inputs.id AS transaction_input_id FROM transaction_inputs INNER JOIN transactions ON transactions.id = transaction_inputs.transaction_id WHERE previous_transaction_output_id = ?")
-                        .setParameter(spendableTransactionOutput.getTransactionOutputId())
-                );
+        final MutableList<SpendableTransactionOutput> spendableTransactionOutputs = new MutableList<SpendableTransactionOutput>(rows.size());
+        for (final Row row : rows) {
+            final TransactionId transactionId = TransactionId.wrap(row.getLong("transaction_id"));
+            final AddressTransaction addressTransaction = addressTransactions.get(transactionId);
+            if (addressTransaction == null) { continue; }
 
-                for (final Row rowSpendingTransactionOutput : rowsSpendingTransactionOutput) {
-                    final BlockId spendingBlockId = transactionDatabaseManager.getBlockId(blockchainSegmentId, transactionId);
-                    // final TransactionId spendingTransactionId = TransactionId.wrap(rowSpendingTransactionOutput.getLong("transaction_id"));
-                    final TransactionInputId spendingTransactionInputId = TransactionInputId.wrap(rowSpendingTransactionOutput.getLong("transaction_input_id"));
-
-                    final Boolean spendingTransactionIsMined = (spendingBlockId != null);
-
-                    final Boolean transactionOutputHasBeenSpent;
-                    if (! spendingTransactionIsMined) {
-                        transactionOutputHasBeenSpent = true;
-                    }
-                    else {
-                        final Boolean spendingTransactionIsMinedOnMainChain = (blockHeaderDatabaseManager.isBlockConnectedToChain(spendingBlockId, blockchainSegmentId, BlockRelationship.ANY));
-                        transactionOutputHasBeenSpent = spendingTransactionIsMinedOnMainChain;
-                    }
-
-                    if (transactionOutputHasBeenSpent) {
-                        spendableTransactionOutput.setSpentByTransactionInputId(spendingTransactionInputId);
-                        break;
-                    }
-                }
-            }
+            final TransactionOutputId transactionOutputId = TransactionOutputId.wrap(row.getLong("transaction_output_id"));
+            final Long amount = row.getLong("amount");
+
+            final MutableSpendableTransactionOutput spendableTransactionOutput = new MutableSpendableTransactionOutput();
+            spendableTransactionOutput.setBlockId(addressTransaction.blockId);
+            spendableTransactionOutput.setTransactionId(transactionId);
+            spendableTransactionOutput.setTransactionOutputId(transactionOutputId);
+            spendableTransactionOutput.setAmount(amount);
+            spendableTransactionOutput.setIsUnconfirmed(! addressTransaction.isMined());
+            spendableTransactionOutput.setSpentByTransactionInputId(spendingTransactionInputIds.get(transactionOutputId));
 
             spendableTransactionOutputs.add(spendableTransactionOutput);
         }
@@ -338,31 +395,22 @@ public class FullNodeAddressDatabaseManager implements AddressDatabaseManager {
      * Returns a set of TransactionIds that either spend from or send to the provided AddressId.
      */
     public List<TransactionId> getTransactionIds(final BlockchainSegmentId blockchainSegmentId, final AddressId addressId, final Boolean includeUnconfirmedTransactions) throws DatabaseException {
-        final List<TransactionId> transactionIdsIn = _getTransactionIdsSendingTo(blockchainSegmentId, addressId, includeUnconfirmedTransactions);
-        final List<TransactionId> transactionIdsOut = _getTransactionIdsSpendingFrom(blockchainSegmentId, addressId, includeUnconfirmedTransactions);
+        final List<AddressTransaction> addressTransactions = _getAddressTransactions(blockchainSegmentId, addressId, includeUnconfirmedTransactions);
 
-        final int totalTransactionCount = (transactionIdsIn.getSize() + transactionIdsOut.getSize());
-
-        final HashSet<TransactionId> existingTransactions = new HashSet<TransactionId>(totalTransactionCount);
-        final ImmutableListBuilder<TransactionId> transactionIds = new ImmutableListBuilder<TransactionId>(totalTransactionCount);
-
-        for (final TransactionId transactionId : transactionIdsIn) {
-            final boolean isUnique = existingTransactions.add(transactionId);
-            if (isUnique) {
-                transactionIds.add(transactionId);
-            }
-        }
-
-        for (final TransactionId transactionId : transactionIdsOut) {
-            final boolean isUnique = existingTransactions.add(transactionId);
-            if (isUnique) {
-                transactionIds.add(transactionId);
-            }
+        final ImmutableListBuilder<TransactionId> transactionIds = new ImmutableListBuilder<TransactionId>(addressTransactions.getSize());
+        for (final AddressTransaction addressTransaction : addressTransactions) {
+            transactionIds.add(addressTransaction.transactionId);
         }
-
         return transactionIds.build();
     }
 
+    /**
+     * Returns the Transactions that either spend from or send to the provided AddressId, unconfirmed Transactions first and then by descending block height.
+     */
+    public List<AddressTransaction> getAddressTransactions(final BlockchainSegmentId blockchainSegmentId, final AddressId addressId, final Boolean includeUnconfirmedTransactions) throws DatabaseException {
+        return _getAddressTransactions(blockchainSegmentId, addressId, includeUnconfirmedTransactions);
+    }
+
     /**
      * Returns a set of TransactionIds that send to the provided AddressId.
      */
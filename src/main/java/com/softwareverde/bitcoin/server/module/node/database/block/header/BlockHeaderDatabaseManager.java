@@ -37,6 +37,7 @@ public interface BlockHeaderDatabaseManager {
     Sha256Hash getBlockHash(BlockId blockId) throws DatabaseException;
     List<Sha256Hash> getBlockHashes(List<BlockId> blockIds) throws DatabaseException;
     BlockId getAncestorBlockId(BlockId blockId, Integer parentCount) throws DatabaseException;
+    List<BlockId> getAncestorBlockIds(BlockId blockId, Integer blockCount) throws DatabaseException;
     MutableMedianBlockTime initializeMedianBlockTime() throws DatabaseException;
     MutableMedianBlockTime initializeMedianBlockHeaderTime() throws DatabaseException;
     MedianBlockTime calculateMedianBlockTime(BlockId blockId) throws DatabaseException;
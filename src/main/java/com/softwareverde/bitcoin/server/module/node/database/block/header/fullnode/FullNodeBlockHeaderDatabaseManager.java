@@ -16,6 +16,7 @@ import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
 import com.softwareverde.bitcoin.merkleroot.MerkleRoot;
 import com.softwareverde.bitcoin.merkleroot.MutableMerkleRoot;
 import com.softwareverde.bitcoin.server.database.DatabaseConnection;
+import com.softwareverde.bitcoin.server.database.cache.CachedBlockHeader;
 import com.softwareverde.bitcoin.server.database.cache.DatabaseManagerCache;
 import com.softwareverde.bitcoin.server.database.query.BatchedInsertQuery;
 import com.softwareverde.bitcoin.server.database.query.Query;
@@ -36,40 +37,129 @@ import java.util.HashMap;
 
 public class FullNodeBlockHeaderDatabaseManager implements BlockHeaderDatabaseManager {
 
+    protected static final String BLOCK_HEADER_QUERY = "SELECT blocks.*, previous_blocks.hash AS previous_block_hash FROM blocks LEFT OUTER JOIN blocks AS previous_blocks ON previous_blocks.id = blocks.previous_block_id";
+
+    protected final DatabaseManager _databaseManager;
+
+    public FullNodeBlockHeaderDatabaseManager(final DatabaseManager databaseManager) {
+        _databaseManager = databaseManager;
+    }
+
     /**
-     * Initializes a MedianBlockTime from the database.
-     *  NOTE: The headBlockHash is included within the MedianBlockTime.
+     * Initializes a MedianBlockTime from the BlockHeader cache (loading any uncached BlockHeaders from the database).
+     *  NOTE: The headBlockId is included within the MedianBlockTime.
      */
-    protected static MutableMedianBlockTime _newInitializedMedianBlockTime(final BlockHeaderDatabaseManager blockDatabaseManager, final Sha256Hash headBlockHash) throws DatabaseException {
+    protected MutableMedianBlockTime _newInitializedMedianBlockTime(final BlockId headBlockId) throws DatabaseException {
         // Initializes medianBlockTime with the N most recent blocks...
 
         final MutableMedianBlockTime medianBlockTime = new MutableMedianBlockTime();
 
-        final java.util.List<BlockHeader> blockHeadersInDescendingOrder = new java.util.ArrayList<BlockHeader>(MedianBlockTimeWithBlocks.BLOCK_COUNT);
-
-        Sha256Hash blockHash = headBlockHash;
-        for (int i = 0; i < MedianBlockTimeWithBlocks.BLOCK_COUNT; ++i) {
-            final BlockId blockId = blockDatabaseManager.getBlockHeaderId(blockHash);
-            if (blockId == null) { break; }
-
-            final BlockHeader blockHeader = blockDatabaseManager.getBlockHeader(blockId);
-            blockHeadersInDescendingOrder.add(blockHeader);
-            blockHash = blockHeader.getPreviousBlockHash();
-        }
+        final java.util.List<CachedBlockHeader> cachedBlockHeadersInDescendingOrder = _getAncestorCachedBlockHeaders(headBlockId, MedianBlockTimeWithBlocks.BLOCK_COUNT);
 
         // Add the blocks to the MedianBlockTime in ascending order (lowest block-height is added first)...
-        for (int i = 0; i < blockHeadersInDescendingOrder.size(); ++i) {
-            final BlockHeader blockHeader = blockHeadersInDescendingOrder.get(blockHeadersInDescendingOrder.size() - i - 1);
-            medianBlockTime.addBlock(blockHeader);
+        for (int i = (cachedBlockHeadersInDescendingOrder.size() - 1); i >= 0; --i) {
+            final CachedBlockHeader cachedBlockHeader = cachedBlockHeadersInDescendingOrder.get(i);
+            medianBlockTime.addBlock(cachedBlockHeader.blockHeader);
         }
 
         return medianBlockTime;
     }
 
-    protected final DatabaseManager _databaseManager;
+    /**
+     * Inflates and caches the CachedBlockHeader from a row selected by BLOCK_HEADER_QUERY.
+     */
+    protected CachedBlockHeader _inflateCachedBlockHeader(final Row row) {
+        final DatabaseManagerCache databaseManagerCache = _databaseManager.getDatabaseManagerCache();
 
-    public FullNodeBlockHeaderDatabaseManager(final DatabaseManager databaseManager) {
-        _databaseManager = databaseManager;
+        final BlockHeader blockHeader = _inflateBlockHeader(row);
+        if (blockHeader == null) { return null; }
+
+        final BlockId blockId = BlockId.wrap(row.getLong("id"));
+        final BlockId previousBlockId = BlockId.wrap(row.getLong("previous_block_id"));
+        final Long blockHeight = row.getLong("block_height");
+        final ChainWork chainWork = ChainWork.fromHexString(row.getString("chain_work"));
+
+        final CachedBlockHeader cachedBlockHeader = new CachedBlockHeader(previousBlockId, blockHeight, blockHeader, chainWork);
+        databaseManagerCache.cacheBlockHeader(blockId, cachedBlockHeader);
+        databaseManagerCache.cacheBlockHeight(blockId, blockHeight);
+        return cachedBlockHeader;
+    }
+
+    /**
+     * Returns the CachedBlockHeader for the provided blockId, or null if the block does not exist.
+     *  Uncached BlockHeaders are loaded (along with their previous block's hash) via a single query and then cached.
+     */
+    protected CachedBlockHeader _getCachedBlockHeader(final BlockId blockId) throws DatabaseException {
+        if (blockId == null) { return null; }
+
+        final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
+        final DatabaseManagerCache databaseManagerCache = _databaseManager.getDatabaseManagerCache();
+
+        final CachedBlockHeader cachedBlockHeader = databaseManagerCache.getCachedBlockHeader(blockId);
+        if (cachedBlockHeader != null) { return cachedBlockHeader; }
+
+        final java.util.List<Row> rows = databaseConnection.query(
+            new Query(BLOCK_HEADER_QUERY + " WHERE blocks.id = ?")
+                .setParameter(blockId)
+        );
+
+        if (rows.isEmpty()) { return null; }
+        final Row row = rows.get(0);
+
+        return _inflateCachedBlockHeader(row);
+    }
+
+    /**
+     * Returns blockId's CachedBlockHeader followed by those of its ancestors (newest first), up to blockCount headers.
+     *  Fewer headers are returned if blockId has fewer ancestors.
+     *  Cached headers are walked in memory; upon the first cache miss, the headers of every block within the remaining height range
+     *  (including those of other chains) are loaded with a single query, so the walk costs at most two queries.
+     */
+    protected java.util.List<CachedBlockHeader> _getAncestorCachedBlockHeaders(final BlockId blockId, final Integer blockCount) throws DatabaseException {
+        final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
+        final DatabaseManagerCache databaseManagerCache = _databaseManager.getDatabaseManagerCache();
+
+        final java.util.List<CachedBlockHeader> cachedBlockHeaders = new java.util.ArrayList<CachedBlockHeader>(blockCount);
+        HashMap<BlockId, CachedBlockHeader> loadedBlockHeaders = null;
+
+        BlockId nextBlockId = blockId;
+        while ( (nextBlockId != null) && (cachedBlockHeaders.size() < blockCount) ) {
+            CachedBlockHeader cachedBlockHeader = databaseManagerCache.getCachedBlockHeader(nextBlockId);
+            if ( (cachedBlockHeader == null) && (loadedBlockHeaders != null) ) {
+                cachedBlockHeader = loadedBlockHeaders.get(nextBlockId);
+            }
+
+            if (cachedBlockHeader == null) {
+                if (loadedBlockHeaders != null) { break; } // The remaining window has already been loaded...
+
+                final Long blockHeight = _getBlockHeight(nextBlockId);
+                if (blockHeight == null) { break; }
+
+                final long remainingBlockCount = (blockCount - cachedBlockHeaders.size());
+                final java.util.List<Row> rows = databaseConnection.query(
+                    new Query(BLOCK_HEADER_QUERY + " WHERE blocks.block_height > ? AND blocks.block_height <= ?")
+                        .setParameter(blockHeight - remainingBlockCount)
+                        .setParameter(blockHeight)
+                );
+
+                loadedBlockHeaders = new HashMap<BlockId, CachedBlockHeader>(rows.size());
+                for (final Row row : rows) {
+                    final BlockId loadedBlockId = BlockId.wrap(row.getLong("id"));
+                    final CachedBlockHeader loadedBlockHeader = _inflateCachedBlockHeader(row);
+                    if (loadedBlockHeader == null) { continue; }
+
+                    loadedBlockHeaders.put(loadedBlockId, loadedBlockHeader);
+                }
+
+                cachedBlockHeader = loadedBlockHeaders.get(nextBlockId);
+                if (cachedBlockHeader == null) { break; }
+            }
+
+            cachedBlockHeaders.add(cachedBlockHeader);
+            nextBlockId = cachedBlockHeader.previousBlockId;
+        }
+
+        return cachedBlockHeaders;
     }
 
     protected Long _getBlockHeight(final BlockId blockId) throws DatabaseException {
@@ -140,23 +230,16 @@ public class FullNodeBlockHeaderDatabaseManager implements BlockHeaderDatabaseMa
         }
     }
 
-    protected BlockHeader _inflateBlockHeader(final BlockId blockId) throws DatabaseException {
-        final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
-
-        final java.util.List<Row> rows = databaseConnection.query(
-            new Query("SELECT * FROM blocks WHERE id = ?")
-                .setParameter(blockId)
-        );
-
-        if (rows.isEmpty()) { return null; }
-        final Row row = rows.get(0);
-
+    /**
+     * Inflates the BlockHeader from a row of the blocks table that additionally contains its previous block's hash (as previous_block_hash).
+     */
+    protected BlockHeader _inflateBlockHeader(final Row row) {
         final Long version = row.getLong("version");
 
         final Sha256Hash previousBlockHash;
         {
-            final BlockId previousBlockId = BlockId.wrap(row.getLong("previous_block_id"));
-            previousBlockHash = _getBlockHash(previousBlockId);
+            final String previousBlockHashString = row.getString("previous_block_hash");
+            previousBlockHash = (previousBlockHashString != null ? Sha256Hash.fromHexString(previousBlockHashString) : new MutableSha256Hash());
         }
 
         final MerkleRoot merkleRoot = MutableMerkleRoot.fromHexString(row.getString("merkle_root"));
@@ -204,6 +287,9 @@ public class FullNodeBlockHeaderDatabaseManager implements BlockHeaderDatabaseMa
                 .setParameter(blockHeader.getNonce())
                 .setParameter(blockId)
         );
+
+        final DatabaseManagerCache databaseManagerCache = _databaseManager.getDatabaseManagerCache();
+        databaseManagerCache.invalidateBlockHeaderCache(); // The BlockHeader's cached fields (and height) are no longer valid...
     }
 
     protected ChainWork _getChainWork(final BlockId blockId) throws DatabaseException {
@@ -232,7 +318,7 @@ public class FullNodeBlockHeaderDatabaseManager implements BlockHeaderDatabaseMa
         final ChainWork previousChainWork = (previousBlockId == null ? new MutableChainWork() : _getChainWork(previousBlockId));
         final ChainWork chainWork = ChainWork.add(previousChainWork, blockWork);
 
-        return BlockId.wrap(databaseConnection.executeSql(
+        final BlockId blockId = BlockId.wrap(databaseConnection.executeSql(
             new Query("INSERT INTO blocks (hash, previous_block_id, block_height, merkle_root, version, timestamp, difficulty, nonce, chain_work) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")
                 .setParameter(blockHeader.getHash())
                 .setParameter(previousBlockId)
@@ -244,6 +330,13 @@ public class FullNodeBlockHeaderDatabaseManager implements BlockHeaderDatabaseMa
                 .setParameter(blockHeader.getNonce())
                 .setParameter(chainWork)
         ));
+
+        if (blockId != null) { // Newly stored headers are the most likely to be used by the next difficulty calculation...
+            final DatabaseManagerCache databaseManagerCache = _databaseManager.getDatabaseManagerCache();
+            databaseManagerCache.cacheBlockHeader(blockId, new CachedBlockHeader(previousBlockId, blockHeight, blockHeader, chainWork));
+        }
+
+        return blockId;
     }
 
     protected List<BlockId> _insertBlockHeaders(final List<BlockHeader> blockHeaders, final Integer maxBatchSize) throws DatabaseException {
@@ -595,7 +688,10 @@ public class FullNodeBlockHeaderDatabaseManager implements BlockHeaderDatabaseMa
 
     @Override
     public BlockHeader getBlockHeader(final BlockId blockId) throws DatabaseException {
-        return _inflateBlockHeader(blockId);
+        final CachedBlockHeader cachedBlockHeader = _getCachedBlockHeader(blockId);
+        if (cachedBlockHeader == null) { return null; }
+
+        return cachedBlockHeader.blockHeader;
     }
 
     /**
@@ -711,17 +807,42 @@ public class FullNodeBlockHeaderDatabaseManager implements BlockHeaderDatabaseMa
 
         if (parentCount == 1) {
             // Optimization/Specialization for parentBlockId...
+            final DatabaseManagerCache databaseManagerCache = _databaseManager.getDatabaseManagerCache();
+            final CachedBlockHeader cachedBlockHeader = databaseManagerCache.getCachedBlockHeader(blockId);
+            if (cachedBlockHeader != null) { return cachedBlockHeader.previousBlockId; }
+
             return _getPreviousBlockId(blockId);
         }
 
-        BlockId nextBlockId = blockId;
-        for (int i = 0; i < parentCount; ++i) {
-            final BlockHeader blockHeader = _inflateBlockHeader(nextBlockId);
-            if (blockHeader == null) { return null; }
+        if (parentCount < 1) { return blockId; }
+
+        final java.util.List<CachedBlockHeader> cachedBlockHeaders = _getAncestorCachedBlockHeaders(blockId, parentCount);
+        if (cachedBlockHeaders.size() < parentCount) { return null; }
+
+        final CachedBlockHeader cachedBlockHeader = cachedBlockHeaders.get(parentCount - 1);
+        return cachedBlockHeader.previousBlockId;
+    }
 
-            nextBlockId = _getBlockHeaderId(blockHeader.getPreviousBlockHash());
+    /**
+     * Returns blockId followed by its ancestors (newest first), up to blockCount BlockIds.
+     *  For instance, getAncestorBlockIds(blockId, 3) returns blockId, its parent, and its grandparent.
+     *  Fewer BlockIds are returned if blockId has fewer ancestors.
+     */
+    @Override
+    public List<BlockId> getAncestorBlockIds(final BlockId blockId, final Integer blockCount) throws DatabaseException {
+        final MutableList<BlockId> blockIds = new MutableList<BlockId>(blockCount);
+        if ( (blockId == null) || (blockCount < 1) ) { return blockIds; }
+
+        blockIds.add(blockId);
+
+        final java.util.List<CachedBlockHeader> cachedBlockHeaders = _getAncestorCachedBlockHeaders(blockId, (blockCount - 1));
+        for (final CachedBlockHeader cachedBlockHeader : cachedBlockHeaders) {
+            if (cachedBlockHeader.previousBlockId == null) { break; }
+
+            blockIds.add(cachedBlockHeader.previousBlockId);
         }
-        return nextBlockId;
+
+        return blockIds;
     }
 
     /**
@@ -729,8 +850,9 @@ public class FullNodeBlockHeaderDatabaseManager implements BlockHeaderDatabaseMa
      */
     @Override
     public MutableMedianBlockTime initializeMedianBlockTime() throws DatabaseException {
-        Sha256Hash blockHash = Util.coalesce(_getHeadBlockHeaderHash(), BlockHeader.GENESIS_BLOCK_HASH);
-        return _newInitializedMedianBlockTime(this, blockHash);
+        final BlockId headBlockId = _getHeadBlockHeaderId();
+        final BlockId blockId = (headBlockId != null ? headBlockId : _getBlockHeaderId(BlockHeader.GENESIS_BLOCK_HASH));
+        return _newInitializedMedianBlockTime(blockId);
     }
 
     /**
@@ -741,9 +863,9 @@ public class FullNodeBlockHeaderDatabaseManager implements BlockHeaderDatabaseMa
      */
     @Override
     public MutableMedianBlockTime initializeMedianBlockHeaderTime() throws DatabaseException {
-        final Sha256Hash headBlockHash = _getHeadBlockHeaderHash();
-        Sha256Hash blockHash = Util.coalesce(headBlockHash, BlockHeader.GENESIS_BLOCK_HASH);
-        return _newInitializedMedianBlockTime(this, blockHash);
+        final BlockId headBlockId = _getHeadBlockHeaderId();
+        final BlockId blockId = (headBlockId != null ? headBlockId : _getBlockHeaderId(BlockHeader.GENESIS_BLOCK_HASH));
+        return _newInitializedMedianBlockTime(blockId);
     }
 
     /**
@@ -753,10 +875,12 @@ public class FullNodeBlockHeaderDatabaseManager implements BlockHeaderDatabaseMa
      */
     @Override
     public MedianBlockTime calculateMedianBlockTime(final BlockId blockId) throws DatabaseException {
-        final BlockId previousBlockId = _getPreviousBlockId(blockId);
+        final CachedBlockHeader cachedBlockHeader = _getCachedBlockHeader(blockId);
+        if (cachedBlockHeader == null) { return null; }
+
+        final BlockId previousBlockId = cachedBlockHeader.previousBlockId;
         if (previousBlockId == null) { return null; }
-        final Sha256Hash blockHash = _getBlockHash(previousBlockId);
-        return _newInitializedMedianBlockTime(this, blockHash);
+        return _newInitializedMedianBlockTime(previousBlockId);
     }
 
     /**
@@ -765,13 +889,17 @@ public class FullNodeBlockHeaderDatabaseManager implements BlockHeaderDatabaseMa
      */
     @Override
     public MedianBlockTime calculateMedianBlockTimeStartingWithBlock(final BlockId blockId) throws DatabaseException {
-        final Sha256Hash blockHash = _getBlockHash(blockId);
-        return _newInitializedMedianBlockTime(this, blockHash);
+        return _newInitializedMedianBlockTime(blockId);
     }
 
     @Override
     public ChainWork getChainWork(final BlockId blockId) throws DatabaseException {
-        return _getChainWork(blockId);
+        final CachedBlockHeader cachedBlockHeader = _getCachedBlockHeader(blockId);
+        if ( (cachedBlockHeader == null) || (cachedBlockHeader.chainWork == null) ) {
+            return _getChainWork(blockId);
+        }
+
+        return cachedBlockHeader.chainWork;
     }
 
     @Override
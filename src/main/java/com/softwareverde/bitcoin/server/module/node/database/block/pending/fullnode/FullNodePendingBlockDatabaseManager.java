@@ -635,6 +635,26 @@ public class FullNodePendingBlockDatabaseManager implements PendingBlockDatabase
         }
     }
 
+    /**
+     * Deletes the PendingBlocks of every Block at or below the provided height.
+     *  Used when a UtxoSnapshot is imported, since those Blocks cannot be validated against the snapshot's UTXO set.
+     */
+    public void deletePendingBlocksAtOrBelowBlockHeight(final Long blockHeight) throws DatabaseException {
+        final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
+
+        try {
+            WRITE_LOCK.lock();
+
+            databaseConnection.executeSql(
+                new Query("DELETE pending_blocks FROM pending_blocks INNER JOIN blocks ON blocks.hash = pending_blocks.hash WHERE blocks.block_height <= ?")
+                    .setParameter(blockHeight)
+            );
+        }
+        finally {
+            WRITE_LOCK.unlock();
+        }
+    }
+
     /**
      * Deletes any pending blocks that have been completely processed.
      *  This can happen (rarely) due to a race condition between the InventoryHandler and the BlockchainBuilder...
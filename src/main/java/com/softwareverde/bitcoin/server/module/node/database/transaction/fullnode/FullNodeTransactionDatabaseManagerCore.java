@@ -26,25 +26,18 @@ import com.softwareverde.bitcoin.transaction.locktime.LockTime;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
 import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
-import com.softwareverde.bitcoin.util.IoUtil;
-import com.softwareverde.bitcoin.util.StringUtil;
-import com.softwareverde.bloomfilter.MutableBloomFilter;
-import com.softwareverde.constable.bytearray.ByteArray;
-import com.softwareverde.constable.bytearray.MutableByteArray;
 import com.softwareverde.constable.list.List;
 import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
 import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.database.DatabaseException;
 import com.softwareverde.database.row.Row;
 import com.softwareverde.database.util.DatabaseUtil;
-import com.softwareverde.json.Json;
 import com.softwareverde.logging.Logger;
 import com.softwareverde.util.Util;
 import com.softwareverde.util.timer.MilliTimer;
 import com.softwareverde.util.type.time.SystemTime;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -54,60 +47,89 @@ public class FullNodeTransactionDatabaseManagerCore implements FullNodeTransacti
     // TODO: Inserting a transaction requires a write lock...
 
     // The EXISTING_TRANSACTIONS_FILTER is used to greatly improve the performance of TransactionDatabaseManager::storeTransactions by reducing the number of queried hashes to determine if a transaction is new...
-    protected static final Integer EXISTING_TRANSACTIONS_FILTER_VERSION = 2;
-    protected static MutableBloomFilter EXISTING_TRANSACTIONS_FILTER = null;
-    protected static TransactionId EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_ID = null;
-    protected static Sha256Hash EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_HASH = null;
+    //  The filter is memory-mapped (off-heap) and maintained in-place; its checkpoint ensures only the tail of the transactions table is replayed on startup.
+    protected static volatile MappedTransactionBloomFilter EXISTING_TRANSACTIONS_FILTER = null;
     protected static final Long FILTER_ITEM_COUNT = 500_000_000L;
     protected static final Long FILTER_NONCE = 0L;
     protected static final Double FILTER_FALSE_POSITIVE_RATE = 0.001D;
+    protected static final Integer FILTER_VERIFICATION_TRANSACTION_COUNT = 16;
 
-    protected static final Integer MIN_INPUT_OUTPUT_COUNT_FOR_BATCHING = 4; // The minimum number (inclusive) of inputs/outputs required to trigger batching input/outputs of the individual transaction...
+    /**
+     * Returns the row (id, hash) of the newest Transaction below the filter's checkpoint from which the replay may safely resume, or null if the filter must be rebuilt.
+     *  Transactions are added to the filter when they are inserted, before their database transaction is committed, so the checkpointed Transaction
+     *  may have been rolled back (or its Id reused after a restart); however, every committed Transaction below the checkpoint is still within the filter.
+     *  The newest Transactions below the checkpoint must all be contained within the filter, which also guards against the filter belonging to a different database.
+     */
+    protected static Row _getVerifiedResumeTransaction(final MappedTransactionBloomFilter bloomFilter, final TransactionId checkpointTransactionId, final DatabaseConnection databaseConnection) throws DatabaseException {
+        final java.util.List<Row> rows = databaseConnection.query(
+            new Query("SELECT id, hash FROM transactions WHERE id < ? ORDER BY id DESC LIMIT " + FILTER_VERIFICATION_TRANSACTION_COUNT)
+                .setParameter(checkpointTransactionId)
+        );
+        if (rows.isEmpty()) { return null; }
 
-    public static void initializeBloomFilter(final String filename, final DatabaseConnection databaseConnection) throws DatabaseException {
-        try {
-            final Json json = Json.parse(StringUtil.bytesToString(Util.coalesce(IoUtil.getFileContents(filename + ".json"), new byte[0])));
-            final Integer transactionBloomFilterVersion = json.getInteger("version");
+        for (final Row row : rows) {
+            final Sha256Hash transactionHash = Sha256Hash.fromHexString(row.getString("hash"));
+            if (! bloomFilter.containsItem(transactionHash)) {
+                Logger.debug("Unable to resume ExistingTransactionFilter; Transaction " + row.getLong("id") + " (" + transactionHash + ") is not within the filter.");
+                return null;
+            }
+        }
 
-            final Sha256Hash filterLastTransactionHash;
-            {
-                if (Util.areEqual(EXISTING_TRANSACTIONS_FILTER_VERSION, transactionBloomFilterVersion)) {
-                    filterLastTransactionHash = Sha256Hash.fromHexString(json.getString("lastTransactionHash"));
-                }
-                else {
-                    filterLastTransactionHash = null;
+        return rows.get(0);
+    }
+
+    public static void initializeBloomFilter(final String filename, final DatabaseConnection databaseConnection) throws DatabaseException {
+        { // Remove the metadata of the previous (heap-loaded) filter format, which has been superseded by the mapped file's header...
+            final File legacyMetadataFile = new File(filename + ".json");
+            if (legacyMetadataFile.exists()) {
+                final Boolean wasDeleted = legacyMetadataFile.delete();
+                if (! wasDeleted) {
+                    Logger.debug("Unable to remove legacy TransactionBloomFilter metadata: " + legacyMetadataFile.getPath());
                 }
             }
+        }
+
+        final MappedTransactionBloomFilter bloomFilter = MappedTransactionBloomFilter.open(new File(filename + ".dat"), FILTER_ITEM_COUNT, FILTER_FALSE_POSITIVE_RATE, FILTER_NONCE);
+        if (bloomFilter == null) { return; }
+
+        try {
+            long lastTransactionId = 0L;
+
+            final TransactionId checkpointTransactionId = bloomFilter.getCheckpointTransactionId();
+            if (checkpointTransactionId != null) {
+                final Sha256Hash checkpointTransactionHash = bloomFilter.getCheckpointTransactionHash();
 
-            if (filterLastTransactionHash != null) {
                 final java.util.List<Row> rows = databaseConnection.query(
-                    new Query("SELECT id, hash FROM transactions ORDER BY id DESC LIMIT 1")
+                    new Query("SELECT id, hash FROM transactions WHERE id = ?")
+                        .setParameter(checkpointTransactionId)
                 );
-                if (! rows.isEmpty()) {
-                    final Row row = rows.get(0);
-                    final Sha256Hash lastTransactionHash = Sha256Hash.fromHexString(row.getString("hash"));
-                    if (Util.areEqual(lastTransactionHash, filterLastTransactionHash)) {
-                        Logger.debug("Restoring ExistingTransactionFilter. Last TransactionHash: " + lastTransactionHash);
-
-                        final MutableBloomFilter loadedBloomFilter = _loadBloomFilterFromFile(filename, FILTER_ITEM_COUNT, FILTER_NONCE);
-                        if (loadedBloomFilter != null) {
-                            EXISTING_TRANSACTIONS_FILTER = loadedBloomFilter;
-                            EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_HASH = filterLastTransactionHash;
-                        }
+                final Sha256Hash transactionHash = (rows.isEmpty() ? null : Sha256Hash.fromHexString(rows.get(0).getString("hash")));
+                if (Util.areEqual(checkpointTransactionHash, transactionHash)) {
+                    Logger.debug("Restoring ExistingTransactionFilter. Checkpoint TransactionHash: " + checkpointTransactionHash);
+                    lastTransactionId = checkpointTransactionId.longValue();
+                }
+                else {
+                    final Row resumeTransactionRow = _getVerifiedResumeTransaction(bloomFilter, checkpointTransactionId, databaseConnection);
+                    if (resumeTransactionRow != null) {
+                        final TransactionId resumeTransactionId = TransactionId.wrap(resumeTransactionRow.getLong("id"));
+                        Logger.debug("Resuming ExistingTransactionFilter from Transaction " + resumeTransactionId + ". Filter TransactionHash: " + checkpointTransactionHash + ", Database TransactionHash: " + transactionHash);
+                        bloomFilter.setLowWaterMark(resumeTransactionId, Sha256Hash.fromHexString(resumeTransactionRow.getString("hash"))); // The checkpointed Transaction no longer exists...
+                        lastTransactionId = resumeTransactionId.longValue();
                     }
                     else {
-                        Logger.debug("Rebuilding ExistingTransactionFilter. Filter TransactionHash: " + filterLastTransactionHash + ", Database TransactionHash: " + lastTransactionHash);
+                        Logger.debug("Rebuilding ExistingTransactionFilter. Filter TransactionHash: " + checkpointTransactionHash + ", Database TransactionHash: " + transactionHash);
                         Logger.flush();
+                        bloomFilter.clear();
                     }
                 }
             }
-            if (EXISTING_TRANSACTIONS_FILTER != null) { return; }
 
-            final MutableBloomFilter mutableBloomFilter = MutableBloomFilter.newInstance(FILTER_ITEM_COUNT, FILTER_FALSE_POSITIVE_RATE, FILTER_NONCE);
+            if (lastTransactionId == 0L) {
+                Logger.info("[Building TransactionBloomFilter]");
+            }
 
-            Logger.info("[Building TransactionBloomFilter]");
             final Long batchSize = 4096L;
-            long lastTransactionId = 0L;
+            long replayedTransactionCount = 0L;
             Sha256Hash lastTransactionHash = null;
             while (true) {
                 final java.util.List<Row> rows = databaseConnection.query(
@@ -117,103 +139,68 @@ public class FullNodeTransactionDatabaseManagerCore implements FullNodeTransacti
                 if (rows.isEmpty()) { break; }
 
                 for (final Row row : rows) {
-                    final long transactionId = row.getLong("id");
+                    final TransactionId transactionId = TransactionId.wrap(row.getLong("id"));
                     final Sha256Hash transactionHash = Sha256Hash.fromHexString(row.getString("hash"));
-                    mutableBloomFilter.addItem(transactionHash);
-                    if (transactionId > lastTransactionId) {
-                        lastTransactionId = transactionId;
-                    }
+                    bloomFilter.addTransaction(transactionId, transactionHash);
 
-                    lastTransactionHash = transactionHash;
+                    if (transactionId.longValue() > lastTransactionId) {
+                        lastTransactionId = transactionId.longValue();
+                        lastTransactionHash = transactionHash;
+                    }
                 }
+
+                replayedTransactionCount += rows.size();
             }
 
-            EXISTING_TRANSACTIONS_FILTER = mutableBloomFilter;
-            EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_HASH = lastTransactionHash;
+            if (lastTransactionHash != null) { // The replayed rows were committed and added in order, so any gaps before the last Id are permanent...
+                bloomFilter.setLowWaterMark(TransactionId.wrap(lastTransactionId), lastTransactionHash);
+            }
+            bloomFilter.checkpoint();
+            Logger.debug("Replayed " + replayedTransactionCount + " transactions into ExistingTransactionFilter.");
+
+            EXISTING_TRANSACTIONS_FILTER = bloomFilter;
         }
         catch (final Exception exception) {
+            bloomFilter.close();
             EXISTING_TRANSACTIONS_FILTER = null;
-            EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_HASH = null;
             throw exception;
         }
     }
 
-    public static void saveBloomFilter(final String filename) {
-        final MutableByteArray filterBytes = (EXISTING_TRANSACTIONS_FILTER != null ? EXISTING_TRANSACTIONS_FILTER.unwrap() : new MutableByteArray(0));
-        IoUtil.putFileContents(filename + ".dat", filterBytes.unwrap());
-
-        final ByteArray filterLastTransactionHash = Util.coalesce(EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_HASH, new MutableByteArray(0));
-        final Json json = new Json();
-        json.put("version", EXISTING_TRANSACTIONS_FILTER_VERSION);
-        json.put("lastTransactionHash", filterLastTransactionHash);
-        IoUtil.putFileContents(filename + ".json", StringUtil.stringToBytes(json.toString()));
-    }
-
-    // NOTE: This function intentionally does not use IoUtil::getFileContents in order to reduce the initial memory footprint of the node startup...
-    protected static MutableBloomFilter _loadBloomFilterFromFile(final String filename, final Long filterItemCount, final Long filterNonce) {
-        final File file = new File(filename + ".dat");
-        if (! file.canRead()) { return null; }
-
-        final Long byteCount = file.length();
-        if (byteCount == 0L) { return null; }
-        if (byteCount > Integer.MAX_VALUE) { return null; }
-
-        try (final FileInputStream fileInputStream = new FileInputStream(file)) {
-            final byte[] bytes = new byte[byteCount.intValue()];
-
-            final int readByteCount = fileInputStream.read(bytes, 0, bytes.length);
-            if (readByteCount != bytes.length) { return null; }
+    /**
+     * Flushes the ExistingTransactionFilter to disk and checkpoints its newest Transaction.
+     *  The filter is maintained in-place, so this is only necessary to minimize the replay required upon the next startup.
+     */
+    public static void saveBloomFilter() {
+        final MappedTransactionBloomFilter bloomFilter = EXISTING_TRANSACTIONS_FILTER;
+        if (bloomFilter == null) { return; }
 
-            final Integer functionCount = MutableBloomFilter.calculateFunctionCount(bytes.length, filterItemCount);
-            return MutableBloomFilter.wrap(MutableByteArray.wrap(bytes), functionCount, filterNonce);
-        }
-        catch (final Exception exception) { return null; }
+        bloomFilter.checkpoint();
     }
 
     protected final SystemTime _systemTime = new SystemTime();
     protected final FullNodeDatabaseManager _databaseManager;
 
-    protected void _insertTransactionInputs(final TransactionId transactionId, final Transaction transaction) throws DatabaseException {
-        final TransactionInputDatabaseManager transactionInputDatabaseManager = _databaseManager.getTransactionInputDatabaseManager();
-
-        final List<TransactionInput> transactionInputs = transaction.getTransactionInputs();
-        if (transactionInputs.getSize() < MIN_INPUT_OUTPUT_COUNT_FOR_BATCHING) {
-            for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
-                transactionInputDatabaseManager.insertTransactionInput(transactionId, transactionInput);
-            }
-        }
-        else {
-            final Sha256Hash transactionHash = transaction.getHash();
-            final HashMap<Sha256Hash, TransactionId> transactionHashMap = new HashMap<Sha256Hash, TransactionId>(1);
-            transactionHashMap.put(transactionHash, transactionId);
-
-            final MutableList<Transaction> transactionList = new MutableList<Transaction>(1);
-            transactionList.add(transaction);
-
-            transactionInputDatabaseManager.insertTransactionInputs(transactionHashMap, transactionList);
-        }
-    }
-
-    protected void _insertTransactionOutputs(final TransactionId transactionId, final Transaction transaction) throws DatabaseException {
+    /**
+     * Inserts the Transaction's outputs and then its inputs, issuing one multi-row insert per table regardless of the Transaction's size.
+     */
+    protected void _insertTransactionOutputsAndInputs(final TransactionId transactionId, final Transaction transaction) throws DatabaseException {
         final TransactionOutputDatabaseManager transactionOutputDatabaseManager = _databaseManager.getTransactionOutputDatabaseManager();
+        final TransactionInputDatabaseManager transactionInputDatabaseManager = _databaseManager.getTransactionInputDatabaseManager();
 
         final Sha256Hash transactionHash = transaction.getHash();
 
-        final List<TransactionOutput> transactionOutputs = transaction.getTransactionOutputs();
-        if (transactionOutputs.getSize() < MIN_INPUT_OUTPUT_COUNT_FOR_BATCHING) {
-            for (final TransactionOutput transactionOutput : transaction.getTransactionOutputs()) {
-                transactionOutputDatabaseManager.insertTransactionOutput(transactionId, transactionHash, transactionOutput);
-            }
-        }
-        else {
-            final HashMap<Sha256Hash, TransactionId> transactionHashMap = new HashMap<Sha256Hash, TransactionId>(1);
-            transactionHashMap.put(transactionHash, transactionId);
+        final HashMap<Sha256Hash, TransactionId> transactionHashMap = new HashMap<Sha256Hash, TransactionId>(1);
+        transactionHashMap.put(transactionHash, transactionId);
 
-            final MutableList<Transaction> transactionList = new MutableList<Transaction>(1);
-            transactionList.add(transaction);
+        final MutableList<Transaction> transactionList = new MutableList<Transaction>(1);
+        transactionList.add(transaction);
 
-            transactionOutputDatabaseManager.insertTransactionOutputs(transactionHashMap, transactionList);
-        }
+        final List<TransactionOutputId> transactionOutputIds = transactionOutputDatabaseManager.insertTransactionOutputs(transactionHashMap, transactionList);
+        if (transactionOutputIds == null) { throw new DatabaseException("Unable to store TransactionOutputs for Transaction: " + transactionHash); }
+
+        final List<TransactionInputId> transactionInputIds = transactionInputDatabaseManager.insertTransactionInputs(transactionHashMap, transactionList);
+        if (transactionInputIds == null) { throw new DatabaseException("Unable to store TransactionInputs for Transaction: " + transactionHash); }
     }
 
     /**
@@ -338,15 +325,9 @@ public class FullNodeTransactionDatabaseManagerCore implements FullNodeTransacti
         databaseManagerCache.cacheTransactionId(transactionHash.asConst(), transactionId);
         databaseManagerCache.cacheTransaction(transactionId, transaction.asConst());
 
-        if (EXISTING_TRANSACTIONS_FILTER != null) {
-            EXISTING_TRANSACTIONS_FILTER.addItem(transactionHash);
-
-            synchronized (EXISTING_TRANSACTIONS_FILTER) {
-                if ( (EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_ID == null) || (transactionIdLong > EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_ID.longValue()) ) {
-                    EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_ID = transactionId;
-                    EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_HASH = transactionHash;
-                }
-            }
+        final MappedTransactionBloomFilter existingTransactionsFilter = EXISTING_TRANSACTIONS_FILTER;
+        if (existingTransactionsFilter != null) {
+            existingTransactionsFilter.addTransaction(transactionId, transactionHash);
         }
 
         return transactionId;
@@ -384,6 +365,23 @@ public class FullNodeTransactionDatabaseManagerCore implements FullNodeTransacti
 
         final Integer affectedRowCount = databaseConnection.getRowsAffectedCount();
 
+        if (Util.areEqual(affectedRowCount, transactionCount)) { // Every Transaction was new, so the Ids were assigned sequentially in insertion order and do not need to be read back...
+            final HashMap<Sha256Hash, TransactionId> transactionHashMap = new HashMap<Sha256Hash, TransactionId>(transactionCount);
+            for (int i = 0; i < transactionCount; ++i) {
+                final TransactionId transactionId = TransactionId.wrap(firstTransactionId + i);
+                final Sha256Hash transactionHash = transactionHashes.get(i);
+                transactionHashMap.put(transactionHash, transactionId);
+
+                databaseManagerCache.cacheTransactionId(transactionHash.asConst(), transactionId);
+
+                final MappedTransactionBloomFilter existingTransactionsFilter = EXISTING_TRANSACTIONS_FILTER;
+                if (existingTransactionsFilter != null) {
+                    existingTransactionsFilter.addTransaction(transactionId, transactionHash);
+                }
+            }
+            return transactionHashMap;
+        }
+
         final List<Long> transactionIdRange;
         {
             final ImmutableListBuilder<Long> rowIds = new ImmutableListBuilder<Long>(affectedRowCount);
@@ -410,15 +408,9 @@ public class FullNodeTransactionDatabaseManagerCore implements FullNodeTransacti
             databaseManagerCache.cacheTransactionId(transactionHash.asConst(), transactionId);
             // databaseManagerCache.cacheTransaction(transactionId, transaction.asConst());
 
-            if (EXISTING_TRANSACTIONS_FILTER != null) {
-                EXISTING_TRANSACTIONS_FILTER.addItem(transactionHash);
-
-                synchronized (EXISTING_TRANSACTIONS_FILTER) {
-                    if ( (EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_ID == null) || (transactionId.longValue() > EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_ID.longValue()) ) {
-                        EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_ID = transactionId;
-                        EXISTING_TRANSACTIONS_FILTER_LAST_TRANSACTION_HASH = transactionHash;
-                    }
-                }
+            final MappedTransactionBloomFilter existingTransactionsFilter = EXISTING_TRANSACTIONS_FILTER;
+            if (existingTransactionsFilter != null) {
+                existingTransactionsFilter.addTransaction(transactionId, transactionHash);
             }
         }
 
@@ -490,17 +482,19 @@ public class FullNodeTransactionDatabaseManagerCore implements FullNodeTransacti
         }
 
         if (shouldUpdateUnspentOutputCache) {
+            final MutableList<TransactionOutputIdentifier> unspentTransactionOutputIdentifiers = new MutableList<TransactionOutputIdentifier>(transactionOutputIds.getSize());
             for (int i = 0; i < transactionOutputIds.getSize(); ++i) {
                 final Integer transactionOutputIndex = i;
-                final TransactionOutputId transactionOutputId = transactionOutputIds.get(i);
-
-                databaseManagerCache.cacheUnspentTransactionOutputId(transactionHash, transactionOutputIndex, transactionOutputId);
+                unspentTransactionOutputIdentifiers.add(new TransactionOutputIdentifier(transactionHash, transactionOutputIndex));
             }
+            databaseManagerCache.cacheUnspentTransactionOutputIds(unspentTransactionOutputIdentifiers, transactionOutputIds);
 
-            for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
-                final TransactionOutputIdentifier transactionOutputIdentifier = TransactionOutputIdentifier.fromTransactionInput(transactionInput);
-                databaseManagerCache.invalidateUnspentTransactionOutputId(transactionOutputIdentifier);
+            final List<TransactionInput> transactionInputs = transaction.getTransactionInputs();
+            final MutableList<TransactionOutputIdentifier> spentTransactionOutputIdentifiers = new MutableList<TransactionOutputIdentifier>(transactionInputs.getSize());
+            for (final TransactionInput transactionInput : transactionInputs) {
+                spentTransactionOutputIdentifiers.add(TransactionOutputIdentifier.fromTransactionInput(transactionInput));
             }
+            databaseManagerCache.invalidateUnspentTransactionOutputIds(spentTransactionOutputIdentifiers);
         }
 
         databaseManagerCache.cacheTransactionId(transactionHash, transactionId);
@@ -531,8 +525,7 @@ public class FullNodeTransactionDatabaseManagerCore implements FullNodeTransacti
         }
 
         final TransactionId transactionId = _insertTransaction(transaction);
-        _insertTransactionOutputs(transactionId, transaction);
-        _insertTransactionInputs(transactionId, transaction);
+        _insertTransactionOutputsAndInputs(transactionId, transaction);
 
         databaseManagerCache.cacheTransactionId(transactionHash.asConst(), transactionId);
         databaseManagerCache.cacheTransaction(transactionId, transaction.asConst());
@@ -0,0 +1,371 @@
+package com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.TransactionId;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.util.Util;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A BloomFilter of Transaction hashes that lives within a memory-mapped file instead of the JVM heap.
+ *  Bits are set in-place as Transactions are stored, and a low-water mark (the Id below which every Transaction has been added)
+ *  is periodically checkpointed into the file's header, by a background thread, after the mapped region has been flushed to disk.
+ *  After an unclean shutdown, only the Transactions stored after the checkpoint need to be replayed.
+ *  Transactions may be added out of order by concurrent storers, so the newest added Id cannot be used as the checkpoint;
+ *  an Id that remains missing for a full checkpoint interval is assumed to be a gap in the Id sequence (e.g. a rolled-back insert).
+ *  Since Transaction hashes are already uniformly distributed, the bit indexes are derived directly from the hash (via double-hashing)
+ *  rather than by rehashing the item; this also allows the filter to exceed the 2^32-bit addressable range of Murmur3.
+ */
+public class MappedTransactionBloomFilter implements AutoCloseable {
+    protected static final byte[] MAGIC = new byte[]{ 'T', 'X', 'B', 'F' };
+    protected static final Integer VERSION = 3;
+    protected static final Integer HEADER_BYTE_COUNT = 128;
+    protected static final Integer LOCK_COUNT = 1024;
+    public static final Long DEFAULT_CHECKPOINT_INTERVAL_MS = 60000L;
+
+    protected static final Integer MAGIC_OFFSET = 0;
+    protected static final Integer VERSION_OFFSET = 4;
+    protected static final Integer FUNCTION_COUNT_OFFSET = 8;
+    protected static final Integer NONCE_OFFSET = 16;
+    protected static final Integer BIT_BYTE_COUNT_OFFSET = 24;
+    protected static final Integer CHECKPOINT_TRANSACTION_ID_OFFSET = 32;
+    protected static final Integer CHECKPOINT_TRANSACTION_HASH_OFFSET = 40;
+
+    public static Long calculateByteCount(final Long itemCount, final Double falsePositiveRate) {
+        final double ln2 = Math.log(2D);
+        final double bitCount = ((-itemCount * Math.log(falsePositiveRate)) / (ln2 * ln2));
+        return Math.max(1L, (long) Math.ceil(bitCount / 8D));
+    }
+
+    public static Integer calculateFunctionCount(final Long byteCount, final Long itemCount) {
+        final double functionCount = ((byteCount * 8D) / itemCount) * Math.log(2D);
+        return (int) Math.max(1L, Math.min(50L, Math.round(functionCount)));
+    }
+
+    /**
+     * Opens the filter stored within the provided file, or creates a new, empty filter if the file does not exist or is incompatible.
+     *  Returns null if the file could not be mapped.
+     */
+    public static MappedTransactionBloomFilter open(final File file, final Long itemCount, final Double falsePositiveRate, final Long nonce) {
+        final Long bitByteCount = MappedTransactionBloomFilter.calculateByteCount(itemCount, falsePositiveRate);
+        final Integer functionCount = MappedTransactionBloomFilter.calculateFunctionCount(bitByteCount, itemCount);
+        final Long fileByteCount = (HEADER_BYTE_COUNT + bitByteCount);
+        if (fileByteCount > Integer.MAX_VALUE) {
+            Logger.warn("Unable to map TransactionBloomFilter; filter is too large: " + fileByteCount + " bytes.");
+            return null;
+        }
+
+        final Boolean fileIsCompatible;
+        { // Inspect the existing header, if any...
+            Boolean isCompatible = false;
+            if (file.exists() && Util.areEqual(file.length(), fileByteCount)) {
+                try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+                    final byte[] magic = new byte[MAGIC.length];
+                    randomAccessFile.readFully(magic);
+                    randomAccessFile.seek(VERSION_OFFSET);
+                    final int version = randomAccessFile.readInt();
+                    randomAccessFile.seek(FUNCTION_COUNT_OFFSET);
+                    final int fileFunctionCount = randomAccessFile.readInt();
+                    randomAccessFile.seek(NONCE_OFFSET);
+                    final long fileNonce = randomAccessFile.readLong();
+                    randomAccessFile.seek(BIT_BYTE_COUNT_OFFSET);
+                    final long fileBitByteCount = randomAccessFile.readLong();
+
+                    isCompatible = ( Arrays.equals(MAGIC, magic) && (version == VERSION) && (fileFunctionCount == functionCount) && (fileNonce == nonce) && (fileBitByteCount == bitByteCount) );
+                }
+                catch (final Exception exception) {
+                    Logger.debug(exception);
+                }
+            }
+            fileIsCompatible = isCompatible;
+        }
+
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            if (! fileIsCompatible) {
+                randomAccessFile.setLength(0L); // Discard any previous contents so that the new filter is zeroed...
+                randomAccessFile.setLength(fileByteCount);
+            }
+
+            final FileChannel fileChannel = randomAccessFile.getChannel();
+            final MappedByteBuffer mappedByteBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0L, fileByteCount);
+            mappedByteBuffer.order(ByteOrder.BIG_ENDIAN);
+
+            if (! fileIsCompatible) {
+                for (int i = 0; i < MAGIC.length; ++i) {
+                    mappedByteBuffer.put((MAGIC_OFFSET + i), MAGIC[i]);
+                }
+                mappedByteBuffer.putInt(VERSION_OFFSET, VERSION);
+                mappedByteBuffer.putInt(FUNCTION_COUNT_OFFSET, functionCount);
+                mappedByteBuffer.putLong(NONCE_OFFSET, nonce);
+                mappedByteBuffer.putLong(BIT_BYTE_COUNT_OFFSET, bitByteCount);
+                mappedByteBuffer.putLong(CHECKPOINT_TRANSACTION_ID_OFFSET, 0L);
+                mappedByteBuffer.force();
+            }
+
+            return new MappedTransactionBloomFilter(mappedByteBuffer, bitByteCount, functionCount, nonce);
+        }
+        catch (final Exception exception) {
+            Logger.warn("Unable to map TransactionBloomFilter: " + file.getPath(), exception);
+            return null;
+        }
+    }
+
+    protected final MappedByteBuffer _buffer;
+    protected final Long _bitCount;
+    protected final Integer _functionCount;
+    protected final Long _nonce;
+    protected final Object[] _locks;
+
+    protected final Object _checkpointMutex = new Object();
+    protected Long _checkpointIntervalMs = DEFAULT_CHECKPOINT_INTERVAL_MS;
+    protected Long _lastCheckpointTimestamp;
+    protected Long _lowWaterMarkTransactionId = null;
+    protected Sha256Hash _lowWaterMarkTransactionHash = null;
+    protected final TreeMap<Long, Sha256Hash> _transactionsAboveLowWaterMark = new TreeMap<Long, Sha256Hash>();
+    protected Long _missingTransactionId = null;
+    protected Long _missingTransactionTimestamp = null;
+    protected Boolean _isClosed = false;
+
+    protected static long _readLong(final Sha256Hash hash, final int offset) {
+        long value = 0L;
+        for (int i = 0; i < 8; ++i) {
+            value = ((value << 8) | (hash.getByte(offset + i) & 0xFFL));
+        }
+        return value;
+    }
+
+    /**
+     * Advances the low-water mark across the contiguous run of added Transactions.
+     *  If the next Id has been missing since at least one checkpoint interval ago, it is skipped as a gap.
+     *  Must be called while synchronized on _checkpointMutex.
+     */
+    protected void _advanceLowWaterMark(final Long now) {
+        while (! _transactionsAboveLowWaterMark.isEmpty()) {
+            final Map.Entry<Long, Sha256Hash> entry = _transactionsAboveLowWaterMark.firstEntry();
+            final Long transactionId = entry.getKey();
+
+            final Long lowWaterMarkTransactionId = Util.coalesce(_lowWaterMarkTransactionId, 0L);
+            final Boolean isContiguous = (transactionId <= (lowWaterMarkTransactionId + 1L));
+            if (! isContiguous) {
+                final Long missingTransactionId = (lowWaterMarkTransactionId + 1L);
+                if (! Util.areEqual(_missingTransactionId, missingTransactionId)) {
+                    _missingTransactionId = missingTransactionId;
+                    _missingTransactionTimestamp = now;
+                    break;
+                }
+
+                if ((now - _missingTransactionTimestamp) < _checkpointIntervalMs) { break; }
+
+                Logger.debug("TransactionBloomFilter skipping missing Transaction " + missingTransactionId + " through " + (transactionId - 1L) + ".");
+            }
+
+            _transactionsAboveLowWaterMark.pollFirstEntry();
+            if (transactionId > lowWaterMarkTransactionId) {
+                _lowWaterMarkTransactionId = transactionId;
+                _lowWaterMarkTransactionHash = entry.getValue();
+            }
+        }
+    }
+
+    protected long _getBitIndex(final long hashA, final long hashB, final int functionIndex) {
+        return Math.floorMod((hashA + (functionIndex * hashB)), _bitCount);
+    }
+
+    protected MappedTransactionBloomFilter(final MappedByteBuffer buffer, final Long bitByteCount, final Integer functionCount, final Long nonce) {
+        _buffer = buffer;
+        _bitCount = (bitByteCount * 8L);
+        _functionCount = functionCount;
+        _nonce = nonce;
+        _lastCheckpointTimestamp = System.currentTimeMillis();
+
+        final long checkpointTransactionId = _buffer.getLong(CHECKPOINT_TRANSACTION_ID_OFFSET);
+        if (checkpointTransactionId > 0L) {
+            _lowWaterMarkTransactionId = checkpointTransactionId;
+            _lowWaterMarkTransactionHash = this.getCheckpointTransactionHash();
+        }
+
+        _locks = new Object[LOCK_COUNT];
+        for (int i = 0; i < _locks.length; ++i) {
+            _locks[i] = new Object();
+        }
+    }
+
+    public void addItem(final Sha256Hash transactionHash) {
+        final long hashA = (_readLong(transactionHash, 0) ^ _nonce);
+        final long hashB = (_readLong(transactionHash, 8) | 1L);
+
+        for (int i = 0; i < _functionCount; ++i) {
+            final long bitIndex = _getBitIndex(hashA, hashB, i);
+            final int byteIndex = (int) (HEADER_BYTE_COUNT + (bitIndex >>> 3));
+            final byte bitMask = (byte) (1 << (bitIndex & 0x07));
+
+            synchronized (_locks[byteIndex % LOCK_COUNT]) {
+                final byte value = _buffer.get(byteIndex);
+                if ((value & bitMask) == 0) {
+                    _buffer.put(byteIndex, (byte) (value | bitMask));
+                }
+            }
+        }
+    }
+
+    public Boolean containsItem(final Sha256Hash transactionHash) {
+        final long hashA = (_readLong(transactionHash, 0) ^ _nonce);
+        final long hashB = (_readLong(transactionHash, 8) | 1L);
+
+        for (int i = 0; i < _functionCount; ++i) {
+            final long bitIndex = _getBitIndex(hashA, hashB, i);
+            final int byteIndex = (int) (HEADER_BYTE_COUNT + (bitIndex >>> 3));
+            final byte bitMask = (byte) (1 << (bitIndex & 0x07));
+
+            if ((_buffer.get(byteIndex) & bitMask) == 0) { return false; }
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds the Transaction to the filter and records it as a candidate for the next checkpoint.
+     *  If the checkpoint interval has elapsed, the filter is flushed and checkpointed by a background thread.
+     */
+    public void addTransaction(final TransactionId transactionId, final Sha256Hash transactionHash) {
+        this.addItem(transactionHash);
+
+        final Boolean shouldCheckpoint;
+        synchronized (_checkpointMutex) {
+            final Long transactionIdLong = transactionId.longValue();
+            if (transactionIdLong > Util.coalesce(_lowWaterMarkTransactionId, 0L)) {
+                _transactionsAboveLowWaterMark.put(transactionIdLong, transactionHash.asConst());
+            }
+
+            final Long now = System.currentTimeMillis();
+            _advanceLowWaterMark(now);
+
+            shouldCheckpoint = ((now - _lastCheckpointTimestamp) >= _checkpointIntervalMs);
+            if (shouldCheckpoint) {
+                _lastCheckpointTimestamp = now; // Prevent other threads from also initiating a checkpoint...
+            }
+        }
+
+        if (shouldCheckpoint) {
+            final Thread checkpointThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    MappedTransactionBloomFilter.this.checkpoint();
+                }
+            });
+            checkpointThread.setName("TransactionBloomFilter Checkpoint");
+            checkpointThread.setDaemon(true);
+            checkpointThread.start();
+        }
+    }
+
+    /**
+     * Declares that every Transaction with an Id up to and including the provided Id has been added to the filter, regardless of gaps.
+     *  This should only be used when the Transactions were added in order from committed data (e.g. when replaying the transactions table).
+     */
+    public void setLowWaterMark(final TransactionId transactionId, final Sha256Hash transactionHash) {
+        synchronized (_checkpointMutex) {
+            final Long transactionIdLong = transactionId.longValue();
+            _transactionsAboveLowWaterMark.headMap(transactionIdLong, true).clear();
+            _lowWaterMarkTransactionId = transactionIdLong;
+            _lowWaterMarkTransactionHash = transactionHash.asConst();
+            _missingTransactionId = null;
+            _missingTransactionTimestamp = null;
+        }
+    }
+
+    /**
+     * Flushes the filter's bits to disk, then records the low-water mark within the header.
+     *  The header is only updated after the bits are durable, so the checkpoint never references a Transaction whose bits may be lost.
+     */
+    public void checkpoint() {
+        synchronized (_buffer) {
+            if (_isClosed) { return; }
+
+            final Long transactionId;
+            final Sha256Hash transactionHash;
+            synchronized (_checkpointMutex) {
+                _advanceLowWaterMark(System.currentTimeMillis());
+                transactionId = _lowWaterMarkTransactionId;
+                transactionHash = _lowWaterMarkTransactionHash;
+                _lastCheckpointTimestamp = System.currentTimeMillis();
+            }
+
+            _buffer.force();
+            if (transactionId == null) { return; }
+
+            _buffer.putLong(CHECKPOINT_TRANSACTION_ID_OFFSET, transactionId);
+            for (int i = 0; i < Sha256Hash.BYTE_COUNT; ++i) {
+                _buffer.put((CHECKPOINT_TRANSACTION_HASH_OFFSET + i), transactionHash.getByte(i));
+            }
+            _buffer.force();
+
+            Logger.debug("Checkpointed TransactionBloomFilter at Transaction " + transactionId + " (" + transactionHash + ").");
+        }
+    }
+
+    /**
+     * Returns the checkpointed low-water mark, below which every Transaction is guaranteed to be within the filter, or null if the filter has never been checkpointed.
+     */
+    public TransactionId getCheckpointTransactionId() {
+        final long transactionId = _buffer.getLong(CHECKPOINT_TRANSACTION_ID_OFFSET);
+        if (transactionId < 1L) { return null; }
+        return TransactionId.wrap(transactionId);
+    }
+
+    public Sha256Hash getCheckpointTransactionHash() {
+        if (this.getCheckpointTransactionId() == null) { return null; }
+
+        final byte[] bytes = new byte[Sha256Hash.BYTE_COUNT];
+        for (int i = 0; i < bytes.length; ++i) {
+            bytes[i] = _buffer.get(CHECKPOINT_TRANSACTION_HASH_OFFSET + i);
+        }
+        return MutableSha256Hash.wrap(bytes);
+    }
+
+    public void setCheckpointIntervalMs(final Long checkpointIntervalMs) {
+        synchronized (_checkpointMutex) {
+            _checkpointIntervalMs = checkpointIntervalMs;
+        }
+    }
+
+    /**
+     * Zeroes the filter's bits and removes its checkpoint.
+     */
+    public void clear() {
+        synchronized (_buffer) {
+            final long byteCount = (_bitCount / 8L);
+            for (long i = 0L; i < byteCount; ++i) {
+                _buffer.put((int) (HEADER_BYTE_COUNT + i), (byte) 0x00);
+            }
+            _buffer.putLong(CHECKPOINT_TRANSACTION_ID_OFFSET, 0L);
+            _buffer.force();
+
+            synchronized (_checkpointMutex) {
+                _lowWaterMarkTransactionId = null;
+                _lowWaterMarkTransactionHash = null;
+                _transactionsAboveLowWaterMark.clear();
+                _missingTransactionId = null;
+                _missingTransactionTimestamp = null;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        this.checkpoint();
+
+        synchronized (_buffer) {
+            _isClosed = true;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.input;
 
+import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.hash.sha256.ImmutableSha256Hash;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
 import com.softwareverde.bitcoin.server.database.DatabaseConnection;
 import com.softwareverde.bitcoin.server.database.cache.DatabaseManagerCache;
 import com.softwareverde.bitcoin.server.database.query.BatchedInsertQuery;
+import com.softwareverde.bitcoin.server.database.query.BatchedUpdateQuery;
 import com.softwareverde.bitcoin.server.database.query.Query;
 import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.output.TransactionOutputDatabaseManager;
@@ -193,13 +195,27 @@ public class TransactionInputDatabaseManager {
         final MutableList<TransactionOutputId> newlySpentTransactionOutputIds = new MutableList<TransactionOutputId>(transactionCount * 2);
         final MutableList<TransactionOutputIdentifier> newlySpentTransactionOutputIdentifiers = new MutableList<TransactionOutputIdentifier>(transactionCount * 2);
 
-//        findPreviousTxOutputTimer.start();
-//        final Map<TransactionOutputIdentifier, TransactionOutputId> previousTransactionOutputsMap = transactionOutputDatabaseManager.getPreviousTransactionOutputs(transactions);
-//        if (previousTransactionOutputsMap == null) { return null; }
-//        findPreviousTxOutputTimer.stop();
+        final List<TransactionOutputId> previousTransactionOutputIds;
+        { // Resolve the previous TransactionOutputIds for the whole batch at once, so the UTXO cache is queried in bulk...
+            final MutableList<TransactionOutputIdentifier> previousTransactionOutputIdentifiers = new MutableList<TransactionOutputIdentifier>(transactionCount * 2);
+            for (final Transaction transaction : transactions) {
+                for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+                    final Boolean isCoinbase = Util.areEqual(Sha256Hash.EMPTY_HASH, transactionInput.getPreviousOutputTransactionHash());
+                    if (isCoinbase) { continue; }
+
+                    previousTransactionOutputIdentifiers.add(new TransactionOutputIdentifier(transactionInput.getPreviousOutputTransactionHash(), transactionInput.getPreviousOutputIndex()));
+                }
+            }
+
+            findPreviousTxOutputTimer.start();
+            previousTransactionOutputIds = transactionOutputDatabaseManager.findTransactionOutputs(previousTransactionOutputIdentifiers);
+            findPreviousTxOutputTimer.stop();
+            totalFindPreviousTxOutputTime += findPreviousTxOutputTimer.getMillisecondsElapsed();
+        }
 
         txInputPrepareInsertQueryTimer.start();
         int transactionInputIdCount = 0;
+        int previousTransactionOutputIdIndex = 0;
         for (int i = 0; i < transactionCount; ++i) {
             final Transaction transaction = transactions.get(i);
             final Sha256Hash transactionHash = transaction.getHash();
@@ -217,16 +233,13 @@ public class TransactionInputDatabaseManager {
                 final TransactionOutputIdentifier transactionOutputIdentifier = new TransactionOutputIdentifier(transactionInput.getPreviousOutputTransactionHash(), transactionInput.getPreviousOutputIndex());
                 final Boolean isCoinbase = Util.areEqual(Sha256Hash.EMPTY_HASH, transactionInput.getPreviousOutputTransactionHash());
 
-                // final TransactionOutputId previousTransactionOutputId = previousTransactionOutputsMap.get(transactionOutputIdentifier);
                 final TransactionOutputId previousTransactionOutputId;
                 if (isCoinbase) {
                     previousTransactionOutputId = null;
                 }
                 else {
-                    findPreviousTxOutputTimer.start();
-                    previousTransactionOutputId = transactionOutputDatabaseManager.findTransactionOutput(transactionOutputIdentifier);
-                    findPreviousTxOutputTimer.stop();
-                    totalFindPreviousTxOutputTime += findPreviousTxOutputTimer.getMillisecondsElapsed();
+                    previousTransactionOutputId = previousTransactionOutputIds.get(previousTransactionOutputIdIndex);
+                    previousTransactionOutputIdIndex += 1;
                     if (previousTransactionOutputId == null) {
                         Logger.warn("Unable to find TransactionOutput: " + transactionOutputIdentifier.getTransactionHash() + ":"+ transactionOutputIdentifier.getOutputIndex());
                         return null;
@@ -450,6 +463,65 @@ public class TransactionInputDatabaseManager {
         );
     }
 
+    /**
+     * Deletes the TransactionInputs and their UnlockingScripts within a single statement per table.
+     *  The provided list should be bounded by the caller, since it is inlined into the query.
+     */
+    public void deleteTransactionInputs(final List<TransactionInputId> transactionInputIds) throws DatabaseException {
+        final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
+
+        if (transactionInputIds.isEmpty()) { return; }
+
+        final Query deleteUnlockingScriptsQuery = new BatchedUpdateQuery("DELETE FROM unlocking_scripts WHERE transaction_input_id IN (?)");
+        final Query deleteTransactionInputsQuery = new BatchedUpdateQuery("DELETE FROM transaction_inputs WHERE id IN (?)");
+        for (final TransactionInputId transactionInputId : transactionInputIds) {
+            deleteUnlockingScriptsQuery.setParameter(transactionInputId);
+            deleteTransactionInputsQuery.setParameter(transactionInputId);
+        }
+
+        databaseConnection.executeSql(deleteUnlockingScriptsQuery);
+        databaseConnection.executeSql(deleteTransactionInputsQuery);
+    }
+
+    /**
+     * Returns the ids of every TransactionInput of every Transaction within the Block.
+     */
+    public List<TransactionInputId> getTransactionInputIds(final BlockId blockId) throws DatabaseException {
+        final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
+
+        final java.util.List<Row> rows = databaseConnection.query(
+            new Query("SELECT transaction_inputs.id FROM transaction_inputs INNER JOIN block_transactions ON block_transactions.transaction_id = transaction_inputs.transaction_id WHERE block_transactions.block_id = ?")
+                .setParameter(blockId)
+        );
+
+        final ImmutableListBuilder<TransactionInputId> transactionInputIds = new ImmutableListBuilder<TransactionInputId>(rows.size());
+        for (final Row row : rows) {
+            final TransactionInputId transactionInputId = TransactionInputId.wrap(row.getLong("id"));
+            transactionInputIds.add(transactionInputId);
+        }
+        return transactionInputIds.build();
+    }
+
+    /**
+     * Returns the ids of the TransactionOutputs spent by the Block's TransactionInputs.
+     *  TransactionOutputs that were previously deleted (or never indexed) are excluded.
+     */
+    public List<TransactionOutputId> getPreviousTransactionOutputIds(final BlockId blockId) throws DatabaseException {
+        final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
+
+        final java.util.List<Row> rows = databaseConnection.query(
+            new Query("SELECT transaction_inputs.previous_transaction_output_id FROM transaction_inputs INNER JOIN block_transactions ON block_transactions.transaction_id = transaction_inputs.transaction_id WHERE block_transactions.block_id = ? AND transaction_inputs.previous_transaction_output_id IS NOT NULL")
+                .setParameter(blockId)
+        );
+
+        final ImmutableListBuilder<TransactionOutputId> transactionOutputIds = new ImmutableListBuilder<TransactionOutputId>(rows.size());
+        for (final Row row : rows) {
+            final TransactionOutputId transactionOutputId = TransactionOutputId.wrap(row.getLong("previous_transaction_output_id"));
+            transactionOutputIds.add(transactionOutputId);
+        }
+        return transactionOutputIds.build();
+    }
+
     public TransactionId getTransactionId(final TransactionInputId transactionInputId) throws DatabaseException {
         final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
 
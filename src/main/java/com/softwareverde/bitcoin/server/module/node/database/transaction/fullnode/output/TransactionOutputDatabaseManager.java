@@ -37,6 +37,7 @@ import com.softwareverde.logging.Logger;
 import com.softwareverde.util.Util;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -146,6 +147,7 @@ public class TransactionOutputDatabaseManager {
         final DatabaseManagerCache databaseManagerCache = _databaseManager.getDatabaseManagerCache();
 
         final BatchedInsertQuery batchedInsertQuery = new BatchedInsertQuery("INSERT INTO unspent_transaction_outputs (transaction_output_id, transaction_hash, `index`) VALUES (?, ?, ?)");
+        final MutableList<TransactionOutputIdentifier> transactionOutputIdentifiers = new MutableList<TransactionOutputIdentifier>(transactionOutputIds.getSize());
         int transactionOutputIdIndex = 0;
         for (final UnspentTransactionOutputs unspentTransactionOutputs : unspentTransactionOutputsList) {
             for (final Integer unspentTransactionOutputIndex : unspentTransactionOutputs.unspentTransactionOutputIndices) {
@@ -155,13 +157,15 @@ public class TransactionOutputDatabaseManager {
                 batchedInsertQuery.setParameter(unspentTransactionOutputs.transactionHash);
                 batchedInsertQuery.setParameter(unspentTransactionOutputIndex);
 
-                databaseManagerCache.cacheUnspentTransactionOutputId(unspentTransactionOutputs.transactionHash, unspentTransactionOutputIndex, transactionOutputId);
+                transactionOutputIdentifiers.add(new TransactionOutputIdentifier(unspentTransactionOutputs.transactionHash, unspentTransactionOutputIndex));
 
                 transactionOutputIdIndex += 1;
             }
         }
 
         databaseConnection.executeSql(batchedInsertQuery);
+
+        databaseManagerCache.cacheUnspentTransactionOutputIds(transactionOutputIdentifiers, transactionOutputIds);
     }
 
     protected TransactionOutputId _insertTransactionOutput(final TransactionId transactionId, final Sha256Hash nullableTransactionHash, final TransactionOutput transactionOutput) throws DatabaseException {
@@ -459,6 +463,70 @@ public class TransactionOutputDatabaseManager {
         return _getTransactionOutputId(transactionId, transactionOutputIndex);
     }
 
+    /**
+     * Returns the TransactionOutputIds for the provided TransactionOutputIdentifiers, in the same order.
+     *  The UTXO cache is consulted for the whole batch at once, and its misses are resolved from the UTXO table with a single query;
+     *  only outputs that are no longer unspent are resolved individually.
+     *  An element of the returned list is null if its TransactionOutput could not be found.
+     */
+    public List<TransactionOutputId> findTransactionOutputs(final List<TransactionOutputIdentifier> transactionOutputIdentifiers) throws DatabaseException {
+        final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
+        final DatabaseManagerCache databaseManagerCache = _databaseManager.getDatabaseManagerCache();
+        final TransactionDatabaseManager transactionDatabaseManager = _databaseManager.getTransactionDatabaseManager();
+
+        final List<TransactionOutputId> cachedUnspentTransactionOutputIds = databaseManagerCache.getCachedUnspentTransactionOutputIds(transactionOutputIdentifiers);
+
+        final int itemCount = transactionOutputIdentifiers.getSize();
+
+        final HashMap<TransactionOutputIdentifier, TransactionOutputId> unspentTransactionOutputIds = new HashMap<TransactionOutputIdentifier, TransactionOutputId>();
+        { // Resolve the cache-misses from the UTXO table in one round trip...
+            final HashSet<Sha256Hash> missedTransactionHashes = new HashSet<Sha256Hash>();
+            for (int i = 0; i < itemCount; ++i) {
+                if (cachedUnspentTransactionOutputIds.get(i) != null) { continue; }
+
+                final TransactionOutputIdentifier transactionOutputIdentifier = transactionOutputIdentifiers.get(i);
+                missedTransactionHashes.add(transactionOutputIdentifier.getTransactionHash());
+            }
+
+            if (! missedTransactionHashes.isEmpty()) {
+                final java.util.List<Row> rows = databaseConnection.query(
+                    new Query("SELECT transaction_output_id, transaction_hash, `index` FROM unspent_transaction_outputs WHERE transaction_hash IN (" + DatabaseUtil.createInClause(new MutableList<Sha256Hash>(missedTransactionHashes)) + ")")
+                );
+                for (final Row row : rows) {
+                    final TransactionOutputId transactionOutputId = TransactionOutputId.wrap(row.getLong("transaction_output_id"));
+                    final Sha256Hash transactionHash = Sha256Hash.fromHexString(row.getString("transaction_hash"));
+                    final Integer transactionOutputIndex = row.getInteger("index");
+
+                    unspentTransactionOutputIds.put(new TransactionOutputIdentifier(transactionHash, transactionOutputIndex), transactionOutputId);
+                }
+            }
+        }
+
+        final MutableList<TransactionOutputId> transactionOutputIds = new MutableList<TransactionOutputId>(itemCount);
+        for (int i = 0; i < itemCount; ++i) {
+            final TransactionOutputId cachedUnspentTransactionOutputId = cachedUnspentTransactionOutputIds.get(i);
+            if (cachedUnspentTransactionOutputId != null) {
+                cacheHit.incrementAndGet();
+                transactionOutputIds.add(cachedUnspentTransactionOutputId);
+                continue;
+            }
+
+            final TransactionOutputIdentifier transactionOutputIdentifier = transactionOutputIdentifiers.get(i);
+            final TransactionOutputId unspentTransactionOutputId = unspentTransactionOutputIds.get(transactionOutputIdentifier);
+            if (unspentTransactionOutputId != null) {
+                cacheMiss.incrementAndGet();
+                transactionOutputIds.add(unspentTransactionOutputId);
+                continue;
+            }
+
+            // The output is not unspent (or was spent within this batch), so it must be found via its Transaction...
+            final TransactionId transactionId = transactionDatabaseManager.getTransactionId(transactionOutputIdentifier.getTransactionHash());
+            transactionOutputIds.add(transactionId != null ? _getTransactionOutputId(transactionId, transactionOutputIdentifier.getOutputIndex()) : null);
+        }
+
+        return transactionOutputIds;
+    }
+
     public TransactionOutput getTransactionOutput(final TransactionOutputId transactionOutputId) throws DatabaseException {
         return _getTransactionOutput(transactionOutputId);
     }
@@ -571,6 +639,39 @@ public class TransactionOutputDatabaseManager {
         );
     }
 
+    /**
+     * Deletes the TransactionOutputs and their LockingScripts within a single statement per table.
+     *  Only the cached TransactionOutputIds of the deleted TransactionOutputs are invalidated.
+     *  The provided list should be bounded by the caller, since it is inlined into the query.
+     */
+    public void deleteTransactionOutputs(final List<TransactionOutputId> transactionOutputIds) throws DatabaseException {
+        final DatabaseConnection databaseConnection = _databaseManager.getDatabaseConnection();
+        final DatabaseManagerCache databaseManagerCache = _databaseManager.getDatabaseManagerCache();
+
+        if (transactionOutputIds.isEmpty()) { return; }
+
+        { // Invalidate the cached TransactionOutputIds of the deleted TransactionOutputs...
+            final java.util.List<Row> rows = databaseConnection.query(
+                new Query("SELECT transaction_id, `index` FROM transaction_outputs WHERE id IN (" + DatabaseUtil.createInClause(transactionOutputIds) + ")")
+            );
+            for (final Row row : rows) {
+                final TransactionId transactionId = TransactionId.wrap(row.getLong("transaction_id"));
+                final Integer transactionOutputIndex = row.getInteger("index");
+                databaseManagerCache.invalidateTransactionOutputId(transactionId, transactionOutputIndex);
+            }
+        }
+
+        final Query deleteLockingScriptsQuery = new BatchedUpdateQuery("DELETE FROM locking_scripts WHERE transaction_output_id IN (?)");
+        final Query deleteTransactionOutputsQuery = new BatchedUpdateQuery("DELETE FROM transaction_outputs WHERE id IN (?)");
+        for (final TransactionOutputId transactionOutputId : transactionOutputIds) {
+            deleteLockingScriptsQuery.setParameter(transactionOutputId);
+            deleteTransactionOutputsQuery.setParameter(transactionOutputId);
+        }
+
+        databaseConnection.executeSql(deleteLockingScriptsQuery);
+        databaseConnection.executeSql(deleteTransactionOutputsQuery);
+    }
+
     public TransactionId getTransactionId(final LockingScriptId lockingScriptId) throws DatabaseException {
         return _getTransactionId(lockingScriptId);
     }
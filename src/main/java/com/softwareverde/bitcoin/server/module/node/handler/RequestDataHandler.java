@@ -1,12 +1,15 @@
 package com.softwareverde.bitcoin.server.module.node.handler;
 
 import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockDeflater;
 import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.message.type.query.response.block.RawBlockMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.error.NotFoundResponseMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItem;
 import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItemType;
 import com.softwareverde.bitcoin.server.module.node.BlockCache;
+import com.softwareverde.bitcoin.server.module.node.BlockPruner;
 import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.FullNodeBlockDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
@@ -15,6 +18,7 @@ import com.softwareverde.bitcoin.server.module.node.database.transaction.Transac
 import com.softwareverde.bitcoin.server.node.BitcoinNode;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.TransactionId;
+import com.softwareverde.constable.bytearray.MutableByteArray;
 import com.softwareverde.constable.list.List;
 import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.database.DatabaseException;
@@ -23,9 +27,13 @@ import com.softwareverde.util.Util;
 import com.softwareverde.util.timer.NanoTimer;
 
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class RequestDataHandler implements BitcoinNode.RequestDataCallback {
+    protected static final Integer MAX_CACHED_BLOCK_MESSAGE_COUNT = 4;
+
     public static final BitcoinNode.RequestDataCallback IGNORE_REQUESTS_HANDLER = new BitcoinNode.RequestDataCallback() {
         @Override
         public void run(final List<InventoryItem> dataHashes, final BitcoinNode bitcoinNode) { }
@@ -34,6 +42,42 @@ public class RequestDataHandler implements BitcoinNode.RequestDataCallback {
     protected final AtomicBoolean _isShuttingDown = new AtomicBoolean(false);
     protected final FullNodeDatabaseManagerFactory _databaseManagerFactory;
     protected final BlockCache _blockCache;
+    protected final BlockDeflater _blockDeflater = new BlockDeflater();
+    protected volatile Long _snapshotBlockHeight = 0L;
+    protected volatile BlockPruner _blockPruner = null;
+
+    // A new Block is often requested by many peers in rapid succession, therefore its message (and checksum) is built once and reused...
+    protected final LinkedHashMap<Sha256Hash, RawBlockMessage> _cachedBlockMessages = new LinkedHashMap<Sha256Hash, RawBlockMessage>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Sha256Hash, RawBlockMessage> eldestEntry) {
+            return (this.size() > MAX_CACHED_BLOCK_MESSAGE_COUNT);
+        }
+    };
+
+    protected RawBlockMessage _getCachedBlockMessage(final Sha256Hash blockHash) {
+        synchronized (_cachedBlockMessages) {
+            return _cachedBlockMessages.get(blockHash);
+        }
+    }
+
+    protected void _cacheBlockMessage(final RawBlockMessage rawBlockMessage) {
+        synchronized (_cachedBlockMessages) {
+            _cachedBlockMessages.put(rawBlockMessage.getBlockHash(), rawBlockMessage);
+        }
+    }
+
+    /**
+     * Returns true if the Block's transactions are fully stored and may be served to peers.
+     */
+    protected Boolean _isBlockServable(final Long blockHeight) {
+        final BlockPruner blockPruner = _blockPruner;
+        if ( (blockPruner != null) && blockPruner.isBlockPruned(blockHeight) ) { return false; }
+
+        final Long snapshotBlockHeight = _snapshotBlockHeight;
+        if (snapshotBlockHeight < 1L) { return true; } // No UtxoSnapshot was imported...
+
+        return (blockHeight > snapshotBlockHeight);
+    }
 
     public RequestDataHandler(final FullNodeDatabaseManagerFactory databaseManagerFactory, final BlockCache blockCache) {
         _databaseManagerFactory = databaseManagerFactory;
@@ -75,36 +119,70 @@ public class RequestDataHandler implements BitcoinNode.RequestDataCallback {
                             continue;
                         }
 
-                        final Block block;
-                        {
-                            if (_blockCache != null) {
-                                final Long blockHeight = blockHeaderDatabaseManager.getBlockHeight(blockId);
-                                final Block cachedBlock = _blockCache.getCachedBlock(blockHash, blockHeight);
+                        final Long blockHeight = blockHeaderDatabaseManager.getBlockHeight(blockId);
+                        if (! _isBlockServable(blockHeight)) {
+                            notFoundDataHashes.add(inventoryItem);
+                            continue;
+                        }
 
+                        if (inventoryItem.getItemType() == InventoryItemType.MERKLE_BLOCK) {
+                            final Block block;
+                            {
+                                final Block cachedBlock = ((_blockCache != null) ? _blockCache.getCachedBlock(blockHash, blockHeight) : null);
                                 if (cachedBlock != null) {
                                     block = cachedBlock;
                                 }
                                 else {
                                     block = blockDatabaseManager.getBlock(blockId);
-                                    _blockCache.cacheBlock(block, blockHeight);
+                                    if ( (_blockCache != null) && (block != null) ) {
+                                        _blockCache.cacheBlock(block, blockHeight);
+                                    }
                                 }
                             }
-                            else {
-                                block = blockDatabaseManager.getBlock(blockId);
-                            }
-                        }
 
-                        if (block == null) {
-                            Logger.warn("Error inflating Block: " + blockHash);
-                            notFoundDataHashes.add(inventoryItem);
-                            continue;
-                        }
+                            if (block == null) {
+                                Logger.warn("Error inflating Block: " + blockHash);
+                                notFoundDataHashes.add(inventoryItem);
+                                continue;
+                            }
 
-                        if (inventoryItem.getItemType() == InventoryItemType.MERKLE_BLOCK) {
                             bitcoinNode.transmitMerkleBlock(block);
                         }
-                        else {
-                            bitcoinNode.transmitBlock(block);
+                        else { // Serve the serialized Block directly, avoiding inflating and re-deflating the Block for every peer...
+                            final RawBlockMessage rawBlockMessage;
+                            {
+                                final RawBlockMessage cachedBlockMessage = _getCachedBlockMessage(blockHash);
+                                if (cachedBlockMessage != null) {
+                                    rawBlockMessage = cachedBlockMessage;
+                                }
+                                else {
+                                    final MutableByteArray blockBytes;
+                                    {
+                                        final MutableByteArray cachedBlockBytes = ((_blockCache != null) ? _blockCache.getCachedBlockBytes(blockHash, blockHeight) : null);
+                                        if (cachedBlockBytes != null) {
+                                            blockBytes = cachedBlockBytes;
+                                        }
+                                        else {
+                                            final Block block = blockDatabaseManager.getBlock(blockId);
+                                            blockBytes = ((block != null) ? _blockDeflater.toBytes(block) : null);
+                                            if ( (_blockCache != null) && (blockBytes != null) ) {
+                                                _blockCache.cacheBlockBytes(blockHash, blockHeight, blockBytes);
+                                            }
+                                        }
+                                    }
+
+                                    if (blockBytes == null) {
+                                        Logger.warn("Error inflating Block: " + blockHash);
+                                        notFoundDataHashes.add(inventoryItem);
+                                        continue;
+                                    }
+
+                                    rawBlockMessage = new RawBlockMessage(blockHash, blockBytes);
+                                    _cacheBlockMessage(rawBlockMessage);
+                                }
+                            }
+
+                            bitcoinNode.transmitBlock(rawBlockMessage);
                         }
 
                         getBlockDataTimer.stop();
@@ -135,6 +213,12 @@ public class RequestDataHandler implements BitcoinNode.RequestDataCallback {
                             continue;
                         }
 
+                        if (! Util.areEqual(transactionHash, transaction.getHash())) { // i.e. the Transaction was imported from a UtxoSnapshot without its inputs...
+                            Logger.debug("Unable to serve incomplete Transaction: " + transactionHash);
+                            notFoundDataHashes.add(inventoryItem);
+                            continue;
+                        }
+
                         bitcoinNode.transmitTransaction(transaction);
 
                         getTransactionTimer.stop();
@@ -160,6 +244,20 @@ public class RequestDataHandler implements BitcoinNode.RequestDataCallback {
         }
     }
 
+    /**
+     * Blocks at and below the height of an imported UtxoSnapshot are not served, since their transactions were stored without inputs.
+     */
+    public void setSnapshotBlockHeight(final Long snapshotBlockHeight) {
+        _snapshotBlockHeight = snapshotBlockHeight;
+    }
+
+    /**
+     * Pruned Blocks are not served, since their inputs have been deleted.
+     */
+    public void setBlockPruner(final BlockPruner blockPruner) {
+        _blockPruner = blockPruner;
+    }
+
     public void shutdown() {
         _isShuttingDown.set(true);
     }
@@ -0,0 +1,215 @@
+package com.softwareverde.bitcoin.server.module.node.handler.block;
+
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.block.filter.BlockFilterBuilder;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFilterCheckpointMessage;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFilterHeadersMessage;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFiltersMessage;
+import com.softwareverde.bitcoin.server.module.node.BlockFilterCache;
+import com.softwareverde.bitcoin.server.module.node.database.DatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.DatabaseManagerFactory;
+import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
+import com.softwareverde.bitcoin.server.node.BitcoinNode;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.database.DatabaseException;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.util.Util;
+
+/**
+ * Serves the precomputed compact block filters (BIP-157) from the BlockFilterCache.
+ *  Requests for unknown Blocks, unsupported filter types, or ranges whose filters have not been built are ignored.
+ */
+public class CompactFilterRequestHandler {
+    protected static class BlockRange {
+        public final List<Sha256Hash> blockHashes;
+        public final Long startBlockHeight;
+
+        public BlockRange(final List<Sha256Hash> blockHashes, final Long startBlockHeight) {
+            this.blockHashes = blockHashes;
+            this.startBlockHeight = startBlockHeight;
+        }
+    }
+
+    protected final DatabaseManagerFactory _databaseManagerFactory;
+    protected final BlockFilterCache _blockFilterCache;
+    protected final BlockFilterBuilder _blockFilterBuilder = new BlockFilterBuilder();
+
+    /**
+     * Returns the hashes of the Blocks from startBlockHeight through stopBlockHash, ordered by ascending height.
+     *  Returns null if stopBlockHash is unknown or the range is invalid or larger than maxBlockCount.
+     */
+    protected BlockRange _getBlockRange(final Long startBlockHeight, final Sha256Hash stopBlockHash, final Integer maxBlockCount, final DatabaseManager databaseManager) throws DatabaseException {
+        final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+
+        final BlockId stopBlockId = blockHeaderDatabaseManager.getBlockHeaderId(stopBlockHash);
+        if (stopBlockId == null) { return null; }
+
+        final Long stopBlockHeight = blockHeaderDatabaseManager.getBlockHeight(stopBlockId);
+        if ( (stopBlockHeight == null) || (startBlockHeight > stopBlockHeight) ) { return null; }
+
+        final long blockCount = (stopBlockHeight - startBlockHeight + 1L);
+        if (blockCount > maxBlockCount) { return null; }
+
+        final Sha256Hash[] blockHashes = new Sha256Hash[(int) blockCount];
+        BlockId blockId = stopBlockId;
+        for (int i = (blockHashes.length - 1); i >= 0; --i) {
+            if (blockId == null) { return null; }
+
+            blockHashes[i] = blockHeaderDatabaseManager.getBlockHash(blockId);
+            blockId = blockHeaderDatabaseManager.getAncestorBlockId(blockId, 1);
+        }
+
+        final MutableList<Sha256Hash> blockHashList = new MutableList<Sha256Hash>(blockHashes.length);
+        for (final Sha256Hash blockHash : blockHashes) {
+            blockHashList.add(blockHash);
+        }
+        return new BlockRange(blockHashList, startBlockHeight);
+    }
+
+    protected void _transmitFilters(final Integer filterType, final Long startBlockHeight, final Sha256Hash stopBlockHash, final BitcoinNode bitcoinNode) {
+        if (! Util.areEqual(BlockFilterBuilder.BASIC_FILTER_TYPE, filterType)) { return; }
+
+        try (final DatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+            final BlockRange blockRange = _getBlockRange(startBlockHeight, stopBlockHash, RequestCompactFiltersMessage.MAX_FILTER_COUNT, databaseManager);
+            if (blockRange == null) {
+                Logger.debug("Unable to serve compact filters: invalid range ending with " + stopBlockHash);
+                return;
+            }
+
+            long blockHeight = blockRange.startBlockHeight;
+            for (final Sha256Hash blockHash : blockRange.blockHashes) {
+                final ByteArray filter = _blockFilterCache.getFilter(blockHash, blockHeight);
+                if (filter == null) {
+                    Logger.debug("Compact filter not available for block: " + blockHash);
+                    return;
+                }
+
+                bitcoinNode.transmitCompactFilter(filterType, blockHash, filter);
+                blockHeight += 1L;
+            }
+        }
+        catch (final Exception exception) { Logger.warn(exception); }
+    }
+
+    protected void _transmitFilterHeaders(final Integer filterType, final Long startBlockHeight, final Sha256Hash stopBlockHash, final BitcoinNode bitcoinNode) {
+        if (! Util.areEqual(BlockFilterBuilder.BASIC_FILTER_TYPE, filterType)) { return; }
+
+        try (final DatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+            final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+
+            final BlockRange blockRange = _getBlockRange(startBlockHeight, stopBlockHash, RequestCompactFilterHeadersMessage.MAX_FILTER_HEADER_COUNT, databaseManager);
+            if (blockRange == null) {
+                Logger.debug("Unable to serve compact filter headers: invalid range ending with " + stopBlockHash);
+                return;
+            }
+
+            final Sha256Hash previousFilterHeader;
+            if (blockRange.startBlockHeight == 0L) {
+                previousFilterHeader = Sha256Hash.EMPTY_HASH;
+            }
+            else {
+                final Sha256Hash firstBlockHash = blockRange.blockHashes.get(0);
+                final BlockId firstBlockId = blockHeaderDatabaseManager.getBlockHeaderId(firstBlockHash);
+                final BlockId previousBlockId = blockHeaderDatabaseManager.getAncestorBlockId(firstBlockId, 1);
+                final Sha256Hash previousBlockHash = blockHeaderDatabaseManager.getBlockHash(previousBlockId);
+                previousFilterHeader = _blockFilterCache.getFilterHeader(previousBlockHash, (blockRange.startBlockHeight - 1L));
+            }
+            if (previousFilterHeader == null) {
+                Logger.debug("Compact filter header not available for block preceding height: " + blockRange.startBlockHeight);
+                return;
+            }
+
+            final MutableList<Sha256Hash> filterHashes = new MutableList<Sha256Hash>(blockRange.blockHashes.getSize());
+            long blockHeight = blockRange.startBlockHeight;
+            for (final Sha256Hash blockHash : blockRange.blockHashes) {
+                final ByteArray filter = _blockFilterCache.getFilter(blockHash, blockHeight);
+                if (filter == null) {
+                    Logger.debug("Compact filter not available for block: " + blockHash);
+                    return;
+                }
+
+                filterHashes.add(_blockFilterBuilder.calculateFilterHash(filter));
+                blockHeight += 1L;
+            }
+
+            bitcoinNode.transmitCompactFilterHeaders(filterType, stopBlockHash, previousFilterHeader, filterHashes);
+        }
+        catch (final Exception exception) { Logger.warn(exception); }
+    }
+
+    protected void _transmitFilterCheckpoint(final Integer filterType, final Sha256Hash stopBlockHash, final BitcoinNode bitcoinNode) {
+        if (! Util.areEqual(BlockFilterBuilder.BASIC_FILTER_TYPE, filterType)) { return; }
+
+        final Integer checkpointInterval = RequestCompactFilterCheckpointMessage.CHECKPOINT_INTERVAL;
+
+        try (final DatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+            final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+
+            final BlockId stopBlockId = blockHeaderDatabaseManager.getBlockHeaderId(stopBlockHash);
+            if (stopBlockId == null) { return; }
+
+            final Long stopBlockHeight = blockHeaderDatabaseManager.getBlockHeight(stopBlockId);
+            final int checkpointCount = (int) (stopBlockHeight / checkpointInterval);
+
+            final Sha256Hash[] filterHeaders = new Sha256Hash[checkpointCount];
+            BlockId blockId = blockHeaderDatabaseManager.getAncestorBlockId(stopBlockId, (int) (stopBlockHeight % checkpointInterval));
+            for (int i = (checkpointCount - 1); i >= 0; --i) {
+                if (blockId == null) { return; }
+
+                final Long blockHeight = ((i + 1L) * checkpointInterval);
+                final Sha256Hash blockHash = blockHeaderDatabaseManager.getBlockHash(blockId);
+                final Sha256Hash filterHeader = _blockFilterCache.getFilterHeader(blockHash, blockHeight);
+                if (filterHeader == null) {
+                    Logger.debug("Compact filter header not available for block: " + blockHash);
+                    return;
+                }
+
+                filterHeaders[i] = filterHeader;
+                blockId = blockHeaderDatabaseManager.getAncestorBlockId(blockId, checkpointInterval);
+            }
+
+            final MutableList<Sha256Hash> filterHeaderList = new MutableList<Sha256Hash>(checkpointCount);
+            for (final Sha256Hash filterHeader : filterHeaders) {
+                filterHeaderList.add(filterHeader);
+            }
+
+            bitcoinNode.transmitCompactFilterCheckpoint(filterType, stopBlockHash, filterHeaderList);
+        }
+        catch (final Exception exception) { Logger.warn(exception); }
+    }
+
+    public CompactFilterRequestHandler(final DatabaseManagerFactory databaseManagerFactory, final BlockFilterCache blockFilterCache) {
+        _databaseManagerFactory = databaseManagerFactory;
+        _blockFilterCache = blockFilterCache;
+    }
+
+    public BitcoinNode.RequestCompactFiltersCallback getRequestCompactFiltersCallback() {
+        return new BitcoinNode.RequestCompactFiltersCallback() {
+            @Override
+            public void run(final Integer filterType, final Long startBlockHeight, final Sha256Hash stopBlockHash, final BitcoinNode bitcoinNode) {
+                _transmitFilters(filterType, startBlockHeight, stopBlockHash, bitcoinNode);
+            }
+        };
+    }
+
+    public BitcoinNode.RequestCompactFilterHeadersCallback getRequestCompactFilterHeadersCallback() {
+        return new BitcoinNode.RequestCompactFilterHeadersCallback() {
+            @Override
+            public void run(final Integer filterType, final Long startBlockHeight, final Sha256Hash stopBlockHash, final BitcoinNode bitcoinNode) {
+                _transmitFilterHeaders(filterType, startBlockHeight, stopBlockHash, bitcoinNode);
+            }
+        };
+    }
+
+    public BitcoinNode.RequestCompactFilterCheckpointCallback getRequestCompactFilterCheckpointCallback() {
+        return new BitcoinNode.RequestCompactFilterCheckpointCallback() {
+            @Override
+            public void run(final Integer filterType, final Sha256Hash stopBlockHash, final BitcoinNode bitcoinNode) {
+                _transmitFilterCheckpoint(filterType, stopBlockHash, bitcoinNode);
+            }
+        };
+    }
+}
@@ -408,7 +408,7 @@ public class BitcoinNodeManager extends NodeManager<BitcoinNode> {
                     public void onFailure(final Sha256Hash blockHash) {
                         if (apiRequest.didTimeout) { return; }
 
-                        _pendingRequestsManager.removePendingRequest(apiRequest);
+                        _onRequestFailed(apiRequest);
 
                         apiRequest.onFailure();
                     }
@@ -461,7 +461,7 @@ public class BitcoinNodeManager extends NodeManager<BitcoinNode> {
                     public void onFailure(final Sha256Hash blockHash) {
                         if (apiRequest.didTimeout) { return; }
 
-                        _pendingRequestsManager.removePendingRequest(apiRequest);
+                        _onRequestFailed(apiRequest);
 
                         apiRequest.onFailure();
                     }
@@ -502,7 +502,7 @@ public class BitcoinNodeManager extends NodeManager<BitcoinNode> {
                     public void onFailure(final List<Sha256Hash> transactionHashes) {
                         if (apiRequest.didTimeout) { return; }
 
-                        _pendingRequestsManager.removePendingRequest(apiRequest);
+                        _onRequestFailed(apiRequest);
 
                         apiRequest.onFailure();
                     }
@@ -573,7 +573,7 @@ public class BitcoinNodeManager extends NodeManager<BitcoinNode> {
                                 public void onFailure() {
                                     Logger.debug("NOTICE: Falling back to traditional block.");
 
-                                    _pendingRequestsManager.removePendingRequest(apiRequest);
+                                    _onRequestFailed(apiRequest);
 
                                     _requestBlock(blockHash, callback);
                                 }
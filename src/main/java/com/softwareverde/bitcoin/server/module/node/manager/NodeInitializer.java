@@ -29,6 +29,9 @@ public class NodeInitializer {
         public BitcoinNode.SpvBlockInventoryMessageCallback spvBlockInventoryMessageCallback;
         public BitcoinBinaryPacketFormat binaryPacketFormat;
         public BitcoinNode.OnNewBloomFilterCallback onNewBloomFilterCallback;
+        public BitcoinNode.RequestCompactFiltersCallback requestCompactFiltersCallback;
+        public BitcoinNode.RequestCompactFilterHeadersCallback requestCompactFilterHeadersCallback;
+        public BitcoinNode.RequestCompactFilterCheckpointCallback requestCompactFilterCheckpointCallback;
     }
 
     protected final SynchronizationStatus _synchronizationStatus;
@@ -45,6 +48,9 @@ public class NodeInitializer {
     protected final BitcoinNode.SpvBlockInventoryMessageCallback _spvBlockInventoryMessageCallback;
     protected final BitcoinBinaryPacketFormat _binaryPacketFormat;
     protected final BitcoinNode.OnNewBloomFilterCallback _onNewBloomFilterCallback;
+    protected final BitcoinNode.RequestCompactFiltersCallback _requestCompactFiltersCallback;
+    protected final BitcoinNode.RequestCompactFilterHeadersCallback _requestCompactFilterHeadersCallback;
+    protected final BitcoinNode.RequestCompactFilterCheckpointCallback _requestCompactFilterCheckpointCallback;
 
     protected void _initializeNode(final BitcoinNode bitcoinNode) {
         bitcoinNode.setSynchronizationStatusHandler(_synchronizationStatus);
@@ -66,6 +72,10 @@ public class NodeInitializer {
 
         bitcoinNode.setRequestPeersHandler(_requestPeersHandler);
         bitcoinNode.setOnNewBloomFilterCallback(_onNewBloomFilterCallback);
+
+        bitcoinNode.setRequestCompactFiltersCallback(_requestCompactFiltersCallback);
+        bitcoinNode.setRequestCompactFilterHeadersCallback(_requestCompactFilterHeadersCallback);
+        bitcoinNode.setRequestCompactFilterCheckpointCallback(_requestCompactFilterCheckpointCallback);
     }
 
     public NodeInitializer(final Properties properties) {
@@ -83,6 +93,9 @@ public class NodeInitializer {
         _spvBlockInventoryMessageCallback = properties.spvBlockInventoryMessageCallback;
         _binaryPacketFormat = properties.binaryPacketFormat;
         _onNewBloomFilterCallback = properties.onNewBloomFilterCallback;
+        _requestCompactFiltersCallback = properties.requestCompactFiltersCallback;
+        _requestCompactFilterHeadersCallback = properties.requestCompactFilterHeadersCallback;
+        _requestCompactFilterCheckpointCallback = properties.requestCompactFilterCheckpointCallback;
     }
 
     public BitcoinNode initializeNode(final NodeIpAddress nodeIpAddress) {
@@ -6,18 +6,32 @@ import com.softwareverde.bitcoin.block.Block;
 import com.softwareverde.bitcoin.block.BlockDeflater;
 import com.softwareverde.bitcoin.block.header.BlockHeader;
 import com.softwareverde.bitcoin.block.header.BlockHeaderInflater;
+import com.softwareverde.bitcoin.block.BlockInflater;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
 import com.softwareverde.bitcoin.inflater.MasterInflater;
+import com.softwareverde.bitcoin.server.module.node.rpc.binary.NodeBinaryRpcCommand;
+import com.softwareverde.bitcoin.server.module.node.rpc.binary.NodeBinaryRpcHandler;
+import com.softwareverde.bitcoin.server.module.node.rpc.binary.NodeBinaryRpcMessage;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.TransactionDeflater;
 import com.softwareverde.bitcoin.transaction.TransactionInflater;
+import com.softwareverde.bitcoin.transaction.TransactionWithFee;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
 import com.softwareverde.concurrent.pool.ThreadPool;
 import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
 import com.softwareverde.json.Json;
 import com.softwareverde.logging.Logger;
+import com.softwareverde.network.socket.BinarySocket;
 import com.softwareverde.network.socket.JsonProtocolMessage;
 import com.softwareverde.network.socket.JsonSocket;
 import com.softwareverde.util.HexUtil;
+import com.softwareverde.util.StringUtil;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.Endian;
 
 public class NodeJsonRpcConnection implements AutoCloseable {
     public interface AnnouncementHookCallback {
@@ -46,8 +60,31 @@ public class NodeJsonRpcConnection implements AutoCloseable {
         }
     };
 
+    protected final BinarySocket _binarySocket;
+    protected final Object _newBinaryMessageNotifier = new Object();
+    protected final Object _binaryRequestMutex = new Object();
+
+    protected final Runnable _onNewBinaryMessageCallback = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (_newBinaryMessageNotifier) {
+                _newBinaryMessageNotifier.notifyAll();
+            }
+        }
+    };
+
     protected Boolean _isUpgradedToHook = false;
 
+    protected static java.net.Socket _connect(final String hostname, final Integer port) {
+        try {
+            return new java.net.Socket(hostname, port);
+        }
+        catch (final Exception exception) {
+            Logger.debug(exception);
+            return null;
+        }
+    }
+
     protected Json _executeJsonRequest(final Json rpcRequestJson) {
         if (_isUpgradedToHook) { throw new RuntimeException("Attempted to invoke Json request to a hook-upgraded socket."); }
         if (! _jsonSocket.isConnected()) { throw new RuntimeException("Attempted to invoke Json request to a closed socket."); }
@@ -71,6 +108,51 @@ public class NodeJsonRpcConnection implements AutoCloseable {
         return (jsonProtocolMessage != null ? jsonProtocolMessage.getMessage() : null);
     }
 
+    /**
+     * Sends the request over the binary RPC socket and returns its response.
+     *  Returns null if the request timed out.  If the node responded with an error, the error is logged and null is returned.
+     */
+    protected NodeBinaryRpcMessage _executeBinaryRequest(final NodeBinaryRpcMessage request) {
+        if (_binarySocket == null) { throw new RuntimeException("Attempted to invoke binary request without a binary RPC connection."); }
+        if (_isUpgradedToHook) { throw new RuntimeException("Attempted to invoke binary request to a hook-upgraded socket."); }
+        if (! _binarySocket.isConnected()) { throw new RuntimeException("Attempted to invoke binary request to a closed socket."); }
+
+        synchronized (_binaryRequestMutex) {
+            _binarySocket.write(request);
+            _binarySocket.beginListening();
+
+            NodeBinaryRpcMessage response;
+            synchronized (_newBinaryMessageNotifier) {
+                response = (NodeBinaryRpcMessage) _binarySocket.popMessage();
+                if (response == null) {
+                    try {
+                        _newBinaryMessageNotifier.wait(RPC_DURATION_TIMEOUT_MS);
+                    }
+                    catch (final InterruptedException exception) { }
+
+                    response = (NodeBinaryRpcMessage) _binarySocket.popMessage();
+                }
+            }
+
+            if (response == null) { return null; }
+
+            if (response.getCommand() == NodeBinaryRpcCommand.ERROR) {
+                Logger.debug("Binary RPC error: " + StringUtil.bytesToString(response.getPayload().getBytes()));
+                return null;
+            }
+
+            return response;
+        }
+    }
+
+    protected Block _getRawBlock(final NodeBinaryRpcMessage request) {
+        final NodeBinaryRpcMessage response = _executeBinaryRequest(request);
+        if (response == null) { return null; }
+
+        final BlockInflater blockInflater = _masterInflater.getBlockInflater();
+        return blockInflater.fromBytes(response.getPayload());
+    }
+
     protected Json _createRegisterHookRpcJson(final Boolean returnRawData, final Boolean includeTransactionFees) {
         final Json eventTypesJson = new Json(true);
         eventTypesJson.add("NEW_BLOCK");
@@ -144,21 +226,29 @@ public class NodeJsonRpcConnection implements AutoCloseable {
     }
 
     public NodeJsonRpcConnection(final String hostname, final Integer port, final ThreadPool threadPool, final MasterInflater masterInflater) {
-        _masterInflater = masterInflater;
+        this(hostname, port, null, threadPool, masterInflater);
+    }
 
-        final java.net.Socket javaSocket;
-        {
-            java.net.Socket socket = null;
-            try { socket = new java.net.Socket(hostname, port); }
-            catch (final Exception exception) { Logger.debug(exception); }
-            javaSocket = socket;
-        }
+    /**
+     * Connects to the node's Json RPC port and, if binaryRpcPort is provided, its binary RPC port.
+     *  The getRaw* functions and raw announcement hooks are only available when the binary RPC connection is established.
+     */
+    public NodeJsonRpcConnection(final String hostname, final Integer port, final Integer binaryRpcPort, final ThreadPool threadPool, final MasterInflater masterInflater) {
+        _masterInflater = masterInflater;
 
+        final java.net.Socket javaSocket = _connect(hostname, port);
         _jsonSocket = ((javaSocket != null) ? new JsonSocket(javaSocket, threadPool) : null);
 
         if (_jsonSocket != null) {
             _jsonSocket.setMessageReceivedCallback(_onNewMessageCallback);
         }
+
+        final java.net.Socket binaryJavaSocket = ((binaryRpcPort != null) ? _connect(hostname, binaryRpcPort) : null);
+        _binarySocket = ((binaryJavaSocket != null) ? new BinarySocket(binaryJavaSocket, NodeBinaryRpcMessage.BINARY_PACKET_FORMAT, threadPool) : null);
+
+        if (_binarySocket != null) {
+            _binarySocket.setMessageReceivedCallback(_onNewBinaryMessageCallback);
+        }
     }
 
     public NodeJsonRpcConnection(final java.net.Socket javaSocket, final ThreadPool threadPool) {
@@ -170,6 +260,10 @@ public class NodeJsonRpcConnection implements AutoCloseable {
     }
 
     public NodeJsonRpcConnection(final java.net.Socket socket, final ThreadPool threadPool, final MasterInflater masterInflater) {
+        this(socket, null, threadPool, masterInflater);
+    }
+
+    public NodeJsonRpcConnection(final java.net.Socket socket, final java.net.Socket binarySocket, final ThreadPool threadPool, final MasterInflater masterInflater) {
         _masterInflater = masterInflater;
 
         _jsonSocket = ((socket != null) ? new JsonSocket(socket, threadPool) : null);
@@ -177,6 +271,12 @@ public class NodeJsonRpcConnection implements AutoCloseable {
         if (_jsonSocket != null) {
             _jsonSocket.setMessageReceivedCallback(_onNewMessageCallback);
         }
+
+        _binarySocket = ((binarySocket != null) ? new BinarySocket(binarySocket, NodeBinaryRpcMessage.BINARY_PACKET_FORMAT, threadPool) : null);
+
+        if (_binarySocket != null) {
+            _binarySocket.setMessageReceivedCallback(_onNewBinaryMessageCallback);
+        }
     }
 
     public Json getBlockHeaders(final Long blockHeight, final Integer maxBlockCount, final Boolean returnRawFormat) {
@@ -309,6 +409,98 @@ public class NodeJsonRpcConnection implements AutoCloseable {
         return _getTransaction(transactionHash, hexFormat);
     }
 
+    /**
+     * Returns true if the binary RPC connection was established and has not been closed.
+     */
+    public Boolean hasBinaryConnection() {
+        return ( (_binarySocket != null) && _binarySocket.isConnected() );
+    }
+
+    /**
+     * Returns the Block via the binary RPC connection, or null if it is not found.
+     */
+    public Block getRawBlock(final Sha256Hash blockHash) {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendByte(NodeBinaryRpcHandler.BLOCK_HASH_SELECTOR);
+        byteArrayBuilder.appendBytes(blockHash, Endian.BIG);
+
+        return _getRawBlock(new NodeBinaryRpcMessage(NodeBinaryRpcCommand.GET_BLOCK, MutableByteArray.wrap(byteArrayBuilder.build())));
+    }
+
+    /**
+     * Returns the Block at the head blockchain's blockHeight via the binary RPC connection, or null if it is not found.
+     */
+    public Block getRawBlock(final Long blockHeight) {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendByte(NodeBinaryRpcHandler.BLOCK_HEIGHT_SELECTOR);
+        byteArrayBuilder.appendBytes(ByteUtil.longToBytes(blockHeight), Endian.LITTLE);
+
+        return _getRawBlock(new NodeBinaryRpcMessage(NodeBinaryRpcCommand.GET_BLOCK, MutableByteArray.wrap(byteArrayBuilder.build())));
+    }
+
+    /**
+     * Returns up to maxBlockCount BlockHeaders via the binary RPC connection.
+     *  If nullableBlockHeight is null, the headers preceding the head block are returned, as with getBlockHeaders.
+     */
+    public List<BlockHeader> getRawBlockHeaders(final Long nullableBlockHeight, final Integer maxBlockCount) {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendBytes(ByteUtil.longToBytes((nullableBlockHeight != null) ? nullableBlockHeight : -1L), Endian.LITTLE);
+        byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(maxBlockCount), Endian.LITTLE);
+
+        final NodeBinaryRpcMessage response = _executeBinaryRequest(new NodeBinaryRpcMessage(NodeBinaryRpcCommand.GET_BLOCK_HEADERS, MutableByteArray.wrap(byteArrayBuilder.build())));
+        if (response == null) { return null; }
+
+        final BlockHeaderInflater blockHeaderInflater = _masterInflater.getBlockHeaderInflater();
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(response.getPayload());
+        final Integer blockHeaderCount = byteArrayReader.readVariableSizedInteger().intValue();
+
+        final ImmutableListBuilder<BlockHeader> blockHeaders = new ImmutableListBuilder<BlockHeader>(blockHeaderCount);
+        for (int i = 0; i < blockHeaderCount; ++i) {
+            final BlockHeader blockHeader = blockHeaderInflater.fromBytes(byteArrayReader);
+            if (blockHeader == null) { return null; }
+
+            blockHeaders.add(blockHeader);
+        }
+        return blockHeaders.build();
+    }
+
+    /**
+     * Returns the Transaction via the binary RPC connection, or null if it is not found.
+     */
+    public Transaction getRawTransaction(final Sha256Hash transactionHash) {
+        final NodeBinaryRpcMessage response = _executeBinaryRequest(new NodeBinaryRpcMessage(NodeBinaryRpcCommand.GET_TRANSACTION, transactionHash));
+        if (response == null) { return null; }
+
+        final TransactionInflater transactionInflater = _masterInflater.getTransactionInflater();
+        return transactionInflater.fromBytes(response.getPayload());
+    }
+
+    /**
+     * Returns the node's unconfirmed Transactions and their fees via the binary RPC connection.
+     */
+    public List<TransactionWithFee> getRawUnconfirmedTransactions() {
+        final NodeBinaryRpcMessage response = _executeBinaryRequest(new NodeBinaryRpcMessage(NodeBinaryRpcCommand.GET_UNCONFIRMED_TRANSACTIONS));
+        if (response == null) { return null; }
+
+        final TransactionInflater transactionInflater = _masterInflater.getTransactionInflater();
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(response.getPayload());
+        final Integer transactionCount = byteArrayReader.readVariableSizedInteger().intValue();
+
+        final ImmutableListBuilder<TransactionWithFee> transactions = new ImmutableListBuilder<TransactionWithFee>(transactionCount);
+        for (int i = 0; i < transactionCount; ++i) {
+            final Long transactionFee = byteArrayReader.readLong(8, Endian.LITTLE);
+            final Integer transactionByteCount = byteArrayReader.readInteger(4, Endian.LITTLE);
+            final byte[] transactionBytes = byteArrayReader.readBytes(transactionByteCount, Endian.BIG);
+            if (byteArrayReader.didOverflow()) { return null; }
+
+            final Transaction transaction = transactionInflater.fromBytes(transactionBytes);
+            if (transaction == null) { return null; }
+
+            transactions.add(new TransactionWithFee(transaction, ((transactionFee < 0L) ? null : transactionFee)));
+        }
+        return transactions.build();
+    }
+
     public Json getStatus() {
         final Json rpcRequestJson = new Json();
         rpcRequestJson.put("method", "GET");
@@ -357,9 +549,18 @@ public class NodeJsonRpcConnection implements AutoCloseable {
         return true;
     }
 
+    /**
+     * Subscribes to the Node for new Block/Transaction announcements in their raw format.
+     *  If the binary RPC connection is available then announcements are received over it, otherwise they are hex-encoded within Json.
+     *  The NodeJsonRpcConnection is consumed by this operation and cannot be used for additional API calls.
+     */
     public Boolean upgradeToAnnouncementHook(final RawAnnouncementHookCallback announcementHookCallback) {
         if (announcementHookCallback == null) { throw new NullPointerException("Null AnnouncementHookCallback found."); }
 
+        if ( (_binarySocket != null) && _binarySocket.isConnected() ) {
+            return _upgradeBinarySocketToAnnouncementHook(announcementHookCallback);
+        }
+
         final Json registerHookRpcJson = _createRegisterHookRpcJson(true, true);
 
         final Json upgradeResponseJson = _executeJsonRequest(registerHookRpcJson);
@@ -422,6 +623,60 @@ public class NodeJsonRpcConnection implements AutoCloseable {
         return true;
     }
 
+    protected Boolean _upgradeBinarySocketToAnnouncementHook(final RawAnnouncementHookCallback announcementHookCallback) {
+        final NodeBinaryRpcMessage request;
+        {
+            final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+            byteArrayBuilder.appendByte((byte) (NodeBinaryRpcHandler.NEW_BLOCK_HOOK_FLAG | NodeBinaryRpcHandler.NEW_TRANSACTION_HOOK_FLAG));
+            byteArrayBuilder.appendByte((byte) 0x01); // Include Transaction Fees
+            request = new NodeBinaryRpcMessage(NodeBinaryRpcCommand.ADD_HOOK, MutableByteArray.wrap(byteArrayBuilder.build()));
+        }
+
+        final NodeBinaryRpcMessage response = _executeBinaryRequest(request);
+        if ( (response == null) || (response.getCommand() != NodeBinaryRpcCommand.HOOK_ADDED) ) { return false; }
+
+        _binarySocket.setMessageReceivedCallback(new Runnable() {
+            @Override
+            public void run() {
+                final NodeBinaryRpcMessage message = (NodeBinaryRpcMessage) _binarySocket.popMessage();
+                if (message == null) { return; }
+
+                switch (message.getCommand()) {
+                    case NEW_BLOCK_HEADER: {
+                        final BlockHeaderInflater blockHeaderInflater = _masterInflater.getBlockHeaderInflater();
+                        final BlockHeader blockHeader = blockHeaderInflater.fromBytes(message.getPayload());
+                        if (blockHeader == null) {
+                            Logger.warn("Error inflating block header: " + message.getPayload());
+                            return;
+                        }
+
+                        announcementHookCallback.onNewBlockHeader(blockHeader);
+                    } break;
+
+                    case NEW_TRANSACTION: {
+                        final ByteArrayReader byteArrayReader = new ByteArrayReader(message.getPayload());
+                        final Long transactionFee = byteArrayReader.readLong(8, Endian.LITTLE);
+
+                        final TransactionInflater transactionInflater = _masterInflater.getTransactionInflater();
+                        final Transaction transaction = transactionInflater.fromBytes(byteArrayReader);
+                        if (transaction == null) {
+                            Logger.warn("Error inflating transaction: " + message.getPayload());
+                            return;
+                        }
+
+                        announcementHookCallback.onNewTransaction(transaction, ((transactionFee < 0L) ? null : transactionFee));
+                    } break;
+
+                    default: { } break;
+                }
+            }
+        });
+
+        _isUpgradedToHook = true;
+
+        return true;
+    }
+
     public Json validatePrototypeBlock(final Block block) {
         final Json rpcParametersJson = new Json();
         final BlockDeflater blockDeflater = _masterInflater.getBlockDeflater();
@@ -517,8 +772,16 @@ public class NodeJsonRpcConnection implements AutoCloseable {
         return _jsonSocket;
     }
 
+    public BinarySocket getBinarySocket() {
+        return _binarySocket;
+    }
+
     @Override
     public void close() {
         _jsonSocket.close();
+
+        if (_binarySocket != null) {
+            _binarySocket.close();
+        }
     }
 }
@@ -16,6 +16,7 @@ import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
 import com.softwareverde.bitcoin.inflater.MasterInflater;
 import com.softwareverde.bitcoin.server.SynchronizationStatus;
 import com.softwareverde.bitcoin.server.message.type.node.feature.NodeFeatures;
+import com.softwareverde.bitcoin.server.module.node.rpc.binary.NodeBinaryRpcHandler;
 import com.softwareverde.bitcoin.server.module.node.rpc.blockchain.BlockchainMetadata;
 import com.softwareverde.bitcoin.server.node.BitcoinNode;
 import com.softwareverde.bitcoin.slp.SlpTokenId;
@@ -23,6 +24,8 @@ import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.TransactionDeflater;
 import com.softwareverde.bitcoin.transaction.TransactionInflater;
 import com.softwareverde.bitcoin.transaction.TransactionWithFee;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.transaction.script.slp.SlpScriptInflater;
 import com.softwareverde.concurrent.pool.ThreadPool;
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
@@ -32,7 +35,9 @@ import com.softwareverde.json.Json;
 import com.softwareverde.logging.Logger;
 import com.softwareverde.network.ip.Ip;
 import com.softwareverde.network.p2p.message.ProtocolMessage;
+import com.softwareverde.network.p2p.node.NodeId;
 import com.softwareverde.network.p2p.node.address.NodeIpAddress;
+import com.softwareverde.network.p2p.node.manager.health.NodeHealth;
 import com.softwareverde.network.socket.JsonProtocolMessage;
 import com.softwareverde.network.socket.JsonSocket;
 import com.softwareverde.network.socket.JsonSocketServer;
@@ -61,11 +66,12 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         void unbanNode(Ip ip);
         void addIpToWhitelist(Ip ip);
         void removeIpFromWhitelist(Ip ip);
+        NodeHealth getNodeHealth(NodeId nodeId);
     }
 
     public interface QueryAddressHandler {
         Long getBalance(Address address);
-        List<Transaction> getAddressTransactions(Address address);
+        List<Transaction> getAddressTransactions(Address address, Integer pageSize, Integer pageNumber);
     }
 
     public interface ThreadPoolInquisitor {
@@ -78,6 +84,17 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         Map<String, String> getServiceStatuses();
     }
 
+    public interface UtxoCacheInquisitor {
+        Boolean isWarmingUp();
+        Long getCachedUtxoCount();
+        Long getMaxUtxoCount();
+    }
+
+    public interface PruneInquisitor {
+        Long getPrunedBlockHeight();
+        Long getPruneBlockDepth();
+    }
+
     public interface QueryBlockchainHandler {
         List<BlockchainMetadata> getBlockchainMetadata();
     }
@@ -182,6 +199,8 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
     protected final Container<Float> _averageTransactionsPerSecond;
 
     protected final HashMap<HookEvent, MutableList<HookListener>> _eventHooks = new HashMap<HookEvent, MutableList<HookListener>>();
+    protected final TransactionJsonCache _transactionJsonCache = new TransactionJsonCache();
+    protected volatile Sha256Hash _headBlockHash = null;
 
     protected SynchronizationStatus _synchronizationStatusHandler = null;
     protected ShutdownHandler _shutdownHandler = null;
@@ -189,10 +208,13 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
     protected QueryAddressHandler _queryAddressHandler = null;
     protected ThreadPoolInquisitor _threadPoolInquisitor = null;
     protected ServiceInquisitor _serviceInquisitor = null;
+    protected UtxoCacheInquisitor _utxoCacheInquisitor = null;
+    protected PruneInquisitor _pruneInquisitor = null;
     protected DataHandler _dataHandler = null;
     protected MetadataHandler _metadataHandler = null;
     protected QueryBlockchainHandler _queryBlockchainHandler = null;
     protected LogLevelSetter _logLevelSetter = null;
+    protected NodeBinaryRpcHandler _binaryRpcHandler = null;
 
     public NodeRpcHandler(final StatisticsContainer statisticsContainer, final ThreadPool threadPool) {
         this(statisticsContainer, threadPool, new CoreInflater());
@@ -401,6 +423,38 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         response.put(WAS_SUCCESS_KEY, 1);
     }
 
+    /**
+     * Returns the Transaction's Json, including its metadata.
+     *  Confirmed non-SLP Transactions are served from the TransactionJsonCache, since their metadata only changes upon a reorg.
+     *  Unconfirmed and SLP Transactions are always rendered, since their blocks and SLP validity may change at any time.
+     */
+    protected Json _getTransactionJson(final Transaction transaction) {
+        final Sha256Hash transactionHash = transaction.getHash();
+
+        final Json cachedTransactionJson = _transactionJsonCache.get(transactionHash);
+        if (cachedTransactionJson != null) { return cachedTransactionJson; }
+
+        final Json transactionJson = transaction.toJson();
+
+        final MetadataHandler metadataHandler = _metadataHandler;
+        if (metadataHandler != null) {
+            metadataHandler.applyMetadataToTransaction(transaction, transactionJson);
+
+            final Boolean isConfirmed = (transactionJson.hasKey("blocks") && (transactionJson.get("blocks").length() > 0));
+            final Boolean isSlpTransaction;
+            {
+                final List<TransactionOutput> transactionOutputs = transaction.getTransactionOutputs();
+                isSlpTransaction = ( (! transactionOutputs.isEmpty()) && SlpScriptInflater.matchesSlpFormat(transactionOutputs.get(0).getLockingScript()) );
+            }
+
+            if (isConfirmed && (! isSlpTransaction)) {
+                _transactionJsonCache.put(transactionHash, transactionJson);
+            }
+        }
+
+        return transactionJson;
+    }
+
     // Requires GET: <hash>, [rawFormat=0]
     protected void _getTransaction(final Json parameters, final Json response) {
         final DataHandler dataHandler = _dataHandler;
@@ -436,13 +490,7 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
             response.put("transaction", HexUtil.toHexString(transactionData.getBytes()));
         }
         else {
-            final Json transactionJson = transaction.toJson();
-
-            final MetadataHandler metadataHandler = _metadataHandler;
-            if (metadataHandler != null) {
-                metadataHandler.applyMetadataToTransaction(transaction, transactionJson);
-            }
-
+            final Json transactionJson = _getTransactionJson(transaction);
             response.put("transaction", transactionJson);
         }
         response.put(WAS_SUCCESS_KEY, 1);
@@ -602,6 +650,29 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
             response.put("serviceStatuses", servicesStatusJson);
         }
 
+        { // UTXO Cache
+            final Json utxoCacheJson = new Json();
+            final UtxoCacheInquisitor utxoCacheInquisitor = _utxoCacheInquisitor;
+            final Long cachedUtxoCount = (utxoCacheInquisitor != null ? utxoCacheInquisitor.getCachedUtxoCount() : null);
+            final Long maxUtxoCount = (utxoCacheInquisitor != null ? utxoCacheInquisitor.getMaxUtxoCount() : null);
+            final Boolean hasProgress = ( (cachedUtxoCount != null) && (maxUtxoCount != null) && (maxUtxoCount > 0L) );
+
+            utxoCacheJson.put("isWarmingUp",        (utxoCacheInquisitor != null ? utxoCacheInquisitor.isWarmingUp() : null));
+            utxoCacheJson.put("cachedUtxoCount",    cachedUtxoCount);
+            utxoCacheJson.put("maxUtxoCount",       maxUtxoCount);
+            utxoCacheJson.put("warmUpPercent",      (hasProgress ? Math.min(100.0F, (cachedUtxoCount * 100.0F / maxUtxoCount)) : null));
+            response.put("utxoCache", utxoCacheJson);
+        }
+
+        { // Pruning
+            final Json pruningJson = new Json();
+            final PruneInquisitor pruneInquisitor = _pruneInquisitor;
+            pruningJson.put("isEnabled",            (pruneInquisitor != null ? 1 : 0));
+            pruningJson.put("prunedBlockHeight",    (pruneInquisitor != null ? pruneInquisitor.getPrunedBlockHeight() : null));
+            pruningJson.put("pruneBlockDepth",      (pruneInquisitor != null ? pruneInquisitor.getPruneBlockDepth() : null));
+            response.put("pruning", pruningJson);
+        }
+
         response.put(WAS_SUCCESS_KEY, 1);
     }
 
@@ -638,7 +709,7 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         response.put(WAS_SUCCESS_KEY, 1);
     }
 
-    // Requires GET: <address>
+    // Requires GET: <address>, [pageSize], [pageNumber=0]
     protected void _queryAddressTransactions(final Json parameters, final Json response) {
         final QueryAddressHandler queryAddressHandler = _queryAddressHandler;
         if (queryAddressHandler == null) {
@@ -660,7 +731,23 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
             return;
         }
 
-        final List<Transaction> addressTransactions = queryAddressHandler.getAddressTransactions(address);
+        final Integer pageSize;
+        final Integer pageNumber;
+        {
+            pageSize = (parameters.hasKey("pageSize") ? parameters.getInteger("pageSize") : null);
+            if ( (pageSize != null) && (pageSize < 1) ) {
+                response.put(ERROR_MESSAGE_KEY, "Invalid pageSize: " + pageSize);
+                return;
+            }
+
+            pageNumber = (parameters.hasKey("pageNumber") ? parameters.getInteger("pageNumber") : 0);
+            if (pageNumber < 0) {
+                response.put(ERROR_MESSAGE_KEY, "Invalid pageNumber: " + pageNumber);
+                return;
+            }
+        }
+
+        final List<Transaction> addressTransactions = queryAddressHandler.getAddressTransactions(address, pageSize, pageNumber);
 
         if (addressTransactions == null) {
             response.put(ERROR_MESSAGE_KEY, "Unable to determine address transactions.");
@@ -673,15 +760,8 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
 
         { // Address Transactions
             final Json transactionsJson = new Json(true);
-
-            final MetadataHandler metadataHandler = _metadataHandler;
             for (final Transaction transaction : addressTransactions) {
-                final Json transactionJson = transaction.toJson();
-
-                if (metadataHandler != null) {
-                    metadataHandler.applyMetadataToTransaction(transaction, transactionJson);
-                }
-
+                final Json transactionJson = _getTransactionJson(transaction);
                 transactionsJson.add(transactionJson);
             }
 
@@ -1201,6 +1281,17 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
             featuresJson.put("THIN_PROTOCOL_ENABLED", (node.supportsExtraThinBlocks() ? 1 : 0));
             nodeJson.put("features", featuresJson);
 
+            final NodeHealth nodeHealth = nodeHandler.getNodeHealth(node.getId());
+            if (nodeHealth != null) {
+                final Json healthJson = new Json(false);
+                healthJson.put("health", nodeHealth.getHealth());
+                healthJson.put("pendingRequestCount", nodeHealth.getPendingRequestCount());
+                healthJson.put("averageResponseTime", nodeHealth.getAverageResponseTimeInMilliseconds());
+                healthJson.put("failureRate", nodeHealth.getFailureRate());
+                healthJson.put("ping", nodeHealth.getPingInMilliseconds());
+                nodeJson.put("health", healthJson);
+            }
+
             nodeListJson.add(nodeJson);
         }
 
@@ -1232,6 +1323,14 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         _serviceInquisitor = serviceInquisitor;
     }
 
+    public void setUtxoCacheInquisitor(final UtxoCacheInquisitor utxoCacheInquisitor) {
+        _utxoCacheInquisitor = utxoCacheInquisitor;
+    }
+
+    public void setPruneInquisitor(final PruneInquisitor pruneInquisitor) {
+        _pruneInquisitor = pruneInquisitor;
+    }
+
     public void setDataHandler(final DataHandler dataHandler) {
         _dataHandler = dataHandler;
     }
@@ -1248,10 +1347,31 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         _logLevelSetter = logLevelSetter;
     }
 
+    /**
+     * Sets the NodeBinaryRpcHandler that shares this handler's announcements.
+     *  New Blocks and Transactions passed to onNewBlock/onNewTransaction are also relayed to the binary hook listeners.
+     */
+    public void setBinaryRpcHandler(final NodeBinaryRpcHandler binaryRpcHandler) {
+        _binaryRpcHandler = binaryRpcHandler;
+    }
+
     public void onNewBlock(final BlockHeader block) {
         // Ensure the provided block is only the header by copying it...
         final BlockHeader blockHeader = new ImmutableBlockHeader(block);
 
+        { // Clear the cached Transaction Json if the Block does not extend the previous Block (i.e. a reorg or a fork)...
+            final Sha256Hash headBlockHash = _headBlockHash;
+            if ( (headBlockHash != null) && (! Util.areEqual(headBlockHash, blockHeader.getPreviousBlockHash())) ) {
+                _transactionJsonCache.clear();
+            }
+            _headBlockHash = blockHeader.getHash();
+        }
+
+        final NodeBinaryRpcHandler binaryRpcHandler = _binaryRpcHandler;
+        if (binaryRpcHandler != null) {
+            binaryRpcHandler.onNewBlock(blockHeader);
+        }
+
         final LazyProtocolMessage lazyMetadataProtocolMessage = new LazyProtocolMessage() {
             @Override
             protected ProtocolMessage _createProtocolMessage() {
@@ -1319,6 +1439,11 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         final Transaction transaction = transactionWithFee.transaction;
         final Long transactionFee = transactionWithFee.transactionFee;
 
+        final NodeBinaryRpcHandler binaryRpcHandler = _binaryRpcHandler;
+        if (binaryRpcHandler != null) {
+            binaryRpcHandler.onNewTransaction(transactionWithFee);
+        }
+
         final LazyProtocolMessage lazyMetadataProtocolMessage = new LazyProtocolMessage() {
             @Override
             protected ProtocolMessage _createProtocolMessage() {
@@ -0,0 +1,67 @@
+package com.softwareverde.bitcoin.server.module.node.rpc;
+
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.json.Json;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache of rendered Transaction Json (including its metadata), keyed by Transaction hash.
+ *  Cached Json is shared between responses and therefore must not be modified once cached.
+ *  Since the metadata of a confirmed Transaction only changes when the chain reorganizes, the cache should be cleared upon a reorg.
+ */
+public class TransactionJsonCache {
+    public static final Integer DEFAULT_MAX_ITEM_COUNT = 4096;
+
+    protected final Integer _maxItemCount;
+    protected final LinkedHashMap<Sha256Hash, Json> _transactionJson;
+
+    protected Long _hitCount = 0L;
+    protected Long _missCount = 0L;
+
+    public TransactionJsonCache() {
+        this(DEFAULT_MAX_ITEM_COUNT);
+    }
+
+    public TransactionJsonCache(final Integer maxItemCount) {
+        _maxItemCount = maxItemCount;
+        _transactionJson = new LinkedHashMap<Sha256Hash, Json>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Sha256Hash, Json> eldestEntry) {
+                return (this.size() > _maxItemCount);
+            }
+        };
+    }
+
+    public synchronized Json get(final Sha256Hash transactionHash) {
+        final Json transactionJson = _transactionJson.get(transactionHash);
+        if (transactionJson == null) {
+            _missCount += 1L;
+        }
+        else {
+            _hitCount += 1L;
+        }
+        return transactionJson;
+    }
+
+    public synchronized void put(final Sha256Hash transactionHash, final Json transactionJson) {
+        _transactionJson.put(transactionHash.asConst(), transactionJson);
+    }
+
+    public synchronized void clear() {
+        _transactionJson.clear();
+    }
+
+    public synchronized Integer getItemCount() {
+        return _transactionJson.size();
+    }
+
+    public synchronized Long getHitCount() {
+        return _hitCount;
+    }
+
+    public synchronized Long getMissCount() {
+        return _missCount;
+    }
+}
@@ -0,0 +1,37 @@
+package com.softwareverde.bitcoin.server.module.node.rpc.binary;
+
+public enum NodeBinaryRpcCommand {
+    ERROR(0x0000),
+    GET_BLOCK(0x0001),
+    GET_BLOCK_HEADERS(0x0002),
+    GET_TRANSACTION(0x0003),
+    GET_UNCONFIRMED_TRANSACTIONS(0x0004),
+    ADD_HOOK(0x0005),
+
+    BLOCK(0x0101),
+    BLOCK_HEADERS(0x0102),
+    TRANSACTION(0x0103),
+    UNCONFIRMED_TRANSACTIONS(0x0104),
+    HOOK_ADDED(0x0105),
+
+    NEW_BLOCK_HEADER(0x0201),
+    NEW_TRANSACTION(0x0202);
+
+    public static NodeBinaryRpcCommand fromValue(final int value) {
+        for (final NodeBinaryRpcCommand command : NodeBinaryRpcCommand.values()) {
+            if (command._value == value) {
+                return command;
+            }
+        }
+        return null;
+    }
+
+    private final int _value;
+    NodeBinaryRpcCommand(final int value) {
+        _value = value;
+    }
+
+    public int getValue() {
+        return _value;
+    }
+}
@@ -0,0 +1,305 @@
+package com.softwareverde.bitcoin.server.module.node.rpc.binary;
+
+import com.softwareverde.bitcoin.CoreInflater;
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockDeflater;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.block.header.BlockHeaderDeflater;
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.inflater.MasterInflater;
+import com.softwareverde.bitcoin.server.module.node.rpc.NodeRpcHandler;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionDeflater;
+import com.softwareverde.bitcoin.transaction.TransactionWithFee;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.concurrent.pool.ThreadPool;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.network.p2p.message.ProtocolMessage;
+import com.softwareverde.network.socket.BinarySocket;
+import com.softwareverde.network.socket.BinarySocketServer;
+import com.softwareverde.util.StringUtil;
+import com.softwareverde.util.Util;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.ByteArrayReader;
+import com.softwareverde.util.bytearray.Endian;
+
+import java.util.Iterator;
+
+/**
+ * Serves the bulk-data subset of the Json RPC over NodeBinaryRpcMessages.
+ *  Unlike the Json RPC, connections remain open after each response so that clients may issue successive requests.
+ *
+ *  Request/Response Payloads:
+ *      GET_BLOCK:                      [0x00][Block Hash (32 bytes)] | [0x01][Block Height (8 bytes)]
+ *      BLOCK:                          [Block]
+ *      GET_BLOCK_HEADERS:              [Starting Block Height (8 bytes, -1 for head)][Max Block Count (4 bytes)]
+ *      BLOCK_HEADERS:                  [Header Count (variable-sized integer)][Block Header (80 bytes)]...
+ *      GET_TRANSACTION:                [Transaction Hash (32 bytes)]
+ *      TRANSACTION:                    [Transaction]
+ *      GET_UNCONFIRMED_TRANSACTIONS:   (empty)
+ *      UNCONFIRMED_TRANSACTIONS:       [Transaction Count (variable-sized integer)]([Fee (8 bytes)][Transaction Byte Count (4 bytes)][Transaction])...
+ *      ADD_HOOK:                       [Hook Event Flags (1 byte)][Include Transaction Fees (1 byte)]
+ *      HOOK_ADDED:                     (empty)
+ *      NEW_BLOCK_HEADER:               [Block Header (80 bytes)]
+ *      NEW_TRANSACTION:                [Fee (8 bytes, -1 if not included)][Transaction]
+ *      ERROR:                          [Error Message (UTF-8)]
+ *
+ *  All integers are little-endian; hashes are in their big-endian (display) byte order.
+ */
+public class NodeBinaryRpcHandler implements BinarySocketServer.SocketConnectedCallback {
+    public static final int NEW_BLOCK_HOOK_FLAG = 0x01;
+    public static final int NEW_TRANSACTION_HOOK_FLAG = 0x02;
+
+    public static final byte BLOCK_HASH_SELECTOR = 0x00;
+    public static final byte BLOCK_HEIGHT_SELECTOR = 0x01;
+
+    protected static class HookListener {
+        public final BinarySocket socket;
+        public final Boolean includeTransactionFees;
+
+        public HookListener(final BinarySocket socket, final Boolean includeTransactionFees) {
+            this.socket = socket;
+            this.includeTransactionFees = includeTransactionFees;
+        }
+    }
+
+    protected final MasterInflater _masterInflater;
+    protected final ThreadPool _threadPool;
+
+    protected final MutableList<HookListener> _newBlockHooks = new MutableList<HookListener>();
+    protected final MutableList<HookListener> _newTransactionHooks = new MutableList<HookListener>();
+
+    protected NodeRpcHandler.DataHandler _dataHandler = null;
+
+    protected static NodeBinaryRpcMessage _createErrorMessage(final String errorMessage) {
+        return new NodeBinaryRpcMessage(NodeBinaryRpcCommand.ERROR, MutableByteArray.wrap(StringUtil.stringToBytes(errorMessage)));
+    }
+
+    protected static void _broadcast(final MutableList<HookListener> hookListeners, final ProtocolMessage protocolMessage, final ProtocolMessage protocolMessageWithFee) {
+        synchronized (hookListeners) {
+            final Iterator<HookListener> iterator = hookListeners.mutableIterator();
+            while (iterator.hasNext()) {
+                final HookListener hookListener = iterator.next();
+                final BinarySocket binarySocket = hookListener.socket;
+
+                binarySocket.write(hookListener.includeTransactionFees ? protocolMessageWithFee : protocolMessage);
+
+                if (! binarySocket.isConnected()) {
+                    iterator.remove();
+                    Logger.debug("Dropping binary hook: " + binarySocket.toString());
+                }
+            }
+        }
+    }
+
+    protected NodeBinaryRpcMessage _getBlock(final NodeRpcHandler.DataHandler dataHandler, final ByteArrayReader byteArrayReader) {
+        final byte selector = byteArrayReader.readByte();
+
+        final Block block;
+        if (selector == BLOCK_HEIGHT_SELECTOR) {
+            final Long blockHeight = byteArrayReader.readLong(8, Endian.LITTLE);
+            if (byteArrayReader.didOverflow()) { return _createErrorMessage("Invalid block height."); }
+
+            block = dataHandler.getBlock(blockHeight);
+            if (block == null) { return _createErrorMessage("Block not found at height: " + blockHeight); }
+        }
+        else {
+            final Sha256Hash blockHash = MutableSha256Hash.wrap(byteArrayReader.readBytes(Sha256Hash.BYTE_COUNT, Endian.BIG));
+            if (byteArrayReader.didOverflow()) { return _createErrorMessage("Invalid block hash."); }
+
+            block = dataHandler.getBlock(blockHash);
+            if (block == null) { return _createErrorMessage("Block not found: " + blockHash); }
+        }
+
+        final BlockDeflater blockDeflater = _masterInflater.getBlockDeflater();
+        return new NodeBinaryRpcMessage(NodeBinaryRpcCommand.BLOCK, blockDeflater.toBytes(block));
+    }
+
+    protected NodeBinaryRpcMessage _getBlockHeaders(final NodeRpcHandler.DataHandler dataHandler, final ByteArrayReader byteArrayReader) {
+        final Long startingBlockHeight = byteArrayReader.readLong(8, Endian.LITTLE);
+        final Integer maxBlockCount = byteArrayReader.readInteger(4, Endian.LITTLE);
+        if (byteArrayReader.didOverflow()) { return _createErrorMessage("Invalid block headers request."); }
+
+        final List<BlockHeader> blockHeaders = dataHandler.getBlockHeaders(((startingBlockHeight < 0L) ? null : startingBlockHeight), maxBlockCount);
+        if (blockHeaders == null) { return _createErrorMessage("Error loading BlockHeaders."); }
+
+        final BlockHeaderDeflater blockHeaderDeflater = _masterInflater.getBlockHeaderDeflater();
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendBytes(ByteUtil.variableLengthIntegerToBytes(blockHeaders.getSize()));
+        for (final BlockHeader blockHeader : blockHeaders) {
+            byteArrayBuilder.appendBytes(blockHeaderDeflater.toBytes(blockHeader));
+        }
+
+        return new NodeBinaryRpcMessage(NodeBinaryRpcCommand.BLOCK_HEADERS, MutableByteArray.wrap(byteArrayBuilder.build()));
+    }
+
+    protected NodeBinaryRpcMessage _getTransaction(final NodeRpcHandler.DataHandler dataHandler, final ByteArrayReader byteArrayReader) {
+        final Sha256Hash transactionHash = MutableSha256Hash.wrap(byteArrayReader.readBytes(Sha256Hash.BYTE_COUNT, Endian.BIG));
+        if (byteArrayReader.didOverflow()) { return _createErrorMessage("Invalid transaction hash."); }
+
+        final Transaction transaction = dataHandler.getTransaction(transactionHash);
+        if (transaction == null) { return _createErrorMessage("Transaction not found: " + transactionHash); }
+
+        final TransactionDeflater transactionDeflater = _masterInflater.getTransactionDeflater();
+        return new NodeBinaryRpcMessage(NodeBinaryRpcCommand.TRANSACTION, transactionDeflater.toBytes(transaction));
+    }
+
+    protected NodeBinaryRpcMessage _getUnconfirmedTransactions(final NodeRpcHandler.DataHandler dataHandler) {
+        final List<TransactionWithFee> transactions = dataHandler.getUnconfirmedTransactionsWithFees();
+        if (transactions == null) { return _createErrorMessage("Error loading unconfirmed transactions."); }
+
+        final TransactionDeflater transactionDeflater = _masterInflater.getTransactionDeflater();
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendBytes(ByteUtil.variableLengthIntegerToBytes(transactions.getSize()));
+        for (final TransactionWithFee transactionWithFee : transactions) {
+            final ByteArray transactionBytes = transactionDeflater.toBytes(transactionWithFee.transaction);
+            byteArrayBuilder.appendBytes(ByteUtil.longToBytes(Util.coalesce(transactionWithFee.transactionFee, -1L)), Endian.LITTLE);
+            byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(transactionBytes.getByteCount()), Endian.LITTLE);
+            byteArrayBuilder.appendBytes(transactionBytes);
+        }
+
+        return new NodeBinaryRpcMessage(NodeBinaryRpcCommand.UNCONFIRMED_TRANSACTIONS, MutableByteArray.wrap(byteArrayBuilder.build()));
+    }
+
+    protected NodeBinaryRpcMessage _addHook(final ByteArrayReader byteArrayReader, final BinarySocket socketConnection) {
+        final int hookEventFlags = ByteUtil.byteToInteger(byteArrayReader.readByte());
+        final Boolean includeTransactionFees = (byteArrayReader.readByte() != 0x00);
+        if (byteArrayReader.didOverflow()) { return _createErrorMessage("Invalid hook request."); }
+
+        final Boolean newBlockHookIsEnabled = ((hookEventFlags & NEW_BLOCK_HOOK_FLAG) != 0);
+        final Boolean newTransactionHookIsEnabled = ((hookEventFlags & NEW_TRANSACTION_HOOK_FLAG) != 0);
+        if ( (! newBlockHookIsEnabled) && (! newTransactionHookIsEnabled) ) { return _createErrorMessage("Invalid event type(s)."); }
+
+        final HookListener hookListener = new HookListener(socketConnection, includeTransactionFees);
+
+        if (newBlockHookIsEnabled) {
+            synchronized (_newBlockHooks) {
+                _newBlockHooks.add(hookListener);
+            }
+        }
+
+        if (newTransactionHookIsEnabled) {
+            synchronized (_newTransactionHooks) {
+                _newTransactionHooks.add(hookListener);
+            }
+        }
+
+        return new NodeBinaryRpcMessage(NodeBinaryRpcCommand.HOOK_ADDED);
+    }
+
+    protected NodeBinaryRpcMessage _handleRequest(final NodeBinaryRpcMessage request, final BinarySocket socketConnection) {
+        final NodeRpcHandler.DataHandler dataHandler = _dataHandler;
+        if (dataHandler == null) { return _createErrorMessage("Operation not supported."); }
+
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(request.getPayload());
+        final NodeBinaryRpcCommand command = request.getCommand();
+        switch (command) {
+            case GET_BLOCK: {
+                return _getBlock(dataHandler, byteArrayReader);
+            }
+
+            case GET_BLOCK_HEADERS: {
+                return _getBlockHeaders(dataHandler, byteArrayReader);
+            }
+
+            case GET_TRANSACTION: {
+                return _getTransaction(dataHandler, byteArrayReader);
+            }
+
+            case GET_UNCONFIRMED_TRANSACTIONS: {
+                return _getUnconfirmedTransactions(dataHandler);
+            }
+
+            case ADD_HOOK: {
+                return _addHook(byteArrayReader, socketConnection);
+            }
+
+            default: {
+                return _createErrorMessage("Invalid command: " + command);
+            }
+        }
+    }
+
+    public NodeBinaryRpcHandler(final ThreadPool threadPool) {
+        this(threadPool, new CoreInflater());
+    }
+
+    public NodeBinaryRpcHandler(final ThreadPool threadPool, final MasterInflater masterInflater) {
+        _threadPool = threadPool;
+        _masterInflater = masterInflater;
+    }
+
+    public void setDataHandler(final NodeRpcHandler.DataHandler dataHandler) {
+        _dataHandler = dataHandler;
+    }
+
+    public void onNewBlock(final BlockHeader blockHeader) {
+        final BlockHeaderDeflater blockHeaderDeflater = _masterInflater.getBlockHeaderDeflater();
+        final ByteArray blockHeaderBytes = blockHeaderDeflater.toBytes(blockHeader);
+        final NodeBinaryRpcMessage protocolMessage = new NodeBinaryRpcMessage(NodeBinaryRpcCommand.NEW_BLOCK_HEADER, blockHeaderBytes);
+
+        _threadPool.execute(new Runnable() {
+            @Override
+            public void run() {
+                _broadcast(_newBlockHooks, protocolMessage, protocolMessage);
+            }
+        });
+    }
+
+    /**
+     * Broadcasts the Transaction to all binary hook listeners subscribed to NEW_TRANSACTION.
+     *  Listeners that did not request fees (or when the fee is unknown) receive a fee of -1.
+     */
+    public void onNewTransaction(final TransactionWithFee transactionWithFee) {
+        final TransactionDeflater transactionDeflater = _masterInflater.getTransactionDeflater();
+        final ByteArray transactionBytes = transactionDeflater.toBytes(transactionWithFee.transaction);
+
+        final NodeBinaryRpcMessage protocolMessage;
+        {
+            final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+            byteArrayBuilder.appendBytes(ByteUtil.longToBytes(-1L), Endian.LITTLE);
+            byteArrayBuilder.appendBytes(transactionBytes);
+            protocolMessage = new NodeBinaryRpcMessage(NodeBinaryRpcCommand.NEW_TRANSACTION, MutableByteArray.wrap(byteArrayBuilder.build()));
+        }
+
+        final NodeBinaryRpcMessage protocolMessageWithFee;
+        if (transactionWithFee.transactionFee != null) {
+            final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+            byteArrayBuilder.appendBytes(ByteUtil.longToBytes(transactionWithFee.transactionFee), Endian.LITTLE);
+            byteArrayBuilder.appendBytes(transactionBytes);
+            protocolMessageWithFee = new NodeBinaryRpcMessage(NodeBinaryRpcCommand.NEW_TRANSACTION, MutableByteArray.wrap(byteArrayBuilder.build()));
+        }
+        else {
+            protocolMessageWithFee = protocolMessage;
+        }
+
+        _threadPool.execute(new Runnable() {
+            @Override
+            public void run() {
+                _broadcast(_newTransactionHooks, protocolMessage, protocolMessageWithFee);
+            }
+        });
+    }
+
+    @Override
+    public void run(final BinarySocket socketConnection) {
+        socketConnection.setMessageReceivedCallback(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (socketConnection) { // Responses are written in the order their requests were received...
+                    final NodeBinaryRpcMessage request = (NodeBinaryRpcMessage) socketConnection.popMessage();
+                    if (request == null) { return; }
+
+                    final NodeBinaryRpcMessage response = _handleRequest(request, socketConnection);
+                    socketConnection.write(response);
+                }
+            }
+        });
+        socketConnection.beginListening();
+    }
+}
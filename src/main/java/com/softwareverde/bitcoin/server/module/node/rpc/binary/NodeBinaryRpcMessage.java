@@ -0,0 +1,55 @@
+package com.softwareverde.bitcoin.server.module.node.rpc.binary;
+
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.network.p2p.message.ProtocolMessage;
+import com.softwareverde.network.socket.BinaryPacketFormat;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.Endian;
+
+/**
+ * Length-prefixed binary alternative to the Json RPC for bulk data (blocks, headers, transactions, and hook announcements).
+ *  Packet Layout:
+ *      Magic Number        (4 bytes)
+ *      Command             (4 bytes, little-endian)
+ *      Payload Byte Count  (4 bytes, little-endian)
+ *      Payload             (Payload Byte Count bytes)
+ *
+ *  Payloads are the raw network-serialized objects; see NodeBinaryRpcHandler for the per-command layouts.
+ */
+public class NodeBinaryRpcMessage implements ProtocolMessage {
+    public static final ByteArray MAGIC_NUMBER = ByteArray.fromHexString("56525043"); // "VRPC"
+    public static final NodeBinaryRpcMessageInflater PROTOCOL_MESSAGE_FACTORY = new NodeBinaryRpcMessageInflater();
+    public static final BinaryPacketFormat BINARY_PACKET_FORMAT = new BinaryPacketFormat(MAGIC_NUMBER, new NodeBinaryRpcMessageHeaderInflater(), PROTOCOL_MESSAGE_FACTORY);
+
+    protected final NodeBinaryRpcCommand _command;
+    protected final ByteArray _payload;
+
+    public NodeBinaryRpcMessage(final NodeBinaryRpcCommand command) {
+        this(command, new MutableByteArray(0));
+    }
+
+    public NodeBinaryRpcMessage(final NodeBinaryRpcCommand command, final ByteArray payload) {
+        _command = command;
+        _payload = payload;
+    }
+
+    public NodeBinaryRpcCommand getCommand() {
+        return _command;
+    }
+
+    public ByteArray getPayload() {
+        return _payload;
+    }
+
+    @Override
+    public ByteArray getBytes() {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendBytes(MAGIC_NUMBER, Endian.BIG);
+        byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(_command.getValue()), Endian.LITTLE);
+        byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(_payload.getByteCount()), Endian.LITTLE);
+        byteArrayBuilder.appendBytes(_payload, Endian.BIG);
+        return MutableByteArray.wrap(byteArrayBuilder.build());
+    }
+}
@@ -0,0 +1,20 @@
+package com.softwareverde.bitcoin.server.module.node.rpc.binary;
+
+import com.softwareverde.network.p2p.message.ProtocolMessageHeader;
+
+public class NodeBinaryRpcMessageHeader implements ProtocolMessageHeader {
+    public final byte[] magicNumber;
+    public final NodeBinaryRpcCommand command;
+    public final int payloadByteCount;
+
+    public NodeBinaryRpcMessageHeader(final byte[] magicNumber, final NodeBinaryRpcCommand command, final int payloadByteCount) {
+        this.magicNumber = magicNumber;
+        this.command = command;
+        this.payloadByteCount = payloadByteCount;
+    }
+
+    @Override
+    public Integer getPayloadByteCount() {
+        return this.payloadByteCount;
+    }
+}
@@ -0,0 +1,58 @@
+package com.softwareverde.bitcoin.server.module.node.rpc.binary;
+
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.network.p2p.message.ProtocolMessageHeaderInflater;
+import com.softwareverde.util.bytearray.ByteArrayReader;
+import com.softwareverde.util.bytearray.Endian;
+
+public class NodeBinaryRpcMessageHeaderInflater implements ProtocolMessageHeaderInflater {
+    public static final Integer MAX_PACKET_SIZE = 268435456;
+    public static final Integer HEADER_BYTE_COUNT = 12;
+
+    protected NodeBinaryRpcMessageHeader _fromByteArrayReader(final ByteArrayReader byteArrayReader) {
+        final byte[] magicNumber = byteArrayReader.readBytes(4, Endian.BIG);
+
+        { // Validate Magic Number
+            if (! ByteUtil.areEqual(NodeBinaryRpcMessage.MAGIC_NUMBER, MutableByteArray.wrap(magicNumber))) {
+                Logger.debug("Invalid Binary Rpc Magic Number: " + MutableByteArray.wrap(magicNumber));
+                return null;
+            }
+        }
+
+        final Integer commandValue = byteArrayReader.readInteger(4, Endian.LITTLE);
+        final NodeBinaryRpcCommand command = NodeBinaryRpcCommand.fromValue(commandValue);
+        if (command == null) {
+            Logger.debug("Unsupported Binary Rpc command: " + commandValue);
+            return null;
+        }
+
+        final Integer payloadByteCount = byteArrayReader.readInteger(4, Endian.LITTLE);
+
+        if (byteArrayReader.didOverflow()) { return null; }
+
+        return new NodeBinaryRpcMessageHeader(magicNumber, command, payloadByteCount);
+    }
+
+    @Override
+    public Integer getHeaderByteCount() {
+        return HEADER_BYTE_COUNT;
+    }
+
+    @Override
+    public Integer getMaxPacketByteCount() {
+        return MAX_PACKET_SIZE;
+    }
+
+    @Override
+    public NodeBinaryRpcMessageHeader fromBytes(final byte[] bytes) {
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+        return _fromByteArrayReader(byteArrayReader);
+    }
+
+    @Override
+    public NodeBinaryRpcMessageHeader fromBytes(final ByteArrayReader byteArrayReader) {
+        return _fromByteArrayReader(byteArrayReader);
+    }
+}
@@ -0,0 +1,30 @@
+package com.softwareverde.bitcoin.server.module.node.rpc.binary;
+
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.network.p2p.message.ProtocolMessageFactory;
+import com.softwareverde.util.bytearray.ByteArrayReader;
+import com.softwareverde.util.bytearray.Endian;
+
+public class NodeBinaryRpcMessageInflater implements ProtocolMessageFactory<NodeBinaryRpcMessage> {
+    protected final NodeBinaryRpcMessageHeaderInflater _headerInflater = new NodeBinaryRpcMessageHeaderInflater();
+
+    @Override
+    public NodeBinaryRpcMessage fromBytes(final byte[] bytes) {
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+
+        final NodeBinaryRpcMessageHeader messageHeader = _headerInflater.fromBytes(byteArrayReader);
+        if (messageHeader == null) { return null; }
+
+        final Integer actualPayloadByteCount = byteArrayReader.remainingByteCount();
+        if (messageHeader.payloadByteCount != actualPayloadByteCount) {
+            Logger.debug("NodeBinaryRpcMessage: Bad payload size. " + messageHeader.payloadByteCount + " != " + actualPayloadByteCount);
+            return null;
+        }
+
+        final byte[] payload = byteArrayReader.readBytes(messageHeader.payloadByteCount, Endian.BIG);
+        if (byteArrayReader.didOverflow()) { return null; }
+
+        return new NodeBinaryRpcMessage(messageHeader.command, MutableByteArray.wrap(payload));
+    }
+}
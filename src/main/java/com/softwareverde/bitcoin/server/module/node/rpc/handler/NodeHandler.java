@@ -6,6 +6,8 @@ import com.softwareverde.bitcoin.server.module.node.rpc.NodeRpcHandler;
 import com.softwareverde.bitcoin.server.node.BitcoinNode;
 import com.softwareverde.constable.list.List;
 import com.softwareverde.network.ip.Ip;
+import com.softwareverde.network.p2p.node.NodeId;
+import com.softwareverde.network.p2p.node.manager.health.NodeHealth;
 
 public class NodeHandler implements NodeRpcHandler.NodeHandler {
     protected final BitcoinNodeManager _nodeManager;
@@ -51,4 +53,9 @@ public class NodeHandler implements NodeRpcHandler.NodeHandler {
     public void removeIpFromWhitelist(final Ip ip) {
         _nodeManager.removeIpFromWhitelist(ip);
     }
+
+    @Override
+    public NodeHealth getNodeHealth(final NodeId nodeId) {
+        return _nodeManager.getNodeHealthMetrics(nodeId);
+    }
 }
@@ -0,0 +1,22 @@
+package com.softwareverde.bitcoin.server.module.node.rpc.handler;
+
+import com.softwareverde.bitcoin.server.module.node.BlockPruner;
+import com.softwareverde.bitcoin.server.module.node.rpc.NodeRpcHandler;
+
+public class PruneInquisitor implements NodeRpcHandler.PruneInquisitor {
+    protected final BlockPruner _blockPruner;
+
+    public PruneInquisitor(final BlockPruner blockPruner) {
+        _blockPruner = blockPruner;
+    }
+
+    @Override
+    public Long getPrunedBlockHeight() {
+        return _blockPruner.getPrunedBlockHeight();
+    }
+
+    @Override
+    public Long getPruneBlockDepth() {
+        return _blockPruner.getPruneBlockDepth();
+    }
+}
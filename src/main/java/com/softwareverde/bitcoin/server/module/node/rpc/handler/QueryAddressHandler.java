@@ -2,24 +2,20 @@ package com.softwareverde.bitcoin.server.module.node.rpc.handler;
 
 import com.softwareverde.bitcoin.address.Address;
 import com.softwareverde.bitcoin.address.AddressId;
-import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.chain.segment.BlockchainSegmentId;
 import com.softwareverde.bitcoin.server.module.node.database.address.AddressDatabaseManager;
-import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.address.AddressTransaction;
 import com.softwareverde.bitcoin.server.module.node.database.blockchain.BlockchainDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManagerFactory;
 import com.softwareverde.bitcoin.server.module.node.database.transaction.TransactionDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.rpc.NodeRpcHandler;
 import com.softwareverde.bitcoin.transaction.Transaction;
-import com.softwareverde.bitcoin.transaction.TransactionId;
 import com.softwareverde.constable.list.List;
 import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
 import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.logging.Logger;
-import com.softwareverde.util.SortUtil;
-
-import java.util.HashMap;
+import com.softwareverde.util.Util;
 
 public class QueryAddressHandler implements NodeRpcHandler.QueryAddressHandler {
     protected final FullNodeDatabaseManagerFactory _databaseManagerFactory;
@@ -45,54 +41,49 @@ public class QueryAddressHandler implements NodeRpcHandler.QueryAddressHandler {
         }
     }
 
+    /**
+     * Returns the page of Transactions sending to or spending from the Address, unconfirmed Transactions first and then newest first.
+     *  The Address's Transactions are resolved without loading them; only the Transactions within the requested page are loaded.
+     *  If pageSize is null, all of the Address's Transactions are returned.
+     */
     @Override
-    public List<Transaction> getAddressTransactions(final Address address) {
+    public List<Transaction> getAddressTransactions(final Address address, final Integer pageSize, final Integer pageNumber) {
         try (final FullNodeDatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
             final BlockchainDatabaseManager blockchainDatabaseManager = databaseManager.getBlockchainDatabaseManager();
-            final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
             final TransactionDatabaseManager transactionDatabaseManager = databaseManager.getTransactionDatabaseManager();
             final AddressDatabaseManager addressDatabaseManager = databaseManager.getAddressDatabaseManager();
 
             final AddressId addressId = addressDatabaseManager.getAddressId(address.toBase58CheckEncoded());
-            final BlockchainSegmentId headChainSegmentId = blockchainDatabaseManager.getHeadBlockchainSegmentId();
-
-            final List<TransactionId> transactionIds = addressDatabaseManager.getTransactionIds(headChainSegmentId, addressId, true);
-
-            final MutableList<Transaction> pendingTransactions = new MutableList<Transaction>(0);
-            final HashMap<Long, MutableList<Transaction>> transactionTimestamps = new HashMap<Long, MutableList<Transaction>>(transactionIds.getSize());
+            if (addressId == null) { return new MutableList<Transaction>(0); }
 
-            for (final TransactionId transactionId : transactionIds) {
-                final BlockId blockId = transactionDatabaseManager.getBlockId(headChainSegmentId, transactionId);
-                final Transaction transaction = transactionDatabaseManager.getTransaction(transactionId);
-
-                if (blockId != null) {
-                    final Long transactionTimestamp = blockHeaderDatabaseManager.getBlockTimestamp(blockId);
+            final BlockchainSegmentId headChainSegmentId = blockchainDatabaseManager.getHeadBlockchainSegmentId();
 
-                    MutableList<Transaction> transactions = transactionTimestamps.get(transactionTimestamp);
-                    if (transactions == null) {
-                        transactions = new MutableList<Transaction>(1);
-                        transactionTimestamps.put(transactionTimestamp, transactions);
-                    }
+            final List<AddressTransaction> addressTransactions = addressDatabaseManager.getAddressTransactions(headChainSegmentId, addressId, true);
 
-                    transactions.add(transaction);
-                }
-                else {
-                    pendingTransactions.add(transaction);
-                }
+            final int transactionCount = addressTransactions.getSize();
+            final int startIndex;
+            final int endIndex;
+            if (pageSize == null) {
+                startIndex = 0;
+                endIndex = transactionCount;
+            }
+            else {
+                final long pageStartIndex = (((long) pageSize) * Math.max(0, Util.coalesce(pageNumber, 0)));
+                startIndex = (int) Math.min(pageStartIndex, transactionCount);
+                endIndex = (int) Math.min((((long) startIndex) + pageSize), transactionCount);
             }
 
-            final ImmutableListBuilder<Transaction> transactions = new ImmutableListBuilder<Transaction>(transactionIds.getSize());
-            { // Add the Transactions in descending order by timestamp...
-                final MutableList<Long> timestamps = new MutableList<Long>(transactionTimestamps.keySet());
-                timestamps.sort(SortUtil.longComparator.reversed());
-
-                transactions.addAll(pendingTransactions); // Display unconfirmed transactions first...
-
-                for (final Long timestamp : timestamps) {
-                    transactions.addAll(transactionTimestamps.get(timestamp));
+            final ImmutableListBuilder<Transaction> transactions = new ImmutableListBuilder<Transaction>(endIndex - startIndex);
+            for (int i = startIndex; i < endIndex; ++i) {
+                final AddressTransaction addressTransaction = addressTransactions.get(i);
+                final Transaction transaction = transactionDatabaseManager.getTransaction(addressTransaction.transactionId);
+                if (transaction == null) {
+                    Logger.warn("Unable to load address transaction: " + addressTransaction.transactionId);
+                    return null;
                 }
-            }
 
+                transactions.add(transaction);
+            }
             return transactions.build();
         }
         catch (final Exception exception) {
@@ -13,6 +13,7 @@ import com.softwareverde.bitcoin.chain.time.MedianBlockTime;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
 import com.softwareverde.bitcoin.server.database.DatabaseConnection;
 import com.softwareverde.bitcoin.server.module.node.BlockCache;
+import com.softwareverde.bitcoin.server.module.node.BlockPruner;
 import com.softwareverde.bitcoin.server.module.node.database.DatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.block.BlockDatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.FullNodeBlockDatabaseManager;
@@ -44,8 +45,13 @@ import com.softwareverde.logging.Logger;
 import com.softwareverde.network.time.NetworkTime;
 import com.softwareverde.util.Container;
 
+/**
+ * Lookups of Blocks and Transactions by hash or height are served by the read-only DatabaseManagerFactory, which may be backed by a read replica.
+ *  Queries that depend upon the current head Block or mempool (e.g. block templates and validation) always use the primary DatabaseManagerFactory.
+ */
 public class RpcDataHandler implements NodeRpcHandler.DataHandler {
     protected final FullNodeDatabaseManagerFactory _databaseManagerFactory;
+    protected final FullNodeDatabaseManagerFactory _readOnlyDatabaseManagerFactory;
     protected final NetworkTime _networkTime;
     protected final MedianBlockTime _medianBlockTime;
     protected final TransactionDownloader _transactionDownloader;
@@ -53,9 +59,21 @@ public class RpcDataHandler implements NodeRpcHandler.DataHandler {
     protected final TransactionValidatorFactory _transactionValidatorFactory;
     protected final BlockDownloader _blockDownloader;
     protected final BlockCache _blockCache;
+    protected volatile BlockPruner _blockPruner = null;
 
-    public RpcDataHandler(final FullNodeDatabaseManagerFactory databaseManagerFactory, final TransactionDownloader transactionDownloader, final BlockDownloader blockDownloader, final BlockValidator blockValidator, final TransactionValidatorFactory transactionValidatorFactory, final NetworkTime networkTime, final MedianBlockTime medianBlockTime, final BlockCache blockCache) {
+    /**
+     * Returns true if the Block at the provided height has been pruned; pruned Blocks are reported as not found.
+     */
+    protected Boolean _isBlockPruned(final Long blockHeight) {
+        final BlockPruner blockPruner = _blockPruner;
+        if (blockPruner == null) { return false; }
+
+        return blockPruner.isBlockPruned(blockHeight);
+    }
+
+    public RpcDataHandler(final FullNodeDatabaseManagerFactory databaseManagerFactory, final FullNodeDatabaseManagerFactory readOnlyDatabaseManagerFactory, final TransactionDownloader transactionDownloader, final BlockDownloader blockDownloader, final BlockValidator blockValidator, final TransactionValidatorFactory transactionValidatorFactory, final NetworkTime networkTime, final MedianBlockTime medianBlockTime, final BlockCache blockCache) {
         _databaseManagerFactory = databaseManagerFactory;
+        _readOnlyDatabaseManagerFactory = readOnlyDatabaseManagerFactory;
 
         _transactionDownloader = transactionDownloader;
         _blockDownloader = blockDownloader;
@@ -66,6 +84,10 @@ public class RpcDataHandler implements NodeRpcHandler.DataHandler {
         _blockCache = blockCache;
     }
 
+    public void setBlockPruner(final BlockPruner blockPruner) {
+        _blockPruner = blockPruner;
+    }
+
     @Override
     public Long getBlockHeaderHeight() {
         try (final DatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
@@ -134,7 +156,7 @@ public class RpcDataHandler implements NodeRpcHandler.DataHandler {
 
     @Override
     public List<BlockHeader> getBlockHeaders(final Long nullableBlockHeight, final Integer maxBlockCount) {
-        try (final DatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+        try (final DatabaseManager databaseManager = _readOnlyDatabaseManagerFactory.newDatabaseManager()) {
             final BlockchainDatabaseManager blockchainDatabaseManager = databaseManager.getBlockchainDatabaseManager();
             final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
 
@@ -173,7 +195,7 @@ public class RpcDataHandler implements NodeRpcHandler.DataHandler {
 
     @Override
     public BlockHeader getBlockHeader(final Long blockHeight) {
-        try (final DatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+        try (final DatabaseManager databaseManager = _readOnlyDatabaseManagerFactory.newDatabaseManager()) {
             final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
             final BlockchainDatabaseManager blockchainDatabaseManager = databaseManager.getBlockchainDatabaseManager();
 
@@ -192,7 +214,7 @@ public class RpcDataHandler implements NodeRpcHandler.DataHandler {
 
     @Override
     public BlockHeader getBlockHeader(final Sha256Hash blockHash) {
-        try (final DatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+        try (final DatabaseManager databaseManager = _readOnlyDatabaseManagerFactory.newDatabaseManager()) {
             final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
 
             final BlockId blockId = blockHeaderDatabaseManager.getBlockHeaderId(blockHash);
@@ -208,7 +230,7 @@ public class RpcDataHandler implements NodeRpcHandler.DataHandler {
 
     @Override
     public Long getBlockHeaderHeight(final Sha256Hash blockHash) {
-        try (final FullNodeDatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+        try (final FullNodeDatabaseManager databaseManager = _readOnlyDatabaseManagerFactory.newDatabaseManager()) {
             final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
 
             final BlockId blockId = blockHeaderDatabaseManager.getBlockHeaderId(blockHash);
@@ -223,7 +245,7 @@ public class RpcDataHandler implements NodeRpcHandler.DataHandler {
 
     @Override
     public Block getBlock(final Long blockHeight) {
-        try (final FullNodeDatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+        try (final FullNodeDatabaseManager databaseManager = _readOnlyDatabaseManagerFactory.newDatabaseManager()) {
             final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
             final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
             final BlockchainDatabaseManager blockchainDatabaseManager = databaseManager.getBlockchainDatabaseManager();
@@ -232,6 +254,7 @@ public class RpcDataHandler implements NodeRpcHandler.DataHandler {
 
             final BlockId blockId = blockHeaderDatabaseManager.getBlockIdAtHeight(headBlockchainSegmentId, blockHeight);
             if (blockId == null) { return null; }
+            if (_isBlockPruned(blockHeight)) { return null; }
 
             if (_blockCache != null) {
                 final Sha256Hash blockHash = blockHeaderDatabaseManager.getBlockHash(blockId);
@@ -257,14 +280,15 @@ public class RpcDataHandler implements NodeRpcHandler.DataHandler {
 
     @Override
     public Block getBlock(final Sha256Hash blockHash) {
-        try (final FullNodeDatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+        try (final FullNodeDatabaseManager databaseManager = _readOnlyDatabaseManagerFactory.newDatabaseManager()) {
             final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
             final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
 
             final BlockId blockId = blockHeaderDatabaseManager.getBlockHeaderId(blockHash);
             if (blockId == null) { return null; }
 
-            final Long blockHeight = (_blockCache != null ? blockHeaderDatabaseManager.getBlockHeight(blockId) : null);
+            final Long blockHeight = blockHeaderDatabaseManager.getBlockHeight(blockId);
+            if (_isBlockPruned(blockHeight)) { return null; }
 
             if (_blockCache != null) {
                 final Block cachedBlock = _blockCache.getCachedBlock(blockHash, blockHeight);
@@ -290,7 +314,7 @@ public class RpcDataHandler implements NodeRpcHandler.DataHandler {
 
     @Override
     public Transaction getTransaction(final Sha256Hash transactionHash) {
-        try (final DatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+        try (final DatabaseManager databaseManager = _readOnlyDatabaseManagerFactory.newDatabaseManager()) {
             final TransactionDatabaseManager transactionDatabaseManager = databaseManager.getTransactionDatabaseManager();
 
             final TransactionId transactionId = transactionDatabaseManager.getTransactionId(transactionHash);
@@ -386,7 +410,7 @@ public class RpcDataHandler implements NodeRpcHandler.DataHandler {
 
     @Override
     public Boolean isSlpTransaction(final Sha256Hash transactionHash) {
-        try (final FullNodeDatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+        try (final FullNodeDatabaseManager databaseManager = _readOnlyDatabaseManagerFactory.newDatabaseManager()) {
             final FullNodeTransactionDatabaseManager transactionDatabaseManager = databaseManager.getTransactionDatabaseManager();
             final SlpTokenId slpTokenId = transactionDatabaseManager.getSlpTokenId(transactionHash);
             return (slpTokenId != null);
@@ -399,7 +423,7 @@ public class RpcDataHandler implements NodeRpcHandler.DataHandler {
 
     @Override
     public Boolean isValidSlpTransaction(final Sha256Hash transactionHash) {
-        try (final FullNodeDatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+        try (final FullNodeDatabaseManager databaseManager = _readOnlyDatabaseManagerFactory.newDatabaseManager()) {
             final BlockchainDatabaseManager blockchainDatabaseManager = databaseManager.getBlockchainDatabaseManager();
             final FullNodeTransactionDatabaseManager transactionDatabaseManager = databaseManager.getTransactionDatabaseManager();
             final SlpTransactionDatabaseManager slpTransactionDatabaseManager = databaseManager.getSlpTransactionDatabaseManager();
@@ -419,7 +443,7 @@ public class RpcDataHandler implements NodeRpcHandler.DataHandler {
 
     @Override
     public SlpTokenId getSlpTokenId(final Sha256Hash transactionHash) {
-        try (final FullNodeDatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+        try (final FullNodeDatabaseManager databaseManager = _readOnlyDatabaseManagerFactory.newDatabaseManager()) {
             final FullNodeTransactionDatabaseManager transactionDatabaseManager = databaseManager.getTransactionDatabaseManager();
             return transactionDatabaseManager.getSlpTokenId(transactionHash);
         }
@@ -0,0 +1,27 @@
+package com.softwareverde.bitcoin.server.module.node.rpc.handler;
+
+import com.softwareverde.bitcoin.server.module.CacheWarmer;
+import com.softwareverde.bitcoin.server.module.node.rpc.NodeRpcHandler;
+
+public class UtxoCacheInquisitor implements NodeRpcHandler.UtxoCacheInquisitor {
+    protected final CacheWarmer _cacheWarmer;
+
+    public UtxoCacheInquisitor(final CacheWarmer cacheWarmer) {
+        _cacheWarmer = cacheWarmer;
+    }
+
+    @Override
+    public Boolean isWarmingUp() {
+        return _cacheWarmer.isWarmingUp();
+    }
+
+    @Override
+    public Long getCachedUtxoCount() {
+        return _cacheWarmer.getCachedUtxoCount();
+    }
+
+    @Override
+    public Long getMaxUtxoCount() {
+        return _cacheWarmer.getMaxUtxoCount();
+    }
+}
@@ -3,6 +3,7 @@ package com.softwareverde.bitcoin.server.module.node.sync;
 import com.softwareverde.bitcoin.block.Block;
 import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.block.header.ImmutableBlockHeader;
 import com.softwareverde.bitcoin.block.header.difficulty.work.ChainWork;
 import com.softwareverde.bitcoin.block.validator.BatchedBlockHeaders;
 import com.softwareverde.bitcoin.block.validator.BlockHeaderValidator;
@@ -17,6 +18,7 @@ import com.softwareverde.bitcoin.server.module.node.manager.BitcoinNodeManager;
 import com.softwareverde.concurrent.pool.ThreadPool;
 import com.softwareverde.concurrent.service.SleepyService;
 import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.database.DatabaseException;
 import com.softwareverde.database.util.TransactionUtil;
 import com.softwareverde.logging.Logger;
@@ -25,10 +27,21 @@ import com.softwareverde.util.Util;
 import com.softwareverde.util.timer.MilliTimer;
 import com.softwareverde.util.type.time.SystemTime;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
-
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Downloads BlockHeaders (headers-first) from the connected peers.
+ *  Each received batch is first staged: its proof-of-work is validated in parallel and its linkage is checked in memory,
+ *  without obtaining the BlockHeaderDatabaseManager.MUTEX.  Once a batch extends the staged chain, the next batch is requested
+ *  (from whichever peer the BitcoinNodeManager selects) while the staged batch is stored; the MUTEX is only held while the batch is
+ *  inserted, validated against its ancestors, and committed.  Batches are stored in the order they were staged.
+ */
 public class BlockHeaderDownloader extends SleepyService {
     public static final Long MAX_TIMEOUT_MS = (15L * 1000L); // 15 Seconds...
+    protected static final Integer MIN_BLOCK_HEADERS_PER_VALIDATION_SEGMENT = 250;
 
     protected final SystemTime _systemTime = new SystemTime();
     protected final DatabaseManagerFactory _databaseManagerFactory;
@@ -42,14 +55,18 @@ public class BlockHeaderDownloader extends SleepyService {
     protected final Container<Float> _averageBlockHeadersPerSecond = new Container<Float>(0F);
 
     protected final Object _headersDownloadedPin = new Object();
+    protected final AtomicBoolean _isStagingHeaders = new AtomicBoolean(false);
     protected final AtomicBoolean _isProcessingHeaders = new AtomicBoolean(false);
+    protected final AtomicBoolean _nextBatchWasRequested = new AtomicBoolean(false); // Set when the callback releases _run to request the next batch before the current batch is stored...
+    protected final ReentrantLock _storeBlockHeadersLock = new ReentrantLock(true);
     protected final Object _genesisBlockPin = new Object();
     protected Boolean _hasGenesisBlock = false;
 
     protected Integer _maxHeaderBatchSize = 2000;
 
     protected Long _blockHeight = 0L;
-    protected Sha256Hash _lastBlockHash = BlockHeader.GENESIS_BLOCK_HASH;
+    protected volatile Sha256Hash _lastBlockHash = BlockHeader.GENESIS_BLOCK_HASH; // The last staged BlockHash; the next batch is requested after this hash...
+    protected Sha256Hash _lastStoredBlockHash = BlockHeader.GENESIS_BLOCK_HASH;
     protected BlockHeader _lastBlockHeader = null;
     protected Long _minBlockTimestamp = (_systemTime.getCurrentTimeInSeconds() - 3600L); // Default to an hour ago...
     protected Long _blockHeaderCount = 0L;
@@ -155,6 +172,90 @@ public class BlockHeaderDownloader extends SleepyService {
         return true;
     }
 
+    /**
+     * Validates the proof-of-work of each BlockHeader and that the BlockHeaders are sequential, without accessing the database.
+     *  Proof-of-work does not depend upon the rest of the chain, so the batch is split into segments that are validated in parallel;
+     *  the calling thread claims segments as well, so a saturated ThreadPool cannot stall staging.
+     *  Returns the BlockHeaders as ImmutableBlockHeaders (whose hashes are only calculated once), or null if the batch is invalid.
+     */
+    protected List<BlockHeader> _stageBlockHeaders(final List<BlockHeader> blockHeaders) {
+        final int blockHeaderCount = blockHeaders.getSize();
+        if (blockHeaderCount == 0) { return null; }
+
+        final Runtime runtime = Runtime.getRuntime();
+        final int segmentCount = Math.max(1, Math.min(runtime.availableProcessors(), (blockHeaderCount / MIN_BLOCK_HEADERS_PER_VALIDATION_SEGMENT)));
+        final int segmentSize = (((blockHeaderCount + segmentCount) - 1) / segmentCount);
+
+        final ImmutableBlockHeader[] stagedBlockHeaders = new ImmutableBlockHeader[blockHeaderCount];
+        final AtomicInteger nextSegmentIndex = new AtomicInteger(0);
+        final AtomicBoolean proofOfWorkIsValid = new AtomicBoolean(true);
+        final CountDownLatch completedSegmentsLatch = new CountDownLatch(segmentCount);
+
+        final Runnable validateSegments = new Runnable() {
+            @Override
+            public void run() {
+                int segmentIndex;
+                while ((segmentIndex = nextSegmentIndex.getAndIncrement()) < segmentCount) {
+                    try {
+                        final int startIndex = (segmentIndex * segmentSize);
+                        final int endIndex = Math.min(blockHeaderCount, (startIndex + segmentSize));
+                        for (int i = startIndex; i < endIndex; ++i) {
+                            if (! proofOfWorkIsValid.get()) { break; }
+
+                            final BlockHeader blockHeader = blockHeaders.get(i);
+                            if (! blockHeader.isValid()) {
+                                Logger.info("Invalid BlockHeader: " + blockHeader.getHash());
+                                proofOfWorkIsValid.set(false);
+                                break;
+                            }
+
+                            stagedBlockHeaders[i] = blockHeader.asConst();
+                        }
+                    }
+                    catch (final Exception exception) {
+                        Logger.warn(exception);
+                        proofOfWorkIsValid.set(false);
+                    }
+                    finally {
+                        completedSegmentsLatch.countDown();
+                    }
+                }
+            }
+        };
+
+        for (int i = 1; i < segmentCount; ++i) {
+            _threadPool.execute(validateSegments);
+        }
+        validateSegments.run();
+
+        try {
+            completedSegmentsLatch.await();
+        }
+        catch (final InterruptedException exception) {
+            final Thread currentThread = Thread.currentThread();
+            currentThread.interrupt(); // Do not consume the interrupted status...
+            return null;
+        }
+
+        if (! proofOfWorkIsValid.get()) { return null; }
+
+        final MutableList<BlockHeader> stagedBlockHeaderList = new MutableList<BlockHeader>(blockHeaderCount);
+        { // Validate blockHeaders are sequential...
+            Sha256Hash previousBlockHash = stagedBlockHeaders[0].getPreviousBlockHash();
+            for (final ImmutableBlockHeader blockHeader : stagedBlockHeaders) {
+                if (! Util.areEqual(previousBlockHash, blockHeader.getPreviousBlockHash())) { return null; }
+
+                previousBlockHash = blockHeader.getHash();
+                stagedBlockHeaderList.add(blockHeader);
+            }
+        }
+        return stagedBlockHeaderList;
+    }
+
+    /**
+     * Stores the staged BlockHeaders and validates their timestamps and difficulties.
+     *  The BlockHeaders' proof-of-work and linkage must have already been validated via ::_stageBlockHeaders.
+     */
     protected Boolean _validateAndStoreBlockHeaders(final List<BlockHeader> blockHeaders, final DatabaseManager databaseManager) throws DatabaseException {
         if (blockHeaders.isEmpty()) { return true; }
 
@@ -162,9 +263,8 @@ public class BlockHeaderDownloader extends SleepyService {
         final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
 
         synchronized (BlockHeaderDatabaseManager.MUTEX) {
-            { // Validate blockHeaders are sequential...
+            { // Validate the first blockHeader is connected to the stored chain...
                 final BlockHeader firstBlockHeader = blockHeaders.get(0);
-                if (! firstBlockHeader.isValid()) { return false; }
 
                 final BlockId previousBlockId = blockHeaderDatabaseManager.getBlockHeaderId(firstBlockHeader.getPreviousBlockHash());
                 final Boolean previousBlockExists = (previousBlockId != null);
@@ -183,14 +283,6 @@ public class BlockHeaderDownloader extends SleepyService {
                         return true;
                     }
                 }
-                Sha256Hash previousBlockHash = firstBlockHeader.getPreviousBlockHash();
-                for (final BlockHeader blockHeader : blockHeaders) {
-                    if (! blockHeader.isValid()) { return false; }
-                    if (! Util.areEqual(previousBlockHash, blockHeader.getPreviousBlockHash())) {
-                        return false;
-                    }
-                    previousBlockHash = blockHeader.getHash();
-                }
             }
 
             final BlockHeaderValidator blockValidator = _blockValidatorFactory.newBlockHeaderValidator(databaseManager, _nodeManager.getNetworkTime(), _medianBlockTime);
@@ -217,7 +309,7 @@ public class BlockHeaderDownloader extends SleepyService {
                 validationBlockHeight += 1L;
             }
 
-            final BlockHeaderValidator.BlockHeaderValidationResponse blockHeaderValidationResponse = blockValidator.validateBlockHeaders(batchedBlockHeaders);
+            final BlockHeaderValidator.BlockHeaderValidationResponse blockHeaderValidationResponse = blockValidator.validateBlockHeadersWithoutProofOfWork(batchedBlockHeaders);
             if (! blockHeaderValidationResponse.isValid) {
                 Logger.info("Invalid BlockHeader: " + blockHeaderValidationResponse.errorMessage);
                 TransactionUtil.rollbackTransaction(databaseConnection);
@@ -234,7 +326,7 @@ public class BlockHeaderDownloader extends SleepyService {
         }
     }
 
-    protected void _processBlockHeaders(final List<BlockHeader> blockHeaders) {
+    protected Boolean _processBlockHeaders(final List<BlockHeader> blockHeaders) {
         final MilliTimer storeHeadersTimer = new MilliTimer();
         storeHeadersTimer.start();
 
@@ -243,7 +335,7 @@ public class BlockHeaderDownloader extends SleepyService {
 
         try (final DatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
             final Boolean headersAreValid = _validateAndStoreBlockHeaders(blockHeaders, databaseManager);
-            if (! headersAreValid) { return; }
+            if (! headersAreValid) { return false; }
 
             for (final BlockHeader blockHeader : blockHeaders) {
                 final Sha256Hash blockHash = blockHeader.getHash();
@@ -257,7 +349,7 @@ public class BlockHeaderDownloader extends SleepyService {
                     }
                 });
 
-                _lastBlockHash = blockHash;
+                _lastStoredBlockHash = blockHash;
                 _lastBlockHeader = blockHeader;
             }
 
@@ -268,11 +360,12 @@ public class BlockHeaderDownloader extends SleepyService {
         }
         catch (final DatabaseException exception) {
             Logger.warn("Processing BlockHeaders failed.", exception);
-            return;
+            return false;
         }
 
         storeHeadersTimer.stop();
-        Logger.info("Stored Block Headers: " + firstBlockHeader.getHash() + " - " + _lastBlockHash + " (" + storeHeadersTimer.getMillisecondsElapsed() + "ms)");
+        Logger.info("Stored Block Headers: " + firstBlockHeader.getHash() + " - " + _lastStoredBlockHash + " (" + storeHeadersTimer.getMillisecondsElapsed() + "ms)");
+        return true;
     }
 
     public BlockHeaderDownloader(final DatabaseManagerFactory databaseManagerFactory, final BitcoinNodeManager nodeManager, final BlockValidatorFactory blockValidatorFactory, final MutableMedianBlockTime medianBlockTime, final BlockDownloadRequester blockDownloadRequester, final ThreadPool threadPool) {
@@ -287,14 +380,50 @@ public class BlockHeaderDownloader extends SleepyService {
         _downloadBlockHeadersCallback = new BitcoinNodeManager.DownloadBlockHeadersCallback() {
             @Override
             public void onResult(final List<BlockHeader> blockHeaders) {
-                if (! _isProcessingHeaders.compareAndSet(false, true)) { return; }
+                if (! _isStagingHeaders.compareAndSet(false, true)) { return; }
 
+                final List<BlockHeader> stagedBlockHeaders;
                 try {
-                    _processBlockHeaders(blockHeaders);
+                    stagedBlockHeaders = _stageBlockHeaders(blockHeaders);
+                    if (stagedBlockHeaders == null) {
+                        synchronized (_headersDownloadedPin) {
+                            _headersDownloadedPin.notifyAll();
+                        }
+                        return;
+                    }
 
-                    final Runnable newBlockHeaderAvailableCallback = _newBlockHeaderAvailableCallback;
-                    if (newBlockHeaderAvailableCallback != null) {
-                        _threadPool.execute(newBlockHeaderAvailableCallback);
+                    _storeBlockHeadersLock.lock(); // Acquired before the next batch may be staged, so that batches are stored in the order they were staged...
+                }
+                finally {
+                    _isStagingHeaders.set(false);
+                }
+
+                boolean nextBatchWasRequested = false;
+                try {
+                    _isProcessingHeaders.set(true);
+
+                    final BlockHeader firstBlockHeader = stagedBlockHeaders.get(0);
+                    final BlockHeader lastBlockHeader = stagedBlockHeaders.get(stagedBlockHeaders.getSize() - 1);
+                    final Boolean extendsStagedChain = Util.areEqual(_lastBlockHash, firstBlockHeader.getPreviousBlockHash());
+                    _lastBlockHash = lastBlockHeader.getHash();
+
+                    if (extendsStagedChain) { // Request the next batch while this batch is being stored...
+                        _nextBatchWasRequested.set(true);
+                        synchronized (_headersDownloadedPin) {
+                            _headersDownloadedPin.notifyAll();
+                        }
+                        nextBatchWasRequested = true;
+                    }
+
+                    final Boolean blockHeadersWereStored = _processBlockHeaders(stagedBlockHeaders);
+                    if (blockHeadersWereStored) {
+                        final Runnable newBlockHeaderAvailableCallback = _newBlockHeaderAvailableCallback;
+                        if (newBlockHeaderAvailableCallback != null) {
+                            _threadPool.execute(newBlockHeaderAvailableCallback);
+                        }
+                    }
+                    else {
+                        _lastBlockHash = _lastStoredBlockHash; // Discard the remainder of the staged chain...
                     }
                 }
                 finally {
@@ -303,8 +432,12 @@ public class BlockHeaderDownloader extends SleepyService {
                         _isProcessingHeaders.notifyAll();
                     }
 
-                    synchronized (_headersDownloadedPin) {
-                        _headersDownloadedPin.notifyAll();
+                    _storeBlockHeadersLock.unlock();
+
+                    if (! nextBatchWasRequested) {
+                        synchronized (_headersDownloadedPin) {
+                            _headersDownloadedPin.notifyAll();
+                        }
                     }
                 }
             }
@@ -328,16 +461,19 @@ public class BlockHeaderDownloader extends SleepyService {
             if (headBlockId != null) {
                 final Sha256Hash headBlockHash = blockHeaderDatabaseManager.getBlockHash(headBlockId);
                 _lastBlockHash = headBlockHash;
+                _lastStoredBlockHash = headBlockHash;
                 _blockHeight = blockHeaderDatabaseManager.getBlockHeight(headBlockId);
             }
             else {
                 _lastBlockHash = Block.GENESIS_BLOCK_HASH;
+                _lastStoredBlockHash = Block.GENESIS_BLOCK_HASH;
                 _blockHeight = 0L;
             }
         }
         catch (final DatabaseException exception) {
             Logger.warn(exception);
             _lastBlockHash = Util.coalesce(_lastBlockHash, Block.GENESIS_BLOCK_HASH);
+            _lastStoredBlockHash = _lastBlockHash;
         }
 
         if (! _checkForGenesisBlockHeader()) {
@@ -354,6 +490,7 @@ public class BlockHeaderDownloader extends SleepyService {
             }
         }
 
+        _nextBatchWasRequested.set(false);
         _nodeManager.requestBlockHeadersAfter(_lastBlockHash, _downloadBlockHeadersCallback);
 
         synchronized (_headersDownloadedPin) {
@@ -365,6 +502,9 @@ public class BlockHeaderDownloader extends SleepyService {
             try { _headersDownloadedPin.wait(MAX_TIMEOUT_MS); }
             catch (final InterruptedException exception) { return false; }
 
+            // The callback released the pin before storing its batch; return immediately so the next batch is requested while the current batch is stored...
+            if (_nextBatchWasRequested.getAndSet(false)) { return true; }
+
             // If the _headersDownloadedPin timed out because processing the headers took too long, wait for the processing to complete and then consider it a success.
             synchronized (_isProcessingHeaders) {
                 if (_isProcessingHeaders.get()) {
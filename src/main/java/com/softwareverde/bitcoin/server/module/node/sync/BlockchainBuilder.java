@@ -5,6 +5,7 @@ import com.softwareverde.bitcoin.block.Block;
 import com.softwareverde.bitcoin.block.BlockHasher;
 import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.block.LazyBlockInflater;
 import com.softwareverde.bitcoin.block.header.BlockHeader;
 import com.softwareverde.bitcoin.chain.segment.BlockchainSegmentId;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
@@ -41,6 +42,7 @@ public class BlockchainBuilder extends SleepyService {
     protected final BitcoinNodeManager _bitcoinNodeManager;
     protected final FullNodeDatabaseManagerFactory _databaseManagerFactory;
     protected final BlockInflaters _blockInflaters;
+    protected final LazyBlockInflater _pendingBlockInflater = new LazyBlockInflater(); // Pending Block data is read from the database and never modified, so its Transactions may reference it directly...
     protected final BlockProcessor _blockProcessor;
     protected final BlockDownloader.StatusMonitor _downloadStatusMonitor;
     protected final BlockDownloadRequester _blockDownloadRequester;
@@ -53,8 +55,7 @@ public class BlockchainBuilder extends SleepyService {
         final ByteArray blockData = pendingBlock.getData();
         if (blockData == null) { return false; }
 
-        final BlockInflater blockInflater = _blockInflaters.getBlockInflater();
-        final Block block = blockInflater.fromBytes(blockData);
+        final Block block = _pendingBlockInflater.fromBytes(blockData);
 
         if (block != null) {
 
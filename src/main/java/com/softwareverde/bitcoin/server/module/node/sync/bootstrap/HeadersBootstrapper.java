@@ -3,33 +3,183 @@ package com.softwareverde.bitcoin.server.module.node.sync.bootstrap;
 import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.block.header.BlockHeader;
 import com.softwareverde.bitcoin.block.header.BlockHeaderInflater;
+import com.softwareverde.bitcoin.block.header.ImmutableBlockHeader;
+import com.softwareverde.bitcoin.block.header.MutableBlockHeader;
+import com.softwareverde.bitcoin.block.header.difficulty.Difficulty;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
 import com.softwareverde.bitcoin.server.database.DatabaseConnection;
 import com.softwareverde.bitcoin.server.module.node.database.DatabaseManager;
 import com.softwareverde.bitcoin.server.module.node.database.DatabaseManagerFactory;
 import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
-import com.softwareverde.bitcoin.util.IoUtil;
-import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.concurrent.pool.MainThreadPool;
 import com.softwareverde.constable.list.List;
 import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.database.util.TransactionUtil;
 import com.softwareverde.logging.Logger;
+import com.softwareverde.util.Util;
+import com.softwareverde.util.timer.MilliTimer;
 import com.softwareverde.util.type.time.SystemTime;
 
+import java.io.File;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Loads the bundled BlockHeaders (/bootstrap/headers.dat) into the database.
+ *  The bootstrap file is memory-mapped and each header is read directly from the mapping (i.e. without an InputStream).
+ *  Each batch of headers is inflated, hashed, and has its proof-of-work validated across multiple threads while the previous
+ *  batch is inserted; the BlockHeaderDatabaseManager.MUTEX is only held while a batch is inserted and committed.
+ */
 public class HeadersBootstrapper {
     protected static final Long BOOTSTRAP_BLOCK_COUNT = 575000L;
+    protected static final String BOOTSTRAP_FILE_NAME = "/bootstrap/headers.dat";
+    protected static final Integer BATCH_SIZE = 4096;
+
+    protected static class InflatedBatch {
+        public final ImmutableBlockHeader[] blockHeaders;
+        public final CountDownLatch completedSegmentsLatch;
+        public final AtomicBoolean isValid = new AtomicBoolean(true);
+
+        public InflatedBatch(final Integer blockHeaderCount, final Integer segmentCount) {
+            this.blockHeaders = new ImmutableBlockHeader[blockHeaderCount];
+            this.completedSegmentsLatch = new CountDownLatch(segmentCount);
+        }
+    }
 
     protected final DatabaseManagerFactory _databaseManagerFactory;
     protected final SystemTime _systemTime = new SystemTime();
+    protected final Integer _threadCount;
     protected Long _currentBlockHeight = 0L;
     protected Boolean _abortInit = false;
 
+    /**
+     * Maps the bootstrap file into memory.
+     *  If the bootstrap file is packaged within a jar, it is first extracted to a temporary file so that it may be mapped.
+     *  Returns null if the bootstrap file does not exist.
+     */
+    protected ByteBuffer _mapBootstrapFile() throws Exception {
+        final URL url = HeadersBootstrapper.class.getResource(BOOTSTRAP_FILE_NAME);
+        if (url == null) { return null; }
+
+        final File file;
+        if (Util.areEqual("file", url.getProtocol())) {
+            file = new File(url.toURI());
+        }
+        else {
+            file = File.createTempFile("headers", ".dat");
+            file.deleteOnExit();
+
+            try (final InputStream inputStream = url.openStream()) {
+                Files.copy(inputStream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            final FileChannel fileChannel = randomAccessFile.getChannel();
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, 0L, randomAccessFile.length()); // The mapping remains valid after the channel is closed...
+        }
+    }
+
+    /**
+     * Inflates the BlockHeaders at [firstBlockHeight, firstBlockHeight + blockHeaderCount) from the mapped bootstrap file.
+     *  The batch is split into one segment per thread; each header's hash is calculated once (via ImmutableBlockHeader) and
+     *  its proof-of-work is validated against that hash.  The returned InflatedBatch is complete once its latch reaches zero.
+     */
+    protected InflatedBatch _inflateBatch(final ByteBuffer mappedBootstrapFile, final long firstBlockHeight, final int blockHeaderCount, final MainThreadPool threadPool) {
+        final int segmentCount = Math.max(1, Math.min(_threadCount, blockHeaderCount));
+        final int segmentSize = (((blockHeaderCount + segmentCount) - 1) / segmentCount);
+
+        final InflatedBatch inflatedBatch = new InflatedBatch(blockHeaderCount, segmentCount);
+
+        for (int segmentIndex = 0; segmentIndex < segmentCount; ++segmentIndex) {
+            final int startIndex = (segmentIndex * segmentSize);
+            final int endIndex = Math.min(blockHeaderCount, (startIndex + segmentSize));
+
+            threadPool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final BlockHeaderInflater blockHeaderInflater = new BlockHeaderInflater();
+                        final ByteBuffer byteBuffer = mappedBootstrapFile.duplicate(); // Each segment requires its own position...
+                        final byte[] buffer = new byte[BlockHeaderInflater.BLOCK_HEADER_BYTE_COUNT];
+
+                        for (int i = startIndex; i < endIndex; ++i) {
+                            if (! inflatedBatch.isValid.get()) { return; }
+
+                            final long byteOffset = ((firstBlockHeight + i) * BlockHeaderInflater.BLOCK_HEADER_BYTE_COUNT);
+                            byteBuffer.position((int) byteOffset);
+                            byteBuffer.get(buffer);
+
+                            final MutableBlockHeader blockHeader = blockHeaderInflater.fromBytes(buffer);
+                            if (blockHeader == null) {
+                                inflatedBatch.isValid.set(false);
+                                return;
+                            }
+
+                            final ImmutableBlockHeader immutableBlockHeader = blockHeader.asConst();
+                            final Sha256Hash blockHash = immutableBlockHeader.getHash();
+                            final Difficulty difficulty = immutableBlockHeader.getDifficulty();
+                            if (! difficulty.isSatisfiedBy(blockHash)) {
+                                Logger.warn("Invalid bootstrap BlockHeader: " + blockHash);
+                                inflatedBatch.isValid.set(false);
+                                return;
+                            }
+
+                            inflatedBatch.blockHeaders[i] = immutableBlockHeader;
+                        }
+                    }
+                    catch (final Exception exception) {
+                        Logger.warn(exception);
+                        inflatedBatch.isValid.set(false);
+                    }
+                    finally {
+                        inflatedBatch.completedSegmentsLatch.countDown();
+                    }
+                }
+            });
+        }
+
+        return inflatedBatch;
+    }
+
+    /**
+     * Waits for the InflatedBatch to complete and returns its BlockHeaders.
+     *  Returns null if the batch was invalid, or if its BlockHeaders are not sequential (beginning with previousBlockHash, if provided).
+     */
+    protected List<BlockHeader> _getInflatedBlockHeaders(final InflatedBatch inflatedBatch, final Sha256Hash previousBlockHash) throws InterruptedException {
+        inflatedBatch.completedSegmentsLatch.await();
+        if (! inflatedBatch.isValid.get()) { return null; }
+
+        final MutableList<BlockHeader> blockHeaders = new MutableList<BlockHeader>(inflatedBatch.blockHeaders.length);
+        Sha256Hash expectedPreviousBlockHash = previousBlockHash;
+        for (final ImmutableBlockHeader blockHeader : inflatedBatch.blockHeaders) {
+            if (expectedPreviousBlockHash != null) {
+                if (! Util.areEqual(expectedPreviousBlockHash, blockHeader.getPreviousBlockHash())) { return null; }
+            }
+
+            expectedPreviousBlockHash = blockHeader.getHash();
+            blockHeaders.add(blockHeader);
+        }
+        return blockHeaders;
+    }
+
     public HeadersBootstrapper(final DatabaseManagerFactory databaseManagerFactory) {
+        final Runtime runtime = Runtime.getRuntime();
+
         _databaseManagerFactory = databaseManagerFactory;
+        _threadCount = Math.max(1, runtime.availableProcessors());
     }
 
     public void run() {
+        final MainThreadPool threadPool = new MainThreadPool(_threadCount, 1000L);
+
         try (final DatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
             final DatabaseConnection databaseConnection = databaseManager.getDatabaseConnection();
             final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
@@ -37,79 +187,76 @@ public class HeadersBootstrapper {
             final BlockId headBlockHeaderId = blockHeaderDatabaseManager.getHeadBlockHeaderId();
 
             final long maxDatFileHeight = (BOOTSTRAP_BLOCK_COUNT - 1L);
-            final long startingHeight = (headBlockHeaderId == null ? 0L : blockHeaderDatabaseManager.getBlockHeight(headBlockHeaderId));
-            if (startingHeight < maxDatFileHeight) {
-                long currentBlockHeight = startingHeight;
-
-                final BlockHeaderInflater blockHeaderInflater = new BlockHeaderInflater();
-
-                try (final InputStream inputStream = HeadersBootstrapper.class.getResourceAsStream("/bootstrap/headers.dat")) {
-                    if (inputStream == null) {
-                        Logger.warn("Unable to open headers bootstrap file.");
-                        return;
-                    }
+            final long startingHeight = (headBlockHeaderId == null ? 0L : (blockHeaderDatabaseManager.getBlockHeight(headBlockHeaderId) + 1L));
+            if (startingHeight > maxDatFileHeight) { return; }
 
-                    synchronized (BlockHeaderDatabaseManager.MUTEX) {
-                        IoUtil.skipBytes((startingHeight * BlockHeaderInflater.BLOCK_HEADER_BYTE_COUNT), inputStream);
-
-                        final MutableByteArray buffer = new MutableByteArray(BlockHeaderInflater.BLOCK_HEADER_BYTE_COUNT);
-
-                        final int batchSize = 4096;
-                        final MutableList<BlockHeader> batchedHeaders = new MutableList<BlockHeader>(batchSize);
+            final ByteBuffer mappedBootstrapFile = _mapBootstrapFile();
+            if (mappedBootstrapFile == null) {
+                Logger.warn("Unable to open headers bootstrap file.");
+                return;
+            }
 
-                        final Thread currentThread = Thread.currentThread();
-                        while ( (! _abortInit) && (! currentThread.isInterrupted()) ) {
-                            int readByteCount = inputStream.read(buffer.unwrap());
-                            while ( (readByteCount >= 0) && (readByteCount < BlockHeaderInflater.BLOCK_HEADER_BYTE_COUNT) ) {
-                                final int nextByte = inputStream.read();
-                                if (nextByte < 0) { break; }
+            final long blockHeaderCount = Math.min(BOOTSTRAP_BLOCK_COUNT, (mappedBootstrapFile.capacity() / BlockHeaderInflater.BLOCK_HEADER_BYTE_COUNT));
+            Sha256Hash previousBlockHash = (headBlockHeaderId == null ? null : blockHeaderDatabaseManager.getBlockHash(headBlockHeaderId));
 
-                                buffer.set(readByteCount, (byte) nextByte);
-                                readByteCount += 1;
-                            }
-                            if (readByteCount != BlockHeaderInflater.BLOCK_HEADER_BYTE_COUNT) { break; }
+            final MilliTimer milliTimer = new MilliTimer();
+            milliTimer.start();
 
-                            final BlockHeader blockHeader = blockHeaderInflater.fromBytes(buffer);
-                            if (blockHeader == null) { break; }
+            long currentBlockHeight = startingHeight;
+            _currentBlockHeight = currentBlockHeight;
 
-                            batchedHeaders.add(blockHeader);
-                            if (batchedHeaders.getSize() == batchSize) {
-                                TransactionUtil.startTransaction(databaseConnection);
-                                final List<BlockId> blockIds = blockHeaderDatabaseManager.insertBlockHeaders(batchedHeaders);
-                                TransactionUtil.commitTransaction(databaseConnection);
+            InflatedBatch nextInflatedBatch = null;
+            if (currentBlockHeight < blockHeaderCount) {
+                final int batchSize = (int) Math.min(BATCH_SIZE, (blockHeaderCount - currentBlockHeight));
+                nextInflatedBatch = _inflateBatch(mappedBootstrapFile, currentBlockHeight, batchSize, threadPool);
+            }
 
-                                batchedHeaders.clear();
+            final Thread currentThread = Thread.currentThread();
+            while ( (nextInflatedBatch != null) && (! _abortInit) && (! currentThread.isInterrupted()) ) {
+                final List<BlockHeader> blockHeaders = _getInflatedBlockHeaders(nextInflatedBatch, previousBlockHash);
+                if (blockHeaders == null) {
+                    Logger.warn("Invalid headers bootstrap file near height " + currentBlockHeight + ".");
+                    break;
+                }
 
-                                if (blockIds == null) { break; }
-                                currentBlockHeight += blockIds.getSize();
-                            }
+                final long nextBlockHeight = (currentBlockHeight + blockHeaders.getSize());
+                nextInflatedBatch = null;
+                if (nextBlockHeight < blockHeaderCount) { // Inflate the next batch while this batch is inserted...
+                    final int batchSize = (int) Math.min(BATCH_SIZE, (blockHeaderCount - nextBlockHeight));
+                    nextInflatedBatch = _inflateBatch(mappedBootstrapFile, nextBlockHeight, batchSize, threadPool);
+                }
 
-                            _currentBlockHeight = currentBlockHeight;
-                        }
+                final List<BlockId> blockIds;
+                synchronized (BlockHeaderDatabaseManager.MUTEX) {
+                    TransactionUtil.startTransaction(databaseConnection);
+                    blockIds = blockHeaderDatabaseManager.insertBlockHeaders(blockHeaders);
+                    TransactionUtil.commitTransaction(databaseConnection);
+                }
+                if (blockIds == null) { break; }
 
-                        if (! batchedHeaders.isEmpty()) {
-                            TransactionUtil.startTransaction(databaseConnection);
-                            final List<BlockId> blockIds = blockHeaderDatabaseManager.insertBlockHeaders(batchedHeaders);
-                            TransactionUtil.commitTransaction(databaseConnection);
+                final BlockHeader lastBlockHeader = blockHeaders.get(blockHeaders.getSize() - 1);
+                previousBlockHash = lastBlockHeader.getHash();
 
-                            batchedHeaders.clear();
+                currentBlockHeight += blockIds.getSize();
+                _currentBlockHeight = currentBlockHeight;
+            }
 
-                            if (blockIds != null) {
-                                _currentBlockHeight += blockIds.getSize();
-                            }
-                        }
+            milliTimer.stop();
+            Logger.info("Bootstrapped " + (currentBlockHeight - startingHeight) + " headers in " + milliTimer.getMillisecondsElapsed() + "ms.");
 
-                        if ( (Thread.interrupted()) || (_abortInit) ) { return; } // Intentionally always clear the interrupted flag...
-                    }
-                }
-            }
+            if ( (Thread.interrupted()) || (_abortInit) ) { return; } // Intentionally always clear the interrupted flag...
+        }
+        catch (final InterruptedException exception) {
+            Logger.debug(exception);
         }
         catch (final Exception exception) {
             Logger.warn(exception);
         }
+        finally {
+            threadPool.stop();
+        }
     }
 
-
     public Long getCurrentBlockHeight() {
         return _currentBlockHeight;
     }
@@ -0,0 +1,44 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
+import com.softwareverde.constable.list.List;
+
+/**
+ * The outputs consumed by a Block, recorded when the Block is processed so that the Block may later be disconnected
+ *  (or pruned) without re-deriving its spent outputs from the database.
+ *  Spent outputs are in the order of the Block's (non-coinbase) inputs.
+ */
+public class BlockUndoData {
+    public static class SpentOutput {
+        public final Sha256Hash transactionHash;
+        public final Integer outputIndex;
+        public final TransactionOutputId transactionOutputId; // May be null if the output was not stored...
+        public final Long blockHeight; // The height of the Block that created the output...
+        public final Long amount;
+        public final LockingScript lockingScript;
+
+        public SpentOutput(final Sha256Hash transactionHash, final Integer outputIndex, final TransactionOutputId transactionOutputId, final Long blockHeight, final Long amount, final LockingScript lockingScript) {
+            this.transactionHash = transactionHash;
+            this.outputIndex = outputIndex;
+            this.transactionOutputId = transactionOutputId;
+            this.blockHeight = blockHeight;
+            this.amount = amount;
+            this.lockingScript = lockingScript;
+        }
+
+        public TransactionOutputIdentifier getTransactionOutputIdentifier() {
+            return new TransactionOutputIdentifier(this.transactionHash, this.outputIndex);
+        }
+    }
+
+    public final Sha256Hash blockHash;
+    public final List<SpentOutput> spentOutputs;
+
+    public BlockUndoData(final Sha256Hash blockHash, final List<SpentOutput> spentOutputs) {
+        this.blockHash = blockHash;
+        this.spentOutputs = spentOutputs;
+    }
+}
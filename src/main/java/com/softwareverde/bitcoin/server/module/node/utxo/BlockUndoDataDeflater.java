@@ -0,0 +1,40 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.Endian;
+
+/**
+ * Serializes BlockUndoData as:
+ *  [BlockHash (32, big-endian)][SpentOutputCount (VarInt)]
+ *  followed by SpentOutputCount outputs, each as:
+ *  [TransactionHash (32, big-endian)][OutputIndex (4)][TransactionOutputId (8; 0 if unknown)][BlockHeight (4)][Amount (8)][LockingScriptByteCount (VarInt)][LockingScript]
+ *  Integers are little-endian unless specified otherwise.
+ */
+public class BlockUndoDataDeflater {
+    protected void _appendBytes(final BlockUndoData blockUndoData, final ByteArrayBuilder byteArrayBuilder) {
+        byteArrayBuilder.appendBytes(blockUndoData.blockHash, Endian.BIG);
+        byteArrayBuilder.appendBytes(ByteUtil.variableLengthIntegerToBytes(blockUndoData.spentOutputs.getSize()), Endian.BIG);
+
+        for (final BlockUndoData.SpentOutput spentOutput : blockUndoData.spentOutputs) {
+            final ByteArray lockingScriptBytes = spentOutput.lockingScript.getBytes();
+            final Long transactionOutputId = (spentOutput.transactionOutputId != null ? spentOutput.transactionOutputId.longValue() : 0L);
+
+            byteArrayBuilder.appendBytes(spentOutput.transactionHash, Endian.BIG);
+            byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(spentOutput.outputIndex), Endian.LITTLE);
+            byteArrayBuilder.appendBytes(ByteUtil.longToBytes(transactionOutputId), Endian.LITTLE);
+            byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(spentOutput.blockHeight.intValue()), Endian.LITTLE);
+            byteArrayBuilder.appendBytes(ByteUtil.longToBytes(spentOutput.amount), Endian.LITTLE);
+            byteArrayBuilder.appendBytes(ByteUtil.variableLengthIntegerToBytes(lockingScriptBytes.getByteCount()), Endian.BIG);
+            byteArrayBuilder.appendBytes(lockingScriptBytes, Endian.BIG);
+        }
+    }
+
+    public ByteArray toBytes(final BlockUndoData blockUndoData) {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        _appendBytes(blockUndoData, byteArrayBuilder);
+        return MutableByteArray.wrap(byteArrayBuilder.build());
+    }
+}
@@ -0,0 +1,45 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.transaction.script.locking.ImmutableLockingScript;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
+import com.softwareverde.util.bytearray.Endian;
+
+public class BlockUndoDataInflater {
+    protected BlockUndoData _fromByteArrayReader(final ByteArrayReader byteArrayReader) {
+        final Sha256Hash blockHash = MutableSha256Hash.wrap(byteArrayReader.readBytes(Sha256Hash.BYTE_COUNT, Endian.BIG));
+        final Integer spentOutputCount = byteArrayReader.readVariableSizedInteger().intValue();
+        if (byteArrayReader.didOverflow()) { return null; }
+        if (spentOutputCount < 0) { return null; }
+
+        final ImmutableListBuilder<BlockUndoData.SpentOutput> spentOutputs = new ImmutableListBuilder<BlockUndoData.SpentOutput>(spentOutputCount);
+        for (int i = 0; i < spentOutputCount; ++i) {
+            final Sha256Hash transactionHash = MutableSha256Hash.wrap(byteArrayReader.readBytes(Sha256Hash.BYTE_COUNT, Endian.BIG));
+            final Integer outputIndex = byteArrayReader.readInteger(4, Endian.LITTLE);
+            final Long transactionOutputId = byteArrayReader.readLong(8, Endian.LITTLE);
+            final Long blockHeight = byteArrayReader.readLong(4, Endian.LITTLE);
+            final Long amount = byteArrayReader.readLong(8, Endian.LITTLE);
+            final Integer lockingScriptByteCount = byteArrayReader.readVariableSizedInteger().intValue();
+            if ( (lockingScriptByteCount < 0) || (lockingScriptByteCount > byteArrayReader.remainingByteCount()) ) { return null; }
+            final byte[] lockingScriptBytes = byteArrayReader.readBytes(lockingScriptByteCount, Endian.BIG);
+            if (byteArrayReader.didOverflow()) { return null; }
+
+            spentOutputs.add(new BlockUndoData.SpentOutput(transactionHash, outputIndex, (transactionOutputId > 0L ? TransactionOutputId.wrap(transactionOutputId) : null), blockHeight, amount, new ImmutableLockingScript(MutableByteArray.wrap(lockingScriptBytes))));
+        }
+
+        return new BlockUndoData(blockHash, spentOutputs.build());
+    }
+
+    public BlockUndoData fromBytes(final ByteArrayReader byteArrayReader) {
+        return _fromByteArrayReader(byteArrayReader);
+    }
+
+    public BlockUndoData fromBytes(final byte[] bytes) {
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+        return _fromByteArrayReader(byteArrayReader);
+    }
+}
@@ -0,0 +1,51 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.block.BlockId;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Retains the BlockUndoRecords of the most recently connected Blocks.
+ *  Reorganizations deeper than the retained depth must rebuild their BlockUndoRecords from the database.
+ */
+public class BlockUndoLog {
+    public static final Integer DEFAULT_MAX_BLOCK_COUNT = 12;
+
+    protected final Integer _maxBlockCount;
+    protected final LinkedHashMap<BlockId, BlockUndoRecord> _blockUndoRecords;
+
+    public BlockUndoLog() {
+        this(DEFAULT_MAX_BLOCK_COUNT);
+    }
+
+    public BlockUndoLog(final Integer maxBlockCount) {
+        _maxBlockCount = maxBlockCount;
+        _blockUndoRecords = new LinkedHashMap<BlockId, BlockUndoRecord>(maxBlockCount + 1, 0.75F, false) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<BlockId, BlockUndoRecord> eldest) {
+                return (this.size() > _maxBlockCount);
+            }
+        };
+    }
+
+    public synchronized void addBlockUndoRecord(final BlockUndoRecord blockUndoRecord) {
+        if (blockUndoRecord == null) { return; }
+        _blockUndoRecords.put(blockUndoRecord.getBlockId(), blockUndoRecord);
+    }
+
+    /**
+     * Returns the BlockUndoRecord for the Block, or null if it is no longer (or was never) retained.
+     */
+    public synchronized BlockUndoRecord getBlockUndoRecord(final BlockId blockId) {
+        return _blockUndoRecords.get(blockId);
+    }
+
+    public synchronized void clear() {
+        _blockUndoRecords.clear();
+    }
+
+    public Integer getMaxBlockCount() {
+        return _maxBlockCount;
+    }
+}
@@ -0,0 +1,81 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionId;
+import com.softwareverde.bitcoin.transaction.input.TransactionInput;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
+
+/**
+ * The outputs spent (and transactions created) by a connected Block, captured so the Block can later be disconnected without re-reading it.
+ *  Transactions are in Block order; the coinbase is always at index 0 and its (non-existent) previous outputs are not recorded.
+ */
+public class BlockUndoRecord {
+    protected final BlockId _blockId;
+    protected final List<TransactionId> _transactionIds;
+    protected final List<Sha256Hash> _transactionHashes;
+    protected final List<List<TransactionOutputIdentifier>> _spentTransactionOutputIdentifiers;
+
+    /**
+     * Creates the BlockUndoRecord for the Block.
+     *  transactionIds must be the ids of the Block's transactions, in Block order.
+     *  Returns null if the transactionIds do not correspond to the Block's transactions.
+     */
+    public static BlockUndoRecord fromBlock(final BlockId blockId, final Block block, final List<TransactionId> transactionIds) {
+        final List<Transaction> transactions = block.getTransactions();
+        final int transactionCount = transactions.getSize();
+        if ( (transactionIds == null) || (transactionIds.getSize() != transactionCount) ) { return null; }
+
+        final ImmutableListBuilder<Sha256Hash> transactionHashes = new ImmutableListBuilder<Sha256Hash>(transactionCount);
+        final ImmutableListBuilder<List<TransactionOutputIdentifier>> spentTransactionOutputIdentifiers = new ImmutableListBuilder<List<TransactionOutputIdentifier>>(transactionCount);
+        for (int i = 0; i < transactionCount; ++i) {
+            final Transaction transaction = transactions.get(i);
+            transactionHashes.add(transaction.getHash().asConst());
+
+            final List<TransactionInput> transactionInputs = transaction.getTransactionInputs();
+            final ImmutableListBuilder<TransactionOutputIdentifier> spentOutputs = new ImmutableListBuilder<TransactionOutputIdentifier>((i == 0) ? 0 : transactionInputs.getSize());
+            if (i > 0) { // The coinbase does not spend any outputs...
+                for (final TransactionInput transactionInput : transactionInputs) {
+                    spentOutputs.add(TransactionOutputIdentifier.fromTransactionInput(transactionInput));
+                }
+            }
+            spentTransactionOutputIdentifiers.add(spentOutputs.build());
+        }
+
+        return new BlockUndoRecord(blockId, transactionIds, transactionHashes.build(), spentTransactionOutputIdentifiers.build());
+    }
+
+    public BlockUndoRecord(final BlockId blockId, final List<TransactionId> transactionIds, final List<Sha256Hash> transactionHashes, final List<List<TransactionOutputIdentifier>> spentTransactionOutputIdentifiers) {
+        _blockId = blockId;
+        _transactionIds = transactionIds;
+        _transactionHashes = transactionHashes;
+        _spentTransactionOutputIdentifiers = spentTransactionOutputIdentifiers;
+    }
+
+    public BlockId getBlockId() {
+        return _blockId;
+    }
+
+    public Integer getTransactionCount() {
+        return _transactionIds.getSize();
+    }
+
+    public List<TransactionId> getTransactionIds() {
+        return _transactionIds;
+    }
+
+    public List<Sha256Hash> getTransactionHashes() {
+        return _transactionHashes;
+    }
+
+    /**
+     * Returns the outputs spent by the transaction at the provided index within the Block.
+     */
+    public List<TransactionOutputIdentifier> getSpentTransactionOutputIdentifiers(final Integer transactionIndex) {
+        return _spentTransactionOutputIdentifiers.get(transactionIndex);
+    }
+}
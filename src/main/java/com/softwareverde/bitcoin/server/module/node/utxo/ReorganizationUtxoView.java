@@ -0,0 +1,107 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.TransactionId;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+
+import java.util.HashSet;
+
+/**
+ * An in-memory view of the outputs affected by a chain reorganization, built from the BlockUndoRecords of the
+ *  disconnected Blocks (the old chain) and the connected Blocks (the new chain).
+ *  The view classifies the disconnected transactions without querying the database:
+ *      - transactions also mined within the new chain remain confirmed,
+ *      - transactions spending an output spent by the new chain, or an output that no longer exists, are invalidated,
+ *      - all other transactions are restored to the memory pool.
+ */
+public class ReorganizationUtxoView {
+    protected final MutableList<TransactionId> _confirmedTransactionIds = new MutableList<TransactionId>();
+    protected final MutableList<TransactionId> _restoredTransactionIds = new MutableList<TransactionId>();
+    protected final MutableList<TransactionId> _invalidatedTransactionIds = new MutableList<TransactionId>();
+    protected final MutableList<TransactionId> _disconnectedCoinbaseTransactionIds = new MutableList<TransactionId>();
+
+    /**
+     * disconnectedBlocks must be ordered from the oldest to the newest Block so that parents are classified before their children.
+     */
+    public ReorganizationUtxoView(final List<BlockUndoRecord> disconnectedBlocks, final List<BlockUndoRecord> connectedBlocks) {
+        final HashSet<Sha256Hash> connectedTransactionHashes = new HashSet<Sha256Hash>();
+        final HashSet<TransactionOutputIdentifier> spentTransactionOutputIdentifiers = new HashSet<TransactionOutputIdentifier>();
+        for (final BlockUndoRecord blockUndoRecord : connectedBlocks) {
+            final Integer transactionCount = blockUndoRecord.getTransactionCount();
+            for (int i = 1; i < transactionCount; ++i) { // Skip the coinbase...
+                connectedTransactionHashes.add(blockUndoRecord.getTransactionHashes().get(i));
+                _confirmedTransactionIds.add(blockUndoRecord.getTransactionIds().get(i));
+                for (final TransactionOutputIdentifier transactionOutputIdentifier : blockUndoRecord.getSpentTransactionOutputIdentifiers(i)) {
+                    spentTransactionOutputIdentifiers.add(transactionOutputIdentifier);
+                }
+            }
+        }
+
+        final HashSet<Sha256Hash> invalidatedTransactionHashes = new HashSet<Sha256Hash>(); // The outputs of these transactions do not exist within the new chain...
+        for (final BlockUndoRecord blockUndoRecord : disconnectedBlocks) {
+            final Integer transactionCount = blockUndoRecord.getTransactionCount();
+            if (transactionCount < 1) { continue; }
+
+            invalidatedTransactionHashes.add(blockUndoRecord.getTransactionHashes().get(0));
+            _disconnectedCoinbaseTransactionIds.add(blockUndoRecord.getTransactionIds().get(0));
+
+            for (int i = 1; i < transactionCount; ++i) {
+                final Sha256Hash transactionHash = blockUndoRecord.getTransactionHashes().get(i);
+                final TransactionId transactionId = blockUndoRecord.getTransactionIds().get(i);
+                if (connectedTransactionHashes.contains(transactionHash)) { continue; }
+
+                boolean isValid = true;
+                for (final TransactionOutputIdentifier transactionOutputIdentifier : blockUndoRecord.getSpentTransactionOutputIdentifiers(i)) {
+                    if (spentTransactionOutputIdentifiers.contains(transactionOutputIdentifier)) {
+                        isValid = false;
+                        break;
+                    }
+
+                    if (invalidatedTransactionHashes.contains(transactionOutputIdentifier.getTransactionHash())) {
+                        isValid = false;
+                        break;
+                    }
+                }
+
+                if (isValid) {
+                    _restoredTransactionIds.add(transactionId);
+                }
+                else {
+                    invalidatedTransactionHashes.add(transactionHash);
+                    _invalidatedTransactionIds.add(transactionId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the (non-coinbase) transactions mined within the new chain, which must be removed from the memory pool.
+     */
+    public List<TransactionId> getConfirmedTransactionIds() {
+        return _confirmedTransactionIds;
+    }
+
+    /**
+     * Returns the disconnected transactions that may be restored to the memory pool.
+     *  These transactions do not conflict with the new chain, but are not otherwise revalidated by the view.
+     */
+    public List<TransactionId> getRestoredTransactionIds() {
+        return _restoredTransactionIds;
+    }
+
+    /**
+     * Returns the disconnected transactions that conflict with the new chain, or that depend on such transactions.
+     */
+    public List<TransactionId> getInvalidatedTransactionIds() {
+        return _invalidatedTransactionIds;
+    }
+
+    /**
+     * Returns the coinbase transactions of the disconnected Blocks; any memory pool transaction spending their outputs is invalid.
+     */
+    public List<TransactionId> getDisconnectedCoinbaseTransactionIds() {
+        return _disconnectedCoinbaseTransactionIds;
+    }
+}
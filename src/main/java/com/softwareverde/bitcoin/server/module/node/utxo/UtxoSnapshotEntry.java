@@ -0,0 +1,42 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.locktime.LockTime;
+import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
+import com.softwareverde.constable.list.List;
+
+/**
+ * The unspent outputs of a single transaction, as recorded within a UtxoSnapshot chunk.
+ *  Only the fields required to validate spends of the outputs are retained; the transaction's inputs are not included.
+ *  The blockHeight and sortOrder identify the block (and position within the block) that mined the transaction,
+ *  which is required for coinbase maturity and relative lock-time validation.
+ */
+public class UtxoSnapshotEntry {
+    public static class Output {
+        public final Integer index;
+        public final Long amount;
+        public final LockingScript lockingScript;
+
+        public Output(final Integer index, final Long amount, final LockingScript lockingScript) {
+            this.index = index;
+            this.amount = amount;
+            this.lockingScript = lockingScript;
+        }
+    }
+
+    public final Sha256Hash transactionHash;
+    public final Long blockHeight;
+    public final Integer sortOrder;
+    public final Long version;
+    public final LockTime lockTime;
+    public final List<Output> outputs;
+
+    public UtxoSnapshotEntry(final Sha256Hash transactionHash, final Long blockHeight, final Integer sortOrder, final Long version, final LockTime lockTime, final List<Output> outputs) {
+        this.transactionHash = transactionHash;
+        this.blockHeight = blockHeight;
+        this.sortOrder = sortOrder;
+        this.version = version;
+        this.lockTime = lockTime;
+        this.outputs = outputs;
+    }
+}
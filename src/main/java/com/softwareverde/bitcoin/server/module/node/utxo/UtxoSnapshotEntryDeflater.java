@@ -0,0 +1,43 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.Endian;
+
+/**
+ * Serializes a UtxoSnapshotEntry as:
+ *  [TransactionHash (32, big-endian)][BlockHeight (4)][SortOrder (4)][Version (4)][LockTime (4)][OutputCount (VarInt)]
+ *  followed by OutputCount outputs, each as: [Index (4)][Amount (8)][LockingScriptByteCount (VarInt)][LockingScript]
+ *  Integers are little-endian unless specified otherwise.
+ */
+public class UtxoSnapshotEntryDeflater {
+    protected void _appendBytes(final UtxoSnapshotEntry utxoSnapshotEntry, final ByteArrayBuilder byteArrayBuilder) {
+        byteArrayBuilder.appendBytes(utxoSnapshotEntry.transactionHash, Endian.BIG);
+        byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(utxoSnapshotEntry.blockHeight.intValue()), Endian.LITTLE);
+        byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(utxoSnapshotEntry.sortOrder), Endian.LITTLE);
+        byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(utxoSnapshotEntry.version.intValue()), Endian.LITTLE);
+        byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(utxoSnapshotEntry.lockTime.getValue().intValue()), Endian.LITTLE);
+        byteArrayBuilder.appendBytes(ByteUtil.variableLengthIntegerToBytes(utxoSnapshotEntry.outputs.getSize()), Endian.BIG);
+
+        for (final UtxoSnapshotEntry.Output output : utxoSnapshotEntry.outputs) {
+            final ByteArray lockingScriptBytes = output.lockingScript.getBytes();
+
+            byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(output.index), Endian.LITTLE);
+            byteArrayBuilder.appendBytes(ByteUtil.longToBytes(output.amount), Endian.LITTLE);
+            byteArrayBuilder.appendBytes(ByteUtil.variableLengthIntegerToBytes(lockingScriptBytes.getByteCount()), Endian.BIG);
+            byteArrayBuilder.appendBytes(lockingScriptBytes, Endian.BIG);
+        }
+    }
+
+    public void toBytes(final UtxoSnapshotEntry utxoSnapshotEntry, final ByteArrayBuilder byteArrayBuilder) {
+        _appendBytes(utxoSnapshotEntry, byteArrayBuilder);
+    }
+
+    public ByteArray toBytes(final UtxoSnapshotEntry utxoSnapshotEntry) {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        _appendBytes(utxoSnapshotEntry, byteArrayBuilder);
+        return MutableByteArray.wrap(byteArrayBuilder.build());
+    }
+}
@@ -0,0 +1,44 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.locktime.ImmutableLockTime;
+import com.softwareverde.bitcoin.transaction.script.locking.ImmutableLockingScript;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
+import com.softwareverde.util.bytearray.Endian;
+
+public class UtxoSnapshotEntryInflater {
+    protected UtxoSnapshotEntry _fromByteArrayReader(final ByteArrayReader byteArrayReader) {
+        final Sha256Hash transactionHash = MutableSha256Hash.wrap(byteArrayReader.readBytes(Sha256Hash.BYTE_COUNT, Endian.BIG));
+        final Long blockHeight = byteArrayReader.readLong(4, Endian.LITTLE);
+        final Integer sortOrder = byteArrayReader.readInteger(4, Endian.LITTLE);
+        final Long version = byteArrayReader.readLong(4, Endian.LITTLE);
+        final Long lockTime = byteArrayReader.readLong(4, Endian.LITTLE);
+        final Integer outputCount = byteArrayReader.readVariableSizedInteger().intValue();
+        if (byteArrayReader.didOverflow()) { return null; }
+
+        final ImmutableListBuilder<UtxoSnapshotEntry.Output> outputs = new ImmutableListBuilder<UtxoSnapshotEntry.Output>(outputCount);
+        for (int i = 0; i < outputCount; ++i) {
+            final Integer index = byteArrayReader.readInteger(4, Endian.LITTLE);
+            final Long amount = byteArrayReader.readLong(8, Endian.LITTLE);
+            final Integer lockingScriptByteCount = byteArrayReader.readVariableSizedInteger().intValue();
+            final byte[] lockingScriptBytes = byteArrayReader.readBytes(lockingScriptByteCount, Endian.BIG);
+            if (byteArrayReader.didOverflow()) { return null; }
+
+            outputs.add(new UtxoSnapshotEntry.Output(index, amount, new ImmutableLockingScript(MutableByteArray.wrap(lockingScriptBytes))));
+        }
+
+        return new UtxoSnapshotEntry(transactionHash, blockHeight, sortOrder, version, new ImmutableLockTime(lockTime), outputs.build());
+    }
+
+    public UtxoSnapshotEntry fromBytes(final ByteArrayReader byteArrayReader) {
+        return _fromByteArrayReader(byteArrayReader);
+    }
+
+    public UtxoSnapshotEntry fromBytes(final byte[] bytes) {
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+        return _fromByteArrayReader(byteArrayReader);
+    }
+}
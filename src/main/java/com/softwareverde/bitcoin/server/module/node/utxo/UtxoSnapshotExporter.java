@@ -0,0 +1,281 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.chain.segment.BlockchainSegmentId;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.database.DatabaseConnection;
+import com.softwareverde.bitcoin.server.database.query.Query;
+import com.softwareverde.bitcoin.server.module.node.database.block.BlockRelationship;
+import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.FullNodeBlockDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManagerFactory;
+import com.softwareverde.bitcoin.transaction.TransactionId;
+import com.softwareverde.bitcoin.transaction.locktime.ImmutableLockTime;
+import com.softwareverde.bitcoin.transaction.locktime.LockTime;
+import com.softwareverde.bitcoin.transaction.script.locking.ImmutableLockingScript;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.IoUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.database.DatabaseException;
+import com.softwareverde.database.row.Row;
+import com.softwareverde.database.util.DatabaseUtil;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.timer.MilliTimer;
+
+import java.io.File;
+import java.util.HashMap;
+
+/**
+ * Exports the UTXO set of the node's head block as a UtxoSnapshot.
+ *  Outputs are read in transaction_output_id order so that the outputs of a transaction are contiguous and
+ *  are never split across chunks; a chunk is closed once it contains at least maxChunkOutputCount outputs.
+ *  The node should not be running while the snapshot is exported, otherwise the UTXO set may change mid-export.
+ */
+public class UtxoSnapshotExporter {
+    public static final Integer DEFAULT_MAX_CHUNK_OUTPUT_COUNT = 65536;
+
+    protected static class PendingEntry {
+        public final TransactionId transactionId;
+        public final Sha256Hash transactionHash;
+        public final Long version;
+        public final LockTime lockTime;
+        public final MutableList<UtxoSnapshotEntry.Output> outputs = new MutableList<UtxoSnapshotEntry.Output>();
+
+        public PendingEntry(final TransactionId transactionId, final Sha256Hash transactionHash, final Long version, final LockTime lockTime) {
+            this.transactionId = transactionId;
+            this.transactionHash = transactionHash;
+            this.version = version;
+            this.lockTime = lockTime;
+        }
+    }
+
+    protected static class BlockPosition {
+        public final Long blockHeight;
+        public final Integer sortOrder;
+
+        public BlockPosition(final Long blockHeight, final Integer sortOrder) {
+            this.blockHeight = blockHeight;
+            this.sortOrder = sortOrder;
+        }
+    }
+
+    protected final FullNodeDatabaseManagerFactory _databaseManagerFactory;
+    protected final Integer _maxChunkOutputCount;
+
+    protected final HashMap<BlockId, Boolean> _isBlockOnChain = new HashMap<BlockId, Boolean>();
+    protected final MutableList<Sha256Hash> _chunkHashes = new MutableList<Sha256Hash>();
+    protected long _transactionCount = 0L;
+    protected long _unspentTransactionOutputCount = 0L;
+    protected long _skippedTransactionCount = 0L;
+
+    /**
+     * Returns the position of each transaction within the block that mined it on the snapshot's chain.
+     *  Transactions that are not mined within the chain (i.e. unconfirmed or orphaned transactions) are excluded.
+     */
+    protected HashMap<TransactionId, BlockPosition> _getBlockPositions(final FullNodeDatabaseManager databaseManager, final BlockchainSegmentId blockchainSegmentId, final Long maxBlockHeight, final List<PendingEntry> pendingEntries) throws DatabaseException {
+        final DatabaseConnection databaseConnection = databaseManager.getDatabaseConnection();
+        final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+
+        final MutableList<TransactionId> transactionIds = new MutableList<TransactionId>(pendingEntries.getSize());
+        for (final PendingEntry pendingEntry : pendingEntries) {
+            transactionIds.add(pendingEntry.transactionId);
+        }
+
+        final java.util.List<Row> rows = databaseConnection.query(
+            new Query("SELECT block_transactions.transaction_id, block_transactions.block_id, block_transactions.sort_order, blocks.block_height FROM block_transactions INNER JOIN blocks ON blocks.id = block_transactions.block_id WHERE block_transactions.transaction_id IN (" + DatabaseUtil.createInClause(transactionIds) + ")")
+        );
+
+        final HashMap<TransactionId, BlockPosition> blockPositions = new HashMap<TransactionId, BlockPosition>(pendingEntries.getSize());
+        for (final Row row : rows) {
+            final TransactionId transactionId = TransactionId.wrap(row.getLong("transaction_id"));
+            final BlockId blockId = BlockId.wrap(row.getLong("block_id"));
+            final Integer sortOrder = row.getInteger("sort_order");
+            final Long blockHeight = row.getLong("block_height");
+
+            if (blockHeight > maxBlockHeight) { continue; }
+
+            Boolean isOnChain = _isBlockOnChain.get(blockId);
+            if (isOnChain == null) {
+                isOnChain = blockHeaderDatabaseManager.isBlockConnectedToChain(blockId, blockchainSegmentId, BlockRelationship.ANCESTOR);
+                _isBlockOnChain.put(blockId, isOnChain);
+            }
+
+            if (isOnChain) {
+                blockPositions.put(transactionId, new BlockPosition(blockHeight, sortOrder));
+            }
+        }
+        return blockPositions;
+    }
+
+    protected Boolean _writeChunk(final FullNodeDatabaseManager databaseManager, final BlockchainSegmentId blockchainSegmentId, final Long blockHeight, final List<PendingEntry> pendingEntries, final File directory) throws DatabaseException {
+        final UtxoSnapshotEntryDeflater utxoSnapshotEntryDeflater = new UtxoSnapshotEntryDeflater();
+
+        final HashMap<TransactionId, BlockPosition> blockPositions = _getBlockPositions(databaseManager, blockchainSegmentId, blockHeight, pendingEntries);
+
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        for (final PendingEntry pendingEntry : pendingEntries) {
+            final BlockPosition blockPosition = blockPositions.get(pendingEntry.transactionId);
+            if (blockPosition == null) {
+                _skippedTransactionCount += 1L;
+                continue;
+            }
+
+            final UtxoSnapshotEntry utxoSnapshotEntry = new UtxoSnapshotEntry(pendingEntry.transactionHash, blockPosition.blockHeight, blockPosition.sortOrder, pendingEntry.version, pendingEntry.lockTime, pendingEntry.outputs);
+            utxoSnapshotEntryDeflater.toBytes(utxoSnapshotEntry, byteArrayBuilder);
+
+            _transactionCount += 1L;
+            _unspentTransactionOutputCount += pendingEntry.outputs.getSize();
+        }
+
+        final ByteArray chunkBytes = MutableByteArray.wrap(byteArrayBuilder.build());
+        final Sha256Hash chunkHash = BitcoinUtil.sha256(chunkBytes);
+
+        final Integer chunkIndex = _chunkHashes.getSize();
+        final File chunkFile = new File(directory, UtxoSnapshotManifest.getChunkFileName(chunkIndex));
+        final Boolean wasSuccessful = IoUtil.putFileContents(chunkFile.getPath(), chunkBytes.getBytes());
+        if (! wasSuccessful) {
+            Logger.error("Unable to write UTXO snapshot chunk: " + chunkFile.getPath());
+            return false;
+        }
+
+        _chunkHashes.add(chunkHash);
+        return true;
+    }
+
+    public UtxoSnapshotExporter(final FullNodeDatabaseManagerFactory databaseManagerFactory) {
+        this(databaseManagerFactory, DEFAULT_MAX_CHUNK_OUTPUT_COUNT);
+    }
+
+    public UtxoSnapshotExporter(final FullNodeDatabaseManagerFactory databaseManagerFactory, final Integer maxChunkOutputCount) {
+        _databaseManagerFactory = databaseManagerFactory;
+        _maxChunkOutputCount = maxChunkOutputCount;
+    }
+
+    /**
+     * Writes the snapshot's chunks and manifest to the provided directory and returns the manifest.
+     *  Returns null if the snapshot could not be created.
+     */
+    public UtxoSnapshotManifest exportSnapshot(final File directory) {
+        if ( (! directory.isDirectory()) && (! directory.mkdirs()) ) {
+            Logger.error("Unable to create UTXO snapshot directory: " + directory.getPath());
+            return null;
+        }
+
+        _isBlockOnChain.clear();
+        _chunkHashes.clear();
+        _transactionCount = 0L;
+        _unspentTransactionOutputCount = 0L;
+        _skippedTransactionCount = 0L;
+
+        try (final FullNodeDatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+            final DatabaseConnection databaseConnection = databaseManager.getDatabaseConnection();
+            final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+            final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
+
+            { // Unconfirmed transactions spend outputs from the UTXO set, so the UTXO set would not reflect the head block...
+                final java.util.List<Row> rows = databaseConnection.query(new Query("SELECT COUNT(*) AS transaction_count FROM unconfirmed_transactions"));
+                final Row row = rows.get(0);
+                final Long unconfirmedTransactionCount = row.getLong("transaction_count");
+                if (unconfirmedTransactionCount > 0L) {
+                    Logger.error("Unable to export UTXO snapshot while unconfirmed transactions exist. (" + unconfirmedTransactionCount + " unconfirmed transactions)");
+                    return null;
+                }
+            }
+
+            final BlockId headBlockId = blockDatabaseManager.getHeadBlockId();
+            if (headBlockId == null) {
+                Logger.error("Unable to export UTXO snapshot without any blocks.");
+                return null;
+            }
+
+            final Sha256Hash headBlockHash = blockHeaderDatabaseManager.getBlockHash(headBlockId);
+            final Long headBlockHeight = blockHeaderDatabaseManager.getBlockHeight(headBlockId);
+            final BlockchainSegmentId blockchainSegmentId = blockHeaderDatabaseManager.getBlockchainSegmentId(headBlockId);
+
+            Logger.info("Exporting UTXO snapshot for block " + headBlockHash + " (" + headBlockHeight + ") to " + directory.getPath());
+
+            final MilliTimer milliTimer = new MilliTimer();
+            milliTimer.start();
+
+            final MutableList<PendingEntry> chunkEntries = new MutableList<PendingEntry>();
+            int chunkOutputCount = 0;
+            PendingEntry currentEntry = null;
+            Long lastTransactionOutputId = 0L;
+
+            while (true) {
+                final java.util.List<Row> rows = databaseConnection.query(
+                    new Query("SELECT unspent_transaction_outputs.transaction_output_id, unspent_transaction_outputs.transaction_hash, unspent_transaction_outputs.`index`, transaction_outputs.transaction_id, transaction_outputs.amount, transactions.version, transactions.lock_time, locking_scripts.script FROM unspent_transaction_outputs INNER JOIN transaction_outputs ON transaction_outputs.id = unspent_transaction_outputs.transaction_output_id INNER JOIN transactions ON transactions.id = transaction_outputs.transaction_id INNER JOIN locking_scripts ON locking_scripts.transaction_output_id = transaction_outputs.id WHERE unspent_transaction_outputs.transaction_output_id > ? ORDER BY unspent_transaction_outputs.transaction_output_id ASC LIMIT " + _maxChunkOutputCount)
+                        .setParameter(lastTransactionOutputId)
+                );
+                if (rows.isEmpty()) { break; }
+
+                for (final Row row : rows) {
+                    final TransactionId transactionId = TransactionId.wrap(row.getLong("transaction_id"));
+
+                    if ( (currentEntry == null) || (! currentEntry.transactionId.equals(transactionId)) ) {
+                        if (currentEntry != null) {
+                            chunkEntries.add(currentEntry);
+                            chunkOutputCount += currentEntry.outputs.getSize();
+
+                            if (chunkOutputCount >= _maxChunkOutputCount) {
+                                if (! _writeChunk(databaseManager, blockchainSegmentId, headBlockHeight, chunkEntries, directory)) { return null; }
+
+                                chunkEntries.clear();
+                                chunkOutputCount = 0;
+
+                                Logger.info("Exported " + _unspentTransactionOutputCount + " UTXOs. (" + _chunkHashes.getSize() + " chunks)");
+                            }
+                        }
+
+                        final Sha256Hash transactionHash = Sha256Hash.fromHexString(row.getString("transaction_hash"));
+                        final Long version = row.getLong("version");
+                        final LockTime lockTime = new ImmutableLockTime(row.getLong("lock_time"));
+                        currentEntry = new PendingEntry(transactionId, transactionHash, version, lockTime);
+                    }
+
+                    final Integer outputIndex = row.getInteger("index");
+                    final Long amount = row.getLong("amount");
+                    final ImmutableLockingScript lockingScript = new ImmutableLockingScript(MutableByteArray.wrap(row.getBytes("script")));
+                    currentEntry.outputs.add(new UtxoSnapshotEntry.Output(outputIndex, amount, lockingScript));
+
+                    lastTransactionOutputId = row.getLong("transaction_output_id");
+                }
+            }
+
+            if (currentEntry != null) {
+                chunkEntries.add(currentEntry);
+            }
+
+            if (! chunkEntries.isEmpty()) {
+                if (! _writeChunk(databaseManager, blockchainSegmentId, headBlockHeight, chunkEntries, directory)) { return null; }
+            }
+
+            final UtxoSnapshotManifest utxoSnapshotManifest = new UtxoSnapshotManifest(headBlockHash, headBlockHeight, _transactionCount, _unspentTransactionOutputCount, _chunkHashes);
+
+            final File manifestFile = new File(directory, UtxoSnapshotManifest.MANIFEST_FILE_NAME);
+            final ByteArray manifestBytes = utxoSnapshotManifest.getBytes();
+            if (! IoUtil.putFileContents(manifestFile.getPath(), manifestBytes.getBytes())) {
+                Logger.error("Unable to write UTXO snapshot manifest: " + manifestFile.getPath());
+                return null;
+            }
+
+            milliTimer.stop();
+            if (_skippedTransactionCount > 0L) {
+                Logger.info("Skipped " + _skippedTransactionCount + " transactions not mined within the head blockchain.");
+            }
+            Logger.info("Exported " + _unspentTransactionOutputCount + " UTXOs from " + _transactionCount + " transactions in " + milliTimer.getMillisecondsElapsed() + "ms.");
+            Logger.info("UTXO Snapshot Commitment: " + utxoSnapshotManifest.getCommitmentHash());
+
+            return utxoSnapshotManifest;
+        }
+        catch (final DatabaseException exception) {
+            Logger.error("Unable to export UTXO snapshot.", exception);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.chain.segment.BlockchainSegmentId;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.database.DatabaseConnection;
+import com.softwareverde.bitcoin.server.database.query.BatchedInsertQuery;
+import com.softwareverde.bitcoin.server.database.query.Query;
+import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.FullNodeBlockDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.block.pending.fullnode.FullNodePendingBlockDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManagerFactory;
+import com.softwareverde.bitcoin.transaction.script.ScriptType;
+import com.softwareverde.bitcoin.transaction.script.ScriptTypeId;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.IoUtil;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.database.DatabaseException;
+import com.softwareverde.database.row.Row;
+import com.softwareverde.database.util.DatabaseUtil;
+import com.softwareverde.database.util.TransactionUtil;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.util.StringUtil;
+import com.softwareverde.util.Util;
+import com.softwareverde.util.timer.MilliTimer;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads a UtxoSnapshot into an empty node so that block validation resumes from the snapshot's block instead of genesis.
+ *  The snapshot's block headers must already be stored (i.e. via the HeadersBootstrapper or header synchronization).
+ *  Each unspent output is stored as a transaction without inputs, associated to the block that mined it, so the snapshot block
+ *  (and the blocks containing the surviving transactions) are considered to have transactions and the BlockchainBuilder continues from the snapshot's block.
+ *  Chunks are verified against the manifest and loaded in parallel, each within its own database transaction.
+ *  Since the imported transactions have no inputs, the blocks at and below the snapshot's height cannot be reconstructed and must not be served;
+ *  the snapshot's height is recorded (before any chunk is imported) within the snapshot block height file, which is read via ::loadSnapshotBlockHeight.
+ *  For the same reason, any PendingBlocks at or below the snapshot's height are deleted before the import so they are never processed.
+ */
+public class UtxoSnapshotImporter {
+    public static final Integer DEFAULT_THREAD_COUNT = 4;
+    public static final String SNAPSHOT_BLOCK_HEIGHT_FILENAME = "utxo-snapshot-block-height";
+
+    /**
+     * Returns the height of the imported UtxoSnapshot's block, or zero if no snapshot was imported.
+     */
+    public static Long loadSnapshotBlockHeight(final String snapshotBlockHeightFilename) {
+        if ( (snapshotBlockHeightFilename == null) || (! IoUtil.fileExists(snapshotBlockHeightFilename)) ) { return 0L; }
+
+        final byte[] bytes = IoUtil.getFileContents(snapshotBlockHeightFilename);
+        if (bytes == null) { return 0L; }
+
+        return Util.parseLong(StringUtil.bytesToString(bytes).trim(), 0L);
+    }
+
+    protected final FullNodeDatabaseManagerFactory _databaseManagerFactory;
+    protected final Integer _threadCount;
+    protected final String _snapshotBlockHeightFilename;
+
+    protected final AtomicInteger _nextChunkIndex = new AtomicInteger(0);
+    protected final AtomicBoolean _hasFailed = new AtomicBoolean(false);
+    protected final AtomicLong _importedUnspentTransactionOutputCount = new AtomicLong(0L);
+
+    protected static UtxoSnapshotManifest _readManifest(final File directory) {
+        final File manifestFile = new File(directory, UtxoSnapshotManifest.MANIFEST_FILE_NAME);
+        final byte[] manifestBytes = IoUtil.getFileContents(manifestFile.getPath());
+        if (manifestBytes == null) {
+            Logger.error("Unable to read UTXO snapshot manifest: " + manifestFile.getPath());
+            return null;
+        }
+
+        return UtxoSnapshotManifest.fromBytes(MutableByteArray.wrap(manifestBytes));
+    }
+
+    protected List<UtxoSnapshotEntry> _readChunk(final File directory, final Integer chunkIndex, final Sha256Hash expectedChunkHash) {
+        final File chunkFile = new File(directory, UtxoSnapshotManifest.getChunkFileName(chunkIndex));
+        final byte[] chunkBytes = IoUtil.getFileContents(chunkFile.getPath());
+        if (chunkBytes == null) {
+            Logger.error("Unable to read UTXO snapshot chunk: " + chunkFile.getPath());
+            return null;
+        }
+
+        final ByteArray chunkByteArray = MutableByteArray.wrap(chunkBytes);
+        final Sha256Hash chunkHash = BitcoinUtil.sha256(chunkByteArray);
+        if (! Util.areEqual(expectedChunkHash, chunkHash)) {
+            Logger.error("UTXO snapshot chunk " + chunkIndex + " does not match its manifest hash. (Expected " + expectedChunkHash + ", found " + chunkHash + ")");
+            return null;
+        }
+
+        final UtxoSnapshotEntryInflater utxoSnapshotEntryInflater = new UtxoSnapshotEntryInflater();
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(chunkByteArray);
+
+        final MutableList<UtxoSnapshotEntry> utxoSnapshotEntries = new MutableList<UtxoSnapshotEntry>();
+        while (byteArrayReader.hasBytes()) {
+            final UtxoSnapshotEntry utxoSnapshotEntry = utxoSnapshotEntryInflater.fromBytes(byteArrayReader);
+            if (utxoSnapshotEntry == null) {
+                Logger.error("Unable to inflate UTXO snapshot chunk: " + chunkFile.getPath());
+                return null;
+            }
+
+            utxoSnapshotEntries.add(utxoSnapshotEntry);
+        }
+        return utxoSnapshotEntries;
+    }
+
+    protected HashSet<Sha256Hash> _getExistingTransactionHashes(final DatabaseConnection databaseConnection, final List<UtxoSnapshotEntry> utxoSnapshotEntries) throws DatabaseException {
+        final MutableList<Sha256Hash> transactionHashes = new MutableList<Sha256Hash>(utxoSnapshotEntries.getSize());
+        for (final UtxoSnapshotEntry utxoSnapshotEntry : utxoSnapshotEntries) {
+            transactionHashes.add(utxoSnapshotEntry.transactionHash);
+        }
+
+        final java.util.List<Row> rows = databaseConnection.query(
+            new Query("SELECT id, hash FROM transactions WHERE hash IN (" + DatabaseUtil.createInClause(transactionHashes) + ")")
+        );
+
+        final HashSet<Sha256Hash> existingTransactionHashes = new HashSet<Sha256Hash>(rows.size());
+        for (final Row row : rows) {
+            existingTransactionHashes.add(Sha256Hash.fromHexString(row.getString("hash")));
+        }
+        return existingTransactionHashes;
+    }
+
+    protected void _storeEntries(final FullNodeDatabaseManager databaseManager, final BlockchainSegmentId blockchainSegmentId, final HashMap<Long, BlockId> blockIds, final List<UtxoSnapshotEntry> chunkEntries) throws DatabaseException {
+        final DatabaseConnection databaseConnection = databaseManager.getDatabaseConnection();
+        final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+
+        final MutableList<UtxoSnapshotEntry> utxoSnapshotEntries = new MutableList<UtxoSnapshotEntry>(chunkEntries.getSize());
+        { // Transactions already stored (i.e. the genesis coinbase) are not re-inserted...
+            final HashSet<Sha256Hash> existingTransactionHashes = _getExistingTransactionHashes(databaseConnection, chunkEntries);
+            for (final UtxoSnapshotEntry utxoSnapshotEntry : chunkEntries) {
+                if (existingTransactionHashes.contains(utxoSnapshotEntry.transactionHash)) {
+                    Logger.debug("Skipping existing transaction: " + utxoSnapshotEntry.transactionHash);
+                    continue;
+                }
+
+                utxoSnapshotEntries.add(utxoSnapshotEntry);
+            }
+        }
+        if (utxoSnapshotEntries.isEmpty()) { return; }
+
+        final Integer transactionCount = utxoSnapshotEntries.getSize();
+
+        final Long firstTransactionId;
+        { // Store the Transactions...
+            final Query batchedInsertQuery = new BatchedInsertQuery("INSERT INTO transactions (hash, version, lock_time) VALUES (?, ?, ?)");
+            for (final UtxoSnapshotEntry utxoSnapshotEntry : utxoSnapshotEntries) {
+                batchedInsertQuery.setParameter(utxoSnapshotEntry.transactionHash);
+                batchedInsertQuery.setParameter(utxoSnapshotEntry.version);
+                batchedInsertQuery.setParameter(utxoSnapshotEntry.lockTime.getValue());
+            }
+
+            firstTransactionId = databaseConnection.executeSql(batchedInsertQuery);
+            if ( (firstTransactionId == null) || (! Util.areEqual(transactionCount, databaseConnection.getRowsAffectedCount())) ) {
+                throw new DatabaseException("Unable to store UTXO snapshot transactions.");
+            }
+        }
+
+        { // Associate the Transactions to the Blocks that mined them...
+            final Query batchedInsertQuery = new BatchedInsertQuery("INSERT INTO block_transactions (block_id, transaction_id, sort_order) VALUES (?, ?, ?)");
+            for (int i = 0; i < transactionCount; ++i) {
+                final UtxoSnapshotEntry utxoSnapshotEntry = utxoSnapshotEntries.get(i);
+
+                BlockId blockId = blockIds.get(utxoSnapshotEntry.blockHeight);
+                if (blockId == null) {
+                    blockId = blockHeaderDatabaseManager.getBlockIdAtHeight(blockchainSegmentId, utxoSnapshotEntry.blockHeight);
+                    if (blockId == null) { throw new DatabaseException("Unable to find block at height: " + utxoSnapshotEntry.blockHeight); }
+
+                    blockIds.put(utxoSnapshotEntry.blockHeight, blockId);
+                }
+
+                batchedInsertQuery.setParameter(blockId);
+                batchedInsertQuery.setParameter(firstTransactionId + i);
+                batchedInsertQuery.setParameter(utxoSnapshotEntry.sortOrder);
+            }
+            databaseConnection.executeSql(batchedInsertQuery);
+        }
+
+        final Long firstTransactionOutputId;
+        int transactionOutputCount = 0;
+        { // Store the TransactionOutputs...
+            final Query batchedInsertQuery = new BatchedInsertQuery("INSERT INTO transaction_outputs (transaction_id, `index`, amount) VALUES (?, ?, ?)");
+            for (int i = 0; i < transactionCount; ++i) {
+                final UtxoSnapshotEntry utxoSnapshotEntry = utxoSnapshotEntries.get(i);
+                for (final UtxoSnapshotEntry.Output output : utxoSnapshotEntry.outputs) {
+                    batchedInsertQuery.setParameter(firstTransactionId + i);
+                    batchedInsertQuery.setParameter(output.index);
+                    batchedInsertQuery.setParameter(output.amount);
+                    transactionOutputCount += 1;
+                }
+            }
+
+            firstTransactionOutputId = databaseConnection.executeSql(batchedInsertQuery);
+            if ( (firstTransactionOutputId == null) || (! Util.areEqual(transactionOutputCount, databaseConnection.getRowsAffectedCount())) ) {
+                throw new DatabaseException("Unable to store UTXO snapshot transaction outputs.");
+            }
+        }
+
+        { // Mark the TransactionOutputs as unspent...
+            final Query batchedInsertQuery = new BatchedInsertQuery("INSERT INTO unspent_transaction_outputs (transaction_output_id, transaction_hash, `index`) VALUES (?, ?, ?)");
+            long transactionOutputId = firstTransactionOutputId;
+            for (final UtxoSnapshotEntry utxoSnapshotEntry : utxoSnapshotEntries) {
+                for (final UtxoSnapshotEntry.Output output : utxoSnapshotEntry.outputs) {
+                    batchedInsertQuery.setParameter(transactionOutputId);
+                    batchedInsertQuery.setParameter(utxoSnapshotEntry.transactionHash);
+                    batchedInsertQuery.setParameter(output.index);
+                    transactionOutputId += 1L;
+                }
+            }
+            databaseConnection.executeSql(batchedInsertQuery);
+        }
+
+        { // Store the LockingScripts and queue them for address processing...
+            final ScriptTypeId scriptTypeId = ScriptType.UNKNOWN.getScriptTypeId();
+
+            final Query batchedInsertQuery = new BatchedInsertQuery("INSERT INTO locking_scripts (script_type_id, transaction_output_id, script, address_id, slp_transaction_id) VALUES (?, ?, ?, ?, ?)");
+            long transactionOutputId = firstTransactionOutputId;
+            for (final UtxoSnapshotEntry utxoSnapshotEntry : utxoSnapshotEntries) {
+                for (final UtxoSnapshotEntry.Output output : utxoSnapshotEntry.outputs) {
+                    final ByteArray lockingScriptBytes = output.lockingScript.getBytes();
+
+                    batchedInsertQuery.setParameter(scriptTypeId);
+                    batchedInsertQuery.setParameter(transactionOutputId);
+                    batchedInsertQuery.setParameter(lockingScriptBytes.getBytes());
+                    batchedInsertQuery.setParameter(Query.NULL); // addressId
+                    batchedInsertQuery.setParameter(Query.NULL); // slpTransactionId
+                    transactionOutputId += 1L;
+                }
+            }
+
+            final Long firstLockingScriptId = databaseConnection.executeSql(batchedInsertQuery);
+            final Integer insertCount = databaseConnection.getRowsAffectedCount();
+
+            final Query addressProcessorQueueQuery = new BatchedInsertQuery("INSERT INTO address_processor_queue (locking_script_id) VALUES (?)");
+            for (int i = 0; i < insertCount; ++i) {
+                addressProcessorQueueQuery.setParameter(firstLockingScriptId + i);
+            }
+            databaseConnection.executeSql(addressProcessorQueueQuery);
+        }
+
+        _importedUnspentTransactionOutputCount.addAndGet(transactionOutputCount);
+    }
+
+    protected void _importChunks(final File directory, final UtxoSnapshotManifest utxoSnapshotManifest, final BlockchainSegmentId blockchainSegmentId) {
+        final List<Sha256Hash> chunkHashes = utxoSnapshotManifest.getChunkHashes();
+        final HashMap<Long, BlockId> blockIds = new HashMap<Long, BlockId>();
+
+        try (final FullNodeDatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+            final DatabaseConnection databaseConnection = databaseManager.getDatabaseConnection();
+
+            while (! _hasFailed.get()) {
+                final int chunkIndex = _nextChunkIndex.getAndIncrement();
+                if (chunkIndex >= chunkHashes.getSize()) { break; }
+
+                final List<UtxoSnapshotEntry> utxoSnapshotEntries = _readChunk(directory, chunkIndex, chunkHashes.get(chunkIndex));
+                if (utxoSnapshotEntries == null) {
+                    _hasFailed.set(true);
+                    break;
+                }
+
+                try {
+                    TransactionUtil.startTransaction(databaseConnection);
+                    _storeEntries(databaseManager, blockchainSegmentId, blockIds, utxoSnapshotEntries);
+                    TransactionUtil.commitTransaction(databaseConnection);
+                }
+                catch (final DatabaseException exception) {
+                    TransactionUtil.rollbackTransaction(databaseConnection);
+                    throw exception;
+                }
+
+                Logger.info("Imported UTXO snapshot chunk " + (chunkIndex + 1) + " of " + chunkHashes.getSize() + ". (" + _importedUnspentTransactionOutputCount.get() + " UTXOs)");
+            }
+        }
+        catch (final DatabaseException exception) {
+            Logger.error("Unable to import UTXO snapshot.", exception);
+            _hasFailed.set(true);
+        }
+    }
+
+    protected Boolean _storeSnapshotBlockHeight(final Long blockHeight) {
+        if (_snapshotBlockHeightFilename == null) { return true; }
+
+        final File parentDirectory = new File(_snapshotBlockHeightFilename).getAbsoluteFile().getParentFile();
+        if ( (parentDirectory != null) && (! parentDirectory.isDirectory()) && (! parentDirectory.mkdirs()) ) {
+            Logger.error("Unable to create directory: " + parentDirectory.getPath());
+            return false;
+        }
+
+        if (! IoUtil.putFileContents(_snapshotBlockHeightFilename, StringUtil.stringToBytes(blockHeight.toString()))) {
+            Logger.error("Unable to store UTXO snapshot block height: " + _snapshotBlockHeightFilename);
+            return false;
+        }
+
+        return true;
+    }
+
+    public UtxoSnapshotImporter(final FullNodeDatabaseManagerFactory databaseManagerFactory, final String snapshotBlockHeightFilename) {
+        this(databaseManagerFactory, snapshotBlockHeightFilename, DEFAULT_THREAD_COUNT);
+    }
+
+    public UtxoSnapshotImporter(final FullNodeDatabaseManagerFactory databaseManagerFactory, final String snapshotBlockHeightFilename, final Integer threadCount) {
+        _databaseManagerFactory = databaseManagerFactory;
+        _snapshotBlockHeightFilename = snapshotBlockHeightFilename;
+        _threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * Imports the snapshot within the provided directory.
+     *  If nullableExpectedCommitmentHash is provided, the snapshot is rejected unless its commitment hash matches.
+     *  The import is rejected if the node has already synchronized blocks beyond genesis.
+     *  Returns true if the snapshot was fully imported.
+     */
+    public Boolean importSnapshot(final File directory, final Sha256Hash nullableExpectedCommitmentHash) {
+        final UtxoSnapshotManifest utxoSnapshotManifest = _readManifest(directory);
+        if (utxoSnapshotManifest == null) { return false; }
+
+        final Sha256Hash commitmentHash = utxoSnapshotManifest.getCommitmentHash();
+        if ( (nullableExpectedCommitmentHash != null) && (! Util.areEqual(nullableExpectedCommitmentHash, commitmentHash)) ) {
+            Logger.error("UTXO snapshot commitment mismatch. Expected " + nullableExpectedCommitmentHash + ", found " + commitmentHash);
+            return false;
+        }
+
+        final BlockchainSegmentId blockchainSegmentId;
+        try (final FullNodeDatabaseManager databaseManager = _databaseManagerFactory.newDatabaseManager()) {
+            final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+            final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
+
+            final BlockId headBlockId = blockDatabaseManager.getHeadBlockId();
+            if (headBlockId != null) {
+                final Long headBlockHeight = blockHeaderDatabaseManager.getBlockHeight(headBlockId);
+                if (headBlockHeight > 0L) {
+                    Logger.error("Unable to import UTXO snapshot; blocks have already been synchronized to height " + headBlockHeight + ".");
+                    return false;
+                }
+            }
+
+            final Sha256Hash blockHash = utxoSnapshotManifest.getBlockHash();
+            final BlockId blockId = blockHeaderDatabaseManager.getBlockHeaderId(blockHash);
+            if (blockId == null) {
+                Logger.error("Unable to import UTXO snapshot; block header not found: " + blockHash + ". Synchronize the block headers before importing.");
+                return false;
+            }
+
+            final Long blockHeight = blockHeaderDatabaseManager.getBlockHeight(blockId);
+            if (! Util.areEqual(utxoSnapshotManifest.getBlockHeight(), blockHeight)) {
+                Logger.error("Unable to import UTXO snapshot; block height mismatch. Expected " + utxoSnapshotManifest.getBlockHeight() + ", found " + blockHeight);
+                return false;
+            }
+
+            blockchainSegmentId = blockHeaderDatabaseManager.getBlockchainSegmentId(blockId);
+
+            final DatabaseConnection databaseConnection = databaseManager.getDatabaseConnection();
+            final FullNodePendingBlockDatabaseManager pendingBlockDatabaseManager = databaseManager.getPendingBlockDatabaseManager();
+            try { // Blocks at or below the snapshot's height would otherwise be processed against a UTXO set that is missing their history...
+                TransactionUtil.startTransaction(databaseConnection);
+                pendingBlockDatabaseManager.deletePendingBlocksAtOrBelowBlockHeight(blockHeight);
+                TransactionUtil.commitTransaction(databaseConnection);
+            }
+            catch (final DatabaseException exception) {
+                TransactionUtil.rollbackTransaction(databaseConnection);
+                throw exception;
+            }
+        }
+        catch (final DatabaseException exception) {
+            Logger.error("Unable to import UTXO snapshot.", exception);
+            return false;
+        }
+
+        if (! _storeSnapshotBlockHeight(utxoSnapshotManifest.getBlockHeight())) { return false; } // Recorded first so that a partial import is not served either...
+
+        Logger.info("Importing UTXO snapshot for block " + utxoSnapshotManifest.getBlockHash() + " (" + utxoSnapshotManifest.getBlockHeight() + "); " + utxoSnapshotManifest.getUnspentTransactionOutputCount() + " UTXOs within " + utxoSnapshotManifest.getChunkCount() + " chunks. Commitment: " + commitmentHash);
+
+        _nextChunkIndex.set(0);
+        _hasFailed.set(false);
+        _importedUnspentTransactionOutputCount.set(0L);
+
+        final MilliTimer milliTimer = new MilliTimer();
+        milliTimer.start();
+
+        final Thread[] threads = new Thread[_threadCount];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    _importChunks(directory, utxoSnapshotManifest, blockchainSegmentId);
+                }
+            });
+            threads[i].setName("UtxoSnapshotImporter - " + i);
+            threads[i].start();
+        }
+
+        for (final Thread thread : threads) {
+            try { thread.join(); } catch (final InterruptedException exception) { _hasFailed.set(true); }
+        }
+
+        milliTimer.stop();
+
+        if (_hasFailed.get()) {
+            Logger.error("UTXO snapshot import failed after " + milliTimer.getMillisecondsElapsed() + "ms. The database should be reset before retrying.");
+            return false;
+        }
+
+        Logger.info("Imported " + _importedUnspentTransactionOutputCount.get() + " UTXOs in " + milliTimer.getMillisecondsElapsed() + "ms.");
+        return true;
+    }
+}
@@ -0,0 +1,122 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.Endian;
+
+/**
+ * Describes a UTXO set snapshot taken at a specific block.
+ *  The snapshot's chunks are stored as separate files alongside the manifest; each chunk is identified by its sha256 hash.
+ *  The commitment hash is the sha256 hash of the manifest's serialized form, and therefore commits to the block, the UTXO count, and every chunk.
+ *  Two nodes with identical UTXO sets at the same block (exported with the same chunk size) produce the same commitment hash.
+ */
+public class UtxoSnapshotManifest {
+    public static final ByteArray MAGIC_NUMBER = ByteArray.fromHexString("5554584F"); // "UTXO"
+    public static final Integer VERSION = 1;
+
+    public static final String MANIFEST_FILE_NAME = "manifest.dat";
+
+    public static String getChunkFileName(final Integer chunkIndex) {
+        return String.format("chunk-%08d.dat", chunkIndex);
+    }
+
+    public static UtxoSnapshotManifest fromBytes(final ByteArray bytes) {
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+
+        final ByteArray magicNumber = MutableByteArray.wrap(byteArrayReader.readBytes(MAGIC_NUMBER.getByteCount(), Endian.BIG));
+        if (! ByteUtil.areEqual(MAGIC_NUMBER, magicNumber)) {
+            Logger.warn("Invalid UTXO snapshot manifest.");
+            return null;
+        }
+
+        final Integer version = byteArrayReader.readInteger(4, Endian.LITTLE);
+        if (! VERSION.equals(version)) {
+            Logger.warn("Unsupported UTXO snapshot version: " + version);
+            return null;
+        }
+
+        final Sha256Hash blockHash = MutableSha256Hash.wrap(byteArrayReader.readBytes(Sha256Hash.BYTE_COUNT, Endian.BIG));
+        final Long blockHeight = byteArrayReader.readLong(8, Endian.LITTLE);
+        final Long transactionCount = byteArrayReader.readLong(8, Endian.LITTLE);
+        final Long unspentTransactionOutputCount = byteArrayReader.readLong(8, Endian.LITTLE);
+        final Integer chunkCount = byteArrayReader.readVariableSizedInteger().intValue();
+        if (byteArrayReader.didOverflow()) { return null; }
+
+        final ImmutableListBuilder<Sha256Hash> chunkHashes = new ImmutableListBuilder<Sha256Hash>(chunkCount);
+        for (int i = 0; i < chunkCount; ++i) {
+            chunkHashes.add(MutableSha256Hash.wrap(byteArrayReader.readBytes(Sha256Hash.BYTE_COUNT, Endian.BIG)));
+        }
+        if (byteArrayReader.didOverflow()) { return null; }
+
+        return new UtxoSnapshotManifest(blockHash, blockHeight, transactionCount, unspentTransactionOutputCount, chunkHashes.build());
+    }
+
+    protected final Sha256Hash _blockHash;
+    protected final Long _blockHeight;
+    protected final Long _transactionCount;
+    protected final Long _unspentTransactionOutputCount;
+    protected final List<Sha256Hash> _chunkHashes;
+
+    public UtxoSnapshotManifest(final Sha256Hash blockHash, final Long blockHeight, final Long transactionCount, final Long unspentTransactionOutputCount, final List<Sha256Hash> chunkHashes) {
+        _blockHash = blockHash.asConst();
+        _blockHeight = blockHeight;
+        _transactionCount = transactionCount;
+        _unspentTransactionOutputCount = unspentTransactionOutputCount;
+        _chunkHashes = chunkHashes.asConst();
+    }
+
+    /**
+     * Returns the hash of the block whose UTXO set (i.e. after the block's transactions were applied) the snapshot represents.
+     */
+    public Sha256Hash getBlockHash() {
+        return _blockHash;
+    }
+
+    public Long getBlockHeight() {
+        return _blockHeight;
+    }
+
+    public Long getTransactionCount() {
+        return _transactionCount;
+    }
+
+    public Long getUnspentTransactionOutputCount() {
+        return _unspentTransactionOutputCount;
+    }
+
+    public List<Sha256Hash> getChunkHashes() {
+        return _chunkHashes;
+    }
+
+    public Integer getChunkCount() {
+        return _chunkHashes.getSize();
+    }
+
+    public Sha256Hash getCommitmentHash() {
+        return BitcoinUtil.sha256(getBytes());
+    }
+
+    public ByteArray getBytes() {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendBytes(MAGIC_NUMBER, Endian.BIG);
+        byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(VERSION), Endian.LITTLE);
+        byteArrayBuilder.appendBytes(_blockHash, Endian.BIG);
+        byteArrayBuilder.appendBytes(ByteUtil.longToBytes(_blockHeight), Endian.LITTLE);
+        byteArrayBuilder.appendBytes(ByteUtil.longToBytes(_transactionCount), Endian.LITTLE);
+        byteArrayBuilder.appendBytes(ByteUtil.longToBytes(_unspentTransactionOutputCount), Endian.LITTLE);
+        byteArrayBuilder.appendBytes(ByteUtil.variableLengthIntegerToBytes(_chunkHashes.getSize()), Endian.BIG);
+        for (final Sha256Hash chunkHash : _chunkHashes) {
+            byteArrayBuilder.appendBytes(chunkHash, Endian.BIG);
+        }
+        return MutableByteArray.wrap(byteArrayBuilder.build());
+    }
+}
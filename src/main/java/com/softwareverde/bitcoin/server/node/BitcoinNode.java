@@ -34,13 +34,20 @@ import com.softwareverde.bitcoin.server.message.type.query.address.QueryAddressB
 import com.softwareverde.bitcoin.server.message.type.query.block.QueryBlocksMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.InventoryMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.block.BlockMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.block.RawBlockMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.block.header.BlockHeadersMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.block.merkle.MerkleBlockMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.error.NotFoundResponseMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.filter.CompactFilterCheckpointMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.filter.CompactFilterHeadersMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.filter.CompactFilterMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItem;
 import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItemType;
 import com.softwareverde.bitcoin.server.message.type.query.response.transaction.TransactionMessage;
 import com.softwareverde.bitcoin.server.message.type.request.RequestDataMessage;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFilterCheckpointMessage;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFilterHeadersMessage;
+import com.softwareverde.bitcoin.server.message.type.request.filter.RequestCompactFiltersMessage;
 import com.softwareverde.bitcoin.server.message.type.request.header.RequestBlockHeadersMessage;
 import com.softwareverde.bitcoin.server.message.type.thin.block.ExtraThinBlockMessage;
 import com.softwareverde.bitcoin.server.message.type.thin.block.ThinBlockMessage;
@@ -155,6 +162,18 @@ public class BitcoinNode extends Node {
         void run(BitcoinNode bitcoinNode);
     }
 
+    public interface RequestCompactFiltersCallback {
+        void run(Integer filterType, Long startBlockHeight, Sha256Hash stopBlockHash, BitcoinNode bitcoinNode);
+    }
+
+    public interface RequestCompactFilterHeadersCallback {
+        void run(Integer filterType, Long startBlockHeight, Sha256Hash stopBlockHash, BitcoinNode bitcoinNode);
+    }
+
+    public interface RequestCompactFilterCheckpointCallback {
+        void run(Integer filterType, Sha256Hash stopBlockHash, BitcoinNode bitcoinNode);
+    }
+
     public static class ThinBlockParameters {
         public final BlockHeader blockHeader;
         public final List<Sha256Hash> transactionHashes;
@@ -255,6 +274,9 @@ public class BitcoinNode extends Node {
 
     protected RequestExtraThinBlockCallback _requestExtraThinBlockCallback = null;
     protected RequestExtraThinTransactionCallback _requestExtraThinTransactionCallback = null;
+    protected RequestCompactFiltersCallback _requestCompactFiltersCallback = null;
+    protected RequestCompactFilterHeadersCallback _requestCompactFilterHeadersCallback = null;
+    protected RequestCompactFilterCheckpointCallback _requestCompactFilterCheckpointCallback = null;
 
     protected BitcoinSynchronizeVersionMessage _synchronizeVersionMessage = null;
 
@@ -326,6 +348,9 @@ public class BitcoinNode extends Node {
             _blockInventoryMessageHandler = null;
             _requestExtraThinBlockCallback = null;
             _requestExtraThinTransactionCallback = null;
+            _requestCompactFiltersCallback = null;
+            _requestCompactFilterHeadersCallback = null;
+            _requestCompactFilterCheckpointCallback = null;
             _transactionsAnnouncementCallback = null;
             _spvBlockInventoryMessageCallback = null;
         }
@@ -494,6 +519,9 @@ public class BitcoinNode extends Node {
         _messageRouter.addRoute(MessageType.UPDATE_TRANSACTION_BLOOM_FILTER,(final ProtocolMessage message) -> { _onUpdateTransactionBloomFilterMessageReceived((UpdateTransactionBloomFilterMessage) message); });
         _messageRouter.addRoute(MessageType.CLEAR_TRANSACTION_BLOOM_FILTER, (final ProtocolMessage message) -> { _onClearTransactionBloomFilterMessageReceived((ClearTransactionBloomFilterMessage) message); });
         _messageRouter.addRoute(MessageType.QUERY_ADDRESS_BLOCKS,           (final ProtocolMessage message) -> { _onQueryAddressBlocks((QueryAddressBlocksMessage) message); });
+        _messageRouter.addRoute(MessageType.REQUEST_COMPACT_FILTERS,        (final ProtocolMessage message) -> { _onRequestCompactFiltersMessageReceived((RequestCompactFiltersMessage) message); });
+        _messageRouter.addRoute(MessageType.REQUEST_COMPACT_FILTER_HEADERS, (final ProtocolMessage message) -> { _onRequestCompactFilterHeadersMessageReceived((RequestCompactFilterHeadersMessage) message); });
+        _messageRouter.addRoute(MessageType.REQUEST_COMPACT_FILTER_CHECKPOINT, (final ProtocolMessage message) -> { _onRequestCompactFilterCheckpointMessageReceived((RequestCompactFilterCheckpointMessage) message); });
 
         _messageRouter.setUnknownRouteHandler(new MessageRouter.UnknownRouteHandler() {
             @Override
@@ -808,6 +836,65 @@ public class BitcoinNode extends Node {
         }
     }
 
+    protected void _onRequestCompactFiltersMessageReceived(final RequestCompactFiltersMessage requestCompactFiltersMessage) {
+        final RequestCompactFiltersCallback requestCompactFiltersCallback = _requestCompactFiltersCallback;
+
+        if (requestCompactFiltersCallback != null) {
+            final Integer filterType = requestCompactFiltersMessage.getFilterType();
+            final Long startBlockHeight = requestCompactFiltersMessage.getStartBlockHeight();
+            final Sha256Hash stopBlockHash = requestCompactFiltersMessage.getStopBlockHash();
+
+            _threadPool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    requestCompactFiltersCallback.run(filterType, startBlockHeight, stopBlockHash, BitcoinNode.this);
+                }
+            });
+        }
+        else {
+            Logger.debug("No handler set for RequestCompactFilters message.");
+        }
+    }
+
+    protected void _onRequestCompactFilterHeadersMessageReceived(final RequestCompactFilterHeadersMessage requestCompactFilterHeadersMessage) {
+        final RequestCompactFilterHeadersCallback requestCompactFilterHeadersCallback = _requestCompactFilterHeadersCallback;
+
+        if (requestCompactFilterHeadersCallback != null) {
+            final Integer filterType = requestCompactFilterHeadersMessage.getFilterType();
+            final Long startBlockHeight = requestCompactFilterHeadersMessage.getStartBlockHeight();
+            final Sha256Hash stopBlockHash = requestCompactFilterHeadersMessage.getStopBlockHash();
+
+            _threadPool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    requestCompactFilterHeadersCallback.run(filterType, startBlockHeight, stopBlockHash, BitcoinNode.this);
+                }
+            });
+        }
+        else {
+            Logger.debug("No handler set for RequestCompactFilterHeaders message.");
+        }
+    }
+
+    protected void _onRequestCompactFilterCheckpointMessageReceived(final RequestCompactFilterCheckpointMessage requestCompactFilterCheckpointMessage) {
+        final RequestCompactFilterCheckpointCallback requestCompactFilterCheckpointCallback = _requestCompactFilterCheckpointCallback;
+
+        if (requestCompactFilterCheckpointCallback != null) {
+            final Integer filterType = requestCompactFilterCheckpointMessage.getFilterType();
+            final Sha256Hash stopBlockHash = requestCompactFilterCheckpointMessage.getStopBlockHash();
+
+            _threadPool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    requestCompactFilterCheckpointCallback.run(filterType, stopBlockHash, BitcoinNode.this);
+                }
+            });
+        }
+        else {
+            Logger.debug("No handler set for RequestCompactFilterCheckpoint message.");
+        }
+    }
+
     protected void _onThinBlockMessageReceived(final ThinBlockMessage blockMessage) {
         final BlockHeader blockHeader = blockMessage.getBlockHeader();
         final List<Sha256Hash> transactionHashes = blockMessage.getTransactionHashes();
@@ -1159,6 +1246,43 @@ public class BitcoinNode extends Node {
         _queueMessage(blockMessage);
     }
 
+    /**
+     * Transmits the already-serialized Block without inflating it.
+     *  The RawBlockMessage may be shared across peers.
+     */
+    public void transmitBlock(final RawBlockMessage rawBlockMessage) {
+        _queueMessage(rawBlockMessage);
+    }
+
+    public void transmitCompactFilter(final Integer filterType, final Sha256Hash blockHash, final ByteArray filter) {
+        final CompactFilterMessage compactFilterMessage = _protocolMessageFactory.newCompactFilterMessage();
+        compactFilterMessage.setFilterType(filterType);
+        compactFilterMessage.setBlockHash(blockHash);
+        compactFilterMessage.setFilter(filter);
+        _queueMessage(compactFilterMessage);
+    }
+
+    public void transmitCompactFilterHeaders(final Integer filterType, final Sha256Hash stopBlockHash, final Sha256Hash previousFilterHeader, final List<Sha256Hash> filterHashes) {
+        final CompactFilterHeadersMessage compactFilterHeadersMessage = _protocolMessageFactory.newCompactFilterHeadersMessage();
+        compactFilterHeadersMessage.setFilterType(filterType);
+        compactFilterHeadersMessage.setStopBlockHash(stopBlockHash);
+        compactFilterHeadersMessage.setPreviousFilterHeader(previousFilterHeader);
+        for (final Sha256Hash filterHash : filterHashes) {
+            compactFilterHeadersMessage.addFilterHash(filterHash);
+        }
+        _queueMessage(compactFilterHeadersMessage);
+    }
+
+    public void transmitCompactFilterCheckpoint(final Integer filterType, final Sha256Hash stopBlockHash, final List<Sha256Hash> filterHeaders) {
+        final CompactFilterCheckpointMessage compactFilterCheckpointMessage = _protocolMessageFactory.newCompactFilterCheckpointMessage();
+        compactFilterCheckpointMessage.setFilterType(filterType);
+        compactFilterCheckpointMessage.setStopBlockHash(stopBlockHash);
+        for (final Sha256Hash filterHeader : filterHeaders) {
+            compactFilterCheckpointMessage.addFilterHeader(filterHeader);
+        }
+        _queueMessage(compactFilterCheckpointMessage);
+    }
+
     public void transmitMerkleBlock(final Block block) {
         final MutableBloomFilter bloomFilter = _bloomFilter;
         if (bloomFilter == null) {
@@ -1250,6 +1374,18 @@ public class BitcoinNode extends Node {
         _spvBlockInventoryMessageCallback = spvBlockInventoryMessageCallback;
     }
 
+    public void setRequestCompactFiltersCallback(final RequestCompactFiltersCallback requestCompactFiltersCallback) {
+        _requestCompactFiltersCallback = requestCompactFiltersCallback;
+    }
+
+    public void setRequestCompactFilterHeadersCallback(final RequestCompactFilterHeadersCallback requestCompactFilterHeadersCallback) {
+        _requestCompactFilterHeadersCallback = requestCompactFilterHeadersCallback;
+    }
+
+    public void setRequestCompactFilterCheckpointCallback(final RequestCompactFilterCheckpointCallback requestCompactFilterCheckpointCallback) {
+        _requestCompactFilterCheckpointCallback = requestCompactFilterCheckpointCallback;
+    }
+
     public Boolean newBlocksViaHeadersIsEnabled() {
         return _announceNewBlocksViaHeadersIsEnabled;
     }
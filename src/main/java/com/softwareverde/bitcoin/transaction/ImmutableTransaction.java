@@ -22,6 +22,7 @@ public class ImmutableTransaction implements ConstTransaction {
     protected final ImmutableLockTime _lockTime;
 
     protected Integer _cachedHashCode;
+    protected volatile Integer _cachedByteCount; // The serialized size; carried over from the source Transaction when known, otherwise calculated once...
 
     public ImmutableTransaction(final Transaction transaction) {
         _hash = transaction.getHash().asConst();
@@ -30,6 +31,8 @@ public class ImmutableTransaction implements ConstTransaction {
 
         _transactionInputs = ImmutableListBuilder.newConstListOfConstItems(transaction.getTransactionInputs());
         _transactionOutputs = ImmutableListBuilder.newConstListOfConstItems(transaction.getTransactionOutputs());
+
+        _cachedByteCount = TransactionDeflater.getCachedByteCount(transaction);
     }
 
     @Override
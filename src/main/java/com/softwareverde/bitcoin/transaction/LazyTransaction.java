@@ -0,0 +1,276 @@
+package com.softwareverde.bitcoin.transaction;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.coinbase.ImmutableCoinbaseTransaction;
+import com.softwareverde.bitcoin.transaction.input.MutableTransactionInput;
+import com.softwareverde.bitcoin.transaction.input.TransactionInput;
+import com.softwareverde.bitcoin.transaction.input.TransactionInputInflater;
+import com.softwareverde.bitcoin.transaction.locktime.ImmutableLockTime;
+import com.softwareverde.bitcoin.transaction.locktime.LockTime;
+import com.softwareverde.bitcoin.transaction.output.MutableTransactionOutput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputInflater;
+import com.softwareverde.bitcoin.transaction.script.Script;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.bloomfilter.BloomFilter;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
+import com.softwareverde.json.Json;
+import com.softwareverde.util.Util;
+
+/**
+ * A flyweight Transaction that references its serialized form within a shared buffer (typically the whole Block).
+ *  Only the structural offsets are computed upon creation; the hash, inputs, and outputs are decoded on first access and then cached.
+ *  NOTE: A LazyTransaction retains the entire buffer it was created from for as long as it is referenced.
+ */
+public class LazyTransaction implements ConstTransaction {
+    protected final byte[] _bytes;
+    protected final int _offset;
+    protected final int _byteCount;
+    protected final int _transactionInputCount;
+    protected final int _transactionInputsOffset;
+    protected final int _transactionOutputCount;
+    protected final int _transactionOutputsOffset;
+
+    protected volatile Sha256Hash _cachedHash;
+    protected volatile List<TransactionInput> _cachedTransactionInputs;
+    protected volatile List<TransactionOutput> _cachedTransactionOutputs;
+
+    protected static long _readLittleEndian(final byte[] bytes, final int offset, final int byteCount) {
+        long value = 0L;
+        for (int i = 0; i < byteCount; ++i) {
+            value |= ((bytes[offset + i] & 0xFFL) << (8 * i));
+        }
+        return value;
+    }
+
+    protected static int _getVariableSizedIntegerByteCount(final byte[] bytes, final int offset) {
+        final int prefix = (bytes[offset] & 0xFF);
+        if (prefix < 0xFD) { return 1; }
+        if (prefix < 0xFE) { return 3; }
+        if (prefix < 0xFF) { return 5; }
+        return 9;
+    }
+
+    protected static long _readVariableSizedInteger(final byte[] bytes, final int offset) {
+        final int byteCount = _getVariableSizedIntegerByteCount(bytes, offset);
+        if (byteCount == 1) { return (bytes[offset] & 0xFF); }
+        return _readLittleEndian(bytes, (offset + 1), (byteCount - 1));
+    }
+
+    /**
+     * Returns the number of bytes occupied by the Transaction beginning at offset, or -1 if the Transaction is malformed or truncated.
+     *  The same limits enforced by the TransactionInputInflater and TransactionOutputInflater are enforced here, so that any Transaction
+     *  accepted by the scan may be decoded later.
+     *  The provided structure array is populated with the input count, inputs offset, output count, and outputs offset.
+     */
+    protected static int _scan(final byte[] bytes, final int offset, final int[] structure) {
+        final int endIndex = bytes.length;
+        int index = (offset + 4); // Version...
+
+        if (index >= endIndex) { return -1; }
+        if ((index + _getVariableSizedIntegerByteCount(bytes, index)) > endIndex) { return -1; }
+        final long transactionInputCount = _readVariableSizedInteger(bytes, index);
+        if ( (transactionInputCount < 0L) || (transactionInputCount > Integer.MAX_VALUE) ) { return -1; }
+        index += _getVariableSizedIntegerByteCount(bytes, index);
+        structure[0] = (int) transactionInputCount;
+        structure[1] = index;
+
+        for (long i = 0L; i < transactionInputCount; ++i) {
+            index += (Sha256Hash.BYTE_COUNT + 4); // Previous TransactionOutput Hash and Index...
+            if (index >= endIndex) { return -1; }
+            if ((index + _getVariableSizedIntegerByteCount(bytes, index)) > endIndex) { return -1; }
+            final long scriptByteCount = _readVariableSizedInteger(bytes, index);
+            if ( (scriptByteCount < 0L) || (scriptByteCount > Script.MAX_BYTE_COUNT) || (scriptByteCount > (endIndex - index)) ) { return -1; }
+            index += _getVariableSizedIntegerByteCount(bytes, index);
+            index += (int) scriptByteCount;
+            index += 4; // Sequence Number...
+        }
+
+        if (index >= endIndex) { return -1; }
+        if ((index + _getVariableSizedIntegerByteCount(bytes, index)) > endIndex) { return -1; }
+        final long transactionOutputCount = _readVariableSizedInteger(bytes, index);
+        if ( (transactionOutputCount < 0L) || (transactionOutputCount > Integer.MAX_VALUE) ) { return -1; }
+        index += _getVariableSizedIntegerByteCount(bytes, index);
+        structure[2] = (int) transactionOutputCount;
+        structure[3] = index;
+
+        for (long i = 0L; i < transactionOutputCount; ++i) {
+            index += 8; // Amount...
+            if (index >= endIndex) { return -1; }
+            if ((index + _getVariableSizedIntegerByteCount(bytes, index)) > endIndex) { return -1; }
+            final long scriptByteCount = _readVariableSizedInteger(bytes, index);
+            if ( (scriptByteCount < 0L) || (scriptByteCount > (endIndex - index)) ) { return -1; }
+            index += _getVariableSizedIntegerByteCount(bytes, index);
+            index += (int) scriptByteCount;
+        }
+
+        index += 4; // LockTime...
+        if (index > endIndex) { return -1; }
+
+        return (index - offset);
+    }
+
+    /**
+     * Returns a LazyTransaction for the Transaction serialized at offset within bytes, or null if the Transaction is malformed.
+     *  The provided buffer is retained, not copied, and therefore must not be modified afterwards.
+     */
+    protected static LazyTransaction _fromBytes(final byte[] bytes, final int offset) {
+        if ( (offset < 0) || (offset >= bytes.length) ) { return null; }
+
+        final int[] structure = new int[4];
+        final int byteCount = _scan(bytes, offset, structure);
+        if (byteCount < 0) { return null; }
+
+        return new LazyTransaction(bytes, offset, byteCount, structure[0], structure[1], structure[2], structure[3]);
+    }
+
+    protected LazyTransaction(final byte[] bytes, final int offset, final int byteCount, final int transactionInputCount, final int transactionInputsOffset, final int transactionOutputCount, final int transactionOutputsOffset) {
+        _bytes = bytes;
+        _offset = offset;
+        _byteCount = byteCount;
+        _transactionInputCount = transactionInputCount;
+        _transactionInputsOffset = transactionInputsOffset;
+        _transactionOutputCount = transactionOutputCount;
+        _transactionOutputsOffset = transactionOutputsOffset;
+    }
+
+    protected ByteArrayReader _newByteArrayReader(final int position) {
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(_bytes);
+        byteArrayReader.setPosition(position);
+        return byteArrayReader;
+    }
+
+    /**
+     * Returns the number of bytes of the serialized Transaction.
+     */
+    public Integer getByteCount() {
+        return _byteCount;
+    }
+
+    /**
+     * Returns a copy of the serialized Transaction.
+     */
+    public ByteArray getBytes() {
+        return MutableByteArray.wrap(ByteUtil.copyBytes(_bytes, _offset, _byteCount));
+    }
+
+    @Override
+    public Sha256Hash getHash() {
+        final Sha256Hash cachedHash = _cachedHash;
+        if (cachedHash != null) { return cachedHash; }
+
+        final byte[] doubleSha256 = BitcoinUtil.sha256(BitcoinUtil.sha256(_bytes, _offset, _byteCount));
+
+        final Sha256Hash hash = MutableSha256Hash.wrap(ByteUtil.reverseEndian(doubleSha256)).asConst();
+        _cachedHash = hash;
+        return hash;
+    }
+
+    @Override
+    public Long getVersion() {
+        return _readLittleEndian(_bytes, _offset, 4);
+    }
+
+    @Override
+    public List<TransactionInput> getTransactionInputs() {
+        final List<TransactionInput> cachedTransactionInputs = _cachedTransactionInputs;
+        if (cachedTransactionInputs != null) { return cachedTransactionInputs; }
+
+        final TransactionInputInflater transactionInputInflater = new TransactionInputInflater();
+        final ByteArrayReader byteArrayReader = _newByteArrayReader(_transactionInputsOffset);
+        final ImmutableListBuilder<TransactionInput> transactionInputs = new ImmutableListBuilder<TransactionInput>(_transactionInputCount);
+        for (int i = 0; i < _transactionInputCount; ++i) {
+            final MutableTransactionInput transactionInput = transactionInputInflater.fromBytes(byteArrayReader);
+            transactionInputs.add(transactionInput.asConst());
+        }
+
+        final List<TransactionInput> transactionInputList = transactionInputs.build();
+        _cachedTransactionInputs = transactionInputList;
+        return transactionInputList;
+    }
+
+    @Override
+    public List<TransactionOutput> getTransactionOutputs() {
+        final List<TransactionOutput> cachedTransactionOutputs = _cachedTransactionOutputs;
+        if (cachedTransactionOutputs != null) { return cachedTransactionOutputs; }
+
+        final TransactionOutputInflater transactionOutputInflater = new TransactionOutputInflater();
+        final ByteArrayReader byteArrayReader = _newByteArrayReader(_transactionOutputsOffset);
+        final ImmutableListBuilder<TransactionOutput> transactionOutputs = new ImmutableListBuilder<TransactionOutput>(_transactionOutputCount);
+        for (int i = 0; i < _transactionOutputCount; ++i) {
+            final MutableTransactionOutput transactionOutput = transactionOutputInflater.fromBytes(i, byteArrayReader);
+            transactionOutputs.add(transactionOutput.asConst());
+        }
+
+        final List<TransactionOutput> transactionOutputList = transactionOutputs.build();
+        _cachedTransactionOutputs = transactionOutputList;
+        return transactionOutputList;
+    }
+
+    @Override
+    public LockTime getLockTime() {
+        final long lockTimeValue = _readLittleEndian(_bytes, (_offset + _byteCount - 4), 4);
+        return new ImmutableLockTime(lockTimeValue);
+    }
+
+    /**
+     * Sums the TransactionOutput amounts directly from the buffer, without decoding the TransactionOutputs.
+     */
+    @Override
+    public Long getTotalOutputValue() {
+        long totalValue = 0L;
+
+        int index = _transactionOutputsOffset;
+        for (int i = 0; i < _transactionOutputCount; ++i) {
+            totalValue += _readLittleEndian(_bytes, index, 8);
+            index += 8;
+
+            final long scriptByteCount = _readVariableSizedInteger(_bytes, index);
+            index += _getVariableSizedIntegerByteCount(_bytes, index);
+            index += (int) scriptByteCount;
+        }
+
+        return totalValue;
+    }
+
+    @Override
+    public Boolean matches(final BloomFilter bloomFilter) {
+        final TransactionBloomFilterMatcher transactionBloomFilterMatcher = new TransactionBloomFilterMatcher(bloomFilter);
+        return transactionBloomFilterMatcher.shouldInclude(this);
+    }
+
+    @Override
+    public ImmutableCoinbaseTransaction asCoinbase() {
+        if (! Transaction.isCoinbaseTransaction(this)) { return null; }
+
+        return new ImmutableCoinbaseTransaction(this);
+    }
+
+    @Override
+    public LazyTransaction asConst() {
+        return this;
+    }
+
+    @Override
+    public Json toJson() {
+        final TransactionDeflater transactionDeflater = new TransactionDeflater();
+        return transactionDeflater.toJson(this);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.getHash().hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (! (object instanceof Transaction)) { return false; }
+        return Util.areEqual(this.getHash(), ((Transaction) object).getHash());
+    }
+}
@@ -0,0 +1,27 @@
+package com.softwareverde.bitcoin.transaction;
+
+/**
+ * Creates LazyTransactions that reference, rather than copy, their serialized bytes.
+ *  Unlike the TransactionInflater, no inputs, outputs, or scripts are decoded until they are accessed.
+ */
+public class LazyTransactionInflater {
+    /**
+     * Returns the LazyTransaction serialized at offset within bytes, or null if the Transaction is malformed.
+     *  The LazyTransaction retains bytes; the buffer must not be modified afterwards.
+     */
+    public LazyTransaction fromBytes(final byte[] bytes, final Integer offset) {
+        if ( (bytes == null) || (offset == null) ) { return null; }
+
+        return LazyTransaction._fromBytes(bytes, offset);
+    }
+
+    public LazyTransaction fromBytes(final byte[] bytes) {
+        if (bytes == null) { return null; }
+
+        final LazyTransaction transaction = LazyTransaction._fromBytes(bytes, 0);
+        if (transaction == null) { return null; }
+        if (transaction.getByteCount() != bytes.length) { return null; }
+
+        return transaction;
+    }
+}
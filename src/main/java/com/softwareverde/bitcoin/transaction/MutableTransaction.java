@@ -22,6 +22,14 @@ public class MutableTransaction implements Transaction {
     protected LockTime _lockTime = new ImmutableLockTime();
 
     protected Integer _cachedHashCode = null;
+    protected Sha256Hash _cachedHash = null;
+    protected Integer _cachedByteCount = null; // The serialized size, as recorded by the TransactionInflater...
+
+    protected void _invalidateCachedProperties() {
+        _cachedHashCode = null;
+        _cachedHash = null;
+        _cachedByteCount = null;
+    }
 
     /**
      * NOTE: Math with Satoshis
@@ -43,12 +51,27 @@ public class MutableTransaction implements Transaction {
         }
 
         _lockTime = transaction.getLockTime().asConst();
+
+        if (transaction instanceof MutableTransaction) {
+            final MutableTransaction mutableTransaction = (MutableTransaction) transaction;
+            _cachedHash = mutableTransaction._cachedHash;
+            _cachedByteCount = mutableTransaction._cachedByteCount;
+        }
+        else if (transaction instanceof ConstTransaction) {
+            _cachedHash = transaction.getHash();
+            _cachedByteCount = TransactionDeflater.getCachedByteCount(transaction);
+        }
     }
 
     @Override
     public Sha256Hash getHash() {
+        final Sha256Hash cachedHash = _cachedHash;
+        if (cachedHash != null) { return cachedHash; }
+
         final TransactionHasher transactionHasher = new TransactionHasher();
-        return transactionHasher.hashTransaction(this);
+        final Sha256Hash hash = transactionHasher.hashTransaction(this).asConst();
+        _cachedHash = hash;
+        return hash;
     }
 
     @Override
@@ -56,7 +79,7 @@ public class MutableTransaction implements Transaction {
 
     public void setVersion(final Long version) {
         _version = version;
-        _cachedHashCode = null;
+        _invalidateCachedProperties();
     }
 
     @Override
@@ -66,17 +89,17 @@ public class MutableTransaction implements Transaction {
 
     public void addTransactionInput(final TransactionInput transactionInput) {
         _transactionInputs.add(transactionInput.asConst());
-        _cachedHashCode = null;
+        _invalidateCachedProperties();
     }
 
     public void clearTransactionInputs() {
         _transactionInputs.clear();
-        _cachedHashCode = null;
+        _invalidateCachedProperties();
     }
 
     public void setTransactionInput(final Integer index, final TransactionInput transactionInput) {
         _transactionInputs.set(index, transactionInput.asConst());
-        _cachedHashCode = null;
+        _invalidateCachedProperties();
     }
 
     @Override
@@ -86,17 +109,17 @@ public class MutableTransaction implements Transaction {
 
     public void addTransactionOutput(final TransactionOutput transactionOutput) {
         _transactionOutputs.add(transactionOutput.asConst());
-        _cachedHashCode = null;
+        _invalidateCachedProperties();
     }
 
     public void clearTransactionOutputs() {
         _transactionOutputs.clear();
-        _cachedHashCode = null;
+        _invalidateCachedProperties();
     }
 
     public void setTransactionOutput(final Integer index, final TransactionOutput transactionOutput) {
         _transactionOutputs.set(index, transactionOutput.asConst());
-        _cachedHashCode = null;
+        _invalidateCachedProperties();
     }
 
     @Override
@@ -104,7 +127,7 @@ public class MutableTransaction implements Transaction {
 
     public void setLockTime(final LockTime lockTime) {
         _lockTime = lockTime;
-        _cachedHashCode = null;
+        _invalidateCachedProperties();
     }
 
     @Override
@@ -147,8 +170,7 @@ public class MutableTransaction implements Transaction {
         final Integer cachedHashCode = _cachedHashCode;
         if (cachedHashCode != null) { return cachedHashCode; }
 
-        final TransactionHasher transactionHasher = new TransactionHasher();
-        final Integer hashCode = transactionHasher.hashTransaction(this).hashCode();
+        final Integer hashCode = this.getHash().hashCode();
         _cachedHashCode = hashCode;
         return hashCode;
     }
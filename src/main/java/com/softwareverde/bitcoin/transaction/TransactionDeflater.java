@@ -62,10 +62,33 @@ public class TransactionDeflater {
     }
 
     public ByteArray toBytes(final Transaction transaction) {
+        if (transaction instanceof LazyTransaction) { // The serialized form is already available...
+            return ((LazyTransaction) transaction).getBytes();
+        }
+
         return MutableByteArray.wrap(_toBytes(transaction));
     }
 
-    public Integer getByteCount(final Transaction transaction) {
+    /**
+     * Returns the serialized size of the Transaction if it is already known (i.e. it was recorded during inflation), otherwise null.
+     */
+    public static Integer getCachedByteCount(final Transaction transaction) {
+        if (transaction instanceof LazyTransaction) {
+            return ((LazyTransaction) transaction).getByteCount();
+        }
+
+        if (transaction instanceof ImmutableTransaction) {
+            return ((ImmutableTransaction) transaction)._cachedByteCount;
+        }
+
+        if (transaction instanceof MutableTransaction) {
+            return ((MutableTransaction) transaction)._cachedByteCount;
+        }
+
+        return null;
+    }
+
+    protected Integer _calculateByteCount(final Transaction transaction) {
         final Integer versionByteCount = 4;
 
         final Integer transactionInputsByteCount;
@@ -99,6 +122,17 @@ public class TransactionDeflater {
         return (versionByteCount + transactionInputsByteCount + transactionOutputsByteCount + lockTimeByteCount);
     }
 
+    public Integer getByteCount(final Transaction transaction) {
+        final Integer cachedByteCount = TransactionDeflater.getCachedByteCount(transaction);
+        if (cachedByteCount != null) { return cachedByteCount; }
+
+        final Integer byteCount = _calculateByteCount(transaction);
+        if (transaction instanceof ImmutableTransaction) { // ImmutableTransactions cannot change, so their size may be retained...
+            ((ImmutableTransaction) transaction)._cachedByteCount = byteCount;
+        }
+        return byteCount;
+    }
+
     public FragmentedBytes fragmentTransaction(final Transaction transaction) {
         final ByteArrayBuilder headBytesBuilder = new ByteArrayBuilder();
         final ByteArrayBuilder tailBytesBuilder = new ByteArrayBuilder();
@@ -1,6 +1,7 @@
 package com.softwareverde.bitcoin.transaction;
 
 import com.softwareverde.bitcoin.address.Address;
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
 import com.softwareverde.bitcoin.transaction.input.MutableTransactionInput;
 import com.softwareverde.bitcoin.transaction.input.TransactionInput;
 import com.softwareverde.bitcoin.transaction.input.TransactionInputInflater;
@@ -8,6 +9,8 @@ import com.softwareverde.bitcoin.transaction.locktime.ImmutableLockTime;
 import com.softwareverde.bitcoin.transaction.output.MutableTransactionOutput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutputInflater;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.ByteUtil;
 import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.util.HexUtil;
@@ -15,6 +18,8 @@ import com.softwareverde.util.bytearray.Endian;
 
 public class TransactionInflater {
     protected MutableTransaction _fromByteArrayReader(final ByteArrayReader byteArrayReader) {
+        final Integer startPosition = byteArrayReader.getPosition();
+
         final MutableTransaction transaction = new MutableTransaction();
         transaction._version = byteArrayReader.readLong(4, Endian.LITTLE);
 
@@ -43,6 +48,16 @@ public class TransactionInflater {
 
         if (byteArrayReader.didOverflow()) { return null; }
 
+        { // Record the hash and size from the original bytes so they are never recalculated by re-serializing the Transaction...
+            final Integer byteCount = (byteArrayReader.getPosition() - startPosition);
+            byteArrayReader.setPosition(startPosition);
+            final byte[] transactionBytes = byteArrayReader.readBytes(byteCount, Endian.BIG);
+
+            final byte[] doubleSha256 = BitcoinUtil.sha256(BitcoinUtil.sha256(transactionBytes));
+            transaction._cachedHash = MutableSha256Hash.wrap(ByteUtil.reverseEndian(doubleSha256)).asConst();
+            transaction._cachedByteCount = byteCount;
+        }
+
         return transaction;
     }
 
@@ -26,6 +26,7 @@ public class MutableCoinbaseTransaction extends MutableTransaction implements Co
         final MutableTransactionInput transactionInput = new MutableTransactionInput(_transactionInputs.get(0));
         transactionInput.setUnlockingScript(unlockingScript.asConst());
         _transactionInputs.set(0, transactionInput);
+        _invalidateCachedProperties();
     }
 
     @Override
@@ -46,6 +47,7 @@ public class MutableCoinbaseTransaction extends MutableTransaction implements Co
         final MutableTransactionOutput mutableTransactionOutput = new MutableTransactionOutput(transactionOutput);
         mutableTransactionOutput.setAmount(satoshis);
         _transactionOutputs.set(0, mutableTransactionOutput);
+        _invalidateCachedProperties();
     }
 
     @Override
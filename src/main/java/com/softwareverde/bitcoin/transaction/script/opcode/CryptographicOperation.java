@@ -2,8 +2,7 @@ package com.softwareverde.bitcoin.transaction.script.opcode;
 
 import com.softwareverde.bitcoin.bip.*;
 import com.softwareverde.bitcoin.chain.time.MedianBlockTime;
-import com.softwareverde.bitcoin.secp256k1.Schnorr;
-import com.softwareverde.bitcoin.secp256k1.Secp256k1;
+import com.softwareverde.bitcoin.secp256k1.SignatureVerificationBatch;
 import com.softwareverde.bitcoin.secp256k1.key.PublicKey;
 import com.softwareverde.bitcoin.secp256k1.signature.Signature;
 import com.softwareverde.bitcoin.server.main.BitcoinConstants;
@@ -383,90 +382,104 @@ public class CryptographicOperation extends SubTypedOperation {
             //
             // For the MultiSig-Schnorr batching mode, the public keys to test are provided within the old "nullDummy" parameter as a bit-array.
 
-            boolean signaturesHaveMatchedPublicKeys = true;
-            int signatureValidationCount = 0;
-            for (int i = 0; i < signatureCount; ++i) {
-                final int remainingSignatureCount = (signatureCount - i);
+            // The legacy implementation advances to the next public key when a signature fails, so its signatures cannot be deferred to the thread's
+            //  SignatureVerificationBatch, which reports every signature as valid; the batch is suspended while the signatures are matched to their public keys.
+            final SignatureVerificationBatch signatureVerificationBatch = (abortIfAnySignaturesFail ? null : SignatureVerificationBatch.getCurrentBatch());
+            if (signatureVerificationBatch != null) {
+                SignatureVerificationBatch.setCurrentBatch(null);
+            }
 
-                final ScriptSignature scriptSignature;
-                {
-                    if (shouldReverseSignatureOrder) {
-                        scriptSignature = signatures.get(signatureCount - i - 1);
-                    }
-                    else {
-                        scriptSignature = signatures.get(i);
+            try {
+                boolean signaturesHaveMatchedPublicKeys = true;
+                int signatureValidationCount = 0;
+                for (int i = 0; i < signatureCount; ++i) {
+                    final int remainingSignatureCount = (signatureCount - i);
+
+                    final ScriptSignature scriptSignature;
+                    {
+                        if (shouldReverseSignatureOrder) {
+                            scriptSignature = signatures.get(signatureCount - i - 1);
+                        }
+                        else {
+                            scriptSignature = signatures.get(i);
+                        }
                     }
-                }
 
-                boolean signatureHasPublicKeyMatch = false;
-                int publicKeyIndexIndex = signatureValidationCount;
-                while (publicKeyIndexIndex < publicKeyIndexesToTry.getSize()) {
+                    boolean signatureHasPublicKeyMatch = false;
+                    int publicKeyIndexIndex = signatureValidationCount;
+                    while (publicKeyIndexIndex < publicKeyIndexesToTry.getSize()) {
 
-                    { // Discontinue checking signatures if it is no longer possible that the required number of valid signatures will ever be met.
-                        //  This unfortunately disables checking publicKey validity, but this is intended according to ABC's implementation (TestVector ECE529A3309EB43E5A84DEAB9EA8F2577B0EAE4840C1BB1B20258D2F48C17424).
-                        final int remainingPublicKeyCount = (publicKeyIndexesToTry.getSize() - publicKeyIndexIndex);
-                        if (remainingSignatureCount > remainingPublicKeyCount) { break; }
-                    }
+                        { // Discontinue checking signatures if it is no longer possible that the required number of valid signatures will ever be met.
+                            //  This unfortunately disables checking publicKey validity, but this is intended according to ABC's implementation (TestVector ECE529A3309EB43E5A84DEAB9EA8F2577B0EAE4840C1BB1B20258D2F48C17424).
+                            final int remainingPublicKeyCount = (publicKeyIndexesToTry.getSize() - publicKeyIndexIndex);
+                            if (remainingSignatureCount > remainingPublicKeyCount) { break; }
+                        }
 
-                    final int nextPublicKeyIndex = publicKeyIndexesToTry.get(publicKeyIndexIndex);
-                    final PublicKey publicKey = publicKeys.get(nextPublicKeyIndex);
-                    if (Buip55.isEnabled(blockHeight)) {
-                        if (! publicKey.isValid()) { return false; } // Attempting to use an invalid public key fails, even if the signature is empty.
-                    }
+                        final int nextPublicKeyIndex = publicKeyIndexesToTry.get(publicKeyIndexIndex);
+                        final PublicKey publicKey = publicKeys.get(nextPublicKeyIndex);
+                        if (Buip55.isEnabled(blockHeight)) {
+                            if (! publicKey.isValid()) { return false; } // Attempting to use an invalid public key fails, even if the signature is empty.
+                        }
 
-                    // Signatures and PublicKeys that are not used are allowed to be coded incorrectly.
-                    //  Therefore, the publicKey checking is performed immediately before the signature check, and not when popped from the stack.
-                    if (Buip55.isEnabled(context.getBlockHeight())) { // Enforce strict signature encoding (SCRIPT_VERIFY_STRICTENC)...
-                        final Boolean publicKeyIsStrictlyEncoded = CryptographicOperation.validateStrictPublicKeyEncoding(publicKey);
-                        if (! publicKeyIsStrictlyEncoded) { return false; }
+                        // Signatures and PublicKeys that are not used are allowed to be coded incorrectly.
+                        //  Therefore, the publicKey checking is performed immediately before the signature check, and not when popped from the stack.
+                        if (Buip55.isEnabled(context.getBlockHeight())) { // Enforce strict signature encoding (SCRIPT_VERIFY_STRICTENC)...
+                            final Boolean publicKeyIsStrictlyEncoded = CryptographicOperation.validateStrictPublicKeyEncoding(publicKey);
+                            if (! publicKeyIsStrictlyEncoded) { return false; }
 
-                        final Boolean meetsStrictEncodingStandard = CryptographicOperation.validateStrictSignatureEncoding(scriptSignature, scriptSignatureContext, context);
-                        if (! meetsStrictEncodingStandard) { return false; }
-                    }
+                            final Boolean meetsStrictEncodingStandard = CryptographicOperation.validateStrictSignatureEncoding(scriptSignature, scriptSignatureContext, context);
+                            if (! meetsStrictEncodingStandard) { return false; }
+                        }
 
-                    if (HF20171113.isEnabled(blockHeight)) { // Enforce canonical signature encoding (LOW_S)...
-                        final Boolean signatureIsCanonicallyEncoded = CryptographicOperation.validateCanonicalSignatureEncoding(scriptSignature);
-                        if (! signatureIsCanonicallyEncoded) { return false; }
-                    }
+                        if (HF20171113.isEnabled(blockHeight)) { // Enforce canonical signature encoding (LOW_S)...
+                            final Boolean signatureIsCanonicallyEncoded = CryptographicOperation.validateCanonicalSignatureEncoding(scriptSignature);
+                            if (! signatureIsCanonicallyEncoded) { return false; }
+                        }
 
-                    final boolean signatureIsValid;
-                    {
-                        if ( (scriptSignature != null) && (! scriptSignature.isEmpty()) ) {
-                            final Signature.Type signatureType = scriptSignature.getSignatureType();
-                            if (signatureType != allowedSignatureType) { return false; }
+                        final boolean signatureIsValid;
+                        {
+                            if ( (scriptSignature != null) && (! scriptSignature.isEmpty()) ) {
+                                final Signature.Type signatureType = scriptSignature.getSignatureType();
+                                if (signatureType != allowedSignatureType) { return false; }
+
+                                signatureIsValid = CryptographicOperation.verifySignature(context, publicKey, scriptSignature, bytesToRemoveFromScript);
+                            }
+                            else {
+                                signatureIsValid = false; // NOTE: An invalid scriptSignature is permitted, and just simply fails...
+                            }
+                        }
+                        signatureValidationCount += 1;
 
-                            signatureIsValid = CryptographicOperation.verifySignature(context, publicKey, scriptSignature, bytesToRemoveFromScript);
+                        if (signatureIsValid) {
+                            signatureHasPublicKeyMatch = true;
+                            break;
                         }
-                        else {
-                            signatureIsValid = false; // NOTE: An invalid scriptSignature is permitted, and just simply fails...
+                        else if (abortIfAnySignaturesFail) {
+                            return false;
                         }
+
+                        publicKeyIndexIndex += 1;
                     }
-                    signatureValidationCount += 1;
 
-                    if (signatureIsValid) {
-                        signatureHasPublicKeyMatch = true;
+                    if (! signatureHasPublicKeyMatch) {
+                        signaturesHaveMatchedPublicKeys = false;
                         break;
                     }
-                    else if (abortIfAnySignaturesFail) {
+                }
+
+                if (signatureVerificationCountMustEqualPublicKeyIndexCount) {
+                    if (signatureValidationCount != publicKeyIndexesToTry.getSize()) {
                         return false;
                     }
-
-                    publicKeyIndexIndex += 1;
                 }
 
-                if (! signatureHasPublicKeyMatch) {
-                    signaturesHaveMatchedPublicKeys = false;
-                    break;
-                }
+                signaturesAreValid = signaturesHaveMatchedPublicKeys;
             }
-
-            if (signatureVerificationCountMustEqualPublicKeyIndexCount) {
-                if (signatureValidationCount != publicKeyIndexesToTry.getSize()) {
-                    return false;
+            finally {
+                if (signatureVerificationBatch != null) {
+                    SignatureVerificationBatch.setCurrentBatch(signatureVerificationBatch);
                 }
             }
-
-            signaturesAreValid = signaturesHaveMatchedPublicKeys;
         }
 
         if (_opcode == Opcode.CHECK_MULTISIGNATURE_THEN_VERIFY) {
@@ -519,13 +532,7 @@ public class CryptographicOperation extends SubTypedOperation {
             }
 
             final Signature signature = scriptSignature.getSignature();
-
-            if (signature.getType() == Signature.Type.SCHNORR) {
-                signatureIsValid = Schnorr.verifySignature(signature, publicKey, messageHash);
-            }
-            else {
-                signatureIsValid = Secp256k1.verifySignature(signature, publicKey, messageHash);
-            }
+            signatureIsValid = SignatureVerificationBatch.verifySignature(signature, publicKey, messageHash); // NOTE: Deferred if a SignatureVerificationBatch is set for this thread...
         }
         else {
             signatureIsValid = false;
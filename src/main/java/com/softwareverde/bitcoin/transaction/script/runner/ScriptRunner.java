@@ -31,7 +31,19 @@ public class ScriptRunner {
 
     protected static final Boolean BITCOIN_ABC_QUIRK_ENABLED = true;
 
-    public ScriptRunner() { }
+    protected final ScriptTemplateRunner _scriptTemplateRunner;
+
+    public ScriptRunner() {
+        this(true);
+    }
+
+    /**
+     * When scriptTemplatesAreEnabled is true, standard locking scripts (P2PK, P2PKH, P2SH-multisig, and bare multisig)
+     *  are executed via the ScriptTemplateRunner instead of being interpreted operation-by-operation.
+     */
+    public ScriptRunner(final Boolean scriptTemplatesAreEnabled) {
+        _scriptTemplateRunner = (scriptTemplatesAreEnabled ? new ScriptTemplateRunner() : null);
+    }
 
     public Boolean runScript(final LockingScript lockingScript, final UnlockingScript unlockingScript, final Context context) {
         final MutableContext mutableContext = new MutableContext(context);
@@ -41,6 +53,11 @@ public class ScriptRunner {
         if (lockingScript.getByteCount() > MAX_SCRIPT_BYTE_COUNT) { return false; }
         if (unlockingScript.getByteCount() > MAX_SCRIPT_BYTE_COUNT) { return false; }
 
+        if (_scriptTemplateRunner != null) {
+            final Boolean templateResult = _scriptTemplateRunner.runScript(lockingScript, unlockingScript, mutableContext);
+            if (templateResult != null) { return templateResult; }
+        }
+
         final Stack traditionalStack;
         final Stack payToScriptHashStack;
 
@@ -0,0 +1,349 @@
+package com.softwareverde.bitcoin.transaction.script.runner;
+
+import com.softwareverde.bitcoin.bip.Bip16;
+import com.softwareverde.bitcoin.bip.HF20181115;
+import com.softwareverde.bitcoin.bip.HF20181115SV;
+import com.softwareverde.bitcoin.transaction.script.ImmutableScript;
+import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
+import com.softwareverde.bitcoin.transaction.script.opcode.CryptographicOperation;
+import com.softwareverde.bitcoin.transaction.script.runner.context.MutableContext;
+import com.softwareverde.bitcoin.transaction.script.stack.Stack;
+import com.softwareverde.bitcoin.transaction.script.stack.Value;
+import com.softwareverde.bitcoin.transaction.script.unlocking.UnlockingScript;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.logging.Logger;
+
+/**
+ * Executes the standard locking-script templates (P2PK, P2PKH, P2SH-multisig, and bare multisig) directly from their
+ *  raw bytes, without inflating either script into Operations.
+ *  Signature validation is delegated to the same CryptographicOperations used by the ScriptRunner, so results are identical.
+ *  ScriptTemplateRunner::runScript returns null whenever the scripts do not exactly match a supported template; the
+ *  caller is then expected to fall back to the generic ScriptRunner.
+ */
+public class ScriptTemplateRunner {
+    protected static final Integer MAX_STACK_ITEM_COUNT = 1000;
+    protected static final Integer MAX_UNLOCKING_PUSH_COUNT = 200;
+    protected static final Integer MAX_VALUE_BYTE_COUNT = 520;
+
+    protected static final int OPCODE_PUSH_ZERO = 0x00;
+    protected static final int OPCODE_PUSH_DATA_BYTE = 0x4C;
+    protected static final int OPCODE_PUSH_DATA_SHORT = 0x4D;
+    protected static final int OPCODE_PUSH_NEGATIVE_ONE = 0x4F;
+    protected static final int OPCODE_PUSH_ONE = 0x51;
+    protected static final int OPCODE_PUSH_SIXTEEN = 0x60;
+    protected static final int OPCODE_COPY_1ST = 0x76;
+    protected static final int OPCODE_IS_EQUAL = 0x87;
+    protected static final int OPCODE_IS_EQUAL_THEN_VERIFY = 0x88;
+    protected static final int OPCODE_SHA_256_THEN_RIPEMD_160 = 0xA9;
+    protected static final int OPCODE_CHECK_SIGNATURE = 0xAC;
+    protected static final int OPCODE_CHECK_MULTISIGNATURE = 0xAE;
+
+    protected static final int COMPRESSED_PUBLIC_KEY_BYTE_COUNT = 33;
+    protected static final int UNCOMPRESSED_PUBLIC_KEY_BYTE_COUNT = 65;
+    protected static final int HASH_BYTE_COUNT = 20;
+
+    /**
+     * The decoded parameters of a bare multisig script ("OP_m <key 1> ... <key n> OP_n OP_CHECKMULTISIG").
+     */
+    protected static class MultisigTemplate {
+        public final Integer requiredSignatureCount;
+        public final List<Value> publicKeys;
+        public final Integer operationCount;
+
+        public MultisigTemplate(final Integer requiredSignatureCount, final List<Value> publicKeys) {
+            this.requiredSignatureCount = requiredSignatureCount;
+            this.publicKeys = publicKeys;
+            this.operationCount = (publicKeys.getSize() + 3);
+        }
+    }
+
+    protected static int _getByte(final ByteArray byteArray, final int index) {
+        return ByteUtil.byteToInteger(byteArray.getByte(index));
+    }
+
+    protected static Boolean _isPublicKeyPush(final int opcode) {
+        return ( (opcode == COMPRESSED_PUBLIC_KEY_BYTE_COUNT) || (opcode == UNCOMPRESSED_PUBLIC_KEY_BYTE_COUNT) );
+    }
+
+    protected static Boolean _hashMatches(final Value value, final ByteArray scriptBytes, final int hashOffset) {
+        final byte[] hash = BitcoinUtil.ripemd160(BitcoinUtil.sha256(value.getBytes()));
+        for (int i = 0; i < HASH_BYTE_COUNT; ++i) {
+            if (hash[i] != scriptBytes.getByte(hashOffset + i)) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the unlocking script into the values it would push onto the stack.
+     *  Returns null if the script contains anything other than the common push operations, or if it is malformed.
+     */
+    protected static List<Value> _parsePushValues(final ByteArray bytes) {
+        final int byteCount = bytes.getByteCount();
+        final MutableList<Value> values = new MutableList<Value>(4);
+
+        int index = 0;
+        while (index < byteCount) {
+            if (values.getSize() >= MAX_UNLOCKING_PUSH_COUNT) { return null; }
+
+            final int opcode = _getByte(bytes, index);
+            index += 1;
+
+            if (opcode == OPCODE_PUSH_ZERO) {
+                values.add(Value.fromInteger(0L));
+                continue;
+            }
+
+            if (opcode == OPCODE_PUSH_NEGATIVE_ONE) {
+                values.add(Value.fromInteger(-1L));
+                continue;
+            }
+
+            if ( (opcode >= OPCODE_PUSH_ONE) && (opcode <= OPCODE_PUSH_SIXTEEN) ) {
+                values.add(Value.fromInteger((long) (opcode - OPCODE_PUSH_ONE + 1)));
+                continue;
+            }
+
+            final int valueByteCount;
+            if (opcode < OPCODE_PUSH_DATA_BYTE) {
+                valueByteCount = opcode;
+            }
+            else if (opcode == OPCODE_PUSH_DATA_BYTE) {
+                if (index + 1 > byteCount) { return null; }
+                valueByteCount = _getByte(bytes, index);
+                index += 1;
+            }
+            else if (opcode == OPCODE_PUSH_DATA_SHORT) {
+                if (index + 2 > byteCount) { return null; }
+                valueByteCount = (_getByte(bytes, index) | (_getByte(bytes, index + 1) << 8)); // NOTE: Little-endian...
+                index += 2;
+            }
+            else {
+                return null;
+            }
+
+            if (valueByteCount > MAX_VALUE_BYTE_COUNT) { return null; }
+            if (index + valueByteCount > byteCount) { return null; }
+
+            final Value value = Value.fromBytes(bytes.getBytes(index, valueByteCount));
+            if (value == null) { return null; }
+            values.add(value);
+
+            index += valueByteCount;
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns the decoded MultisigTemplate if the bytes are exactly "OP_m <key 1> ... <key n> OP_n OP_CHECKMULTISIG",
+     *  where each key is a 33 or 65 byte push and 1 <= m <= n <= 16.  Otherwise, null is returned.
+     */
+    protected static MultisigTemplate _parseMultisigTemplate(final ByteArray bytes) {
+        final int byteCount = bytes.getByteCount();
+        if (byteCount < 3) { return null; }
+
+        final int firstOpcode = _getByte(bytes, 0);
+        if ( (firstOpcode < OPCODE_PUSH_ONE) || (firstOpcode > OPCODE_PUSH_SIXTEEN) ) { return null; }
+        final int requiredSignatureCount = (firstOpcode - OPCODE_PUSH_ONE + 1);
+
+        if (_getByte(bytes, byteCount - 1) != OPCODE_CHECK_MULTISIGNATURE) { return null; }
+
+        final int publicKeyCountOpcode = _getByte(bytes, byteCount - 2);
+        if ( (publicKeyCountOpcode < OPCODE_PUSH_ONE) || (publicKeyCountOpcode > OPCODE_PUSH_SIXTEEN) ) { return null; }
+        final int publicKeyCount = (publicKeyCountOpcode - OPCODE_PUSH_ONE + 1);
+        if (requiredSignatureCount > publicKeyCount) { return null; }
+
+        final MutableList<Value> publicKeys = new MutableList<Value>(publicKeyCount);
+        final int publicKeysEndIndex = (byteCount - 2);
+        int index = 1;
+        while (index < publicKeysEndIndex) {
+            final int pushByteCount = _getByte(bytes, index);
+            if (! _isPublicKeyPush(pushByteCount)) { return null; }
+            index += 1;
+
+            if (index + pushByteCount > publicKeysEndIndex) { return null; }
+            publicKeys.add(Value.fromBytes(bytes.getBytes(index, pushByteCount)));
+            index += pushByteCount;
+        }
+
+        if (publicKeys.getSize() != publicKeyCount) { return null; }
+
+        return new MultisigTemplate(requiredSignatureCount, publicKeys);
+    }
+
+    protected static Boolean _isPayToPublicKeyHash(final ByteArray bytes) {
+        if (bytes.getByteCount() != 25) { return false; }
+        if (_getByte(bytes, 0) != OPCODE_COPY_1ST) { return false; }
+        if (_getByte(bytes, 1) != OPCODE_SHA_256_THEN_RIPEMD_160) { return false; }
+        if (_getByte(bytes, 2) != HASH_BYTE_COUNT) { return false; }
+        if (_getByte(bytes, 23) != OPCODE_IS_EQUAL_THEN_VERIFY) { return false; }
+        return (_getByte(bytes, 24) == OPCODE_CHECK_SIGNATURE);
+    }
+
+    protected static Boolean _isPayToPublicKey(final ByteArray bytes) {
+        final int byteCount = bytes.getByteCount();
+        if (byteCount < 2) { return false; }
+
+        final int pushByteCount = _getByte(bytes, 0);
+        if (! _isPublicKeyPush(pushByteCount)) { return false; }
+        if (byteCount != (pushByteCount + 2)) { return false; }
+        return (_getByte(bytes, byteCount - 1) == OPCODE_CHECK_SIGNATURE);
+    }
+
+    protected static Boolean _isPayToScriptHash(final ByteArray bytes) {
+        if (bytes.getByteCount() != 23) { return false; }
+        if (_getByte(bytes, 0) != OPCODE_SHA_256_THEN_RIPEMD_160) { return false; }
+        if (_getByte(bytes, 1) != HASH_BYTE_COUNT) { return false; }
+        return (_getByte(bytes, 22) == OPCODE_IS_EQUAL);
+    }
+
+    protected static Boolean _isDirtyStackForbidden(final MutableContext context) {
+        final Long blockHeight = context.getBlockHeight();
+        return ( (HF20181115.isEnabled(blockHeight)) && (! HF20181115SV.isEnabled(blockHeight)) );
+    }
+
+    protected static Stack _newStack() {
+        final Stack stack = new Stack();
+        stack.setMaxItemCount(MAX_STACK_ITEM_COUNT);
+        return stack;
+    }
+
+    /**
+     * Pops and evaluates the final value of the stack.  Mirrors the ScriptRunner's final stack validation.
+     */
+    protected static Boolean _validateStack(final Stack stack, final MutableContext context) {
+        if (stack.didOverflow()) { return false; }
+        if (stack.isEmpty()) { return false; }
+        final Value topStackValue = stack.pop();
+        if (! topStackValue.asBoolean()) { return false; }
+
+        if (_isDirtyStackForbidden(context)) {
+            if (! stack.isEmpty()) { return false; }
+        }
+
+        return true;
+    }
+
+    protected Boolean _runPayToPublicKeyHash(final LockingScript lockingScript, final ByteArray lockingScriptBytes, final List<Value> unlockingValues, final MutableContext context) {
+        final Value signatureValue = unlockingValues.get(0);
+        final Value publicKeyValue = unlockingValues.get(1);
+
+        if (! _hashMatches(publicKeyValue, lockingScriptBytes, 3)) { return false; }
+
+        final Stack stack = _newStack();
+        stack.push(signatureValue);
+        stack.push(publicKeyValue);
+
+        context.setCurrentScript(lockingScript);
+        for (int i = 0; i < 5; ++i) { // OP_DUP, OP_HASH160, <hash>, OP_EQUALVERIFY, OP_CHECKSIG
+            context.incrementCurrentScriptIndex();
+        }
+
+        final Boolean wasSuccessful = CryptographicOperation.CHECK_SIGNATURE.applyTo(stack, new ControlState(), context);
+        if (! wasSuccessful) { return false; }
+
+        return _validateStack(stack, context);
+    }
+
+    protected Boolean _runPayToPublicKey(final LockingScript lockingScript, final ByteArray lockingScriptBytes, final List<Value> unlockingValues, final MutableContext context) {
+        final Value signatureValue = unlockingValues.get(0);
+        final int publicKeyByteCount = (lockingScriptBytes.getByteCount() - 2);
+        final Value publicKeyValue = Value.fromBytes(lockingScriptBytes.getBytes(1, publicKeyByteCount));
+
+        final Stack stack = _newStack();
+        stack.push(signatureValue);
+        stack.push(publicKeyValue);
+
+        context.setCurrentScript(lockingScript);
+        for (int i = 0; i < 2; ++i) { // <publicKey>, OP_CHECKSIG
+            context.incrementCurrentScriptIndex();
+        }
+
+        final Boolean wasSuccessful = CryptographicOperation.CHECK_SIGNATURE.applyTo(stack, new ControlState(), context);
+        if (! wasSuccessful) { return false; }
+
+        return _validateStack(stack, context);
+    }
+
+    protected Boolean _runMultisig(final MultisigTemplate multisigTemplate, final List<Value> stackValues, final int stackValueCount, final MutableContext context) {
+        final Stack stack = _newStack();
+        for (int i = 0; i < stackValueCount; ++i) {
+            stack.push(stackValues.get(i));
+        }
+
+        stack.push(Value.fromInteger(multisigTemplate.requiredSignatureCount.longValue()));
+        for (final Value publicKey : multisigTemplate.publicKeys) {
+            stack.push(publicKey);
+        }
+        stack.push(Value.fromInteger((long) multisigTemplate.publicKeys.getSize()));
+
+        for (int i = 0; i < multisigTemplate.operationCount; ++i) {
+            context.incrementCurrentScriptIndex();
+        }
+
+        final Boolean wasSuccessful = CryptographicOperation.CHECK_MULTISIGNATURE.applyTo(stack, new ControlState(), context);
+        if (! wasSuccessful) { return false; }
+
+        return _validateStack(stack, context);
+    }
+
+    public ScriptTemplateRunner() { }
+
+    /**
+     * Executes the scripts if the LockingScript matches a supported template.
+     *  Returns true/false if the template was executed, or null if the generic ScriptRunner must be used instead.
+     *  The context is expected to be owned by the caller; its current-script state is modified during execution.
+     */
+    public Boolean runScript(final LockingScript lockingScript, final UnlockingScript unlockingScript, final MutableContext context) {
+        final ByteArray lockingScriptBytes = lockingScript.getBytes();
+
+        final Boolean isPayToPublicKeyHash = _isPayToPublicKeyHash(lockingScriptBytes);
+        final Boolean isPayToScriptHash = ( (! isPayToPublicKeyHash) && _isPayToScriptHash(lockingScriptBytes) );
+        final Boolean isPayToPublicKey = ( (! isPayToPublicKeyHash) && (! isPayToScriptHash) && _isPayToPublicKey(lockingScriptBytes) );
+        final MultisigTemplate multisigTemplate = ( (isPayToPublicKeyHash || isPayToScriptHash || isPayToPublicKey) ? null : _parseMultisigTemplate(lockingScriptBytes) );
+        if ( (! isPayToPublicKeyHash) && (! isPayToScriptHash) && (! isPayToPublicKey) && (multisigTemplate == null) ) { return null; }
+
+        final List<Value> unlockingValues = _parsePushValues(unlockingScript.getBytes());
+        if (unlockingValues == null) { return null; }
+        final int unlockingValueCount = unlockingValues.getSize();
+
+        try {
+            if (isPayToPublicKeyHash) {
+                if (unlockingValueCount != 2) { return null; }
+                return _runPayToPublicKeyHash(lockingScript, lockingScriptBytes, unlockingValues, context);
+            }
+
+            if (isPayToPublicKey) {
+                if (unlockingValueCount != 1) { return null; }
+                return _runPayToPublicKey(lockingScript, lockingScriptBytes, unlockingValues, context);
+            }
+
+            if (multisigTemplate != null) {
+                context.setCurrentScript(lockingScript);
+                return _runMultisig(multisigTemplate, unlockingValues, unlockingValueCount, context);
+            }
+
+            { // Pay-To-Script-Hash...
+                if (! Bip16.isEnabled(context.getBlockHeight())) { return null; }
+                if (unlockingValueCount < 2) { return null; } // NOTE: Single-push unlocking scripts may be Segwit programs, which are handled by the ScriptRunner.
+
+                final Value redeemScriptValue = unlockingValues.get(unlockingValueCount - 1);
+                final MultisigTemplate redeemScriptMultisigTemplate = _parseMultisigTemplate(redeemScriptValue);
+                if (redeemScriptMultisigTemplate == null) { return null; }
+
+                if (! _hashMatches(redeemScriptValue, lockingScriptBytes, 2)) { return false; }
+
+                context.setCurrentScript(new ImmutableScript(redeemScriptValue));
+                return _runMultisig(redeemScriptMultisigTemplate, unlockingValues, (unlockingValueCount - 1), context);
+            }
+        }
+        catch (final Exception exception) {
+            Logger.warn(exception);
+            return false;
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package com.softwareverde.bitcoin.transaction.signer;
 
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
-import com.softwareverde.bitcoin.secp256k1.Schnorr;
 import com.softwareverde.bitcoin.secp256k1.Secp256k1;
+import com.softwareverde.bitcoin.secp256k1.SignatureVerificationBatch;
 import com.softwareverde.bitcoin.secp256k1.key.PrivateKey;
 import com.softwareverde.bitcoin.secp256k1.key.PublicKey;
 import com.softwareverde.bitcoin.secp256k1.signature.Signature;
@@ -344,12 +344,7 @@ public class TransactionSigner {
         final byte[] bytesForSigning = _getBytesForSigning(signatureContext);
 
         final Signature signature = scriptSignature.getSignature();
-        if (signature.getType() == Signature.Type.SCHNORR) {
-            return Schnorr.verifySignature(signature, publicKey, bytesForSigning);
-        }
-        else {
-            return Secp256k1.verifySignature(signature, publicKey, bytesForSigning);
-        }
+        return SignatureVerificationBatch.verifySignature(signature, publicKey, bytesForSigning); // NOTE: Deferred if a SignatureVerificationBatch is set for this thread...
     }
 
     public ScriptSignature createSignature(final SignatureContext signatureContext, final PrivateKey privateKey) {
@@ -39,6 +39,20 @@ public class BitcoinUtil {
         }
     }
 
+    /**
+     * Hashes byteCount bytes of data beginning at offset, without copying the range.
+     */
+    public static byte[] sha256(final byte[] data, final int offset, final int byteCount) {
+        try {
+            final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            messageDigest.update(data, offset, byteCount);
+            return messageDigest.digest();
+        }
+        catch (final NoSuchAlgorithmException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
     public static byte[] ripemd160(final byte[] data) {
         final RIPEMD160Digest ripemd160Digest = new RIPEMD160Digest();
         ripemd160Digest.update(data, 0, data.length);
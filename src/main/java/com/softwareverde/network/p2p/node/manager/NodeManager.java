@@ -13,6 +13,7 @@ import com.softwareverde.network.p2p.node.NodeId;
 import com.softwareverde.network.p2p.node.address.NodeIpAddress;
 import com.softwareverde.network.p2p.node.manager.health.MutableNodeHealth;
 import com.softwareverde.network.p2p.node.manager.health.NodeHealth;
+import com.softwareverde.network.p2p.node.manager.health.NodeHealthIndex;
 import com.softwareverde.network.time.MutableNetworkTime;
 import com.softwareverde.network.time.NetworkTime;
 import com.softwareverde.util.Container;
@@ -50,9 +51,21 @@ public class NodeManager<NODE extends Node> {
      *  If nodeApiInvocationCallback.didTimeout() returns true, then the the NodeApiRequestCallback should abort.
      */
     public static abstract class NodeApiRequest<NODE> implements NodeApiMessage<NODE> {
+        private MutableNodeHealth nodeHealth;
         private MutableNodeHealth.Request nodeHealthRequest;
         public Boolean didTimeout = false;
         public abstract void onFailure();
+
+        /**
+         * Records the failure against the health of the node the request was sent to.
+         *  Invoked before NodeApiRequest::onFailure when the request times out or the node cannot fulfill it.
+         */
+        void onRequestFailed() {
+            final MutableNodeHealth nodeHealth = this.nodeHealth;
+            if (nodeHealth == null) { return; }
+
+            nodeHealth.onRequestFailed(this.nodeHealthRequest);
+        }
     }
 
     protected class NodeMaintenanceThread extends Thread {
@@ -86,6 +99,7 @@ public class NodeManager<NODE extends Node> {
 
     protected final ConcurrentHashSet<NodeIpAddress> _seedNodes = new ConcurrentHashSet<NodeIpAddress>();
     protected final ConcurrentHashMap<NodeId, MutableNodeHealth> _nodeHealthMap;
+    protected final NodeHealthIndex _nodeHealthIndex = new NodeHealthIndex();
     protected final ConcurrentLinkedQueue<NodeApiMessage<NODE>> _queuedTransmissions = new ConcurrentLinkedQueue<NodeApiMessage<NODE>>();
     protected final PendingRequestsManager<NODE> _pendingRequestsManager;
     protected final ConcurrentHashSet<NodeIpAddress> _nodeAddresses = new ConcurrentHashSet<NodeIpAddress>(); // The list of all node addresses advertised by peers.
@@ -131,8 +145,10 @@ public class NodeManager<NODE extends Node> {
         if (nodeIpAddress != null) {
             _connectedNodeAddresses.add(nodeIpAddress);
         }
+        final MutableNodeHealth nodeHealth = new MutableNodeHealth(newNodeId, _systemTime);
         _nodes.put(newNodeId, node);
-        _nodeHealthMap.put(newNodeId, new MutableNodeHealth(newNodeId, _systemTime));
+        _nodeHealthMap.put(newNodeId, nodeHealth);
+        _nodeHealthIndex.add(nodeHealth);
     }
 
     protected void _addNotHandshakedNode(final NODE node) {
@@ -155,7 +171,10 @@ public class NodeManager<NODE extends Node> {
 
         _nodes.remove(nodeId);
         _pendingNodes.remove(nodeId);
-        _nodeHealthMap.remove(nodeId);
+        final MutableNodeHealth removedNodeHealth = _nodeHealthMap.remove(nodeId);
+        if (removedNodeHealth != null) {
+            _nodeHealthIndex.remove(removedNodeHealth);
+        }
         if (nodeIpAddress != null) {
             _connectedNodeAddresses.remove(nodeIpAddress);
         }
@@ -488,29 +507,36 @@ public class NodeManager<NODE extends Node> {
         return null;
     }
 
-    protected NODE _selectBestNode() {
-        final List<NODE> nodes = _selectBestNodes(1);
-        if ( (nodes == null) || (nodes.isEmpty()) ) { return null; }
+    protected void _logSelectedNode(final NODE selectedNode) {
+        final MutableNodeHealth nodeHealth = _nodeHealthMap.get(selectedNode.getId());
+        Logger.debug("Selected Node: " + (selectedNode.getId()) + " (" + (nodeHealth != null ? (nodeHealth.getPendingRequestCount() + " pending, " + nodeHealth.getAverageResponseTimeInMilliseconds() + "ms") : "???") + ") - " + (selectedNode.getConnectionString()) + " - " + _nodes.size());
+    }
 
-        final NODE selectedNode = nodes.get(0);
+    /**
+     * Returns the most preferred active node, as ordered by the NodeHealthIndex.
+     *  The index is kept ordered as requests are sent and completed, so the first active node is typically the first entry.
+     */
+    protected NODE _selectBestNode() {
+        for (final NodeId nodeId : _nodeHealthIndex) {
+            final NODE node = _nodes.get(nodeId);
+            if (node == null) { continue; } // _nodes may have been updated during the selection process...
+            if (! node.hasActiveConnection()) { continue; }
 
-        final NodeHealth nodeHealth = _nodeHealthMap.get(selectedNode.getId());
-        Logger.debug("Selected Node: " + (selectedNode.getId()) + " (" + (nodeHealth != null ? nodeHealth.getHealth() : "??? ") + "hp) - " + (selectedNode.getConnectionString()) + " - " + _nodes.size());
+            _logSelectedNode(node);
+            return node;
+        }
 
-        return selectedNode;
+        return null;
     }
 
     protected NODE _selectBestNode(final NodeFilter<NODE> nodeFilter) {
-        final List<NODE> nodes = _selectBestNodes(_maxNodeCount);
-        if ( (nodes == null) || (nodes.isEmpty()) ) { return null; }
-
-        for (final NODE node : nodes) {
-            if (node == null) { continue; }
+        for (final NodeId nodeId : _nodeHealthIndex) {
+            final NODE node = _nodes.get(nodeId);
+            if (node == null) { continue; } // _nodes may have been updated during the selection process...
+            if (! node.hasActiveConnection()) { continue; }
             if (! nodeFilter.meetsCriteria(node)) { continue; }
 
-            final NodeHealth nodeHealth = _nodeHealthMap.get(node.getId());
-            Logger.debug("Selected Node: " + (node.getId()) + " (" + (nodeHealth != null ? nodeHealth.getHealth() : "??? ") + "hp) - " + (node.getConnectionString()) + " - " + _nodes.size());
-
+            _logSelectedNode(node);
             return node;
         }
 
@@ -518,20 +544,6 @@ public class NodeManager<NODE extends Node> {
     }
 
     protected List<NODE> _selectBestNodes(final Integer requestedNodeCount) {
-        final List<NODE> activeNodes = _getActiveNodes();
-
-        final Integer activeNodeCount = activeNodes.getSize();
-        if (activeNodeCount == 0) { return null; }
-
-        final MutableList<NodeHealth> nodeHealthList = new MutableList<NodeHealth>(activeNodeCount);
-        for (final NODE activeNode : activeNodes) {
-            final NodeHealth nodeHealth = _nodeHealthMap.get(activeNode.getId());
-            if (nodeHealth != null) {
-                nodeHealthList.add(nodeHealth.asConst()); // NOTE: Items must be a snapshot to prevent concurrent modifications during sort...
-            }
-        }
-        nodeHealthList.sort(NodeHealth.HEALTH_ASCENDING_COMPARATOR);
-
         final Integer nodeCount;
         {
             if ( (requestedNodeCount >= _nodes.size()) || (requestedNodeCount < 0) ) {
@@ -543,16 +555,16 @@ public class NodeManager<NODE extends Node> {
         }
 
         final MutableList<NODE> selectedNodes = new MutableList<NODE>(nodeCount);
-        for (int i = 0; i < nodeCount; ++i) {
-            final int index = (nodeHealthList.getSize() - i - 1);
-            if ( (index < 0) || (index >= nodeHealthList.getSize()) ) { continue; }
-
-            final NodeHealth bestNodeHealth = nodeHealthList.get(index);
-            final NODE selectedNode = _nodes.get(bestNodeHealth.getNodeId());
-            if (selectedNode != null) { // _nodes may have been updated during the selection process...
-                selectedNodes.add(selectedNode);
-            }
+        for (final NodeId nodeId : _nodeHealthIndex) {
+            if (selectedNodes.getSize() >= nodeCount) { break; }
+
+            final NODE node = _nodes.get(nodeId);
+            if (node == null) { continue; } // _nodes may have been updated during the selection process...
+            if (! node.hasActiveConnection()) { continue; }
+
+            selectedNodes.add(node);
         }
+        if (selectedNodes.isEmpty()) { return null; }
 
         return selectedNodes;
     }
@@ -692,6 +704,7 @@ public class NodeManager<NODE extends Node> {
             nodeHealth = _nodeHealthMap.get(nodeId);
         }
 
+        apiRequest.nodeHealth = nodeHealth;
         apiRequest.nodeHealthRequest = nodeHealth.onRequestSent();
         _pendingRequestsManager.addPendingRequest(apiRequest);
         apiRequest.run(selectedNode);
@@ -717,6 +730,7 @@ public class NodeManager<NODE extends Node> {
             return;
         }
 
+        apiRequest.nodeHealth = nodeHealth;
         apiRequest.nodeHealthRequest = nodeHealth.onRequestSent();
         _pendingRequestsManager.addPendingRequest(apiRequest);
         apiRequest.run(selectedNode);
@@ -733,6 +747,11 @@ public class NodeManager<NODE extends Node> {
         }
     }
 
+    protected void _onRequestFailed(final NodeApiRequest<NODE> apiRequest) {
+        _pendingRequestsManager.removePendingRequest(apiRequest);
+        apiRequest.onRequestFailed();
+    }
+
     protected void _sendMessage(final NodeApiMessage<NODE> apiMessage) {
         final NODE selectedNode = _selectBestNode();
 
@@ -790,6 +809,16 @@ public class NodeManager<NODE extends Node> {
         return nodeHealth.getHealth();
     }
 
+    /**
+     * Returns a snapshot of the node's health and request metrics, or null if the node is not connected.
+     */
+    public NodeHealth getNodeHealthMetrics(final NodeId nodeId) {
+        final MutableNodeHealth nodeHealth = _nodeHealthMap.get(nodeId);
+        if (nodeHealth == null) { return null; }
+
+        return nodeHealth.asConst();
+    }
+
     public NODE getBestNode() {
         return _selectBestNode();
     }
@@ -59,6 +59,7 @@ public class PendingRequestsManager<NODE> extends SleepyService {
 
             if (requestTime < expiredStartTime) {
                 apiRequest.didTimeout = true;
+                apiRequest.onRequestFailed();
 
                 _threadPool.execute(new Runnable() {
                     @Override
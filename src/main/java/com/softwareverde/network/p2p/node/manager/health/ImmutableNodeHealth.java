@@ -6,10 +6,22 @@ import com.softwareverde.network.p2p.node.NodeId;
 public class ImmutableNodeHealth implements NodeHealth, Const {
     protected final NodeId _nodeId;
     protected final Long _health;
+    protected final Integer _pendingRequestCount;
+    protected final Long _averageResponseTimeInMilliseconds;
+    protected final Float _failureRate;
+    protected final Long _pingInMilliseconds;
 
     public ImmutableNodeHealth(final NodeId nodeId, final Long health) {
+        this(nodeId, health, 0, null, 0F, 0L);
+    }
+
+    public ImmutableNodeHealth(final NodeId nodeId, final Long health, final Integer pendingRequestCount, final Long averageResponseTimeInMilliseconds, final Float failureRate, final Long pingInMilliseconds) {
         _nodeId = nodeId;
         _health = health;
+        _pendingRequestCount = pendingRequestCount;
+        _averageResponseTimeInMilliseconds = averageResponseTimeInMilliseconds;
+        _failureRate = failureRate;
+        _pingInMilliseconds = pingInMilliseconds;
     }
 
     @Override
@@ -22,6 +34,26 @@ public class ImmutableNodeHealth implements NodeHealth, Const {
         return _health;
     }
 
+    @Override
+    public Integer getPendingRequestCount() {
+        return _pendingRequestCount;
+    }
+
+    @Override
+    public Long getAverageResponseTimeInMilliseconds() {
+        return _averageResponseTimeInMilliseconds;
+    }
+
+    @Override
+    public Float getFailureRate() {
+        return _failureRate;
+    }
+
+    @Override
+    public Long getPingInMilliseconds() {
+        return _pingInMilliseconds;
+    }
+
     @Override
     public ImmutableNodeHealth asConst() {
         return this;
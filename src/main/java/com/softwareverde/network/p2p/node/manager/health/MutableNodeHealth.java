@@ -8,6 +8,8 @@ import com.softwareverde.util.type.time.SystemTime;
 import com.softwareverde.util.type.time.Time;
 
 public class MutableNodeHealth implements NodeHealth {
+    public static final Float AVERAGE_WEIGHT = 0.2F; // The weight of the newest sample within the exponentially weighted moving averages...
+    protected static final Double MIN_SUCCESS_RATE = 0.05D;
 
     public static class Request implements NodeHealth.Request {
         protected static final Object NEXT_ID_MUTEX = new Object();
@@ -16,6 +18,7 @@ public class MutableNodeHealth implements NodeHealth {
         public final Long id;
         protected final Long _startTimeInMilliseconds;
         protected Long _endTimeInMilliseconds;
+        protected Boolean _isPending = false; // Guarded by the owning MutableNodeHealth's _metricsMutex...
 
         protected Request(final Long startTimeInMilliseconds) {
             synchronized (NEXT_ID_MUTEX) {
@@ -77,13 +80,74 @@ public class MutableNodeHealth implements NodeHealth {
         }
     }
 
+    protected static Double _calculateAverage(final Double average, final Double value) {
+        if (average == null) { return value; }
+        return ((AVERAGE_WEIGHT * value) + ((1D - AVERAGE_WEIGHT) * average));
+    }
+
     protected final Long _maxHealth = FULL_HEALTH;
 
     protected final Object _mutex = new Object();
     protected final Time _systemTime;
     protected final NodeId _nodeId;
     protected RotatingQueue<Request> _requests = new RotatingQueue<Request>(1024);
-    protected Long _pingInMilliseconds = 0L;
+    protected volatile Long _pingInMilliseconds = 0L;
+
+    protected final Object _metricsMutex = new Object();
+    protected Integer _pendingRequestCount = 0;
+    protected Double _averageResponseTimeInMilliseconds = null;
+    protected Double _failureRate = 0D;
+    protected NodeHealthIndex _nodeHealthIndex = null;
+    protected NodeHealthIndex.Entry _nodeHealthIndexEntry = null;
+
+    /**
+     * Replaces this node's Entry within its NodeHealthIndex, if it is indexed.
+     *  Requires the _metricsMutex.
+     */
+    protected void _reindex() {
+        if (_nodeHealthIndex == null) { return; }
+
+        final NodeHealthIndex.Entry nodeHealthIndexEntry = new NodeHealthIndex.Entry(_nodeId, _pendingRequestCount, _calculateSelectionCost());
+        _nodeHealthIndex._replaceEntry(_nodeHealthIndexEntry, nodeHealthIndexEntry);
+        _nodeHealthIndexEntry = nodeHealthIndexEntry;
+    }
+
+    /**
+     * Requires the _metricsMutex.
+     */
+    protected Double _calculateSelectionCost() {
+        final Double averageResponseTime = Util.coalesce(_averageResponseTimeInMilliseconds, 0D);
+        final Double successRate = Math.max(MIN_SUCCESS_RATE, (1D - _failureRate));
+        return ((averageResponseTime + _pingInMilliseconds) / successRate);
+    }
+
+    protected void _setNodeHealthIndex(final NodeHealthIndex nodeHealthIndex) {
+        synchronized (_metricsMutex) {
+            if (_nodeHealthIndex != null) {
+                _nodeHealthIndex._replaceEntry(_nodeHealthIndexEntry, null);
+                _nodeHealthIndexEntry = null;
+            }
+
+            _nodeHealthIndex = nodeHealthIndex;
+            _reindex();
+        }
+    }
+
+    /**
+     * Records the completion of a pending request within the moving averages.
+     *  A request is only recorded once, regardless of whether it both timed out and later received a response.
+     */
+    protected void _onRequestCompleted(final Request request, final Long durationInMilliseconds, final Boolean wasSuccessful) {
+        synchronized (_metricsMutex) {
+            if (! request._isPending) { return; }
+
+            request._isPending = false;
+            _pendingRequestCount -= 1;
+            _averageResponseTimeInMilliseconds = _calculateAverage(_averageResponseTimeInMilliseconds, durationInMilliseconds.doubleValue());
+            _failureRate = _calculateAverage(_failureRate, (wasSuccessful ? 0D : 1D));
+            _reindex();
+        }
+    }
 
     protected MutableList<Request> _getRecentRequests() {
         final MutableList<Request> recentRequests = new MutableList<Request>(_requests.size());
@@ -112,33 +176,30 @@ public class MutableNodeHealth implements NodeHealth {
     }
 
     public Request onRequestSent() {
+        final Request request;
         synchronized (_mutex) {
             final Long now = _systemTime.getCurrentTimeInMilliSeconds();
-            final Request request = new Request(now);
+            request = new Request(now);
 
             _requests.add(request);
+        }
 
-            return request;
+        synchronized (_metricsMutex) {
+            request._isPending = true;
+            _pendingRequestCount += 1;
+            _reindex();
         }
+
+        return request;
     }
 
     public void onMessageSent() {
-        synchronized (_mutex) {
-            final Long averageMessageDuration;
-            {
-                long totalDuration = 0L;
-                int requestCount = 0;
-                for (final Request request : _requests) {
-                    final Long duration = request.calculateDurationInMilliseconds();
-                    if (duration != null) {
-                        totalDuration += duration;
-                        requestCount += 1;
-                    }
-                }
-
-                averageMessageDuration = (totalDuration / requestCount);
-            }
+        final Long averageMessageDuration;
+        synchronized (_metricsMutex) {
+            averageMessageDuration = Util.coalesce(_averageResponseTimeInMilliseconds, 0D).longValue();
+        }
 
+        synchronized (_mutex) {
             final Long now = _systemTime.getCurrentTimeInMilliSeconds();
             final Request request = new Request(now);
             request.setEndTimeInMilliseconds(now + averageMessageDuration);
@@ -150,14 +211,40 @@ public class MutableNodeHealth implements NodeHealth {
     public void onResponseReceived(final Request request) {
         if (request == null) { return; }
 
+        final Long now = _systemTime.getCurrentTimeInMilliSeconds();
         synchronized (_mutex) {
-            final Long now = _systemTime.getCurrentTimeInMilliSeconds();
             request.setEndTimeInMilliseconds(now);
         }
+
+        _onRequestCompleted(request, (now - request.getStartTimeInMilliseconds()), true);
+    }
+
+    /**
+     * Records the request as failed, either because it timed out or because the node could not fulfill it.
+     *  The request remains incomplete within the node's health, but its elapsed time is recorded within the moving averages.
+     */
+    public void onRequestFailed(final Request request) {
+        if (request == null) { return; }
+
+        final Long now = _systemTime.getCurrentTimeInMilliSeconds();
+        _onRequestCompleted(request, (now - request.getStartTimeInMilliseconds()), false);
     }
 
     public void updatePingInMilliseconds(final Long ping) {
-        _pingInMilliseconds = ping;
+        synchronized (_metricsMutex) {
+            _pingInMilliseconds = ping;
+            _reindex();
+        }
+    }
+
+    /**
+     * Returns the cost of selecting this node for a request; lower is better.
+     *  The cost is the node's average response time plus its ping, scaled by its success rate.
+     */
+    public Double getSelectionCost() {
+        synchronized (_metricsMutex) {
+            return _calculateSelectionCost();
+        }
     }
 
 
@@ -171,10 +258,39 @@ public class MutableNodeHealth implements NodeHealth {
         return _calculateHealth();
     }
 
+    @Override
+    public Integer getPendingRequestCount() {
+        synchronized (_metricsMutex) {
+            return _pendingRequestCount;
+        }
+    }
+
+    @Override
+    public Long getAverageResponseTimeInMilliseconds() {
+        synchronized (_metricsMutex) {
+            if (_averageResponseTimeInMilliseconds == null) { return null; }
+            return _averageResponseTimeInMilliseconds.longValue();
+        }
+    }
+
+    @Override
+    public Float getFailureRate() {
+        synchronized (_metricsMutex) {
+            return _failureRate.floatValue();
+        }
+    }
+
+    @Override
+    public Long getPingInMilliseconds() {
+        return _pingInMilliseconds;
+    }
+
     @Override
     public ImmutableNodeHealth asConst() {
         final Long currentHealth = _calculateHealth();
-        return new ImmutableNodeHealth(_nodeId, currentHealth);
+        synchronized (_metricsMutex) {
+            final Long averageResponseTime = (_averageResponseTimeInMilliseconds != null ? _averageResponseTimeInMilliseconds.longValue() : null);
+            return new ImmutableNodeHealth(_nodeId, currentHealth, _pendingRequestCount, averageResponseTime, _failureRate.floatValue(), _pingInMilliseconds);
+        }
     }
-
 }
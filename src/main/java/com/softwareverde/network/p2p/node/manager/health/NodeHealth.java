@@ -23,6 +23,20 @@ public interface NodeHealth extends Constable<ImmutableNodeHealth> {
     NodeId getNodeId();
     Long getHealth();
 
+    Integer getPendingRequestCount();
+
+    /**
+     * Returns the exponentially weighted moving average of the node's response time, or null if no request has completed.
+     */
+    Long getAverageResponseTimeInMilliseconds();
+
+    /**
+     * Returns the exponentially weighted moving average of the node's request failures (i.e. timeouts), between 0 and 1.
+     */
+    Float getFailureRate();
+
+    Long getPingInMilliseconds();
+
     @Override
     ImmutableNodeHealth asConst();
 }
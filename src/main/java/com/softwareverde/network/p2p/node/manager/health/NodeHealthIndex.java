@@ -0,0 +1,85 @@
+package com.softwareverde.network.p2p.node.manager.health;
+
+import com.softwareverde.network.p2p.node.NodeId;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Orders MutableNodeHealths from the most preferred node to the least preferred node.
+ *  Nodes with the fewest pending requests are preferred; ties are broken by the lowest selection cost (see MutableNodeHealth::getSelectionCost).
+ *  A MutableNodeHealth re-indexes itself whenever its metrics change, so selecting the best node does not require a sort or a lock;
+ *  iteration is weakly consistent and may briefly omit a node while it is being re-indexed.
+ */
+public class NodeHealthIndex implements Iterable<NodeId> {
+    protected static class Entry implements Comparable<Entry> {
+        public final NodeId nodeId;
+        public final Integer pendingRequestCount;
+        public final Double selectionCost;
+
+        public Entry(final NodeId nodeId, final Integer pendingRequestCount, final Double selectionCost) {
+            this.nodeId = nodeId;
+            this.pendingRequestCount = pendingRequestCount;
+            this.selectionCost = selectionCost;
+        }
+
+        @Override
+        public int compareTo(final Entry entry) {
+            final int pendingRequestCountComparison = this.pendingRequestCount.compareTo(entry.pendingRequestCount);
+            if (pendingRequestCountComparison != 0) { return pendingRequestCountComparison; }
+
+            final int selectionCostComparison = this.selectionCost.compareTo(entry.selectionCost);
+            if (selectionCostComparison != 0) { return selectionCostComparison; }
+
+            return Long.compare(this.nodeId.longValue(), entry.nodeId.longValue());
+        }
+    }
+
+    protected final ConcurrentSkipListSet<Entry> _entries = new ConcurrentSkipListSet<Entry>();
+
+    /**
+     * Replaces the node's previous Entry with its new Entry.
+     *  Invoked by MutableNodeHealth while holding its metrics lock, so Entries for the same node are never replaced concurrently.
+     */
+    protected void _replaceEntry(final Entry previousEntry, final Entry entry) {
+        if (previousEntry != null) {
+            _entries.remove(previousEntry);
+        }
+
+        if (entry != null) {
+            _entries.add(entry);
+        }
+    }
+
+    public void add(final MutableNodeHealth nodeHealth) {
+        nodeHealth._setNodeHealthIndex(this);
+    }
+
+    public void remove(final MutableNodeHealth nodeHealth) {
+        nodeHealth._setNodeHealthIndex(null);
+    }
+
+    /**
+     * Returns the NodeIds ordered from the most preferred node to the least preferred node.
+     */
+    @Override
+    public Iterator<NodeId> iterator() {
+        final Iterator<Entry> iterator = _entries.iterator();
+        return new Iterator<NodeId>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public NodeId next() {
+                final Entry entry = iterator.next();
+                return entry.nodeId;
+            }
+        };
+    }
+
+    public Integer getNodeCount() {
+        return _entries.size();
+    }
+}
@@ -2,6 +2,7 @@ package com.softwareverde.network.socket;
 
 import com.softwareverde.concurrent.pool.ThreadPool;
 import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
 import com.softwareverde.logging.Logger;
 import com.softwareverde.network.ip.Ip;
 import com.softwareverde.network.p2p.message.ProtocolMessage;
@@ -176,10 +177,11 @@ public abstract class Socket {
 
     public Boolean write(final ProtocolMessage outboundMessage) {
         final ByteArray bytes = outboundMessage.getBytes();
+        final byte[] rawBytes = ((bytes instanceof MutableByteArray) ? ((MutableByteArray) bytes).unwrap() : bytes.getBytes()); // Avoid copying large messages (i.e. Blocks) again...
 
         try {
             synchronized (_rawOutputStreamWriteMutex) {
-                _rawOutputStream.write(bytes.getBytes());
+                _rawOutputStream.write(rawBytes);
                 _rawOutputStream.flush();
 
                 return true;
@@ -0,0 +1,68 @@
+package com.softwareverde.siphash;
+
+import com.softwareverde.constable.bytearray.ByteArray;
+
+/**
+ * SipHash-2-4, as specified by https://131002.net/siphash/siphash.pdf
+ *  Keys and message words are read little-endian, as used by BIP-158.
+ */
+public class SipHashUtil {
+    private static long _rotateLeft64(final long x, final int r) {
+        return ( (x << r) | (x >>> (64 - r)) );
+    }
+
+    private static long _readLong(final ByteArray bytes, final int offset, final int byteCount) {
+        long value = 0L;
+        for (int i = 0; i < byteCount; ++i) {
+            value |= ((bytes.getByte(offset + i) & 0xFFL) << (8 * i));
+        }
+        return value;
+    }
+
+    /**
+     * Reads the two SipHash key words from the first 16 bytes of the provided key, little-endian.
+     */
+    public static long[] readKey(final ByteArray key) {
+        return new long[] { _readLong(key, 0, 8), _readLong(key, 8, 8) };
+    }
+
+    public static long sipHash24(final long k0, final long k1, final ByteArray message) {
+        long v0 = (k0 ^ 0x736F6D6570736575L);
+        long v1 = (k1 ^ 0x646F72616E646F6DL);
+        long v2 = (k0 ^ 0x6C7967656E657261L);
+        long v3 = (k1 ^ 0x7465646279746573L);
+
+        final int byteCount = message.getByteCount();
+        final int wordByteCount = ( (byteCount / 8) * 8 );
+
+        for (int i = 0; i < (wordByteCount + 8); i += 8) {
+            final long m;
+            if (i < wordByteCount) {
+                m = _readLong(message, i, 8);
+            }
+            else { // The final word contains the remaining bytes and the message length...
+                final int remainingByteCount = (byteCount - wordByteCount);
+                m = ( _readLong(message, wordByteCount, remainingByteCount) | ((byteCount & 0xFFL) << 56) );
+            }
+
+            v3 ^= m;
+            for (int round = 0; round < 2; ++round) {
+                v0 += v1; v1 = _rotateLeft64(v1, 13); v1 ^= v0; v0 = _rotateLeft64(v0, 32);
+                v2 += v3; v3 = _rotateLeft64(v3, 16); v3 ^= v2;
+                v0 += v3; v3 = _rotateLeft64(v3, 21); v3 ^= v0;
+                v2 += v1; v1 = _rotateLeft64(v1, 17); v1 ^= v2; v2 = _rotateLeft64(v2, 32);
+            }
+            v0 ^= m;
+        }
+
+        v2 ^= 0xFFL;
+        for (int round = 0; round < 4; ++round) {
+            v0 += v1; v1 = _rotateLeft64(v1, 13); v1 ^= v0; v0 = _rotateLeft64(v0, 32);
+            v2 += v3; v3 = _rotateLeft64(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = _rotateLeft64(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = _rotateLeft64(v1, 17); v1 ^= v2; v2 = _rotateLeft64(v2, 32);
+        }
+
+        return (v0 ^ v1 ^ v2 ^ v3);
+    }
+}
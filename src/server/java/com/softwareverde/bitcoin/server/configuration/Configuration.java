@@ -53,6 +53,35 @@ public class Configuration {
         databaseProperties._useEmbeddedDatabase = useEmbeddedDatabase;
         databaseProperties._maxMemoryByteCount = maxMemoryByteCount;
         databaseProperties._logFileByteCount = logFileByteCount;
+
+        { // Parse Read Replicas; each replica uses the same credentials and schema as the primary database...
+            final Json readReplicasJson = Json.parse(_properties.getProperty(propertyPrefix + "database.readReplicas", "[]"));
+            final DatabaseProperties[] readReplicaPropertiesArray = new DatabaseProperties[readReplicasJson.length()];
+            for (int i = 0; i < readReplicasJson.length(); ++i) {
+                final String readReplicaString = readReplicasJson.getString(i);
+
+                final DatabaseProperties readReplicaProperties = new DatabaseProperties();
+                readReplicaProperties.setUsername(username);
+                readReplicaProperties.setPassword(password);
+                readReplicaProperties.setSchema(schema);
+
+                final int indexOfColon = readReplicaString.indexOf(":");
+                if (indexOfColon < 0) {
+                    readReplicaProperties.setHostname(readReplicaString);
+                    readReplicaProperties.setPort(port);
+                }
+                else {
+                    readReplicaProperties.setHostname(readReplicaString.substring(0, indexOfColon));
+                    readReplicaProperties.setPort(Util.parseInt(readReplicaString.substring(indexOfColon + 1)));
+                }
+
+                readReplicaProperties._useEmbeddedDatabase = false;
+                readReplicaPropertiesArray[i] = readReplicaProperties;
+            }
+            databaseProperties._readReplicaProperties = readReplicaPropertiesArray;
+        }
+        databaseProperties._maxReadReplicaBlockLag = Math.max(0L, Util.parseLong(_properties.getProperty(propertyPrefix + "database.maxReadReplicaBlockLag", "0")));
+
         return databaseProperties;
     }
 
@@ -82,6 +111,7 @@ public class Configuration {
         _bitcoinProperties = new BitcoinProperties();
         _bitcoinProperties._bitcoinPort = Util.parseInt(_properties.getProperty("bitcoin.port", BitcoinProperties.PORT.toString()));
         _bitcoinProperties._bitcoinRpcPort = Util.parseInt(_properties.getProperty("bitcoin.rpcPort", BitcoinProperties.RPC_PORT.toString()));
+        _bitcoinProperties._bitcoinBinaryRpcPort = Util.parseInt(_properties.getProperty("bitcoin.binaryRpcPort", BitcoinProperties.BINARY_RPC_PORT.toString()));
 
         { // Parse Seed Nodes...
             _bitcoinProperties._seedNodeProperties = _parseSeedNodeProperties("bitcoin.seedNodes", "[\"btc.softwareverde.com\"]");
@@ -100,7 +130,11 @@ public class Configuration {
         _bitcoinProperties._transactionBloomFilterIsEnabled = Util.parseBool(_properties.getProperty("bitcoin.useTransactionBloomFilter", "1"));
         _bitcoinProperties._bootstrapIsEnabled = Util.parseBool(_properties.getProperty("bitcoin.enableBootstrap", "1"));
         _bitcoinProperties._trimBlocksIsEnabled = Util.parseBool(_properties.getProperty("bitcoin.trimBlocks", "0"));
+        _bitcoinProperties._pruneBlockDepth = Math.max(0L, Util.parseLong(_properties.getProperty("bitcoin.pruneBlockDepth", "0")));
         _bitcoinProperties._blockCacheIsEnabled = Util.parseBool(_properties.getProperty("bitcoin.cacheBlocks", "1"));
+        _bitcoinProperties._blockCacheStorageEngine = _properties.getProperty("bitcoin.blockCacheStorageEngine", BitcoinProperties.BLOCK_CACHE_STORAGE_ENGINE_FILES).trim().toLowerCase();
+        _bitcoinProperties._compactBlockFiltersAreEnabled = Util.parseBool(_properties.getProperty("bitcoin.enableCompactBlockFilters", "0"));
+        _bitcoinProperties._blockUndoDataIsEnabled = Util.parseBool(_properties.getProperty("bitcoin.recordBlockUndoData", "0"));
         _bitcoinProperties._maxMessagesPerSecond = Util.parseInt(_properties.getProperty("bitcoin.maxMessagesPerSecondPerNode", "250"));
         _bitcoinProperties._dataDirectory = _properties.getProperty("bitcoin.dataDirectory", "data");
         _bitcoinProperties._shouldRelayInvalidSlpTransactions = Util.parseBool(_properties.getProperty("bitcoin.relayInvalidSlpTransactions", "1"));
@@ -1,15 +1,20 @@
 package com.softwareverde.bitcoin.server.configuration;
 
 import com.softwareverde.database.mysql.embedded.properties.MutableEmbeddedDatabaseProperties;
+import com.softwareverde.util.Util;
 
 public class DatabaseProperties extends MutableEmbeddedDatabaseProperties {
     protected Boolean _useEmbeddedDatabase;
     protected Long _maxMemoryByteCount;
     protected Long _logFileByteCount;
+    protected DatabaseProperties[] _readReplicaProperties;
+    protected Long _maxReadReplicaBlockLag;
 
     public DatabaseProperties() { }
 
     public Boolean useEmbeddedDatabase() { return _useEmbeddedDatabase; }
     public Long getMaxMemoryByteCount() { return _maxMemoryByteCount; }
     public Long getLogFileByteCount() { return _logFileByteCount; }
+    public DatabaseProperties[] getReadReplicaProperties() { return Util.copyArray(_readReplicaProperties); }
+    public Long getMaxReadReplicaBlockLag() { return _maxReadReplicaBlockLag; }
 }
\ No newline at end of file
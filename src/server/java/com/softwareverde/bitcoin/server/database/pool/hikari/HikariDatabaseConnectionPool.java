@@ -2,6 +2,7 @@ package com.softwareverde.bitcoin.server.database.pool.hikari;
 
 import com.softwareverde.bitcoin.server.database.DatabaseConnection;
 import com.softwareverde.bitcoin.server.database.DatabaseConnectionCore;
+import com.softwareverde.bitcoin.server.database.PreparedStatementCache;
 import com.softwareverde.bitcoin.server.database.pool.DatabaseConnectionPool;
 import com.softwareverde.database.DatabaseException;
 import com.softwareverde.database.mysql.MysqlDatabaseConnection;
@@ -41,6 +42,13 @@ public class HikariDatabaseConnectionPool implements DatabaseConnectionPool {
         _dataSource.setMaximumPoolSize(128); // NOTE: MySQL Default is 151.
         _dataSource.setAutoCommit(true);
 
+        { // Prepare statements on the server so that statements reused via the PreparedStatementCache are not re-parsed, and are bound with the binary protocol...
+            _dataSource.addDataSourceProperty("useServerPrepStmts", "true");
+            _dataSource.addDataSourceProperty("cachePrepStmts", "true");
+            _dataSource.addDataSourceProperty("prepStmtCacheSize", String.valueOf(PreparedStatementCache.DEFAULT_MAX_STATEMENT_COUNT));
+            _dataSource.addDataSourceProperty("prepStmtCacheSqlLimit", String.valueOf(PreparedStatementCache.MAX_CACHED_SQL_LENGTH));
+        }
+
         final String hostname = databaseProperties.getHostname();
         final Integer port = databaseProperties.getPort();
         final String schema = databaseProperties.getSchema();
@@ -56,6 +64,14 @@ public class HikariDatabaseConnectionPool implements DatabaseConnectionPool {
         _initHikariDataSource(databaseProperties);
     }
 
+    /**
+     * Creates a pool whose connections are marked read-only (e.g. for a read replica), so that accidental writes are rejected by the server.
+     */
+    public HikariDatabaseConnectionPool(final DatabaseProperties databaseProperties, final Boolean isReadOnly) {
+        _initHikariDataSource(databaseProperties);
+        _dataSource.setReadOnly(isReadOnly);
+    }
+
     @Override
     public DatabaseConnection newConnection() throws DatabaseException {
         if (_isShutdown.get()) {
@@ -64,7 +80,7 @@ public class HikariDatabaseConnectionPool implements DatabaseConnectionPool {
 
         try {
             final Connection connection = _dataSource.getConnection();
-            return new HikariConnectionWrapper(new MysqlDatabaseConnection(connection));
+            return new HikariConnectionWrapper(new MysqlDatabaseConnection(PreparedStatementCache.wrap(connection)));
         }
         catch (final Exception exception) {
             throw new DatabaseException(exception);
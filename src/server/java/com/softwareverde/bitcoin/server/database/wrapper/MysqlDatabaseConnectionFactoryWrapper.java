@@ -15,7 +15,7 @@ public class MysqlDatabaseConnectionFactoryWrapper implements DatabaseConnection
 
     @Override
     public DatabaseConnection newConnection() throws DatabaseException {
-        return new MysqlDatabaseConnectionWrapper(_core.newConnection());
+        return MysqlDatabaseConnectionWrapper.withPreparedStatementCache(_core.newConnection());
     }
 
     @Override
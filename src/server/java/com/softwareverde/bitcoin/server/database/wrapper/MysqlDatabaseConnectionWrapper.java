@@ -1,9 +1,20 @@
 package com.softwareverde.bitcoin.server.database.wrapper;
 
 import com.softwareverde.bitcoin.server.database.DatabaseConnectionCore;
+import com.softwareverde.bitcoin.server.database.PreparedStatementCache;
 import com.softwareverde.database.mysql.MysqlDatabaseConnection;
 
+import java.sql.Connection;
+
 public class MysqlDatabaseConnectionWrapper extends DatabaseConnectionCore {
+    /**
+     * Wraps the MysqlDatabaseConnection so that its PreparedStatements are reused until the connection is closed.
+     */
+    public static MysqlDatabaseConnectionWrapper withPreparedStatementCache(final MysqlDatabaseConnection databaseConnection) {
+        final Connection rawConnection = databaseConnection.getRawConnection();
+        return new MysqlDatabaseConnectionWrapper(new MysqlDatabaseConnection(PreparedStatementCache.wrap(rawConnection)));
+    }
+
     public MysqlDatabaseConnectionWrapper(final MysqlDatabaseConnection core) {
         super(core);
     }
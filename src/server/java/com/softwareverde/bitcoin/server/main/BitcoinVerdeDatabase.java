@@ -133,7 +133,7 @@ public class BitcoinVerdeDatabase implements Database {
 
     @Override
     public DatabaseConnection newConnection() throws DatabaseException {
-        return new MysqlDatabaseConnectionWrapper(_core.newConnection());
+        return MysqlDatabaseConnectionWrapper.withPreparedStatementCache(_core.newConnection());
     }
 
     @Override
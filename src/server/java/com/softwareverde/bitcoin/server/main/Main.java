@@ -11,10 +11,12 @@ import com.softwareverde.bitcoin.server.database.cache.MasterDatabaseManagerCach
 import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputCacheFactory;
 import com.softwareverde.bitcoin.server.database.cache.utxo.UtxoCount;
 import com.softwareverde.bitcoin.server.database.pool.DatabaseConnectionPool;
+import com.softwareverde.bitcoin.server.database.pool.ReadReplicaDatabaseConnectionPool;
 import com.softwareverde.bitcoin.server.database.pool.hikari.HikariDatabaseConnectionPool;
 import com.softwareverde.bitcoin.server.module.*;
 import com.softwareverde.bitcoin.server.module.explorer.ExplorerModule;
 import com.softwareverde.bitcoin.server.module.node.NodeModule;
+import com.softwareverde.bitcoin.server.module.node.utxo.UtxoSnapshotImporter;
 import com.softwareverde.bitcoin.server.module.proxy.ProxyModule;
 import com.softwareverde.bitcoin.server.module.stratum.StratumModule;
 import com.softwareverde.bitcoin.server.module.wallet.WalletModule;
@@ -28,6 +30,7 @@ import com.softwareverde.util.Container;
 import com.softwareverde.util.Util;
 
 import java.io.File;
+import java.util.ArrayList;
 
 public class Main {
 
@@ -46,6 +49,24 @@ public class Main {
         return NativeUnspentTransactionOutputCache.createNativeUnspentTransactionOutputCacheFactory(maxUtxoCount);
     }
 
+    /**
+     * Returns a pool that routes read-only queries to the configured read replicas, or the primary pool if no replicas are configured.
+     */
+    protected static DatabaseConnectionPool _getReadOnlyDatabaseConnectionPool(final DatabaseProperties databaseProperties, final DatabaseConnectionPool databaseConnectionPool) {
+        final DatabaseProperties[] readReplicaPropertiesArray = databaseProperties.getReadReplicaProperties();
+        if (readReplicaPropertiesArray.length == 0) { return databaseConnectionPool; }
+
+        final ArrayList<DatabaseConnectionPool> readReplicaDatabaseConnectionPools = new ArrayList<DatabaseConnectionPool>(readReplicaPropertiesArray.length);
+        for (final DatabaseProperties readReplicaProperties : readReplicaPropertiesArray) {
+            Logger.info("[Using Read Replica " + readReplicaProperties.getHostname() + ":" + readReplicaProperties.getPort() + "]");
+            readReplicaDatabaseConnectionPools.add(new HikariDatabaseConnectionPool(readReplicaProperties, true));
+        }
+
+        final ReadReplicaDatabaseConnectionPool readReplicaDatabaseConnectionPool = new ReadReplicaDatabaseConnectionPool(databaseConnectionPool, readReplicaDatabaseConnectionPools, databaseProperties.getMaxReadReplicaBlockLag());
+        readReplicaDatabaseConnectionPool.start();
+        return readReplicaDatabaseConnectionPool;
+    }
+
     public static void main(final String[] commandLineArguments) {
         Logger.setLog(BitcoinNodeLog.getInstance());
         Logger.DEFAULT_LOG_LEVEL = LogLevel.ON;
@@ -132,6 +153,19 @@ public class Main {
         _printError("\t----------------");
         _printError("");
 
+        _printError("\tModule: UTXO");
+        _printError("\tArguments: <Configuration File> <EXPORT|IMPORT> <Snapshot Directory> [<Commitment Hash>]");
+        _printError("\tDescription: Exports the UTXO set of the head block as a chunked snapshot, or imports a snapshot so that a new node begins validation from the snapshot's block.");
+        _printError("\t\tThe node should not be running during either operation.  Block headers must be synchronized before a snapshot is imported.");
+        _printError("\tArgument Description: <Configuration File>");
+        _printError("\t\tThe path and filename of the configuration file for running the node.  Ex: conf/server.conf");
+        _printError("\tArgument Description: <Snapshot Directory>");
+        _printError("\t\tThe directory containing (or to contain) the snapshot manifest and chunk files.  Ex: out/utxo");
+        _printError("\tArgument Description: <Commitment Hash>");
+        _printError("\t\tIf provided, an imported snapshot is rejected unless its commitment hash (logged upon export) matches.");
+        _printError("\t----------------");
+        _printError("");
+
         _printError("\tModule: ADDRESS");
         _printError("\tArguments:");
         _printError("\tDescription: Generates a private key and its associated public key and Base58Check Bitcoin address.");
@@ -217,9 +251,10 @@ public class Main {
                 final Long maxUtxoCacheByteCount = bitcoinProperties.getMaxUtxoCacheByteCount();
                 final UnspentTransactionOutputCacheFactory unspentTransactionOutputCacheFactory = _getUtxoCacheFactory(maxUtxoCacheByteCount);
                 final DatabaseConnectionPool databaseConnectionPool = new HikariDatabaseConnectionPool(databaseProperties);
+                final DatabaseConnectionPool readOnlyDatabaseConnectionPool = _getReadOnlyDatabaseConnectionPool(databaseProperties, databaseConnectionPool);
                 final MasterDatabaseManagerCache masterDatabaseManagerCache = new MasterDatabaseManagerCacheCore(unspentTransactionOutputCacheFactory);
 
-                final Environment environment = new Environment(database, databaseConnectionPool, masterDatabaseManagerCache);
+                final Environment environment = new Environment(database, databaseConnectionPool, readOnlyDatabaseConnectionPool, masterDatabaseManagerCache);
 
                 nodeModuleContainer.value = new NodeModule(bitcoinProperties, environment);
                 nodeModuleContainer.value.loop();
@@ -398,6 +433,51 @@ public class Main {
                 Logger.flush();
             } break;
 
+            case "UTXO": {
+                if ( (_arguments.length < 4) || (_arguments.length > 5) ) {
+                    _printUsage();
+                    BitcoinUtil.exitFailure();
+                    break;
+                }
+
+                final String configurationFilename = _arguments[1];
+                final String operation = _arguments[2].toUpperCase();
+                final String snapshotDirectory = _arguments[3];
+                final String commitmentHash = (_arguments.length > 4 ? _arguments[4] : null);
+
+                final Configuration configuration = _loadConfigurationFile(configurationFilename);
+                final DatabaseProperties databaseProperties = configuration.getBitcoinDatabaseProperties();
+
+                final Database database = BitcoinVerdeDatabase.newInstance(BitcoinVerdeDatabase.BITCOIN, databaseProperties);
+                if (database == null) {
+                    Logger.error("Error initializing database.");
+                    BitcoinUtil.exitFailure();
+                }
+                Logger.info("[Database Online]");
+
+                final DatabaseConnectionPool databaseConnectionPool = new HikariDatabaseConnectionPool(databaseProperties);
+                final BitcoinProperties bitcoinProperties = configuration.getBitcoinProperties();
+                final String snapshotBlockHeightFilename = (bitcoinProperties.getDataDirectory() + "/" + BitcoinProperties.DATA_CACHE_DIRECTORY_NAME + "/" + UtxoSnapshotImporter.SNAPSHOT_BLOCK_HEIGHT_FILENAME);
+
+                final Environment environment = new Environment(database, databaseConnectionPool, null);
+                final UtxoSnapshotModule utxoSnapshotModule = new UtxoSnapshotModule(environment, snapshotBlockHeightFilename);
+
+                final Boolean wasSuccessful;
+                switch (operation) {
+                    case "EXPORT": { wasSuccessful = utxoSnapshotModule.exportSnapshot(snapshotDirectory); } break;
+                    case "IMPORT": { wasSuccessful = utxoSnapshotModule.importSnapshot(snapshotDirectory, commitmentHash); } break;
+                    default: {
+                        _printUsage();
+                        wasSuccessful = false;
+                    }
+                }
+                Logger.flush();
+
+                if (! wasSuccessful) {
+                    BitcoinUtil.exitFailure();
+                }
+            } break;
+
             case "ADDRESS": {
                 final String desiredAddressPrefix = (_arguments.length > 1 ? _arguments[1] : "");
                 final Boolean ignoreCase = (_arguments.length > 2 ? Util.parseBool(_arguments[2]) : false);
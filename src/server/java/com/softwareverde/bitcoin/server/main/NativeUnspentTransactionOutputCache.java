@@ -10,10 +10,13 @@ import com.softwareverde.bitcoin.server.memory.MemoryStatus;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
 import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
 import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.logging.Logger;
 import com.softwareverde.util.SystemUtil;
 import com.softwareverde.util.jni.NativeUtil;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -56,6 +59,7 @@ public class NativeUnspentTransactionOutputCache implements UnspentTransactionOu
     }
 
     private static final boolean LIBRARY_LOADED_CORRECTLY;
+    private static final boolean BULK_OPERATIONS_ARE_SUPPORTED;
     private static final Object MASTER_MUTEX = new Object();
     private static final ConcurrentHashMap<Integer, ReentrantReadWriteLock> MUTEXES = new ConcurrentHashMap<Integer, ReentrantReadWriteLock>(256);
     private static boolean IS_INIT = false;
@@ -83,6 +87,28 @@ public class NativeUnspentTransactionOutputCache implements UnspentTransactionOu
             isEnabled = false;
         }
         LIBRARY_LOADED_CORRECTLY = isEnabled;
+        BULK_OPERATIONS_ARE_SUPPORTED = (isEnabled && _hasBulkOperations());
+    }
+
+    /**
+     * Returns true if the loaded library exports the bulk entry points.
+     *  Libraries built before the bulk operations were added do not; in that case, the per-item natives are used instead.
+     *  Each probe passes an invalid cache id and no records, so a library that supports the operation returns immediately.
+     */
+    private static boolean _hasBulkOperations() {
+        try {
+            final ByteBuffer records = ByteBuffer.allocateDirect(RECORD_BYTE_COUNT);
+            final long[] emptyValues = new long[0];
+            _cacheUnspentTransactionOutputIds(-1, records, 0, emptyValues);
+            _getCachedUnspentTransactionOutputIds(-1, records, 0, emptyValues);
+            _invalidateUnspentTransactionOutputIds(-1, records, 0);
+            _loadUnspentTransactionOutputIds(-1, records, 0, emptyValues, emptyValues);
+            return true;
+        }
+        catch (final UnsatisfiedLinkError exception) {
+            Logger.warn("NOTICE: utxocache does not support bulk operations; falling back to per-item operations.");
+            return false;
+        }
     }
 
     public static boolean isEnabled() {
@@ -110,6 +136,30 @@ public class NativeUnspentTransactionOutputCache implements UnspentTransactionOu
     protected final MemoryStatus _memoryStatus = new SystemMemoryStatus();
     protected final UtxoCount _maxUtxoCount;
     protected Integer _cacheId;
+    protected ByteBuffer _recordBuffer = null; // Reused across bulk operations; guarded by the instance's monitor.
+
+    /**
+     * Packs the (non-null) TransactionOutputIdentifiers into the reusable direct ByteBuffer in the layout expected by the
+     *  native bulk operations, and returns the number of records written.
+     */
+    protected int _packRecords(final List<TransactionOutputIdentifier> transactionOutputIdentifiers) {
+        final int requiredByteCount = (transactionOutputIdentifiers.getSize() * RECORD_BYTE_COUNT);
+        if ( (_recordBuffer == null) || (_recordBuffer.capacity() < requiredByteCount) ) {
+            _recordBuffer = ByteBuffer.allocateDirect(Math.max(requiredByteCount, (1024 * RECORD_BYTE_COUNT)));
+            _recordBuffer.order(ByteOrder.nativeOrder());
+        }
+
+        _recordBuffer.clear();
+        int recordCount = 0;
+        for (final TransactionOutputIdentifier transactionOutputIdentifier : transactionOutputIdentifiers) {
+            if (transactionOutputIdentifier == null) { continue; }
+
+            _recordBuffer.put(transactionOutputIdentifier.getTransactionHash().getBytes());
+            _recordBuffer.putInt(transactionOutputIdentifier.getOutputIndex());
+            recordCount += 1;
+        }
+        return recordCount;
+    }
 
     protected NativeUnspentTransactionOutputCache _unwrapCache(final UnspentTransactionOutputCache unspentTransactionOutputCache) {
         if (unspentTransactionOutputCache instanceof NativeUnspentTransactionOutputCache) {
@@ -194,6 +244,117 @@ public class NativeUnspentTransactionOutputCache implements UnspentTransactionOu
         return TransactionOutputId.wrap(transactionOutputId);
     }
 
+    @Override
+    public synchronized void cacheUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers, final List<TransactionOutputId> transactionOutputIds) {
+        if (_cacheId == null) { return; }
+
+        final int recordCount = _packRecords(transactionOutputIdentifiers);
+        final long[] transactionOutputIdValues = new long[recordCount];
+        { // NOTE: Null identifiers are skipped during packing, so the ids are compacted to match...
+            int recordIndex = 0;
+            for (int i = 0; i < transactionOutputIdentifiers.getSize(); ++i) {
+                if (transactionOutputIdentifiers.get(i) == null) { continue; }
+                transactionOutputIdValues[recordIndex] = transactionOutputIds.get(i).longValue();
+                recordIndex += 1;
+            }
+        }
+
+        final ReentrantReadWriteLock.WriteLock writeLock = MUTEXES.get(_cacheId).writeLock();
+
+        writeLock.lock();
+        if (BULK_OPERATIONS_ARE_SUPPORTED) {
+            _cacheUnspentTransactionOutputIds(_cacheId, _recordBuffer, recordCount, transactionOutputIdValues);
+        }
+        else {
+            int recordIndex = 0;
+            for (final TransactionOutputIdentifier transactionOutputIdentifier : transactionOutputIdentifiers) {
+                if (transactionOutputIdentifier == null) { continue; }
+                _cacheUnspentTransactionOutputId(_cacheId, transactionOutputIdentifier.getTransactionHash().getBytes(), transactionOutputIdentifier.getOutputIndex(), transactionOutputIdValues[recordIndex]);
+                recordIndex += 1;
+            }
+        }
+        writeLock.unlock();
+    }
+
+    @Override
+    public synchronized void cacheUnspentTransactionOutputIds(final List<Long> insertIds, final List<TransactionOutputIdentifier> transactionOutputIdentifiers, final List<TransactionOutputId> transactionOutputIds) {
+        if (_cacheId == null) { return; }
+
+        final int recordCount = _packRecords(transactionOutputIdentifiers);
+        final long[] insertIdValues = new long[recordCount];
+        final long[] transactionOutputIdValues = new long[recordCount];
+        {
+            int recordIndex = 0;
+            for (int i = 0; i < transactionOutputIdentifiers.getSize(); ++i) {
+                if (transactionOutputIdentifiers.get(i) == null) { continue; }
+                insertIdValues[recordIndex] = insertIds.get(i);
+                transactionOutputIdValues[recordIndex] = transactionOutputIds.get(i).longValue();
+                recordIndex += 1;
+            }
+        }
+
+        final ReentrantReadWriteLock.WriteLock writeLock = MUTEXES.get(_cacheId).writeLock();
+
+        writeLock.lock();
+        if (BULK_OPERATIONS_ARE_SUPPORTED) {
+            _loadUnspentTransactionOutputIds(_cacheId, _recordBuffer, recordCount, insertIdValues, transactionOutputIdValues);
+        }
+        else {
+            int recordIndex = 0;
+            for (final TransactionOutputIdentifier transactionOutputIdentifier : transactionOutputIdentifiers) {
+                if (transactionOutputIdentifier == null) { continue; }
+                _loadUnspentTransactionOutputId(_cacheId, insertIdValues[recordIndex], transactionOutputIdentifier.getTransactionHash().getBytes(), transactionOutputIdentifier.getOutputIndex(), transactionOutputIdValues[recordIndex]);
+                recordIndex += 1;
+            }
+        }
+        writeLock.unlock();
+    }
+
+    @Override
+    public synchronized List<TransactionOutputId> getCachedUnspentTransactionOutputIds(final List<TransactionOutputIdentifier> transactionOutputIdentifiers) {
+        final int itemCount = transactionOutputIdentifiers.getSize();
+        final MutableList<TransactionOutputId> transactionOutputIds = new MutableList<TransactionOutputId>(itemCount);
+
+        final long[] transactionOutputIdValues;
+        if (_cacheId == null) {
+            transactionOutputIdValues = new long[0];
+        }
+        else {
+            final int recordCount = _packRecords(transactionOutputIdentifiers);
+            transactionOutputIdValues = new long[recordCount];
+
+            final ReentrantReadWriteLock.ReadLock readLock = MUTEXES.get(_cacheId).readLock();
+            readLock.lock();
+            if (BULK_OPERATIONS_ARE_SUPPORTED) {
+                _getCachedUnspentTransactionOutputIds(_cacheId, _recordBuffer, recordCount, transactionOutputIdValues);
+            }
+            else {
+                int recordIndex = 0;
+                for (final TransactionOutputIdentifier transactionOutputIdentifier : transactionOutputIdentifiers) {
+                    if (transactionOutputIdentifier == null) { continue; }
+                    transactionOutputIdValues[recordIndex] = _getCachedUnspentTransactionOutputId(_cacheId, transactionOutputIdentifier.getTransactionHash().getBytes(), transactionOutputIdentifier.getOutputIndex());
+                    recordIndex += 1;
+                }
+            }
+            readLock.unlock();
+        }
+
+        int recordIndex = 0;
+        for (int i = 0; i < itemCount; ++i) {
+            if ( (transactionOutputIdentifiers.get(i) == null) || (recordIndex >= transactionOutputIdValues.length) ) {
+                transactionOutputIds.add(null);
+                continue;
+            }
+
+            final long transactionOutputId = transactionOutputIdValues[recordIndex];
+            recordIndex += 1;
+
+            transactionOutputIds.add((transactionOutputId > 0) ? TransactionOutputId.wrap(transactionOutputId) : null);
+        }
+
+        return transactionOutputIds;
+    }
+
     @Override
     public synchronized void invalidateUnspentTransactionOutputId(final TransactionOutputIdentifier transactionOutputId) {
         if (_cacheId == null) { return; }
@@ -212,10 +373,17 @@ public class NativeUnspentTransactionOutputCache implements UnspentTransactionOu
 
         final ReentrantReadWriteLock.WriteLock writeLock = MUTEXES.get(_cacheId).writeLock();
 
+        final int recordCount = _packRecords(transactionOutputIds);
+
         writeLock.lock();
-        for (final TransactionOutputIdentifier transactionOutputId : transactionOutputIds) {
-            if (transactionOutputId == null) { continue; }
-            _invalidateUnspentTransactionOutputId(_cacheId, transactionOutputId.getTransactionHash().getBytes(), transactionOutputId.getOutputIndex());
+        if (BULK_OPERATIONS_ARE_SUPPORTED) {
+            _invalidateUnspentTransactionOutputIds(_cacheId, _recordBuffer, recordCount);
+        }
+        else {
+            for (final TransactionOutputIdentifier transactionOutputIdentifier : transactionOutputIds) {
+                if (transactionOutputIdentifier == null) { continue; }
+                _invalidateUnspentTransactionOutputId(_cacheId, transactionOutputIdentifier.getTransactionHash().getBytes(), transactionOutputIdentifier.getOutputIndex());
+            }
         }
         writeLock.unlock();
     }
@@ -0,0 +1,63 @@
+package com.softwareverde.bitcoin.block.filter;
+
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.mutable.MutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GolombCodedSetTests {
+    // BIP-158 test vector: Testnet block 0.
+    protected static final String TESTNET_GENESIS_BLOCK_HASH = "000000000933EA01AD0EE984209779BAAEC3CED90FA3F408719526F8D77F4943";
+    protected static final String TESTNET_GENESIS_OUTPUT_SCRIPT = "4104678AFDB0FE5548271967F1A67130B7105CD6A828E03909A67962E0EA1F61DEB649F6BC3F4CEF38C4F35504E51EC112DE5C384DF7BA0B8D578A4C702B6BF11D5FAC";
+
+    @Test
+    public void should_encode_bip158_testnet_genesis_filter() {
+        // Setup
+        final ByteArray filterKey = BlockFilterBuilder.getFilterKey(Sha256Hash.fromHexString(TESTNET_GENESIS_BLOCK_HASH));
+        final MutableList<ByteArray> items = new MutableList<ByteArray>();
+        items.add(ByteArray.fromHexString(TESTNET_GENESIS_OUTPUT_SCRIPT));
+
+        // Action
+        final ByteArray encodedSet = GolombCodedSet.encode(items, filterKey, BlockFilterBuilder.BASIC_FILTER_P, BlockFilterBuilder.BASIC_FILTER_M);
+
+        // Assert
+        Assert.assertEquals(ByteArray.fromHexString("019DFCA8"), encodedSet);
+    }
+
+    @Test
+    public void should_match_items_within_the_set() {
+        // Setup
+        final ByteArray filterKey = BlockFilterBuilder.getFilterKey(Sha256Hash.fromHexString(TESTNET_GENESIS_BLOCK_HASH));
+        final MutableList<ByteArray> items = new MutableList<ByteArray>();
+        items.add(ByteArray.fromHexString(TESTNET_GENESIS_OUTPUT_SCRIPT));
+        items.add(ByteArray.fromHexString("76A914000000000000000000000000000000000000000088AC"));
+        items.add(ByteArray.fromHexString("A914111111111111111111111111111111111111111187"));
+        final ByteArray encodedSet = GolombCodedSet.encode(items, filterKey, BlockFilterBuilder.BASIC_FILTER_P, BlockFilterBuilder.BASIC_FILTER_M);
+
+        // Action
+        final Boolean firstItemMatches = GolombCodedSet.matches(encodedSet, filterKey, BlockFilterBuilder.BASIC_FILTER_P, BlockFilterBuilder.BASIC_FILTER_M, items.get(0));
+        final Boolean lastItemMatches = GolombCodedSet.matches(encodedSet, filterKey, BlockFilterBuilder.BASIC_FILTER_P, BlockFilterBuilder.BASIC_FILTER_M, items.get(2));
+        final Boolean unknownItemMatches = GolombCodedSet.matches(encodedSet, filterKey, BlockFilterBuilder.BASIC_FILTER_P, BlockFilterBuilder.BASIC_FILTER_M, ByteArray.fromHexString("76A914222222222222222222222222222222222222222288AC"));
+
+        // Assert
+        Assert.assertTrue(firstItemMatches);
+        Assert.assertTrue(lastItemMatches);
+        Assert.assertFalse(unknownItemMatches);
+    }
+
+    @Test
+    public void should_not_match_against_an_empty_or_malformed_set() {
+        // Setup
+        final ByteArray filterKey = BlockFilterBuilder.getFilterKey(Sha256Hash.fromHexString(TESTNET_GENESIS_BLOCK_HASH));
+        final ByteArray item = ByteArray.fromHexString(TESTNET_GENESIS_OUTPUT_SCRIPT);
+
+        // Action
+        final Boolean emptySetMatches = GolombCodedSet.matches(ByteArray.fromHexString("00"), filterKey, BlockFilterBuilder.BASIC_FILTER_P, BlockFilterBuilder.BASIC_FILTER_M, item);
+        final Boolean truncatedSetMatches = GolombCodedSet.matches(ByteArray.fromHexString("059DFCA8"), filterKey, BlockFilterBuilder.BASIC_FILTER_P, BlockFilterBuilder.BASIC_FILTER_M, ByteArray.fromHexString("51"));
+
+        // Assert
+        Assert.assertFalse(emptySetMatches);
+        Assert.assertFalse(truncatedSetMatches);
+    }
+}
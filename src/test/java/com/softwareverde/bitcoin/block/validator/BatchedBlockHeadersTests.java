@@ -0,0 +1,29 @@
+package com.softwareverde.bitcoin.block.validator;
+
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.block.header.MutableBlockHeader;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BatchedBlockHeadersTests {
+    @Test
+    public void should_return_null_for_block_heights_outside_of_the_batch() {
+        // Setup
+        final BatchedBlockHeaders batchedBlockHeaders = new BatchedBlockHeaders(2);
+        final BlockHeader blockHeader0 = new MutableBlockHeader();
+        final BlockHeader blockHeader1 = new MutableBlockHeader();
+
+        // Action
+        batchedBlockHeaders.put(10L, blockHeader0);
+        batchedBlockHeaders.put(11L, blockHeader1);
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(10L), batchedBlockHeaders.getStartingBlockHeight());
+        Assert.assertEquals(Long.valueOf(11L), batchedBlockHeaders.getEndBlockHeight());
+        Assert.assertSame(blockHeader0, batchedBlockHeaders.getBlockHeader(10L));
+        Assert.assertSame(blockHeader1, batchedBlockHeaders.getBlockHeader(11L));
+        Assert.assertNull(batchedBlockHeaders.getBlockHeader(9L));
+        Assert.assertNull(batchedBlockHeaders.getBlockHeader(12L));
+        Assert.assertNull(batchedBlockHeaders.getChainWork(12L));
+    }
+}
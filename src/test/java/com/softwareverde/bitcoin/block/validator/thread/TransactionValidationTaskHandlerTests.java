@@ -0,0 +1,182 @@
+package com.softwareverde.bitcoin.block.validator.thread;
+
+import com.softwareverde.bitcoin.chain.segment.BlockchainSegmentId;
+import com.softwareverde.bitcoin.chain.time.MedianBlockTime;
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.secp256k1.key.PrivateKey;
+import com.softwareverde.bitcoin.secp256k1.key.PublicKey;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
+import com.softwareverde.bitcoin.transaction.MutableTransaction;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.input.MutableTransactionInput;
+import com.softwareverde.bitcoin.transaction.locktime.ImmutableLockTime;
+import com.softwareverde.bitcoin.transaction.locktime.LockTime;
+import com.softwareverde.bitcoin.transaction.locktime.SequenceNumber;
+import com.softwareverde.bitcoin.transaction.output.MutableTransactionOutput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.transaction.script.ScriptBuilder;
+import com.softwareverde.bitcoin.transaction.script.locking.MutableLockingScript;
+import com.softwareverde.bitcoin.transaction.script.runner.ScriptRunner;
+import com.softwareverde.bitcoin.transaction.script.runner.context.MutableContext;
+import com.softwareverde.bitcoin.transaction.script.signature.ScriptSignature;
+import com.softwareverde.bitcoin.transaction.script.signature.hashtype.HashType;
+import com.softwareverde.bitcoin.transaction.script.signature.hashtype.Mode;
+import com.softwareverde.bitcoin.transaction.script.unlocking.MutableUnlockingScript;
+import com.softwareverde.bitcoin.transaction.script.unlocking.UnlockingScript;
+import com.softwareverde.bitcoin.transaction.signer.SignatureContext;
+import com.softwareverde.bitcoin.transaction.signer.TransactionSigner;
+import com.softwareverde.bitcoin.transaction.validator.TransactionValidator;
+import com.softwareverde.bitcoin.transaction.validator.TransactionValidatorFactory;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.network.time.ImmutableNetworkTime;
+import com.softwareverde.network.time.NetworkTime;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TransactionValidationTaskHandlerTests {
+    /**
+     * Provides TransactionValidators that only run the scripts of the Transaction's first input against a known TransactionOutput.
+     */
+    protected static class ScriptTransactionValidatorFactory extends TransactionValidatorFactory {
+        protected final TransactionOutput _transactionOutputBeingSpent;
+        protected int _validationCount = 0;
+
+        public ScriptTransactionValidatorFactory(final TransactionOutput transactionOutputBeingSpent) {
+            _transactionOutputBeingSpent = transactionOutputBeingSpent;
+        }
+
+        @Override
+        public TransactionValidator newTransactionValidator(final FullNodeDatabaseManager databaseManager, final NetworkTime networkTime, final MedianBlockTime medianBlockTime) {
+            return new TransactionValidator() {
+                @Override
+                public Boolean validateTransaction(final BlockchainSegmentId blockchainSegmentId, final Long blockHeight, final Transaction transaction, final Boolean validateForMemoryPool) {
+                    _validationCount += 1;
+
+                    final MutableContext context = MutableContext.getContextForVerification(transaction, 0, _transactionOutputBeingSpent);
+                    final UnlockingScript unlockingScript = transaction.getTransactionInputs().get(0).getUnlockingScript();
+                    final ScriptRunner scriptRunner = new ScriptRunner();
+                    return scriptRunner.runScript(_transactionOutputBeingSpent.getLockingScript(), unlockingScript, context);
+                }
+
+                @Override
+                public void setLoggingEnabled(final Boolean shouldLogInvalidTransactions) { }
+            };
+        }
+
+        public int getValidationCount() {
+            return _validationCount;
+        }
+    }
+
+    protected static TransactionOutput _createMultisigTransactionOutput(final Integer requiredSignatureCount, final PublicKey... publicKeys) {
+        final StringBuilder lockingScriptHexString = new StringBuilder();
+        lockingScriptHexString.append(HexUtil.toHexString(new byte[]{ (byte) (0x50 + requiredSignatureCount) }));
+        for (final PublicKey publicKey : publicKeys) {
+            lockingScriptHexString.append(HexUtil.toHexString(new byte[]{ (byte) publicKey.getByteCount() }));
+            lockingScriptHexString.append(HexUtil.toHexString(publicKey.getBytes()));
+        }
+        lockingScriptHexString.append(HexUtil.toHexString(new byte[]{ (byte) (0x50 + publicKeys.length) }));
+        lockingScriptHexString.append("AE"); // OP_CHECKMULTISIG
+
+        final MutableTransactionOutput transactionOutput = new MutableTransactionOutput();
+        transactionOutput.setAmount(50L * Transaction.SATOSHIS_PER_BITCOIN);
+        transactionOutput.setIndex(0);
+        transactionOutput.setLockingScript(new MutableLockingScript(ByteArray.fromHexString(lockingScriptHexString.toString())));
+        return transactionOutput;
+    }
+
+    protected static MutableTransaction _createUnsignedTransaction(final TransactionOutput transactionOutputBeingSpent) {
+        final MutableTransactionInput transactionInput = new MutableTransactionInput();
+        transactionInput.setPreviousOutputTransactionHash(new MutableSha256Hash());
+        transactionInput.setPreviousOutputIndex(0);
+        transactionInput.setSequenceNumber(SequenceNumber.MAX_SEQUENCE_NUMBER);
+        transactionInput.setUnlockingScript(UnlockingScript.EMPTY_SCRIPT);
+
+        final MutableTransactionOutput transactionOutput = new MutableTransactionOutput();
+        transactionOutput.setAmount(transactionOutputBeingSpent.getAmount());
+        transactionOutput.setIndex(0);
+        transactionOutput.setLockingScript(ScriptBuilder.payToAddress("1HrXm9WZF7LBm3HCwCBgVS3siDbk5DYCuW"));
+
+        final MutableTransaction transaction = new MutableTransaction();
+        transaction.setVersion(1L);
+        transaction.setLockTime(new ImmutableLockTime(LockTime.MIN_TIMESTAMP));
+        transaction.addTransactionInput(transactionInput);
+        transaction.addTransactionOutput(transactionOutput);
+        return transaction;
+    }
+
+    /**
+     * Returns the Transaction spending the multisig TransactionOutput with the signatures of the provided PrivateKeys, in order.
+     */
+    protected static Transaction _signMultisigTransaction(final MutableTransaction transaction, final TransactionOutput transactionOutputBeingSpent, final PrivateKey... privateKeys) {
+        final TransactionSigner transactionSigner = new TransactionSigner();
+        final SignatureContext signatureContext = new SignatureContext(transaction, new HashType(Mode.SIGNATURE_HASH_ALL, true, true), Long.MAX_VALUE);
+        signatureContext.setInputIndexBeingSigned(0);
+        signatureContext.setShouldSignInputScript(0, true, transactionOutputBeingSpent);
+
+        final ScriptBuilder scriptBuilder = new ScriptBuilder();
+        for (final PrivateKey privateKey : privateKeys) {
+            final ScriptSignature scriptSignature = transactionSigner.createSignature(signatureContext, privateKey);
+            scriptBuilder.pushSignature(scriptSignature);
+        }
+        final UnlockingScript signaturesUnlockingScript = scriptBuilder.buildUnlockingScript();
+        final UnlockingScript unlockingScript = new MutableUnlockingScript(ByteArray.fromHexString("00" + HexUtil.toHexString(signaturesUnlockingScript.getBytes().getBytes()))); // Prefixed with the OP_CHECKMULTISIG dummy value...
+
+        final MutableTransactionInput transactionInput = new MutableTransactionInput(transaction.getTransactionInputs().get(0));
+        transactionInput.setUnlockingScript(unlockingScript);
+
+        final MutableTransaction signedTransaction = new MutableTransaction(transaction);
+        signedTransaction.setTransactionInput(0, transactionInput);
+        return signedTransaction;
+    }
+
+    protected static TransactionValidationTaskHandler.TransactionValidationResult _validate(final ScriptTransactionValidatorFactory transactionValidatorFactory, final Transaction transaction) {
+        final TransactionValidationTaskHandler transactionValidationTaskHandler = new TransactionValidationTaskHandler(transactionValidatorFactory, BlockchainSegmentId.wrap(1L), Long.MAX_VALUE, new ImmutableNetworkTime(Long.MAX_VALUE), MedianBlockTime.MAX_VALUE);
+        transactionValidationTaskHandler.init(null);
+        transactionValidationTaskHandler.executeTask(transaction);
+        transactionValidationTaskHandler.flush();
+        return transactionValidationTaskHandler.getResult();
+    }
+
+    @Test
+    public void should_validate_multisig_signed_by_trailing_keys_without_revalidating() {
+        // Setup
+        final PrivateKey privateKey1 = PrivateKey.createNewKey();
+        final PrivateKey privateKey2 = PrivateKey.createNewKey();
+        final PrivateKey privateKey3 = PrivateKey.createNewKey();
+
+        final TransactionOutput transactionOutputBeingSpent = _createMultisigTransactionOutput(2, privateKey1.getPublicKey().compress(), privateKey2.getPublicKey().compress(), privateKey3.getPublicKey().compress());
+        final Transaction transaction = _signMultisigTransaction(_createUnsignedTransaction(transactionOutputBeingSpent), transactionOutputBeingSpent, privateKey2, privateKey3);
+
+        final ScriptTransactionValidatorFactory transactionValidatorFactory = new ScriptTransactionValidatorFactory(transactionOutputBeingSpent);
+
+        // Action
+        final TransactionValidationTaskHandler.TransactionValidationResult transactionValidationResult = _validate(transactionValidatorFactory, transaction);
+
+        // Assert
+        Assert.assertTrue(transactionValidationResult.isValid);
+        Assert.assertEquals(1, transactionValidatorFactory.getValidationCount()); // The signature batch must not have failed and caused the Transaction to be re-validated...
+    }
+
+    @Test
+    public void should_not_validate_multisig_signed_by_unknown_key() {
+        // Setup
+        final PrivateKey privateKey1 = PrivateKey.createNewKey();
+        final PrivateKey privateKey2 = PrivateKey.createNewKey();
+        final PrivateKey privateKey3 = PrivateKey.createNewKey();
+        final PrivateKey unknownPrivateKey = PrivateKey.createNewKey();
+
+        final TransactionOutput transactionOutputBeingSpent = _createMultisigTransactionOutput(2, privateKey1.getPublicKey().compress(), privateKey2.getPublicKey().compress(), privateKey3.getPublicKey().compress());
+        final Transaction transaction = _signMultisigTransaction(_createUnsignedTransaction(transactionOutputBeingSpent), transactionOutputBeingSpent, privateKey2, unknownPrivateKey);
+
+        final ScriptTransactionValidatorFactory transactionValidatorFactory = new ScriptTransactionValidatorFactory(transactionOutputBeingSpent);
+
+        // Action
+        final TransactionValidationTaskHandler.TransactionValidationResult transactionValidationResult = _validate(transactionValidatorFactory, transaction);
+
+        // Assert
+        Assert.assertFalse(transactionValidationResult.isValid);
+        Assert.assertEquals(transaction.getHash(), transactionValidationResult.invalidTransactions.get(0));
+    }
+}
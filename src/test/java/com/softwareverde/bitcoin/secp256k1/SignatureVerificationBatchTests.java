@@ -0,0 +1,86 @@
+package com.softwareverde.bitcoin.secp256k1;
+
+import com.softwareverde.bitcoin.secp256k1.key.PrivateKey;
+import com.softwareverde.bitcoin.secp256k1.key.PublicKey;
+import com.softwareverde.bitcoin.secp256k1.signature.Signature;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.util.StringUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SignatureVerificationBatchTests {
+    @Test
+    public void should_verify_batch_of_valid_signatures() {
+        // Setup
+        final SignatureVerificationBatch signatureVerificationBatch = new SignatureVerificationBatch();
+        for (int i = 0; i < 32; ++i) {
+            final PrivateKey privateKey = PrivateKey.createNewKey();
+            final PublicKey publicKey = privateKey.getPublicKey();
+            final byte[] message = BitcoinUtil.sha256(StringUtil.stringToBytes("I am a little teapot." + i));
+            final Signature signature = Secp256k1.sign(privateKey, message);
+            signatureVerificationBatch.add(signature, ((i % 2 == 0) ? publicKey : publicKey.compress()), message);
+        }
+
+        // Action
+        final Boolean batchIsValid = signatureVerificationBatch.verify();
+
+        // Assert
+        Assert.assertTrue(batchIsValid);
+    }
+
+    @Test
+    public void should_fail_batch_containing_an_invalid_signature() {
+        // Setup
+        final SignatureVerificationBatch signatureVerificationBatch = new SignatureVerificationBatch();
+        for (int i = 0; i < 32; ++i) {
+            final PrivateKey privateKey = PrivateKey.createNewKey();
+            final PublicKey publicKey = privateKey.getPublicKey();
+            final byte[] message = BitcoinUtil.sha256(StringUtil.stringToBytes("I am a little teapot." + i));
+            final Signature signature = Secp256k1.sign(privateKey, message);
+
+            if (i == 17) { // Sign a different message than the one recorded...
+                final byte[] otherMessage = BitcoinUtil.sha256(StringUtil.stringToBytes("I am a little teapot."));
+                signatureVerificationBatch.add(signature, publicKey, otherMessage);
+            }
+            else {
+                signatureVerificationBatch.add(signature, publicKey, message);
+            }
+        }
+
+        // Action
+        final Boolean batchIsValid = signatureVerificationBatch.verify();
+
+        // Assert
+        Assert.assertFalse(batchIsValid);
+    }
+
+    @Test
+    public void should_defer_verification_while_batch_is_set_for_thread() {
+        // Setup
+        final PrivateKey privateKey = PrivateKey.createNewKey();
+        final PublicKey publicKey = privateKey.getPublicKey();
+        final byte[] message = BitcoinUtil.sha256(StringUtil.stringToBytes("I am a little teapot."));
+        final byte[] otherMessage = BitcoinUtil.sha256(StringUtil.stringToBytes("I am a short teapot."));
+        final Signature signature = Secp256k1.sign(privateKey, message);
+
+        final SignatureVerificationBatch signatureVerificationBatch = new SignatureVerificationBatch();
+
+        // Action
+        final Boolean deferredResult;
+        SignatureVerificationBatch.setCurrentBatch(signatureVerificationBatch);
+        try {
+            deferredResult = SignatureVerificationBatch.verifySignature(signature, publicKey, otherMessage);
+        }
+        finally {
+            SignatureVerificationBatch.setCurrentBatch(null);
+        }
+        final Boolean immediateResult = SignatureVerificationBatch.verifySignature(signature, publicKey, otherMessage);
+
+        // Assert
+        Assert.assertTrue(deferredResult);
+        Assert.assertFalse(immediateResult);
+        Assert.assertEquals(Integer.valueOf(1), signatureVerificationBatch.getSize());
+        Assert.assertFalse(signatureVerificationBatch.verify());
+        Assert.assertNull(SignatureVerificationBatch.getCurrentBatch());
+    }
+}
@@ -0,0 +1,113 @@
+package com.softwareverde.bitcoin.server.database;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PreparedStatementCacheTests {
+    protected static class FakeConnection {
+        public final AtomicInteger prepareCount = new AtomicInteger(0);
+        public final AtomicInteger closedStatementCount = new AtomicInteger(0);
+        public final AtomicInteger clearParametersCount = new AtomicInteger(0);
+
+        public Connection newConnection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{ Connection.class }, new InvocationHandler() {
+                @Override
+                public Object invoke(final Object proxy, final Method method, final Object[] arguments) {
+                    if (method.getName().equals("prepareStatement")) {
+                        prepareCount.incrementAndGet();
+                        return _newPreparedStatement();
+                    }
+                    return null;
+                }
+            });
+        }
+
+        protected PreparedStatement _newPreparedStatement() {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{ PreparedStatement.class }, new InvocationHandler() {
+                protected Boolean _isClosed = false;
+
+                @Override
+                public Object invoke(final Object proxy, final Method method, final Object[] arguments) {
+                    final String methodName = method.getName();
+                    if (methodName.equals("close")) {
+                        _isClosed = true;
+                        closedStatementCount.incrementAndGet();
+                    }
+                    else if (methodName.equals("clearParameters")) {
+                        clearParametersCount.incrementAndGet();
+                    }
+                    else if (methodName.equals("isClosed")) {
+                        return _isClosed;
+                    }
+                    return null;
+                }
+            });
+        }
+    }
+
+    @Test
+    public void should_reuse_closed_statements_with_the_same_sql() throws Exception {
+        // Setup
+        final FakeConnection fakeConnection = new FakeConnection();
+        final Connection connection = PreparedStatementCache.wrap(fakeConnection.newConnection());
+
+        // Action
+        final PreparedStatement preparedStatement0 = connection.prepareStatement("SELECT id FROM blocks WHERE hash = ?");
+        preparedStatement0.close();
+        preparedStatement0.close(); // Closing a statement twice should not release the statement's subsequent use...
+        final PreparedStatement preparedStatement1 = connection.prepareStatement("SELECT id FROM blocks WHERE hash = ?");
+        final PreparedStatement preparedStatement2 = connection.prepareStatement("SELECT id FROM blocks WHERE hash = ?"); // Nested use requires a new statement...
+        final PreparedStatement preparedStatement3 = connection.prepareStatement("SELECT id FROM blocks WHERE hash = ?", Statement.RETURN_GENERATED_KEYS);
+
+        // Assert
+        Assert.assertEquals(3, fakeConnection.prepareCount.get());
+        Assert.assertEquals(1, fakeConnection.clearParametersCount.get());
+        Assert.assertEquals(0, fakeConnection.closedStatementCount.get());
+        Assert.assertTrue(preparedStatement0.isClosed());
+        Assert.assertFalse(preparedStatement1.isClosed());
+        Assert.assertFalse(preparedStatement2.isClosed());
+        Assert.assertFalse(preparedStatement3.isClosed());
+    }
+
+    @Test
+    public void should_close_cached_statements_when_the_connection_is_closed() throws Exception {
+        // Setup
+        final FakeConnection fakeConnection = new FakeConnection();
+        final Connection connection = PreparedStatementCache.wrap(fakeConnection.newConnection());
+
+        connection.prepareStatement("SELECT id FROM blocks WHERE hash = ?").close();
+        connection.prepareStatement("SELECT id FROM transactions WHERE hash = ?").close();
+
+        // Action
+        connection.close();
+
+        // Assert
+        Assert.assertEquals(2, fakeConnection.closedStatementCount.get());
+    }
+
+    @Test
+    public void should_close_evicted_statements() throws Exception {
+        // Setup
+        final FakeConnection fakeConnection = new FakeConnection();
+        final Connection connection = PreparedStatementCache.wrap(fakeConnection.newConnection(), 1);
+
+        final PreparedStatement preparedStatement = connection.prepareStatement("SELECT id FROM blocks WHERE hash = ?");
+
+        // Action
+        connection.prepareStatement("SELECT id FROM transactions WHERE hash = ?").close();
+        final Integer closedCountWhileInUse = fakeConnection.closedStatementCount.get();
+        preparedStatement.close();
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(0), closedCountWhileInUse);
+        Assert.assertEquals(1, fakeConnection.closedStatementCount.get());
+    }
+}
@@ -0,0 +1,118 @@
+package com.softwareverde.bitcoin.server.database.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TinyLfuCacheTests {
+    @Test
+    public void should_return_cached_item() {
+        // Setup
+        final TinyLfuCache<String, Integer> cache = new TinyLfuCache<String, Integer>("Test", 1024);
+
+        // Action
+        cache.cacheItem("0", 0);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(0), cache.getCachedItem("0"));
+        Assert.assertNull(cache.getCachedItem("1"));
+        Assert.assertEquals(Long.valueOf(1L), cache.getHitCount());
+        Assert.assertEquals(Long.valueOf(1L), cache.getMissCount());
+        Assert.assertEquals(0.5F, cache.getHitRatio(), 0.0001F);
+    }
+
+    @Test
+    public void should_not_exceed_max_item_count() {
+        // Setup
+        final int maxItemCount = 1024;
+        final TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<Integer, Integer>("Test", maxItemCount);
+
+        // Action
+        for (int i = 0; i < (maxItemCount * 8); ++i) {
+            cache.cacheItem(i, i);
+        }
+
+        // Assert
+        Assert.assertTrue(cache.getItemCount() <= maxItemCount);
+        Assert.assertEquals(Integer.valueOf(cache.getKeys().getSize()), cache.getItemCount());
+    }
+
+    @Test
+    public void should_retain_frequently_accessed_items_during_a_scan() {
+        // Setup
+        final int maxItemCount = 1024;
+        final TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<Integer, Integer>("Test", maxItemCount);
+
+        final int frequentItemCount = 128;
+        for (int i = 0; i < frequentItemCount; ++i) {
+            cache.cacheItem(i, i);
+        }
+        for (int j = 0; j < 8; ++j) {
+            for (int i = 0; i < frequentItemCount; ++i) {
+                cache.getCachedItem(i);
+            }
+        }
+
+        // Action
+        for (int i = frequentItemCount; i < (maxItemCount * 16); ++i) { // Items that are only ever accessed once...
+            cache.cacheItem(i, i);
+        }
+
+        // Assert
+        int retainedItemCount = 0;
+        for (int i = 0; i < frequentItemCount; ++i) {
+            if (cache.getCachedItem(i) != null) {
+                retainedItemCount += 1;
+            }
+        }
+        Assert.assertTrue(retainedItemCount >= (frequentItemCount * 0.9));
+    }
+
+    @Test
+    public void should_remove_item() {
+        // Setup
+        final TinyLfuCache<String, Integer> cache = new TinyLfuCache<String, Integer>("Test", 1024);
+        cache.cacheItem("0", 0);
+        cache.cacheItem("1", 1);
+
+        // Action
+        final Integer removedValue = cache.removeItem("0");
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(0), removedValue);
+        Assert.assertNull(cache.getCachedItem("0"));
+        Assert.assertEquals(Integer.valueOf(1), cache.getCachedItem("1"));
+        Assert.assertEquals(Integer.valueOf(1), cache.getItemCount());
+    }
+
+    @Test
+    public void should_remove_all_items_when_invalidated() {
+        // Setup
+        final TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<Integer, Integer>("Test", 4096);
+        for (int i = 0; i < 1024; ++i) {
+            cache.cacheItem(i, i);
+        }
+
+        // Action
+        cache.invalidate();
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(0), cache.getItemCount());
+        Assert.assertNull(cache.getCachedItem(0));
+
+        cache.cacheItem(0, 0);
+        Assert.assertEquals(Integer.valueOf(0), cache.getCachedItem(0));
+    }
+
+    @Test
+    public void should_not_cache_items_when_disabled() {
+        // Setup
+        final TinyLfuCache<String, Integer> cache = new TinyLfuCache<String, Integer>("Test", 0);
+
+        // Action
+        cache.cacheItem("0", 0);
+
+        // Assert
+        Assert.assertNull(cache.getCachedItem("0"));
+        Assert.assertEquals(Integer.valueOf(0), cache.getItemCount());
+    }
+}
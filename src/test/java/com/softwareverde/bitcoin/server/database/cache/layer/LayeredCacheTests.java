@@ -0,0 +1,95 @@
+package com.softwareverde.bitcoin.server.database.cache.layer;
+
+import com.softwareverde.bitcoin.server.database.cache.TinyLfuCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+
+public class LayeredCacheTests {
+    @Test
+    public void should_read_published_layer_before_it_is_merged() {
+        // Setup
+        final TinyLfuCache<String, Integer> tinyLfuCache = new TinyLfuCache<String, Integer>("Test", 1024);
+        final LayeredCache<String, Integer> cache = new LayeredCache<String, Integer>(tinyLfuCache);
+        cache.cacheItem("0", 0);
+
+        final HashMap<String, Integer> items = new HashMap<String, Integer>();
+        items.put("0", 1);
+        items.put("1", 1);
+
+        // Action
+        cache.publishLayer(items);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(1), cache.getLayerCount());
+        Assert.assertEquals(Integer.valueOf(1), cache.getCachedItem("0"));
+        Assert.assertEquals(Integer.valueOf(1), cache.getCachedItem("1"));
+        Assert.assertNull(tinyLfuCache.getCachedItem("1"));
+    }
+
+    @Test
+    public void should_merge_layers_oldest_first() {
+        // Setup
+        final TinyLfuCache<String, Integer> tinyLfuCache = new TinyLfuCache<String, Integer>("Test", 1024);
+        final LayeredCache<String, Integer> cache = new LayeredCache<String, Integer>(tinyLfuCache);
+
+        final HashMap<String, Integer> olderItems = new HashMap<String, Integer>();
+        olderItems.put("0", 0);
+        cache.publishLayer(olderItems);
+
+        final HashMap<String, Integer> newerItems = new HashMap<String, Integer>();
+        newerItems.put("0", 1);
+        cache.publishLayer(newerItems);
+
+        // Action
+        final Boolean firstLayerWasMerged = cache.mergeLayer();
+        final Integer valueAfterFirstMerge = cache.getCachedItem("0");
+        final Boolean secondLayerWasMerged = cache.mergeLayer();
+        final Boolean thirdLayerWasMerged = cache.mergeLayer();
+
+        // Assert
+        Assert.assertTrue(firstLayerWasMerged);
+        Assert.assertEquals(Integer.valueOf(1), valueAfterFirstMerge);
+        Assert.assertTrue(secondLayerWasMerged);
+        Assert.assertFalse(thirdLayerWasMerged);
+        Assert.assertEquals(Integer.valueOf(0), cache.getLayerCount());
+        Assert.assertEquals(Integer.valueOf(1), tinyLfuCache.getCachedItem("0"));
+    }
+
+    @Test
+    public void should_discard_pending_layers_when_invalidated() {
+        // Setup
+        final LayeredCache<String, Integer> cache = new LayeredCache<String, Integer>(new TinyLfuCache<String, Integer>("Test", 1024));
+        cache.cacheItem("0", 0);
+
+        final HashMap<String, Integer> items = new HashMap<String, Integer>();
+        items.put("1", 1);
+        cache.publishLayer(items);
+
+        // Action
+        cache.invalidate();
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(0), cache.getLayerCount());
+        Assert.assertNull(cache.getCachedItem("0"));
+        Assert.assertNull(cache.getCachedItem("1"));
+    }
+
+    @Test
+    public void should_not_let_a_pending_layer_shadow_a_direct_write() {
+        // Setup
+        final LayeredCache<String, Integer> cache = new LayeredCache<String, Integer>(new TinyLfuCache<String, Integer>("Test", 1024));
+
+        final HashMap<String, Integer> items = new HashMap<String, Integer>();
+        items.put("0", 0);
+        cache.publishLayer(items);
+
+        // Action
+        cache.cacheItem("0", 1);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(0), cache.getLayerCount());
+        Assert.assertEquals(Integer.valueOf(1), cache.getCachedItem("0"));
+    }
+}
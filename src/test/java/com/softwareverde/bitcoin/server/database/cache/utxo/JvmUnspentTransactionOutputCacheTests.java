@@ -0,0 +1,108 @@
+package com.softwareverde.bitcoin.server.database.cache.utxo;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class JvmUnspentTransactionOutputCacheTests {
+    protected static Sha256Hash sha256(final Long value) {
+        return MutableSha256Hash.wrap(BitcoinUtil.sha256(ByteUtil.longToBytes(value)));
+    }
+
+    @Test
+    public void should_read_while_a_layer_is_being_merged() throws Exception {
+        // Setup
+        final CountDownLatch mergeStartedLatch = new CountDownLatch(1);
+        final CountDownLatch resumeMergeLatch = new CountDownLatch(1);
+
+        final JvmUnspentTransactionOutputCache cache = new JvmUnspentTransactionOutputCache() {
+            @Override
+            protected void _copyOnWrite(final TreeMap<Sha256Hash, Map<Integer, TransactionOutputId>> transactionOutputs, final HashSet<Sha256Hash> copiedTransactionHashes, final Sha256Hash transactionHash) {
+                mergeStartedLatch.countDown();
+                try { resumeMergeLatch.await(); } catch (final InterruptedException exception) { }
+                super._copyOnWrite(transactionOutputs, copiedTransactionHashes, transactionHash);
+            }
+        };
+        cache.cacheUnspentTransactionOutputId(sha256(0L), 0, TransactionOutputId.wrap(1L));
+
+        final JvmUnspentTransactionOutputCache localCache = new JvmUnspentTransactionOutputCache();
+        localCache.cacheUnspentTransactionOutputId(sha256(1L), 0, TransactionOutputId.wrap(2L));
+        cache.commit(localCache);
+
+        final Thread mergeThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                cache.mergeLayer();
+            }
+        });
+        mergeThread.start();
+        Assert.assertTrue(mergeStartedLatch.await(5L, TimeUnit.SECONDS));
+
+        // Action
+        final TransactionOutputId mergedTransactionOutputId = cache.getCachedUnspentTransactionOutputId(sha256(0L), 0);
+        final TransactionOutputId layeredTransactionOutputId = cache.getCachedUnspentTransactionOutputId(sha256(1L), 0);
+
+        resumeMergeLatch.countDown();
+        mergeThread.join(5000L);
+
+        // Assert
+        Assert.assertEquals(TransactionOutputId.wrap(1L), mergedTransactionOutputId);
+        Assert.assertEquals(TransactionOutputId.wrap(2L), layeredTransactionOutputId);
+        Assert.assertEquals(Integer.valueOf(0), cache.getLayerCount());
+        Assert.assertEquals(TransactionOutputId.wrap(2L), cache.getCachedUnspentTransactionOutputId(sha256(1L), 0));
+    }
+
+    @Test
+    public void should_apply_layer_invalidations_when_merged() {
+        // Setup
+        final JvmUnspentTransactionOutputCache cache = new JvmUnspentTransactionOutputCache();
+        cache.cacheUnspentTransactionOutputId(sha256(0L), 0, TransactionOutputId.wrap(1L));
+        cache.cacheUnspentTransactionOutputId(sha256(0L), 1, TransactionOutputId.wrap(2L));
+
+        final JvmUnspentTransactionOutputCache localCache = new JvmUnspentTransactionOutputCache();
+        localCache.invalidateUnspentTransactionOutputId(new TransactionOutputIdentifier(sha256(0L), 0));
+        cache.commit(localCache);
+
+        // Action
+        final TransactionOutputId layeredTransactionOutputId = cache.getCachedUnspentTransactionOutputId(sha256(0L), 0);
+        final Boolean layerWasMerged = cache.mergeLayer();
+
+        // Assert
+        Assert.assertNull(layeredTransactionOutputId);
+        Assert.assertTrue(layerWasMerged);
+        Assert.assertNull(cache.getCachedUnspentTransactionOutputId(sha256(0L), 0));
+        Assert.assertEquals(TransactionOutputId.wrap(2L), cache.getCachedUnspentTransactionOutputId(sha256(0L), 1));
+    }
+
+    @Test
+    public void should_prune_half_of_the_cached_items() {
+        // Setup
+        final JvmUnspentTransactionOutputCache cache = new JvmUnspentTransactionOutputCache();
+        for (long i = 0L; i < 10L; ++i) {
+            cache.cacheUnspentTransactionOutputId(sha256(i), 0, TransactionOutputId.wrap(i + 1L));
+        }
+
+        // Action
+        cache.pruneHalf();
+
+        // Assert
+        int cachedItemCount = 0;
+        for (long i = 0L; i < 10L; ++i) {
+            if (cache.getCachedUnspentTransactionOutputId(sha256(i), 0) != null) {
+                cachedItemCount += 1;
+            }
+        }
+        Assert.assertEquals(5, cachedItemCount);
+    }
+}
@@ -4,8 +4,11 @@ import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
 import com.softwareverde.bitcoin.server.main.NativeUnspentTransactionOutputCache;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
 import com.softwareverde.bitcoin.util.BitcoinUtil;
 import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -51,4 +54,54 @@ public class NativeUnspentTransactionOutputCacheTests {
 
         NativeUnspentTransactionOutputCache.destroy();
     }
+
+    @Test
+    public void should_store_lookup_and_invalidate_items_in_bulk() {
+        // Setup
+        NativeUnspentTransactionOutputCache.init();
+        Assert.assertTrue(NativeUnspentTransactionOutputCache.isEnabled());
+
+        final NativeUnspentTransactionOutputCache cache = new NativeUnspentTransactionOutputCache(UtxoCount.wrap(10000L));
+
+        final int itemCount = 5000;
+        final MutableList<TransactionOutputIdentifier> transactionOutputIdentifiers = new MutableList<TransactionOutputIdentifier>(itemCount);
+        final MutableList<TransactionOutputId> transactionOutputIds = new MutableList<TransactionOutputId>(itemCount);
+        for (int i = 0; i < itemCount; ++i) {
+            transactionOutputIdentifiers.add(new TransactionOutputIdentifier(sha256((long) (i / 2)), (i % 2)));
+            transactionOutputIds.add(TransactionOutputId.wrap(i + 1L));
+        }
+
+        final MutableList<TransactionOutputIdentifier> invalidatedTransactionOutputIdentifiers = new MutableList<TransactionOutputIdentifier>();
+        invalidatedTransactionOutputIdentifiers.add(transactionOutputIdentifiers.get(0));
+        invalidatedTransactionOutputIdentifiers.add(null);
+        invalidatedTransactionOutputIdentifiers.add(transactionOutputIdentifiers.get(itemCount - 1));
+
+        final MutableList<TransactionOutputIdentifier> lookupTransactionOutputIdentifiers = new MutableList<TransactionOutputIdentifier>(itemCount + 1);
+        for (final TransactionOutputIdentifier transactionOutputIdentifier : transactionOutputIdentifiers) {
+            lookupTransactionOutputIdentifiers.add(transactionOutputIdentifier);
+        }
+        lookupTransactionOutputIdentifiers.add(new TransactionOutputIdentifier(sha256(-1L), 0));
+
+        // Action
+        cache.cacheUnspentTransactionOutputIds(transactionOutputIdentifiers, transactionOutputIds);
+        final List<TransactionOutputId> cachedTransactionOutputIds = cache.getCachedUnspentTransactionOutputIds(lookupTransactionOutputIdentifiers);
+
+        cache.invalidateUnspentTransactionOutputIds(invalidatedTransactionOutputIdentifiers);
+        cache.commit();
+        final List<TransactionOutputId> committedTransactionOutputIds = cache.getCachedUnspentTransactionOutputIds(transactionOutputIdentifiers);
+
+        // Assert
+        Assert.assertEquals(itemCount + 1, cachedTransactionOutputIds.getSize());
+        for (int i = 0; i < itemCount; ++i) {
+            Assert.assertEquals(transactionOutputIds.get(i), cachedTransactionOutputIds.get(i));
+            Assert.assertEquals(cache.getCachedUnspentTransactionOutputId(transactionOutputIdentifiers.get(i).getTransactionHash(), transactionOutputIdentifiers.get(i).getOutputIndex()), cachedTransactionOutputIds.get(i));
+        }
+        Assert.assertNull(cachedTransactionOutputIds.get(itemCount));
+
+        Assert.assertNull(committedTransactionOutputIds.get(0));
+        Assert.assertEquals(transactionOutputIds.get(1), committedTransactionOutputIds.get(1));
+        Assert.assertNull(committedTransactionOutputIds.get(itemCount - 1));
+
+        NativeUnspentTransactionOutputCache.destroy();
+    }
 }
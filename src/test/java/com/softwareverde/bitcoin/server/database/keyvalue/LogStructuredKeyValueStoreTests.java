@@ -0,0 +1,144 @@
+package com.softwareverde.bitcoin.server.database.keyvalue;
+
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+public class LogStructuredKeyValueStoreTests {
+    protected static ByteArray _createValue(final Integer byteCount, final Integer seed) {
+        final byte[] bytes = new byte[byteCount];
+        for (int i = 0; i < byteCount; ++i) {
+            bytes[i] = (byte) (seed + i);
+        }
+        return MutableByteArray.wrap(bytes);
+    }
+
+    protected static File _createDirectory() throws Exception {
+        final File directory = Files.createTempDirectory("kv").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    @Test
+    public void should_read_values_after_reopening() throws Exception {
+        // Setup
+        final File directory = _createDirectory();
+        final ByteArray key0 = _createValue(32, 0);
+        final ByteArray key1 = _createValue(32, 1);
+        final ByteArray key2 = _createValue(32, 2);
+
+        final LogStructuredKeyValueStore keyValueStore = LogStructuredKeyValueStore.open(directory, 256L);
+        keyValueStore.put(key0, _createValue(100, 7));
+        keyValueStore.put(key1, _createValue(100, 8));
+        keyValueStore.put(key2, _createValue(100, 9));
+        keyValueStore.put(key0, _createValue(50, 10)); // Supersedes the first value...
+        keyValueStore.remove(key1);
+        keyValueStore.close();
+
+        // Action
+        final LogStructuredKeyValueStore reopenedKeyValueStore = LogStructuredKeyValueStore.open(directory, 256L);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(2), reopenedKeyValueStore.getKeyCount());
+        Assert.assertEquals(_createValue(50, 10), reopenedKeyValueStore.get(key0));
+        Assert.assertNull(reopenedKeyValueStore.get(key1));
+        Assert.assertFalse(reopenedKeyValueStore.containsKey(key1));
+        Assert.assertEquals(_createValue(100, 9), reopenedKeyValueStore.get(key2));
+
+        reopenedKeyValueStore.close();
+    }
+
+    @Test
+    public void should_truncate_incomplete_record_after_unclean_shutdown() throws Exception {
+        // Setup
+        final File directory = _createDirectory();
+        final ByteArray key0 = _createValue(32, 0);
+        final ByteArray key1 = _createValue(32, 1);
+
+        final LogStructuredKeyValueStore keyValueStore = LogStructuredKeyValueStore.open(directory);
+        keyValueStore.put(key0, _createValue(100, 7));
+        keyValueStore.put(key1, _createValue(100, 8));
+        keyValueStore.close();
+
+        final File segmentFile = new File(directory, LogStructuredKeyValueStore._getSegmentFilename(0L));
+        final Long completeByteCount = segmentFile.length();
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(segmentFile, "rw")) {
+            randomAccessFile.setLength(completeByteCount - 10L); // Simulate a torn write of the second record...
+        }
+
+        // Action
+        final LogStructuredKeyValueStore reopenedKeyValueStore = LogStructuredKeyValueStore.open(directory);
+        final Long recoveredByteCount = segmentFile.length();
+        reopenedKeyValueStore.put(key1, _createValue(100, 9));
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(completeByteCount / 2L), recoveredByteCount);
+        Assert.assertEquals(_createValue(100, 7), reopenedKeyValueStore.get(key0));
+        Assert.assertEquals(_createValue(100, 9), reopenedKeyValueStore.get(key1));
+
+        reopenedKeyValueStore.close();
+    }
+
+    @Test
+    public void should_compact_oldest_segments_without_resurrecting_removed_keys() throws Exception {
+        // Setup
+        final File directory = _createDirectory();
+        final ByteArray key0 = _createValue(32, 0);
+        final ByteArray key1 = _createValue(32, 1);
+        final ByteArray key2 = _createValue(32, 2);
+        final ByteArray key3 = _createValue(32, 3);
+
+        final LogStructuredKeyValueStore keyValueStore = LogStructuredKeyValueStore.open(directory, 256L); // Each record is 144 bytes, so each value has its own segment...
+        keyValueStore.put(key0, _createValue(100, 7));
+        keyValueStore.put(key1, _createValue(100, 8));
+        keyValueStore.put(key2, _createValue(100, 9));
+        keyValueStore.put(key3, _createValue(100, 10));
+        keyValueStore.remove(key0);
+        keyValueStore.remove(key2);
+        final Long byteCountBeforeCompaction = keyValueStore.getByteCount();
+
+        // Action
+        final Long reclaimedByteCount = keyValueStore.compact();
+        keyValueStore.close();
+
+        final LogStructuredKeyValueStore reopenedKeyValueStore = LogStructuredKeyValueStore.open(directory, 256L);
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(144L), reclaimedByteCount); // Only the first segment is compacted, since the second segment is still live...
+        Assert.assertEquals(Long.valueOf(byteCountBeforeCompaction - reclaimedByteCount), reopenedKeyValueStore.getByteCount());
+        Assert.assertEquals(Integer.valueOf(2), reopenedKeyValueStore.getKeyCount());
+        Assert.assertNull(reopenedKeyValueStore.get(key0));
+        Assert.assertEquals(_createValue(100, 8), reopenedKeyValueStore.get(key1));
+        Assert.assertNull(reopenedKeyValueStore.get(key2));
+        Assert.assertEquals(_createValue(100, 10), reopenedKeyValueStore.get(key3));
+
+        reopenedKeyValueStore.close();
+    }
+
+    @Test
+    public void should_not_open_store_that_is_already_open() throws Exception {
+        // Setup
+        final File directory = _createDirectory();
+        final ByteArray key0 = _createValue(32, 0);
+
+        final LogStructuredKeyValueStore keyValueStore = LogStructuredKeyValueStore.open(directory, 256L);
+        keyValueStore.put(key0, _createValue(100, 7));
+
+        // Action
+        final LogStructuredKeyValueStore concurrentKeyValueStore = LogStructuredKeyValueStore.open(directory, 256L);
+        keyValueStore.close();
+        final LogStructuredKeyValueStore reopenedKeyValueStore = LogStructuredKeyValueStore.open(directory, 256L);
+
+        // Assert
+        Assert.assertNull(concurrentKeyValueStore);
+        Assert.assertNotNull(reopenedKeyValueStore);
+        Assert.assertEquals(_createValue(100, 7), reopenedKeyValueStore.get(key0));
+
+        reopenedKeyValueStore.close();
+    }
+}
@@ -0,0 +1,202 @@
+package com.softwareverde.bitcoin.server.database.pool;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.server.database.DatabaseConnection;
+import com.softwareverde.bitcoin.server.database.DatabaseConnectionFactory;
+import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.FullNodeBlockDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.test.IntegrationTest;
+import com.softwareverde.database.DatabaseException;
+import com.softwareverde.test.time.FakeSystemTime;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReadReplicaDatabaseConnectionPoolTests extends IntegrationTest {
+    /**
+     * Provides connections to the test database while recording which pool provided each connection.
+     *  The replica's head block height is reported as headBlockHeight, or queried from the test database if null.
+     */
+    protected static class FakeDatabaseConnectionPool implements DatabaseConnectionPool {
+        public final String name;
+        public final List<String> connectionLog;
+        public Long headBlockHeight = null;
+
+        public FakeDatabaseConnectionPool(final String name, final List<String> connectionLog) {
+            this.name = name;
+            this.connectionLog = connectionLog;
+        }
+
+        @Override
+        public DatabaseConnection newConnection() throws DatabaseException {
+            this.connectionLog.add(this.name);
+            return _database.getDatabaseConnectionFactory().newConnection();
+        }
+
+        @Override
+        public void close() { }
+    }
+
+    protected static class TestReadReplicaDatabaseConnectionPool extends ReadReplicaDatabaseConnectionPool {
+        public TestReadReplicaDatabaseConnectionPool(final DatabaseConnectionPool primaryDatabaseConnectionPool, final List<DatabaseConnectionPool> replicaDatabaseConnectionPools, final Long maxBlockHeightLag, final FakeSystemTime systemTime) {
+            super(primaryDatabaseConnectionPool, replicaDatabaseConnectionPools, maxBlockHeightLag, DEFAULT_STALENESS_CHECK_INTERVAL_MS, systemTime);
+        }
+
+        @Override
+        protected Long _getHeadBlockHeight(final DatabaseConnectionFactory databaseConnectionFactory) {
+            if (databaseConnectionFactory instanceof FakeDatabaseConnectionPool) {
+                final Long headBlockHeight = ((FakeDatabaseConnectionPool) databaseConnectionFactory).headBlockHeight;
+                if (headBlockHeight != null) { return headBlockHeight; }
+            }
+
+            return super._getHeadBlockHeight(databaseConnectionFactory);
+        }
+    }
+
+    protected void _storeBlocks() throws Exception {
+        final BlockInflater blockInflater = new BlockInflater();
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
+            synchronized (BlockHeaderDatabaseManager.MUTEX) {
+                for (final String blockData : new String[] { BlockData.MainChain.GENESIS_BLOCK, BlockData.MainChain.BLOCK_1, BlockData.MainChain.BLOCK_2 }) {
+                    final Block block = blockInflater.fromBytes(HexUtil.hexStringToByteArray(blockData));
+                    blockDatabaseManager.storeBlock(block);
+                }
+            }
+        }
+    }
+
+    protected void _newConnections(final DatabaseConnectionPool databaseConnectionPool, final Integer connectionCount) throws Exception {
+        for (int i = 0; i < connectionCount; ++i) {
+            try (final DatabaseConnection databaseConnection = databaseConnectionPool.newConnection()) {
+                Assert.assertNotNull(databaseConnection);
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        _resetDatabase();
+        _storeBlocks();
+    }
+
+    @Test
+    public void should_provide_connections_from_up_to_date_replicas_in_round_robin_order() throws Exception {
+        // Setup
+        final List<String> connectionLog = new ArrayList<String>();
+        final FakeDatabaseConnectionPool primaryDatabaseConnectionPool = new FakeDatabaseConnectionPool("primary", connectionLog);
+        final FakeDatabaseConnectionPool replicaDatabaseConnectionPool0 = new FakeDatabaseConnectionPool("replica0", connectionLog);
+        final FakeDatabaseConnectionPool replicaDatabaseConnectionPool1 = new FakeDatabaseConnectionPool("replica1", connectionLog);
+
+        final List<DatabaseConnectionPool> replicaDatabaseConnectionPools = new ArrayList<DatabaseConnectionPool>();
+        replicaDatabaseConnectionPools.add(replicaDatabaseConnectionPool0);
+        replicaDatabaseConnectionPools.add(replicaDatabaseConnectionPool1);
+
+        final TestReadReplicaDatabaseConnectionPool readReplicaDatabaseConnectionPool = new TestReadReplicaDatabaseConnectionPool(primaryDatabaseConnectionPool, replicaDatabaseConnectionPools, 0L, new FakeSystemTime());
+        readReplicaDatabaseConnectionPool._checkStaleness();
+        connectionLog.clear();
+
+        // Action
+        _newConnections(readReplicaDatabaseConnectionPool, 4);
+
+        // Assert
+        Assert.assertEquals(4, connectionLog.size());
+        Assert.assertEquals("replica0", connectionLog.get(0));
+        Assert.assertEquals("replica1", connectionLog.get(1));
+        Assert.assertEquals("replica0", connectionLog.get(2));
+        Assert.assertEquals("replica1", connectionLog.get(3));
+        Assert.assertEquals(Long.valueOf(4L), readReplicaDatabaseConnectionPool.getReplicaConnectionCount());
+        Assert.assertEquals(Long.valueOf(0L), readReplicaDatabaseConnectionPool.getPrimaryConnectionCount());
+    }
+
+    @Test
+    public void should_exclude_replica_that_lags_the_primary() throws Exception {
+        // Setup
+        final List<String> connectionLog = new ArrayList<String>();
+        final FakeDatabaseConnectionPool primaryDatabaseConnectionPool = new FakeDatabaseConnectionPool("primary", connectionLog);
+        final FakeDatabaseConnectionPool replicaDatabaseConnectionPool0 = new FakeDatabaseConnectionPool("replica0", connectionLog);
+        final FakeDatabaseConnectionPool replicaDatabaseConnectionPool1 = new FakeDatabaseConnectionPool("replica1", connectionLog);
+        replicaDatabaseConnectionPool0.headBlockHeight = 0L; // The primary's head is Block 2...
+        replicaDatabaseConnectionPool1.headBlockHeight = 1L;
+
+        final List<DatabaseConnectionPool> replicaDatabaseConnectionPools = new ArrayList<DatabaseConnectionPool>();
+        replicaDatabaseConnectionPools.add(replicaDatabaseConnectionPool0);
+        replicaDatabaseConnectionPools.add(replicaDatabaseConnectionPool1);
+
+        final TestReadReplicaDatabaseConnectionPool readReplicaDatabaseConnectionPool = new TestReadReplicaDatabaseConnectionPool(primaryDatabaseConnectionPool, replicaDatabaseConnectionPools, 1L, new FakeSystemTime());
+        readReplicaDatabaseConnectionPool._checkStaleness();
+        connectionLog.clear();
+
+        // Action
+        _newConnections(readReplicaDatabaseConnectionPool, 3);
+
+        // Assert
+        Assert.assertEquals(3, connectionLog.size());
+        for (final String poolName : connectionLog) {
+            Assert.assertEquals("replica1", poolName);
+        }
+    }
+
+    @Test
+    public void should_fall_back_to_primary_when_every_replica_is_stale() throws Exception {
+        // Setup
+        final List<String> connectionLog = new ArrayList<String>();
+        final FakeDatabaseConnectionPool primaryDatabaseConnectionPool = new FakeDatabaseConnectionPool("primary", connectionLog);
+        final FakeDatabaseConnectionPool replicaDatabaseConnectionPool = new FakeDatabaseConnectionPool("replica0", connectionLog);
+        replicaDatabaseConnectionPool.headBlockHeight = 0L;
+
+        final List<DatabaseConnectionPool> replicaDatabaseConnectionPools = new ArrayList<DatabaseConnectionPool>();
+        replicaDatabaseConnectionPools.add(replicaDatabaseConnectionPool);
+
+        final TestReadReplicaDatabaseConnectionPool readReplicaDatabaseConnectionPool = new TestReadReplicaDatabaseConnectionPool(primaryDatabaseConnectionPool, replicaDatabaseConnectionPools, 1L, new FakeSystemTime());
+        readReplicaDatabaseConnectionPool._checkStaleness();
+        connectionLog.clear();
+
+        // Action
+        _newConnections(readReplicaDatabaseConnectionPool, 2);
+
+        // Assert
+        Assert.assertEquals(2, connectionLog.size());
+        Assert.assertEquals("primary", connectionLog.get(0));
+        Assert.assertEquals("primary", connectionLog.get(1));
+        Assert.assertEquals(Long.valueOf(2L), readReplicaDatabaseConnectionPool.getPrimaryConnectionCount());
+    }
+
+    @Test
+    public void should_fall_back_to_primary_until_staleness_is_checked_and_after_checks_stop() throws Exception {
+        // Setup
+        final List<String> connectionLog = new ArrayList<String>();
+        final FakeDatabaseConnectionPool primaryDatabaseConnectionPool = new FakeDatabaseConnectionPool("primary", connectionLog);
+        final FakeDatabaseConnectionPool replicaDatabaseConnectionPool = new FakeDatabaseConnectionPool("replica0", connectionLog);
+
+        final List<DatabaseConnectionPool> replicaDatabaseConnectionPools = new ArrayList<DatabaseConnectionPool>();
+        replicaDatabaseConnectionPools.add(replicaDatabaseConnectionPool);
+
+        final FakeSystemTime systemTime = new FakeSystemTime();
+        final TestReadReplicaDatabaseConnectionPool readReplicaDatabaseConnectionPool = new TestReadReplicaDatabaseConnectionPool(primaryDatabaseConnectionPool, replicaDatabaseConnectionPools, 0L, systemTime);
+
+        // Action
+        _newConnections(readReplicaDatabaseConnectionPool, 1); // Not yet checked...
+
+        readReplicaDatabaseConnectionPool._checkStaleness();
+        connectionLog.clear();
+        _newConnections(readReplicaDatabaseConnectionPool, 1);
+
+        systemTime.advanceTimeInMilliseconds((ReadReplicaDatabaseConnectionPool.DEFAULT_STALENESS_CHECK_INTERVAL_MS * ReadReplicaDatabaseConnectionPool.MAX_MISSED_STALENESS_CHECK_COUNT) + 1L);
+        _newConnections(readReplicaDatabaseConnectionPool, 1); // The staleness check is overdue...
+
+        // Assert
+        Assert.assertEquals(2, connectionLog.size());
+        Assert.assertEquals("replica0", connectionLog.get(0));
+        Assert.assertEquals("primary", connectionLog.get(1));
+        Assert.assertEquals(Long.valueOf(2L), readReplicaDatabaseConnectionPool.getPrimaryConnectionCount());
+        Assert.assertEquals(Long.valueOf(1L), readReplicaDatabaseConnectionPool.getReplicaConnectionCount());
+    }
+}
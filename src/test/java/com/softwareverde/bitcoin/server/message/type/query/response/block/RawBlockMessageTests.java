@@ -0,0 +1,34 @@
+package com.softwareverde.bitcoin.server.message.type.query.response.block;
+
+import com.softwareverde.bitcoin.CoreInflater;
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.test.util.TestUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RawBlockMessageTests {
+    @Test
+    public void should_serialize_identically_to_block_message() {
+        // Setup
+        final ByteArray genesisBlockBytes = MutableByteArray.wrap(HexUtil.hexStringToByteArray("0100000000000000000000000000000000000000000000000000000000000000000000003BA3EDFD7A7B12B27AC72C3E67768F617FC81BC3888A51323A9FB8AA4B1E5E4A29AB5F49FFFF001D1DAC2B7C0101000000010000000000000000000000000000000000000000000000000000000000000000FFFFFFFF4D04FFFF001D0104455468652054696D65732030332F4A616E2F32303039204368616E63656C6C6F72206F6E206272696E6B206F66207365636F6E64206261696C6F757420666F722062616E6B73FFFFFFFF0100F2052A01000000434104678AFDB0FE5548271967F1A67130B7105CD6A828E03909A67962E0EA1F61DEB649F6BC3F4CEF38C4F35504E51EC112DE5C384DF7BA0B8D578A4C702B6BF11D5FAC00000000"));
+
+        final CoreInflater coreInflater = new CoreInflater();
+        final BlockInflater blockInflater = coreInflater.getBlockInflater();
+        final Block block = blockInflater.fromBytes(genesisBlockBytes);
+
+        final BlockMessage blockMessage = new BlockMessage(coreInflater);
+        blockMessage.setBlock(block);
+
+        // Action
+        final RawBlockMessage rawBlockMessage = new RawBlockMessage(block.getHash(), genesisBlockBytes);
+
+        // Assert
+        TestUtil.assertEqual(blockMessage.getHeaderBytes(), rawBlockMessage.getHeaderBytes());
+        TestUtil.assertEqual(blockMessage.getBytes().getBytes(), rawBlockMessage.getBytes().getBytes());
+        Assert.assertSame(((MutableByteArray) rawBlockMessage.getBytes()).unwrap(), ((MutableByteArray) rawBlockMessage.getBytes()).unwrap()); // The message is shared by every transmission rather than copied...
+    }
+}
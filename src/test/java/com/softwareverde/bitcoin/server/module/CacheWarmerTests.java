@@ -0,0 +1,129 @@
+package com.softwareverde.bitcoin.server.module;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.database.DatabaseConnection;
+import com.softwareverde.bitcoin.server.database.cache.MasterDatabaseManagerCache;
+import com.softwareverde.bitcoin.server.database.cache.MasterDatabaseManagerCacheCore;
+import com.softwareverde.bitcoin.server.database.cache.utxo.JvmUnspentTransactionOutputCache;
+import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputCache;
+import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputCacheFactory;
+import com.softwareverde.bitcoin.server.database.cache.utxo.UtxoCount;
+import com.softwareverde.bitcoin.server.database.query.Query;
+import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.FullNodeBlockDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.test.IntegrationTest;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.database.row.Row;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CacheWarmerTests extends IntegrationTest {
+    protected static final UnspentTransactionOutputCacheFactory _unspentTransactionOutputCacheFactory = new UnspentTransactionOutputCacheFactory() {
+        @Override
+        public UnspentTransactionOutputCache newUnspentTransactionOutputCache() {
+            return new JvmUnspentTransactionOutputCache() {
+                @Override
+                public UtxoCount getMaxUtxoCount() {
+                    return UtxoCount.wrap(1024L);
+                }
+            };
+        }
+    };
+
+    protected Block[] _storeBlocks() throws Exception {
+        final BlockInflater blockInflater = new BlockInflater();
+        final Block[] blocks = new Block[] {
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.GENESIS_BLOCK)),
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_1)),
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_2))
+        };
+
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
+            synchronized (BlockHeaderDatabaseManager.MUTEX) {
+                for (final Block block : blocks) {
+                    blockDatabaseManager.storeBlock(block);
+                }
+            }
+        }
+
+        return blocks;
+    }
+
+    protected Long _getUnspentTransactionOutputCount() throws Exception {
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final DatabaseConnection databaseConnection = databaseManager.getDatabaseConnection();
+            final java.util.List<Row> rows = databaseConnection.query(new Query("SELECT COUNT(*) AS utxo_count FROM unspent_transaction_outputs"));
+            final Row row = rows.get(0);
+            return row.getLong("utxo_count");
+        }
+    }
+
+    protected static Boolean _isCached(final MasterDatabaseManagerCache masterDatabaseManagerCache, final Block block) {
+        final UnspentTransactionOutputCache unspentTransactionOutputCache = masterDatabaseManagerCache.getUnspentTransactionOutputCache();
+        final Sha256Hash transactionHash = block.getCoinbaseTransaction().getHash();
+        return (unspentTransactionOutputCache.getCachedUnspentTransactionOutputId(transactionHash, 0) != null);
+    }
+
+    @Before
+    public void setup() {
+        _resetDatabase();
+    }
+
+    @Test
+    public void should_not_cache_or_count_outputs_spent_while_warming() throws Exception {
+        // Setup
+        final Block[] blocks = _storeBlocks();
+        final Long unspentTransactionOutputCount = _getUnspentTransactionOutputCount();
+
+        try (final MasterDatabaseManagerCache masterDatabaseManagerCache = new MasterDatabaseManagerCacheCore(_unspentTransactionOutputCacheFactory)) {
+            final CacheWarmer cacheWarmer = new CacheWarmer(masterDatabaseManagerCache, _database.getDatabaseConnectionFactory(), 1);
+            cacheWarmer._spentTransactionOutputIdentifiers.add(new TransactionOutputIdentifier(blocks[1].getCoinbaseTransaction().getHash(), 0)); // Spent before its row was read...
+
+            // Action
+            cacheWarmer.warmUpCache();
+
+            // Assert
+            Assert.assertTrue(cacheWarmer.isComplete());
+            Assert.assertEquals(Long.valueOf(unspentTransactionOutputCount - 1L), cacheWarmer.getCachedUtxoCount());
+            Assert.assertFalse(_isCached(masterDatabaseManagerCache, blocks[1]));
+            Assert.assertTrue(_isCached(masterDatabaseManagerCache, blocks[2]));
+        }
+    }
+
+    @Test
+    public void should_not_commit_while_the_commit_mutex_is_held() throws Exception {
+        // Setup
+        final Block[] blocks = _storeBlocks();
+        final Long unspentTransactionOutputCount = _getUnspentTransactionOutputCount();
+
+        try (final MasterDatabaseManagerCache masterDatabaseManagerCache = new MasterDatabaseManagerCacheCore(_unspentTransactionOutputCacheFactory)) {
+            final CacheWarmer cacheWarmer = new CacheWarmer(masterDatabaseManagerCache, _database.getDatabaseConnectionFactory(), 1);
+
+            // Action
+            synchronized (masterDatabaseManagerCache.getUnspentTransactionOutputCommitMutex()) { // Held as if a processed Block were being committed...
+                cacheWarmer.start();
+                Thread.sleep(500L);
+
+                // Assert
+                Assert.assertTrue(cacheWarmer.isWarmingUp());
+                Assert.assertFalse(_isCached(masterDatabaseManagerCache, blocks[2]));
+            }
+
+            final long timeout = (System.currentTimeMillis() + 10000L);
+            while ( (! cacheWarmer.isComplete()) && (System.currentTimeMillis() < timeout) ) {
+                Thread.sleep(50L);
+            }
+
+            Assert.assertTrue(cacheWarmer.isComplete());
+            Assert.assertEquals(unspentTransactionOutputCount, cacheWarmer.getCachedUtxoCount());
+            Assert.assertTrue(_isCached(masterDatabaseManagerCache, blocks[2]));
+        }
+    }
+}
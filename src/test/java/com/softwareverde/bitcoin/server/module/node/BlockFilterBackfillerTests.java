@@ -0,0 +1,110 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.FullNodeBlockDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.test.IntegrationTest;
+import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+public class BlockFilterBackfillerTests extends IntegrationTest {
+    protected Block[] _storeBlocks() throws Exception {
+        final BlockInflater blockInflater = new BlockInflater();
+        final Block[] blocks = new Block[] {
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.GENESIS_BLOCK)),
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_1)),
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_2)),
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_3))
+        };
+
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
+            synchronized (BlockHeaderDatabaseManager.MUTEX) {
+                for (final Block block : blocks) {
+                    blockDatabaseManager.storeBlock(block);
+                }
+            }
+        }
+
+        return blocks;
+    }
+
+    protected BlockFilterCache _createBlockFilterCache() throws Exception {
+        final File directory = Files.createTempDirectory("filters").toFile();
+        directory.deleteOnExit();
+        return new BlockFilterCache(directory.getAbsolutePath() + "/" + BlockFilterCache.FILTER_DIRECTORY_NAME);
+    }
+
+    @Before
+    public void setup() {
+        _resetDatabase();
+    }
+
+    @Test
+    public void should_backfill_filters_from_genesis_to_the_head_block() throws Exception {
+        // Setup
+        final Block[] blocks = _storeBlocks();
+        final BlockFilterCache blockFilterCache = _createBlockFilterCache();
+        final BlockFilterBackfiller blockFilterBackfiller = new BlockFilterBackfiller(_fullNodeDatabaseManagerFactory, blockFilterCache);
+
+        // Action
+        final Boolean firstRunDidWork = blockFilterBackfiller._run();
+        final Boolean secondRunDidWork = blockFilterBackfiller._run();
+
+        // Assert
+        Assert.assertTrue(firstRunDidWork);
+        Assert.assertFalse(secondRunDidWork);
+        Assert.assertTrue(blockFilterBackfiller.filtersAreCurrent());
+        for (int blockHeight = 0; blockHeight < blocks.length; ++blockHeight) {
+            Assert.assertNotNull(blockFilterCache.getFilterHeader(blocks[blockHeight].getHash(), (long) blockHeight));
+        }
+    }
+
+    @Test
+    public void should_resume_from_the_last_filtered_block() throws Exception {
+        // Setup
+        final Block[] blocks = _storeBlocks();
+        final BlockFilterCache blockFilterCache = _createBlockFilterCache();
+        Assert.assertTrue(blockFilterCache.buildFilter(blocks[0], 0L, new MutableList<LockingScript>(0)));
+        Assert.assertTrue(blockFilterCache.buildFilter(blocks[1], 1L, new MutableList<LockingScript>(0)));
+        final Sha256Hash genesisFilterHeader = blockFilterCache.getFilterHeader(blocks[0].getHash(), 0L);
+
+        final BlockFilterBackfiller blockFilterBackfiller = new BlockFilterBackfiller(_fullNodeDatabaseManagerFactory, blockFilterCache);
+        Assert.assertFalse(blockFilterBackfiller.filtersAreCurrent());
+
+        // Action
+        blockFilterBackfiller._run();
+        blockFilterBackfiller._run();
+
+        // Assert
+        Assert.assertTrue(blockFilterBackfiller.filtersAreCurrent());
+        Assert.assertEquals(genesisFilterHeader, blockFilterCache.getFilterHeader(blocks[0].getHash(), 0L));
+        Assert.assertNotNull(blockFilterCache.getFilterHeader(blocks[2].getHash(), 2L));
+        Assert.assertNotNull(blockFilterCache.getFilterHeader(blocks[3].getHash(), 3L));
+    }
+
+    @Test
+    public void should_not_build_filter_without_previous_filter_header() throws Exception {
+        // Setup
+        final Block[] blocks = _storeBlocks();
+        final BlockFilterCache blockFilterCache = _createBlockFilterCache();
+
+        // Action
+        final Boolean filterWasBuilt = blockFilterCache.buildFilter(blocks[2], 2L, new MutableList<LockingScript>(0));
+
+        // Assert
+        Assert.assertFalse(filterWasBuilt);
+        Assert.assertFalse(blockFilterCache.hasFilter(blocks[2].getHash(), 2L));
+    }
+}
@@ -0,0 +1,234 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.address.AddressInflater;
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.block.MutableBlock;
+import com.softwareverde.bitcoin.secp256k1.key.PrivateKey;
+import com.softwareverde.bitcoin.server.database.cache.LocalDatabaseManagerCache;
+import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.FullNodeBlockDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManagerFactory;
+import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.FullNodeTransactionDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.input.TransactionInputDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.output.TransactionOutputDatabaseManager;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.test.IntegrationTest;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionId;
+import com.softwareverde.bitcoin.transaction.input.TransactionInputId;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.transaction.validator.TransactionValidatorTests;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+public class BlockPrunerTests extends IntegrationTest {
+    /**
+     * Blocks 1 through 5 of the stored chain; Block 4 spends the coinbase of Block 3.
+     */
+    protected static class StoredChain {
+        public final Block[] blocks = new Block[6];
+        public final BlockId[] blockIds = new BlockId[6];
+        public Transaction spentTransaction;
+        public Transaction spendingTransaction;
+    }
+
+    protected static MutableBlock _createBlock(final Block previousBlock, final Transaction... transactions) {
+        final MutableBlock block = new MutableBlock() {
+            @Override
+            public Boolean isValid() { return true; } // Disables basic header validation...
+        };
+
+        block.setDifficulty(previousBlock.getDifficulty());
+        block.setNonce(previousBlock.getNonce());
+        block.setTimestamp(previousBlock.getTimestamp());
+        block.setVersion(previousBlock.getVersion());
+        block.setPreviousBlockHash(previousBlock.getHash());
+        for (final Transaction transaction : transactions) {
+            block.addTransaction(transaction);
+        }
+        return block;
+    }
+
+    protected static Transaction _createCoinbaseTransaction() {
+        final AddressInflater addressInflater = new AddressInflater();
+        final PrivateKey privateKey = PrivateKey.createNewKey(); // Each coinbase pays to a new key so that its hash is unique...
+        return TransactionValidatorTests._createTransactionContaining(
+            TransactionValidatorTests._createCoinbaseTransactionInput(),
+            TransactionValidatorTests._createTransactionOutput(addressInflater.fromPrivateKey(privateKey), 50L * Transaction.SATOSHIS_PER_BITCOIN)
+        );
+    }
+
+    protected StoredChain _storeChain() throws Exception {
+        final AddressInflater addressInflater = new AddressInflater();
+        final BlockInflater blockInflater = new BlockInflater();
+        final StoredChain storedChain = new StoredChain();
+
+        storedChain.blocks[0] = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.GENESIS_BLOCK));
+        storedChain.blocks[1] = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_1));
+        storedChain.blocks[2] = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_2));
+
+        storedChain.spentTransaction = _createCoinbaseTransaction();
+        storedChain.blocks[3] = _createBlock(storedChain.blocks[2], storedChain.spentTransaction);
+
+        storedChain.spendingTransaction = TransactionValidatorTests._createTransactionContaining(
+            TransactionValidatorTests._createTransactionInputThatSpendsTransaction(storedChain.spentTransaction),
+            TransactionValidatorTests._createTransactionOutput(addressInflater.fromBase58Check("1HrXm9WZF7LBm3HCwCBgVS3siDbk5DYCuW"), 50L * Transaction.SATOSHIS_PER_BITCOIN)
+        );
+        storedChain.blocks[4] = _createBlock(storedChain.blocks[3], _createCoinbaseTransaction(), storedChain.spendingTransaction);
+
+        storedChain.blocks[5] = _createBlock(storedChain.blocks[4], _createCoinbaseTransaction());
+
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
+            synchronized (BlockHeaderDatabaseManager.MUTEX) {
+                for (int i = 0; i < storedChain.blocks.length; ++i) {
+                    storedChain.blockIds[i] = blockDatabaseManager.storeBlock(storedChain.blocks[i]);
+                }
+            }
+        }
+
+        return storedChain;
+    }
+
+    protected TransactionOutputId _getTransactionOutputId(final FullNodeDatabaseManager databaseManager, final Transaction transaction) throws Exception {
+        final FullNodeTransactionDatabaseManager transactionDatabaseManager = databaseManager.getTransactionDatabaseManager();
+        final TransactionOutputDatabaseManager transactionOutputDatabaseManager = databaseManager.getTransactionOutputDatabaseManager();
+
+        final TransactionId transactionId = transactionDatabaseManager.getTransactionId(transaction.getHash());
+        return transactionOutputDatabaseManager.getTransactionOutputIds(transactionId).get(0);
+    }
+
+    @Before
+    public void setup() {
+        _resetDatabase();
+    }
+
+    @Test
+    public void should_return_transaction_input_ids_of_block() throws Exception {
+        // Setup
+        final StoredChain storedChain = _storeChain();
+
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final TransactionInputDatabaseManager transactionInputDatabaseManager = databaseManager.getTransactionInputDatabaseManager();
+            final TransactionOutputId spentTransactionOutputId = _getTransactionOutputId(databaseManager, storedChain.spentTransaction);
+
+            // Action
+            final List<TransactionInputId> transactionInputIds = transactionInputDatabaseManager.getTransactionInputIds(storedChain.blockIds[4]);
+            final List<TransactionOutputId> previousTransactionOutputIds = transactionInputDatabaseManager.getPreviousTransactionOutputIds(storedChain.blockIds[4]);
+
+            // Assert
+            Assert.assertEquals(2, transactionInputIds.getSize()); // The coinbase's input and the spending Transaction's input...
+            Assert.assertEquals(1, previousTransactionOutputIds.getSize());
+            Assert.assertEquals(spentTransactionOutputId, previousTransactionOutputIds.get(0));
+        }
+    }
+
+    @Test
+    public void should_delete_transaction_inputs_and_outputs_and_only_invalidate_their_cached_ids() throws Exception {
+        // Setup
+        final StoredChain storedChain = _storeChain();
+
+        final LocalDatabaseManagerCache databaseManagerCache = new LocalDatabaseManagerCache();
+        final FullNodeDatabaseManagerFactory databaseManagerFactory = new FullNodeDatabaseManagerFactory(_database.getDatabaseConnectionFactory(), databaseManagerCache);
+
+        try (final FullNodeDatabaseManager databaseManager = databaseManagerFactory.newDatabaseManager()) {
+            final FullNodeTransactionDatabaseManager transactionDatabaseManager = databaseManager.getTransactionDatabaseManager();
+            final TransactionInputDatabaseManager transactionInputDatabaseManager = databaseManager.getTransactionInputDatabaseManager();
+            final TransactionOutputDatabaseManager transactionOutputDatabaseManager = databaseManager.getTransactionOutputDatabaseManager();
+
+            final TransactionId spentTransactionId = transactionDatabaseManager.getTransactionId(storedChain.spentTransaction.getHash());
+            final TransactionId spendingTransactionId = transactionDatabaseManager.getTransactionId(storedChain.spendingTransaction.getHash());
+            final TransactionOutputId spentTransactionOutputId = _getTransactionOutputId(databaseManager, storedChain.spentTransaction);
+            final TransactionOutputId unspentTransactionOutputId = _getTransactionOutputId(databaseManager, storedChain.spendingTransaction);
+
+            databaseManagerCache.cacheTransactionOutputId(spentTransactionId, 0, spentTransactionOutputId);
+            databaseManagerCache.cacheTransactionOutputId(spendingTransactionId, 0, unspentTransactionOutputId);
+
+            final List<TransactionInputId> transactionInputIds = transactionInputDatabaseManager.getTransactionInputIds(storedChain.blockIds[4]);
+
+            final MutableList<TransactionOutputId> transactionOutputIds = new MutableList<TransactionOutputId>();
+            transactionOutputIds.add(spentTransactionOutputId);
+
+            // Action
+            transactionInputDatabaseManager.deleteTransactionInputs(transactionInputIds);
+            transactionOutputDatabaseManager.deleteTransactionOutputs(transactionOutputIds);
+
+            // Assert
+            Assert.assertTrue(transactionInputDatabaseManager.getTransactionInputIds(storedChain.blockIds[4]).isEmpty());
+            Assert.assertFalse(transactionInputDatabaseManager.getTransactionInputIds(storedChain.blockIds[5]).isEmpty());
+
+            Assert.assertNull(transactionOutputDatabaseManager.getTransactionOutput(spentTransactionOutputId));
+            Assert.assertNotNull(transactionOutputDatabaseManager.getTransactionOutput(unspentTransactionOutputId));
+
+            Assert.assertNull(databaseManagerCache.getCachedTransactionOutputId(spentTransactionId, 0));
+            Assert.assertEquals(unspentTransactionOutputId, databaseManagerCache.getCachedTransactionOutputId(spendingTransactionId, 0));
+        }
+    }
+
+    @Test
+    public void should_prune_blocks_below_depth_and_retain_unspent_outputs() throws Exception {
+        // Setup
+        final StoredChain storedChain = _storeChain();
+        final File prunedBlockHeightFile = new File(Files.createTempDirectory("pruner").toFile(), BlockPruner.PRUNED_BLOCK_HEIGHT_FILENAME);
+        prunedBlockHeightFile.getParentFile().deleteOnExit();
+
+        final BlockPruner blockPruner = new BlockPruner(_fullNodeDatabaseManagerFactory, BlockPruner.MIN_PRUNE_BLOCK_DEPTH, prunedBlockHeightFile.getPath()) {
+            @Override
+            protected Long _getMaxPrunableBlockHeight(final Long headBlockHeight) {
+                return (headBlockHeight - 1L); // Retain only the head Block...
+            }
+        };
+
+        final TransactionOutputId spentTransactionOutputId;
+        final TransactionOutputId unspentTransactionOutputId;
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            spentTransactionOutputId = _getTransactionOutputId(databaseManager, storedChain.spentTransaction);
+            unspentTransactionOutputId = _getTransactionOutputId(databaseManager, storedChain.spendingTransaction);
+        }
+
+        // Action
+        final Boolean didPrune = blockPruner._run();
+
+        // Assert
+        Assert.assertTrue(didPrune);
+        Assert.assertEquals(Long.valueOf(4L), blockPruner.getPrunedBlockHeight());
+        Assert.assertTrue(prunedBlockHeightFile.exists());
+
+        Assert.assertFalse(blockPruner.isBlockPruned(0L));
+        Assert.assertTrue(blockPruner.isBlockPruned(1L));
+        Assert.assertTrue(blockPruner.isBlockPruned(4L));
+        Assert.assertFalse(blockPruner.isBlockPruned(5L));
+
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final TransactionInputDatabaseManager transactionInputDatabaseManager = databaseManager.getTransactionInputDatabaseManager();
+            final TransactionOutputDatabaseManager transactionOutputDatabaseManager = databaseManager.getTransactionOutputDatabaseManager();
+
+            for (int i = 1; i <= 4; ++i) {
+                Assert.assertTrue(transactionInputDatabaseManager.getTransactionInputIds(storedChain.blockIds[i]).isEmpty());
+            }
+            Assert.assertFalse(transactionInputDatabaseManager.getTransactionInputIds(storedChain.blockIds[5]).isEmpty());
+
+            Assert.assertNull(transactionOutputDatabaseManager.getTransactionOutput(spentTransactionOutputId));
+            Assert.assertNotNull(transactionOutputDatabaseManager.getTransactionOutput(unspentTransactionOutputId));
+        }
+
+        { // The pruned height is restored by a new instance...
+            final BlockPruner restoredBlockPruner = new BlockPruner(_fullNodeDatabaseManagerFactory, BlockPruner.MIN_PRUNE_BLOCK_DEPTH, prunedBlockHeightFile.getPath());
+            Assert.assertEquals(Long.valueOf(4L), restoredBlockPruner.getPrunedBlockHeight());
+        }
+
+        { // Nothing further is pruned once every prunable Block has been pruned...
+            Assert.assertFalse(blockPruner._run());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.module.node.utxo.BlockUndoData;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.transaction.script.locking.ImmutableLockingScript;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+public class BlockUndoDataCacheTests {
+    protected BlockUndoData _createBlockUndoData(final String blockHash, final Long amount) {
+        final ImmutableListBuilder<BlockUndoData.SpentOutput> spentOutputs = new ImmutableListBuilder<BlockUndoData.SpentOutput>(2);
+        spentOutputs.add(new BlockUndoData.SpentOutput(Sha256Hash.fromHexString("0437CD7F8525CEED2324359C2D0BA26006D92D856A9C20FA0241106EE5A597C9"), 0, TransactionOutputId.wrap(12L), 9L, amount, new ImmutableLockingScript(ByteArray.fromHexString("76A914B8BCB07F6344B42AB04250C86A6E8B75D3FDBBC688AC"))));
+        spentOutputs.add(new BlockUndoData.SpentOutput(Sha256Hash.fromHexString("F4184FC596403B9D638783CF57ADFE4C75C605F6356FBC91338530E9831E9E16"), 3, null, 170L, 1L, new ImmutableLockingScript(ByteArray.fromHexString("6A"))));
+        return new BlockUndoData(Sha256Hash.fromHexString(blockHash), spentOutputs.build());
+    }
+
+    @Test
+    public void should_read_appended_undo_data() throws Exception {
+        // Setup
+        final File directory = Files.createTempDirectory("undo").toFile();
+        directory.deleteOnExit();
+        final BlockUndoDataCache blockUndoDataCache = new BlockUndoDataCache(directory.getAbsolutePath() + "/" + BlockUndoDataCache.UNDO_DIRECTORY_NAME);
+
+        final String blockHash0 = "00000000839A8E6886AB5951D76F411475428AFC90947EE320161BBF18EB6048";
+        final String blockHash1 = "000000006A625F06636B8BB6AC7B960A8D03705D1ACE08B1A19DA3FDCC99DDBD";
+        final String unknownBlockHash = "0000000082B5015589A3FDF2D4BAFF403E6F0BE035A5D9742C1CAE6295464449";
+
+        // Action
+        blockUndoDataCache.appendUndoData(200L, _createBlockUndoData(blockHash0, 5000000000L));
+        blockUndoDataCache.appendUndoData(201L, _createBlockUndoData(blockHash1, 50L));
+        blockUndoDataCache.appendUndoData(200L, _createBlockUndoData(blockHash0, 4000000000L)); // Supersedes the first entry...
+
+        final BlockUndoData blockUndoData0 = blockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash0), 200L);
+        final BlockUndoData blockUndoData1 = blockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash1), 201L);
+        final BlockUndoData unknownBlockUndoData = blockUndoDataCache.getUndoData(Sha256Hash.fromHexString(unknownBlockHash), 200L);
+        final BlockUndoData unknownBucketBlockUndoData = blockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash0), 5000L);
+
+        // Assert
+        Assert.assertNotNull(blockUndoData0);
+        Assert.assertEquals(Sha256Hash.fromHexString(blockHash0), blockUndoData0.blockHash);
+        Assert.assertEquals(2, blockUndoData0.spentOutputs.getSize());
+        Assert.assertEquals(Long.valueOf(4000000000L), blockUndoData0.spentOutputs.get(0).amount);
+        Assert.assertEquals(TransactionOutputId.wrap(12L), blockUndoData0.spentOutputs.get(0).transactionOutputId);
+        Assert.assertEquals(Long.valueOf(9L), blockUndoData0.spentOutputs.get(0).blockHeight);
+        Assert.assertEquals(ByteArray.fromHexString("76A914B8BCB07F6344B42AB04250C86A6E8B75D3FDBBC688AC"), blockUndoData0.spentOutputs.get(0).lockingScript.getBytes());
+        Assert.assertEquals(Integer.valueOf(3), blockUndoData0.spentOutputs.get(1).outputIndex);
+        Assert.assertNull(blockUndoData0.spentOutputs.get(1).transactionOutputId);
+
+        Assert.assertNotNull(blockUndoData1);
+        Assert.assertEquals(Long.valueOf(50L), blockUndoData1.spentOutputs.get(0).amount);
+
+        Assert.assertNull(unknownBlockUndoData);
+        Assert.assertNull(unknownBucketBlockUndoData);
+    }
+
+    @Test
+    public void should_only_remove_undo_files_entirely_below_height() throws Exception {
+        // Setup
+        final File directory = Files.createTempDirectory("undo").toFile();
+        directory.deleteOnExit();
+        final BlockUndoDataCache blockUndoDataCache = new BlockUndoDataCache(directory.getAbsolutePath() + "/" + BlockUndoDataCache.UNDO_DIRECTORY_NAME);
+
+        final String blockHash0 = "00000000839A8E6886AB5951D76F411475428AFC90947EE320161BBF18EB6048";
+        final String blockHash1 = "000000006A625F06636B8BB6AC7B960A8D03705D1ACE08B1A19DA3FDCC99DDBD";
+        final String blockHash2 = "0000000082B5015589A3FDF2D4BAFF403E6F0BE035A5D9742C1CAE6295464449";
+
+        blockUndoDataCache.appendUndoData(1L, _createBlockUndoData(blockHash0, 1L));
+        blockUndoDataCache.appendUndoData(2016L, _createBlockUndoData(blockHash1, 1L));
+        blockUndoDataCache.appendUndoData(4032L, _createBlockUndoData(blockHash2, 1L));
+
+        // Action
+        blockUndoDataCache.removeUndoDataBefore(4031L);
+
+        // Assert
+        Assert.assertNull(blockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash0), 1L));
+        Assert.assertNotNull(blockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash1), 2016L));
+        Assert.assertNotNull(blockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash2), 4032L));
+    }
+
+    @Test
+    public void should_remove_undo_data_before_a_missing_bucket() throws Exception {
+        // Setup
+        final File directory = Files.createTempDirectory("undo").toFile();
+        directory.deleteOnExit();
+        final BlockUndoDataCache blockUndoDataCache = new BlockUndoDataCache(directory.getAbsolutePath() + "/" + BlockUndoDataCache.UNDO_DIRECTORY_NAME);
+
+        final String blockHash0 = "00000000839A8E6886AB5951D76F411475428AFC90947EE320161BBF18EB6048";
+        final String blockHash2 = "0000000082B5015589A3FDF2D4BAFF403E6F0BE035A5D9742C1CAE6295464449";
+        final String blockHash3 = "000000004EBADB55EE9096C9A2F8880E09DA59C0D68B1C228DA88E48844A1485";
+
+        blockUndoDataCache.appendUndoData(1L, _createBlockUndoData(blockHash0, 1L));
+        blockUndoDataCache.appendUndoData(4032L, _createBlockUndoData(blockHash2, 1L)); // The bucket containing 2016 is never created...
+        blockUndoDataCache.appendUndoData(6048L, _createBlockUndoData(blockHash3, 1L));
+
+        // Action
+        blockUndoDataCache.removeUndoDataBefore(6048L);
+
+        // Assert
+        Assert.assertNull(blockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash0), 1L));
+        Assert.assertNull(blockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash2), 4032L));
+        Assert.assertNotNull(blockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash3), 6048L));
+    }
+
+    @Test
+    public void should_truncate_torn_record_and_continue_appending() throws Exception {
+        // Setup
+        final File directory = Files.createTempDirectory("undo").toFile();
+        directory.deleteOnExit();
+        final String undoDataDirectory = (directory.getAbsolutePath() + "/" + BlockUndoDataCache.UNDO_DIRECTORY_NAME);
+
+        final String blockHash0 = "00000000839A8E6886AB5951D76F411475428AFC90947EE320161BBF18EB6048";
+        final String blockHash1 = "000000006A625F06636B8BB6AC7B960A8D03705D1ACE08B1A19DA3FDCC99DDBD";
+        final String blockHash2 = "0000000082B5015589A3FDF2D4BAFF403E6F0BE035A5D9742C1CAE6295464449";
+
+        final BlockUndoDataCache blockUndoDataCache = new BlockUndoDataCache(undoDataDirectory);
+        blockUndoDataCache.appendUndoData(1L, _createBlockUndoData(blockHash0, 1L));
+        blockUndoDataCache.appendUndoData(2L, _createBlockUndoData(blockHash1, 2L));
+
+        final File undoFile = new File(undoDataDirectory + "/0" + BlockUndoDataCache.UNDO_FILE_EXTENSION);
+        final Long completeByteCount = undoFile.length();
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(undoFile, "rw")) {
+            randomAccessFile.setLength(completeByteCount - 10L); // Simulate a torn write of the second record...
+        }
+
+        // Action
+        final BlockUndoDataCache reopenedBlockUndoDataCache = new BlockUndoDataCache(undoDataDirectory);
+        final BlockUndoData blockUndoData0 = reopenedBlockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash0), 1L);
+        final BlockUndoData blockUndoData1 = reopenedBlockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash1), 2L);
+        final Long recoveredByteCount = undoFile.length();
+        reopenedBlockUndoDataCache.appendUndoData(3L, _createBlockUndoData(blockHash2, 3L));
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(completeByteCount / 2L), recoveredByteCount);
+        Assert.assertNotNull(blockUndoData0);
+        Assert.assertEquals(Long.valueOf(1L), blockUndoData0.spentOutputs.get(0).amount);
+        Assert.assertNull(blockUndoData1);
+
+        final BlockUndoDataCache reloadedBlockUndoDataCache = new BlockUndoDataCache(undoDataDirectory);
+        final BlockUndoData blockUndoData2 = reloadedBlockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash2), 3L);
+        Assert.assertNotNull(blockUndoData2);
+        Assert.assertEquals(Long.valueOf(3L), blockUndoData2.spentOutputs.get(0).amount);
+        Assert.assertNotNull(reloadedBlockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash0), 1L));
+    }
+
+    @Test
+    public void should_not_return_undo_data_with_invalid_checksum() throws Exception {
+        // Setup
+        final File directory = Files.createTempDirectory("undo").toFile();
+        directory.deleteOnExit();
+        final String undoDataDirectory = (directory.getAbsolutePath() + "/" + BlockUndoDataCache.UNDO_DIRECTORY_NAME);
+
+        final String blockHash0 = "00000000839A8E6886AB5951D76F411475428AFC90947EE320161BBF18EB6048";
+
+        final BlockUndoDataCache blockUndoDataCache = new BlockUndoDataCache(undoDataDirectory);
+        blockUndoDataCache.appendUndoData(1L, _createBlockUndoData(blockHash0, 1L));
+
+        final File undoFile = new File(undoDataDirectory + "/0" + BlockUndoDataCache.UNDO_FILE_EXTENSION);
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(undoFile, "rw")) {
+            randomAccessFile.seek(undoFile.length() - 1L);
+            randomAccessFile.write(0x00); // Corrupt the last byte of the locking script...
+        }
+
+        // Action
+        final BlockUndoData blockUndoData = blockUndoDataCache.getUndoData(Sha256Hash.fromHexString(blockHash0), 1L);
+
+        // Assert
+        Assert.assertNull(blockUndoData);
+    }
+}
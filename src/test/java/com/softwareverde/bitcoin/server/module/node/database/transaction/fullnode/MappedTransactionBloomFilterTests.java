@@ -0,0 +1,148 @@
+package com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.TransactionId;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+public class MappedTransactionBloomFilterTests {
+    protected static Sha256Hash createTransactionHash(final long i) {
+        return MutableSha256Hash.wrap(BitcoinUtil.sha256(ByteUtil.longToBytes(i)));
+    }
+
+    @Test
+    public void should_contain_added_transactions() throws Exception {
+        // Setup
+        final File file = File.createTempFile("tx-bloom-filter", ".dat");
+        file.deleteOnExit();
+
+        final MappedTransactionBloomFilter bloomFilter = MappedTransactionBloomFilter.open(file, 10000L, 0.001D, 0L);
+        Assert.assertNotNull(bloomFilter);
+
+        // Action
+        for (long i = 0L; i < 1000L; ++i) {
+            bloomFilter.addTransaction(TransactionId.wrap(i + 1L), MappedTransactionBloomFilterTests.createTransactionHash(i));
+        }
+
+        // Assert
+        for (long i = 0L; i < 1000L; ++i) {
+            Assert.assertTrue(bloomFilter.containsItem(MappedTransactionBloomFilterTests.createTransactionHash(i)));
+        }
+
+        int falsePositiveCount = 0;
+        for (long i = 1000L; i < 11000L; ++i) {
+            if (bloomFilter.containsItem(MappedTransactionBloomFilterTests.createTransactionHash(i))) {
+                falsePositiveCount += 1;
+            }
+        }
+        Assert.assertTrue(falsePositiveCount < 100);
+
+        bloomFilter.close();
+    }
+
+    @Test
+    public void should_restore_filter_and_checkpoint_after_reopening() throws Exception {
+        // Setup
+        final File file = File.createTempFile("tx-bloom-filter", ".dat");
+        file.deleteOnExit();
+
+        final Sha256Hash newestTransactionHash = MappedTransactionBloomFilterTests.createTransactionHash(99L);
+        {
+            final MappedTransactionBloomFilter bloomFilter = MappedTransactionBloomFilter.open(file, 10000L, 0.001D, 0L);
+            for (long i = 0L; i < 100L; ++i) {
+                bloomFilter.addTransaction(TransactionId.wrap(i + 1L), MappedTransactionBloomFilterTests.createTransactionHash(i));
+            }
+            bloomFilter.close();
+        }
+
+        // Action
+        final MappedTransactionBloomFilter bloomFilter = MappedTransactionBloomFilter.open(file, 10000L, 0.001D, 0L);
+
+        // Assert
+        Assert.assertEquals(TransactionId.wrap(100L), bloomFilter.getCheckpointTransactionId());
+        Assert.assertEquals(newestTransactionHash, bloomFilter.getCheckpointTransactionHash());
+        for (long i = 0L; i < 100L; ++i) {
+            Assert.assertTrue(bloomFilter.containsItem(MappedTransactionBloomFilterTests.createTransactionHash(i)));
+        }
+
+        bloomFilter.close();
+    }
+
+    @Test
+    public void should_discard_filter_with_incompatible_parameters() throws Exception {
+        // Setup
+        final File file = File.createTempFile("tx-bloom-filter", ".dat");
+        file.deleteOnExit();
+
+        {
+            final MappedTransactionBloomFilter bloomFilter = MappedTransactionBloomFilter.open(file, 10000L, 0.001D, 0L);
+            bloomFilter.addTransaction(TransactionId.wrap(1L), MappedTransactionBloomFilterTests.createTransactionHash(0L));
+            bloomFilter.close();
+        }
+
+        // Action
+        final MappedTransactionBloomFilter bloomFilter = MappedTransactionBloomFilter.open(file, 20000L, 0.001D, 0L);
+
+        // Assert
+        Assert.assertNull(bloomFilter.getCheckpointTransactionId());
+        Assert.assertFalse(bloomFilter.containsItem(MappedTransactionBloomFilterTests.createTransactionHash(0L)));
+
+        bloomFilter.close();
+    }
+
+    @Test
+    public void should_checkpoint_contiguous_low_water_mark_when_transactions_are_added_out_of_order() throws Exception {
+        // Setup
+        final File file = File.createTempFile("tx-bloom-filter", ".dat");
+        file.deleteOnExit();
+
+        final MappedTransactionBloomFilter bloomFilter = MappedTransactionBloomFilter.open(file, 10000L, 0.001D, 0L);
+        bloomFilter.addTransaction(TransactionId.wrap(1L), MappedTransactionBloomFilterTests.createTransactionHash(1L));
+        bloomFilter.addTransaction(TransactionId.wrap(2L), MappedTransactionBloomFilterTests.createTransactionHash(2L));
+        bloomFilter.addTransaction(TransactionId.wrap(4L), MappedTransactionBloomFilterTests.createTransactionHash(4L)); // Stored concurrently before Transaction 3...
+
+        // Action
+        bloomFilter.checkpoint();
+        final TransactionId checkpointBeforeGapIsFilled = bloomFilter.getCheckpointTransactionId();
+
+        bloomFilter.addTransaction(TransactionId.wrap(3L), MappedTransactionBloomFilterTests.createTransactionHash(3L));
+        bloomFilter.checkpoint();
+        final TransactionId checkpointAfterGapIsFilled = bloomFilter.getCheckpointTransactionId();
+
+        // Assert
+        Assert.assertEquals(TransactionId.wrap(2L), checkpointBeforeGapIsFilled);
+        Assert.assertEquals(TransactionId.wrap(4L), checkpointAfterGapIsFilled);
+        Assert.assertEquals(MappedTransactionBloomFilterTests.createTransactionHash(4L), bloomFilter.getCheckpointTransactionHash());
+
+        bloomFilter.close();
+    }
+
+    @Test
+    public void should_skip_transaction_id_missing_for_a_full_checkpoint_interval() throws Exception {
+        // Setup
+        final File file = File.createTempFile("tx-bloom-filter", ".dat");
+        file.deleteOnExit();
+
+        final MappedTransactionBloomFilter bloomFilter = MappedTransactionBloomFilter.open(file, 10000L, 0.001D, 0L);
+        bloomFilter.addTransaction(TransactionId.wrap(1L), MappedTransactionBloomFilterTests.createTransactionHash(1L));
+        bloomFilter.addTransaction(TransactionId.wrap(3L), MappedTransactionBloomFilterTests.createTransactionHash(3L)); // Transaction 2 was never committed...
+        bloomFilter.checkpoint();
+        final TransactionId checkpointWhenGapIsFirstObserved = bloomFilter.getCheckpointTransactionId();
+
+        // Action
+        bloomFilter.setCheckpointIntervalMs(0L);
+        bloomFilter.checkpoint();
+        final TransactionId checkpointAfterInterval = bloomFilter.getCheckpointTransactionId();
+
+        // Assert
+        Assert.assertEquals(TransactionId.wrap(1L), checkpointWhenGapIsFirstObserved);
+        Assert.assertEquals(TransactionId.wrap(3L), checkpointAfterInterval);
+
+        bloomFilter.close();
+    }
+}
@@ -0,0 +1,162 @@
+package com.softwareverde.bitcoin.server.module.node.handler;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.server.message.type.node.feature.LocalNodeFeatures;
+import com.softwareverde.bitcoin.server.message.type.node.feature.NodeFeatures;
+import com.softwareverde.bitcoin.server.message.type.query.response.error.NotFoundResponseMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItem;
+import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItemType;
+import com.softwareverde.bitcoin.server.module.node.BlockPruner;
+import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.FullNodeBlockDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.test.IntegrationTest;
+import com.softwareverde.bitcoin.test.fake.FakeBinarySocket;
+import com.softwareverde.bitcoin.test.fake.FakeBitcoinNode;
+import com.softwareverde.bitcoin.test.fake.FakeSocket;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.network.p2p.message.ProtocolMessage;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestDataHandlerTests extends IntegrationTest {
+    protected static final LocalNodeFeatures _localNodeFeatures = new LocalNodeFeatures() {
+        @Override
+        public NodeFeatures getNodeFeatures() {
+            final NodeFeatures nodeFeatures = new NodeFeatures();
+            nodeFeatures.enableFeature(NodeFeatures.Feature.BITCOIN_CASH_ENABLED);
+            return nodeFeatures;
+        }
+    };
+
+    protected Block[] _storeBlocks() throws Exception {
+        final BlockInflater blockInflater = new BlockInflater();
+        final Block[] blocks = new Block[] {
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.GENESIS_BLOCK)),
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_1)),
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_2))
+        };
+
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
+            synchronized (BlockHeaderDatabaseManager.MUTEX) {
+                for (final Block block : blocks) {
+                    blockDatabaseManager.storeBlock(block);
+                }
+            }
+        }
+
+        return blocks;
+    }
+
+    protected FakeBitcoinNode _createBitcoinNode() {
+        return new FakeBitcoinNode(new FakeBinarySocket(new FakeSocket(), _threadPool), _threadPool, _localNodeFeatures) {
+            @Override
+            public Boolean isConnected() {
+                return true;
+            }
+        };
+    }
+
+    @Before
+    public void setup() {
+        _resetDatabase();
+    }
+
+    @Test
+    public void should_reply_not_found_for_blocks_at_or_below_snapshot_height() throws Exception {
+        // Setup
+        final Block[] blocks = _storeBlocks();
+
+        final RequestDataHandler requestDataHandler = new RequestDataHandler(_fullNodeDatabaseManagerFactory, null);
+        requestDataHandler.setSnapshotBlockHeight(1L);
+
+        final FakeBitcoinNode bitcoinNode = _createBitcoinNode();
+
+        final MutableList<InventoryItem> inventoryItems = new MutableList<InventoryItem>();
+        inventoryItems.add(new InventoryItem(InventoryItemType.BLOCK, blocks[1].getHash()));
+        inventoryItems.add(new InventoryItem(InventoryItemType.MERKLE_BLOCK, blocks[1].getHash()));
+        inventoryItems.add(new InventoryItem(InventoryItemType.BLOCK, blocks[2].getHash()));
+
+        // Action
+        requestDataHandler.run(inventoryItems, bitcoinNode);
+
+        // Assert
+        final List<ProtocolMessage> sentMessages = bitcoinNode.getSentMessages();
+        Assert.assertEquals(1, sentMessages.getSize());
+
+        final NotFoundResponseMessage notFoundResponseMessage = (NotFoundResponseMessage) sentMessages.get(0);
+        final List<InventoryItem> notFoundInventoryItems = notFoundResponseMessage.getInventoryItems();
+        Assert.assertEquals(2, notFoundInventoryItems.getSize());
+        Assert.assertEquals(inventoryItems.get(0), notFoundInventoryItems.get(0));
+        Assert.assertEquals(inventoryItems.get(1), notFoundInventoryItems.get(1));
+
+        bitcoinNode.disconnect();
+    }
+
+    @Test
+    public void should_reply_not_found_for_pruned_blocks() throws Exception {
+        // Setup
+        final Block[] blocks = _storeBlocks();
+
+        final BlockPruner blockPruner = new BlockPruner(_fullNodeDatabaseManagerFactory, BlockPruner.MIN_PRUNE_BLOCK_DEPTH, null) {
+            @Override
+            protected Long _getPrunedBlockHeight() {
+                return 1L;
+            }
+        };
+
+        final RequestDataHandler requestDataHandler = new RequestDataHandler(_fullNodeDatabaseManagerFactory, null);
+        requestDataHandler.setBlockPruner(blockPruner);
+
+        final FakeBitcoinNode bitcoinNode = _createBitcoinNode();
+
+        final MutableList<InventoryItem> inventoryItems = new MutableList<InventoryItem>();
+        for (final Block block : blocks) {
+            inventoryItems.add(new InventoryItem(InventoryItemType.BLOCK, block.getHash()));
+        }
+
+        // Action
+        requestDataHandler.run(inventoryItems, bitcoinNode);
+
+        // Assert
+        final List<ProtocolMessage> sentMessages = bitcoinNode.getSentMessages();
+        Assert.assertEquals(1, sentMessages.getSize());
+
+        final NotFoundResponseMessage notFoundResponseMessage = (NotFoundResponseMessage) sentMessages.get(0);
+        final List<InventoryItem> notFoundInventoryItems = notFoundResponseMessage.getInventoryItems();
+        Assert.assertEquals(1, notFoundInventoryItems.getSize()); // The genesis Block is never pruned...
+        Assert.assertEquals(inventoryItems.get(1), notFoundInventoryItems.get(0));
+
+        bitcoinNode.disconnect();
+    }
+
+    @Test
+    public void should_serve_all_blocks_without_snapshot() throws Exception {
+        // Setup
+        final Block[] blocks = _storeBlocks();
+
+        final RequestDataHandler requestDataHandler = new RequestDataHandler(_fullNodeDatabaseManagerFactory, null);
+
+        final FakeBitcoinNode bitcoinNode = _createBitcoinNode();
+
+        final MutableList<InventoryItem> inventoryItems = new MutableList<InventoryItem>();
+        for (final Block block : blocks) {
+            inventoryItems.add(new InventoryItem(InventoryItemType.BLOCK, block.getHash()));
+        }
+
+        // Action
+        requestDataHandler.run(inventoryItems, bitcoinNode);
+
+        // Assert
+        final List<ProtocolMessage> sentMessages = bitcoinNode.getSentMessages();
+        Assert.assertEquals(0, sentMessages.getSize()); // Blocks are transmitted directly, so only a NotFoundResponseMessage would be queued...
+
+        bitcoinNode.disconnect();
+    }
+}
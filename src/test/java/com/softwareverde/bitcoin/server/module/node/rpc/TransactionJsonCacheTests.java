@@ -0,0 +1,45 @@
+package com.softwareverde.bitcoin.server.module.node.rpc;
+
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.json.Json;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TransactionJsonCacheTests {
+    @Test
+    public void should_evict_least_recently_used_transaction_json() {
+        // Setup
+        final TransactionJsonCache transactionJsonCache = new TransactionJsonCache(2);
+        final Sha256Hash transactionHash0 = Sha256Hash.fromHexString("0000000000000000000000000000000000000000000000000000000000000001");
+        final Sha256Hash transactionHash1 = Sha256Hash.fromHexString("0000000000000000000000000000000000000000000000000000000000000002");
+        final Sha256Hash transactionHash2 = Sha256Hash.fromHexString("0000000000000000000000000000000000000000000000000000000000000003");
+
+        transactionJsonCache.put(transactionHash0, new Json());
+        transactionJsonCache.put(transactionHash1, new Json());
+        transactionJsonCache.get(transactionHash0); // Mark transactionHash0 as recently used...
+
+        // Action
+        transactionJsonCache.put(transactionHash2, new Json());
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(2), transactionJsonCache.getItemCount());
+        Assert.assertNotNull(transactionJsonCache.get(transactionHash0));
+        Assert.assertNull(transactionJsonCache.get(transactionHash1));
+        Assert.assertNotNull(transactionJsonCache.get(transactionHash2));
+    }
+
+    @Test
+    public void should_remove_all_transaction_json_when_cleared() {
+        // Setup
+        final TransactionJsonCache transactionJsonCache = new TransactionJsonCache();
+        final Sha256Hash transactionHash = Sha256Hash.fromHexString("0000000000000000000000000000000000000000000000000000000000000001");
+        transactionJsonCache.put(transactionHash, new Json());
+
+        // Action
+        transactionJsonCache.clear();
+
+        // Assert
+        Assert.assertNull(transactionJsonCache.get(transactionHash));
+        Assert.assertEquals(Integer.valueOf(0), transactionJsonCache.getItemCount());
+    }
+}
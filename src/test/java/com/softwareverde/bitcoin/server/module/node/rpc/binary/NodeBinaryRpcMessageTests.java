@@ -0,0 +1,48 @@
+package com.softwareverde.bitcoin.server.module.node.rpc.binary;
+
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NodeBinaryRpcMessageTests {
+    @Test
+    public void should_serialize_message_with_little_endian_command_and_length() {
+        // Setup
+        final NodeBinaryRpcMessage message = new NodeBinaryRpcMessage(NodeBinaryRpcCommand.GET_TRANSACTION, ByteArray.fromHexString("0102030405"));
+
+        // Action
+        final byte[] bytes = message.getBytes().getBytes();
+
+        // Assert
+        Assert.assertEquals("56525043" + "03000000" + "05000000" + "0102030405", HexUtil.toHexString(bytes).toUpperCase());
+    }
+
+    @Test
+    public void should_inflate_serialized_message() {
+        // Setup
+        final NodeBinaryRpcMessage message = new NodeBinaryRpcMessage(NodeBinaryRpcCommand.NEW_TRANSACTION, ByteArray.fromHexString("FFFFFFFFFFFFFFFF00"));
+        final NodeBinaryRpcMessageInflater messageInflater = new NodeBinaryRpcMessageInflater();
+
+        // Action
+        final NodeBinaryRpcMessage inflatedMessage = messageInflater.fromBytes(message.getBytes().getBytes());
+
+        // Assert
+        Assert.assertNotNull(inflatedMessage);
+        Assert.assertEquals(NodeBinaryRpcCommand.NEW_TRANSACTION, inflatedMessage.getCommand());
+        Assert.assertEquals(message.getPayload(), inflatedMessage.getPayload());
+    }
+
+    @Test
+    public void should_not_inflate_message_with_invalid_magic_number() {
+        // Setup
+        final NodeBinaryRpcMessageInflater messageInflater = new NodeBinaryRpcMessageInflater();
+        final byte[] bytes = HexUtil.hexStringToByteArray("E3E1F3E8" + "01000000" + "00000000");
+
+        // Action
+        final NodeBinaryRpcMessage inflatedMessage = messageInflater.fromBytes(bytes);
+
+        // Assert
+        Assert.assertNull(inflatedMessage);
+    }
+}
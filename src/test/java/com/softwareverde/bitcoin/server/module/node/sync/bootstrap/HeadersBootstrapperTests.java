@@ -0,0 +1,50 @@
+package com.softwareverde.bitcoin.server.module.node.sync.bootstrap;
+
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.concurrent.pool.MainThreadPool;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class HeadersBootstrapperTests {
+    protected static final String GENESIS_BLOCK_HEADER = "0100000000000000000000000000000000000000000000000000000000000000000000003BA3EDFD7A7B12B27AC72C3E67768F617FC81BC3888A51323A9FB8AA4B1E5E4A29AB5F49FFFF001D1DAC2B7C";
+
+    @Test
+    public void should_inflate_bootstrap_headers_from_buffer() throws Exception {
+        // Setup
+        final HeadersBootstrapper headersBootstrapper = new HeadersBootstrapper(null);
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(HexUtil.hexStringToByteArray(GENESIS_BLOCK_HEADER));
+        final MainThreadPool threadPool = new MainThreadPool(2, 1000L);
+
+        // Action
+        final HeadersBootstrapper.InflatedBatch inflatedBatch = headersBootstrapper._inflateBatch(byteBuffer, 0L, 1, threadPool);
+        final List<BlockHeader> blockHeaders = headersBootstrapper._getInflatedBlockHeaders(inflatedBatch, null);
+        threadPool.stop();
+
+        // Assert
+        Assert.assertNotNull(blockHeaders);
+        Assert.assertEquals(1, blockHeaders.getSize());
+        Assert.assertEquals(BlockHeader.GENESIS_BLOCK_HASH, blockHeaders.get(0).getHash());
+    }
+
+    @Test
+    public void should_reject_bootstrap_headers_with_invalid_proof_of_work() throws Exception {
+        // Setup
+        final HeadersBootstrapper headersBootstrapper = new HeadersBootstrapper(null);
+        final byte[] bytes = HexUtil.hexStringToByteArray(GENESIS_BLOCK_HEADER);
+        bytes[bytes.length - 1] += 1; // Alter the nonce...
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+        final MainThreadPool threadPool = new MainThreadPool(2, 1000L);
+
+        // Action
+        final HeadersBootstrapper.InflatedBatch inflatedBatch = headersBootstrapper._inflateBatch(byteBuffer, 0L, 1, threadPool);
+        final List<BlockHeader> blockHeaders = headersBootstrapper._getInflatedBlockHeaders(inflatedBatch, null);
+        threadPool.stop();
+
+        // Assert
+        Assert.assertNull(blockHeaders);
+    }
+}
@@ -0,0 +1,93 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.TransactionId;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReorganizationUtxoViewTests {
+    protected static Sha256Hash _hash(final long transactionId) {
+        final byte[] bytes = new byte[Sha256Hash.BYTE_COUNT];
+        bytes[Sha256Hash.BYTE_COUNT - 1] = (byte) transactionId;
+        return Sha256Hash.copyOf(bytes);
+    }
+
+    protected static TransactionOutputIdentifier _output(final long transactionId, final int outputIndex) {
+        return new TransactionOutputIdentifier(_hash(transactionId), outputIndex);
+    }
+
+    /**
+     * Creates a BlockUndoRecord whose transactions' ids are provided by transactionIds; each transaction's hash is derived from its id.
+     *  spentOutputs[i] are the outputs spent by transactionIds[i]; the first transaction is the coinbase.
+     */
+    protected static BlockUndoRecord _blockUndoRecord(final long blockId, final long[] transactionIds, final TransactionOutputIdentifier[][] spentOutputs) {
+        final MutableList<TransactionId> transactionIdList = new MutableList<TransactionId>();
+        final MutableList<Sha256Hash> transactionHashes = new MutableList<Sha256Hash>();
+        final MutableList<List<TransactionOutputIdentifier>> spentOutputsList = new MutableList<List<TransactionOutputIdentifier>>();
+        for (int i = 0; i < transactionIds.length; ++i) {
+            transactionIdList.add(TransactionId.wrap(transactionIds[i]));
+            transactionHashes.add(_hash(transactionIds[i]));
+
+            final MutableList<TransactionOutputIdentifier> transactionOutputIdentifiers = new MutableList<TransactionOutputIdentifier>();
+            for (final TransactionOutputIdentifier transactionOutputIdentifier : spentOutputs[i]) {
+                transactionOutputIdentifiers.add(transactionOutputIdentifier);
+            }
+            spentOutputsList.add(transactionOutputIdentifiers);
+        }
+        return new BlockUndoRecord(BlockId.wrap(blockId), transactionIdList, transactionHashes, spentOutputsList);
+    }
+
+    @Test
+    public void should_classify_disconnected_transactions_against_the_new_chain() {
+        // Setup
+        final MutableList<BlockUndoRecord> disconnectedBlocks = new MutableList<BlockUndoRecord>();
+        disconnectedBlocks.add(_blockUndoRecord(1L, new long[] { 10L, 11L, 12L, 13L, 14L }, new TransactionOutputIdentifier[][] {
+            { },
+            { _output(1L, 0) },     // Also mined within the new chain...
+            { _output(2L, 0) },     // Unaffected; restored...
+            { _output(3L, 0) },     // Double-spent by the new chain...
+            { _output(10L, 0) }     // Spends the disconnected coinbase...
+        }));
+        disconnectedBlocks.add(_blockUndoRecord(2L, new long[] { 20L, 21L, 22L }, new TransactionOutputIdentifier[][] {
+            { },
+            { _output(13L, 0) },    // Depends upon an invalidated transaction...
+            { _output(12L, 0) }     // Depends upon a restored transaction...
+        }));
+
+        final MutableList<BlockUndoRecord> connectedBlocks = new MutableList<BlockUndoRecord>();
+        connectedBlocks.add(_blockUndoRecord(3L, new long[] { 30L, 11L, 31L }, new TransactionOutputIdentifier[][] {
+            { },
+            { _output(1L, 0) },
+            { _output(3L, 0) }
+        }));
+
+        // Action
+        final ReorganizationUtxoView reorganizationUtxoView = new ReorganizationUtxoView(disconnectedBlocks, connectedBlocks);
+
+        // Assert
+        final List<TransactionId> confirmedTransactionIds = reorganizationUtxoView.getConfirmedTransactionIds();
+        Assert.assertEquals(2, confirmedTransactionIds.getSize());
+        Assert.assertEquals(TransactionId.wrap(11L), confirmedTransactionIds.get(0));
+        Assert.assertEquals(TransactionId.wrap(31L), confirmedTransactionIds.get(1));
+
+        final List<TransactionId> restoredTransactionIds = reorganizationUtxoView.getRestoredTransactionIds();
+        Assert.assertEquals(2, restoredTransactionIds.getSize());
+        Assert.assertEquals(TransactionId.wrap(12L), restoredTransactionIds.get(0));
+        Assert.assertEquals(TransactionId.wrap(22L), restoredTransactionIds.get(1));
+
+        final List<TransactionId> invalidatedTransactionIds = reorganizationUtxoView.getInvalidatedTransactionIds();
+        Assert.assertEquals(3, invalidatedTransactionIds.getSize());
+        Assert.assertEquals(TransactionId.wrap(13L), invalidatedTransactionIds.get(0));
+        Assert.assertEquals(TransactionId.wrap(14L), invalidatedTransactionIds.get(1));
+        Assert.assertEquals(TransactionId.wrap(21L), invalidatedTransactionIds.get(2));
+
+        final List<TransactionId> disconnectedCoinbaseTransactionIds = reorganizationUtxoView.getDisconnectedCoinbaseTransactionIds();
+        Assert.assertEquals(2, disconnectedCoinbaseTransactionIds.getSize());
+        Assert.assertEquals(TransactionId.wrap(10L), disconnectedCoinbaseTransactionIds.get(0));
+        Assert.assertEquals(TransactionId.wrap(20L), disconnectedCoinbaseTransactionIds.get(1));
+    }
+}
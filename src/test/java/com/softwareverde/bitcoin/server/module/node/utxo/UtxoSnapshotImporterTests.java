@@ -0,0 +1,238 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.server.database.DatabaseConnection;
+import com.softwareverde.bitcoin.server.database.query.Query;
+import com.softwareverde.bitcoin.server.module.node.database.block.fullnode.FullNodeBlockDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.block.header.BlockHeaderDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.block.pending.fullnode.FullNodePendingBlockDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.fullnode.FullNodeDatabaseManager;
+import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.output.TransactionOutputDatabaseManager;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.test.IntegrationTest;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.database.row.Row;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+public class UtxoSnapshotImporterTests extends IntegrationTest {
+    protected static Block[] _inflateBlocks() {
+        final BlockInflater blockInflater = new BlockInflater();
+        return new Block[] {
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.GENESIS_BLOCK)),
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_1)),
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_2))
+        };
+    }
+
+    protected static File _createDirectory() throws Exception {
+        final File directory = Files.createTempDirectory("utxo").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    protected Long _getUnspentTransactionOutputCount() throws Exception {
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final DatabaseConnection databaseConnection = databaseManager.getDatabaseConnection();
+            final java.util.List<Row> rows = databaseConnection.query(new Query("SELECT COUNT(*) AS utxo_count FROM unspent_transaction_outputs"));
+            final Row row = rows.get(0);
+            return row.getLong("utxo_count");
+        }
+    }
+
+    /**
+     * Stores every Block, then exports the UTXO set of the head Block.
+     */
+    protected UtxoSnapshotManifest _exportSnapshot(final Block[] blocks, final File snapshotDirectory) throws Exception {
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
+            synchronized (BlockHeaderDatabaseManager.MUTEX) {
+                for (final Block block : blocks) {
+                    blockDatabaseManager.storeBlock(block);
+                }
+            }
+        }
+
+        final UtxoSnapshotExporter utxoSnapshotExporter = new UtxoSnapshotExporter(_fullNodeDatabaseManagerFactory, 1);
+        return utxoSnapshotExporter.exportSnapshot(snapshotDirectory);
+    }
+
+    /**
+     * Stores the genesis Block and only the headers of the remaining Blocks, as a node would before importing a snapshot.
+     */
+    protected void _storeBlockHeaders(final Block[] blocks) throws Exception {
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
+            final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+            synchronized (BlockHeaderDatabaseManager.MUTEX) {
+                blockDatabaseManager.storeBlock(blocks[0]);
+                for (int i = 1; i < blocks.length; ++i) {
+                    blockHeaderDatabaseManager.storeBlockHeader(blocks[i]);
+                }
+            }
+        }
+    }
+
+    @Before
+    public void setup() {
+        _resetDatabase();
+    }
+
+    @Test
+    public void should_import_exported_snapshot_and_resume_from_snapshot_block() throws Exception {
+        // Setup
+        final Block[] blocks = _inflateBlocks();
+        final Block headBlock = blocks[blocks.length - 1];
+        final File snapshotDirectory = _createDirectory();
+        final File snapshotBlockHeightFile = new File(_createDirectory(), UtxoSnapshotImporter.SNAPSHOT_BLOCK_HEIGHT_FILENAME);
+
+        final UtxoSnapshotManifest utxoSnapshotManifest = _exportSnapshot(blocks, snapshotDirectory);
+        final Long exportedUnspentTransactionOutputCount = _getUnspentTransactionOutputCount();
+
+        _resetDatabase();
+        _storeBlockHeaders(blocks);
+
+        final UtxoSnapshotImporter utxoSnapshotImporter = new UtxoSnapshotImporter(_fullNodeDatabaseManagerFactory, snapshotBlockHeightFile.getPath(), 2);
+
+        // Action
+        final Boolean wasSuccessful = utxoSnapshotImporter.importSnapshot(snapshotDirectory, utxoSnapshotManifest.getCommitmentHash());
+
+        // Assert
+        Assert.assertNotNull(utxoSnapshotManifest);
+        Assert.assertEquals(headBlock.getHash(), utxoSnapshotManifest.getBlockHash());
+        Assert.assertEquals(Long.valueOf(2L), utxoSnapshotManifest.getBlockHeight());
+        Assert.assertEquals(exportedUnspentTransactionOutputCount, utxoSnapshotManifest.getUnspentTransactionOutputCount());
+
+        Assert.assertTrue(wasSuccessful);
+        Assert.assertEquals(exportedUnspentTransactionOutputCount, _getUnspentTransactionOutputCount());
+        Assert.assertEquals(Long.valueOf(2L), UtxoSnapshotImporter.loadSnapshotBlockHeight(snapshotBlockHeightFile.getPath()));
+
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final FullNodeBlockDatabaseManager blockDatabaseManager = databaseManager.getBlockDatabaseManager();
+            final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+            final TransactionOutputDatabaseManager transactionOutputDatabaseManager = databaseManager.getTransactionOutputDatabaseManager();
+
+            final BlockId headBlockId = blockDatabaseManager.getHeadBlockId();
+            Assert.assertEquals(headBlock.getHash(), blockHeaderDatabaseManager.getBlockHash(headBlockId));
+
+            for (int i = 1; i < blocks.length; ++i) {
+                final Transaction coinbaseTransaction = blocks[i].getCoinbaseTransaction();
+                final TransactionOutput expectedTransactionOutput = coinbaseTransaction.getTransactionOutputs().get(0);
+
+                final TransactionOutputId transactionOutputId = transactionOutputDatabaseManager.findTransactionOutput(new TransactionOutputIdentifier(coinbaseTransaction.getHash(), 0));
+                Assert.assertNotNull(transactionOutputId);
+
+                final TransactionOutput transactionOutput = transactionOutputDatabaseManager.getTransactionOutput(transactionOutputId);
+                Assert.assertEquals(expectedTransactionOutput.getAmount(), transactionOutput.getAmount());
+                Assert.assertEquals(expectedTransactionOutput.getLockingScript().getBytes(), transactionOutput.getLockingScript().getBytes());
+            }
+        }
+    }
+
+    @Test
+    public void should_delete_pending_blocks_at_or_below_snapshot_height() throws Exception {
+        // Setup
+        final Block[] blocks = _inflateBlocks();
+        final Block nextBlock = new BlockInflater().fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_3));
+        final File snapshotDirectory = _createDirectory();
+        final File snapshotBlockHeightFile = new File(_createDirectory(), UtxoSnapshotImporter.SNAPSHOT_BLOCK_HEIGHT_FILENAME);
+
+        final UtxoSnapshotManifest utxoSnapshotManifest = _exportSnapshot(blocks, snapshotDirectory);
+
+        _resetDatabase();
+        _storeBlockHeaders(blocks);
+
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final BlockHeaderDatabaseManager blockHeaderDatabaseManager = databaseManager.getBlockHeaderDatabaseManager();
+            final FullNodePendingBlockDatabaseManager pendingBlockDatabaseManager = databaseManager.getPendingBlockDatabaseManager();
+
+            synchronized (BlockHeaderDatabaseManager.MUTEX) {
+                blockHeaderDatabaseManager.storeBlockHeader(nextBlock);
+            }
+
+            // Queued before the snapshot was imported, as if downloaded during the header synchronization...
+            pendingBlockDatabaseManager.storeBlock(blocks[1]);
+            pendingBlockDatabaseManager.storeBlock(blocks[2]);
+            pendingBlockDatabaseManager.storeBlock(nextBlock);
+        }
+
+        final UtxoSnapshotImporter utxoSnapshotImporter = new UtxoSnapshotImporter(_fullNodeDatabaseManagerFactory, snapshotBlockHeightFile.getPath(), 2);
+
+        // Action
+        final Boolean wasSuccessful = utxoSnapshotImporter.importSnapshot(snapshotDirectory, utxoSnapshotManifest.getCommitmentHash());
+
+        // Assert
+        Assert.assertTrue(wasSuccessful);
+
+        try (final FullNodeDatabaseManager databaseManager = _fullNodeDatabaseManagerFactory.newDatabaseManager()) {
+            final FullNodePendingBlockDatabaseManager pendingBlockDatabaseManager = databaseManager.getPendingBlockDatabaseManager();
+
+            Assert.assertFalse(pendingBlockDatabaseManager.pendingBlockExists(blocks[1].getHash()));
+            Assert.assertFalse(pendingBlockDatabaseManager.pendingBlockExists(blocks[2].getHash()));
+            Assert.assertTrue(pendingBlockDatabaseManager.pendingBlockExists(nextBlock.getHash()));
+        }
+    }
+
+    @Test
+    public void should_not_import_snapshot_with_unexpected_commitment() throws Exception {
+        // Setup
+        final Block[] blocks = _inflateBlocks();
+        final File snapshotDirectory = _createDirectory();
+        final File snapshotBlockHeightFile = new File(_createDirectory(), UtxoSnapshotImporter.SNAPSHOT_BLOCK_HEIGHT_FILENAME);
+
+        _exportSnapshot(blocks, snapshotDirectory);
+
+        _resetDatabase();
+        _storeBlockHeaders(blocks);
+        final Long unspentTransactionOutputCount = _getUnspentTransactionOutputCount();
+
+        final UtxoSnapshotImporter utxoSnapshotImporter = new UtxoSnapshotImporter(_fullNodeDatabaseManagerFactory, snapshotBlockHeightFile.getPath(), 2);
+        final Sha256Hash unexpectedCommitmentHash = Sha256Hash.fromHexString("0437CD7F8525CEED2324359C2D0BA26006D92D856A9C20FA0241106EE5A597C9");
+
+        // Action
+        final Boolean wasSuccessful = utxoSnapshotImporter.importSnapshot(snapshotDirectory, unexpectedCommitmentHash);
+
+        // Assert
+        Assert.assertFalse(wasSuccessful);
+        Assert.assertEquals(unspentTransactionOutputCount, _getUnspentTransactionOutputCount());
+        Assert.assertFalse(snapshotBlockHeightFile.exists());
+        Assert.assertEquals(Long.valueOf(0L), UtxoSnapshotImporter.loadSnapshotBlockHeight(snapshotBlockHeightFile.getPath()));
+    }
+
+    @Test
+    public void should_not_import_snapshot_with_modified_chunk() throws Exception {
+        // Setup
+        final Block[] blocks = _inflateBlocks();
+        final File snapshotDirectory = _createDirectory();
+        final File snapshotBlockHeightFile = new File(_createDirectory(), UtxoSnapshotImporter.SNAPSHOT_BLOCK_HEIGHT_FILENAME);
+
+        _exportSnapshot(blocks, snapshotDirectory);
+
+        final File chunkFile = new File(snapshotDirectory, UtxoSnapshotManifest.getChunkFileName(0));
+        final byte[] chunkBytes = Files.readAllBytes(chunkFile.toPath());
+        chunkBytes[chunkBytes.length - 1] ^= 0x01;
+        Files.write(chunkFile.toPath(), chunkBytes);
+
+        _resetDatabase();
+        _storeBlockHeaders(blocks);
+
+        final UtxoSnapshotImporter utxoSnapshotImporter = new UtxoSnapshotImporter(_fullNodeDatabaseManagerFactory, snapshotBlockHeightFile.getPath(), 2);
+
+        // Action
+        final Boolean wasSuccessful = utxoSnapshotImporter.importSnapshot(snapshotDirectory, null);
+
+        // Assert
+        Assert.assertFalse(wasSuccessful);
+    }
+}
@@ -0,0 +1,90 @@
+package com.softwareverde.bitcoin.server.module.node.utxo;
+
+import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.transaction.locktime.ImmutableLockTime;
+import com.softwareverde.bitcoin.transaction.script.locking.ImmutableLockingScript;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UtxoSnapshotTests {
+    protected UtxoSnapshotEntry _createEntry(final String transactionHash, final Long blockHeight) {
+        final ImmutableListBuilder<UtxoSnapshotEntry.Output> outputs = new ImmutableListBuilder<UtxoSnapshotEntry.Output>(2);
+        outputs.add(new UtxoSnapshotEntry.Output(0, 5000000000L, new ImmutableLockingScript(ByteArray.fromHexString("76A914B8BCB07F6344B42AB04250C86A6E8B75D3FDBBC688AC"))));
+        outputs.add(new UtxoSnapshotEntry.Output(3, 1L, new ImmutableLockingScript(ByteArray.fromHexString("6A"))));
+        return new UtxoSnapshotEntry(Sha256Hash.fromHexString(transactionHash), blockHeight, 7, 1L, new ImmutableLockTime(500000L), outputs.build());
+    }
+
+    @Test
+    public void should_inflate_deflated_entries() {
+        // Setup
+        final UtxoSnapshotEntryDeflater utxoSnapshotEntryDeflater = new UtxoSnapshotEntryDeflater();
+        final UtxoSnapshotEntryInflater utxoSnapshotEntryInflater = new UtxoSnapshotEntryInflater();
+
+        final UtxoSnapshotEntry entry0 = _createEntry("0437CD7F8525CEED2324359C2D0BA26006D92D856A9C20FA0241106EE5A597C9", 9L);
+        final UtxoSnapshotEntry entry1 = _createEntry("F4184FC596403B9D638783CF57ADFE4C75C605F6356FBC91338530E9831E9E16", 170L);
+
+        final ByteArray bytes;
+        {
+            final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+            utxoSnapshotEntryDeflater.toBytes(entry0, byteArrayBuilder);
+            utxoSnapshotEntryDeflater.toBytes(entry1, byteArrayBuilder);
+            bytes = MutableByteArray.wrap(byteArrayBuilder.build());
+        }
+
+        // Action
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+        final UtxoSnapshotEntry inflatedEntry0 = utxoSnapshotEntryInflater.fromBytes(byteArrayReader);
+        final UtxoSnapshotEntry inflatedEntry1 = utxoSnapshotEntryInflater.fromBytes(byteArrayReader);
+
+        // Assert
+        Assert.assertFalse(byteArrayReader.hasBytes());
+
+        Assert.assertEquals(entry0.transactionHash, inflatedEntry0.transactionHash);
+        Assert.assertEquals(entry0.blockHeight, inflatedEntry0.blockHeight);
+        Assert.assertEquals(entry1.transactionHash, inflatedEntry1.transactionHash);
+        Assert.assertEquals(entry1.blockHeight, inflatedEntry1.blockHeight);
+        Assert.assertEquals(Integer.valueOf(7), inflatedEntry1.sortOrder);
+        Assert.assertEquals(Long.valueOf(1L), inflatedEntry1.version);
+        Assert.assertEquals(Long.valueOf(500000L), inflatedEntry1.lockTime.getValue());
+
+        Assert.assertEquals(2, inflatedEntry1.outputs.getSize());
+        for (int i = 0; i < entry1.outputs.getSize(); ++i) {
+            final UtxoSnapshotEntry.Output output = entry1.outputs.get(i);
+            final UtxoSnapshotEntry.Output inflatedOutput = inflatedEntry1.outputs.get(i);
+            Assert.assertEquals(output.index, inflatedOutput.index);
+            Assert.assertEquals(output.amount, inflatedOutput.amount);
+            Assert.assertEquals(output.lockingScript.getBytes(), inflatedOutput.lockingScript.getBytes());
+        }
+    }
+
+    @Test
+    public void should_inflate_manifest_with_identical_commitment_hash() {
+        // Setup
+        final MutableList<Sha256Hash> chunkHashes = new MutableList<Sha256Hash>();
+        chunkHashes.add(Sha256Hash.fromHexString("0437CD7F8525CEED2324359C2D0BA26006D92D856A9C20FA0241106EE5A597C9"));
+        chunkHashes.add(Sha256Hash.fromHexString("F4184FC596403B9D638783CF57ADFE4C75C605F6356FBC91338530E9831E9E16"));
+
+        final UtxoSnapshotManifest utxoSnapshotManifest = new UtxoSnapshotManifest(Sha256Hash.fromHexString("000000000019D6689C085AE165831E934FF763AE46A2A6C172B3F1B60A8CE26F"), 0L, 2L, 4L, chunkHashes);
+
+        // Action
+        final UtxoSnapshotManifest inflatedManifest = UtxoSnapshotManifest.fromBytes(utxoSnapshotManifest.getBytes());
+
+        // Assert
+        Assert.assertNotNull(inflatedManifest);
+        Assert.assertEquals(utxoSnapshotManifest.getBlockHash(), inflatedManifest.getBlockHash());
+        Assert.assertEquals(utxoSnapshotManifest.getBlockHeight(), inflatedManifest.getBlockHeight());
+        Assert.assertEquals(utxoSnapshotManifest.getTransactionCount(), inflatedManifest.getTransactionCount());
+        Assert.assertEquals(utxoSnapshotManifest.getUnspentTransactionOutputCount(), inflatedManifest.getUnspentTransactionOutputCount());
+        Assert.assertEquals(chunkHashes.getSize(), inflatedManifest.getChunkCount().intValue());
+        for (int i = 0; i < chunkHashes.getSize(); ++i) {
+            Assert.assertEquals(chunkHashes.get(i), inflatedManifest.getChunkHashes().get(i));
+        }
+        Assert.assertEquals(utxoSnapshotManifest.getCommitmentHash(), inflatedManifest.getCommitmentHash());
+    }
+}
@@ -0,0 +1,161 @@
+package com.softwareverde.bitcoin.transaction;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.block.LazyBlockInflater;
+import com.softwareverde.bitcoin.transaction.script.Script;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.bitcoin.util.IoUtil;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.util.HexUtil;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class LazyTransactionInflaterTests {
+    protected static final String BLOCK_RESOURCE = "/blocks/00000000000000001371D439D02C92C514146E6C3A801399DAAB4742FB707BB1";
+
+    protected static com.sun.management.ThreadMXBean _getThreadMXBean() {
+        final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (! (threadMXBean instanceof com.sun.management.ThreadMXBean)) { return null; }
+
+        final com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (! sunThreadMXBean.isThreadAllocatedMemorySupported()) { return null; }
+
+        sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+        return sunThreadMXBean;
+    }
+
+    @Test
+    public void lazy_transactions_should_match_eagerly_inflated_transactions() {
+        // Setup
+        final byte[] blockBytes = HexUtil.hexStringToByteArray(IoUtil.getResource(BLOCK_RESOURCE));
+        final TransactionDeflater transactionDeflater = new TransactionDeflater();
+
+        final Block expectedBlock = new BlockInflater().fromBytes(blockBytes);
+
+        // Action
+        final Block block = new LazyBlockInflater().fromBytes(blockBytes);
+
+        // Assert
+        Assert.assertNotNull(block);
+        Assert.assertEquals(expectedBlock.getHash(), block.getHash());
+        Assert.assertTrue(block.isValid());
+
+        final List<Transaction> expectedTransactions = expectedBlock.getTransactions();
+        final List<Transaction> transactions = block.getTransactions();
+        Assert.assertTrue(transactions.getSize() > 1);
+        Assert.assertEquals(expectedTransactions.getSize(), transactions.getSize());
+
+        for (int i = 0; i < transactions.getSize(); ++i) {
+            final Transaction expectedTransaction = expectedTransactions.get(i);
+            final Transaction transaction = transactions.get(i);
+            Assert.assertTrue(transaction instanceof LazyTransaction);
+
+            Assert.assertEquals(expectedTransaction.getHash(), transaction.getHash());
+            Assert.assertEquals(expectedTransaction.getVersion(), transaction.getVersion());
+            Assert.assertEquals(expectedTransaction.getLockTime().getValue(), transaction.getLockTime().getValue());
+            Assert.assertEquals(expectedTransaction.getTotalOutputValue(), transaction.getTotalOutputValue());
+            Assert.assertEquals(expectedTransaction.getTransactionInputs().getSize(), transaction.getTransactionInputs().getSize());
+            Assert.assertEquals(expectedTransaction.getTransactionOutputs().getSize(), transaction.getTransactionOutputs().getSize());
+            Assert.assertEquals(transactionDeflater.getByteCount(expectedTransaction), transactionDeflater.getByteCount(transaction));
+
+            // Re-serializing the decoded inputs and outputs must reproduce the original bytes...
+            final ImmutableTransaction decodedTransaction = new ImmutableTransaction(transaction);
+            Assert.assertEquals(transactionDeflater.toBytes(expectedTransaction), transactionDeflater.toBytes(decodedTransaction));
+        }
+    }
+
+    @Test
+    public void lazy_transaction_inflater_should_reject_truncated_transactions() {
+        // Setup
+        final byte[] blockBytes = HexUtil.hexStringToByteArray(IoUtil.getResource(BLOCK_RESOURCE));
+        final Block block = new BlockInflater().fromBytes(blockBytes);
+        final byte[] transactionBytes = new TransactionDeflater().toBytes(block.getCoinbaseTransaction()).getBytes();
+
+        final byte[] truncatedBytes = new byte[transactionBytes.length - 1];
+        System.arraycopy(transactionBytes, 0, truncatedBytes, 0, truncatedBytes.length);
+
+        final LazyTransactionInflater lazyTransactionInflater = new LazyTransactionInflater();
+
+        // Action
+        final LazyTransaction transaction = lazyTransactionInflater.fromBytes(transactionBytes);
+        final LazyTransaction truncatedTransaction = lazyTransactionInflater.fromBytes(truncatedBytes);
+
+        // Assert
+        Assert.assertNotNull(transaction);
+        Assert.assertEquals(block.getCoinbaseTransaction().getHash(), transaction.getHash());
+        Assert.assertNull(truncatedTransaction);
+    }
+
+    @Test
+    public void lazy_transaction_inflater_should_reject_oversized_unlocking_script_like_transaction_inflater() {
+        // Setup
+        final int scriptByteCount = (Script.MAX_BYTE_COUNT + 1);
+
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendBytes(HexUtil.hexStringToByteArray("01000000")); // Version
+        byteArrayBuilder.appendBytes(HexUtil.hexStringToByteArray("01")); // Input Count
+        byteArrayBuilder.appendBytes(new byte[32]); // Previous Output Hash
+        byteArrayBuilder.appendBytes(HexUtil.hexStringToByteArray("00000000")); // Previous Output Index
+        byteArrayBuilder.appendBytes(ByteUtil.variableLengthIntegerToBytes(scriptByteCount)); // Script Byte Count
+        byteArrayBuilder.appendBytes(new byte[scriptByteCount]); // Unlocking Script
+        byteArrayBuilder.appendBytes(HexUtil.hexStringToByteArray("FFFFFFFF")); // Sequence Number
+        byteArrayBuilder.appendBytes(HexUtil.hexStringToByteArray("01")); // Output Count
+        byteArrayBuilder.appendBytes(HexUtil.hexStringToByteArray("0000000000000000")); // Amount
+        byteArrayBuilder.appendBytes(HexUtil.hexStringToByteArray("00")); // Locking Script Byte Count
+        byteArrayBuilder.appendBytes(HexUtil.hexStringToByteArray("00000000")); // Lock Time
+        final byte[] transactionBytes = byteArrayBuilder.build();
+
+        // Action
+        final Transaction transaction = new TransactionInflater().fromBytes(transactionBytes);
+        final LazyTransaction lazyTransaction = new LazyTransactionInflater().fromBytes(transactionBytes);
+
+        // Assert
+        Assert.assertNull(transaction);
+        Assert.assertNull(lazyTransaction);
+    }
+
+    @Test
+    public void lazy_block_inflater_should_allocate_less_than_block_inflater() {
+        // Setup
+        final com.sun.management.ThreadMXBean threadMXBean = _getThreadMXBean();
+        Assume.assumeNotNull(threadMXBean);
+
+        final long threadId = Thread.currentThread().getId();
+        final byte[] blockBytes = HexUtil.hexStringToByteArray(IoUtil.getResource(BLOCK_RESOURCE));
+        final BlockInflater blockInflater = new BlockInflater();
+        final LazyBlockInflater lazyBlockInflater = new LazyBlockInflater();
+        final int iterationCount = 25;
+
+        for (int i = 0; i < iterationCount; ++i) { // Warm up...
+            blockInflater.fromBytes(blockBytes);
+            lazyBlockInflater.fromBytes(blockBytes);
+        }
+
+        // Action
+        final long eagerAllocatedByteCount;
+        {
+            final long startAllocatedByteCount = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < iterationCount; ++i) {
+                blockInflater.fromBytes(blockBytes);
+            }
+            eagerAllocatedByteCount = (threadMXBean.getThreadAllocatedBytes(threadId) - startAllocatedByteCount);
+        }
+
+        final long lazyAllocatedByteCount;
+        {
+            final long startAllocatedByteCount = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < iterationCount; ++i) {
+                lazyBlockInflater.fromBytes(blockBytes);
+            }
+            lazyAllocatedByteCount = (threadMXBean.getThreadAllocatedBytes(threadId) - startAllocatedByteCount);
+        }
+
+        // Assert
+        Assert.assertTrue(lazyAllocatedByteCount < eagerAllocatedByteCount);
+    }
+}
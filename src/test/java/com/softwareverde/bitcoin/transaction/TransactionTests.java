@@ -4,6 +4,7 @@ import com.softwareverde.bitcoin.block.Block;
 import com.softwareverde.bitcoin.block.BlockInflater;
 import com.softwareverde.bitcoin.hash.sha256.Sha256Hash;
 import com.softwareverde.bitcoin.test.util.TestUtil;
+import com.softwareverde.bitcoin.transaction.locktime.ImmutableLockTime;
 import com.softwareverde.util.HexUtil;
 import com.softwareverde.util.IoUtil;
 import org.junit.Assert;
@@ -70,4 +71,30 @@ public class TransactionTests {
         Assert.assertEquals(expectedOutputCount, transaction.getTransactionOutputs().getSize());
         Assert.assertEquals(transactionHash, expectedTransactionHash);
     }
+
+    @Test
+    public void inflated_transaction_should_carry_hash_and_byte_count_until_modified() {
+        // Setup
+        final TransactionDeflater transactionDeflater = new TransactionDeflater();
+        final TransactionInflater transactionInflater = new TransactionInflater();
+
+        final byte[] transactionBytes = HexUtil.hexStringToByteArray("01000000010000000000000000000000000000000000000000000000000000000000000000FFFFFFFF0704FFFF001D0134FFFFFFFF0100F2052A0100000043410411DB93E1DCDB8A016B49840F8C53BC1EB68A382E97B1482ECAD7B148A6909A5CB2E0EADDFB84CCF9744464F82E160BFA9B8B64F9D4C03F999B8643F656B412A3AC00000000");
+        final byte[] expectedTransactionHash = HexUtil.hexStringToByteArray("0437CD7F8525CEED2324359C2D0BA26006D92D856A9C20FA0241106EE5A597C9");
+
+        // Action
+        final MutableTransaction transaction = (MutableTransaction) transactionInflater.fromBytes(transactionBytes);
+        final Transaction constTransaction = transaction.asConst();
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(transactionBytes.length), TransactionDeflater.getCachedByteCount(transaction));
+        Assert.assertEquals(Integer.valueOf(transactionBytes.length), TransactionDeflater.getCachedByteCount(constTransaction));
+        TestUtil.assertEqual(expectedTransactionHash, transaction.getHash().getBytes());
+        TestUtil.assertEqual(expectedTransactionHash, constTransaction.getHash().getBytes());
+
+        transaction.setLockTime(new ImmutableLockTime(1L));
+        Assert.assertNull(TransactionDeflater.getCachedByteCount(transaction));
+        Assert.assertEquals(Integer.valueOf(transactionBytes.length), transactionDeflater.getByteCount(transaction));
+        Assert.assertEquals(new TransactionHasher().hashTransaction(transaction), transaction.getHash());
+        Assert.assertNotEquals(constTransaction.getHash(), transaction.getHash());
+    }
 }
@@ -0,0 +1,312 @@
+package com.softwareverde.bitcoin.transaction.script.runner;
+
+import com.softwareverde.bitcoin.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.secp256k1.key.PrivateKey;
+import com.softwareverde.bitcoin.secp256k1.key.PublicKey;
+import com.softwareverde.bitcoin.transaction.MutableTransaction;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionInflater;
+import com.softwareverde.bitcoin.transaction.input.MutableTransactionInput;
+import com.softwareverde.bitcoin.transaction.input.TransactionInput;
+import com.softwareverde.bitcoin.transaction.locktime.ImmutableLockTime;
+import com.softwareverde.bitcoin.transaction.locktime.LockTime;
+import com.softwareverde.bitcoin.transaction.locktime.SequenceNumber;
+import com.softwareverde.bitcoin.transaction.output.MutableTransactionOutput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.transaction.script.ScriptBuilder;
+import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
+import com.softwareverde.bitcoin.transaction.script.locking.MutableLockingScript;
+import com.softwareverde.bitcoin.transaction.script.runner.context.MutableContext;
+import com.softwareverde.bitcoin.transaction.script.signature.hashtype.HashType;
+import com.softwareverde.bitcoin.transaction.script.signature.hashtype.Mode;
+import com.softwareverde.bitcoin.transaction.script.unlocking.MutableUnlockingScript;
+import com.softwareverde.bitcoin.transaction.script.unlocking.UnlockingScript;
+import com.softwareverde.bitcoin.transaction.signer.SignatureContext;
+import com.softwareverde.bitcoin.transaction.signer.TransactionSigner;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ScriptTemplateRunnerTests {
+    protected static final String PAY_TO_PUBLIC_KEY_TRANSACTION_BEING_SPENT = "01000000010000000000000000000000000000000000000000000000000000000000000000FFFFFFFF0704FFFF001D0134FFFFFFFF0100F2052A0100000043410411DB93E1DCDB8A016B49840F8C53BC1EB68A382E97B1482ECAD7B148A6909A5CB2E0EADDFB84CCF9744464F82E160BFA9B8B64F9D4C03F999B8643F656B412A3AC00000000";
+    protected static final String PAY_TO_PUBLIC_KEY_TRANSACTION = "0100000001C997A5E56E104102FA209C6A852DD90660A20B2D9C352423EDCE25857FCD3704000000004847304402204E45E16932B8AF514961A1D3A1A25FDF3F4F7732E9D624C6C61548AB5FB8CD410220181522EC8ECA07DE4860A4ACDD12909D831CC56CBBAC4622082221A8768D1D0901FFFFFFFF0200CA9A3B00000000434104AE1A62FE09C5F51B13905F07F06B99A2F7159B2225F374CD378D71302FA28414E7AAB37397F554A7DF5F142C21C1B7303B8A0626F1BADED5C72A704F7E6CD84CAC00286BEE0000000043410411DB93E1DCDB8A016B49840F8C53BC1EB68A382E97B1482ECAD7B148A6909A5CB2E0EADDFB84CCF9744464F82E160BFA9B8B64F9D4C03F999B8643F656B412A3AC00000000";
+
+    protected static final String PAY_TO_PUBLIC_KEY_HASH_TRANSACTION_BEING_SPENT = "01000000015AEFC06AF14A9216350A1F549971E0C8381D69B00B492CA20663CAEB5F191825010000006B4830450220210947BCC472D558BED1A36A573BC3C5E11914BE685E868639A46B330AE1879B022100964512E526759EE915A3178F43520CF53D2C38E18A229062EEAB8E2D544A91990121021B36AF5FEDC577DFBF74D75060B20305F1D9127A3C7A7373EF91BF684F6A0491FFFFFFFF0246FBBB84000000001976A914F6A9D96485D1D45D28E38662F617BA39A6B151BB88AC00093D00000000001976A914D948D7A14685B7B5B528034137AA4C590F84F62988AC00000000";
+    protected static final String PAY_TO_PUBLIC_KEY_HASH_TRANSACTION = "0100000001BF9705FAE2004CC9072D7C6D73BC8F38A0A7C67DACEED5FC42E0D20AC8D898C0000000006B483045022100CB0093D91F09644065AC05424DE3DE709C90A9BC963945EE149EAA1CF7B13DA802200EFE508E68A5E2F9C3CBD851B66EB597803ACCDC2F45F07BFD5488DA476727FE0121039500311F6688A8C16A570853AC22230F4B1E0A551D8846550FE4AE56F9799E80FFFFFFFF0200E1F505000000001976A914C23E891A29D290DDB454EBF3456EEAEC56412AB988AC36F3C57E000000001976A914DB89750F929FBD94A8018767A49EF6FC6AC7E46888AC00000000";
+
+    protected static final Long[] BLOCK_HEIGHTS = new Long[]{ 0L, 590000L };
+    protected static final Long BITCOIN_CASH_BLOCK_HEIGHT = 590000L; // Signatures created with the Bitcoin Cash signing algorithm are only valid after the fork...
+
+    protected static MutableContext _createContext(final String transactionBeingSpentHexString, final String transactionHexString) {
+        final TransactionInflater transactionInflater = new TransactionInflater();
+        final Transaction transactionBeingSpent = transactionInflater.fromBytes(HexUtil.hexStringToByteArray(transactionBeingSpentHexString));
+        final Transaction transaction = transactionInflater.fromBytes(HexUtil.hexStringToByteArray(transactionHexString));
+
+        final TransactionInput transactionInput = transaction.getTransactionInputs().get(0);
+        final TransactionOutput transactionOutput = transactionBeingSpent.getTransactionOutputs().get(0);
+
+        final MutableContext context = new MutableContext();
+        context.setTransaction(transaction);
+        context.setTransactionInputIndex(0);
+        context.setTransactionInput(transactionInput);
+        context.setTransactionOutputBeingSpent(transactionOutput);
+        context.setBlockHeight(0L);
+        return context;
+    }
+
+    protected static UnlockingScript _tamper(final UnlockingScript unlockingScript, final int byteIndex) {
+        final byte[] bytes = unlockingScript.getBytes().getBytes(0, unlockingScript.getByteCount());
+        bytes[byteIndex] = (byte) (bytes[byteIndex] ^ 0x01);
+        return new MutableUnlockingScript(MutableByteArray.wrap(bytes));
+    }
+
+    protected static byte[] _hash160(final ByteArray bytes) {
+        return BitcoinUtil.ripemd160(BitcoinUtil.sha256(bytes.getBytes()));
+    }
+
+    /**
+     * Returns the m-of-n multisig script of the PrivateKeys' compressed PublicKeys, in order.
+     */
+    protected static ByteArray _createMultisigScriptBytes(final Integer requiredSignatureCount, final PrivateKey... privateKeys) {
+        final StringBuilder scriptHexString = new StringBuilder();
+        scriptHexString.append(HexUtil.toHexString(new byte[]{ (byte) (0x50 + requiredSignatureCount) }));
+        for (final PrivateKey privateKey : privateKeys) {
+            final PublicKey publicKey = privateKey.getPublicKey().compress();
+            scriptHexString.append(HexUtil.toHexString(new byte[]{ (byte) publicKey.getByteCount() }));
+            scriptHexString.append(HexUtil.toHexString(publicKey.getBytes()));
+        }
+        scriptHexString.append(HexUtil.toHexString(new byte[]{ (byte) (0x50 + privateKeys.length) }));
+        scriptHexString.append("AE"); // OP_CHECKMULTISIG
+        return ByteArray.fromHexString(scriptHexString.toString());
+    }
+
+    protected static Transaction _createSpendingTransaction(final TransactionOutput transactionOutputBeingSpent) {
+        final MutableTransactionInput transactionInput = new MutableTransactionInput();
+        transactionInput.setPreviousOutputTransactionHash(new MutableSha256Hash());
+        transactionInput.setPreviousOutputIndex(0);
+        transactionInput.setSequenceNumber(SequenceNumber.MAX_SEQUENCE_NUMBER);
+        transactionInput.setUnlockingScript(UnlockingScript.EMPTY_SCRIPT);
+
+        final MutableTransactionOutput transactionOutput = new MutableTransactionOutput();
+        transactionOutput.setAmount(transactionOutputBeingSpent.getAmount());
+        transactionOutput.setIndex(0);
+        transactionOutput.setLockingScript(ScriptBuilder.payToAddress("1CujTANFTa9YqSd9S6k3yCehoF2BBKs6ht"));
+
+        final MutableTransaction transaction = new MutableTransaction();
+        transaction.setVersion(1L);
+        transaction.setLockTime(new ImmutableLockTime(LockTime.MIN_TIMESTAMP));
+        transaction.addTransactionInput(transactionInput);
+        transaction.addTransactionOutput(transactionOutput);
+        return transaction;
+    }
+
+    /**
+     * Returns the unlocking script for the multisig script, signed by the provided PrivateKeys in order.
+     *  If the multisig script is redeemed via pay-to-script-hash then the redeem script is appended.
+     */
+    protected static UnlockingScript _signMultisig(final MutableContext context, final ByteArray multisigScriptBytes, final Boolean isPayToScriptHash, final PrivateKey... privateKeys) {
+        final TransactionSigner transactionSigner = new TransactionSigner();
+        final SignatureContext signatureContext = new SignatureContext(context.getTransaction(), new HashType(Mode.SIGNATURE_HASH_ALL, true, true), Long.MAX_VALUE);
+        signatureContext.setInputIndexBeingSigned(0);
+        signatureContext.setShouldSignInputScript(0, true, context.getTransactionOutput());
+        signatureContext.setCurrentScript(new MutableLockingScript(multisigScriptBytes));
+
+        final ScriptBuilder scriptBuilder = new ScriptBuilder();
+        for (final PrivateKey privateKey : privateKeys) {
+            scriptBuilder.pushSignature(transactionSigner.createSignature(signatureContext, privateKey));
+        }
+        if (isPayToScriptHash) {
+            scriptBuilder.pushBytes(multisigScriptBytes);
+        }
+        final UnlockingScript unlockingScript = scriptBuilder.buildUnlockingScript();
+
+        return new MutableUnlockingScript(ByteArray.fromHexString("00" + HexUtil.toHexString(unlockingScript.getBytes().getBytes()))); // Prefixed with the OP_CHECKMULTISIG dummy value...
+    }
+
+    /**
+     * Runs the scripts with and without the template fast-path at several block heights and asserts that both runners agree.
+     *  Returns the agreed-upon result at the first block height.
+     */
+    protected static Boolean _assertRunnersAgree(final LockingScript lockingScript, final UnlockingScript unlockingScript, final MutableContext context) {
+        return _assertRunnersAgree(lockingScript, unlockingScript, context, BLOCK_HEIGHTS);
+    }
+
+    protected static Boolean _assertRunnersAgree(final LockingScript lockingScript, final UnlockingScript unlockingScript, final MutableContext context, final Long... blockHeights) {
+        final ScriptRunner templateScriptRunner = new ScriptRunner(true);
+        final ScriptRunner genericScriptRunner = new ScriptRunner(false);
+
+        Boolean result = null;
+        for (final Long blockHeight : blockHeights) {
+            context.setBlockHeight(blockHeight);
+
+            final Boolean templateResult = templateScriptRunner.runScript(lockingScript, unlockingScript, context);
+            final Boolean genericResult = genericScriptRunner.runScript(lockingScript, unlockingScript, context);
+            Assert.assertEquals(genericResult, templateResult);
+
+            if (result == null) {
+                result = genericResult;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void should_match_generic_runner_for_pay_to_public_key() {
+        // Setup
+        final MutableContext context = _createContext(PAY_TO_PUBLIC_KEY_TRANSACTION_BEING_SPENT, PAY_TO_PUBLIC_KEY_TRANSACTION);
+        final LockingScript lockingScript = context.getTransactionOutput().getLockingScript();
+        final UnlockingScript unlockingScript = context.getTransactionInput().getUnlockingScript();
+
+        // Action
+        final Boolean validResult = _assertRunnersAgree(lockingScript, unlockingScript, context);
+        final Boolean tamperedSignatureResult = _assertRunnersAgree(lockingScript, _tamper(unlockingScript, 10), context);
+        final Boolean tamperedHashTypeResult = _assertRunnersAgree(lockingScript, _tamper(unlockingScript, unlockingScript.getByteCount() - 1), context);
+        final Boolean extraPushResult = _assertRunnersAgree(lockingScript, new MutableUnlockingScript(ByteArray.fromHexString("51" + HexUtil.toHexString(unlockingScript.getBytes().getBytes()))), context);
+
+        // Assert
+        Assert.assertTrue(validResult);
+        Assert.assertFalse(tamperedSignatureResult);
+        Assert.assertFalse(tamperedHashTypeResult);
+        Assert.assertNotNull(extraPushResult);
+    }
+
+    @Test
+    public void should_match_generic_runner_for_pay_to_public_key_hash() {
+        // Setup
+        final MutableContext context = _createContext(PAY_TO_PUBLIC_KEY_HASH_TRANSACTION_BEING_SPENT, PAY_TO_PUBLIC_KEY_HASH_TRANSACTION);
+        final LockingScript lockingScript = context.getTransactionOutput().getLockingScript();
+        final UnlockingScript unlockingScript = context.getTransactionInput().getUnlockingScript();
+        final int publicKeyByteIndex = (unlockingScript.getByteCount() - 1);
+
+        // Action
+        final Boolean validResult = _assertRunnersAgree(lockingScript, unlockingScript, context);
+        final Boolean tamperedSignatureResult = _assertRunnersAgree(lockingScript, _tamper(unlockingScript, 10), context);
+        final Boolean tamperedPublicKeyResult = _assertRunnersAgree(lockingScript, _tamper(unlockingScript, publicKeyByteIndex), context);
+        final Boolean extraPushResult = _assertRunnersAgree(lockingScript, new MutableUnlockingScript(ByteArray.fromHexString("00" + HexUtil.toHexString(unlockingScript.getBytes().getBytes()))), context);
+        final Boolean truncatedResult = _assertRunnersAgree(lockingScript, new MutableUnlockingScript(MutableByteArray.wrap(unlockingScript.getBytes().getBytes(0, unlockingScript.getByteCount() - 1))), context);
+
+        // Assert
+        Assert.assertTrue(validResult);
+        Assert.assertFalse(tamperedSignatureResult);
+        Assert.assertFalse(tamperedPublicKeyResult);
+        Assert.assertNotNull(extraPushResult);
+        Assert.assertFalse(truncatedResult);
+    }
+
+    @Test
+    public void should_match_generic_runner_for_multisig_templates() {
+        // Setup
+        final MutableContext context = _createContext(PAY_TO_PUBLIC_KEY_TRANSACTION_BEING_SPENT, PAY_TO_PUBLIC_KEY_TRANSACTION);
+        final String publicKey = "0411DB93E1DCDB8A016B49840F8C53BC1EB68A382E97B1482ECAD7B148A6909A5CB2E0EADDFB84CCF9744464F82E160BFA9B8B64F9D4C03F999B8643F656B412A3";
+        final String signature = "47304402204E45E16932B8AF514961A1D3A1A25FDF3F4F7732E9D624C6C61548AB5FB8CD410220181522EC8ECA07DE4860A4ACDD12909D831CC56CBBAC4622082221A8768D1D0901";
+        final ByteArray redeemScriptBytes = ByteArray.fromHexString("5141" + publicKey + "51AE");
+        final String redeemScriptPush = ("4C" + HexUtil.toHexString(new byte[]{ (byte) redeemScriptBytes.getByteCount() }) + HexUtil.toHexString(redeemScriptBytes.getBytes()));
+
+        final LockingScript bareMultisigLockingScript = new MutableLockingScript(redeemScriptBytes);
+        final LockingScript payToScriptHashLockingScript = new MutableLockingScript(ByteArray.fromHexString("A914" + HexUtil.toHexString(_hash160(redeemScriptBytes)) + "87"));
+        final LockingScript mismatchedPayToScriptHashLockingScript = new MutableLockingScript(ByteArray.fromHexString("A914" + "0000000000000000000000000000000000000000" + "87"));
+
+        // Action
+        final Boolean bareMultisigResult = _assertRunnersAgree(bareMultisigLockingScript, new MutableUnlockingScript(ByteArray.fromHexString("00" + signature)), context);
+        final Boolean bareMultisigMissingDummyResult = _assertRunnersAgree(bareMultisigLockingScript, new MutableUnlockingScript(ByteArray.fromHexString(signature)), context);
+        final Boolean bareMultisigDirtyStackResult = _assertRunnersAgree(bareMultisigLockingScript, new MutableUnlockingScript(ByteArray.fromHexString("5100" + signature)), context);
+        final Boolean payToScriptHashResult = _assertRunnersAgree(payToScriptHashLockingScript, new MutableUnlockingScript(ByteArray.fromHexString("00" + signature + redeemScriptPush)), context);
+        final Boolean mismatchedPayToScriptHashResult = _assertRunnersAgree(mismatchedPayToScriptHashLockingScript, new MutableUnlockingScript(ByteArray.fromHexString("00" + signature + redeemScriptPush)), context);
+
+        // Assert
+        Assert.assertFalse(bareMultisigResult); // The signature commits to the pay-to-public-key script, not the multisig script...
+        Assert.assertFalse(bareMultisigMissingDummyResult);
+        Assert.assertFalse(bareMultisigDirtyStackResult);
+        Assert.assertFalse(payToScriptHashResult);
+        Assert.assertFalse(mismatchedPayToScriptHashResult);
+    }
+
+    @Test
+    public void should_match_generic_runner_for_signed_multisig() {
+        final PrivateKey[] privateKeys = new PrivateKey[]{ PrivateKey.createNewKey(), PrivateKey.createNewKey(), PrivateKey.createNewKey() };
+        final PrivateKey unknownPrivateKey = PrivateKey.createNewKey();
+        final int[][] multisigTemplates = new int[][]{ {1, 1}, {1, 3}, {2, 3}, {3, 3} }; // m-of-n
+
+        for (final int[] multisigTemplate : multisigTemplates) {
+            for (final Boolean isPayToScriptHash : new Boolean[]{ false, true }) {
+                // Setup
+                final int requiredSignatureCount = multisigTemplate[0];
+                final int publicKeyCount = multisigTemplate[1];
+
+                final PrivateKey[] publicKeyPrivateKeys = new PrivateKey[publicKeyCount];
+                System.arraycopy(privateKeys, 0, publicKeyPrivateKeys, 0, publicKeyCount);
+
+                final PrivateKey[] leadingSigners = new PrivateKey[requiredSignatureCount];
+                final PrivateKey[] trailingSigners = new PrivateKey[requiredSignatureCount];
+                final PrivateKey[] reversedSigners = new PrivateKey[requiredSignatureCount];
+                final PrivateKey[] unknownSigners = new PrivateKey[requiredSignatureCount];
+                final PrivateKey[] insufficientSigners = new PrivateKey[requiredSignatureCount - 1];
+                for (int i = 0; i < requiredSignatureCount; ++i) {
+                    leadingSigners[i] = publicKeyPrivateKeys[i];
+                    trailingSigners[i] = publicKeyPrivateKeys[(publicKeyCount - requiredSignatureCount) + i];
+                    reversedSigners[i] = publicKeyPrivateKeys[(requiredSignatureCount - 1) - i];
+                    unknownSigners[i] = ( (i == (requiredSignatureCount - 1)) ? unknownPrivateKey : publicKeyPrivateKeys[i] );
+                    if (i < insufficientSigners.length) {
+                        insufficientSigners[i] = publicKeyPrivateKeys[i];
+                    }
+                }
+
+                final ByteArray multisigScriptBytes = _createMultisigScriptBytes(requiredSignatureCount, publicKeyPrivateKeys);
+                final LockingScript lockingScript;
+                if (isPayToScriptHash) {
+                    lockingScript = new MutableLockingScript(ByteArray.fromHexString("A914" + HexUtil.toHexString(_hash160(multisigScriptBytes)) + "87"));
+                }
+                else {
+                    lockingScript = new MutableLockingScript(multisigScriptBytes);
+                }
+
+                final MutableTransactionOutput transactionOutputBeingSpent = new MutableTransactionOutput();
+                transactionOutputBeingSpent.setAmount(50L * Transaction.SATOSHIS_PER_BITCOIN);
+                transactionOutputBeingSpent.setIndex(0);
+                transactionOutputBeingSpent.setLockingScript(lockingScript);
+
+                final Transaction transaction = _createSpendingTransaction(transactionOutputBeingSpent);
+                final MutableContext context = MutableContext.getContextForVerification(transaction, 0, transactionOutputBeingSpent);
+
+                final UnlockingScript validUnlockingScript = _signMultisig(context, multisigScriptBytes, isPayToScriptHash, leadingSigners);
+                final UnlockingScript missingDummyUnlockingScript = new MutableUnlockingScript(MutableByteArray.wrap(validUnlockingScript.getBytes().getBytes(1, validUnlockingScript.getByteCount() - 1)));
+
+                // Action
+                final Boolean validResult = _assertRunnersAgree(lockingScript, validUnlockingScript, context, BITCOIN_CASH_BLOCK_HEIGHT, 0L);
+                final Boolean trailingSignersResult = _assertRunnersAgree(lockingScript, _signMultisig(context, multisigScriptBytes, isPayToScriptHash, trailingSigners), context, BITCOIN_CASH_BLOCK_HEIGHT, 0L);
+                final Boolean reversedSignersResult = _assertRunnersAgree(lockingScript, _signMultisig(context, multisigScriptBytes, isPayToScriptHash, reversedSigners), context, BITCOIN_CASH_BLOCK_HEIGHT, 0L);
+                final Boolean unknownSignerResult = _assertRunnersAgree(lockingScript, _signMultisig(context, multisigScriptBytes, isPayToScriptHash, unknownSigners), context, BITCOIN_CASH_BLOCK_HEIGHT, 0L);
+                final Boolean insufficientSignersResult = _assertRunnersAgree(lockingScript, _signMultisig(context, multisigScriptBytes, isPayToScriptHash, insufficientSigners), context, BITCOIN_CASH_BLOCK_HEIGHT, 0L);
+                final Boolean tamperedSignatureResult = _assertRunnersAgree(lockingScript, _tamper(validUnlockingScript, 8), context, BITCOIN_CASH_BLOCK_HEIGHT, 0L);
+                final Boolean missingDummyResult = _assertRunnersAgree(lockingScript, missingDummyUnlockingScript, context, BITCOIN_CASH_BLOCK_HEIGHT, 0L);
+
+                // Assert
+                final String message = (requiredSignatureCount + "-of-" + publicKeyCount + (isPayToScriptHash ? " (P2SH)" : ""));
+                Assert.assertTrue(message, validResult);
+                Assert.assertTrue(message, trailingSignersResult);
+                Assert.assertEquals(message, (requiredSignatureCount < 2), reversedSignersResult); // A single signature cannot be out of order...
+                Assert.assertFalse(message, unknownSignerResult);
+                Assert.assertFalse(message, insufficientSignersResult);
+                Assert.assertFalse(message, tamperedSignatureResult);
+                Assert.assertFalse(message, missingDummyResult);
+            }
+        }
+    }
+
+    @Test
+    public void should_fall_back_to_generic_runner_for_segwit_recovery() {
+        // Setup
+        final MutableContext context = new MutableContext();
+        final LockingScript lockingScript = new MutableLockingScript(ByteArray.fromHexString("A91417743BEB429C55C942D2EC703B98C4D57C2DF5C687"));
+        final UnlockingScript unlockingScript = new MutableUnlockingScript(ByteArray.fromHexString("16001491B24BF9F5288532960AC687ABB035127B1D28A5"));
+
+        // Action
+        final Boolean result = _assertRunnersAgree(lockingScript, unlockingScript, context);
+
+        // Assert
+        Assert.assertTrue(result);
+    }
+}
@@ -0,0 +1,86 @@
+package com.softwareverde.network.p2p.node.manager.health;
+
+import com.softwareverde.network.p2p.node.NodeId;
+import com.softwareverde.test.time.FakeSystemTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+public class NodeHealthIndexTests {
+    @Test
+    public void should_order_nodes_by_pending_requests_then_response_time() {
+        // Setup
+        final FakeSystemTime fakeTime = new FakeSystemTime();
+        final NodeHealthIndex nodeHealthIndex = new NodeHealthIndex();
+        final MutableNodeHealth nodeHealth0 = new MutableNodeHealth(NodeId.wrap(0L), fakeTime);
+        final MutableNodeHealth nodeHealth1 = new MutableNodeHealth(NodeId.wrap(1L), fakeTime);
+        final MutableNodeHealth nodeHealth2 = new MutableNodeHealth(NodeId.wrap(2L), fakeTime);
+        nodeHealthIndex.add(nodeHealth0);
+        nodeHealthIndex.add(nodeHealth1);
+        nodeHealthIndex.add(nodeHealth2);
+
+        // Action
+        final MutableNodeHealth.Request request0 = nodeHealth0.onRequestSent();
+        final MutableNodeHealth.Request request1 = nodeHealth1.onRequestSent();
+        fakeTime.advanceTimeInMilliseconds(100L);
+        nodeHealth1.onResponseReceived(request1);
+        fakeTime.advanceTimeInMilliseconds(400L);
+        nodeHealth0.onResponseReceived(request0);
+
+        nodeHealth2.onRequestSent(); // Remains pending...
+
+        // Assert
+        final Iterator<NodeId> iterator = nodeHealthIndex.iterator();
+        Assert.assertEquals(NodeId.wrap(1L), iterator.next());
+        Assert.assertEquals(NodeId.wrap(0L), iterator.next());
+        Assert.assertEquals(NodeId.wrap(2L), iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void should_penalize_failed_requests() {
+        // Setup
+        final FakeSystemTime fakeTime = new FakeSystemTime();
+        final NodeHealthIndex nodeHealthIndex = new NodeHealthIndex();
+        final MutableNodeHealth nodeHealth0 = new MutableNodeHealth(NodeId.wrap(0L), fakeTime);
+        final MutableNodeHealth nodeHealth1 = new MutableNodeHealth(NodeId.wrap(1L), fakeTime);
+        nodeHealthIndex.add(nodeHealth0);
+        nodeHealthIndex.add(nodeHealth1);
+
+        // Action
+        final MutableNodeHealth.Request request0 = nodeHealth0.onRequestSent();
+        final MutableNodeHealth.Request request1 = nodeHealth1.onRequestSent();
+        fakeTime.advanceTimeInMilliseconds(100L);
+        nodeHealth0.onRequestFailed(request0);
+        nodeHealth1.onResponseReceived(request1);
+        nodeHealth0.onResponseReceived(request0); // A late response should not be recorded twice...
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(0), nodeHealth0.getPendingRequestCount());
+        Assert.assertEquals(Float.valueOf(MutableNodeHealth.AVERAGE_WEIGHT), nodeHealth0.getFailureRate());
+
+        final Iterator<NodeId> iterator = nodeHealthIndex.iterator();
+        Assert.assertEquals(NodeId.wrap(1L), iterator.next());
+        Assert.assertEquals(NodeId.wrap(0L), iterator.next());
+    }
+
+    @Test
+    public void should_not_contain_removed_nodes() {
+        // Setup
+        final FakeSystemTime fakeTime = new FakeSystemTime();
+        final NodeHealthIndex nodeHealthIndex = new NodeHealthIndex();
+        final MutableNodeHealth nodeHealth0 = new MutableNodeHealth(NodeId.wrap(0L), fakeTime);
+        final MutableNodeHealth nodeHealth1 = new MutableNodeHealth(NodeId.wrap(1L), fakeTime);
+        nodeHealthIndex.add(nodeHealth0);
+        nodeHealthIndex.add(nodeHealth1);
+
+        // Action
+        nodeHealthIndex.remove(nodeHealth0);
+        nodeHealth0.onRequestSent();
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(1), nodeHealthIndex.getNodeCount());
+        Assert.assertEquals(NodeId.wrap(1L), nodeHealthIndex.iterator().next());
+    }
+}